@@ -61,6 +61,7 @@ public class JCLServer {
         Duration timeLimit;
         Integer maxThreads;
         boolean useCachedThreadPool;
+        boolean useVirtualThreads;
         boolean useTxsBatch;
         int txsBatchSize;
         boolean verifyChecksum = true; // default
@@ -159,6 +160,12 @@ public class JCLServer {
                     .build();
         }
 
+        if (config.useVirtualThreads) {
+            runtimeConfig = runtimeConfig.toBuilder()
+                    .useVirtualThreadsForBlockingTasks(true)
+                    .build();
+        }
+
         // Protocol Configuration:
         ProtocolConfig protocolConfig = ProtocolConfigBuilder.get(NETWORK_PARAMS);
 
@@ -318,6 +325,10 @@ public class JCLServer {
         String useCachedThreadPoolStr = getParamValue("useCachedPool", args);
         boolean useCachedThreadPool = (useCachedThreadPoolStr != null) ? Boolean.valueOf(useCachedThreadPoolStr) : false;
 
+        // We get the 'useVirtualThreads' parameter:
+        String useVirtualThreadsStr = getParamValue("useVirtualThreads", args);
+        boolean useVirtualThreads = (useVirtualThreadsStr != null) ? Boolean.valueOf(useVirtualThreadsStr) : false;
+
         // We get the useTxsBatch' parameter:
         String useTxsBatchStr = getParamValue("useTxsBatch", args);
         boolean useTxsBatch = (useTxsBatchStr != null) ? Boolean.valueOf(useTxsBatchStr) : false;
@@ -334,6 +345,7 @@ public class JCLServer {
         result.timeLimit = timeLimit;
         result.maxThreads = maxThreads;
         result.useCachedThreadPool = useCachedThreadPool;
+        result.useVirtualThreads = useVirtualThreads;
         result.useTxsBatch = useTxsBatch;
         result.txsBatchSize = txsBatchSize;
         result.verifyChecksum = verifyChecksum;
@@ -341,11 +353,12 @@ public class JCLServer {
     }
 
     public static void printHelp() {
-        System.out.println("\n JCL Server Usage: java -jar jclServer.jar [net=XXX] (timeLimit=XXX) (maxThreads=XXX) (useCachedPool=xxx) (useTxsBatch=xxx) (txsBatchSize=xxx)");
+        System.out.println("\n JCL Server Usage: java -jar jclServer.jar [net=XXX] (timeLimit=XXX) (maxThreads=XXX) (useCachedPool=xxx) (useVirtualThreads=xxx) (useTxsBatch=xxx) (txsBatchSize=xxx)");
         System.out.println(" - [net]            : Mandatory : Possible Values: mainnet, stn, regtest");
         System.out.println(" - (timeLimit)      : Optional  : Time limit in seconds After that the Server will shutdown.");
         System.out.println(" - (maxThreads)     : Optional  : Max number of Threads used by JCL-Net");
         System.out.println(" - (useCachedPool)  : Optional  : (true/false) If True, the Threads used wil come from a CachedThreadPool");
+        System.out.println(" - (useVirtualThreads): Optional: (true/false) If True, blocking Tasks run in Virtual Threads (JDK 21+)");
         System.out.println(" - (useTxsBatch)    : Optional  : (true/False)) If True Txs are returned in Batches (default size = 100)");
         System.out.println(" - (txsBatchSize)   : Optional  : Number of Txs within each Batch returned (only if 'useTxsBatch=true')");
         System.out.println(" - (verifyChecksum) : Optional  : (true/false). false by default)");
@@ -398,6 +411,7 @@ public class JCLServer {
 
         // Threads log:
         log.info("JCL Server :: Threads     : " + ThreadUtils.getThreadsInfo());
+        log.info("JCL Server :: Lanes       : " + p2p.getExecutionModelState());
 
         // Memory log:
         long usedMem = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
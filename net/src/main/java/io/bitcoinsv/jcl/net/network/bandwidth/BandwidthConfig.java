@@ -0,0 +1,175 @@
+package io.bitcoinsv.jcl.net.network.bandwidth;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Configuration of the Bandwidth used by the Network. All the limits are in bytes/sec, and a value of zero means
+ * "unlimited" (default). The limits can be set:
+ *  - globally: for all the traffic, no matter the Peer or the class of traffic
+ *  - per Peer: each Peer gets its own limit
+ *  - per class of Traffic (blocks, txs, control): for all the traffic of that class, no matter the Peer
+ *
+ * A transfer must be allowed by all the limits that apply to it.
+ *
+ * The weights are used to share the uplink of each Peer between the different classes of traffic, when there are
+ * messages of several classes waiting to be sent: A class with a bigger weight gets a bigger share, so bulk transfers
+ * (like blocks) do not starve the control traffic.
+ */
+public class BandwidthConfig {
+
+    // Default Values:
+    public static final Duration DEFAULT_BURST = Duration.ofSeconds(1);
+    public static final int DEFAULT_CONTROL_WEIGHT  = 8;
+    public static final int DEFAULT_TXS_WEIGHT      = 2;
+    public static final int DEFAULT_BLOCKS_WEIGHT   = 1;
+
+    // Global Limits:
+    private long maxBytesInPerSec;
+    private long maxBytesOutPerSec;
+
+    // Limits per Peer:
+    private long peerMaxBytesInPerSec;
+    private long peerMaxBytesOutPerSec;
+
+    // Limits per class of Traffic:
+    private Map<TrafficClass, Long> classMaxBytesInPerSec = new EnumMap<>(TrafficClass.class);
+    private Map<TrafficClass, Long> classMaxBytesOutPerSec = new EnumMap<>(TrafficClass.class);
+
+    // Weights of each class of Traffic:
+    private Map<TrafficClass, Integer> classWeights = new EnumMap<>(TrafficClass.class);
+
+    // Max time of traffic that can be transferred in a burst (determines the capacity of the buckets):
+    private Duration burst = DEFAULT_BURST;
+
+    public BandwidthConfig(long maxBytesInPerSec,
+                           long maxBytesOutPerSec,
+                           long peerMaxBytesInPerSec,
+                           long peerMaxBytesOutPerSec,
+                           Map<TrafficClass, Long> classMaxBytesInPerSec,
+                           Map<TrafficClass, Long> classMaxBytesOutPerSec,
+                           Map<TrafficClass, Integer> classWeights,
+                           Duration burst) {
+        this.maxBytesInPerSec = maxBytesInPerSec;
+        this.maxBytesOutPerSec = maxBytesOutPerSec;
+        this.peerMaxBytesInPerSec = peerMaxBytesInPerSec;
+        this.peerMaxBytesOutPerSec = peerMaxBytesOutPerSec;
+        if (classMaxBytesInPerSec != null)  this.classMaxBytesInPerSec.putAll(classMaxBytesInPerSec);
+        if (classMaxBytesOutPerSec != null) this.classMaxBytesOutPerSec.putAll(classMaxBytesOutPerSec);
+        this.classWeights.put(TrafficClass.CONTROL, DEFAULT_CONTROL_WEIGHT);
+        this.classWeights.put(TrafficClass.TXS, DEFAULT_TXS_WEIGHT);
+        this.classWeights.put(TrafficClass.BLOCKS, DEFAULT_BLOCKS_WEIGHT);
+        if (classWeights != null) classWeights.forEach((c, w) -> this.classWeights.put(c, Math.max(1, w)));
+        if (burst != null) this.burst = burst;
+    }
+
+    public BandwidthConfig() {
+        this(0, 0, 0, 0, null, null, null, null);
+    }
+
+    public long getMaxBytesInPerSec()                           { return this.maxBytesInPerSec; }
+    public long getMaxBytesOutPerSec()                          { return this.maxBytesOutPerSec; }
+    public long getPeerMaxBytesInPerSec()                       { return this.peerMaxBytesInPerSec; }
+    public long getPeerMaxBytesOutPerSec()                      { return this.peerMaxBytesOutPerSec; }
+    public long getClassMaxBytesInPerSec(TrafficClass trafficClass)   { return this.classMaxBytesInPerSec.getOrDefault(trafficClass, 0L); }
+    public long getClassMaxBytesOutPerSec(TrafficClass trafficClass)  { return this.classMaxBytesOutPerSec.getOrDefault(trafficClass, 0L); }
+    public int getWeight(TrafficClass trafficClass)             { return this.classWeights.get(trafficClass); }
+    public Duration getBurst()                                  { return this.burst; }
+
+    /** Indicates if any limit has been set */
+    public boolean isLimited() {
+        return maxBytesInPerSec > 0 || maxBytesOutPerSec > 0 || peerMaxBytesInPerSec > 0 || peerMaxBytesOutPerSec > 0
+                || classMaxBytesInPerSec.values().stream().anyMatch(v -> v > 0)
+                || classMaxBytesOutPerSec.values().stream().anyMatch(v -> v > 0);
+    }
+
+    public BandwidthConfigBuilder toBuilder() {
+        BandwidthConfigBuilder result = new BandwidthConfigBuilder()
+                .maxBytesInPerSec(this.maxBytesInPerSec)
+                .maxBytesOutPerSec(this.maxBytesOutPerSec)
+                .peerMaxBytesInPerSec(this.peerMaxBytesInPerSec)
+                .peerMaxBytesOutPerSec(this.peerMaxBytesOutPerSec)
+                .burst(this.burst);
+        this.classMaxBytesInPerSec.forEach(result::maxBytesInPerSec);
+        this.classMaxBytesOutPerSec.forEach(result::maxBytesOutPerSec);
+        this.classWeights.forEach(result::weight);
+        return result;
+    }
+
+    public static BandwidthConfigBuilder builder() {
+        return new BandwidthConfigBuilder();
+    }
+
+    @Override
+    public String toString() {
+        return "BandwidthConfig(in: " + maxBytesInPerSec + ", out: " + maxBytesOutPerSec
+                + ", peer in: " + peerMaxBytesInPerSec + ", peer out: " + peerMaxBytesOutPerSec
+                + ", class in: " + classMaxBytesInPerSec + ", class out: " + classMaxBytesOutPerSec
+                + ", weights: " + classWeights + ", burst: " + burst + ")";
+    }
+
+    /**
+     * Builder
+     */
+    public static class BandwidthConfigBuilder {
+        private long maxBytesInPerSec;
+        private long maxBytesOutPerSec;
+        private long peerMaxBytesInPerSec;
+        private long peerMaxBytesOutPerSec;
+        private Map<TrafficClass, Long> classMaxBytesInPerSec = new EnumMap<>(TrafficClass.class);
+        private Map<TrafficClass, Long> classMaxBytesOutPerSec = new EnumMap<>(TrafficClass.class);
+        private Map<TrafficClass, Integer> classWeights = new EnumMap<>(TrafficClass.class);
+        private Duration burst;
+
+        BandwidthConfigBuilder() {}
+
+        public BandwidthConfigBuilder maxBytesInPerSec(long maxBytesInPerSec) {
+            this.maxBytesInPerSec = maxBytesInPerSec;
+            return this;
+        }
+
+        public BandwidthConfigBuilder maxBytesOutPerSec(long maxBytesOutPerSec) {
+            this.maxBytesOutPerSec = maxBytesOutPerSec;
+            return this;
+        }
+
+        public BandwidthConfigBuilder peerMaxBytesInPerSec(long peerMaxBytesInPerSec) {
+            this.peerMaxBytesInPerSec = peerMaxBytesInPerSec;
+            return this;
+        }
+
+        public BandwidthConfigBuilder peerMaxBytesOutPerSec(long peerMaxBytesOutPerSec) {
+            this.peerMaxBytesOutPerSec = peerMaxBytesOutPerSec;
+            return this;
+        }
+
+        public BandwidthConfigBuilder maxBytesInPerSec(TrafficClass trafficClass, long maxBytesInPerSec) {
+            this.classMaxBytesInPerSec.put(trafficClass, maxBytesInPerSec);
+            return this;
+        }
+
+        public BandwidthConfigBuilder maxBytesOutPerSec(TrafficClass trafficClass, long maxBytesOutPerSec) {
+            this.classMaxBytesOutPerSec.put(trafficClass, maxBytesOutPerSec);
+            return this;
+        }
+
+        public BandwidthConfigBuilder weight(TrafficClass trafficClass, int weight) {
+            this.classWeights.put(trafficClass, weight);
+            return this;
+        }
+
+        public BandwidthConfigBuilder burst(Duration burst) {
+            this.burst = burst;
+            return this;
+        }
+
+        public BandwidthConfig build() {
+            return new BandwidthConfig(maxBytesInPerSec, maxBytesOutPerSec, peerMaxBytesInPerSec, peerMaxBytesOutPerSec,
+                    classMaxBytesInPerSec, classMaxBytesOutPerSec, classWeights, burst);
+        }
+    }
+}
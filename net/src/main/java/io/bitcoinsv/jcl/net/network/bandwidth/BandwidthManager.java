@@ -0,0 +1,169 @@
+package io.bitcoinsv.jcl.net.network.bandwidth;
+
+import io.bitcoinsv.jcl.tools.metrics.Counter;
+import io.bitcoinsv.jcl.tools.metrics.MetricsRegistry;
+import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It keeps track of the Bandwidth used by the Network, and enforces the limits defined in the {@link BandwidthConfig}.
+ * It holds the Token Buckets for the global and per-class limits, and creates the ones for each Peer
+ * ({@link PeerBandwidth}). The Streams connected to the Sockets use it to know how many bytes they can transfer at
+ * any moment, and to record the bytes transferred.
+ *
+ * It also measures the rates realized for each class of traffic, which are exported as Metrics
+ * ("net.bandwidth.bytesIn/bytesOut", tagged by class) and in the {@link BandwidthState}.
+ */
+public class BandwidthManager {
+
+    /** Direction of the Traffic */
+    public enum Direction { IN, OUT }
+
+    // Minimum number of bytes we wait for when the budget is exhausted, so we don't wake up for a few bytes:
+    private static final long MIN_TRANSFER_BYTES = 4096;
+
+    /** Token Buckets of a Peer */
+    public static class PeerBandwidth {
+        private final TokenBucket in;
+        private final TokenBucket out;
+        PeerBandwidth(TokenBucket in, TokenBucket out) {
+            this.in = in;
+            this.out = out;
+        }
+        private TokenBucket bucket(Direction direction) { return (direction == Direction.IN) ? in : out; }
+    }
+
+    private final BandwidthConfig config;
+    private final Map<Direction, TokenBucket> globalBuckets = new EnumMap<>(Direction.class);
+    private final Map<Direction, Map<TrafficClass, TokenBucket>> classBuckets = new EnumMap<>(Direction.class);
+
+    // Bytes transferred, by direction and class:
+    private final Map<Direction, Map<TrafficClass, LongAdder>> bytes = new EnumMap<>(Direction.class);
+    private final Map<Direction, Map<TrafficClass, Counter>> metricBytes = new EnumMap<>(Direction.class);
+    private final Map<Direction, Map<TrafficClass, Long>> bytesAtLastState = new EnumMap<>(Direction.class);
+    private long lastStateTimestamp = System.nanoTime();
+
+    // Used to resume the transfers that have been paused because the budget was exhausted:
+    private ScheduledExecutorService scheduler;
+
+    /** Constructor */
+    public BandwidthManager(BandwidthConfig config, MetricsRegistry metrics) {
+        this.config = config;
+        globalBuckets.put(Direction.IN, buildBucket(config.getMaxBytesInPerSec()));
+        globalBuckets.put(Direction.OUT, buildBucket(config.getMaxBytesOutPerSec()));
+        for (Direction direction : Direction.values()) {
+            Map<TrafficClass, TokenBucket> buckets = new EnumMap<>(TrafficClass.class);
+            Map<TrafficClass, LongAdder> adders = new EnumMap<>(TrafficClass.class);
+            Map<TrafficClass, Counter> counters = new EnumMap<>(TrafficClass.class);
+            Map<TrafficClass, Long> lastValues = new EnumMap<>(TrafficClass.class);
+            String metricName = (direction == Direction.IN) ? "net.bandwidth.bytesIn" : "net.bandwidth.bytesOut";
+            for (TrafficClass trafficClass : TrafficClass.values()) {
+                buckets.put(trafficClass, buildBucket((direction == Direction.IN)
+                        ? config.getClassMaxBytesInPerSec(trafficClass)
+                        : config.getClassMaxBytesOutPerSec(trafficClass)));
+                adders.put(trafficClass, new LongAdder());
+                counters.put(trafficClass, metrics.counter(metricName, trafficClass.name().toLowerCase()));
+                lastValues.put(trafficClass, 0L);
+            }
+            classBuckets.put(direction, buckets);
+            bytes.put(direction, adders);
+            metricBytes.put(direction, counters);
+            bytesAtLastState.put(direction, lastValues);
+        }
+        if (config.isLimited()) {
+            this.scheduler = ThreadUtils.getSingleThreadScheduledExecutorService("JclBandwidthManager");
+        }
+    }
+
+    /** Constructor of a Manager without limits */
+    public BandwidthManager() {
+        this(new BandwidthConfig(), MetricsRegistry.DISABLED);
+    }
+
+    private TokenBucket buildBucket(long rate) {
+        if (rate <= 0) return TokenBucket.unlimited();
+        long capacity = Math.max(MIN_TRANSFER_BYTES, rate * config.getBurst().toMillis() / 1000);
+        return new TokenBucket(rate, capacity);
+    }
+
+    public BandwidthConfig getConfig()  { return this.config; }
+    public boolean isLimited()          { return this.scheduler != null; }
+
+    /** Creates the Token Buckets for a new Peer */
+    public PeerBandwidth newPeer() {
+        return new PeerBandwidth(buildBucket(config.getPeerMaxBytesInPerSec()), buildBucket(config.getPeerMaxBytesOutPerSec()));
+    }
+
+    /** Returns the number of bytes of the class given that can be transferred right now from/to the Peer */
+    public long allowance(Direction direction, PeerBandwidth peer, TrafficClass trafficClass) {
+        if (!isLimited()) return Long.MAX_VALUE;
+        long result = globalBuckets.get(direction).available();
+        result = Math.min(result, classBuckets.get(direction).get(trafficClass).available());
+        result = Math.min(result, peer.bucket(direction).available());
+        return result;
+    }
+
+    /** Returns the time (in nanosecs) to wait until a minimum number of bytes can be transferred */
+    public long nanosUntilAllowed(Direction direction, PeerBandwidth peer, TrafficClass trafficClass) {
+        if (!isLimited()) return 0;
+        long result = globalBuckets.get(direction).nanosUntilAvailable(MIN_TRANSFER_BYTES);
+        result = Math.max(result, classBuckets.get(direction).get(trafficClass).nanosUntilAvailable(MIN_TRANSFER_BYTES));
+        result = Math.max(result, peer.bucket(direction).nanosUntilAvailable(MIN_TRANSFER_BYTES));
+        return result;
+    }
+
+    /** Records the bytes of the class given transferred from/to the Peer */
+    public void record(Direction direction, PeerBandwidth peer, TrafficClass trafficClass, long numBytes) {
+        if (isLimited()) {
+            globalBuckets.get(direction).consume(numBytes);
+            classBuckets.get(direction).get(trafficClass).consume(numBytes);
+            peer.bucket(direction).consume(numBytes);
+        }
+        bytes.get(direction).get(trafficClass).add(numBytes);
+        metricBytes.get(direction).get(trafficClass).add(numBytes);
+    }
+
+    /** Runs the task given after the delay given. Used to resume transfers paused */
+    public void schedule(Runnable task, long delayNanos) {
+        if (scheduler == null) {
+            task.run();
+            return;
+        }
+        scheduler.schedule(task, Math.max(1, delayNanos), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the State, with the rates realized since the last time this method was called
+     */
+    public synchronized BandwidthState getState() {
+        long now = System.nanoTime();
+        double elapsedSecs = Math.max(1, now - lastStateTimestamp) / 1_000_000_000d;
+        Map<TrafficClass, Double> ratesIn = new EnumMap<>(TrafficClass.class);
+        Map<TrafficClass, Double> ratesOut = new EnumMap<>(TrafficClass.class);
+        Map<TrafficClass, Long> totalIn = new EnumMap<>(TrafficClass.class);
+        Map<TrafficClass, Long> totalOut = new EnumMap<>(TrafficClass.class);
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            long in = bytes.get(Direction.IN).get(trafficClass).sum();
+            long out = bytes.get(Direction.OUT).get(trafficClass).sum();
+            ratesIn.put(trafficClass, (in - bytesAtLastState.get(Direction.IN).put(trafficClass, in)) / elapsedSecs);
+            ratesOut.put(trafficClass, (out - bytesAtLastState.get(Direction.OUT).put(trafficClass, out)) / elapsedSecs);
+            totalIn.put(trafficClass, in);
+            totalOut.put(trafficClass, out);
+        }
+        lastStateTimestamp = now;
+        return new BandwidthState(ratesIn, ratesOut, totalIn, totalOut);
+    }
+
+    /** It stops the Manager. Transfers paused will not be resumed */
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,45 @@
+package io.bitcoinsv.jcl.net.network.bandwidth;
+
+import java.text.DecimalFormat;
+import java.util.Map;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It stores the Bandwidth used by the Network for each class of traffic: the rates realized (bytes/sec) during the
+ * last interval, and the total bytes transferred.
+ */
+public final class BandwidthState {
+
+    private final Map<TrafficClass, Double> bytesInPerSec;
+    private final Map<TrafficClass, Double> bytesOutPerSec;
+    private final Map<TrafficClass, Long> totalBytesIn;
+    private final Map<TrafficClass, Long> totalBytesOut;
+
+    public BandwidthState(Map<TrafficClass, Double> bytesInPerSec, Map<TrafficClass, Double> bytesOutPerSec,
+                          Map<TrafficClass, Long> totalBytesIn, Map<TrafficClass, Long> totalBytesOut) {
+        this.bytesInPerSec = bytesInPerSec;
+        this.bytesOutPerSec = bytesOutPerSec;
+        this.totalBytesIn = totalBytesIn;
+        this.totalBytesOut = totalBytesOut;
+    }
+
+    public double getBytesInPerSec(TrafficClass trafficClass)   { return this.bytesInPerSec.get(trafficClass); }
+    public double getBytesOutPerSec(TrafficClass trafficClass)  { return this.bytesOutPerSec.get(trafficClass); }
+    public long getTotalBytesIn(TrafficClass trafficClass)      { return this.totalBytesIn.get(trafficClass); }
+    public long getTotalBytesOut(TrafficClass trafficClass)     { return this.totalBytesOut.get(trafficClass); }
+
+    @Override
+    public String toString() {
+        DecimalFormat format = new DecimalFormat("#0.0");
+        StringBuffer result = new StringBuffer();
+        result.append("Bandwidth (KB/sec in/out): ");
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            result.append(trafficClass.name().toLowerCase()).append(" ")
+                    .append(format.format(bytesInPerSec.get(trafficClass) / 1_000)).append("/")
+                    .append(format.format(bytesOutPerSec.get(trafficClass) / 1_000)).append(" ");
+        }
+        return result.toString();
+    }
+}
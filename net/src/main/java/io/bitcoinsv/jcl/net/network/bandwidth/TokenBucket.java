@@ -0,0 +1,70 @@
+package io.bitcoinsv.jcl.net.network.bandwidth;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Token Bucket, used to limit the rate of bytes transferred. The bucket is refilled at "rate" tokens (bytes) per
+ * second, up to its capacity (which determines how big a burst can be).
+ *
+ * The bytes are consumed AFTER they've been transferred, so the bucket can go below zero (if more bytes than the ones
+ * available have been transferred). In that case, the following transfers will have to wait until the debt is paid.
+ *
+ * A bucket with a rate of zero (or negative) is unlimited.
+ */
+public class TokenBucket {
+
+    private final long rate;
+    private final long capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Constructor.
+     * @param rate      bytes per second. Zero or negative means unlimited
+     * @param capacity  Max number of tokens stored (bytes that can be transferred in a burst)
+     */
+    public TokenBucket(long rate, long capacity) {
+        this.rate = rate;
+        this.capacity = Math.max(1, capacity);
+        this.tokens = this.capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /** Returns an unlimited Bucket */
+    public static TokenBucket unlimited() {
+        return new TokenBucket(0, 0);
+    }
+
+    public boolean isUnlimited()    { return rate <= 0; }
+    public long getRate()           { return rate; }
+    public long getCapacity()       { return capacity; }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + ((now - lastRefillNanos) * (double) rate / 1_000_000_000));
+        lastRefillNanos = now;
+    }
+
+    /** Returns the number of bytes that can be transferred right now (might be negative) */
+    public synchronized long available() {
+        if (isUnlimited()) return Long.MAX_VALUE;
+        refill();
+        return (long) tokens;
+    }
+
+    /** Consumes the number of bytes given (the bucket might go below zero) */
+    public synchronized void consume(long numBytes) {
+        if (isUnlimited()) return;
+        refill();
+        tokens -= numBytes;
+    }
+
+    /** Returns the time (in nanosecs) until the number of bytes given (or the whole capacity) is available */
+    public synchronized long nanosUntilAvailable(long numBytes) {
+        if (isUnlimited()) return 0;
+        refill();
+        double needed = Math.min(numBytes, capacity) - tokens;
+        return (needed <= 0) ? 0 : (long) Math.ceil(needed * 1_000_000_000 / rate);
+    }
+}
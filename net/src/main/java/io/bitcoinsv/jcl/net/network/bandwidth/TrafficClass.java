@@ -0,0 +1,30 @@
+package io.bitcoinsv.jcl.net.network.bandwidth;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Classes of traffic the bandwidth is budgeted for. Each message sent or received belongs to one of them, depending on
+ * its command.
+ */
+public enum TrafficClass {
+    CONTROL,    // Everything else: handshake, ping/pong, inv, getdata, headers, addr, etc
+    TXS,        // Transactions
+    BLOCKS;     // Blocks (full, compact or partial)
+
+    /** Returns the class of a message, given its command */
+    public static TrafficClass fromCommand(String command) {
+        switch (command) {
+            case "block":
+            case "cmpctblock":
+            case "blocktxn":
+            case "merkleblock":
+                return BLOCKS;
+            case "tx":
+            case "datareftx":
+                return TXS;
+            default:
+                return CONTROL;
+        }
+    }
+}
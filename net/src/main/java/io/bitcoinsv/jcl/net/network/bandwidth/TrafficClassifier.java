@@ -0,0 +1,135 @@
+package io.bitcoinsv.jcl.net.network.bandwidth;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It classifies a stream of bytes (sent or received) into TrafficClasses. The Network layer does not know about
+ * messages, so this class follows the framing of the Bitcoin messages in the stream: it reads the Header of each
+ * message (including the extended header used for messages > 4GB) to get its command and length, so it knows which
+ * class the bytes that follow belong to, and where the next message starts.
+ *
+ * The bytes are fed in chunks of any size. For each chunk, the consumer is notified of the segments it's made of. The
+ * header of a message is notified as a separate segment, once it has been read completely, and it's the one marking
+ * the beginning of the message.
+ *
+ * If the bytes do not look like a Bitcoin Message (the command is not ASCII), the framing is lost, and from that
+ * moment on all the bytes are notified as CONTROL traffic, and none of them marks the beginning of a message.
+ */
+public class TrafficClassifier {
+
+    private static final int HEADER_LENGTH = 24;
+    private static final int HEADER_LENGTH_EXT = 44;
+    private static final String EXT_COMMAND = "extmsg";
+
+    /** Consumer of the segments of a chunk of bytes */
+    public interface SegmentConsumer {
+        /**
+         * @param trafficClass  class of the bytes
+         * @param msgStart      if true, this segment is the header of a new message
+         * @param msgLength     total length of the message (header + body), only if msgStart. -1 if unknown
+         * @param data          bytes. The array might be reused after this call, so it must be copied if needed
+         * @param offset        position of the segment within data
+         * @param length        length of the segment
+         */
+        void accept(TrafficClass trafficClass, boolean msgStart, long msgLength, byte[] data, int offset, int length);
+    }
+
+    private final byte[] header = new byte[HEADER_LENGTH_EXT];
+    private int headerBytes;
+    private int headerLength = HEADER_LENGTH;
+    private long bodyRemaining;
+    private TrafficClass currentClass = TrafficClass.CONTROL;
+    private boolean framed = true;
+
+    /** Returns the class of the message being processed at this moment (CONTROL if in between messages) */
+    public TrafficClass getCurrentClass() {
+        return (bodyRemaining > 0) ? currentClass : TrafficClass.CONTROL;
+    }
+
+    /** Indicates if the stream follows the framing of Bitcoin Messages */
+    public boolean isFramed() {
+        return framed;
+    }
+
+    /** It processes a chunk of bytes, notifying the segments it's made of */
+    public void feed(byte[] data, int offset, int length, SegmentConsumer consumer) {
+        int pos = offset;
+        int end = offset + length;
+        while (pos < end) {
+            if (!framed) {
+                consumer.accept(TrafficClass.CONTROL, false, -1, data, pos, end - pos);
+                return;
+            }
+            if (bodyRemaining > 0) {
+                int len = (int) Math.min(end - pos, bodyRemaining);
+                consumer.accept(currentClass, false, -1, data, pos, len);
+                bodyRemaining -= len;
+                pos += len;
+                continue;
+            }
+
+            // We are reading a Header:
+            int len = Math.min(end - pos, headerLength - headerBytes);
+            System.arraycopy(data, pos, header, headerBytes, len);
+            headerBytes += len;
+            pos += len;
+            if (headerBytes < headerLength) continue;
+
+            String command = readCommand(4);
+            if (command == null) {
+                lostFraming(consumer);
+                continue;
+            }
+            if (command.equals(EXT_COMMAND) && headerLength == HEADER_LENGTH) {
+                headerLength = HEADER_LENGTH_EXT;
+                continue;
+            }
+            long bodyLength;
+            if (headerLength == HEADER_LENGTH_EXT) {
+                command = readCommand(HEADER_LENGTH);
+                if (command == null) {
+                    lostFraming(consumer);
+                    continue;
+                }
+                bodyLength = readUint(36, 8);
+            } else {
+                bodyLength = readUint(16, 4);
+            }
+            currentClass = TrafficClass.fromCommand(command);
+            consumer.accept(currentClass, true, headerLength + bodyLength, header, 0, headerLength);
+            bodyRemaining = bodyLength;
+            headerBytes = 0;
+            headerLength = HEADER_LENGTH;
+        }
+    }
+
+    // The bytes do not follow the framing of Bitcoin Messages. We notify the bytes kept so far:
+    private void lostFraming(SegmentConsumer consumer) {
+        framed = false;
+        consumer.accept(TrafficClass.CONTROL, false, -1, header, 0, headerBytes);
+        headerBytes = 0;
+    }
+
+    // It reads the Command at the position given: ASCII lowercase letters, padded with zeros. Returns null if invalid:
+    private String readCommand(int offset) {
+        int len = 0;
+        while (len < 12 && header[offset + len] != 0) {
+            byte b = header[offset + len];
+            if (b < 'a' || b > 'z') return null;
+            len++;
+        }
+        if (len == 0) return null;
+        for (int i = len; i < 12; i++) if (header[offset + i] != 0) return null;
+        return new String(header, offset, len, StandardCharsets.US_ASCII);
+    }
+
+    // It reads an unsigned number in little endian:
+    private long readUint(int offset, int numBytes) {
+        long result = 0;
+        for (int i = numBytes - 1; i >= 0; i--) result = (result << 8) | (header[offset + i] & 0xFF);
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package io.bitcoinsv.jcl.net.network.bandwidth;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Queue of items (messages) of different TrafficClasses, that shares the bandwidth between the classes according
+ * to their weights (Deficit Round Robin): Each class has its own FIFO queue, and in each round a class is given a
+ * "quantum" of bytes proportional to its weight. An item is taken out of its queue when its class has accumulated
+ * enough bytes to cover its size. So as long as there are items of several classes waiting, each class gets a share
+ * of the bytes sent proportional to its weight, no matter the size of the items.
+ *
+ * The order of the items within the same class is always kept.
+ *
+ * This class is NOT Thread-safe.
+ */
+public class WeightedFairQueue<T> {
+
+    // Bytes given to a class with weight 1 in each round:
+    public static final long QUANTUM_BYTES = 64 * 1024;
+
+    private static class Entry<T> {
+        final T item;
+        final long size;
+        Entry(T item, long size) { this.item = item; this.size = size; }
+    }
+
+    private static final TrafficClass[] CLASSES = TrafficClass.values();
+
+    private final Deque<Entry<T>>[] queues;
+    private final long[] quantums;
+    private final long[] deficits;
+    private int turn;
+    private boolean quantumGranted;
+    private int size;
+
+    /** Constructor */
+    @SuppressWarnings("unchecked")
+    public WeightedFairQueue(BandwidthConfig config) {
+        this.queues = new Deque[CLASSES.length];
+        this.quantums = new long[CLASSES.length];
+        this.deficits = new long[CLASSES.length];
+        for (int i = 0; i < CLASSES.length; i++) {
+            queues[i] = new ArrayDeque<>();
+            quantums[i] = config.getWeight(CLASSES[i]) * QUANTUM_BYTES;
+        }
+    }
+
+    /** Adds an item of the class and size (in bytes) given */
+    public void offer(TrafficClass trafficClass, T item, long size) {
+        queues[trafficClass.ordinal()].offer(new Entry<>(item, Math.max(0, size)));
+        this.size++;
+    }
+
+    /** Returns the next item to be sent, or null if the queue is empty */
+    public T poll() {
+        if (size == 0) return null;
+        int visitedWithoutResult = 0;
+        while (true) {
+            Deque<Entry<T>> queue = queues[turn];
+            if (queue.isEmpty()) {
+                deficits[turn] = 0;
+                nextTurn();
+                continue;
+            }
+            if (!quantumGranted) {
+                deficits[turn] += quantums[turn];
+                quantumGranted = true;
+            }
+            Entry<T> entry = queue.peek();
+            if (entry.size <= deficits[turn]) {
+                queue.poll();
+                size--;
+                deficits[turn] -= entry.size;
+                if (queue.isEmpty()) {
+                    deficits[turn] = 0;
+                    nextTurn();
+                }
+                return entry.item;
+            }
+            nextTurn();
+            // If a whole round has gone by without result, we skip the rounds needed for the first item to fit:
+            if (++visitedWithoutResult == CLASSES.length) {
+                skipRounds();
+                visitedWithoutResult = 0;
+            }
+        }
+    }
+
+    public boolean isEmpty()    { return size == 0; }
+    public int size()           { return size; }
+
+    private void nextTurn() {
+        turn = (turn + 1) % CLASSES.length;
+        quantumGranted = false;
+    }
+
+    // It adds to every class waiting the quantum of the rounds that would go by before any item fits:
+    private void skipRounds() {
+        long minRounds = Long.MAX_VALUE;
+        for (int i = 0; i < CLASSES.length; i++) {
+            if (queues[i].isEmpty()) continue;
+            long missing = queues[i].peek().size - deficits[i];
+            minRounds = Math.min(minRounds, (missing + quantums[i] - 1) / quantums[i]);
+        }
+        if (minRounds <= 1) return;
+        for (int i = 0; i < CLASSES.length; i++) {
+            if (!queues[i].isEmpty()) deficits[i] += (minRounds - 1) * quantums[i];
+        }
+    }
+}
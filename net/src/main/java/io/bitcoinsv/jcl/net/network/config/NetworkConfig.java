@@ -1,5 +1,7 @@
 package io.bitcoinsv.jcl.net.network.config;
 
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthConfig;
+
 import java.util.OptionalInt;
 
 /**
@@ -55,4 +57,7 @@ public interface NetworkConfig {
     /** An aproximation of the max size of a message that will be sent/receive by the Net */
     int getMaxMessageSizeAvgInBytes();
 
+    /** Limits of the Bandwidth used (globally, per Peer and per class of traffic) and weights of each class */
+    BandwidthConfig getBandwidthConfig();
+
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package io.bitcoinsv.jcl.net.network.config;
 
 
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthConfig;
 import io.bitcoinsv.jcl.tools.handlers.HandlerConfig;
 
 import java.util.OptionalInt;
@@ -24,6 +25,7 @@ public class NetworkConfigImpl extends HandlerConfig implements NetworkConfig {
     private int nioBufferSizeUpgrade;
     private int maxMessageSizeAvgInBytes;
     private boolean blockingOnListeners;
+    private BandwidthConfig bandwidthConfig = new BandwidthConfig();
 
     public NetworkConfigImpl(int port,
                              OptionalInt maxSocketConnections,
@@ -36,7 +38,8 @@ public class NetworkConfigImpl extends HandlerConfig implements NetworkConfig {
                              int nioBufferSizeUpperBound,
                              int nioBufferSizeUpgrade,
                              int maxMessageSizeAvgInBytes,
-                             boolean blockingOnListeners) {
+                             boolean blockingOnListeners,
+                             BandwidthConfig bandwidthConfig) {
         this.port = port;
         this.maxSocketConnections = maxSocketConnections;
         this.maxSocketPendingConnections = maxSocketPendingConnections;
@@ -49,6 +52,7 @@ public class NetworkConfigImpl extends HandlerConfig implements NetworkConfig {
         this.nioBufferSizeUpgrade = nioBufferSizeUpgrade;
         this.maxMessageSizeAvgInBytes = maxMessageSizeAvgInBytes;
         this.blockingOnListeners = blockingOnListeners;
+        if (bandwidthConfig != null) this.bandwidthConfig = bandwidthConfig;
     }
 
     public static NetworkConfigImplBuilder builder()        { return new NetworkConfigImplBuilder(); }
@@ -64,6 +68,7 @@ public class NetworkConfigImpl extends HandlerConfig implements NetworkConfig {
     public int getNioBufferSizeUpperBound()                 { return this.nioBufferSizeUpperBound; }
     public int getNioBufferSizeUpgrade()                    { return this.nioBufferSizeUpgrade; }
     public int getMaxMessageSizeAvgInBytes()                { return this.maxMessageSizeAvgInBytes; }
+    public BandwidthConfig getBandwidthConfig()             { return this.bandwidthConfig; }
 
     public NetworkConfigImplBuilder toBuilder() {
         return new NetworkConfigImplBuilder()
@@ -78,7 +83,8 @@ public class NetworkConfigImpl extends HandlerConfig implements NetworkConfig {
                 .nioBufferSizeUpperBound(this.nioBufferSizeUpperBound)
                 .nioBufferSizeUpgrade(this.nioBufferSizeUpgrade)
                 .maxMessageSizeAvgInBytes(this.maxMessageSizeAvgInBytes)
-                .blockingOnListeners(this.blockingOnListeners);
+                .blockingOnListeners(this.blockingOnListeners)
+                .bandwidthConfig(this.bandwidthConfig);
     }
 
     /**
@@ -97,6 +103,7 @@ public class NetworkConfigImpl extends HandlerConfig implements NetworkConfig {
         private int nioBufferSizeUpgrade;
         private int maxMessageSizeAvgInBytes;
         private boolean blockingOnListeners;
+        private BandwidthConfig bandwidthConfig;
 
         NetworkConfigImplBuilder() {}
 
@@ -160,6 +167,11 @@ public class NetworkConfigImpl extends HandlerConfig implements NetworkConfig {
             return this;
         }
 
+        public NetworkConfigImpl.NetworkConfigImplBuilder bandwidthConfig(BandwidthConfig bandwidthConfig) {
+            this.bandwidthConfig = bandwidthConfig;
+            return this;
+        }
+
         public NetworkConfigImpl build() {
             return new NetworkConfigImpl(
                     port,
@@ -173,7 +185,8 @@ public class NetworkConfigImpl extends HandlerConfig implements NetworkConfig {
                     nioBufferSizeUpperBound,
                     nioBufferSizeUpgrade,
                     maxMessageSizeAvgInBytes,
-                    blockingOnListeners);
+                    blockingOnListeners,
+                    bandwidthConfig);
         }
     }
 }
\ No newline at end of file
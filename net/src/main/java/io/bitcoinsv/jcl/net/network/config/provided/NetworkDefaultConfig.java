@@ -1,5 +1,6 @@
 package io.bitcoinsv.jcl.net.network.config.provided;
 
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthConfig;
 import io.bitcoinsv.jcl.net.network.config.NetworkConfigImpl;
 
 import java.util.OptionalInt;
@@ -25,6 +26,7 @@ public class NetworkDefaultConfig extends NetworkConfigImpl {
     private static final int nioBufferSizeUpgrade = 10_000_000;
     private static final int maxMessageSizeAvgInBytes = 1000; // TODO :CAREFUL
     private static final boolean blockingOnListeners = false;
+    private static final BandwidthConfig bandwidthConfig = new BandwidthConfig(); // No limits
 
     /** Constructor */
     public NetworkDefaultConfig() {
@@ -40,6 +42,7 @@ public class NetworkDefaultConfig extends NetworkConfigImpl {
                 nioBufferSizeUpperBound,
                 nioBufferSizeUpgrade,
                 maxMessageSizeAvgInBytes,
-                blockingOnListeners);
+                blockingOnListeners,
+                bandwidthConfig);
     }
 }
\ No newline at end of file
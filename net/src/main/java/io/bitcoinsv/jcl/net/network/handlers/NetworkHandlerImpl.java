@@ -2,6 +2,7 @@ package io.bitcoinsv.jcl.net.network.handlers;
 
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 import io.bitcoinsv.jcl.net.network.PeerAddress;
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthManager;
 import io.bitcoinsv.jcl.net.network.config.NetworkConfig;
 import io.bitcoinsv.jcl.net.network.config.NetworkConfigImpl;
 import io.bitcoinsv.jcl.net.network.events.*;
@@ -118,14 +119,19 @@ public class NetworkHandlerImpl extends AbstractExecutionThreadService implement
     // The EventBus used for event handling
     private EventBus eventBus;
 
-    // An executor Service, to trigger jobs in MultiThread...
-    ExecutorService jobExecutor = ThreadUtils.getCachedThreadExecutorService("JclNetworkHandler");
-    // An executor for triggering new Connections to remote Peers:
+    // An executor Service, to trigger jobs in MultiThread. These jobs loop for as long as the handler is running, so
+    // they get their own Threads instead of holding IO Lane Threads forever (see the exceptions in ExecutionModel):
+    private static final int NUM_CONNECTIONS_JOBS = 3;
+    ExecutorService jobExecutor = ThreadUtils.getFixedThreadExecutorService("JclNetworkHandler", NUM_CONNECTIONS_JOBS);
+    // An executor for triggering new Connections to remote Peers (IO Lane):
     ExecutorService newConnsExecutor;
 
     // General State:
     private NetworkHandlerState state;
 
+    // Bandwidth control (limits and fair-share between classes of traffic), shared by all the connections:
+    private BandwidthManager bandwidthManager;
+
     // The following lists manage the different workingState the connections go though:
     // active:          The connection is established to a Remote Peer. Ready to send/receive data from it
     // inProgress:      The connection is yet to be confirmed by the Remote Peer
@@ -159,7 +165,8 @@ public class NetworkHandlerImpl extends AbstractExecutionThreadService implement
         this.config = netConfig;
         this.peerAddress = localAddress;
         this.logger = new LoggerUtil(id, HANDLER_ID, this.getClass());
-        this.newConnsExecutor = ThreadUtils.getFixedThreadExecutorService("JclNetworkHandlerRemoteConn", netConfig.getMaxSocketConnectionsOpeningAtSameTime());
+        this.newConnsExecutor = runtimeConfig.getExecutionModel().getIOLane("JclNetworkHandlerRemoteConn", netConfig.getMaxSocketConnectionsOpeningAtSameTime());
+        this.bandwidthManager = new BandwidthManager(netConfig.getBandwidthConfig(), runtimeConfig.getMetricsRegistry());
 
     }
 
@@ -189,6 +196,7 @@ public class NetworkHandlerImpl extends AbstractExecutionThreadService implement
                     .numConnsFailed(this.numConnsFailed.get())
                     .numInProgressConnsExpired(this.numConnsInProgressExpired.get())
                     .numConnsTried(this.numConnsTried)
+                    .bandwidthState(this.bandwidthManager.getState())
                     .build();
             numConnsTried = 0; // aggregate value that is reset between calls to getState()
         } finally {
@@ -453,6 +461,7 @@ public class NetworkHandlerImpl extends AbstractExecutionThreadService implement
             List<PeerAddress> peersToDisconnect = this.activeConns.keySet().stream().collect(Collectors.toList());
             this.disconnect(peersToDisconnect);
             Thread.sleep(100); // we wait a bit, so Disconnected Events can be triggered...
+            this.bandwidthManager.stop();
 
             selector.wakeup();
             super.stopAsync();
@@ -548,7 +557,8 @@ public class NetworkHandlerImpl extends AbstractExecutionThreadService implement
                     ThreadUtils.PEER_STREAM_EXECUTOR,
                     this.runtimeConfig,
                     this.config,
-                    key);
+                    key,
+                    this.bandwidthManager);
             stream.init();
             keyAttach.stream = stream;
 
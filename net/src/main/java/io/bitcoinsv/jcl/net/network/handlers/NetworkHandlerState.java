@@ -1,5 +1,6 @@
 package io.bitcoinsv.jcl.net.network.handlers;
 
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthState;
 import io.bitcoinsv.jcl.tools.handlers.HandlerState;
 
 /**
@@ -24,11 +25,15 @@ public final class NetworkHandlerState extends HandlerState {
 
     private int numConnsTried;
 
+    // Bandwidth used by each class of traffic:
+    private final BandwidthState bandwidthState;
+
     NetworkHandlerState(int numActiveConns, int numInProgressConns, int numPendingToOpenConns, int numPendingToCloseConns,
                         boolean server_mode, boolean keep_connecting,
                         long numConnsFailed, long numInProgressConnsExpired,
                         int numPeersBlacklisted,
-                        int numConnsTried) {
+                        int numConnsTried,
+                        BandwidthState bandwidthState) {
         this.numActiveConns = numActiveConns;
         this.numInProgressConns = numInProgressConns;
         this.numPendingToOpenConns = numPendingToOpenConns;
@@ -39,6 +44,7 @@ public final class NetworkHandlerState extends HandlerState {
         this.numInProgressConnsExpired = numInProgressConnsExpired;
         this.numPeersBlacklisted = numPeersBlacklisted;
         this.numConnsTried = numConnsTried;
+        this.bandwidthState = bandwidthState;
     }
 
 
@@ -57,6 +63,7 @@ public final class NetworkHandlerState extends HandlerState {
         result.append(numInProgressConnsExpired).append(" in-progress expired, ");
         result.append(": ").append((server_mode)? "Running in Server Mode" : "Running in Client Mode");
         result.append(": ").append((keep_connecting)? "connecting": "connections stable");
+        if (bandwidthState != null) result.append(" : ").append(bandwidthState);
 
         return result.toString();
     }
@@ -69,6 +76,7 @@ public final class NetworkHandlerState extends HandlerState {
     public boolean isServer_mode()          { return this.server_mode; }
     public boolean isKeep_connecting()      { return this.keep_connecting; }
     public int getNumCopnnsTried()          { return this.numConnsTried; }
+    public BandwidthState getBandwidthState() { return this.bandwidthState; }
 
     public static NetworkHandlerStateBuilder builder() {
         return new NetworkHandlerStateBuilder();
@@ -83,7 +91,8 @@ public final class NetworkHandlerState extends HandlerState {
                 .keep_connecting(this.keep_connecting)
                 .numConnsFailed(this.numConnsFailed)
                 .numInProgressConnsExpired(this.numInProgressConnsExpired)
-                .numConnsTried(this.numConnsTried);
+                .numConnsTried(this.numConnsTried)
+                .bandwidthState(this.bandwidthState);
     }
 
     /**
@@ -100,6 +109,7 @@ public final class NetworkHandlerState extends HandlerState {
         private boolean server_mode;
         private boolean keep_connecting;
         private int numConnsTried;
+        private BandwidthState bandwidthState;
 
         NetworkHandlerStateBuilder() {}
 
@@ -153,6 +163,11 @@ public final class NetworkHandlerState extends HandlerState {
             return this;
         }
 
+        public NetworkHandlerState.NetworkHandlerStateBuilder bandwidthState(BandwidthState bandwidthState) {
+            this.bandwidthState = bandwidthState;
+            return this;
+        }
+
         public NetworkHandlerState build() {
             return new NetworkHandlerState(
                     numActiveConns,
@@ -164,7 +179,8 @@ public final class NetworkHandlerState extends HandlerState {
                     numConnsFailed,
                     numInProgressConnsExpired,
                     numPeersBlacklisted,
-                    numConnsTried);
+                    numConnsTried,
+                    bandwidthState);
         }
     }
 }
@@ -1,6 +1,8 @@
 package io.bitcoinsv.jcl.net.network.streams.nio;
 
 import io.bitcoinsv.jcl.net.network.PeerAddress;
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthManager;
+import io.bitcoinsv.jcl.net.network.bandwidth.TrafficClassifier;
 import io.bitcoinsv.jcl.net.network.config.NetworkConfig;
 import io.bitcoinsv.jcl.net.network.streams.PeerInputStream;
 import io.bitcoinsv.jcl.net.network.streams.PeerInputStreamImpl;
@@ -9,6 +11,10 @@ import io.bitcoinsv.jcl.net.network.streams.StreamDataEvent;
 import io.bitcoinsv.jcl.tools.bytes.ByteArrayReader;
 import io.bitcoinsv.jcl.tools.bytes.ByteArrayStatic;
 import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
+import io.bitcoinsv.jcl.tools.jfr.SocketReadEvent;
+import io.bitcoinsv.jcl.tools.metrics.Counter;
+import io.bitcoinsv.jcl.tools.metrics.Histogram;
+import io.bitcoinsv.jcl.tools.metrics.MetricsRegistry;
 import io.bitcoinsv.jcl.net.tools.LoggerUtil;
 
 
@@ -34,6 +40,10 @@ import java.util.concurrent.ExecutorService;
  * - the "readFromSocket()" method reads data directly from the sockets, wraps it up into a ByteArrayReader, and invoke
  *   the "send()" method in this class, which will send that ByteArrayReader down the Stream to any other Stream that
  *   might be connected to this Stream (that will be a DeserializerStream).
+ *
+ * The bytes read are limited by the Bandwidth budget (see {@link BandwidthManager}): we only read as many bytes as
+ * allowed for the class of the message being received. If the budget is exhausted, we stop listening to the Socket
+ * (so the remote Peer is slowed down by TCP itself) until there is budget again.
  */
 public class NIOInputStream extends PeerInputStreamImpl<ByteArrayReader, ByteArrayReader> implements PeerInputStream<ByteArrayReader> {
 
@@ -65,11 +75,25 @@ public class NIOInputStream extends PeerInputStreamImpl<ByteArrayReader, ByteArr
     private int bufferNormalCapacity;
     private int bufferHighCapacity;
 
+    // Metrics:
+    private MetricsRegistry metrics;
+    private Counter metricBytesRead;
+    private Histogram metricReadSize;
+    private Histogram metricReadTime;
+
+    // Bandwidth control:
+    private BandwidthManager bandwidth;
+    private BandwidthManager.PeerBandwidth peerBandwidth;
+    private TrafficClassifier trafficClassifier = new TrafficClassifier();
+    private volatile boolean throttled;
+
     public NIOInputStream(PeerAddress peerAddress,
                           ExecutorService executor,
                           RuntimeConfig runtimeConfig,
                           NetworkConfig networkConfig,
-                          SelectionKey key) {
+                          SelectionKey key,
+                          BandwidthManager bandwidth,
+                          BandwidthManager.PeerBandwidth peerBandwidth) {
         super(peerAddress, executor, null);
         this.logger = new LoggerUtil(peerAddress.toString(), this.getClass());
 
@@ -85,6 +109,13 @@ public class NIOInputStream extends PeerInputStreamImpl<ByteArrayReader, ByteArr
         this.readBuffer = getBufferForReading();
         this.state = NIOStreamState.builder().build();
 
+        this.metrics = runtimeConfig.getMetricsRegistry();
+        this.metricBytesRead = metrics.counter("net.bytesRead");
+        this.metricReadSize = metrics.histogram("net.socketRead.bytes");
+        this.metricReadTime = metrics.histogram("net.socketRead.time");
+
+        this.bandwidth = bandwidth;
+        this.peerBandwidth = peerBandwidth;
     }
 
     private void updateState(int bytesReceivedToAdd) {
@@ -137,11 +168,32 @@ public class NIOInputStream extends PeerInputStreamImpl<ByteArrayReader, ByteArr
         try {
             // Before using the Buffer to read data from it, we check if we need to upgrtade/reset it...
             ByteBuffer buffer = getBufferForReading();
+
+            // We only read as many bytes as the Bandwidth budget allows:
+            if (throttled) return 0;
+            long allowance = bandwidth.allowance(BandwidthManager.Direction.IN, peerBandwidth, trafficClassifier.getCurrentClass());
+            if (allowance <= 0) {
+                throttle();
+                return 0;
+            }
+            if (allowance < buffer.remaining()) buffer.limit(buffer.position() + (int) allowance);
+
+            long readStart = metrics.startTimer();
+            SocketReadEvent jfrEvent = new SocketReadEvent();
+            jfrEvent.begin();
             int read = this.socketChannel.read(buffer);
+            metricReadTime.recordSince(readStart);
+            if (jfrEvent.shouldCommit()) {
+                jfrEvent.peer = peerAddress.toString();
+                jfrEvent.size = read;
+                jfrEvent.commit();
+            }
             updateState(read);
 
             //logger.debug(read + " bytes received from " +this.socketChannel.socket().getRemoteSocketAddress());
             if (read <= 0) return read;
+            metricBytesRead.add(read);
+            metricReadSize.record(read);
 
             // We feed the StreamOperations with that data. We concert the data into a ByteArray object, and we
             // feed our StreamOperations with it:
@@ -150,6 +202,10 @@ public class NIOInputStream extends PeerInputStreamImpl<ByteArrayReader, ByteArr
             buffer.get(data,0, data.length);
             buffer.compact();
 
+            // We record the bytes read, broken down by class:
+            trafficClassifier.feed(data, 0, data.length, (trafficClass, msgStart, msgLength, bytes, offset, length) ->
+                    bandwidth.record(BandwidthManager.Direction.IN, peerBandwidth, trafficClass, length));
+
             // We send this data down the Stream:
             // This data needs to be wrapped up in a ByteArray and then in a ByteArrayReader. But when it arrives at the
             // destination (which is a DeserializerStream), this reader will only be used to GET all its content
@@ -169,6 +225,24 @@ public class NIOInputStream extends PeerInputStreamImpl<ByteArrayReader, ByteArr
         return -1;
     }
 
+    // We stop listening to the Socket until there is budget to read more bytes:
+    private void throttle() {
+        throttled = true;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        long delay = bandwidth.nanosUntilAllowed(BandwidthManager.Direction.IN, peerBandwidth, trafficClassifier.getCurrentClass());
+        bandwidth.schedule(() -> {
+            throttled = false;
+            try {
+                if (key.isValid()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                    key.selector().wakeup();
+                }
+            } catch (Exception e) {
+                logger.trace("Trying to resume reading from " + peerAddress + ", but an Exception was thrown " + e.getMessage());
+            }
+        }, delay);
+    }
+
     @Override
     public void close(StreamCloseEvent event) {
         try {
@@ -1,6 +1,10 @@
 package io.bitcoinsv.jcl.net.network.streams.nio;
 
 import io.bitcoinsv.jcl.net.network.PeerAddress;
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthManager;
+import io.bitcoinsv.jcl.net.network.bandwidth.TrafficClass;
+import io.bitcoinsv.jcl.net.network.bandwidth.TrafficClassifier;
+import io.bitcoinsv.jcl.net.network.bandwidth.WeightedFairQueue;
 import io.bitcoinsv.jcl.net.network.config.NetworkConfig;
 
 import io.bitcoinsv.jcl.net.network.streams.PeerOutputStream;
@@ -18,11 +22,10 @@ import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
-import java.util.Iterator;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
 
 /**
  * @author i.fernandez@nchain.com
@@ -43,6 +46,13 @@ import java.util.concurrent.ExecutorService;
  * - The "writeToSocket()" method will take the bytes we collected in the first step, and will try to
  *   write them into the Socket connected to the Remote Peer.
  *
+ * The messages waiting to be written are kept in a different queue for each class of traffic (blocks, txs,
+ * control), and they are taken out of the queues according to the weight of each class (see
+ * {@link WeightedFairQueue}), so a big backlog of blocks does not delay the control messages. A message is always
+ * written completely before the next one starts, since the messages can not be interleaved in the wire.
+ *
+ * The bytes written are also limited by the Bandwidth budget (see {@link BandwidthManager}). If the budget is
+ * exhausted, we stop writing until there is budget again.
  */
 
 public class NIOOutputStream extends PeerOutputStreamImpl<ByteArrayReader, ByteArrayReader> implements PeerOutputStream<ByteArrayReader> {
@@ -61,17 +71,49 @@ public class NIOOutputStream extends PeerOutputStreamImpl<ByteArrayReader, ByteA
     private SelectionKey key;
     private SocketChannel socketChannel;
 
+    /** A Message waiting to be written. Its bytes might not have been sent to this Stream completely yet */
+    private static class PendingMsg {
+        private final TrafficClass trafficClass;
+        private final long length;      // -1 if unknown
+        private long bytesQueued;
+        private final Queue<ByteBuffer> buffers = new ArrayDeque<>();
+
+        PendingMsg(TrafficClass trafficClass, long length) {
+            this.trafficClass = trafficClass;
+            this.length = length;
+        }
+
+        void add(ByteBuffer buffer) {
+            buffers.offer(buffer);
+            bytesQueued += buffer.remaining();
+        }
+
+        boolean isComplete() { return length >= 0 && bytesQueued >= length; }
+    }
+
     // When using NIO and Buffers, there is no guarantee that all the bytes are written to the Buffer. Sometimes you
     // write 10 bytes but only 7 have been actually written. So we need to keep track of the bytes pending
     // to write:
     private long bytesToWriteRemaining = 0;
-    // Here we keep the bytes pending to be written to the Socket:
-    private Queue<ByteBuffer> buffersToWrite = new ConcurrentLinkedQueue<>();
+
+    // Messages pending to be written to the Socket:
+    private WeightedFairQueue<PendingMsg> msgsToWrite;
+    // Message being written at this moment, and Message whose bytes are being sent to this Stream at this moment:
+    private PendingMsg writingMsg;
+    private PendingMsg composingMsg;
+
+    // Bandwidth control:
+    private BandwidthManager bandwidth;
+    private BandwidthManager.PeerBandwidth peerBandwidth;
+    private TrafficClassifier trafficClassifier = new TrafficClassifier();
+    private volatile boolean throttled;
 
     public NIOOutputStream(PeerAddress peerAddress,
                            RuntimeConfig runtimeConfig,
                            NetworkConfig networkConfig,
-                           SelectionKey key) {
+                           SelectionKey key,
+                           BandwidthManager bandwidth,
+                           BandwidthManager.PeerBandwidth peerBandwidth) {
         super(peerAddress, null);
         this.logger = new LoggerUtil(peerAddress.toString(), this.getClass());
 
@@ -83,6 +125,9 @@ public class NIOOutputStream extends PeerOutputStreamImpl<ByteArrayReader, ByteA
 
         this.state = NIOStreamState.builder().build();
 
+        this.bandwidth = bandwidth;
+        this.peerBandwidth = peerBandwidth;
+        this.msgsToWrite = new WeightedFairQueue<>(bandwidth.getConfig());
     }
 
     @Override
@@ -102,14 +147,24 @@ public class NIOOutputStream extends PeerOutputStreamImpl<ByteArrayReader, ByteA
         bytesToWriteRemaining += event.getData().size();
 
         // The bytes to write in this event might be any size, even bigger than 2GB, so we send them in batches...
+        // Each batch is split into the messages it contains, which are queued by their class:
         int BATCH_SIZE = 100_000;
         ByteArrayReader reader = event.getData();
         while (!reader.isEmpty()) {
             int numBytesToRead = (int) Math.min(BATCH_SIZE, reader.size());
-            buffersToWrite.offer(ByteBuffer.wrap(reader.read(numBytesToRead)));
+            byte[] batch = reader.read(numBytesToRead);
+            trafficClassifier.feed(batch, 0, batch.length, (trafficClass, msgStart, msgLength, bytes, offset, length) -> {
+                if (msgStart || composingMsg == null) {
+                    composingMsg = new PendingMsg(trafficClass, msgLength);
+                    msgsToWrite.offer(trafficClass, composingMsg, msgLength);
+                }
+                // The header is notified in a buffer that is reused, so in that case we copy it:
+                composingMsg.add((bytes == batch)
+                        ? ByteBuffer.wrap(bytes, offset, length)
+                        : ByteBuffer.wrap(Arrays.copyOfRange(bytes, offset, offset + length)));
+            });
         }
-        //buffersToWrite.offer(ByteBuffer.wrap(event.getData().getFullContentAndClose())); // TODO: CAREFUL
-        notifyChannelWritable();
+        if (!throttled) notifyChannelWritable();
     }
 
     public void close(StreamCloseEvent event) {
@@ -136,23 +191,58 @@ public class NIOOutputStream extends PeerOutputStreamImpl<ByteArrayReader, ByteA
 
     public synchronized int writeToSocket() throws IOException {
         int writeResult = 0;
-        Iterator<ByteBuffer> buffersToWriteIterator = buffersToWrite.iterator();
-        while (buffersToWriteIterator.hasNext()) {
-            ByteBuffer writeBuffer = buffersToWriteIterator.next();
-            int numBytesWritten = socketChannel.write(writeBuffer);
+        if (throttled) return 0;
+        while (true) {
+            // We pick the next message once the current one has been completely written:
+            if (writingMsg == null || (writingMsg.buffers.isEmpty() && writingMsg.isComplete())) {
+                if (writingMsg == composingMsg) composingMsg = null;
+                writingMsg = msgsToWrite.poll();
+                if (writingMsg == null) break;
+            }
+            ByteBuffer writeBuffer = writingMsg.buffers.peek();
+            if (writeBuffer == null) break; // The rest of this message has not been sent to this Stream yet
+
+            // We only write as many bytes as the Bandwidth budget allows:
+            long allowance = bandwidth.allowance(BandwidthManager.Direction.OUT, peerBandwidth, writingMsg.trafficClass);
+            if (allowance <= 0) {
+                throttle(writingMsg.trafficClass);
+                return writeResult;
+            }
+            int numBytesToWrite = (int) Math.min(allowance, writeBuffer.remaining());
+            int numBytesWritten;
+            if (numBytesToWrite < writeBuffer.remaining()) {
+                ByteBuffer slice = writeBuffer.duplicate();
+                slice.limit(slice.position() + numBytesToWrite);
+                numBytesWritten = socketChannel.write(slice);
+                writeBuffer.position(writeBuffer.position() + numBytesWritten);
+            } else {
+                numBytesWritten = socketChannel.write(writeBuffer);
+            }
+            bandwidth.record(BandwidthManager.Direction.OUT, peerBandwidth, writingMsg.trafficClass, numBytesWritten);
             updateState(numBytesWritten);
             writeResult += numBytesWritten;
             bytesToWriteRemaining -= numBytesWritten;
 
-            if (!writeBuffer.hasRemaining())  buffersToWriteIterator.remove();
-            else break;
+            if (!writeBuffer.hasRemaining()) writingMsg.buffers.poll();
+            else if (numBytesWritten < numBytesToWrite) break; // Socket full
 
         } // while...
-        if (buffersToWrite.isEmpty()) notifyChannelNotWritable();
+        if (writingMsg == null || writingMsg.buffers.isEmpty()) notifyChannelNotWritable();
         //logger.debug(writeResult + " bytes sent to " + socketChannel.socket().getRemoteSocketAddress());
         return writeResult;
     }
 
+    // We stop writing to the Socket until there is budget to write more bytes:
+    private void throttle(TrafficClass trafficClass) {
+        throttled = true;
+        notifyChannelNotWritable();
+        long delay = bandwidth.nanosUntilAllowed(BandwidthManager.Direction.OUT, peerBandwidth, trafficClass);
+        bandwidth.schedule(() -> {
+            throttled = false;
+            notifyChannelWritable();
+        }, delay);
+    }
+
     public PeerAddress getPeerAddress() {
         return this.peerAddress;
     }
@@ -1,6 +1,7 @@
 package io.bitcoinsv.jcl.net.network.streams.nio;
 
 import io.bitcoinsv.jcl.net.network.PeerAddress;
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthManager;
 import io.bitcoinsv.jcl.net.network.config.NetworkConfig;
 import io.bitcoinsv.jcl.net.network.streams.PeerStream;
 import io.bitcoinsv.jcl.net.network.streams.PeerStreamImpl;
@@ -25,24 +26,36 @@ public class NIOStream extends PeerStreamImpl<ByteArrayReader, ByteArrayReader>
     private PeerAddress peerAddress;
     private SelectionKey key;
 
+    // Bandwidth control, shared by the input and output Streams:
+    private BandwidthManager bandwidth;
+    private BandwidthManager.PeerBandwidth peerBandwidth;
+
     public NIOStream(PeerAddress peerAddress, ExecutorService executor,
                      RuntimeConfig runtimeConfig, NetworkConfig networkConfig,
-                     SelectionKey key) {
+                     SelectionKey key, BandwidthManager bandwidth) {
         super(peerAddress, executor, null);
         this.runtimeConfig = runtimeConfig;
         this.networkConfig = networkConfig;
         this.peerAddress = peerAddress;
         this.key = key;
+        this.bandwidth = bandwidth;
+        this.peerBandwidth = bandwidth.newPeer();
+    }
+
+    public NIOStream(PeerAddress peerAddress, ExecutorService executor,
+                     RuntimeConfig runtimeConfig, NetworkConfig networkConfig,
+                     SelectionKey key) {
+        this(peerAddress, executor, runtimeConfig, networkConfig, key, new BandwidthManager());
     }
 
     @Override
     public NIOInputStream buildInputStream() {
-        return new NIOInputStream(peerAddress, super.executor, runtimeConfig, networkConfig, key);
+        return new NIOInputStream(peerAddress, super.executor, runtimeConfig, networkConfig, key, bandwidth, peerBandwidth);
     }
 
     @Override
     public NIOOutputStream buildOutputStream() {
-        return new NIOOutputStream(peerAddress, runtimeConfig, networkConfig, key);
+        return new NIOOutputStream(peerAddress, runtimeConfig, networkConfig, key, bandwidth, peerBandwidth);
     }
 
     @Override
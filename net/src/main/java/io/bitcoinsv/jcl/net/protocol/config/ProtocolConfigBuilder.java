@@ -87,7 +87,13 @@ public class ProtocolConfigBuilder {
         // (the whole block definition used to be defined in JCL, but now we are leveraging on bitcoinJ for that, so we
         // only used the fields defined in bitcoinJ).
 
+        // The Hash is only set if the Network defines it (some testing networks do not):
+        Sha256Hash genesisHash = (params.genesisHash() != null && params.genesisHash().length() == 64)
+                ? Sha256Hash.wrap(params.genesisHash())
+                : null;
+
         BlockHeaderMsg genesisBlock = BlockHeaderMsg.builder()
+                .hash(genesisHash)
                 .creationTimestamp(params.genesisTime())
                 .difficultyTarget(params.genesisDifficulty())
                 .nonce(params.genesisNonce())
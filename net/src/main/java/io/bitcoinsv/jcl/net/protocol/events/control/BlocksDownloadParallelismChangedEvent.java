@@ -0,0 +1,63 @@
+package io.bitcoinsv.jcl.net.protocol.events.control;
+
+
+import com.google.common.base.Objects;
+import io.bitcoinsv.jcl.net.network.events.P2PEvent;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * An Event triggered when the BlockDownloader Handler changes the number of Blocks (and MB) that can be downloaded
+ * in parallel, when the auto-tuning of the parallelism is enabled. It provides the new limits, the reason for the
+ * change and the download throughput measured right before it.
+ */
+public final class BlocksDownloadParallelismChangedEvent extends P2PEvent {
+
+    /** Definition of the reasons why the parallelism might change */
+    public enum Reason {
+        THROUGHPUT_IMPROVING,   // The throughput keeps improving, so we increase it
+        NO_IMPROVEMENT,         // The last increase did not improve the throughput, so we undo it
+        MEMORY_PRESSURE,        // The Heap or Direct memory is running low, so we decrease it
+        STALLS                  // The Peers are stalling more and more often, so we decrease it
+    }
+
+    private final int maxBlocksInParallel;
+    private final long maxMBinParallel;
+    private final Reason reason;
+    private final long throughput; // bytes/sec
+
+    public BlocksDownloadParallelismChangedEvent(int maxBlocksInParallel, long maxMBinParallel, Reason reason, long throughput) {
+        this.maxBlocksInParallel = maxBlocksInParallel;
+        this.maxMBinParallel = maxMBinParallel;
+        this.reason = reason;
+        this.throughput = throughput;
+    }
+
+    public int getMaxBlocksInParallel()     { return this.maxBlocksInParallel; }
+    public long getMaxMBinParallel()        { return this.maxMBinParallel; }
+    public Reason getReason()               { return this.reason; }
+    public long getThroughput()             { return this.throughput; }
+
+    @Override
+    public String toString() {
+        return "BlocksDownloadParallelismChangedEvent(maxBlocksInParallel=" + this.maxBlocksInParallel
+                + ", maxMBinParallel=" + this.maxMBinParallel
+                + ", reason=" + this.reason
+                + ", throughput=" + this.throughput + " bytes/sec)";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!super.equals(obj)) { return false; }
+        BlocksDownloadParallelismChangedEvent other = (BlocksDownloadParallelismChangedEvent) obj;
+        return this.maxBlocksInParallel == other.maxBlocksInParallel
+                && this.maxMBinParallel == other.maxMBinParallel
+                && Objects.equal(this.reason, other.reason);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(super.hashCode(), maxBlocksInParallel, maxMBinParallel, reason);
+    }
+}
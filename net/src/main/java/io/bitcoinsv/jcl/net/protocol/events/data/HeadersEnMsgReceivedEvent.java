@@ -0,0 +1,29 @@
+package io.bitcoinsv.jcl.net.protocol.events.data;
+
+
+import com.google.common.base.Objects;
+import io.bitcoinsv.jcl.net.network.PeerAddress;
+import io.bitcoinsv.jcl.net.protocol.messages.HeadersEnMsg;
+import io.bitcoinsv.jcl.net.protocol.messages.common.BitcoinMsg;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * An Event triggered when a HEADERS_EN Message is received from a Remote Peer.
+ */
+public final class HeadersEnMsgReceivedEvent extends MsgReceivedEvent<HeadersEnMsg> {
+    public HeadersEnMsgReceivedEvent(PeerAddress peerAddress, BitcoinMsg<HeadersEnMsg> btcMsg) {
+        super(peerAddress, btcMsg);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(super.hashCode());
+    }
+}
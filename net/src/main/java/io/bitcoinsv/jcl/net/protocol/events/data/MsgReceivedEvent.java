@@ -6,6 +6,7 @@ import io.bitcoinsv.jcl.net.network.PeerAddress;
 import io.bitcoinsv.jcl.net.network.events.P2PEvent;
 import io.bitcoinsv.jcl.net.protocol.messages.common.BitcoinMsg;
 import io.bitcoinsv.jcl.net.protocol.messages.common.BodyMessage;
+import io.bitcoinsv.jcl.tools.jfr.TraceableEvent;
 
 /**
  * @author i.fernandez@nchain.com
@@ -13,7 +14,7 @@ import io.bitcoinsv.jcl.net.protocol.messages.common.BodyMessage;
  *
  * An Event triggered when a Message is received from a Remote Peer.
  */
-public class MsgReceivedEvent<T extends BodyMessage> extends P2PEvent {
+public class MsgReceivedEvent<T extends BodyMessage> extends P2PEvent implements TraceableEvent {
     private final PeerAddress peerAddress;
     private final BitcoinMsg<T> btcMsg;
 
@@ -25,6 +26,11 @@ public class MsgReceivedEvent<T extends BodyMessage> extends P2PEvent {
     public PeerAddress getPeerAddress() { return this.peerAddress; }
     public BitcoinMsg<T> getBtcMsg()    { return this.btcMsg; }
 
+    // TraceableEvent:
+    public String getTracePeer()        { return this.peerAddress.toString(); }
+    public String getTraceCommand()     { return this.btcMsg.getHeader().getMsgCommand(); }
+    public long getTraceSize()          { return this.btcMsg.getHeader().getMsgLength(); }
+
     @Override
     public String toString() {
         return "Event[" + btcMsg.getHeader().getMsgCommand().toUpperCase() + " Received]: from " + peerAddress.toString();
@@ -8,7 +8,8 @@ import io.bitcoinsv.jcl.net.protocol.events.control.PingPongFailedEvent;
 import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
 import io.bitcoinsv.jcl.tools.handlers.HandlerImpl;
 import io.bitcoinsv.jcl.net.tools.LoggerUtil;
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
+import io.bitcoinsv.jcl.tools.thread.TimerWheel;
+import io.bitcoinsv.jcl.tools.util.DateTimeUtils;
 import io.bitcoinsv.jcl.tools.util.StringUtils;
 
 import java.net.InetAddress;
@@ -17,8 +18,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -28,7 +29,9 @@ import static java.lang.String.format;
  * @author i.fernandez@nchain.com
  * Copyright (c) 2018-2020 nChain Ltd
  *
- * Implementation of a Blacklist Handler
+ * Implementation of a Blacklist Handler.
+ * When a Host is blacklisted for a limited time, a Deadline is registered in the shared {@link TimerWheel}, and the
+ * Host is whitelisted again when that Deadline expires.
  */
 public class BlacklistHandlerImpl extends HandlerImpl<InetAddress, BlacklistHostInfo> implements BlacklistHandler {
 
@@ -39,8 +42,11 @@ public class BlacklistHandlerImpl extends HandlerImpl<InetAddress, BlacklistHost
     private LoggerUtil logger;
     private BlacklistHandlerConfig config;
 
-    // An executor, to run jobs in parallel:
-    private final ScheduledExecutorService executor;
+    // Timer Wheel used to schedule the whitelisting of the Hosts, the Executor (IO Lane) they run in, and the
+    // Deadlines currently scheduled:
+    private final TimerWheel timerWheel;
+    private final ExecutorService deadlinesExecutor;
+    private final Map<InetAddress, TimerWheel.Timeout> whitelistDeadlines = new ConcurrentHashMap<>();
     private final BlacklistTracker blacklistTracker;
 
     private BlacklistHandlerState state = BlacklistHandlerState.builder().build();
@@ -52,7 +58,8 @@ public class BlacklistHandlerImpl extends HandlerImpl<InetAddress, BlacklistHost
         super(id, runtimeConfig);
         this.config = config;
         this.logger = new LoggerUtil(id, HANDLER_ID, this.getClass());
-        this.executor = ThreadUtils.getScheduledExecutorService("JclBlacklistHandler-Whitelist");
+        this.timerWheel = TimerWheel.getInstance();
+        this.deadlinesExecutor = runtimeConfig.getExecutionModel().getIOLane("JclBlacklistHandler-Deadlines");
         this.blacklistTracker = blacklistTracker;
     }
 
@@ -87,42 +94,10 @@ public class BlacklistHandlerImpl extends HandlerImpl<InetAddress, BlacklistHost
         handlerInfo.keySet().forEach(ip -> hostsToBlacklist.put(ip, handlerInfo.get(ip).getBlacklistReason()));
         super.eventBus.publish(new PeersBlacklistedEvent(hostsToBlacklist));
 
-        // We start the Job to look over the Blacklist IPs and whitelist them if needed:
-        // rate is determined from the shortest duration in order to accommodate it
-        var shortestDurationMs = findShortestDurationMs();
-
-        logger.trace(format("Blacklist check job scheduled at a rate of %s milliseconds...", shortestDurationMs));
-        executor.scheduleAtFixedRate(this::jobCheckBlacklist, 0, shortestDurationMs, TimeUnit.MILLISECONDS);
-    }
-
-    /**
-     * Attempts to find the lowest possible duration from blacklist configuration. If no duration is configured,
-     * a default value of 1 minute will be used. The returned value is always in milliseconds.
-     * <br><br>
-     * <i>NOTE: {@code null} values are supported for legacy purposes</i>
-     *
-     * @return The lowest possible duration in milliseconds
-     */
-    private Long findShortestDurationMs() {
-        var possibleSoftDuration = config.getBlacklistEntryConfigurations().stream()
-            .map(BlacklistHandlerConfig.BlacklistEntryConfiguration::getSoftDuration)
-            .min(Comparator.nullsLast(Comparator.naturalOrder()))
-            .orElse(null);
-        var possibleDuration = config.getBlacklistEntryConfigurations().stream()
-            .map(BlacklistHandlerConfig.BlacklistEntryConfiguration::getDuration)
-            .min(Comparator.nullsLast(Comparator.naturalOrder()))
-            .orElse(null);
-        var duration = Duration.ofMinutes(1).toMillis(); // 1 minute by default (legacy)
-
-        if (possibleSoftDuration != null && possibleDuration != null) {
-            duration = Math.min(possibleSoftDuration, possibleDuration);
-        } else if (possibleSoftDuration != null) {
-            duration = possibleSoftDuration;
-        } else if (possibleDuration != null) {
-            duration = possibleDuration;
-        }
-
-        return duration;
+        // We schedule the whitelisting of the Hosts loaded, once their blacklist expires:
+        handlerInfo.values().stream()
+            .filter(BlacklistHostInfo::isBlacklisted)
+            .forEach(this::scheduleWhitelist);
     }
 
     // Event Handler:
@@ -134,8 +109,9 @@ public class BlacklistHandlerImpl extends HandlerImpl<InetAddress, BlacklistHost
     private void onNetStop(NetStopEvent event) {
         // We save the blacklist to disk...
         saveBlacklistToDisk();
-        // We stop the Whitelist Job...
-        if (executor != null) executor.shutdownNow();
+        // We cancel the Whitelist Deadlines...
+        whitelistDeadlines.values().forEach(TimerWheel.Timeout::cancel);
+        whitelistDeadlines.clear();
         logger.trace("Stop.");
     }
 
@@ -251,6 +227,7 @@ public class BlacklistHandlerImpl extends HandlerImpl<InetAddress, BlacklistHost
             durationToUse.map(value -> String.valueOf(value.toMillis())).orElse("undefined"),
             existingReasonCount != null ? existingReasonCount.toString() : "none"));
         hostInfo.blacklist(reason, durationToUse);
+        scheduleWhitelist(hostInfo);
         // We trigger an Event:
         var event = new PeersBlacklistedEvent(ip, reason);
 
@@ -265,7 +242,11 @@ public class BlacklistHandlerImpl extends HandlerImpl<InetAddress, BlacklistHost
     private void whitelist(List<BlacklistHostInfo> hostInfos) {
         if (!hostInfos.isEmpty()) {
             logger.trace(format("Whitelisting %s IPs...", hostInfos.size()));
-            hostInfos.forEach(h -> h.whitelist());
+            hostInfos.forEach(h -> {
+                h.whitelist();
+                TimerWheel.Timeout deadline = whitelistDeadlines.remove(h.getIp());
+                if (deadline != null) deadline.cancel();
+            });
             // We publish the event to the Bus:
             super.eventBus.publish(new PeersWhitelistedEvent(hostInfos.stream().map(h -> h.getIp()).collect(Collectors.toList())));
         } else {
@@ -319,23 +300,33 @@ public class BlacklistHandlerImpl extends HandlerImpl<InetAddress, BlacklistHost
     }
 
     /**
-     * This process looks constantly over the Blacklist and check if each individual IP can be whitelisted
-     * again. It also published all those IPs that have been blacklisted but not notified yet, and notifies
-     * them in a single Event
+     * It registers a Deadline in the Timer Wheel to whitelist the Host given when its blacklist expires. If the Host
+     * has been blacklisted forever, nothing is scheduled.
+     */
+    private void scheduleWhitelist(BlacklistHostInfo hostInfo) {
+        if (hostInfo.getExpirationTime() == null) return;
+        Duration remaining = Duration.between(DateTimeUtils.nowDateTimeUTC(), hostInfo.getExpirationTime());
+        TimerWheel.Timeout deadline = timerWheel.schedule(() -> checkWhitelist(hostInfo), remaining, deadlinesExecutor);
+        TimerWheel.Timeout previous = whitelistDeadlines.put(hostInfo.getIp(), deadline);
+        if (previous != null) previous.cancel();
+    }
+
+    /**
+     * Triggered when the blacklist of a Host should have expired. The Host is whitelisted, unless it's been
+     * whitelisted already or it's been blacklisted again for a longer time.
      */
-    private void jobCheckBlacklist() {
+    private void checkWhitelist(BlacklistHostInfo hostInfo) {
         try {
-            // we check if any of the Blacklisted Peers can be whitelisted...
-            long numBlacklisted = handlerInfo.values().stream().filter(h -> h.isBlacklisted()).count();
-            List<BlacklistHostInfo> hostsToWhitelist = handlerInfo.values().stream()
-                .filter(h -> h.isBlacklistExpired())
-                .collect(Collectors.toList());
-            whitelist(hostsToWhitelist);
-            long numBlacklistedAfter = handlerInfo.values().stream().filter(h -> h.isBlacklisted()).count();
-            logger.debug("Blacklist reviewed: " + (numBlacklisted - numBlacklistedAfter) + " IPs have been WHITELISTED.");
+            if (!hostInfo.isBlacklisted()) return;
+            if (hostInfo.isBlacklistExpired()) {
+                whitelist(List.of(hostInfo));
+                logger.debug("Blacklist expired: " + hostInfo.getIp() + " has been WHITELISTED.");
+            } else {
+                // The clocks might be slightly off, or the expiration has changed. We try again later:
+                scheduleWhitelist(hostInfo);
+            }
         } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException();
+            logger.error(e, "Error whitelisting " + hostInfo.getIp());
         }
     }
 
@@ -24,6 +24,11 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
     public static final Duration DEFAULT_CLEANING_HISTORY_TIMEOUT   = Duration.ofMinutes(10);
     public static final Duration DEFAULT_INACTIVITY_TO_FAIL_TIMEOUT = Duration.ofSeconds(30);
     public static final int      DEFAULT_MIN_SPEED                  = 10_000;  // (bytes/sec)
+    public static final int      DEFAULT_MAX_BLOCKS_IN_FLIGHT_PER_PEER = 1;
+    public static final Duration DEFAULT_IN_FLIGHT_WINDOW_TARGET    = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_AUTO_TUNE_INTERVAL         = Duration.ofSeconds(10);
+    public static final int      DEFAULT_MAX_BLOCKS_IN_PARALLEL_LIMIT = 50;
+    public static final long     DEFAULT_MAX_MB_IN_PARALLEL_LIMIT   = 2_000;
 
     // Basic protocol Config:
     private ProtocolBasicConfig basicConfig;
@@ -49,6 +54,12 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
     /** If specified, all blocks history will be removed after this duration has passed since their last activity */
     private Duration blockHistoryTimeout = DEFAULT_CLEANING_HISTORY_TIMEOUT;
 
+    /** Maximum number of events kept in the download history of each block (only the last ones are kept) */
+    private int blockHistorySize = BlocksDownloadHistory.DEFAULT_MAX_EVENTS_PER_BLOCK;
+
+    /** Maximum number of blocks with download history (the history of the least recently active is removed) */
+    private int maxBlocksInHistory = BlocksDownloadHistory.DEFAULT_MAX_BLOCKS;
+
     /** Maximum total Size of Blocks taht can be download in parallel */
     private long maxMBinParallel = DEFAULT_MAX_MB_IN_PARALLEL;
 
@@ -66,6 +77,37 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
      */
     private int minSpeed = DEFAULT_MIN_SPEED;
 
+    /**
+     * Maximum number of Blocks requested to the same Peer at the same time (in-flight window). The Peer sends them
+     * one after another, so while one Block is being received, the rest are already requested and there is no
+     * round-trip between blocks. If 1, a new Block is only requested when the previous one has been downloaded.
+     * The total number of Blocks requested is still limited by "maxBlocksInParallel".
+     */
+    private int maxBlocksInFlightPerPeer = DEFAULT_MAX_BLOCKS_IN_FLIGHT_PER_PEER;
+
+    /**
+     * The in-flight window of each Peer adapts to its speed: The Peer is given as many Blocks as it can download
+     * (based on its measured Speed and the average size of the blocks downloaded from it) during this time, with
+     * a minimum of 1 and a maximum of "maxBlocksInFlightPerPeer".
+     */
+    private Duration inFlightWindowTarget = DEFAULT_IN_FLIGHT_WINDOW_TARGET;
+
+    /**
+     * If true, the number of Blocks and MB downloaded in parallel are tuned automatically: "maxBlocksInParallel" and
+     * "maxMBinParallel" are only the initial values, and they are raised while the overall download throughput keeps
+     * improving, and lowered when the memory is running low or the Peers start stalling. They never go beyond
+     * "maxBlocksInParallelLimit" and "maxMBinParallelLimit". The decisions are published as
+     * {@link io.bitcoinsv.jcl.net.protocol.events.control.BlocksDownloadParallelismChangedEvent}.
+     */
+    private boolean autoTuneParallelism = false;
+
+    /** Frequency of the auto-tuning of the parallelism. Each decision is based on the downloads of this period */
+    private Duration autoTuneInterval = DEFAULT_AUTO_TUNE_INTERVAL;
+
+    /** Hard limits for the auto-tuning of the parallelism */
+    private int maxBlocksInParallelLimit = DEFAULT_MAX_BLOCKS_IN_PARALLEL_LIMIT;
+    private long maxMBinParallelLimit = DEFAULT_MAX_MB_IN_PARALLEL_LIMIT;
+
     // The Following ENUMS store different Criteria/Strategies to follow when Choosing the right Peer to download
     // a Block from or what to do if there is no clear match:
     // NOTE:
@@ -126,7 +168,15 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
                                         BestMatchCriteria bestMatchCriteria,
                                         BestMatchNotAvailableAction bestMatchNotAvailableAction,
                                         NoBestMatchAction noBestMatchAction,
-                                        int minSpeed) {
+                                        int minSpeed,
+                                        int maxBlocksInFlightPerPeer,
+                                        Duration inFlightWindowTarget,
+                                        boolean autoTuneParallelism,
+                                        Duration autoTuneInterval,
+                                        int maxBlocksInParallelLimit,
+                                        long maxMBinParallelLimit,
+                                        int blockHistorySize,
+                                        int maxBlocksInHistory) {
         this.basicConfig = basicConfig;
         if (maxDownloadTimeout != null)             this.maxDownloadTimeout = maxDownloadTimeout;
         if (maxIdleTimeout != null)                 this.maxIdleTimeout = maxIdleTimeout;
@@ -141,6 +191,15 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
         this.bestMatchNotAvailableAction = bestMatchNotAvailableAction;
         this.noBestMatchAction = noBestMatchAction;
         this.minSpeed = minSpeed;
+        this.maxBlocksInFlightPerPeer = Math.max(1, maxBlocksInFlightPerPeer);
+        if (inFlightWindowTarget != null)           this.inFlightWindowTarget = inFlightWindowTarget;
+        this.autoTuneParallelism = autoTuneParallelism;
+        if (autoTuneInterval != null)               this.autoTuneInterval = autoTuneInterval;
+        // The hard limits can never be lower than the initial values:
+        this.maxBlocksInParallelLimit = Math.max(maxBlocksInParallelLimit, this.maxBlocksInParallel);
+        this.maxMBinParallelLimit = Math.max(maxMBinParallelLimit, this.maxMBinParallel);
+        this.blockHistorySize = Math.max(1, blockHistorySize);
+        this.maxBlocksInHistory = Math.max(1, maxBlocksInHistory);
     }
 
     public BlockDownloaderHandlerConfig() {}
@@ -156,6 +215,14 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
     public Duration getBlockHistoryTimeout()                { return this.blockHistoryTimeout;}
     public Duration getInactivityTimeoutToFail()            { return this.inactivityTimeoutToFail;}
     public int getMinSpeed()                                { return this.minSpeed;}
+    public int getMaxBlocksInFlightPerPeer()                { return this.maxBlocksInFlightPerPeer;}
+    public Duration getInFlightWindowTarget()               { return this.inFlightWindowTarget;}
+    public boolean isAutoTuneParallelism()                  { return this.autoTuneParallelism;}
+    public Duration getAutoTuneInterval()                   { return this.autoTuneInterval;}
+    public int getMaxBlocksInParallelLimit()                { return this.maxBlocksInParallelLimit;}
+    public long getMaxMBinParallelLimit()                   { return this.maxMBinParallelLimit;}
+    public int getBlockHistorySize()                        { return this.blockHistorySize;}
+    public int getMaxBlocksInHistory()                      { return this.maxBlocksInHistory;}
 
     public BestMatchCriteria getBestMatchCriteria()                     { return this.bestMatchCriteria;}
     public BestMatchNotAvailableAction getBestMatchNotAvailableAction() { return this.bestMatchNotAvailableAction;}
@@ -176,7 +243,15 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
                 .bestMatchCriteria(this.bestMatchCriteria)
                 .bestMatchNotAvailableAction(this.bestMatchNotAvailableAction)
                 .noBestMatchAction(this.noBestMatchAction)
-                .minSpeed(this.minSpeed);
+                .minSpeed(this.minSpeed)
+                .maxBlocksInFlightPerPeer(this.maxBlocksInFlightPerPeer)
+                .inFlightWindowTarget(this.inFlightWindowTarget)
+                .autoTuneParallelism(this.autoTuneParallelism)
+                .autoTuneInterval(this.autoTuneInterval)
+                .maxBlocksInParallelLimit(this.maxBlocksInParallelLimit)
+                .maxMBinParallelLimit(this.maxMBinParallelLimit)
+                .blockHistorySize(this.blockHistorySize)
+                .maxBlocksInHistory(this.maxBlocksInHistory);
     }
 
     public static BlockDownloaderHandlerConfigBuilder builder() {
@@ -198,6 +273,14 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
         private Duration blockHistoryTimeout = DEFAULT_CLEANING_HISTORY_TIMEOUT;
         private Duration inactivityTimeoutToFail = DEFAULT_INACTIVITY_TO_FAIL_TIMEOUT;
         private int minSpeed = DEFAULT_MIN_SPEED;
+        private int maxBlocksInFlightPerPeer = DEFAULT_MAX_BLOCKS_IN_FLIGHT_PER_PEER;
+        private Duration inFlightWindowTarget = DEFAULT_IN_FLIGHT_WINDOW_TARGET;
+        private boolean autoTuneParallelism = false;
+        private Duration autoTuneInterval = DEFAULT_AUTO_TUNE_INTERVAL;
+        private int maxBlocksInParallelLimit = DEFAULT_MAX_BLOCKS_IN_PARALLEL_LIMIT;
+        private long maxMBinParallelLimit = DEFAULT_MAX_MB_IN_PARALLEL_LIMIT;
+        private int blockHistorySize = BlocksDownloadHistory.DEFAULT_MAX_EVENTS_PER_BLOCK;
+        private int maxBlocksInHistory = BlocksDownloadHistory.DEFAULT_MAX_BLOCKS;
 
         private BestMatchCriteria           bestMatchCriteria = BestMatchCriteria.FROM_ANYONE;
         private BestMatchNotAvailableAction bestMatchNotAvailableAction = BestMatchNotAvailableAction.DOWNLOAD_FROM_ANYONE;
@@ -260,6 +343,46 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
             return this;
         }
 
+        public BlockDownloaderHandlerConfig.BlockDownloaderHandlerConfigBuilder maxBlocksInFlightPerPeer(int maxBlocksInFlightPerPeer) {
+            this.maxBlocksInFlightPerPeer = maxBlocksInFlightPerPeer;
+            return this;
+        }
+
+        public BlockDownloaderHandlerConfig.BlockDownloaderHandlerConfigBuilder inFlightWindowTarget(Duration inFlightWindowTarget) {
+            this.inFlightWindowTarget = inFlightWindowTarget;
+            return this;
+        }
+
+        public BlockDownloaderHandlerConfig.BlockDownloaderHandlerConfigBuilder autoTuneParallelism(boolean autoTuneParallelism) {
+            this.autoTuneParallelism = autoTuneParallelism;
+            return this;
+        }
+
+        public BlockDownloaderHandlerConfig.BlockDownloaderHandlerConfigBuilder autoTuneInterval(Duration autoTuneInterval) {
+            this.autoTuneInterval = autoTuneInterval;
+            return this;
+        }
+
+        public BlockDownloaderHandlerConfig.BlockDownloaderHandlerConfigBuilder maxBlocksInParallelLimit(int maxBlocksInParallelLimit) {
+            this.maxBlocksInParallelLimit = maxBlocksInParallelLimit;
+            return this;
+        }
+
+        public BlockDownloaderHandlerConfig.BlockDownloaderHandlerConfigBuilder maxMBinParallelLimit(long maxMBinParallelLimit) {
+            this.maxMBinParallelLimit = maxMBinParallelLimit;
+            return this;
+        }
+
+        public BlockDownloaderHandlerConfig.BlockDownloaderHandlerConfigBuilder blockHistorySize(int blockHistorySize) {
+            this.blockHistorySize = blockHistorySize;
+            return this;
+        }
+
+        public BlockDownloaderHandlerConfig.BlockDownloaderHandlerConfigBuilder maxBlocksInHistory(int maxBlocksInHistory) {
+            this.maxBlocksInHistory = maxBlocksInHistory;
+            return this;
+        }
+
         public BlockDownloaderHandlerConfig.BlockDownloaderHandlerConfigBuilder bestMatchCriteria(BestMatchCriteria bestMatchCriteria) {
             this.bestMatchCriteria = bestMatchCriteria;
             return this;
@@ -290,7 +413,15 @@ public class BlockDownloaderHandlerConfig extends HandlerConfig {
                     bestMatchCriteria,
                     bestMatchNotAvailableAction,
                     noBestMatchAction,
-                    minSpeed);
+                    minSpeed,
+                    maxBlocksInFlightPerPeer,
+                    inFlightWindowTarget,
+                    autoTuneParallelism,
+                    autoTuneInterval,
+                    maxBlocksInParallelLimit,
+                    maxMBinParallelLimit,
+                    blockHistorySize,
+                    maxBlocksInHistory);
         }
     }
 }
\ No newline at end of file
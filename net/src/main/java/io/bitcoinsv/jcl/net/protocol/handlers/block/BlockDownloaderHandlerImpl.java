@@ -15,7 +15,7 @@ import io.bitcoinsv.jcl.net.protocol.handlers.message.streams.deserializer.Deser
 import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
 import io.bitcoinsv.jcl.tools.handlers.HandlerImpl;
 import io.bitcoinsv.jcl.net.tools.LoggerUtil;
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
+import io.bitcoinsv.jcl.tools.thread.TimerWheel;
 import io.bitcoinsv.bitcoinjsv.core.Sha256Hash;
 import io.bitcoinsv.bitcoinjsv.core.Utils;
 
@@ -23,6 +23,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
@@ -45,11 +46,32 @@ import java.util.stream.Collectors;
  *   bytes arrive down the wire, and its not deserialized into a Java Object, instead different notifications are
  *   triggered when different parts of the Block are deserialized.
  *
- * This Handler is always running. At every moment, it loops over the Connected Peers and, if some blocks are still
- * pending to download and there are Peers availa le, we start downloading blocks from them. In case there is a
- * problem while downloading a Block from a Peer (or the Peer has disconnected in the middle of the process), that
- * block is assigned to another availbale Peer. When a block has failed to be download for a certains number of times
- * (configurable), the Block is discarded.
+ * The assignment of Blocks to Peers is driven by events: Every time something happens that might allow a new
+ * download (new blocks requested, a Peer handshaked, a Block downloaded, a Block failed, the Handler resumed, etc),
+ * an assignment is triggered: if some blocks are still pending to download and there are Peers available, we start
+ * downloading blocks from them, the best Peers first. The Peers are kept ordered by their Performance at all times, so
+ * there is no need to sort them on each assignment. Several triggers in a row are coalesced into one single assignment.
+ *
+ * The Performance of each Peer (see {@link BlockPeerPerformance}) is built from its throughput, latency, stalls and
+ * failures. Apart from ordering the Peers, it's also used to choose the Peer for each Block depending on its size, so
+ * big blocks are not given to Peers that are only good at serving small ones.
+ *
+ * The progress of the Peers downloading is monitored on a frequency basis. In case there is a problem while
+ * downloading a Block from a Peer (or the Peer has disconnected in the middle of the process), that block is assigned
+ * to another availbale Peer. When a block has failed to be download for a certains number of times (configurable),
+ * the Block is discarded.
+ *
+ * Each Peer can have several Blocks requested at the same time (its "in-flight window", see
+ * {@link BlockDownloaderHandlerConfig#getMaxBlocksInFlightPerPeer()}), so the Peer does not stay idle during the
+ * round-trip between one Block and the next. The size of the window of each Peer depends on its measured speed. The
+ * completion, timeouts and re-assignment are tracked for each Block in the window.
+ *
+ * The number of Blocks and MB downloaded in parallel can be tuned automatically (see
+ * {@link BlocksDownloadParallelismTuner}): The configured values are then the initial ones, and the parallelism goes
+ * up while the throughput keeps improving, and down when the memory runs low or the Peers start stalling.
+ *
+ * The Blocks in LIMBO and the Blocks discarded are not checked in a loop: A Deadline is registered in the shared
+ * {@link TimerWheel} for each one of them instead, and they are only checked when that Deadline expires.
  *
  * @see BlockDownloadedEvent
  * @see LiteBlockDownloadedEvent
@@ -78,8 +100,29 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
     private LoggerUtil logger;
     private BlockDownloaderHandlerConfig config;
 
-    // En Executor and a Listener to trigger jobs in parallels.
-    private ExecutorService executor;
+    // Executor used to run the assignment of Blocks to Peers, and the Job that monitors the downloads on a frequency
+    // basis (Scheduled Lane):
+    private ScheduledExecutorService executor;
+
+    // Frequency of the Job that monitors the progress and timeouts of the Peers downloading:
+    private static final Duration DOWNLOADING_CHECK_FREQUENCY = Duration.ofMillis(100);
+
+    // Handshaked Peers, ordered by Performance (the best go first). A Peer is removed and inserted again every time its
+    // performance is updated, so the order is always kept:
+    private final Comparator<BlockPeerInfo> PEERS_COMPARATOR = BlockPeerInfo.PERFORMANCE_COMPARATOR
+            .thenComparing(p -> p.getPeerAddress().toString());
+    private final ConcurrentSkipListSet<BlockPeerInfo> peersByPerformance = new ConcurrentSkipListSet<>(PEERS_COMPARATOR);
+
+    // TRUE if an assignment of Blocks has been triggered and has not run yet:
+    private final AtomicBoolean assignmentTriggered = new AtomicBoolean();
+
+    // Timer Wheel used to schedule the Deadlines of the Blocks in Limbo and the Blocks discarded, and the Executor
+    // (IO Lane) they run in:
+    private TimerWheel timerWheel;
+    private ExecutorService deadlinesExecutor;
+
+    // If FALSE, the Deadlines expired are ignored (the Handler has not started yet or it's been stopped):
+    private volatile boolean handlerStarted;
 
     // This Managers stores the list of Pending Blocks and has some logic inside to decide what is the "best" block
     // to download from an specific Peer, based on configuration:
@@ -135,6 +178,14 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
     private AtomicLong totalReattempts = new AtomicLong();
     private AtomicInteger busyPercentage = new AtomicInteger();
 
+    // Auto-tuning of the Parallelism, and the info collected since the last adjustment:
+    private final BlocksDownloadParallelismTuner parallelismTuner;
+    private final AtomicLong tuneBytesDownloaded = new AtomicLong();
+    private final AtomicInteger tuneNumDownloads = new AtomicInteger();
+    private final AtomicInteger tuneNumStalls = new AtomicInteger();
+    private final AtomicBoolean tuneLimitReached = new AtomicBoolean();
+    private Instant lastTuneTimestamp = Instant.now();
+
     // This handler can pause/resume itself based on some state(number of Pers connected, MB being downloaded, etc)
     // But it can also pause/resume by specific events triggered by the client. So the order of preference is this:
     //  - If an specific Event requests to PAUSE, then we PAUSE no matter what.
@@ -150,16 +201,26 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
         super(id, runtimeConfig);
         this.config = config;
         this.logger = new LoggerUtil(id, HANDLER_ID, this.getClass());
-        this.executor = ThreadUtils.getSingleThreadExecutorService("JclBlockDownloaderHandler");
+        this.executor = runtimeConfig.getExecutionModel().getScheduledLane("JclBlockDownloaderHandler");
+        this.timerWheel = TimerWheel.getInstance();
+        this.deadlinesExecutor = runtimeConfig.getExecutionModel().getIOLane("JclBlockDownloaderHandler-Deadlines");
         this.downloadingState = DonwloadingState.RUNNING;
-        this.blocksDownloadHistory = new BlocksDownloadHistory();
+        this.blocksDownloadHistory = new BlocksDownloadHistory(config.getBlockHistorySize(), config.getMaxBlocksInHistory());
         this.blocksDownloadHistory.setCleaningTimeout(config.getBlockHistoryTimeout());
 
         // We configure the Blocks-Pending Manager:
+        this.parallelismTuner = new BlocksDownloadParallelismTuner(
+                config.getMaxBlocksInParallel(), config.getMaxMBinParallel(),
+                config.getMaxBlocksInParallelLimit(), config.getMaxMBinParallelLimit());
+
         this.blocksPendingManager = new BlocksPendingManager();
         this.blocksPendingManager.setBestMatchCriteria(config.getBestMatchCriteria());
         this.blocksPendingManager.setBestMatchNotAvailableAction(config.getBestMatchNotAvailableAction());
         this.blocksPendingManager.setNoBestMatchAction(config.getNoBestMatchAction());
+        this.blocksPendingManager.setPeersPerformance(peerAddress -> {
+            BlockPeerInfo peerInfo = handlerInfo.get(peerAddress);
+            return (peerInfo != null) ? peerInfo.getPerformance() : null;
+        });
 
     }
 
@@ -209,11 +270,20 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
                 .count();
     }
 
-    // Returns the list of Blocks being downloaded at this moment
+    // Returns the number of Blocks requested to all the Peers and not downloaded yet:
+    public int getCurrentBlocksInFlight() {
+        return handlerInfo.values().stream()
+                .filter(p -> p.getWorkingState().equals(BlockPeerInfo.PeerWorkingState.PROCESSING))
+                .mapToInt(p -> p.getNumBlocksInFlight())
+                .sum();
+    }
+
+    // Returns the list of Blocks being downloaded at this moment (including those waiting in the Peers windows)
     public List<String> getBlocksBeingDownloaded() {
         return handlerInfo.values().stream()
                 .filter(p -> p.getWorkingState().equals(BlockPeerInfo.PeerWorkingState.PROCESSING))
-                .map(p -> p.getCurrentBlockInfo().getHash())
+                .flatMap(p -> p.getBlocksInFlight().stream())
+                .map(b -> b.getHash())
                 .collect(Collectors.toList());
     }
 
@@ -221,8 +291,8 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
     // This value is an accumulative one, and it resets every time the "getState()" method is called.
     // It compares the number of blocks being downloaded to the maximum allowed.
     private int getUpdatedBusyPercentage() {
-        int numBlocksInProgress = getCurrentPeersDownloading();
-        int percentage = (int) (numBlocksInProgress * 100) / config.getMaxBlocksInParallel();
+        int numBlocksInProgress = getCurrentBlocksInFlight();
+        int percentage = (int) (numBlocksInProgress * 100) / getMaxBlocksInParallel();
         int result = Math.max(this.busyPercentage.get(), percentage);
         return result;
     }
@@ -231,6 +301,15 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
 
     // These methods pause/resume the Handler:
 
+    // Current limits of Blocks and MB to download in parallel:
+    private int getMaxBlocksInParallel() {
+        return (config.isAutoTuneParallelism()) ? parallelismTuner.getMaxBlocksInParallel() : config.getMaxBlocksInParallel();
+    }
+
+    private long getMaxMBinParallel() {
+        return (config.isAutoTuneParallelism()) ? parallelismTuner.getMaxMBinParallel() : config.getMaxMBinParallel();
+    }
+
     private void pause() {
         this.downloadingState = DonwloadingState.PAUSED;
         this.blocksPendingManager.switchToRestrictedMode();
@@ -239,6 +318,7 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
     private void resume() {
         this.downloadingState = DonwloadingState.RUNNING;
         this.blocksPendingManager.switchToNormalMode();
+        triggerBlocksAssignment();
     }
 
     // If the client requests it or our state demands it, we pause right away:
@@ -304,6 +384,10 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
                     .busyPercentage(percentage)
                     .bandwidthRestricted(this.bandwidthRestricted)
                     .blocksDownloadingSize(blocksDownloadingSize)
+                    .maxBlocksInParallel(getMaxBlocksInParallel())
+                    .maxMBinParallel(getMaxMBinParallel())
+                    .peersPerformance(this.handlerInfo.values().stream()
+                            .collect(Collectors.toMap(BlockPeerInfo::getPeerAddress, p -> p.getPerformance().getSnapshot())))
                     .build();
         } finally {
             lock.unlock();
@@ -352,6 +436,9 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             if (fromThisPeerPreferably != null) {
                 blocksPendingManager.registerBlockPriority(blockHashesToAdd, fromThisPeerPreferably);
             }
+
+            // We start downloading them right away, if possible:
+            triggerBlocksAssignment();
         } finally {
             lock.unlock();
         }
@@ -372,14 +459,21 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
     // Event Handler:
     public void onNetStart(NetStartEvent event) {
         logger.trace("Starting...");
-        this.blocksDownloadHistory.start();
-        executor.submit(this::jobProcessCheckDownloadingProcess);
+        this.handlerStarted = true;
+        executor.scheduleWithFixedDelay(this::jobMonitorDownloads, 0,
+                DOWNLOADING_CHECK_FREQUENCY.toMillis(), TimeUnit.MILLISECONDS);
+        if (config.isAutoTuneParallelism()) {
+            this.lastTuneTimestamp = Instant.now();
+            executor.scheduleWithFixedDelay(this::jobTuneParallelism, config.getAutoTuneInterval().toMillis(),
+                    config.getAutoTuneInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        triggerBlocksAssignment();
 
     }
 
     // Event Handler:
     public void onNetStop(NetStopEvent event) {
-        this.blocksDownloadHistory.stop();
+        this.handlerStarted = false;
         if (this.executor != null) executor.shutdownNow();
         logger.trace("Stop.");
     }
@@ -416,6 +510,8 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             lock.lock();
             BlockPeerInfo peerInfo = handlerInfo.get(event.getPeerAddress());
             peerInfo.handshake();
+            peersByPerformance.add(peerInfo);
+            triggerBlocksAssignment();
         } finally {
             lock.unlock();
         }
@@ -427,15 +523,21 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             BlockPeerInfo peerInfo = handlerInfo.get(event.getPeerAddress());
             if (peerInfo != null) {
                 logger.trace(peerInfo.getPeerAddress(),  "Peer Disconnected", peerInfo.toString());
-                // If this Peer was in the middle of downloading a block, we process the failure...
+                // If this Peer was in the middle of downloading blocks, we process the failure of each one...
                 if (peerInfo.getWorkingState().equals(BlockPeerInfo.PeerWorkingState.PROCESSING)) {
-                    blocksDownloadHistory.register(peerInfo.getCurrentBlockInfo().hash, peerInfo.getPeerAddress(), "Peer has disconnected");
-                    blocksInLimbo.add(peerInfo.getCurrentBlockInfo().hash);
-
-                    // We process this failiure right away, no need to wait for the monitorJob to pick it up 1 minutes later
-                    processDownloadFailure(peerInfo.getCurrentBlockInfo().hash);
+                    peerInfo.getPerformance().recordFailure();
+                    for (BlockPeerInfo.BlockProgressInfo blockInfo : peerInfo.getBlocksInFlight()) {
+                        blocksDownloadHistory.register(blockInfo.hash, peerInfo.getPeerAddress(), BlocksDownloadHistory.Event.PEER_DISCONNECTED);
+                        blocksInLimbo.add(blockInfo.hash);
+                        scheduleLimboCheck(blockInfo.hash, config.getInactivityTimeoutToFail());
+
+                        // We process this failiure right away, no need to wait for the monitorJob to pick it up 1 minutes later
+                        processDownloadFailure(blockInfo.hash);
+                    }
                 }
+                peersByPerformance.remove(peerInfo);
                 peerInfo.disconnect();
+                blocksPendingManager.registerPeerDisconnected(peerInfo.getPeerAddress());
             }
         } finally {
             lock.unlock();
@@ -445,12 +547,15 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
     // Event Handler:
     // We register the Peers that are announcing Blocks:
     public void onInvMsgReceived(InvMsgReceivedEvent event) {
-        event.getBtcMsg().getBody().getInvVectorList().stream()
+        List<String> blocksAnnounced = event.getBtcMsg().getBody().getInvVectorList().stream()
                 .filter(item -> item.getType().equals(InventoryVectorMsg.VectorType.MSG_BLOCK))
-                .forEach(item -> {
-                    String blockHash = Sha256Hash.wrapReversed(item.getHashMsg().getHashBytes()).toString();
-                    blocksPendingManager.registerBlockAnnouncement(blockHash, event.getPeerAddress());
-                });
+                .map(item -> Sha256Hash.wrapReversed(item.getHashMsg().getHashBytes()).toString())
+                .collect(Collectors.toList());
+        blocksAnnounced.forEach(blockHash -> blocksPendingManager.registerBlockAnnouncement(blockHash, event.getPeerAddress()));
+        // Blocks might be waiting for their announcers (INVs with no Blocks, the vast majority, trigger nothing):
+        if (!blocksAnnounced.isEmpty() && blocksPendingManager.size() > 0) {
+            triggerBlocksAssignment();
+        }
     }
 
     // Event Handler:
@@ -526,6 +631,17 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
         return result;
     }
 
+    /*
+     * It returns the time it's taken to download the Block given from the Peer, or ZERO if we did not ask this Peer
+     * for that Block.
+     */
+    private Duration getDownloadingDuration(BlockPeerInfo peerInfo, String blockHash) {
+        BlockPeerInfo.BlockProgressInfo blockInfo = (peerInfo != null) ? peerInfo.getBlockInfo(blockHash) : null;
+        return (blockInfo != null)
+                ? Duration.between(blockInfo.getStartTimestamp(), Instant.now())
+                : Duration.ZERO;
+    }
+
     /*
      * It gets the Hash of the Msg given, assuming the MSg is a Block (a whole Block or a Partial piece),
      * and it can be either in Raw format or deserialized.
@@ -561,8 +677,11 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             if (blocksInLimbo.contains(blockHash)) {
                 logger.debug("Received data from Block " + blockHash + " in limbo. We resume download...");
                 blocksInLimbo.remove(blockHash);
-                peerInfo.resumeDownloading();
-                blocksDownloadHistory.register(blockHash, "Data received while in Limbo. Resuming Downloading...");
+                peerInfo.resumeDownloading(blockHash, blocksPendingManager.getNumDownloadAttempts(blockHash));
+                blocksDownloadHistory.register(blockHash, BlocksDownloadHistory.Event.DATA_RECEIVED_IN_LIMBO);
+            } else {
+                // The Peer is sending this Block, so it's the current one in its window:
+                peerInfo.receivingBlock(blockHash);
             }
 
         } finally {
@@ -602,17 +721,18 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
                 // We update the info about the Header this block:
                 PartialBlockHeaderMsg partialMsg = (PartialBlockHeaderMsg) msg.getBody();
                 bigBlocksHeaders.put(blockHash, partialMsg);
-                blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), "Header downloaded");
+                blocksPendingManager.registerBlockSize(blockHash, partialMsg.getTxsSizeInbytes().getValue());
+                blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), BlocksDownloadHistory.Event.HEADER_DOWNLOADED);
             } else if (msg.is(PartialBlockTXsMsg.MESSAGE_TYPE)) {
                 // We update the info about the Txs of this block:
                 PartialBlockTXsMsg partialMsg = (PartialBlockTXsMsg) msg.getBody();
                 bigBlocksCurrentTxs.merge(blockHash, (long) partialMsg.getTxs().size(), (o, n) -> o + partialMsg.getTxs().size());
-                blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), partialMsg.getTxs().size() + " Txs downloaded, (" + bigBlocksCurrentTxs.get(blockHash) + " Txs so far)");
+                blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), BlocksDownloadHistory.Event.TXS_DOWNLOADED, partialMsg.getTxs().size(), bigBlocksCurrentTxs.get(blockHash));
             } else if (msg.is(PartialBlockRawTxMsg.MESSAGE_TYPE)) {
                 // We update the info about the Txs of this block:
                 PartialBlockRawTxMsg partialMsg = (PartialBlockRawTxMsg) msg.getBody();
                 bigBlocksCurrentTxs.merge(blockHash, (long) partialMsg.getTxs().size(), (o, n) -> o + partialMsg.getTxs().size());
-                blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), partialMsg.getTxs().size() + " Raw Txs downloaded, (" + bigBlocksCurrentTxs.get(blockHash) + " Txs so far)");
+                blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), BlocksDownloadHistory.Event.RAW_TXS_DOWNLOADED, partialMsg.getTxs().size(), bigBlocksCurrentTxs.get(blockHash));
             }
 
             // Now we check if we've reached the total of TXs, so the Download is complete:
@@ -637,9 +757,7 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             lock.lock();
 
             String blockHash = getHashFromMsg(blockMesage);
-            Duration downloadingDuration = (peerInfo != null && peerInfo.getCurrentBlockInfo() != null)
-                    ? Duration.between(peerInfo.getCurrentBlockInfo().getStartTimestamp(), Instant.now())
-                    : Duration.ZERO;
+            Duration downloadingDuration = getDownloadingDuration(peerInfo, blockHash);
 
             // We publish and register it:
             super.eventBus.publish(new LiteBlockDownloadedEvent(peerInfo.getPeerAddress(), blockMesage, downloadingDuration));
@@ -667,7 +785,7 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             super.eventBus.publish(new BlockTXsDownloadedEvent(peerInfo.getPeerAddress(),partialBlockTxsBtcMsg));
 
             // We update the structures:
-            blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), "Whole block downloaded");
+            blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), BlocksDownloadHistory.Event.WHOLE_BLOCK_DOWNLOADED);
             blocksDownloadHistory.markForDeletion(blockHash);
             processDownloadSuccess(peerInfo, blockMesage.getBody().getBlockHeader(), blockMesage.getLengthInBytes());
         } finally {
@@ -686,9 +804,7 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             lock.lock();
 
             String blockHash = getHashFromMsg(rawBlockMessage);
-            Duration downloadingDuration = (peerInfo != null && peerInfo.getCurrentBlockInfo() != null)
-                    ? Duration.between(peerInfo.getCurrentBlockInfo().getStartTimestamp(), Instant.now())
-                    : Duration.ZERO;
+            Duration downloadingDuration = getDownloadingDuration(peerInfo, blockHash);
 
             // We publish and register it:
             super.eventBus.publish(new LiteRawBlockDownloadedEvent(peerInfo.getPeerAddress(), rawBlockMessage, downloadingDuration));
@@ -716,7 +832,7 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             super.eventBus.publish(new BlockRawTXsDownloadedEvent(peerInfo.getPeerAddress(),partialBlockRawTxsBtcMsg));
 
             // We update the structures:
-            blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), "Whole Raw block downloaded");
+            blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), BlocksDownloadHistory.Event.WHOLE_RAW_BLOCK_DOWNLOADED);
             blocksDownloadHistory.markForDeletion(blockHash);
             processDownloadSuccess(peerInfo, rawBlockMessage.getBody().getBlockHeader(), rawBlockMessage.getLengthInBytes());
         } finally {
@@ -743,22 +859,25 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             // The Duration of the downloading time can be calculated, but if the peer has sent the Block without asking
             // for it, the downloading time is just ZERO (since we can't keep track)
 
-            Duration downloadingDuration = (peerInfo != null && peerInfo.getCurrentBlockInfo() != null)
-                    ? Duration.between(peerInfo.getCurrentBlockInfo().getStartTimestamp(), Instant.now())
-                    : Duration.ZERO;
+            Duration downloadingDuration = getDownloadingDuration(peerInfo, blockHash);
 
             // Log and record history:
             logger.debug(peerInfo.getPeerAddress(), "Block successfully downloaded", blockHash);
 
             // We register the history and mark it for deletion, since its been processed successfully.
-            blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), "Block successfully downloaded");
+            blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), BlocksDownloadHistory.Event.BLOCK_DOWNLOADED);
             blocksDownloadHistory.markForDeletion(blockHash);
             if (config.isRemoveBlockHistoryAfterDownload()) {
                 blocksDownloadHistory.remove(blockHash);    // immediate deletion
             }
 
-            // We activated back the ping/Pong Verifications for this Peer
-            super.eventBus.publish(new EnablePingPongRequest(peerInfo.getPeerAddress()));
+            // We remove this block from the Peer in-flight window, and the next one (if any) starts:
+            updatePeerPerformance(peerInfo, () -> peerInfo.finishDownloading(blockHash, blockSize));
+
+            // We activated back the ping/Pong Verifications for this Peer, if there are no more blocks in its window:
+            if (!peerInfo.isProcessing()) {
+                super.eventBus.publish(new EnablePingPongRequest(peerInfo.getPeerAddress()));
+            }
 
             // We publish an Event notifying that this Block being downloaded:
             super.eventBus.publish(
@@ -770,19 +889,25 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
                     )
             );
 
-            // We reset the peer, to make it ready for a new download, and we updateNextMessage the workingState:
-            peerInfo.reset();
-            peerInfo.getStream().resetBufferSize();
+            // If the peer is done, we make it ready for a new download:
+            if (!peerInfo.isProcessing() && peerInfo.getStream() != null) {
+                peerInfo.getStream().resetBufferSize();
+            }
 
             blocksDownloaded.add(blockHash);
             while (blocksDownloaded.size() > MAX_BLOCK_DOWNLOADED_HASHES_TO_KEEP) {
                 blocksDownloaded.remove(0);
             }
             blocksPendingManager.registerBlockDownloaded(blockHash);
+            tuneBytesDownloaded.addAndGet(blockSize);
+            tuneNumDownloads.incrementAndGet();
             blocksInLimbo.remove(blockHash);
             bigBlocksHeaders.remove(blockHash);
             bigBlocksCurrentTxs.remove(blockHash);
             blocksPendingToCancel.remove(blockHash);
+
+            // This Peer (and the bandwidth) has room for more blocks now:
+            triggerBlocksAssignment();
         } catch (Exception e) {
             logger.error(e, "Error while processDownloadSuccess.");
         } finally {
@@ -798,7 +923,7 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             if (!blocksPendingToCancel.contains(blockHash) && !blocksCancelled.contains(blockHash)) {
                 logger.debug("Cancelling " + blockHash + " block from download: ");
                 blocksPendingToCancel.add(blockHash);
-                blocksDownloadHistory.register(blockHash,   "block requested for cancellation");
+                blocksDownloadHistory.register(blockHash,   BlocksDownloadHistory.Event.CANCEL_REQUESTED);
             }
 
             // the only scenario when a Block can NOT be cancelling is when it's been actively being downloaded. In the
@@ -815,7 +940,7 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
                 blocksPendingToCancel.remove(blockHash);
                 blocksCancelled.add(blockHash);
 
-                blocksDownloadHistory.register(blockHash,   "block cancelled");
+                blocksDownloadHistory.register(blockHash,   BlocksDownloadHistory.Event.CANCELLED);
             }
         } finally {
             lock.unlock();
@@ -844,14 +969,16 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
             int numAttempts = blocksPendingManager.getNumDownloadAttempts(blockHash);
             if (numAttempts < config.getMaxDownloadAttempts()) {
                 logger.debug("Download failure for " + blockHash + " :: back to the pending Pool...");
-                blocksDownloadHistory.register(blockHash, "Block moved back to the pending Pool");
+                blocksDownloadHistory.register(blockHash, BlocksDownloadHistory.Event.MOVED_TO_PENDING);
                 blocksPendingManager.addWithPriority(blockHash); // we add it to the FRONT of the Queue
                 this.totalReattempts.incrementAndGet();          // keep track of total re-attempts
+                triggerBlocksAssignment();
             } else {
                 logger.debug("Download failure for " + blockHash, numAttempts + " attempts (max " + config.getMaxDownloadAttempts() + ")", "discarding Block...");
-                blocksDownloadHistory.register(blockHash,   "block discarded (max attempts broken, reset to zero)");
+                blocksDownloadHistory.register(blockHash,   BlocksDownloadHistory.Event.DISCARDED);
                 blocksDiscarded.put(blockHash, Instant.now());
                 blocksPendingManager.registerBlockDiscarded(blockHash);
+                scheduleDiscardedBlockRetry(blockHash, config.getRetryDiscardedBlocksTimeout());
                 // We publish the event:
                 super.eventBus.publish(new BlockDiscardedEvent(blockHash, BlockDiscardedEvent.DiscardedReason.TIMEOUT));
             }
@@ -865,42 +992,48 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
         }
     }
 
-    private void startDownloading(BlockPeerInfo peerInfo, String blockHash) {
+    private void startDownloading(BlockPeerInfo peerInfo, List<String> blockHashes) {
 
         try {
             lock.lock();
 
-            // log and record history:
-            logger.debug(peerInfo.getPeerAddress(), "Starting downloading Block " + blockHash);
-            blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), "Starting downloading");
-
-            // We update the Peer Info
-            int numAttempts = blocksPendingManager.getNumDownloadAttempts(blockHash) + 1;
-            peerInfo.startDownloading(blockHash, numAttempts);
-            DeserializerStream peerStream = peerInfo.getStream();
-            if (peerStream != null) {
-                peerStream.upgradeBufferSize();
+            // If the Peer was Idle, we prepare it for downloading:
+            if (!peerInfo.isProcessing()) {
+                DeserializerStream peerStream = peerInfo.getStream();
+                if (peerStream != null) {
+                    peerStream.upgradeBufferSize();
+                }
+                // We disable the Ping/Pong monitor process on it, since it might be busy during the block downloading
+                super.eventBus.publish(new DisablePingPongRequest(peerInfo.getPeerAddress()));
             }
 
-            // We disable the Ping/Pong monitor process on it, since it might be busy during the block downloading
-            super.eventBus.publish(new DisablePingPongRequest(peerInfo.getPeerAddress()));
-
-            // We update other structures (num Attempts on this block, and blocks pendings, etc):
-            blocksLastActivity.put(blockHash, Instant.now());
-            blocksPendingManager.registerNewDownloadAttempt(blockHash);
+            List<InventoryVectorMsg> invMsgs = new ArrayList<>();
+            for (String blockHash : blockHashes) {
+                // log and record history:
+                logger.debug(peerInfo.getPeerAddress(), "Starting downloading Block " + blockHash);
+                blocksDownloadHistory.register(blockHash, peerInfo.getPeerAddress(), BlocksDownloadHistory.Event.DOWNLOAD_STARTED);
+
+                // We add the block to the Peer in-flight window:
+                int numAttempts = blocksPendingManager.getNumDownloadAttempts(blockHash) + 1;
+                peerInfo.startDownloading(blockHash, numAttempts);
+
+                // We update other structures (num Attempts on this block, and blocks pendings, etc):
+                blocksLastActivity.put(blockHash, Instant.now());
+                blocksPendingManager.registerNewDownloadAttempt(blockHash);
+
+                HashMsg hashMsg =  HashMsg.builder().hash(Utils.reverseBytes(Utils.HEX.decode(blockHash)))
+                        .build();
+                invMsgs.add(InventoryVectorMsg.builder()
+                        .type(InventoryVectorMsg.VectorType.MSG_BLOCK)
+                        .hashMsg(hashMsg)
+                        .build());
+            }
 
             // We update the accumulative "busyPercentage" field:
             this.busyPercentage.set(getUpdatedBusyPercentage());
 
-            // We use the Bitcoin Protocol to ask for that Block, sending a GETDATA message...
-            HashMsg hashMsg =  HashMsg.builder().hash(Utils.reverseBytes(Utils.HEX.decode(blockHash)))
-                    .build();
-            InventoryVectorMsg invMsg = InventoryVectorMsg.builder()
-                    .type(InventoryVectorMsg.VectorType.MSG_BLOCK)
-                    .hashMsg(hashMsg)
-                    .build();
-
-            GetdataMsg msg = GetdataMsg.builder().invVectorList(Arrays.asList(invMsg)).build();
+            // We use the Bitcoin Protocol to ask for those Blocks, sending a single GETDATA message...
+            GetdataMsg msg = GetdataMsg.builder().invVectorList(invMsgs).build();
             BitcoinMsg<GetdataMsg> btcMsg = new BitcoinMsgBuilder<>(config.getBasicConfig(), msg).build();
             // We send the message
             super.eventBus.publish(new SendMsgRequest(peerInfo.getPeerAddress(), btcMsg));
@@ -911,161 +1044,288 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
         }
     }
 
-    // On each execution of this Job, we perform 2 actions:
-    // - Update download progress and re-assign block downloads:
-    // - check interrupted downloads
-    // - check Discarded Blocks
+    // It registers a Deadline to check the Block given (in LIMBO) once the delay given has passed.
+    private void scheduleLimboCheck(String blockHash, Duration delay) {
+        timerWheel.schedule(() -> checkBlockInLimbo(blockHash), delay, deadlinesExecutor);
+    }
+
+    // CHECK INTERRUPTED DOWNLOADS (BLOCKS IN "LIMBO")
+    // Triggered when the Deadline of a Block in Limbo expires. We check if this block is still "alive" (we are still
+    // receiving data from it, although we've been already notified about the peers disconnecting), or it is actually
+    // "broken", in this case we re-assign or discard it:
+    private void checkBlockInLimbo(String blockHash) {
+        try {
+            lock.lock();
+            if (!handlerStarted || !blocksInLimbo.contains(blockHash)) return;
+            Instant lastActivity = blocksLastActivity.getOrDefault(blockHash, Instant.now());
+            Duration timePassedSinceLastActivity = Duration.between(lastActivity, Instant.now());
+            if (timePassedSinceLastActivity.compareTo(config.getInactivityTimeoutToFail()) > 0) {
+                processDownloadFailure(blockHash); // This block has definitely failed:
+            } else {
+                scheduleLimboCheck(blockHash, config.getInactivityTimeoutToFail().minus(timePassedSinceLastActivity));
+            }
+        } catch (Exception e) {
+            logger.error(e, "Error checking Block in Limbo " + blockHash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // It registers a Deadline to re-try the Block given (discarded) once the delay given has passed.
+    private void scheduleDiscardedBlockRetry(String blockHash, Duration delay) {
+        timerWheel.schedule(() -> retryDiscardedBlock(blockHash), delay, deadlinesExecutor);
+    }
+
+    // CHECK DISCARDED BLOCKS
+    // blocks stored in "blocksDiscarded" are blocks that have failed more times than specified in a limit in the
+    // config. But they can be retried again, after some time has passed. This is triggered when that time is over:
+    private void retryDiscardedBlock(String blockHash) {
+        try {
+            lock.lock();
+            Instant timeDiscarded = blocksDiscarded.get(blockHash);
+            if (!handlerStarted || timeDiscarded == null) return;
+            Duration timePassed = Duration.between(timeDiscarded, Instant.now());
+            if (timePassed.compareTo(config.getRetryDiscardedBlocksTimeout()) > 0) {
+                logger.trace("Retrying block download " + blockHash);
+                blocksDiscarded.remove(blockHash);
+                blocksDownloadHistory.register(blockHash, BlocksDownloadHistory.Event.REATTEMPT);
+                blocksPendingManager.addWithPriority(blockHash); // blocks to retry have preference...
+                triggerBlocksAssignment();
+            } else {
+                scheduleDiscardedBlockRetry(blockHash, config.getRetryDiscardedBlocksTimeout().minus(timePassed));
+            }
+        } catch (Exception e) {
+            logger.error(e, "Error re-trying discarded Block " + blockHash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // It triggers an assignment of pending Blocks to the Peers available. If an assignment has already been triggered
+    // and has not run yet, this one is ignored, since that one will already take into account the latest changes.
+    private void triggerBlocksAssignment() {
+        if (!handlerStarted) return;
+        if (assignmentTriggered.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::assignPendingBlocks);
+            } catch (RejectedExecutionException e) {
+                assignmentTriggered.set(false); // The Handler is stopping...
+            }
+        }
+    }
 
-    private void jobProcessCheckDownloadingProcess() {
+    // ASSIGNMENT OF BLOCKS TO PEERS:
+    // We loop over the Peers (the fastest go first) and we assign blocks to those with free slots in their window.
+    private void assignPendingBlocks() {
+        // Any trigger from now on will run another assignment:
+        assignmentTriggered.set(false);
         try {
-            while (true) {
+            lock.lock();
+            if (!handlerStarted || blocksPendingManager.size() == 0) return;
+
+            // In order to be efficient, the BlocksPendingManager also needs to know about all the peers available for
+            // Download (a Peer is available if it has free slots in its window), and those that are not. These lists
+            // are built once, and updated as the Peers get blocks assigned:
+            List<PeerAddress> availablePeers = new ArrayList<>();
+            List<PeerAddress> notAvailablePeers = new ArrayList<>();
+            List<BlockPeerInfo> candidatePeers = new ArrayList<>();
+            for (BlockPeerInfo peerInfo : peersByPerformance) {
+                if (!peerInfo.isHandshaked()) continue;
+                if (peerInfo.isIdle() || (peerInfo.isProcessing() && getFreeSlots(peerInfo) > 0)) {
+                    availablePeers.add(peerInfo.getPeerAddress());
+                    candidatePeers.add(peerInfo);
+                } else if (peerInfo.isProcessing()) {
+                    notAvailablePeers.add(peerInfo.getPeerAddress());
+                }
+            }
 
+            for (BlockPeerInfo peerInfo : candidatePeers) {
                 try {
-                    lock.lock();
-
-                    // UPDATE DOWNLOAD PROGRESS AND RE-ASSIGN BLOCK DOWNLOADS:
-                    // We look over all the Peers, and we assign new Blocks to download to them, we update the
-                    // download progress, or we detect if some timeouts have been triggered...
-
-                    // We order the peers by download Speed, the fastest go first:
-                    List<BlockPeerInfo> peersOrdered =  handlerInfo.values().stream()
-                            .filter(p -> p.isHandshaked())
-                            .collect(Collectors.toList());
-                    Collections.sort(peersOrdered, BlockPeerInfo.SPEED_COMPARATOR);
-                    Iterator<BlockPeerInfo> it = peersOrdered.iterator();
-
-                    // We process each Peer...
-                    while (it.hasNext()) {
-                        try {
-                            BlockPeerInfo peerInfo = it.next();
-                            PeerAddress peerAddress = peerInfo.getPeerAddress();
-                            BlockPeerInfo.PeerWorkingState peerWorkingState = peerInfo.getWorkingState();
-
-                            // If the Peer is NOT HANDSHAKED, we skip it...
-                            if (!peerInfo.isHandshaked()) continue;
-
-                            // We manage it based on its state:
-                            switch (peerWorkingState) {
-                                case IDLE: {
-                                    logger.trace(peerAddress, "Processing peerWorkingState == IDLE");
-
-                                    // SANITY CHECK: WE check if more downloads are allowed:
-                                    int numPeersWorking = getCurrentPeersDownloading();
-                                    long totalMbBeingDownloaded = getCurrentDownloadingBlocksSize() / 1_000_000; // convert to MB
-                                    this.bandwidthRestricted = totalMbBeingDownloaded >= config.getMaxMBinParallel();
-                                    this.moreDownloadsAllowed = (numPeersWorking == 0)
-                                            || ((numPeersWorking < config.getMaxBlocksInParallel()) && !bandwidthRestricted);
-
-
-                                    // If we are in PAUSED Mode, we might still need to keep trying to download those blocks
-                                    // which we already started...
-                                    boolean isPausedAndBlocksInProcess = isPaused() && !blocksPendingManager.getBlockDownloadAttempts().isEmpty();
-
-                                    // If we can download more Blocks, we ask the BlocksPendingManager for a Suitable block for
-                                    // this Peer to download:
-
-                                    if (isPausedAndBlocksInProcess || (isRunning() && moreDownloadsAllowed)) {
-                                        logger.trace(peerAddress, "Determining most suitable block for download");
-
-                                        // In order to be efficient, the BlocksPendingManager also needs to know
-                                        // about all the peers available for Download (EXCLUDING THIS ONE):
-
-                                        List<PeerAddress> availablePeers = peersOrdered.stream()
-                                                .filter(i -> !i.getPeerAddress().equals(peerAddress))
-                                                .filter(i -> i.isHandshaked())
-                                                .filter(i -> i.getWorkingState().equals(BlockPeerInfo.PeerWorkingState.IDLE))
-                                                .map( i -> i.getPeerAddress())
-                                                .collect(Collectors.toList());
-
-                                        List<PeerAddress> notAvailablePeers = peersOrdered.stream()
-                                                .filter(i -> !i.getPeerAddress().equals(peerAddress))
-                                                .filter(i -> i.isHandshaked())
-                                                .filter(i -> i.getWorkingState().equals(BlockPeerInfo.PeerWorkingState.PROCESSING))
-                                                .map( i -> i.getPeerAddress())
-                                                .collect(Collectors.toList());
-
-                                        // We finally request a Peer to assign and download from this Peer, if any has been found:
-                                        Optional<String> blockHashToDownload = blocksPendingManager.extractMostSuitableBlockForDownload(peerAddress, availablePeers, notAvailablePeers);
-                                        if (blockHashToDownload.isPresent()) {
-                                            startDownloading(peerInfo, blockHashToDownload.get());
-                                        }
-                                    }
-                                    break;
-                                }
-
-                                case PROCESSING: {
-                                    logger.trace(peerAddress, "Processing peerWorkingState == PROCESSING");
-
-                                    // we update the Progress of this Peer:
-                                    peerInfo.updateBytesProgress();
-
-                                    // We check the timeouts. If the peer has broken some of these timeouts, we discard it:
-                                    String msgFailure = null;
-                                    if (peerInfo.isIdleTimeoutBroken(config.getMaxIdleTimeout()))                             { msgFailure = "Idle Time expired"; }
-                                    if (peerInfo.isDownloadTimeoutBroken(config.getMaxDownloadTimeout()))                     { msgFailure = "Downloading Time expired"; }
-                                    if (peerInfo.getConnectionState().equals(BlockPeerInfo.PeerConnectionState.DISCONNECTED)) { msgFailure = "Peer Closed while downloading"; }
-                                    if (peerInfo.isTooSlow(config.getMinSpeed()))                                             { msgFailure = "Peer too slow"; }
-                                    if (msgFailure != null) {
-                                        logger.debug(peerAddress, "Download Failure", peerInfo.getCurrentBlockInfo().hash, msgFailure);
-                                        blocksDownloadHistory.register(peerInfo.getCurrentBlockInfo().hash, peerInfo.getPeerAddress(), "Download Issue detected : " + msgFailure);
-                                        blocksInLimbo.add(peerInfo.getCurrentBlockInfo().hash);
-                                        // We discard this Peer and also send a request to Disconnect from it:
-                                        peerInfo.discard();
-                                        super.eventBus.publish(new DisconnectPeerRequest(peerInfo.getPeerAddress(), PeerDisconnectedEvent.DisconnectedReason.DISCONNECTED_BY_LOCAL_LAZY_DOWNLOAD, null));
-                                        //super.eventBus.publish(new PeerDisconnectedEvent(peerInfo.getPeerAddress(), PeerDisconnectedEvent.DisconnectedReason.DISCONNECTED_BY_LOCAL_LAZY_DOWNLOAD));
-                                    }
-                                    break;
-                                }
-                            } // Switch...
-                        } catch (Exception e) {
-                            logger.error("Error during jobProcessCheckDownloadingProcess, while processing each peer ", e);
-                        }
-                    } // white it. next...
-
-                    // CHECK INTERRUPTED DOWNLOADS (BLOCKS IN "LIMBO")
-                    // We look over the "blocksInLimbo" set, and check if those blocks are still "alive"
-                    // (we are still receiving data from them, although we've been already notified about the peers
-                    //  disconnecting), or those blocks are actually "broken", in this case we re-assign or discard them
-
-                    List<String> blocksFailed = this.blocksInLimbo.stream().collect(Collectors.toList());
-                    for (String blockHash: blocksFailed) {
-                        Duration timePassedSinceLastActivity = Duration.between(blocksLastActivity.get(blockHash), Instant.now());
-                        if (timePassedSinceLastActivity.compareTo(config.getInactivityTimeoutToFail()) > 0) {
-                            processDownloadFailure(blockHash); // This block has definitely failed:
-                        }
+                    boolean moreBlocks = assignBlocksToPeer(peerInfo, availablePeers, notAvailablePeers);
+                    if (getFreeSlots(peerInfo) == 0) {
+                        availablePeers.remove(peerInfo.getPeerAddress());
+                        notAvailablePeers.add(peerInfo.getPeerAddress());
                     }
+                    // If no more downloads are allowed, there is no point in going on with the rest of Peers:
+                    if (!moreBlocks && !moreDownloadsAllowed) break;
+                } catch (Exception e) {
+                    logger.error("Error during assignPendingBlocks, while processing each peer ", e);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error during assignPendingBlocks ", e);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-                    // CHECK DISCARDED BLOCKS
-                    // blocks stored in "blocksDiscarded" are blocks that have failed more times than specified in a
-                    // limit in the config. But they can be retried again, after some time has passed. Here we check if
-                    // its time to re-try them:
+    // Returns the number of Blocks that can still be requested to this Peer
+    private int getFreeSlots(BlockPeerInfo peerInfo) {
+        return peerInfo.getFreeSlotsInWindow(config.getMaxBlocksInFlightPerPeer(), config.getInFlightWindowTarget());
+    }
 
-                    List<String> blocksToReTry = new ArrayList<>();
-                    for (String hashDiscarded: blocksDiscarded.keySet()) {
-                        if (Duration.between(blocksDiscarded.get(hashDiscarded), Instant.now())
-                                .compareTo(config.getRetryDiscardedBlocksTimeout()) > 0) {
-                            blocksToReTry.add(hashDiscarded);
-                        }
-                    }
+    // It requests new Blocks to the Peer given, as long as there are free slots in its in-flight window and more
+    // downloads are allowed. All the Blocks assigned are requested in a single GETDATA message. The Lists of Peers
+    // might include this Peer, which is always checked first by the BlocksPendingManager. It returns TRUE if some
+    // Blocks have been assigned.
+    private boolean assignBlocksToPeer(BlockPeerInfo peerInfo, List<PeerAddress> availablePeers, List<PeerAddress> notAvailablePeers) {
+        PeerAddress peerAddress = peerInfo.getPeerAddress();
+        int freeSlots = getFreeSlots(peerInfo);
+        if (freeSlots == 0) return false;
+
+        // The Blocks in flight and the size being downloaded do NOT change until the Blocks are requested below, so
+        // we calculate them only once:
+        int currentBlocksInFlight = getCurrentBlocksInFlight();
+        long totalMbBeingDownloaded = getCurrentDownloadingBlocksSize() / 1_000_000; // convert to MB
+
+        List<String> blocksToDownload = new ArrayList<>();
+        while (blocksToDownload.size() < freeSlots) {
+
+            // SANITY CHECK: WE check if more downloads are allowed:
+            int numBlocksInFlight = currentBlocksInFlight + blocksToDownload.size();
+            this.bandwidthRestricted = totalMbBeingDownloaded >= getMaxMBinParallel();
+            this.moreDownloadsAllowed = (numBlocksInFlight == 0)
+                    || ((numBlocksInFlight < getMaxBlocksInParallel()) && !bandwidthRestricted);
+            if (!moreDownloadsAllowed) tuneLimitReached.set(true);
+
+            // If we are in PAUSED Mode, we might still need to keep trying to download those blocks
+            // which we already started...
+            boolean isPausedAndBlocksInProcess = isPaused() && !blocksPendingManager.getBlockDownloadAttempts().isEmpty();
+
+            // If we can download more Blocks, we ask the BlocksPendingManager for a Suitable block for
+            // this Peer to download:
+            if (!(isPausedAndBlocksInProcess || (isRunning() && moreDownloadsAllowed))) break;
+
+            logger.trace(peerAddress, "Determining most suitable block for download");
+            Optional<String> blockHashToDownload = blocksPendingManager.extractMostSuitableBlockForDownload(peerAddress, availablePeers, notAvailablePeers);
+            if (blockHashToDownload.isEmpty()) break;
+            blocksToDownload.add(blockHashToDownload.get());
+        }
+
+        // We finally request the Blocks to this Peer, if any has been found:
+        if (!blocksToDownload.isEmpty()) {
+            startDownloading(peerInfo, blocksToDownload);
+        }
+        return !blocksToDownload.isEmpty();
+    }
+
+    // It runs the update given over the Peer, and then updates its Performance Rank. The Peer is re-inserted in the
+    // Set of Peers, so it gets its right position based on its new Performance:
+    private void updatePeerPerformance(BlockPeerInfo peerInfo, Runnable update) {
+        boolean wasInSet = peersByPerformance.remove(peerInfo);
+        update.run();
+        peerInfo.updatePerformanceRank();
+        if (wasInSet) peersByPerformance.add(peerInfo);
+    }
+
+    // It updates the download progress (and Speed) of the Peer given. If the size of the Block being downloaded is
+    // known by now, it's also registered:
+    private void updatePeerProgress(BlockPeerInfo peerInfo) {
+        updatePeerPerformance(peerInfo, peerInfo::updateBytesProgress);
+        BlockPeerInfo.BlockProgressInfo currentBlockInfo = peerInfo.getCurrentBlockInfo();
+        if (currentBlockInfo != null && currentBlockInfo.getBytesTotal() != null) {
+            blocksPendingManager.registerBlockSize(currentBlockInfo.getHash(), currentBlockInfo.getBytesTotal());
+        }
+    }
+
+    // MONITORING OF THE DOWNLOADS:
+    // On each execution of this Job, we update the download progress of the Peers downloading and we detect if some
+    // timeouts have been triggered. The Peers IDLE are NOT checked here, Blocks are assigned to them when an assignment
+    // is triggered. The Blocks in Limbo and the Blocks Discarded are NOT checked here either, they are checked when
+    // their Deadlines expire.
+    // This Job runs periodically in the Scheduled Lane, so it does NOT keep a Thread busy between executions.
+
+    private void jobMonitorDownloads() {
+        try {
+            lock.lock();
+            boolean assignmentNeeded = false;
 
-                    if (blocksToReTry.size() > 0) {
-                        for (String hashToRetry : blocksToReTry) {
-                            logger.trace("Retrying block download " + hashToRetry);
-                            blocksDiscarded.remove(hashToRetry);
-                            blocksDownloadHistory.register(hashToRetry, "Block picked up again to re-attempt download...");
-                            blocksPendingManager.addWithPriority(hashToRetry); // blocks to retry have preference...
+            // We process each Peer downloading (we iterate over a copy, since the Peers are re-inserted):
+            for (BlockPeerInfo peerInfo : new ArrayList<>(peersByPerformance)) {
+                try {
+                    if (!peerInfo.isHandshaked() || !peerInfo.isProcessing()) continue;
+                    PeerAddress peerAddress = peerInfo.getPeerAddress();
+                    logger.trace(peerAddress, "Processing peerWorkingState == PROCESSING");
+
+                    // we update the Progress of this Peer:
+                    updatePeerProgress(peerInfo);
+
+                    // We check the timeouts. If the peer has broken some of these timeouts, we discard it. Only
+                    // a Peer still connected but sending nothing is a real Stall:
+                    String msgFailure = null;
+                    boolean stalled = false;
+                    if (peerInfo.getConnectionState().equals(BlockPeerInfo.PeerConnectionState.DISCONNECTED)) { msgFailure = "Peer Closed while downloading"; }
+                    else if (peerInfo.isIdleTimeoutBroken(config.getMaxIdleTimeout()))                        { msgFailure = "Idle Time expired"; stalled = true; }
+                    else if (peerInfo.isDownloadTimeoutBroken(config.getMaxDownloadTimeout()))                { msgFailure = "Downloading Time expired"; }
+                    else if (peerInfo.isTooSlow(config.getMinSpeed()))                                        { msgFailure = "Peer too slow"; }
+                    if (msgFailure != null) {
+                        // Only Stalls are a sign of congestion for the Tuner. Downloads are counted by Block, so each
+                        // Block in the window of this Peer is one Stall. They are only counted once, since the Peer is
+                        // discarded right after. Any failure counts against the Performance of this Peer:
+                        if (stalled) tuneNumStalls.addAndGet(peerInfo.getBlocksInFlight().size());
+                        final boolean isStall = stalled;
+                        updatePeerPerformance(peerInfo, () -> {
+                            if (isStall) peerInfo.getPerformance().recordStall();
+                            else peerInfo.getPerformance().recordFailure();
+                        });
+
+                        // All the Blocks in the window of this Peer go to LIMBO, and they will be re-assigned
+                        // individually if they do not resume:
+                        for (BlockPeerInfo.BlockProgressInfo blockInfo : peerInfo.getBlocksInFlight()) {
+                            logger.debug(peerAddress, "Download Failure", blockInfo.hash, msgFailure);
+                            blocksDownloadHistory.register(blockInfo.hash, peerInfo.getPeerAddress(), BlocksDownloadHistory.Event.DOWNLOAD_ISSUE, 0, 0, msgFailure);
+                            blocksInLimbo.add(blockInfo.hash);
+                            scheduleLimboCheck(blockInfo.hash, config.getInactivityTimeoutToFail());
                         }
+                        // We discard this Peer and also send a request to Disconnect from it:
+                        peerInfo.discard();
+                        super.eventBus.publish(new DisconnectPeerRequest(peerInfo.getPeerAddress(), PeerDisconnectedEvent.DisconnectedReason.DISCONNECTED_BY_LOCAL_LAZY_DOWNLOAD, null));
+                        //super.eventBus.publish(new PeerDisconnectedEvent(peerInfo.getPeerAddress(), PeerDisconnectedEvent.DisconnectedReason.DISCONNECTED_BY_LOCAL_LAZY_DOWNLOAD));
+                    } else if (getFreeSlots(peerInfo) > 0 && blocksPendingManager.size() > 0) {
+                        // The window of this Peer has grown after updating its Speed:
+                        assignmentNeeded = true;
                     }
                 } catch (Exception e) {
-                    logger.error("Error during jobProcessCheckDownloadingProcess ", e);
-                } finally {
-                    lock.unlock();
+                    logger.error("Error during jobMonitorDownloads, while processing each peer ", e);
                 }
+            }
+
+            if (assignmentNeeded) {
+                triggerBlocksAssignment();
+            }
+        } catch (Exception e) {
+            logger.error("Error during jobMonitorDownloads ", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // AUTO-TUNING OF THE PARALLELISM:
+    // On each execution of this Job, we build a Sample with the downloads since the previous execution and the memory
+    // usage, and the Tuner decides whether to change the parallelism. The decision is published as an Event.
 
-                Thread.sleep(100); // to avoid tight loops...
-            } // while true...
-        } catch (InterruptedException ie) {
-            // We do nothing, most probably, it fails due to the main service being stopped...
+    private void jobTuneParallelism() {
+        try {
+            Instant now = Instant.now();
+            BlocksDownloadParallelismTuner.Sample sample = new BlocksDownloadParallelismTuner.Sample(
+                    tuneBytesDownloaded.getAndSet(0),
+                    Duration.between(lastTuneTimestamp, now),
+                    tuneNumDownloads.getAndSet(0),
+                    tuneNumStalls.getAndSet(0),
+                    tuneLimitReached.getAndSet(false) && blocksPendingManager.size() > 0,
+                    BlocksDownloadParallelismTuner.getHeapUsage(),
+                    BlocksDownloadParallelismTuner.getDirectMemoryUsage());
+            this.lastTuneTimestamp = now;
+
+            Optional<BlocksDownloadParallelismChangedEvent> decision = parallelismTuner.adjust(sample);
+            if (decision.isPresent()) {
+                logger.debug("Parallelism changed", decision.get().toString());
+                super.eventBus.publish(decision.get());
+                // If the limits are higher now, there might be room for more blocks:
+                triggerBlocksAssignment();
+            }
+        } catch (Exception e) {
+            logger.error("Error during jobTuneParallelism ", e);
         }
     }
 
@@ -1075,10 +1335,8 @@ public class BlockDownloaderHandlerImpl extends HandlerImpl<PeerAddress, BlockPe
 
     @Override
     public List<BlockPeerInfo> getPeers() {
-        List<BlockPeerInfo> peersOrdered =  handlerInfo.values().stream()
+        return peersByPerformance.stream()
                 .filter(p -> p.isHandshaked())
                 .collect(Collectors.toList());
-        Collections.sort(peersOrdered, BlockPeerInfo.SPEED_COMPARATOR);
-        return peersOrdered;
     }
 }
\ No newline at end of file
@@ -58,6 +58,13 @@ public final class BlockDownloaderHandlerState extends HandlerState {
 
     private final long blocksDownloadingSize;
 
+    // Current limits of Blocks and MB downloaded in parallel (they might change over time if auto-tuning is enabled):
+    private final int maxBlocksInParallel;
+    private final long maxMBinParallel;
+
+    // Performance of each Peer (a snapshot of the moment this State was taken):
+    private final Map<PeerAddress, BlockPeerPerformance> peersPerformance;
+
     public BlockDownloaderHandlerState( BlockDownloaderHandlerConfig config,
                                         BlockDownloaderHandlerImpl.DonwloadingState downloadingState,
                                         List<String> pendingBlocks,
@@ -73,7 +80,10 @@ public final class BlockDownloaderHandlerState extends HandlerState {
                                         Map<String, Integer> blocksNumDownloadAttempts,
                                         int busyPercentage,
                                         boolean bandwidthRestricted,
-                                        long blocksDownloadingSize) {
+                                        long blocksDownloadingSize,
+                                        int maxBlocksInParallel,
+                                        long maxMBinParallel,
+                                        Map<PeerAddress, BlockPeerPerformance> peersPerformance) {
         this.config = config;
         this.downloadingState = downloadingState;
         this.pendingBlocks = pendingBlocks;
@@ -90,6 +100,9 @@ public final class BlockDownloaderHandlerState extends HandlerState {
         this.busyPercentage = busyPercentage;
         this.bandwidthRestricted = bandwidthRestricted;
         this.blocksDownloadingSize = blocksDownloadingSize;
+        this.maxBlocksInParallel = maxBlocksInParallel;
+        this.maxMBinParallel = maxMBinParallel;
+        this.peersPerformance = peersPerformance;
     }
 
     public static BlockDownloaderHandlerStateBuilder builder() {
@@ -105,6 +118,7 @@ public final class BlockDownloaderHandlerState extends HandlerState {
         if (bandwidthRestricted) {
             result.append("(bandwidth restricted)");
         }
+        result.append(", limits: ").append(maxBlocksInParallel).append(" blocks, ").append(maxMBinParallel).append(" MB");
 
         result.append("\nBlocks: ");
         result.append(downloadedBlocks.size() + " downloaded, " + getNumPeersDownloading() + " downloading, " + pendingBlocks.size() + " pending, ");
@@ -188,6 +202,15 @@ public final class BlockDownloaderHandlerState extends HandlerState {
 
     public boolean isBandwidthRestricted()      { return bandwidthRestricted; }
     public long getBlocksDownloadingSize()      { return blocksDownloadingSize;}
+    public int getMaxBlocksInParallel()         { return maxBlocksInParallel;}
+    public long getMaxMBinParallel()            { return maxMBinParallel;}
+    public Map<PeerAddress, BlockPeerPerformance> getPeersPerformance()
+    { return this.peersPerformance; }
+
+    public Optional<BlockPeerPerformance> getPeerPerformance(PeerAddress peerAddress) {
+        if (this.peersPerformance == null) { return Optional.empty();}
+        return Optional.ofNullable(this.peersPerformance.get(peerAddress));
+    }
 
     public long getNumPeersDownloading() {
         if (peersInfo == null) return 0;
@@ -200,8 +223,7 @@ public final class BlockDownloaderHandlerState extends HandlerState {
         if (this.peersInfo == null ) { return Optional.empty();}
 
         return this.peersInfo.stream()
-                .filter(p -> p.getCurrentBlockInfo() != null)
-                .filter(p -> p.getCurrentBlockInfo().getHash().equals(blockHash))
+                .filter(p -> p.isBlockInFlight(blockHash))
                 .findFirst();
     }
 
@@ -218,7 +240,10 @@ public final class BlockDownloaderHandlerState extends HandlerState {
                 .blocksNumDownloadAttempts(this.blocksNumDownloadAttempts)
                 .busyPercentage(this.busyPercentage)
                 .bandwidthRestricted(this.bandwidthRestricted)
-                .blocksDownloadingSize(this.blocksDownloadingSize);
+                .blocksDownloadingSize(this.blocksDownloadingSize)
+                .maxBlocksInParallel(this.maxBlocksInParallel)
+                .maxMBinParallel(this.maxMBinParallel)
+                .peersPerformance(this.peersPerformance);
     }
 
     /**
@@ -241,6 +266,9 @@ public final class BlockDownloaderHandlerState extends HandlerState {
         private int busyPercentage;
         private boolean bandwidthRestricted;
         private long blocksDownloadingSize;
+        private int maxBlocksInParallel;
+        private long maxMBinParallel;
+        private Map<PeerAddress, BlockPeerPerformance> peersPerformance;
 
         BlockDownloaderHandlerStateBuilder() {
         }
@@ -325,8 +353,23 @@ public final class BlockDownloaderHandlerState extends HandlerState {
             return this;
         }
 
+        public BlockDownloaderHandlerState.BlockDownloaderHandlerStateBuilder maxBlocksInParallel(int maxBlocksInParallel) {
+            this.maxBlocksInParallel = maxBlocksInParallel;
+            return this;
+        }
+
+        public BlockDownloaderHandlerState.BlockDownloaderHandlerStateBuilder maxMBinParallel(long maxMBinParallel) {
+            this.maxMBinParallel = maxMBinParallel;
+            return this;
+        }
+
+        public BlockDownloaderHandlerState.BlockDownloaderHandlerStateBuilder peersPerformance(Map<PeerAddress, BlockPeerPerformance> peersPerformance) {
+            this.peersPerformance = peersPerformance;
+            return this;
+        }
+
         public BlockDownloaderHandlerState build() {
-            return new BlockDownloaderHandlerState(config, downloadingState, pendingBlocks, downloadedBlocks, discardedBlocks, pendingToCancelBlocks, cancelledBlocks, blocksInLimbo, blocksHistory, blocksLastActivity, peersInfo, totalReattempts, blocksNumDownloadAttempts, busyPercentage, bandwidthRestricted, blocksDownloadingSize);
+            return new BlockDownloaderHandlerState(config, downloadingState, pendingBlocks, downloadedBlocks, discardedBlocks, pendingToCancelBlocks, cancelledBlocks, blocksInLimbo, blocksHistory, blocksLastActivity, peersInfo, totalReattempts, blocksNumDownloadAttempts, busyPercentage, bandwidthRestricted, blocksDownloadingSize, maxBlocksInParallel, maxMBinParallel, peersPerformance);
         }
     }
 }
@@ -11,7 +11,11 @@ import io.bitcoinsv.jcl.net.protocol.handlers.message.streams.deserializer.Deser
 import java.text.DecimalFormat;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author i.fernandez@nchain.com
@@ -19,6 +23,11 @@ import java.util.Comparator;
  *
  * This class stores all the info the blockDownloader Handler needs to keep track of for each Peer, in order
  * to manage the download of blocks.
+ *
+ * A Peer might have several Blocks requested at the same time (its "in-flight window"). The remote Peer sends them
+ * in the same order they were requested, so the first Block in the window is the one being received at this moment
+ * (the "current" Block), and the rest are waiting behind it. The Timestamps of each block are tracked separately, so
+ * the time a Block spends waiting in the window does not count as downloading time.
  */
 public class BlockPeerInfo {
 
@@ -53,6 +62,7 @@ public class BlockPeerInfo {
         protected Long bytesTotal;
         protected Long bytesDownloaded;
         protected Boolean realTimeProcessing;
+        protected Instant requestTimestamp;
         protected Instant startTimestamp;
         protected Instant lastBytesReceivedTimestamp;
 
@@ -60,6 +70,13 @@ public class BlockPeerInfo {
             this.hash = hash;
             this.numAttempt = numAttempt;
             this.peerAddress = peerAddress;
+            this.requestTimestamp = Instant.now();
+            this.startTimestamp = Instant.now();
+            this.lastBytesReceivedTimestamp = Instant.now();
+        }
+
+        // The Block reaches the head of the window: its download starts now
+        protected void start() {
             this.startTimestamp = Instant.now();
             this.lastBytesReceivedTimestamp = Instant.now();
         }
@@ -85,12 +102,14 @@ public class BlockPeerInfo {
         }
 
         public String getHash()                         { return this.hash; }
+        public int getNumAttempt()                      { return this.numAttempt; }
         public BlockHeaderMsg getBlockHeaderMsg()       { return this.blockHeaderMsg; }
         public PeerAddress getPeerAddress()             { return this.peerAddress; }
         public boolean isCorrupted()                    { return this.corrupted; }
         public Long getBytesTotal()                     { return this.bytesTotal; }
         public Long getBytesDownloaded()                { return this.bytesDownloaded; }
         public Boolean getRealTimeProcessing()          { return this.realTimeProcessing; }
+        public Instant getRequestTimestamp()            { return this.requestTimestamp; }
         public Instant getStartTimestamp()              { return this.startTimestamp; }
         public Instant getLastBytesReceivedTimestamp()  { return this.lastBytesReceivedTimestamp; }
 
@@ -101,20 +120,40 @@ public class BlockPeerInfo {
 
     }
 
+    // Default Block Size assumed to calculate the in-flight window before any Block has been downloaded from a Peer:
+    private static final long DEFAULT_AVG_BLOCK_SIZE = 1_000_000;
+
     // A comparator that orders the Peers by Speed (high speed first)
     public static final Comparator<BlockPeerInfo> SPEED_COMPARATOR = (peerA, peerB) -> peerB.downloadSpeed - peerA.downloadSpeed;
 
+    // A comparator that orders the Peers by their Performance (best first). It uses the rank calculated the last time
+    // the Performance was updated (see "updatePerformanceRank()"), so the order of a Peer does not change while it's
+    // stored in a sorted collection:
+    public static final Comparator<BlockPeerInfo> PERFORMANCE_COMPARATOR = Comparator.comparingLong(p -> p.performanceRank);
+
+    // Size class used to rank the Peers:
+    private static final BlockPeerPerformance.BlockSizeClass RANK_SIZE_CLASS = BlockPeerPerformance.BlockSizeClass.MEDIUM;
+
     // Peer Info:
     private PeerAddress peerAddress;
     private PeerConnectionState connectionState;
     private PeerWorkingState workingState;
     private Integer downloadSpeed; // bytes/sec
 
+    // Performance of this Peer, and its rank (expected millisecs to download a Block, 0 if unknown yet):
+    private final BlockPeerPerformance performance = new BlockPeerPerformance();
+    private long performanceRank;
+
     // A reference to the Deserializer Stream used by this Peer:
     private DeserializerStream stream;
 
-    // Info bout the Block being currently downloaded by this Peer:
-    private BlockProgressInfo currentBlockInfo;
+    // Blocks requested to this Peer and not downloaded yet (in-flight window), in the same order they were requested.
+    // The first one is the Block being currently downloaded:
+    private final LinkedHashMap<String, BlockProgressInfo> blocksInFlight = new LinkedHashMap<>();
+
+    // Average size of the Blocks downloaded from this Peer (bytes), used to calculate the in-flight window:
+    private long avgBlockSize = DEFAULT_AVG_BLOCK_SIZE;
+    private long numBlocksDownloaded;
 
 
     /** Constructor */
@@ -133,8 +172,39 @@ public class BlockPeerInfo {
     public PeerConnectionState getConnectionState() { return this.connectionState; }
     public PeerWorkingState getWorkingState()       { return this.workingState; }
     public Integer getDownloadSpeed()               { return this.downloadSpeed; }
+    public BlockPeerPerformance getPerformance()    { return this.performance; }
+    public long getPerformanceRank()                { return this.performanceRank; }
     public DeserializerStream getStream()           { return this.stream; }
-    public BlockProgressInfo getCurrentBlockInfo()  { return this.currentBlockInfo; }
+    public long getAvgBlockSize()                   { return this.avgBlockSize; }
+
+    /** Returns the Block being currently downloaded (the first in the in-flight window), or null if idle */
+    public synchronized BlockProgressInfo getCurrentBlockInfo() {
+        return blocksInFlight.isEmpty() ? null : blocksInFlight.values().iterator().next();
+    }
+
+    /** Returns the Blocks requested to this Peer and not downloaded yet, in the order they were requested */
+    public synchronized List<BlockProgressInfo> getBlocksInFlight()     { return new ArrayList<>(blocksInFlight.values()); }
+    public synchronized int getNumBlocksInFlight()                      { return blocksInFlight.size(); }
+    public synchronized boolean isBlockInFlight(String blockHash)       { return blocksInFlight.containsKey(blockHash); }
+    public synchronized BlockProgressInfo getBlockInfo(String blockHash){ return blocksInFlight.get(blockHash); }
+
+    /**
+     * Returns the size of the in-flight window of this Peer: the number of Blocks this Peer can download during the
+     * "target" time given, based on its download Speed and the average size of its Blocks. The result is always
+     * between 1 and the max given. Until the speed of the Peer is known, the window is 1.
+     */
+    public int getInFlightWindow(int maxBlocksInFlight, Duration target) {
+        if (maxBlocksInFlight <= 1) return 1;
+        if (downloadSpeed == null || downloadSpeed == Integer.MAX_VALUE || downloadSpeed <= 0) return 1;
+        long bytesInTarget = (downloadSpeed * target.toMillis()) / 1000;
+        long numBlocks = (bytesInTarget + avgBlockSize - 1) / Math.max(1, avgBlockSize);
+        return (int) Math.max(1, Math.min(maxBlocksInFlight, numBlocks));
+    }
+
+    /** Returns the number of Blocks that can still be requested to this Peer */
+    public synchronized int getFreeSlotsInWindow(int maxBlocksInFlight, Duration target) {
+        return Math.max(0, getInFlightWindow(maxBlocksInFlight, target) - blocksInFlight.size());
+    }
 
     public boolean isConnected()                    { return this.connectionState.equals(PeerConnectionState.CONNECTED);}
     public boolean isHandshaked()                   { return this.connectionState.equals(PeerConnectionState.HANDSHAKED);}
@@ -149,25 +219,25 @@ public class BlockPeerInfo {
      * another Block previously, so every time we reset it, we reset the properties related to the current
      * download, but some other "global" variabels are kept, like the download Speed
      */
-    protected void reset() {
+    protected synchronized void reset() {
         this.workingState = PeerWorkingState.IDLE;
-        this.currentBlockInfo = null;
+        this.blocksInFlight.clear();
     }
 
     /**
      * It discards this Peer, prabably due to a previous error while downloading a Block from it
      */
-    protected void discard() {
+    protected synchronized void discard() {
         this.workingState = PeerWorkingState.DISCARDED;
-        this.currentBlockInfo = null;
+        this.blocksInFlight.clear();
     }
 
     /**
      * It sets this peer to IDLE State
      */
-    protected void setIdle() {
+    protected synchronized void setIdle() {
         this.workingState = PeerWorkingState.IDLE;
-        this.currentBlockInfo = null;
+        this.blocksInFlight.clear();
     }
 
     /** It updates the Peer to reflect that it's just connected */
@@ -195,18 +265,62 @@ public class BlockPeerInfo {
         this.stream = null;
     }
 
-    /** It updates the Peer to reflect that it's just started to download this block */
-    protected void startDownloading(String blockHash, int numAttempt) {
-        reset();
-        this.currentBlockInfo = new BlockProgressInfo(blockHash, this.peerAddress, numAttempt);
+    /**
+     * It updates the Peer to reflect that this block has been requested to it. The Block is added to the end of the
+     * in-flight window.
+     */
+    protected synchronized void startDownloading(String blockHash, int numAttempt) {
+        if (blocksInFlight.containsKey(blockHash)) return;
+        blocksInFlight.put(blockHash, new BlockProgressInfo(blockHash, this.peerAddress, numAttempt));
         this.workingState = PeerWorkingState.PROCESSING;
     }
 
+    /**
+     * It updates the Peer to reflect that this Block is being received right now. Peers send the Blocks in the same
+     * order they were requested, but if that's not the case, this block becomes the current one.
+     */
+    protected synchronized void receivingBlock(String blockHash) {
+        BlockProgressInfo blockInfo = blocksInFlight.get(blockHash);
+        if (blockInfo == null || blockInfo == getCurrentBlockInfo()) return;
+        LinkedHashMap<String, BlockProgressInfo> reordered = new LinkedHashMap<>();
+        reordered.put(blockHash, blockInfo);
+        blocksInFlight.forEach((hash, info) -> { if (!hash.equals(blockHash)) reordered.put(hash, info); });
+        blocksInFlight.clear();
+        blocksInFlight.putAll(reordered);
+        blockInfo.start();
+    }
+
+    /**
+     * It updates the Peer to reflect that this block has been downloaded (and its size). The Block is removed from
+     * the in-flight window, and the next one starts. If there are no more blocks, the Peer goes back to IDLE.
+     */
+    protected synchronized void finishDownloading(String blockHash, long blockSize) {
+        BlockProgressInfo blockInfo = blocksInFlight.remove(blockHash);
+        if (blockInfo != null && blockSize > 0) {
+            performance.recordDownload(blockSize, Duration.between(blockInfo.startTimestamp, Instant.now()));
+
+            // Running average of the sizes of the last Blocks, giving more weight to the recent ones:
+            numBlocksDownloaded++;
+            long weight = Math.min(numBlocksDownloaded, 10);
+            avgBlockSize = (numBlocksDownloaded == 1) ? blockSize : (avgBlockSize * (weight - 1) + blockSize) / weight;
+        }
+        if (blocksInFlight.isEmpty()) {
+            this.workingState = PeerWorkingState.IDLE;
+        } else if (blockInfo != null) {
+            BlockProgressInfo nextBlock = getCurrentBlockInfo();
+            if (nextBlock.bytesDownloaded == null) nextBlock.start();
+        }
+    }
+
     /**
      * It updates the Peer to reflect that it's back to downloading State
      * (for example, if it seemed to stop in the past, was put into Limbo and now it has resumed sending data
      */
-    protected void resumeDownloading() {
+    protected synchronized void resumeDownloading(String blockHash, int numAttempt) {
+        if (!blocksInFlight.containsKey(blockHash)) {
+            blocksInFlight.put(blockHash, new BlockProgressInfo(blockHash, this.peerAddress, numAttempt));
+        }
+        receivingBlock(blockHash);
         this.workingState = PeerWorkingState.PROCESSING;
     }
 
@@ -216,7 +330,8 @@ public class BlockPeerInfo {
      */
     protected synchronized void updateBytesProgress() {
         // We only update the state if this Peer has actually started the downloading process...
-        if (currentBlockInfo != null) {
+        BlockProgressInfo currentBlockInfo = getCurrentBlockInfo();
+        if (currentBlockInfo != null && stream != null) {
             DeserializerStreamState streamState = stream.getState();
             HeaderMsg currentHeaderMsg = streamState.getCurrentHeaderMsg();
             // We only do the update if the current Msg being downloaded by this Peer is a BLOCK
@@ -249,36 +364,58 @@ public class BlockPeerInfo {
 
                     // If these numbers are different from the previous already stored, then that means that this Peer is actually
                     // active, so we update the "lastBytesReceivedTimestamp" field..
-                    if (!bytesDownloaded.equals(this.currentBlockInfo.getBytesDownloaded())) {
-                        this.currentBlockInfo.lastBytesReceivedTimestamp = Instant.now();
+                    if (!bytesDownloaded.equals(currentBlockInfo.getBytesDownloaded())) {
+                        currentBlockInfo.lastBytesReceivedTimestamp = Instant.now();
+                        // If these are the first bytes, we've got the Latency:
+                        if (currentBlockInfo.getBytesDownloaded() == null && bytesDownloaded > 0) {
+                            performance.recordLatency(Duration.between(currentBlockInfo.startTimestamp, Instant.now()));
+                        }
                     }
 
                     // We update the Speed (bytes/sec):
-                    long totalSecs = Duration.between(this.currentBlockInfo.startTimestamp, Instant.now()).toSeconds();
+                    long totalSecs = Duration.between(currentBlockInfo.startTimestamp, Instant.now()).toSeconds();
                     if (totalSecs != 0)
                         this.downloadSpeed = (int) (bytesDownloaded / totalSecs);
 
-                    this.currentBlockInfo.bytesDownloaded = bytesDownloaded;
-                    this.currentBlockInfo.realTimeProcessing = streamState.getTreadState().dedicatedThreadRunning();
+                    currentBlockInfo.bytesDownloaded = bytesDownloaded;
+                    currentBlockInfo.realTimeProcessing = streamState.getTreadState().dedicatedThreadRunning();
                 }
             }
         }
     }
 
+    /**
+     * It updates the Rank of this Peer, based on its current Performance. Peers we know nothing about yet are ranked
+     * first, so all of them get a chance to probe their speed.
+     * NOTE: If this Peer is stored in a collection sorted by PERFORMANCE_COMPARATOR, it must be removed before calling
+     * this method and added again afterwards.
+     */
+    protected void updatePerformanceRank() {
+        this.performanceRank = performance.getExpectedDownloadTime(RANK_SIZE_CLASS).map(Duration::toMillis).orElse(0L);
+    }
+
     // Indicates if this Peer has broken the IDLE time-limit, meaning he has NOT sent any bytes at all during
     // that time:
     protected boolean isIdleTimeoutBroken(Duration timeout) {
+        BlockProgressInfo currentBlockInfo = getCurrentBlockInfo();
         if (currentBlockInfo == null) return false;
         if (currentBlockInfo.lastBytesReceivedTimestamp == null) return false;
         return (Duration.between(currentBlockInfo.lastBytesReceivedTimestamp,
                 Instant.now()).compareTo(timeout) > 0);
     }
 
-    // Indicates if this Peer is taking longer than we allow it to download a Block
-    protected boolean isDownloadTimeoutBroken(Duration timeout) {
-        if (currentBlockInfo == null) return false;
-        return (Duration.between(currentBlockInfo.startTimestamp, Instant.now())
-                .compareTo(timeout) > 0);
+    // Indicates if this Peer is taking longer than we allow it to download a Block. Each Block in the window is
+    // checked against the time it's been downloading (the Block being received), or the time since it was requested
+    // minus the time the Blocks before it are allowed to take (the Blocks waiting in the window):
+    protected synchronized boolean isDownloadTimeoutBroken(Duration timeout) {
+        int position = 0;
+        Instant now = Instant.now();
+        for (BlockProgressInfo blockInfo : blocksInFlight.values()) {
+            Instant from = (position == 0) ? blockInfo.startTimestamp : blockInfo.requestTimestamp;
+            if (Duration.between(from, now).compareTo(timeout.multipliedBy(position + 1)) > 0) return true;
+            position++;
+        }
+        return false;
     }
 
     // Indicates if this Peer is too slow. A Peer is considered "too slow" if:
@@ -287,15 +424,16 @@ public class BlockPeerInfo {
     // - the avg Speed (bytes/sec) is lower than the minSpeed given as parameter
     protected boolean isTooSlow(int minBytesPerSec) {
         if (minBytesPerSec <= 0) return false;
-        if (currentBlockInfo == null) return false;
+        BlockProgressInfo currentBlockInfo = getCurrentBlockInfo();
+        if (currentBlockInfo == null || stream == null) return false;
 
         final int MIN_BYTES_READ    = 10_000; // minimum size: 10K
         HeaderMsg currentHeaderMsg  = stream.getState().getCurrentHeaderMsg();
-        boolean isBlock             = currentHeaderMsg.getMsgCommand().equalsIgnoreCase(BlockMsg.MESSAGE_TYPE);
+        boolean isBlock             = currentHeaderMsg != null && currentHeaderMsg.getMsgCommand().equalsIgnoreCase(BlockMsg.MESSAGE_TYPE);
         long numBytesSoFar          = stream.getState().getCurrentMsgBytesReceived();
 
         if (currentHeaderMsg != null && isBlock && (numBytesSoFar >= MIN_BYTES_READ)) {
-            long numMillisSoFar = Duration.between(currentBlockInfo.getStartTimestamp(),Instant.now()).toMillis();
+            long numMillisSoFar = Math.max(1, Duration.between(currentBlockInfo.getStartTimestamp(),Instant.now()).toMillis());
             long currentSpeed   = (numBytesSoFar / numMillisSoFar) * 1000;
             return (currentSpeed < minBytesPerSec);
         }
@@ -308,9 +446,13 @@ public class BlockPeerInfo {
         result.append(Strings.padEnd(this.peerAddress.toString(), 36, ' ')).append(" : ");
 
         // we calculate the Progress status, if any:
-        BlockProgressInfo blockProgressInfo = currentBlockInfo;
+        BlockProgressInfo blockProgressInfo = getCurrentBlockInfo();
         if (blockProgressInfo != null) {
             result.append(blockProgressInfo.toString());
+            int numBlocksWaiting = getNumBlocksInFlight() - 1;
+            if (numBlocksWaiting > 0) {
+                result.append("(+" + numBlocksWaiting + " in flight) : ");
+            }
 
             //if (blockProgressInfo.getRealTimeProcessing() != null)
             //    result.append(blockProgressInfo.getRealTimeProcessing() ? "[Big block]" : "").append(" : ");
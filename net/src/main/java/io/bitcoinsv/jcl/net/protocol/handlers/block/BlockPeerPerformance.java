@@ -0,0 +1,179 @@
+package io.bitcoinsv.jcl.net.protocol.handlers.block;
+
+import java.text.DecimalFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Performance Model of a Peer regarding the download of Blocks. It keeps track of:
+ *
+ * - The Throughput (bytes/sec) of the Peer, for each class of Block Size: A Peer might be fast serving small blocks
+ *   but stall when it comes to big ones.
+ * - The Latency: time since a Block download starts until the first bytes are received.
+ * - The Stalls (the Peer stops sending bytes in the middle of a download) and Failures (the download fails because of
+ *   the Peer: timeouts, disconnections, etc).
+ *
+ * Throughput and Latency are Exponentially-weighted moving averages (EWMA), so recent samples weight more than old
+ * ones. Stalls and Failures are scores that decay over time (they are halved every {@link #DECAY_HALF_LIFE}), so a
+ * Peer that misbehaved in the past is given a chance again after a while.
+ *
+ * The Model is summarized by {@link #getExpectedDownloadTime(BlockSizeClass)}: the time we expect this Peer to take
+ * to download a Block of that size, penalized by its Stalls and Failures.
+ */
+public class BlockPeerPerformance {
+
+    /** Classes of Block Sizes */
+    public enum BlockSizeClass {
+        SMALL   (0,              250_000),        // < 1 MB. Representative size: 250 KB
+        MEDIUM  (1_000_000,      10_000_000),     // < 100 MB. Representative size: 10 MB
+        LARGE   (100_000_000,    500_000_000);    // >= 100 MB. Representative size: 500 MB
+
+        private final long minSize;
+        private final long representativeSize;
+
+        BlockSizeClass(long minSize, long representativeSize) {
+            this.minSize = minSize;
+            this.representativeSize = representativeSize;
+        }
+
+        public long getRepresentativeSize() { return this.representativeSize; }
+
+        /** Returns the Class of the size given (in bytes). If the size is unknown (null), it returns SMALL */
+        public static BlockSizeClass of(Long blockSize) {
+            if (blockSize == null) return SMALL;
+            if (blockSize >= LARGE.minSize) return LARGE;
+            if (blockSize >= MEDIUM.minSize) return MEDIUM;
+            return SMALL;
+        }
+    }
+
+    // Weight of a new Sample in the EWMAs:
+    private static final double EWMA_ALPHA = 0.3;
+
+    // Time after which the Stalls and Failures scores are halved:
+    public static final Duration DECAY_HALF_LIFE = Duration.ofMinutes(10);
+
+    // Weight of each Stall and Failure when penalizing the Expected Download Time:
+    private static final double STALL_PENALTY = 1.0;
+    private static final double FAILURE_PENALTY = 2.0;
+
+    // EWMAs (negative means no samples yet). Throughput in bytes/sec, Latency in millisecs:
+    private double throughput = -1;
+    private final double[] throughputBySize = { -1, -1, -1 };
+    private double latency = -1;
+
+    // Scores decaying over time:
+    private double stallScore;
+    private double failureScore;
+    private Instant lastDecayTimestamp = Instant.now();
+
+    // Total counters:
+    private long numDownloads;
+    private long numStalls;
+    private long numFailures;
+
+    /** Constructor */
+    public BlockPeerPerformance() {}
+
+    private static double ewma(double current, double sample) {
+        return (current < 0) ? sample : (EWMA_ALPHA * sample) + ((1 - EWMA_ALPHA) * current);
+    }
+
+    // It applies the Time-decay to the Scores:
+    private void decay() {
+        Instant now = Instant.now();
+        long millisPassed = Duration.between(lastDecayTimestamp, now).toMillis();
+        if (millisPassed <= 0) return;
+        double factor = Math.pow(0.5, (double) millisPassed / DECAY_HALF_LIFE.toMillis());
+        stallScore *= factor;
+        failureScore *= factor;
+        lastDecayTimestamp = now;
+    }
+
+    /** It registers a Block downloaded successfully */
+    public synchronized void recordDownload(long blockSize, Duration downloadTime) {
+        numDownloads++;
+        long millis = Math.max(1, downloadTime.toMillis());
+        double sample = (double) blockSize * 1000 / millis;
+        throughput = ewma(throughput, sample);
+        int sizeIndex = BlockSizeClass.of(blockSize).ordinal();
+        throughputBySize[sizeIndex] = ewma(throughputBySize[sizeIndex], sample);
+    }
+
+    /** It registers the time since a Block download started until the first bytes were received */
+    public synchronized void recordLatency(Duration latencyTime) {
+        latency = ewma(latency, latencyTime.toMillis());
+    }
+
+    /** It registers a Stall: The Peer stopped sending bytes during a download */
+    public synchronized void recordStall() {
+        decay();
+        numStalls++;
+        stallScore++;
+    }
+
+    /** It registers a Failure: a download failed because of this Peer */
+    public synchronized void recordFailure() {
+        decay();
+        numFailures++;
+        failureScore++;
+    }
+
+    /** Indicates if we have some samples about the speed of this Peer */
+    public synchronized boolean isKnown() { return throughput > 0; }
+
+    /**
+     * Returns the time we expect this Peer to take to download a Block of the given Size class, or empty if we do not
+     * have enough information yet. If there are no samples of Blocks of this size, the general Throughput is used. The
+     * time is penalized by the Stalls and Failures of the Peer.
+     */
+    public synchronized Optional<Duration> getExpectedDownloadTime(BlockSizeClass sizeClass) {
+        double sizeThroughput = (throughputBySize[sizeClass.ordinal()] > 0) ? throughputBySize[sizeClass.ordinal()] : throughput;
+        if (sizeThroughput <= 0) return Optional.empty();
+        decay();
+        double millis = Math.max(latency, 0) + (sizeClass.getRepresentativeSize() * 1000 / sizeThroughput);
+        double penalty = 1 + (STALL_PENALTY * stallScore) + (FAILURE_PENALTY * failureScore);
+        return Optional.of(Duration.ofMillis((long) (millis * penalty)));
+    }
+
+    public synchronized double getThroughput()                      { return this.throughput; }
+    public synchronized double getThroughput(BlockSizeClass size)   { return this.throughputBySize[size.ordinal()]; }
+    public synchronized double getLatency()                         { return this.latency; }
+    public synchronized double getStallScore()                      { decay(); return this.stallScore; }
+    public synchronized double getFailureScore()                    { decay(); return this.failureScore; }
+    public synchronized long getNumDownloads()                      { return this.numDownloads; }
+    public synchronized long getNumStalls()                         { return this.numStalls; }
+    public synchronized long getNumFailures()                       { return this.numFailures; }
+
+    /** Returns a copy of this Model at this moment */
+    public synchronized BlockPeerPerformance getSnapshot() {
+        decay();
+        BlockPeerPerformance result = new BlockPeerPerformance();
+        result.throughput = this.throughput;
+        System.arraycopy(this.throughputBySize, 0, result.throughputBySize, 0, this.throughputBySize.length);
+        result.latency = this.latency;
+        result.stallScore = this.stallScore;
+        result.failureScore = this.failureScore;
+        result.lastDecayTimestamp = this.lastDecayTimestamp;
+        result.numDownloads = this.numDownloads;
+        result.numStalls = this.numStalls;
+        result.numFailures = this.numFailures;
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        DecimalFormat format = new DecimalFormat("#0.0");
+        StringBuffer result = new StringBuffer();
+        result.append("[ ").append((throughput < 0) ? "¿?" : format.format(throughput / 1_000)).append(" KB/sec");
+        result.append(", latency: ").append((latency < 0) ? "¿?" : ((long) latency + " ms"));
+        result.append(", ").append(numDownloads).append(" downloads");
+        result.append(", stalls: ").append(numStalls).append(" (").append(format.format(getStallScore())).append(")");
+        result.append(", failures: ").append(numFailures).append(" (").append(format.format(getFailureScore())).append(") ]");
+        return result.toString();
+    }
+}
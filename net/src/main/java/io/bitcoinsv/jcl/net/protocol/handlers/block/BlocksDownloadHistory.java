@@ -2,10 +2,9 @@ package io.bitcoinsv.jcl.net.protocol.handlers.block;
 
 import io.bitcoinsv.jcl.net.network.PeerAddress;
 import io.bitcoinsv.bitcoinjsv.core.Sha256Hash;
-import io.bitcoinsv.jcl.tools.util.EventsHistory;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 
 /**
@@ -13,32 +12,213 @@ import java.util.*;
  * Copyright (c) 2018-2020 nChain Ltd
  * @date 22/05/2021
  *
- * This class stores the history of the download process. For each Block, it stores a List of HistoryItems,
- * which store a timestamps, the event taking place and the remote peer responsible for that. In some cases
- * where we might want to register an action that is not related to a remote peer, we can just leave that
- * field empty
+ * This class stores the history of the download process. For each Block, it stores the events taking place, their
+ * timestamps and the remote peer responsible for them (if any).
+ *
+ * The history is compact and bounded, since it's updated for every block (and for every batch of Txs of big blocks),
+ * even if nobody ever reads it:
+ *  - Each event is stored as a code plus a couple of numbers, in a fixed-size ring buffer per Block, so only the
+ *    last "maxEventsPerBlock" events of each Block are kept. No Strings are built when the events are registered,
+ *    they are only rendered when the history is queried.
+ *  - Only the history of the last "maxBlocks" Blocks with activity is kept.
+ *  - The history of the Blocks marked for deletion is removed once "cleaningTimeout" has passed since their last
+ *    activity. This cleaning is done as part of the registration of new events, so no extra Thread is needed.
  */
-public class BlocksDownloadHistory extends EventsHistory<String, String, PeerAddress> {
+public class BlocksDownloadHistory {
+
+    // Default values:
+    public static final int DEFAULT_MAX_EVENTS_PER_BLOCK = 32;
+    public static final int DEFAULT_MAX_BLOCKS = 10_000;
+
+    // Min time between 2 cleanings of the Blocks marked for deletion:
+    private static final long CLEANING_FREQUENCY_MILLIS = 10_000;
+
+    /** Events that can be registered in the history of a Block. Some of them take numeric arguments */
+    public enum Event {
+        DOWNLOAD_STARTED            ("Starting downloading"),
+        HEADER_DOWNLOADED           ("Header downloaded"),
+        TXS_DOWNLOADED              ("%d Txs downloaded, (%d Txs so far)"),
+        RAW_TXS_DOWNLOADED          ("%d Raw Txs downloaded, (%d Txs so far)"),
+        WHOLE_BLOCK_DOWNLOADED      ("Whole block downloaded"),
+        WHOLE_RAW_BLOCK_DOWNLOADED  ("Whole Raw block downloaded"),
+        BLOCK_DOWNLOADED            ("Block successfully downloaded"),
+        PEER_DISCONNECTED           ("Peer has disconnected"),
+        DOWNLOAD_ISSUE              ("Download Issue detected : %s"),
+        DATA_RECEIVED_IN_LIMBO      ("Data received while in Limbo. Resuming Downloading..."),
+        MOVED_TO_PENDING            ("Block moved back to the pending Pool"),
+        REATTEMPT                   ("Block picked up again to re-attempt download..."),
+        DISCARDED                   ("block discarded (max attempts broken, reset to zero)"),
+        CANCEL_REQUESTED            ("block requested for cancellation"),
+        CANCELLED                   ("block cancelled");
+
+        private final String template;
+        Event(String template) { this.template = template; }
+
+        String render(long arg1, long arg2, Object detail) {
+            switch (this) {
+                case TXS_DOWNLOADED:
+                case RAW_TXS_DOWNLOADED:    return String.format(template, arg1, arg2);
+                case DOWNLOAD_ISSUE:        return String.format(template, detail);
+                default:                    return template;
+            }
+        }
+    }
+
+    /** Represents an Historic Item, rendered from the history when it's queried */
+    public static class HistoricItem<E, S> {
+        private final Instant timestamp;
+        private final E event;
+        private final S source;
+
+        public HistoricItem(Instant timestamp, E event, S source) {
+            this.timestamp = timestamp;
+            this.event = event;
+            this.source = source;
+        }
+        public Instant getTimestamp()  { return this.timestamp;}
+        public S getSource()           { return this.source;}
+        public E getEvent()            { return this.event;}
+
+        @Override
+        public String toString() {
+            return timestamp + " :: "
+                + ((source != null) ? "[" + source + "] " : " ")
+                + event;
+        }
+    }
+
+    /** Ring buffer storing the last events of a Block */
+    private static class BlockHistory {
+        private final long[] timestamps;
+        private final byte[] events;
+        private final long[] args1;
+        private final long[] args2;
+        private final PeerAddress[] sources;
+        private Object[] details;   // Only created if any event needs it
+        private int next;           // Position where the next event will be written
+        private int size;
+        private boolean markedForDeletion;
+
+        BlockHistory(int capacity) {
+            this.timestamps = new long[capacity];
+            this.events = new byte[capacity];
+            this.args1 = new long[capacity];
+            this.args2 = new long[capacity];
+            this.sources = new PeerAddress[capacity];
+        }
+
+        void add(long timestamp, Event event, PeerAddress source, long arg1, long arg2, Object detail) {
+            timestamps[next] = timestamp;
+            events[next] = (byte) event.ordinal();
+            args1[next] = arg1;
+            args2[next] = arg2;
+            sources[next] = source;
+            if (detail != null || details != null) {
+                if (details == null) details = new Object[timestamps.length];
+                details[next] = detail;
+            }
+            next = (next + 1) % timestamps.length;
+            size = Math.min(size + 1, timestamps.length);
+        }
+
+        long lastTimestamp() {
+            return timestamps[(next - 1 + timestamps.length) % timestamps.length];
+        }
 
-    private Logger logger = LoggerFactory.getLogger(BlocksDownloadHistory.class);
+        // It renders the events, from the oldest to the newest:
+        List<HistoricItem<String, PeerAddress>> render() {
+            Event[] allEvents = Event.values();
+            List<HistoricItem<String, PeerAddress>> result = new ArrayList<>(size);
+            int first = (next - size + timestamps.length) % timestamps.length;
+            for (int i = 0; i < size; i++) {
+                int pos = (first + i) % timestamps.length;
+                String description = allEvents[events[pos]].render(args1[pos], args2[pos], (details != null) ? details[pos] : null);
+                result.add(new HistoricItem<>(Instant.ofEpochMilli(timestamps[pos]), description, sources[pos]));
+            }
+            return result;
+        }
+    }
+
+    private final int maxEventsPerBlock;
+    private final int maxBlocks;
+    private Duration cleaningTimeout;
+    private long lastCleaningTimestamp = System.currentTimeMillis();
+
+    // History of each Block, in order of activity (the least recently active first):
+    private final LinkedHashMap<String, BlockHistory> history;
 
-    // Events to save when Block history is removed:
-    private String ITEM_AFTER_AUTOMATIC_REMOVE = "Block History removed automatically after %d seconds";
-    private String ITEM_AFTER_ONDEMAND_REMOVE = "Block History removed.";
+    /** Constructor */
+    public BlocksDownloadHistory(int maxEventsPerBlock, int maxBlocks) {
+        this.maxEventsPerBlock = Math.max(1, maxEventsPerBlock);
+        this.maxBlocks = Math.max(1, maxBlocks);
+        this.history = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BlockHistory> eldest) {
+                return size() > BlocksDownloadHistory.this.maxBlocks;
+            }
+        };
+    }
 
     /** Constructor */
     public BlocksDownloadHistory() {
-        super();
-        this.addItemWhenHistoryRemovedAutomatically(() -> ITEM_AFTER_AUTOMATIC_REMOVE);
-        this.addItemWhenHistoryRemovedOnDemand(() -> ITEM_AFTER_ONDEMAND_REMOVE);
+        this(DEFAULT_MAX_EVENTS_PER_BLOCK, DEFAULT_MAX_BLOCKS);
+    }
+
+    public void setCleaningTimeout(Duration cleaningTimeout) {
+        this.cleaningTimeout = cleaningTimeout;
+    }
+
+    /** It registers an event in the history of a Block, along with its numeric arguments and details */
+    public synchronized void register(String blockHash, PeerAddress source, Event event, long arg1, long arg2, Object detail) {
+        long now = System.currentTimeMillis();
+        history.computeIfAbsent(blockHash, h -> new BlockHistory(maxEventsPerBlock)).add(now, event, source, arg1, arg2, detail);
+        if (now - lastCleaningTimestamp > CLEANING_FREQUENCY_MILLIS) {
+            clean(now);
+        }
+    }
+
+    /** It registers an event in the history of a Block, along with its numeric arguments */
+    public void register(String blockHash, PeerAddress source, Event event, long arg1, long arg2) {
+        register(blockHash, source, event, arg1, arg2, null);
+    }
+
+    /** It registers an event in the history of a Block */
+    public void register(String blockHash, PeerAddress source, Event event) {
+        register(blockHash, source, event, 0, 0, null);
+    }
+
+    /** It registers an event in the history of a Block */
+    public void register(String blockHash, Event event) {
+        register(blockHash, null, event, 0, 0, null);
+    }
+
+    /** Removes the whole history of a Block */
+    public synchronized void remove(String blockHash) {
+        history.remove(blockHash);
     }
 
     /**
-     * returns the history of the block given
+     * Marks a Block for deletion. When the timeout since its last activity expires, its history will be removed
      */
-    public Optional<List<HistoricItem<String, PeerAddress>>> getBlockHistory(String blockHash) {
+    public synchronized void markForDeletion(String blockHash) {
+        BlockHistory blockHistory = history.get(blockHash);
+        if (blockHistory != null) blockHistory.markedForDeletion = true;
+    }
+
+    // It removes the history of the Blocks marked for deletion whose timeout has expired:
+    private void clean(long now) {
+        lastCleaningTimestamp = now;
+        if (cleaningTimeout == null) return;
+        long timeoutMillis = cleaningTimeout.toMillis();
+        history.values().removeIf(h -> h.markedForDeletion && (now - h.lastTimestamp()) > timeoutMillis);
+    }
 
-        return super.getItemHistory(blockHash);
+    /**
+     * returns the history of the block given
+     */
+    public synchronized Optional<List<HistoricItem<String, PeerAddress>>> getBlockHistory(String blockHash) {
+        BlockHistory blockHistory = history.get(blockHash);
+        return (blockHistory != null) ? Optional.of(blockHistory.render()) : Optional.empty();
     }
 
     /**
@@ -49,8 +229,14 @@ public class BlocksDownloadHistory extends EventsHistory<String, String, PeerAdd
     }
 
     /** returns the history of ALL the blocks */
-    public Map<String, List<HistoricItem<String, PeerAddress>>> getBlocksHistory() {
-        return super.getItemsHistory();
+    public synchronized Map<String, List<HistoricItem<String, PeerAddress>>> getBlocksHistory() {
+        Map<String, List<HistoricItem<String, PeerAddress>>> result = new HashMap<>();
+        history.forEach((hash, blockHistory) -> result.put(hash, blockHistory.render()));
+        return result;
     }
 
+    /** Returns the number of Blocks with history */
+    public synchronized int size() {
+        return history.size();
+    }
 }
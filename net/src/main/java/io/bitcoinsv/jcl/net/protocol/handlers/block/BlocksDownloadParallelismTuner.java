@@ -0,0 +1,203 @@
+package io.bitcoinsv.jcl.net.protocol.handlers.block;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import io.bitcoinsv.jcl.net.protocol.events.control.BlocksDownloadParallelismChangedEvent;
+import io.bitcoinsv.jcl.net.protocol.events.control.BlocksDownloadParallelismChangedEvent.Reason;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It tunes the number of Blocks (and MB) that the BlockDownloader Handler can download in parallel, following an
+ * AIMD approach (Additive Increase, Multiplicative Decrease). On each interval, a Sample of the downloads during that
+ * period is taken, and:
+ *
+ * - If the Heap or the Direct memory is running low, the parallelism is halved.
+ * - If the Peers are stalling often (and more than in the previous interval), the parallelism is halved.
+ * - If the previous interval increased the parallelism but the throughput has not improved, that increase is undone,
+ *   and we wait for some intervals before trying again.
+ * - Otherwise, if the current limits have been reached (there were more blocks we could have downloaded), the
+ *   parallelism is increased a bit.
+ *
+ * The parallelism never goes beyond the hard limits given, nor below 1 Block.
+ */
+public class BlocksDownloadParallelismTuner {
+
+    /**
+     * Information about the downloads during one interval
+     */
+    public static class Sample {
+        private final long bytesDownloaded;
+        private final Duration interval;
+        private final int numDownloads;
+        private final int numStalls;
+        private final boolean limitReached;
+        private final double heapUsage;             // 0..1
+        private final double directMemoryUsage;     // 0..1
+
+        public Sample(long bytesDownloaded, Duration interval, int numDownloads, int numStalls, boolean limitReached,
+                      double heapUsage, double directMemoryUsage) {
+            this.bytesDownloaded = bytesDownloaded;
+            this.interval = interval;
+            this.numDownloads = numDownloads;
+            this.numStalls = numStalls;
+            this.limitReached = limitReached;
+            this.heapUsage = heapUsage;
+            this.directMemoryUsage = directMemoryUsage;
+        }
+
+        public long getThroughput() { return (bytesDownloaded * 1000) / Math.max(1, interval.toMillis()); }
+
+        public double getStallRate() {
+            int total = numDownloads + numStalls;
+            return (total == 0) ? 0 : (double) numStalls / total;
+        }
+    }
+
+    // Memory usage (0..1) over which we consider the memory is running low:
+    public static final double MEMORY_PRESSURE_THRESHOLD = 0.85;
+    // Stall rate (stalls / total downloads) over which we consider the Peers are stalling too much:
+    public static final double STALL_RATE_THRESHOLD = 0.2;
+    // Minimum improvement of the throughput after an increase, for the increase to be worth it:
+    private static final double MIN_IMPROVEMENT = 0.05;
+    // Number of intervals we wait before increasing again, after a decrease:
+    private static final int COOLDOWN_INTERVALS = 6;
+    // Minimum MB in parallel:
+    private static final long MIN_MB_IN_PARALLEL = 10;
+
+    // Hard Limits:
+    private final int maxBlocksLimit;
+    private final long maxMBLimit;
+    private final long mbStep;
+
+    // Current values:
+    private int maxBlocksInParallel;
+    private long maxMBinParallel;
+
+    // Info from the previous interval:
+    private long lastThroughput;
+    private double lastStallRate;
+    private boolean lastIncreased;
+    private int cooldown;
+
+    // Max Direct memory, calculated only once:
+    private static Long maxDirectMemory;
+
+    /** Constructor */
+    public BlocksDownloadParallelismTuner(int initialBlocks, long initialMB, int maxBlocksLimit, long maxMBLimit) {
+        this.maxBlocksLimit = Math.max(1, maxBlocksLimit);
+        this.maxMBLimit = Math.max(MIN_MB_IN_PARALLEL, maxMBLimit);
+        this.maxBlocksInParallel = Math.min(Math.max(1, initialBlocks), this.maxBlocksLimit);
+        this.maxMBinParallel = Math.min(Math.max(MIN_MB_IN_PARALLEL, initialMB), this.maxMBLimit);
+        this.mbStep = Math.max(MIN_MB_IN_PARALLEL, this.maxMBLimit / 20);
+    }
+
+    public synchronized int getMaxBlocksInParallel()    { return this.maxBlocksInParallel; }
+    public synchronized long getMaxMBinParallel()       { return this.maxMBinParallel; }
+
+    private void increase() {
+        maxBlocksInParallel = Math.min(maxBlocksInParallel + 1, maxBlocksLimit);
+        maxMBinParallel = Math.min(maxMBinParallel + mbStep, maxMBLimit);
+    }
+
+    private void decrease() {
+        maxBlocksInParallel = Math.max(maxBlocksInParallel / 2, 1);
+        maxMBinParallel = Math.max(maxMBinParallel / 2, MIN_MB_IN_PARALLEL);
+        cooldown = COOLDOWN_INTERVALS;
+    }
+
+    private void undoIncrease() {
+        maxBlocksInParallel = Math.max(maxBlocksInParallel - 1, 1);
+        maxMBinParallel = Math.max(maxMBinParallel - mbStep, MIN_MB_IN_PARALLEL);
+        cooldown = COOLDOWN_INTERVALS;
+    }
+
+    /**
+     * It processes the Sample of the last interval, and it adjusts the parallelism if needed. If the limits have
+     * changed, it returns an Event with the new ones, ready to be published.
+     */
+    public synchronized Optional<BlocksDownloadParallelismChangedEvent> adjust(Sample sample) {
+        int previousBlocks = maxBlocksInParallel;
+        long previousMB = maxMBinParallel;
+        long throughput = sample.getThroughput();
+        double stallRate = sample.getStallRate();
+
+        Reason reason = null;
+        if (sample.heapUsage >= MEMORY_PRESSURE_THRESHOLD || sample.directMemoryUsage >= MEMORY_PRESSURE_THRESHOLD) {
+            decrease();
+            reason = Reason.MEMORY_PRESSURE;
+        } else if (stallRate >= STALL_RATE_THRESHOLD && stallRate > lastStallRate) {
+            decrease();
+            reason = Reason.STALLS;
+        } else if (lastIncreased && throughput < lastThroughput * (1 + MIN_IMPROVEMENT)) {
+            undoIncrease();
+            reason = Reason.NO_IMPROVEMENT;
+        } else if (cooldown > 0) {
+            cooldown--;
+        } else if (sample.limitReached) {
+            increase();
+            reason = Reason.THROUGHPUT_IMPROVING;
+        }
+
+        boolean changed = (maxBlocksInParallel != previousBlocks) || (maxMBinParallel != previousMB);
+        this.lastIncreased = changed && reason == Reason.THROUGHPUT_IMPROVING;
+        this.lastThroughput = throughput;
+        this.lastStallRate = stallRate;
+
+        return (changed)
+                ? Optional.of(new BlocksDownloadParallelismChangedEvent(maxBlocksInParallel, maxMBinParallel, reason, throughput))
+                : Optional.empty();
+    }
+
+    /**
+     * Returns the usage of the Heap memory (0..1). We use the usage of the Heap right after the last GC, if available,
+     * since the current usage also includes the garbage not collected yet.
+     */
+    public static double getHeapUsage() {
+        long used = 0;
+        long max = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) continue;
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage == null || usage.getMax() <= 0) continue;
+            used += usage.getUsed();
+            max += usage.getMax();
+        }
+        if (max > 0) return (double) used / max;
+        MemoryUsage heapUsage = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long heapMax = (heapUsage.getMax() > 0) ? heapUsage.getMax() : heapUsage.getCommitted();
+        return (double) heapUsage.getUsed() / heapMax;
+    }
+
+    /** Returns the usage of the Direct memory (0..1) */
+    public static double getDirectMemoryUsage() {
+        long used = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(b -> b.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+        return (double) used / getMaxDirectMemory();
+    }
+
+    // If not specified by "-XX:MaxDirectMemorySize", the max Direct memory is the same as the max Heap:
+    private static synchronized long getMaxDirectMemory() {
+        if (maxDirectMemory == null) {
+            long value = 0;
+            try {
+                HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+                value = Long.parseLong(hotSpot.getVMOption("MaxDirectMemorySize").getValue());
+            } catch (Exception e) {
+                // Not a HotSpot JVM. We use the default
+            }
+            maxDirectMemory = (value > 0) ? value : Runtime.getRuntime().maxMemory();
+        }
+        return maxDirectMemory;
+    }
+}
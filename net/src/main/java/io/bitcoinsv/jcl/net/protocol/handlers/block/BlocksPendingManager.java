@@ -1,12 +1,11 @@
 package io.bitcoinsv.jcl.net.protocol.handlers.block;
 
-import com.google.common.collect.ImmutableList;
 import io.bitcoinsv.jcl.net.network.PeerAddress;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.Function;
 
 /**
  * @author i.fernandez@nchain.com
@@ -18,6 +17,14 @@ import java.util.stream.IntStream;
  * be performed depending on the situation (if no best suitable peer is found, for example).
  * In order to run all that logic, this class also stores additional info like blocks announcements, block downloads
  * attempts, etc.
+ *
+ * All the structures are indexed by Block Hash (and Sets of Peers are stored as Bitmaps), so adding, removing or
+ * looking up a Block takes constant time, and so does the assignment of a Block to a Peer in most cases, no matter how
+ * many Blocks are pending.
+ *
+ * When the size of a Block is known (because a previous attempt already got its Header), the Performance of the Peers
+ * for that Size class is also taken into account, so Blocks that are not small are given to the Peers that are
+ * expected to download them faster (see {@link BlockPeerPerformance}).
  */
 public class BlocksPendingManager {
 
@@ -35,17 +42,48 @@ public class BlocksPendingManager {
     // Indicates what to do in case we have some Peers, but none of them is a BEST Match:
     private BlockDownloaderHandlerConfig.NoBestMatchAction noBestMatchAction = BlockDownloaderHandlerConfig.NoBestMatchAction.DOWNLOAD_FROM_ANYONE;
 
-    // List of pending blocks: It works as a FIFO Queue: First Block to be added are the first ones to be downloaded.
-    private List<String> pendingBlocks = new ArrayList<>();
+    // Pending blocks are stored in different TIERS. Each tier works as a FIFO Queue (First Block to be added are the
+    // first ones to be downloaded), and the tiers are checked in this order:
+    // - RETRY:     Blocks that have been already tried (they failed and are re-attempted).
+    // - PRIORITY:  Blocks added with priority.
+    // - NORMAL:    Rest of Blocks.
+    // The Blocks that can ONLY be downloaded from one specific Peer are not stored in these tiers, but in a separate
+    // Queue for each Peer (EXCLUSIVE), so other Peers do not need to skip them.
+    private enum Tier { RETRY, PRIORITY, NORMAL, EXCLUSIVE }
+
+    private Set<String> retryBlocks = new LinkedHashSet<>();
+    private Set<String> priorityBlocks = new LinkedHashSet<>();
+    private Set<String> normalBlocks = new LinkedHashSet<>();
+    private Map<PeerAddress, Set<String>> exclusiveBlocks = new HashMap<>();
+
+    // Index of ALL the pending blocks: [Key: Block hash, Value: Tier it's stored in]
+    private Map<String, Tier> pendingBlocks = new HashMap<>();
 
-    // Blocks announced by Peer: [Key: peer. Value: List of Blocks announced by this peer]
-    private Map<PeerAddress, Set<String>> blockAnnouncements = new ConcurrentHashMap<>();
+    // Each Peer is given an Index, so Sets of Peers can be stored as Bitmaps. The Index of a Peer is freed when it
+    // disconnects, and reused by the next Peer, so the Bitmaps do not grow with the Peers that come and go:
+    private Map<PeerAddress, Integer> peersIndex = new HashMap<>();
+    private List<PeerAddress> peersByIndex = new ArrayList<>();
+    private BitSet freePeersIndexes = new BitSet();
+
+    // Performance of each Peer, and the size of the Blocks that is known so far [Key: Block Hash, Value: Size]:
+    private Function<PeerAddress, BlockPeerPerformance> peersPerformance = p -> null;
+    private Map<String, Long> blocksSize = new HashMap<>();
+
+    // A Peer is only skipped in favour of another one if this other one is expected to be this times faster:
+    private static final int PERFORMANCE_MARGIN = 2;
+
+    // Blocks announced: [Key: Block Hash. Value: Bitmap of the Peers that have announced it]
+    private Map<String, BitSet> blockAnnouncers = new HashMap<>();
 
     // Block Peers exclusivity: [Key: block Hash, Value: The ONLY Peers allowed to download this Block]
     private Map<String, PeerAddress> blocksPeerExclusivity = new ConcurrentHashMap<>();
 
     // Block Peers priority: [Key: block Hash, Value: in case of various options, these Peers will be selected first]
-    private Map<String, Set<PeerAddress>> blocksPeerPriority = new ConcurrentHashMap<>();
+    private Map<String, BitSet> blocksPeerPriority = new HashMap<>();
+
+    // Blocks that each Peer has priority for: [Key: Peer, value: Blocks]. Blocks no longer pending are removed lazily,
+    // and the Peer is removed when it disconnects
+    private Map<PeerAddress, Set<String>> priorityBlocksByPeer = new HashMap<>();
 
     // Blocks download Attempts: (removed after successful download) [Key: Bock Hash, Value: Number of download Attempts]
     private Map<String, Integer> blocksNumDownloadAttempts = new ConcurrentHashMap<>();
@@ -64,47 +102,109 @@ public class BlocksPendingManager {
     public void setNoBestMatchAction(BlockDownloaderHandlerConfig.NoBestMatchAction noBestMatchAction)   { this.noBestMatchAction = noBestMatchAction; }
     public void setBestMatchNotAvailableAction(BlockDownloaderHandlerConfig.BestMatchNotAvailableAction bestMatchNotAvailableAction)
                                                                             { this.bestMatchNotAvailableAction = bestMatchNotAvailableAction; }
+    public void setPeersPerformance(Function<PeerAddress, BlockPeerPerformance> peersPerformance)         { this.peersPerformance = peersPerformance; }
+
+    // PEERS INDEX:
+    private int getPeerIndex(PeerAddress peerAddress) {
+        return peersIndex.computeIfAbsent(peerAddress, p -> {
+            int freeIndex = freePeersIndexes.nextSetBit(0);
+            if (freeIndex < 0) {
+                peersByIndex.add(p);
+                return peersByIndex.size() - 1;
+            }
+            freePeersIndexes.clear(freeIndex);
+            peersByIndex.set(freeIndex, p);
+            return freeIndex;
+        });
+    }
+
+    // It frees the Index of the Peer, removing it from all the Bitmaps first, so the next Peer using that Index does
+    // not inherit its announcements or priorities. This is linear in the number of Blocks announced/prioritized, but
+    // it only runs once per Peer:
+    public synchronized void registerPeerDisconnected(PeerAddress peerAddress) {
+        priorityBlocksByPeer.remove(peerAddress);
+        Integer peerIndex = peersIndex.remove(peerAddress);
+        if (peerIndex == null) return;
+        clearPeerIndex(blockAnnouncers, peerIndex);
+        clearPeerIndex(blocksPeerPriority, peerIndex);
+        peersByIndex.set(peerIndex, null);
+        freePeersIndexes.set(peerIndex);
+    }
+
+    // It removes the Peer Index from the Bitmaps given, and the Bitmaps left empty:
+    private void clearPeerIndex(Map<String, BitSet> bitmaps, int peerIndex) {
+        bitmaps.values().removeIf(peers -> {
+            peers.clear(peerIndex);
+            return peers.isEmpty();
+        });
+    }
+
+    private BitSet toBitmap(List<PeerAddress> peers) {
+        BitSet result = new BitSet();
+        peers.forEach(p -> result.set(getPeerIndex(p)));
+        return result;
+    }
+
     // BOCK ANNOUNCEMENTS:
-    public void registerBlockAnnouncement(String blockHash, PeerAddress peerAddress) {
-        Set<String> blocks = blockAnnouncements.containsKey(peerAddress) ? blockAnnouncements.get(peerAddress) : new HashSet<>();
-        blocks.add(blockHash);
-        blockAnnouncements.put(peerAddress, blocks);
+    public synchronized void registerBlockAnnouncement(String blockHash, PeerAddress peerAddress) {
+        blockAnnouncers.computeIfAbsent(blockHash, h -> new BitSet()).set(getPeerIndex(peerAddress));
     }
 
     private boolean isBlockAnnouncedBy(String blockHash, PeerAddress peerAddress) {
-        return blockAnnouncements.containsKey(peerAddress) && blockAnnouncements.get(peerAddress).contains(blockHash);
+        BitSet announcers = blockAnnouncers.get(blockHash);
+        return announcers != null && announcers.get(getPeerIndex(peerAddress));
     }
 
-    private boolean isBlockAnnouncedBy(String blockHash, List<PeerAddress> peerAddress) {
-        return peerAddress.stream().anyMatch(p -> isBlockAnnouncedBy (blockHash, p));
+    private boolean isBlockAnnouncedBy(String blockHash, BitSet peers) {
+        BitSet announcers = blockAnnouncers.get(blockHash);
+        return announcers != null && announcers.intersects(peers);
     }
 
     // BLOCK EXCLUSIVITY/PRIORITY:
-    public void registerBlockExclusivity(List<String> blockHashes, PeerAddress peerAddress) {
-        blockHashes.forEach(blockHash -> blocksPeerExclusivity.put(blockHash, peerAddress));
+    public synchronized void registerBlockExclusivity(List<String> blockHashes, PeerAddress peerAddress) {
+        blockHashes.forEach(blockHash -> {
+            // If the Block is already pending, we move it to the Queue of this Peer:
+            boolean isPending = pendingBlocks.containsKey(blockHash);
+            if (isPending) remove(blockHash);
+            blocksPeerExclusivity.put(blockHash, peerAddress);
+            if (isPending) store(blockHash, false);
+        });
     }
 
-    public void registerBlockPriority(List<String> blockHashes, PeerAddress peerAddress) {
+    public synchronized void registerBlockPriority(List<String> blockHashes, PeerAddress peerAddress) {
+        int peerIndex = getPeerIndex(peerAddress);
+        Set<String> peerBlocks = priorityBlocksByPeer.computeIfAbsent(peerAddress, p -> new LinkedHashSet<>());
         blockHashes.forEach(blockHash -> {
-            Set<PeerAddress> peers = blocksPeerPriority.get(blockHash);
-            if (peers == null) {
-                peers = new HashSet<>();
-            }
-            peers.add(peerAddress);
-            blocksPeerPriority.put(blockHash, peers);
+            blocksPeerPriority.computeIfAbsent(blockHash, h -> new BitSet()).set(peerIndex);
+            peerBlocks.add(blockHash);
         });
     }
 
+    // BLOCK SIZES:
+    public synchronized void registerBlockSize(String blockHash, long blockSize) {
+        if (blockSize > 0) blocksSize.put(blockHash, blockSize);
+    }
+
     // REGISTER OF EVENTS:
     public void registerNewDownloadAttempt(String blockHash)            { blocksNumDownloadAttempts.merge(blockHash, 1, (o, n) -> o + n); }
-    public void registerBlockDownloaded(String blockHash)               { blocksNumDownloadAttempts.remove(blockHash); }
-    public void registerBlockDiscarded(String blockHash)                {
+    public synchronized void registerBlockDownloaded(String blockHash)  {
+        blocksNumDownloadAttempts.remove(blockHash);
+        blocksSize.remove(blockHash);
+        blockAnnouncers.remove(blockHash);
+        blocksPeerPriority.remove(blockHash);
+    }
+    public synchronized void registerBlockDiscarded(String blockHash)   {
         blocksNumDownloadAttempts.remove(blockHash);
-        pendingBlocks.remove(blockHash);
+        blocksSize.remove(blockHash);
+        remove(blockHash);
     }
-    public void registerBlockCancelled(String blockHash)                {
+    public synchronized void registerBlockCancelled(String blockHash)   {
         blocksNumDownloadAttempts.remove(blockHash);
-        pendingBlocks.remove(blockHash);
+        blocksSize.remove(blockHash);
+        remove(blockHash);
+        blockAnnouncers.remove(blockHash);
+        blocksPeerPriority.remove(blockHash);
+        blocksPeerExclusivity.remove(blockHash);
     }
 
     // RESTRICTED MODE:
@@ -117,14 +217,58 @@ public class BlocksPendingManager {
     public boolean isBlockBeingAttempted(String blockHash)              { return blocksNumDownloadAttempts.containsKey(blockHash); }
 
     // PENDING BLOCKS:
-    public synchronized void add(String blockHash)                      { this.pendingBlocks.add(blockHash); }
-    public synchronized void add(List<String> blockHashes)              { this.pendingBlocks.addAll(blockHashes); }
-    public synchronized void addWithPriority(String blockHash)          { this.pendingBlocks.add(0, blockHash); }
-    public synchronized void addWithPriority(List<String> blockHashes)  { this.pendingBlocks.addAll(0, blockHashes); }
-    public synchronized void remove(String blockHash)                   { this.pendingBlocks.remove(blockHash); }
+
+    // It stores the Block in the right Tier/Queue. If the block was already pending, it's moved:
+    private void store(String blockHash, boolean withPriority) {
+        Tier currentTier = pendingBlocks.get(blockHash);
+        PeerAddress exclusivePeer = blocksPeerExclusivity.get(blockHash);
+        Tier tier = (exclusivePeer != null)                         ? Tier.EXCLUSIVE
+                : blocksNumDownloadAttempts.containsKey(blockHash)  ? Tier.RETRY
+                : withPriority                                      ? Tier.PRIORITY
+                : Tier.NORMAL;
+        if (currentTier != null) {
+            if (currentTier == tier || (currentTier.ordinal() < tier.ordinal() && tier != Tier.EXCLUSIVE)) return;
+            remove(blockHash);
+        }
+        pendingBlocks.put(blockHash, tier);
+        switch (tier) {
+            case RETRY:     retryBlocks.add(blockHash); break;
+            case PRIORITY:  priorityBlocks.add(blockHash); break;
+            case NORMAL:    normalBlocks.add(blockHash); break;
+            case EXCLUSIVE: exclusiveBlocks.computeIfAbsent(exclusivePeer, p -> new LinkedHashSet<>()).add(blockHash); break;
+        }
+    }
+
+    public synchronized void add(String blockHash)                      { store(blockHash, false); }
+    public synchronized void add(List<String> blockHashes)              { blockHashes.forEach(h -> store(h, false)); }
+    public synchronized void addWithPriority(String blockHash)          { store(blockHash, true); }
+    public synchronized void addWithPriority(List<String> blockHashes)  { blockHashes.forEach(h -> store(h, true)); }
+    public synchronized void remove(String blockHash) {
+        Tier tier = pendingBlocks.remove(blockHash);
+        if (tier == null) return;
+        switch (tier) {
+            case RETRY:     retryBlocks.remove(blockHash); break;
+            case PRIORITY:  priorityBlocks.remove(blockHash); break;
+            case NORMAL:    normalBlocks.remove(blockHash); break;
+            case EXCLUSIVE: {
+                Set<String> peerBlocks = exclusiveBlocks.get(blocksPeerExclusivity.get(blockHash));
+                if (peerBlocks != null) peerBlocks.remove(blockHash);
+                break;
+            }
+        }
+    }
     public synchronized int size()                                      { return this.pendingBlocks.size(); }
-    public synchronized List<String> getPendingBlocks()                 { return ImmutableList.copyOf(this.pendingBlocks); }
-    public boolean contains(String blockHash)                           { return this.pendingBlocks.contains(blockHash); }
+    public synchronized boolean contains(String blockHash)              { return this.pendingBlocks.containsKey(blockHash); }
+
+    /** Returns the pending Blocks, in the order they will be checked for download */
+    public synchronized List<String> getPendingBlocks() {
+        List<String> result = new ArrayList<>(pendingBlocks.size());
+        result.addAll(retryBlocks);
+        result.addAll(priorityBlocks);
+        result.addAll(normalBlocks);
+        exclusiveBlocks.values().forEach(result::addAll);
+        return result;
+    }
 
     /**
      * This methods checks if a given Block can be assigned to the Peer given (currentPeer) to be download from it.
@@ -136,13 +280,13 @@ public class BlocksPendingManager {
      *
      * @param blockHash         Block Hash we want to download
      * @param currentPeer       Peer we try to check if its a good fit to download this block
-     * @param availablePeers    List of available Pers (excluding 'currentPeer')
-     * @param notAvailablePeers List of NOT available Pers (excluding 'currentPeer')
+     * @param availablePeers    Bitmap of available Pers (excluding 'currentPeer')
+     * @param notAvailablePeers Bitmap of NOT available Pers (excluding 'currentPeer')
      * @return                  true -> This block can be assigned to this Peer for download
      */
     private boolean isPeerSuitableForDownload(String blockHash, PeerAddress currentPeer,
-                                              List<PeerAddress> availablePeers,
-                                              List<PeerAddress> notAvailablePeers) {
+                                              BitSet availablePeers,
+                                              BitSet notAvailablePeers) {
 
         // If we are running in RestrictiveMode, we just assign this Block to this Peer and return:
         if (restrictedMode) return true;
@@ -150,13 +294,8 @@ public class BlocksPendingManager {
         // By default, we assign this block to this Peer:
         boolean result = true;
 
-        // If this Block has been assigned to one specific Peer to be downloaded from exclusively, we check if this
-        // is that peer. If its not, then this Block is NOT assigned.
-
-        if (this.blocksPeerExclusivity.containsKey(blockHash)) {
-            result = this.blocksPeerExclusivity.get(blockHash).equals(currentPeer);
-            return result;
-        }
+        // NOTE: The Blocks that can only be downloaded from one specific Peer are not checked here, they are stored in
+        // a separate Queue for that Peer.
 
         // If this block has been assigned a list of Peers to download from with priority, we check:
         // If this Peer is one of the assigned Peers, we assign it (return TRUE).
@@ -166,11 +305,12 @@ public class BlocksPendingManager {
         //   in another call to this method.
         // - If this block has NOT been assigned a list of Priority Peers, we just continue...
 
-        if (this.blocksPeerPriority.containsKey(blockHash)) {
-            if (this.blocksPeerPriority.get(blockHash).contains(currentPeer)) {
+        BitSet priorityPeers = this.blocksPeerPriority.get(blockHash);
+        if (priorityPeers != null) {
+            if (priorityPeers.get(getPeerIndex(currentPeer))) {
                 result = true;
             } else {
-                boolean anyPriorityPeerAvailable = availablePeers.stream().anyMatch(p -> this.blocksPeerPriority.get(blockHash).contains(p));
+                boolean anyPriorityPeerAvailable = priorityPeers.intersects(availablePeers);
                 if (anyPriorityPeerAvailable) {
                     result = false;
                 }
@@ -178,15 +318,17 @@ public class BlocksPendingManager {
             return result;
         }
 
-        // If blocks can be downloaded from ANYONE, we return TRUE right away:
+        // If blocks can be downloaded from ANYONE, we return TRUE right away, unless another available Peer is a much
+        // better fit for the size of this Block:
         if (this.bestMatchCriteria == BlockDownloaderHandlerConfig.BestMatchCriteria.FROM_ANYONE) {
-            return true;
+            return !isBetterPeerAvailable(blockHash, currentPeer, availablePeers, null);
         }
 
         // If Blocks can only be downloaded from those Peers who announced them:
         if (this.bestMatchCriteria == BlockDownloaderHandlerConfig.BestMatchCriteria.FROM_ANNOUNCERS) {
             if (isBlockAnnouncedBy(blockHash, currentPeer)) {
-                result = true; // Announced by this Peer. We assign it
+                // Announced by this Peer. We assign it, unless another available announcer is a much better fit:
+                result = !isBetterPeerAvailable(blockHash, currentPeer, availablePeers, blockAnnouncers.get(blockHash));
             } else if (isBlockAnnouncedBy(blockHash, availablePeers)){
                 result = false; // Announced by OTHER available Peer. WE skip this one (Return false)
             } else if (isBlockAnnouncedBy(blockHash, notAvailablePeers)) {
@@ -203,6 +345,40 @@ public class BlocksPendingManager {
         return result;
     }
 
+    /**
+     * Indicates if any of the candidates is expected to download this Block much faster than the current Peer, based
+     * on their Performance for the size of this Block. Only Blocks whose size is known and are not SMALL are checked:
+     * for the rest the difference is not worth it (and the size of most of the Blocks is unknown until we try them).
+     * A Peer we know nothing about is never considered better than other, and it's always worse than a Peer we know.
+     * If 'onlyFrom' is not null, only the candidates in it are checked.
+     */
+    private boolean isBetterPeerAvailable(String blockHash, PeerAddress currentPeer, BitSet availablePeers, BitSet onlyFrom) {
+        Long blockSize = blocksSize.get(blockHash);
+        BlockPeerPerformance.BlockSizeClass sizeClass = BlockPeerPerformance.BlockSizeClass.of(blockSize);
+        if (sizeClass == BlockPeerPerformance.BlockSizeClass.SMALL || availablePeers.isEmpty()) return false;
+
+        BitSet candidates = availablePeers;
+        if (onlyFrom != null) {
+            candidates = (BitSet) availablePeers.clone();
+            candidates.and(onlyFrom);
+        }
+
+        Optional<Duration> currentTime = getExpectedDownloadTime(currentPeer, sizeClass);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Optional<Duration> candidateTime = getExpectedDownloadTime(peersByIndex.get(i), sizeClass);
+            if (candidateTime.isEmpty()) continue;
+            if (currentTime.isEmpty() || candidateTime.get().multipliedBy(PERFORMANCE_MARGIN).compareTo(currentTime.get()) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Optional<Duration> getExpectedDownloadTime(PeerAddress peerAddress, BlockPeerPerformance.BlockSizeClass sizeClass) {
+        BlockPeerPerformance performance = peersPerformance.apply(peerAddress);
+        return (performance == null) ? Optional.empty() : performance.getExpectedDownloadTime(sizeClass);
+    }
+
     /**
      * Given the currentPeer, it assigns a Block to download from it, from the list of pending Blocks. Since due to the
      * different CRITERIA or ACTION defined this election might be "complex", we also need extra info about what other
@@ -219,37 +395,60 @@ public class BlocksPendingManager {
                                                                              List<PeerAddress> availablePeers,
                                                                              List<PeerAddress> notAvailablePeers) {
 
-        // Default:
-        Optional<String> result = Optional.empty();
+        if (pendingBlocks.isEmpty()) return Optional.empty();
 
-        // If we are in NORMAL Mode, we loop over the "pending" list of Blocks checking for each one if this Peer is a
-        // Best Match. If we are in RESTRICTIVE Mode, we loop instead over the list of ONLY those blocks that have been
-        // tried already...
+        // If we are in NORMAL Mode, we check the Blocks in the Tiers in order, checking for each one if this Peer is a
+        // Best Match. If we are in RESTRICTIVE Mode, we check instead ONLY those blocks that have been tried already.
+        // In both cases, the Blocks that can only be downloaded from this Peer go first.
 
-        List<String> blocksToProcess = (!restrictedMode)
-                ? this.pendingBlocks
-                : this.blocksNumDownloadAttempts.keySet().stream().filter(hash -> pendingBlocks.contains(hash)).collect(Collectors.toList());
+        String result = (restrictedMode)
+                ? findBlockInRestrictedMode(currentPeer)
+                : findBlock(currentPeer, availablePeers, notAvailablePeers);
 
-        if (blocksToProcess.size() > 0) {
-            // We loop over the blocks and return the first one that is suitable (we get its index in the list):
-            OptionalInt blockIndexToReturn = IntStream.range(0, blocksToProcess.size())
-                    .filter(i -> isPeerSuitableForDownload(blocksToProcess.get(i), currentPeer, availablePeers, notAvailablePeers))
-                    .findFirst();
+        // That block is then REMOVED from the "pending" blocks:
+        if (result != null) remove(result);
+        return Optional.ofNullable(result);
+    }
 
-            if (blockIndexToReturn.isPresent()) {
-                result = Optional.of(blocksToProcess.get(blockIndexToReturn.getAsInt()));
+    private String findBlockInRestrictedMode(PeerAddress currentPeer) {
+        Set<String> peerBlocks = exclusiveBlocks.get(currentPeer);
+        if (peerBlocks != null) {
+            for (String blockHash : peerBlocks) {
+                if (blocksNumDownloadAttempts.containsKey(blockHash)) return blockHash;
+            }
+        }
+        for (String blockHash : retryBlocks) {
+            if (blocksNumDownloadAttempts.containsKey(blockHash)) return blockHash;
+        }
+        return null;
+    }
 
-                // That block will then have to be REMOVED from the list of "pending" blocks.
-                //  - If we are in NORMAL Mode, we can remove it quickly by using its INDEX.
-                //  - If we are in RESTRICTIVE mode it might take longer...
+    private String findBlock(PeerAddress currentPeer, List<PeerAddress> availablePeers, List<PeerAddress> notAvailablePeers) {
+
+        // Blocks that can ONLY be downloaded from this Peer:
+        Set<String> peerBlocks = exclusiveBlocks.get(currentPeer);
+        if (peerBlocks != null && !peerBlocks.isEmpty()) return peerBlocks.iterator().next();
+
+        // Blocks this Peer has priority for (we remove those that are no longer pending on the way):
+        Set<String> peerPriorityBlocks = priorityBlocksByPeer.get(currentPeer);
+        if (peerPriorityBlocks != null) {
+            Iterator<String> it = peerPriorityBlocks.iterator();
+            while (it.hasNext()) {
+                String blockHash = it.next();
+                Tier tier = pendingBlocks.get(blockHash);
+                if (tier != null && tier != Tier.EXCLUSIVE) return blockHash;
+                if (tier == null) it.remove();
+            }
+        }
 
-                if (!restrictedMode) {
-                    this.pendingBlocks.remove(blockIndexToReturn.getAsInt()); // remove by Index -> FAST
-                } else {
-                    this.pendingBlocks.remove(result.get()); // remove by Content -> SLOW
-                }
+        // Rest of Blocks, checking the Tiers in order:
+        BitSet availableBitmap = toBitmap(availablePeers);
+        BitSet notAvailableBitmap = toBitmap(notAvailablePeers);
+        for (Set<String> tierBlocks : Arrays.asList(retryBlocks, priorityBlocks, normalBlocks)) {
+            for (String blockHash : tierBlocks) {
+                if (isPeerSuitableForDownload(blockHash, currentPeer, availableBitmap, notAvailableBitmap)) return blockHash;
             }
         }
-        return result;
+        return null;
     }
 }
\ No newline at end of file
@@ -18,7 +18,6 @@ import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
 import io.bitcoinsv.jcl.tools.events.EventQueueProcessor;
 import io.bitcoinsv.jcl.tools.handlers.HandlerImpl;
 import io.bitcoinsv.jcl.net.tools.LoggerUtil;
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
 import io.bitcoinsv.jcl.tools.util.DateTimeUtils;
 import io.bitcoinsv.jcl.tools.util.StringUtils;
 
@@ -93,11 +92,12 @@ public class DiscoveryHandlerImpl extends HandlerImpl<PeerAddress, DiscoveryPeer
         super(id, runtimeConfig);
         this.config = config;
         this.logger = new LoggerUtil(id, HANDLER_ID, this.getClass());
-        this.executor = ThreadUtils.getSingleThreadScheduledExecutorService("JclDiscoveryHandler-Renew");
+        this.executor = runtimeConfig.getExecutionModel().getScheduledLane("JclDiscoveryHandler-Renew");
 
         // We start the EventQueueProcessor. We do not expect many messages (compared to the rest of traffic), so a
         // single Thread will do...
-        this.eventQueueProcessor = new EventQueueProcessor("JclDiscoveryHandler", ThreadUtils.getSingleThreadScheduledExecutorService("JclDiscoveryHandler-EventsConsumers"));
+        this.eventQueueProcessor = new EventQueueProcessor("JclDiscoveryHandler", runtimeConfig.getExecutionModel().getIOLane("JclDiscoveryHandler-EventsConsumers", 1),
+                runtimeConfig.getMetricsRegistry());
     }
 
     @Override
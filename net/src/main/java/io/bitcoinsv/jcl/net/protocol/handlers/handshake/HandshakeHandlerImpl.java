@@ -18,7 +18,6 @@ import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
 import io.bitcoinsv.jcl.tools.events.EventQueueProcessor;
 import io.bitcoinsv.jcl.tools.handlers.HandlerImpl;
 import io.bitcoinsv.jcl.net.tools.LoggerUtil;
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
 
 import java.math.BigInteger;
 import java.util.*;
@@ -70,7 +69,8 @@ public class HandshakeHandlerImpl extends HandlerImpl<PeerAddress, HandshakePeer
 
         // We start the EventQueueProcessor. We do not expect many messages (compared to the rest of traffic), so a
         // single Thread will do...
-        this.eventQueueProcessor = new EventQueueProcessor("JclHandshakeHandler", ThreadUtils.getSingleThreadScheduledExecutorService("JclHandshakeHandler-EventsConsumers"));
+        this.eventQueueProcessor = new EventQueueProcessor("JclHandshakeHandler", runtimeConfig.getExecutionModel().getIOLane("JclHandshakeHandler-EventsConsumers", 1),
+                runtimeConfig.getMetricsRegistry());
     }
 
     // We register this Handler to LISTEN to these Events:
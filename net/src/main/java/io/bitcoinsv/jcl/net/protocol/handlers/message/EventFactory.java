@@ -40,6 +40,7 @@ public class EventFactory {
         else if (body instanceof HeadersMsg)            result = new HeadersMsgReceivedEvent(peerAddress, (BitcoinMsg<HeadersMsg>) btcMsg);
         else if (body instanceof MemPoolMsg)            result = new MempoolMsgReceivedEvent(peerAddress, (BitcoinMsg<MemPoolMsg>) btcMsg);
         else if (body instanceof GetHeadersEnMsg)       result = new GetHeadersEnMsgReceivedEvent(peerAddress, (BitcoinMsg<GetHeadersEnMsg>) btcMsg);
+        else if (body instanceof HeadersEnMsg)          result = new HeadersEnMsgReceivedEvent(peerAddress, (BitcoinMsg<HeadersEnMsg>) btcMsg);
         else if (body instanceof PartialBlockHeaderMsg) result = new BlockHeaderDownloadedEvent(peerAddress, (BitcoinMsg<PartialBlockHeaderMsg>) btcMsg);
         else if (body instanceof PartialBlockTXsMsg)    result = new BlockTXsDownloadedEvent(peerAddress, (BitcoinMsg<PartialBlockTXsMsg>) btcMsg);
         else if (body instanceof PartialBlockRawTxMsg)  result = new BlockRawTXsDownloadedEvent(peerAddress, (BitcoinMsg<PartialBlockRawTxMsg>) btcMsg);
@@ -2,11 +2,13 @@ package io.bitcoinsv.jcl.net.protocol.handlers.message;
 
 import io.bitcoinsv.jcl.net.protocol.events.data.*;
 import io.bitcoinsv.jcl.net.protocol.events.data.*;
+import io.bitcoinsv.jcl.tools.thread.TimerWheel;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * @author i.fernandez@nchain.com
@@ -37,6 +39,9 @@ class MessageBatchManager<E extends MsgReceivedEvent> {
     private int currentEventsSize = 0;
     private Instant timestamp = Instant.now();
 
+    // Deadline registered to flush this Batch in case it becomes inactive (null if none is pending):
+    private TimerWheel.Timeout flushDeadline;
+
     /** Constructor. It assigns the MessagesBatch config */
     public MessageBatchManager(Class<E> msgClass, MessageBatchConfig config) {
         this.msgClass = msgClass;
@@ -79,6 +84,27 @@ class MessageBatchManager<E extends MsgReceivedEvent> {
         else return Optional.empty();
     }
 
+    /**
+     * It registers a Deadline to flush this Batch, as long as there are Events in it and no other Deadline is
+     * pending already.
+     */
+    public synchronized void scheduleFlushIfAbsent(Supplier<TimerWheel.Timeout> deadlineSupplier) {
+        if (flushDeadline == null && !events.isEmpty()) {
+            flushDeadline = deadlineSupplier.get();
+        }
+    }
+
+    /** It removes the reference to the Deadline, which has just expired */
+    public synchronized void clearFlushDeadline() {
+        this.flushDeadline = null;
+    }
+
+    /** It cancels the Deadline to flush this Batch, if any */
+    public synchronized void cancelFlushDeadline() {
+        if (flushDeadline != null) flushDeadline.cancel();
+        this.flushDeadline = null;
+    }
+
     /** Extract a Batch and clears up the internal, making it ready for accepting new Events */
     public synchronized Optional<MsgReceivedBatchEvent<E>> extractBatchAndReset() {
         if (this.events.isEmpty()) return Optional.empty();
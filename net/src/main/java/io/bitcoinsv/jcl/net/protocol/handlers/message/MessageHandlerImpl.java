@@ -26,7 +26,7 @@ import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
 import io.bitcoinsv.jcl.tools.events.Event;
 import io.bitcoinsv.jcl.tools.handlers.HandlerImpl;
 import io.bitcoinsv.jcl.net.tools.LoggerUtil;
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
+import io.bitcoinsv.jcl.tools.thread.TimerWheel;
 
 import java.math.BigInteger;
 import java.time.Duration;
@@ -62,9 +62,14 @@ public class MessageHandlerImpl extends HandlerImpl<PeerAddress, MessagePeerInfo
     // communication with the rest of the peers:
     private ExecutorService dedicateConnsExecutor;
 
-    // This executor will take care of monitoring th batches of messages that are being stored in the background
-    // adn it will push them down he pipeline if the timeout is reached.
-    private ExecutorService msgBatchesExecutor;
+    // The batches of messages that are being stored in the background are pushed down the pipeline if they've been
+    // inactive for longer than this timeout. A Deadline is registered in the Timer Wheel for that:
+    private static final Duration BATCH_INACTIVITY_TIMEOUT = Duration.ofMillis(2000);
+    private TimerWheel timerWheel;
+    private ExecutorService deadlinesExecutor;
+
+    // If FALSE, the Deadlines expired are ignored (the Handler has not started yet or it's been stopped):
+    private volatile boolean running;
 
     //This executor will take care of the broadcasting of messages. If we're streaming a large block to a peer, then we don't
     //want to block other messages from being sent while we wait for the large block to be sent
@@ -86,14 +91,18 @@ public class MessageHandlerImpl extends HandlerImpl<PeerAddress, MessagePeerInfo
         if (config.isRawTxsEnabled()) {
             MsgSerializersFactory.enableRawSerializers();
         }
-        this.msgBatchesExecutor = ThreadUtils.getSingleThreadExecutorService("JclMessageHandler-Job");
-        // The Executor responsible for the deserialization of large messages is a cached one, so Threads are created
-        // as we need. For a Stream to be able to use a dedicated Thread, its "realTimeProcessingEnabled" property
-        // must be set to TRUE.
-        this.dedicateConnsExecutor = ThreadUtils.getCachedThreadExecutorService("JclDeserializer");
-        //this.dedicateConnsExecutor = Executors.newCachedThreadPool(ThreadUtils.getThreadFactory("jclDeserializer", Thread.MAX_PRIORITY, true));
-
-        broadcastExecutor = ThreadUtils.getCachedThreadExecutorService("jclBroadcaster", 4);
+        this.timerWheel = TimerWheel.getInstance();
+        this.deadlinesExecutor = runtimeConfig.getExecutionModel().getIOLane("JclMessageHandler-Deadlines");
+        // The Executor responsible for the deserialization of large messages takes its Threads from the Long-Running
+        // Lane, since the deserialization blocks waiting for the bytes to arrive, for as long as the message takes to
+        // download. Taking them from the IO Lane would starve the rest of Tasks there (Event Bus, Ping/Pong, etc).
+        // For a Stream to be able to use a dedicated Thread, its "realTimeProcessingEnabled" property must be TRUE.
+        // Each Peer might be sending a large message at the same time, so the Lane grows up to the max number of Peers:
+        this.dedicateConnsExecutor = runtimeConfig.getExecutionModel()
+                .getLongRunningLane("JclDeserializer", config.getBasicConfig().getMaxPeers().orElse(0));
+
+        // Broadcasting is mostly serialization work, so it runs in the CPU Lane:
+        broadcastExecutor = runtimeConfig.getExecutionModel().getCPULane("JclBroadcaster");
 
         // If some Batch Config has been specified, we instantiate the classes to keep track of their state:
         this.config.getMsgBatchConfigs().entrySet().forEach(entry -> msgsBatchManagers.put(entry.getKey(), new MessageBatchManager(entry.getKey(), entry.getValue())));
@@ -132,12 +141,14 @@ public class MessageHandlerImpl extends HandlerImpl<PeerAddress, MessagePeerInfo
     // Event Handler:
     private void onNetStart(NetStartEvent event) {
         logger.trace("Starting...");
-        this.msgBatchesExecutor.submit(this::checkPendingBatchesToBroadcast);
+        this.running = true;
+        msgsBatchManagers.values().forEach(this::scheduleBatchFlush);
     }
 
     // Event Handler:
     private void onNetStop(NetStopEvent event) {
-        this.msgBatchesExecutor.shutdownNow();
+        this.running = false;
+        msgsBatchManagers.values().forEach(MessageBatchManager::cancelFlushDeadline);
         logger.trace("Stop.");
     }
 
@@ -235,6 +246,7 @@ public class MessageHandlerImpl extends HandlerImpl<PeerAddress, MessagePeerInfo
             MessageBatchManager batchManager = this.msgsBatchManagers.get(event.getClass());
             if (batchManager != null) {
                 publishBatchMessageToEventBus(batchManager.addEventAndExtractBatch(event));
+                scheduleBatchFlush(batchManager);
             } else {
                 publishMessageToEventBus(event);
             }
@@ -520,22 +532,23 @@ public class MessageHandlerImpl extends HandlerImpl<PeerAddress, MessagePeerInfo
         });
     }
 
-    private void checkPendingBatchesToBroadcast() {
-        final Duration TIMEOUT = Duration.ofMillis(2000);
-        try {
-            while (true) {
-                // we only process those Batches that are clearly inactive:
-                msgsBatchManagers.values().stream()
-                        .forEach(batch -> {
-                            if (Duration.between(batch.getTimestamp(), Instant.now()).compareTo(TIMEOUT) > 0) {
-                                publishBatchMessageToEventBus(batch.extractBatchAndReset());
-                            }
-                });
-                Thread.sleep(TIMEOUT.toMillis());
-            }
-        } catch (InterruptedException ie) {
-            logger.error(ie.getMessage(), ie);
-            throw new RuntimeException(ie);
+    // It registers a Deadline to flush the Batch given once it's been inactive for longer than the timeout. Only one
+    // Deadline is pending for each Batch at any time, and only if the Batch contains Events:
+    private void scheduleBatchFlush(MessageBatchManager batchManager) {
+        if (!running) return;
+        Duration inactivity = Duration.between(batchManager.getTimestamp(), Instant.now());
+        Duration delay = BATCH_INACTIVITY_TIMEOUT.minus(inactivity);
+        batchManager.scheduleFlushIfAbsent(() -> timerWheel.schedule(() -> flushBatchIfInactive(batchManager), delay, deadlinesExecutor));
+    }
+
+    // Triggered when the Deadline of a Batch expires. We only flush those Batches that are clearly inactive, the rest
+    // are checked again later:
+    private void flushBatchIfInactive(MessageBatchManager batchManager) {
+        batchManager.clearFlushDeadline();
+        if (!running) return;
+        if (Duration.between(batchManager.getTimestamp(), Instant.now()).compareTo(BATCH_INACTIVITY_TIMEOUT) > 0) {
+            publishBatchMessageToEventBus(batchManager.extractBatchAndReset());
         }
+        scheduleBatchFlush(batchManager);
     }
 }
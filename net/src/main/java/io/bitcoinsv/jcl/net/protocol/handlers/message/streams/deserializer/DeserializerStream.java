@@ -21,6 +21,9 @@ import io.bitcoinsv.jcl.tools.bytes.ByteArrayConfig;
 import io.bitcoinsv.jcl.tools.bytes.ByteArrayReader;
 import io.bitcoinsv.jcl.tools.bytes.ByteArrayWriter;
 import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
+import io.bitcoinsv.jcl.tools.jfr.MessageDeserializedEvent;
+import io.bitcoinsv.jcl.tools.jfr.MessageFramedEvent;
+import io.bitcoinsv.jcl.tools.metrics.MetricsRegistry;
 import io.bitcoinsv.jcl.net.tools.LoggerUtil;
 
 import java.io.UnsupportedEncodingException;
@@ -114,6 +117,9 @@ public class DeserializerStream extends PeerInputStreamImpl<ByteArrayReader, Mes
 
     private StreamDataEvent<ByteArrayReader> currentStreamDataEvent;
 
+    // Metrics, broken down by message type:
+    private MetricsRegistry metrics;
+
     /** Constructor */
     public DeserializerStream(ExecutorService eventBusExecutor,
                               PeerInputStream<ByteArrayReader> source,
@@ -134,6 +140,7 @@ public class DeserializerStream extends PeerInputStreamImpl<ByteArrayReader, Mes
 
         // We initialize the Deserializer
         this.deserializer = deserializer;
+        this.metrics = runtimeConfig.getMetricsRegistry();
 
         // logger:
         this.logger = (parentLogger == null)
@@ -323,7 +330,12 @@ public class DeserializerStream extends PeerInputStreamImpl<ByteArrayReader, Mes
                     stateAfterOK.set(stateResult);
                 };
                 // And then we call the Deserializer...
+                long deserializeStart = metrics.startTimer();
+                MessageDeserializedEvent jfrEvent = new MessageDeserializedEvent();
+                jfrEvent.begin();
                 deserializer.deserializeLarge(headerMsg, desContext, byteReader, onErrorHandler, onPartDeserializedHandler);
+                metrics.histogram("msg.deserialize", headerMsg.getMsgCommand()).recordSince(deserializeStart);
+                commitJfrEvent(jfrEvent, headerMsg, true);
 
             } else {
                 // This a normal (not-realTime) Deserialization. Art this moment, we also triggered a BytesReceivedEvent,
@@ -344,7 +356,12 @@ public class DeserializerStream extends PeerInputStreamImpl<ByteArrayReader, Mes
                 }
                 // The whole message is deserialized
                 //System.out.println("Deserializing regular message, length: " + headerMsg);
+                long deserializeStart = metrics.startTimer();
+                MessageDeserializedEvent jfrEvent = new MessageDeserializedEvent();
+                jfrEvent.begin();
                 BodyMessage bodyMsg = deserializer.deserialize(headerMsg, desContext, byteReader);
+                metrics.histogram("msg.deserialize", headerMsg.getMsgCommand()).recordSince(deserializeStart);
+                commitJfrEvent(jfrEvent, headerMsg, false);
                 BitcoinMsg<?> bitcoinMsg = new BitcoinMsg<>(headerMsg, bodyMsg);
                 // We notify it...
                 DeserializerStreamState stateResult = this.processOK(isThisADedicatedThread, bitcoinMsg, state);
@@ -379,6 +396,17 @@ public class DeserializerStream extends PeerInputStreamImpl<ByteArrayReader, Mes
         }
     }
 
+    // It records the JFR Event for a Message deserialized, if enabled:
+    private void commitJfrEvent(MessageDeserializedEvent jfrEvent, HeaderMsg headerMsg, boolean realTime) {
+        if (jfrEvent.shouldCommit()) {
+            jfrEvent.peer = peerAddress.toString();
+            jfrEvent.command = headerMsg.getMsgCommand();
+            jfrEvent.size = headerMsg.getMsgLength();
+            jfrEvent.realTime = realTime;
+            jfrEvent.commit();
+        }
+    }
+
     // It check is the content of the buffer contains a complete header.
     // The length of a Header might be different depending on whether its a REGULAR header (24 bytes) or an
     // EXTENDED one (44 bytes). And the type of the header depends on the COMMAND field
@@ -430,7 +458,19 @@ public class DeserializerStream extends PeerInputStreamImpl<ByteArrayReader, Mes
                     .build();
             ByteArrayReader byteReader = new ByteArrayReader(buffer);
             //log(isThisADedicatedThread, "Reading Header : " + HEX.encode(byteReader.get()));
+            long headerStart = metrics.startTimer();
+            MessageFramedEvent jfrEvent = new MessageFramedEvent();
+            jfrEvent.begin();
             HeaderMsg headerMsg = HeaderMsgSerializer.getInstance().deserialize(desContext, byteReader);
+            if (jfrEvent.shouldCommit()) {
+                jfrEvent.peer = peerAddress.toString();
+                jfrEvent.command = headerMsg.getMsgCommand();
+                jfrEvent.size = headerMsg.getMsgLength();
+                jfrEvent.commit();
+            }
+            metrics.histogram("msg.headerParse", headerMsg.getMsgCommand()).recordSince(headerStart);
+            metrics.counter("msg.count", headerMsg.getMsgCommand()).inc();
+            metrics.counter("msg.bytes", headerMsg.getMsgCommand()).add(headerMsg.getMsgLength());
 
             // Now we need to figure out if this incoming Message is one we need to Deserialize, or just Ignore, and that
             // depends on whether we have a Serializer Implementation for it...
@@ -21,7 +21,7 @@ import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
 import io.bitcoinsv.jcl.tools.events.EventQueueProcessor;
 import io.bitcoinsv.jcl.tools.handlers.HandlerImpl;
 import io.bitcoinsv.jcl.net.tools.LoggerUtil;
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
+import io.bitcoinsv.jcl.tools.thread.TimerWheel;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -36,6 +36,9 @@ import java.util.concurrent.ExecutorService;
  * for a period of time longer than the threshold secifie din the P2P Configuration. The Ping/Pong protocol can
  * also be disabled, in case we assume that the remote Peer is gonna be very busy in the future (for example, if we
  * are downloading a block from it), and we dont want to overload it with replying to our Ping messages.
+ *
+ * Instead of looping over all the Peers, each Peer has a Deadline registered in the shared {@link TimerWheel}, and
+ * the Peer is only checked when that Deadline expires.
  */
 public class PingPongHandlerImpl extends HandlerImpl<PeerAddress, PingPongPeerInfo> implements PingPongHandler {
 
@@ -48,8 +51,12 @@ public class PingPongHandlerImpl extends HandlerImpl<PeerAddress, PingPongPeerIn
     // State of this Handler
     private PingPongHandlerState state = PingPongHandlerState.builder().build();
 
-    // An Executor, to trigger the "handlePingPongJob" in a different Thread:
-    private ExecutorService executor;
+    // Timer Wheel used to schedule the Deadlines to check each Peer, and the Executor (IO Lane) they run in:
+    private TimerWheel timerWheel;
+    private ExecutorService deadlinesExecutor;
+
+    // If FALSE, the Deadlines expired are ignored (the Handler has not started yet or it's been stopped):
+    private volatile boolean running;
 
     // The Events captured by this Handler will  e processed in a separate Thread/s, by an EventQueueProcessor, this
     // way we won't slow down the rate at which the eVents are published and processed in the Bus
@@ -60,11 +67,13 @@ public class PingPongHandlerImpl extends HandlerImpl<PeerAddress, PingPongPeerIn
         super(id, runtimeConfig);
         this.config = config;
         this.logger = new LoggerUtil(id, HANDLER_ID, this.getClass());
-        this.executor = ThreadUtils.getSingleThreadScheduledExecutorService("JclPingPongHandler");
+        this.timerWheel = TimerWheel.getInstance();
+        this.deadlinesExecutor = runtimeConfig.getExecutionModel().getIOLane("JclPingPongHandler-Deadlines");
 
         // We start the EventQueueProcessor. We do not expect many messages (compared to the rest of traffic), so a
         // single Thread will do...
-        this.eventQueueProcessor = new EventQueueProcessor("JclPingPongHandler", ThreadUtils.getFixedThreadExecutorService("JclPingPongHandler-EventsConsumers", 3));
+        this.eventQueueProcessor = new EventQueueProcessor("JclPingPongHandler", runtimeConfig.getExecutionModel().getIOLane("JclPingPongHandler-EventsConsumers", 3),
+                runtimeConfig.getMetricsRegistry());
     }
 
     // We register this Handler to LISTEN to these Events:
@@ -107,30 +116,39 @@ public class PingPongHandlerImpl extends HandlerImpl<PeerAddress, PingPongPeerIn
         PingPongPeerInfo peerInfo = getOrWaitForHandlerInfo(peerAddress);
         if(peerInfo != null) {
             peerInfo.enablePingPong();
+            scheduleCheck(peerInfo, config.getInactivityTimeout());
         }
     }
 
     // Event Handler
     public void onStart(NetStartEvent event) {
         logger.trace("Starting...");
-        this.executor.submit(this::handlePingPongJob);
+        this.running = true;
+        // In case some Peers were registered before starting, we schedule their first check:
+        handlerInfo.values().forEach(p -> scheduleCheck(p, config.getInactivityTimeout()));
     }
 
     // Event Handler
     public void onStop(NetStopEvent event) {
-        this.executor.shutdownNow();
+        this.running = false;
+        handlerInfo.values().forEach(PingPongPeerInfo::cancelNextCheck);
         this.eventQueueProcessor.stop();
         logger.trace("Stop.");
     }
 
     // Event Handler:
     public void onPeerHandshaked(PeerHandshakedEvent event) {
-        handlerInfo.put(event.getPeerAddress(), new PingPongPeerInfo(event.getPeerAddress()));
+        PingPongPeerInfo peerInfo = new PingPongPeerInfo(event.getPeerAddress());
+        handlerInfo.put(event.getPeerAddress(), peerInfo);
+        scheduleCheck(peerInfo, config.getInactivityTimeout());
     }
 
     // Event Handler:
     public void onPeerDisconnected(PeerDisconnectedEvent event) {
-        handlerInfo.remove(event.getPeerAddress());
+        PingPongPeerInfo peerInfo = handlerInfo.remove(event.getPeerAddress());
+        if (peerInfo != null) {
+            peerInfo.cancelNextCheck();
+        }
     }
 
 
@@ -188,6 +206,7 @@ public class PingPongHandlerImpl extends HandlerImpl<PeerAddress, PingPongPeerIn
         logger.debug(peerInfo.getPeerAddress(), "PONG Received within time limit.");
         updateState(1);
         peerInfo.reset();
+        scheduleCheck(peerInfo, config.getInactivityTimeout());
     }
 
     /**
@@ -202,8 +221,9 @@ public class PingPongHandlerImpl extends HandlerImpl<PeerAddress, PingPongPeerIn
         BitcoinMsg<PingMsg> btcPingMsg = new BitcoinMsgBuilder<>(config.getBasicConfig(), pingMsg).build();
         super.eventBus.publish(new SendMsgRequest(peerInfo.getPeerAddress(), btcPingMsg));
 
-        // We update this Peer Info:
+        // We update this Peer Info, and we check back once the time to reply is over:
         peerInfo.updatePingStarted(pingMsg);
+        scheduleCheck(peerInfo, config.getResponseTimeout());
     }
 
     /**
@@ -214,6 +234,7 @@ public class PingPongHandlerImpl extends HandlerImpl<PeerAddress, PingPongPeerIn
         // We request a Disconnection
         super.eventBus.publish(new DisconnectPeerRequest(peerInfo.getPeerAddress()));
         // We remove this Peer
+        peerInfo.cancelNextCheck();
         handlerInfo.remove(peerInfo.getPeerAddress());
         // We propagate the event
         super.eventBus.publish(new PingPongFailedEvent(peerInfo.getPeerAddress(), reason));
@@ -226,42 +247,51 @@ public class PingPongHandlerImpl extends HandlerImpl<PeerAddress, PingPongPeerIn
                 .build();
     }
 
+    /** It registers a Deadline in the Timer Wheel to check the Peer given once the delay has passed */
+    private void scheduleCheck(PingPongPeerInfo peerInfo, Duration delay) {
+        peerInfo.updateNextCheck(timerWheel.schedule(() -> checkPeer(peerInfo), delay, deadlinesExecutor));
+    }
+
     /**
-     * This metod implements the Job that is running in a separate Thread and takes care of looking into
-     * the Peers we have registered, to check if we should startTime the Ping-Pong connection on them, or just
-     * discard them if the connection has failed (due to a timeout, etc)
+     * This method is triggered when the Deadline of a Peer expires. It checks if we should start the Ping-Pong
+     * connection on it, or just discard it if the connection has failed (due to a timeout, etc). If no action is
+     * needed yet (there has been activity since the Deadline was scheduled), a new Deadline is registered for the
+     * remaining time.
      */
-    private void handlePingPongJob() {
+    private void checkPeer(PingPongPeerInfo peerInfo) {
         try {
-            // First loop level: This job runs forever...
-            while (true) {
-                // Second loop level: We loop over all our registered peers
-                for (PingPongPeerInfo peerInfo : handlerInfo.values()) {
-                    //logger.trace("Checking pending ping for " + peerInfo.getPeerAddress() + "...");
-                    if (!peerInfo.isPingPongDisabled()) {
-                        boolean pingSent = peerInfo.getTimePingSent() != null;
-                        Instant now = Instant.now();
-                        // If we have sent a PING, we check that the time we've been waiting for
-                        // the response is still within limits:
-                        if (pingSent && Duration.between(peerInfo.getTimePingSent(), now).compareTo(config.getResponseTimeout()) > 0) {
-                            failPingPon(peerInfo, PingPongFailedEvent.PingPongFailedReason.TIMEOUT);
-                            continue;
-                        }
-
-                        // If we haven't sent a PING yet, we check if it's time to send it:
-                        if (!pingSent && (Duration.between(peerInfo.getTimeLastActivity(), now).compareTo(config.getInactivityTimeout()) > 0)) {
-                            this.startPingPong(peerInfo);
-                            continue;
-                        }
-                    } // else logger.trace(peerInfo.getPeerAddress() + ", pingPong disabled.");
-
-                } // for...
-                Thread.sleep(1000); // We wait for a while between different executions of this job
-
-            } // While...
-        } catch (InterruptedException ie) {
-            // In case of an interrupted exception we do nothing, since this will be caused most probably by this
-            // handlers stopping (when it stops, it kills all the Threads it launched).
+            // If the Handler is stopped or the Peer is no longer registered, we do nothing:
+            if (!running || handlerInfo.get(peerInfo.getPeerAddress()) != peerInfo) return;
+
+            // If Ping/Pong is disabled for this Peer, we'll check again later:
+            if (peerInfo.isPingPongDisabled()) {
+                scheduleCheck(peerInfo, config.getInactivityTimeout());
+                return;
+            }
+
+            Instant now = Instant.now();
+            Instant timePingSent = peerInfo.getTimePingSent();
+
+            if (timePingSent != null) {
+                // If we have sent a PING, we check that the time we've been waiting for the response is still
+                // within limits:
+                Duration waiting = Duration.between(timePingSent, now);
+                if (waiting.compareTo(config.getResponseTimeout()) > 0) {
+                    failPingPon(peerInfo, PingPongFailedEvent.PingPongFailedReason.TIMEOUT);
+                } else {
+                    scheduleCheck(peerInfo, config.getResponseTimeout().minus(waiting));
+                }
+            } else {
+                // If we haven't sent a PING yet, we check if it's time to send it:
+                Duration inactivity = Duration.between(peerInfo.getTimeLastActivity(), now);
+                if (inactivity.compareTo(config.getInactivityTimeout()) > 0) {
+                    this.startPingPong(peerInfo);
+                } else {
+                    scheduleCheck(peerInfo, config.getInactivityTimeout().minus(inactivity));
+                }
+            }
+        } catch (Exception e) {
+            logger.error(e, "Error checking Ping/Pong for Peer " + peerInfo.getPeerAddress());
         }
     }
 
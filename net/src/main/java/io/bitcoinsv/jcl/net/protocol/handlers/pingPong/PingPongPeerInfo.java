@@ -2,6 +2,7 @@ package io.bitcoinsv.jcl.net.protocol.handlers.pingPong;
 
 import io.bitcoinsv.jcl.net.network.PeerAddress;
 import io.bitcoinsv.jcl.net.protocol.messages.PingMsg;
+import io.bitcoinsv.jcl.tools.thread.TimerWheel;
 
 import java.time.Instant;
 
@@ -23,6 +24,9 @@ public class PingPongPeerInfo {
     // messages from this Peer will be processed, but no verification on timeouts will be made.
     private boolean pingPongDisabled;
 
+    // Next Deadline scheduled to check this Peer (either the inactivity or the Pong response timeout):
+    private TimerWheel.Timeout nextCheck;
+
     /** Constructor */
     public PingPongPeerInfo(PeerAddress peerAddress) {
         this.peerAddress = peerAddress;
@@ -55,6 +59,17 @@ public class PingPongPeerInfo {
         reset();
     }
 
+    /** Replaces the Deadline scheduled for this Peer, cancelling the previous one if any */
+    public synchronized void updateNextCheck(TimerWheel.Timeout nextCheck) {
+        if (this.nextCheck != null) this.nextCheck.cancel();
+        this.nextCheck = nextCheck;
+    }
+
+    /** Cancels the Deadline scheduled for this Peer, if any */
+    public synchronized void cancelNextCheck() {
+        updateNextCheck(null);
+    }
+
     public PeerAddress getPeerAddress()     { return this.peerAddress; }
     public Instant getTimeLastActivity()    { return this.timeLastActivity; }
     public Instant getTimePingSent()        { return this.timePingSent; }
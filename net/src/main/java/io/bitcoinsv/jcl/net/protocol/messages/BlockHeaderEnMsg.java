@@ -2,6 +2,10 @@ package io.bitcoinsv.jcl.net.protocol.messages;
 
 import com.google.common.base.Objects;
 import io.bitcoinsv.jcl.net.protocol.messages.common.Message;
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.AbstractBlock;
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly;
+import io.bitcoinsv.bitcoinjsv.bitcoin.bean.base.HeaderBean;
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash;
 
 import java.io.Serializable;
 import java.util.List;
@@ -115,6 +119,25 @@ public final class BlockHeaderEnMsg extends Message implements Serializable {
     public TxMsg getCoinbaseTX()                    { return this.coinbaseTX; }
     public HashMsg getHash()                        { return this.hash; }
 
+    /**
+     * Returns a Domain Class. The hashes in this message are already in human-readable format
+     */
+    public HeaderReadOnly toBean() {
+        HeaderBean result = new HeaderBean((AbstractBlock) null);
+
+        result.setTime(this.creationTimestamp);
+        result.setDifficultyTarget(this.nBits);
+        result.setNonce(this.nonce);
+        result.setPrevBlockHash(Sha256Hash.wrap(this.prevBlockHash.getHashBytes()));
+        result.setVersion(this.version);
+        result.setMerkleRoot(Sha256Hash.wrap(this.merkleRoot.getHashBytes()));
+        if (this.hash != null) {
+            result.setHash(Sha256Hash.wrap(this.hash.getHashBytes()));
+        }
+
+        return result;
+    }
+
     public String toString() {
         return "BlockHeaderEnMsg(version=" + this.getVersion() + ", prevBlockHash=" + this.getPrevBlockHash() + ", merkleRoot=" + this.getMerkleRoot() + ", creationTimestamp=" + this.getCreationTimestamp() + ", nBits=" + this.getNBits() + ", nonce=" + this.getNonce() + ", transactionCount=" + this.getTransactionCount() + ", noMoreHeaders=" + this.isNoMoreHeaders() + ", hasCoinbaseData=" + this.isHasCoinbaseData() + ", coinbaseMerkleProof=" + this.getCoinbaseMerkleProof() + ", coinbase=" + this.getCoinbase() + ", coinbaseTX=" + this.getCoinbaseTX() + ", hash=" + this.getHash() + ")";
     }
@@ -21,7 +21,8 @@ import io.bitcoinsv.jcl.tools.config.provided.RuntimeConfigDefault;
 import io.bitcoinsv.jcl.tools.events.EventBus;
 import io.bitcoinsv.jcl.tools.handlers.Handler;
 import io.bitcoinsv.jcl.net.tools.LoggerUtil;
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
+import io.bitcoinsv.jcl.tools.metrics.MetricsSnapshot;
+import io.bitcoinsv.jcl.tools.thread.ExecutionModelState;
 
 import java.time.Duration;
 import java.util.*;
@@ -83,23 +84,25 @@ public class P2P {
             this.networkConfig = networkConfig;
             this.protocolConfig = protocolConfig;
 
-            // We initialize the EventBuses...
-            ExecutorService executor = (runtimeConfig.useCachedThreadPoolForP2P())
-                    ? ThreadUtils.getCachedThreadExecutorService("JclEventBus", runtimeConfig.getMaxNumThreadsForP2P())
-                    : ThreadUtils.getFixedThreadExecutorService("JclEventBus", runtimeConfig.getMaxNumThreadsForP2P());
+            // We initialize the EventBuses. Their Threads are taken from the Execution Model: The Events callbacks
+            // might block, so they run in the IO Lane...
+            ExecutorService executor = runtimeConfig.getExecutionModel().getIOLane("JclEventBus");
 
             // EventBus for the Internal Handles within the P2P Service:
             this.eventBus = EventBus.builder()
                     .executor(executor)
+                    .metrics(runtimeConfig.getMetricsRegistry(), "eventBus")
                     .build();
 
-            // EventBus for Handlers State Publishing:
+            // EventBus for Handlers State Publishing. It runs in the Scheduled Lane, so it's not affected by the load
+            // in the IO Lane:
             this.stateEventBus = EventBus.builder()
-                    .executor(ThreadUtils.getFixedThreadExecutorService("JclStateEventBus", 2))
+                    .executor(runtimeConfig.getExecutionModel().getScheduledLane("JclStateEventBus"))
+                    .metrics(runtimeConfig.getMetricsRegistry(), "stateEventBus")
                     .build();
 
             // Event Streamer:
-            EVENTS = new P2PEventStreamer(this.eventBus, this.stateEventBus);
+            EVENTS = new P2PEventStreamer(this.eventBus, this.stateEventBus, runtimeConfig.useVirtualThreadsForBlockingTasks());
 
             // Requests Handlers:
             REQUESTS = new P2PRequestHandler(this.eventBus);
@@ -135,7 +138,7 @@ public class P2P {
             // State notification...
 
             if (stateRefreshFrequencies != null && stateRefreshFrequencies.size() > 0) {
-                this.executor = ThreadUtils.getSingleThreadScheduledExecutorService(id + "-HandlerStatusRefresh");
+                this.executor = runtimeConfig.getExecutionModel().getScheduledLane(id + "-HandlerStatusRefresh");
                 for (Handler handler : handlers.values()) {
                     if (stateRefreshFrequencies.keySet().contains(handler.getId())) {
                         Duration frequency = stateRefreshFrequencies.get(handler.getId());
@@ -156,7 +159,14 @@ public class P2P {
                 String maxPeersStr = protocolConfig.getBasicConfig().getMaxPeers().isEmpty() ? "?)" :  protocolConfig.getBasicConfig().getMaxPeers().getAsInt() + "]";
                 logger.info(" - peers range: " + minPeersStr + " - " + maxPeersStr);
             }
-            logger.info("Thread Pool used: " + (runtimeConfig.useCachedThreadPoolForP2P()? "Cached" : "Fixed") + ", MaxThreads: " + runtimeConfig.getMaxNumThreadsForP2P());
+            logger.info("Thread Pool used: " + (runtimeConfig.useCachedThreadPoolForP2P()? "Cached" : "Fixed") + ", MaxThreads: " + runtimeConfig.getMaxNumThreadsForP2P()
+                    + ", CPU Threads: " + runtimeConfig.getNumThreadsForCPULane()
+                    + ", Scheduled Threads: " + runtimeConfig.getNumThreadsForScheduledLane()
+                    + ", Virtual IO Threads: " + runtimeConfig.getExecutionModel().isVirtualIOThreads());
+            logger.info("Metrics: " + (runtimeConfig.isMetricsEnabled() ? "enabled" : "disabled"));
+
+            // If enabled, the Metrics are also published through JMX:
+            runtimeConfig.getMetricsRegistry().registerMBean();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -185,6 +195,7 @@ public class P2P {
         if (handler == null) throw new RuntimeException("No Network Handler Found. Impossible to Stop without it...");
         handler.stop();
         if (this.executor != null) this.executor.shutdownNow();
+        runtimeConfig.getMetricsRegistry().unregisterMBean();
         logger.info("Stop.");
     }
 
@@ -227,6 +238,19 @@ public class P2P {
     public ProtocolConfig getProtocolConfig()   { return this.protocolConfig; }
     public EventBus getEventBus()               { return this.eventBus;}
 
+    /** Returns the State of the Execution Model (Threads and utilization of each Lane) used by this P2P Service */
+    public ExecutionModelState getExecutionModelState() {
+        return runtimeConfig.getExecutionModel().getState();
+    }
+
+    /**
+     * Returns the values of the Metrics collected so far (bytes read, deserialization time, EventBus and Handlers
+     * times, etc). The Metrics must be enabled in the RuntimeConfig, otherwise the Snapshot is empty.
+     */
+    public MetricsSnapshot getMetricsSnapshot() {
+        return runtimeConfig.getMetricsRegistry().getSnapshot();
+    }
+
     // Returns all active connections (for debug and other purposes)
     public Map<PeerAddress, NIOStream> getActiveConnections() {
         NetworkHandler handler = (NetworkHandler) handlers.get(NetworkHandlerImpl.HANDLER_ID);
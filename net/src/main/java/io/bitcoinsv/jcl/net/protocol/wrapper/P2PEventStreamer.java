@@ -52,6 +52,9 @@ public class P2PEventStreamer {
     // An specific Bus for the Handler State Events:
     private EventBus stateEventBus;
 
+    // If TRUE, the callbacks are run in Virtual Threads (only if supported by the JVM):
+    private boolean useVirtualThreads;
+
     /** Base class for the Event Streamers */
     public class BaseEventStreamer {
         protected int numThreads;
@@ -63,8 +66,8 @@ public class P2PEventStreamer {
      */
     public class GeneralEventStreamer extends BaseEventStreamer {
         public GeneralEventStreamer(int numThreads) { super(numThreads);}
-        public final EventStreamer<NetStartEvent> START   = new EventStreamer<>(eventBus, NetStartEvent.class, numThreads);
-        public final EventStreamer<NetStopEvent>  STOP    = new EventStreamer<>(eventBus, NetStopEvent.class, numThreads);
+        public final EventStreamer<NetStartEvent> START   = new EventStreamer<>(eventBus, NetStartEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<NetStopEvent>  STOP    = new EventStreamer<>(eventBus, NetStopEvent.class, numThreads, useVirtualThreads);
     }
 
     /**
@@ -76,19 +79,19 @@ public class P2PEventStreamer {
      */
     public class PeersEventStreamer extends BaseEventStreamer {
         public PeersEventStreamer(int numThreads) { super(numThreads);}
-        public final EventStreamer<PeerConnectedEvent>          CONNECTED       = new EventStreamer<>(eventBus, PeerConnectedEvent.class, numThreads);
-        public final EventStreamer<PeerDisconnectedEvent>       DISCONNECTED    = new EventStreamer<>(eventBus, PeerDisconnectedEvent.class, numThreads);
-        public final EventStreamer<PingPongFailedEvent>         PINGPONG_FAILED = new EventStreamer<>(eventBus, PingPongFailedEvent.class, numThreads);
-        public final EventStreamer<PeersBlacklistedEvent>       BLACKLISTED     = new EventStreamer<>(eventBus, PeersBlacklistedEvent.class, numThreads);
-        public final EventStreamer<PeersWhitelistedEvent>       WHITELISTED     = new EventStreamer<>(eventBus, PeersWhitelistedEvent.class, numThreads);
-        public final EventStreamer<PeerHandshakedEvent>         HANDSHAKED      = new EventStreamer<>(eventBus, PeerHandshakedEvent.class, numThreads);
-        public final EventStreamer<PeerHandshakedDisconnectedEvent> HANDSHAKED_DISCONNECTED     = new EventStreamer<>(eventBus, PeerHandshakedDisconnectedEvent.class, numThreads);
-        public final EventStreamer<PeerHandshakeRejectedEvent>      HANDSHAKED_REJECTED         = new EventStreamer<>(eventBus, PeerHandshakeRejectedEvent.class, numThreads);
-        public final EventStreamer<MinHandshakedPeersReachedEvent>  HANDSHAKED_MIN_REACHED      = new EventStreamer<>(eventBus, MinHandshakedPeersReachedEvent.class, numThreads);
-        public final EventStreamer<MaxHandshakedPeersReachedEvent>  HANDSHAKED_MAX_REACHED      = new EventStreamer<>(eventBus, MaxHandshakedPeersReachedEvent.class, numThreads);
-        public final EventStreamer<MinHandshakedPeersLostEvent>     HANDSHAKED_MIN_LOST         = new EventStreamer<>(eventBus, MinHandshakedPeersLostEvent.class, numThreads);
-        public final EventStreamer<InitialPeersLoadedEvent>         INITIAL_PEERS_LOADED        = new EventStreamer<>(eventBus, InitialPeersLoadedEvent.class, numThreads);
-        public final EventStreamer<PeerRejectedEvent>               PEER_REJECTED               = new EventStreamer<>(eventBus, PeerRejectedEvent.class, numThreads);
+        public final EventStreamer<PeerConnectedEvent>          CONNECTED       = new EventStreamer<>(eventBus, PeerConnectedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PeerDisconnectedEvent>       DISCONNECTED    = new EventStreamer<>(eventBus, PeerDisconnectedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PingPongFailedEvent>         PINGPONG_FAILED = new EventStreamer<>(eventBus, PingPongFailedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PeersBlacklistedEvent>       BLACKLISTED     = new EventStreamer<>(eventBus, PeersBlacklistedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PeersWhitelistedEvent>       WHITELISTED     = new EventStreamer<>(eventBus, PeersWhitelistedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PeerHandshakedEvent>         HANDSHAKED      = new EventStreamer<>(eventBus, PeerHandshakedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PeerHandshakedDisconnectedEvent> HANDSHAKED_DISCONNECTED     = new EventStreamer<>(eventBus, PeerHandshakedDisconnectedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PeerHandshakeRejectedEvent>      HANDSHAKED_REJECTED         = new EventStreamer<>(eventBus, PeerHandshakeRejectedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<MinHandshakedPeersReachedEvent>  HANDSHAKED_MIN_REACHED      = new EventStreamer<>(eventBus, MinHandshakedPeersReachedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<MaxHandshakedPeersReachedEvent>  HANDSHAKED_MAX_REACHED      = new EventStreamer<>(eventBus, MaxHandshakedPeersReachedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<MinHandshakedPeersLostEvent>     HANDSHAKED_MIN_LOST         = new EventStreamer<>(eventBus, MinHandshakedPeersLostEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<InitialPeersLoadedEvent>         INITIAL_PEERS_LOADED        = new EventStreamer<>(eventBus, InitialPeersLoadedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PeerRejectedEvent>               PEER_REJECTED               = new EventStreamer<>(eventBus, PeerRejectedEvent.class, numThreads, useVirtualThreads);
 
     }
 
@@ -99,61 +102,62 @@ public class P2PEventStreamer {
      */
     public class MsgsEventStreamer extends BaseEventStreamer{
         public MsgsEventStreamer(int numThreads) { super(numThreads);}
-        public final EventStreamer<MsgReceivedEvent>                            ALL                 = new EventStreamer<>(eventBus, MsgReceivedEvent.class, numThreads);
-        public final EventStreamer<VersionMsgReceivedEvent>                     VERSION             = new EventStreamer<>(eventBus, VersionMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<VersionAckMsgReceivedEvent>                  VERSIONACK          = new EventStreamer<>(eventBus, VersionAckMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<AddrMsgReceivedEvent>                        ADDR                = new EventStreamer<>(eventBus, AddrMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<BlockMsgReceivedEvent>                       BLOCK               = new EventStreamer<>(eventBus, BlockMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<CompactBlockMsgReceivedEvent>                CMPCTBLOCK          = new EventStreamer<>(eventBus, CompactBlockMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<SendCompactBlockMsgReceivedEvent>            SENDCMPCT           = new EventStreamer<>(eventBus, SendCompactBlockMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<GetBlockTxnMsgReceivedEvent>                 GETBLOCKTXN         = new EventStreamer<>(eventBus, GetBlockTxnMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<BlockTxnMsgReceivedEvent>                    BLOCKTXN            = new EventStreamer<>(eventBus, BlockTxnMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<FeeMsgReceivedEvent>                         FEE                 = new EventStreamer<>(eventBus, FeeMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<GetAddrMsgReceivedEvent>                     GETADDR             = new EventStreamer<>(eventBus, GetAddrMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<GetDataMsgReceivedEvent>                     GETDATA             = new EventStreamer<>(eventBus, GetDataMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<InvMsgReceivedEvent>                         INV                 = new EventStreamer<>(eventBus, InvMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<NotFoundMsgReceivedEvent>                    NOTFOUND            = new EventStreamer<>(eventBus, NotFoundMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<PingMsgReceivedEvent>                        PING                = new EventStreamer<>(eventBus, PingMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<PongMsgReceivedEvent>                        PONG                = new EventStreamer<>(eventBus, PongMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<RejectMsgReceivedEvent>                      REJECT              = new EventStreamer<>(eventBus, RejectMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<TxMsgReceivedEvent>                          TX                  = new EventStreamer<>(eventBus, TxMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<RawTxMsgReceivedEvent>                       TX_RAW              = new EventStreamer<>(eventBus, RawTxMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<GetHeadersMsgReceivedEvent>                  GETHEADERS          = new EventStreamer<>(eventBus, GetHeadersMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<SendHeadersMsgReceivedEvent>                 SENDHEADERS         = new EventStreamer<>(eventBus, SendHeadersMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<HeadersMsgReceivedEvent>                     HEADERS             = new EventStreamer<>(eventBus, HeadersMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<MempoolMsgReceivedEvent>                     MEMPOOL             = new EventStreamer<>(eventBus, MempoolMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<GetHeadersEnMsgReceivedEvent>                GETHEADERSEN        = new EventStreamer<>(eventBus, GetHeadersEnMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<PartialBlockTxnDownloadedEvent>              PARTIAL_BLOCKTXN    = new EventStreamer<>(eventBus, PartialBlockTxnDownloadedEvent.class, numThreads);
-        public final EventStreamer<TxsBatchMsgReceivedEvent>                    TX_BATCH            = new EventStreamer<>(eventBus, TxsBatchMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<RawTxsBatchMsgReceivedEvent>                 TX_RAW_BATCH        = new EventStreamer<>(eventBus, RawTxsBatchMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<DsDetectedMsgReceivedEvent>                  DSDETECTED          = new EventStreamer<>(eventBus, DsDetectedMsgReceivedEvent.class, numThreads);
-        public final EventStreamer<DatarefTxMsgReceivedEvent>                   DATAREFTX           = new EventStreamer<>(eventBus, DatarefTxMsgReceivedEvent.class, numThreads);
-
-        public final EventStreamer<MsgSentEvent>                                ALL_SENT            = new EventStreamer<>(eventBus, MsgSentEvent.class, numThreads);
-        public final EventStreamer<VersionMsgSentEvent>                         VERSION_SENT        = new EventStreamer<>(eventBus, VersionMsgSentEvent.class, numThreads);
-        public final EventStreamer<VersionAckMsgSentEvent>                      VERSIONACK_SENT     = new EventStreamer<>(eventBus, VersionAckMsgSentEvent.class, numThreads);
-        public final EventStreamer<AddrMsgSentEvent>                            ADDR_SENT           = new EventStreamer<>(eventBus, AddrMsgSentEvent.class, numThreads);
-        public final EventStreamer<BlockMsgSentEvent>                           BLOCK_SENT          = new EventStreamer<>(eventBus, BlockMsgSentEvent.class, numThreads);
-        public final EventStreamer<CompactBlockMsgSentEvent>                    CMPCTBLOCK_SENT     = new EventStreamer<>(eventBus, CompactBlockMsgSentEvent.class, numThreads);
-        public final EventStreamer<GetBlockTxnMsgSentEvent>                     GETBLOCKTXN_SENT    = new EventStreamer<>(eventBus, GetBlockTxnMsgSentEvent.class, numThreads);
-        public final EventStreamer<BlockTxnMsgSentEvent>                        BLOCKTXN_SENT       = new EventStreamer<>(eventBus, BlockTxnMsgSentEvent.class, numThreads);
-        public final EventStreamer<SendCompactBlockMsgSentEvent>                SENDCMPCT_SENT      = new EventStreamer<>(eventBus, SendCompactBlockMsgSentEvent.class, numThreads);
-        public final EventStreamer<FeeMsgSentEvent>                             FEE_SENT            = new EventStreamer<>(eventBus, FeeMsgSentEvent.class, numThreads);
-        public final EventStreamer<GetAddrMsgSentEvent>                         GETADDR_SENT        = new EventStreamer<>(eventBus, GetAddrMsgSentEvent.class, numThreads);
-        public final EventStreamer<GetDataMsgSentEvent>                         GETDATA_SENT        = new EventStreamer<>(eventBus, GetDataMsgSentEvent.class, numThreads);
-        public final EventStreamer<InvMsgSentEvent>                             INV_SENT            = new EventStreamer<>(eventBus, InvMsgSentEvent.class, numThreads);
-        public final EventStreamer<NotFoundMsgSentEvent>                        NOTFOUND_SENT       = new EventStreamer<>(eventBus, NotFoundMsgSentEvent.class, numThreads);
-        public final EventStreamer<PingMsgSentEvent>                            PING_SENT           = new EventStreamer<>(eventBus, PingMsgSentEvent.class, numThreads);
-        public final EventStreamer<PongMsgSentEvent>                            PONG_SENT           = new EventStreamer<>(eventBus, PongMsgSentEvent.class, numThreads);
-        public final EventStreamer<RejectMsgSentEvent>                          REJECT_SENT         = new EventStreamer<>(eventBus, RejectMsgSentEvent.class, numThreads);
-        public final EventStreamer<TxMsgSentEvent>                              TX_SENT             = new EventStreamer<>(eventBus, TxMsgSentEvent.class, numThreads);
-        public final EventStreamer<GetHeadersMsgSentEvent>                      GETHEADERS_SENT     = new EventStreamer<>(eventBus, GetHeadersMsgSentEvent.class, numThreads);
-        public final EventStreamer<SendHeadersMsgSentEvent>                     SENDHEADERS_SENT    = new EventStreamer<>(eventBus, SendHeadersMsgSentEvent.class, numThreads);
-        public final EventStreamer<HeadersMsgSentEvent>                         HEADERS_SENT        = new EventStreamer<>(eventBus, HeadersMsgSentEvent.class, numThreads);
-        public final EventStreamer<MempoolMsgSentEvent>                         MEMPOOL_SENT        = new EventStreamer<>(eventBus, MempoolMsgSentEvent.class, numThreads);
-        public final EventStreamer<GetHeadersEnMsgSentEvent>                    GETHEADERSEN_SENT   = new EventStreamer<>(eventBus, GetHeadersEnMsgSentEvent.class, numThreads);
-        public final EventStreamer<DsDetectedMsgSentEvent>                      DSDETECTED_SENT     = new EventStreamer<>(eventBus, DsDetectedMsgSentEvent.class, numThreads);
-        public final EventStreamer<DatarefTxMsgSentEvent>                       DATAREFTX_SENT      = new EventStreamer<>(eventBus, DatarefTxMsgSentEvent.class, numThreads);
+        public final EventStreamer<MsgReceivedEvent>                            ALL                 = new EventStreamer<>(eventBus, MsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<VersionMsgReceivedEvent>                     VERSION             = new EventStreamer<>(eventBus, VersionMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<VersionAckMsgReceivedEvent>                  VERSIONACK          = new EventStreamer<>(eventBus, VersionAckMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<AddrMsgReceivedEvent>                        ADDR                = new EventStreamer<>(eventBus, AddrMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<BlockMsgReceivedEvent>                       BLOCK               = new EventStreamer<>(eventBus, BlockMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<CompactBlockMsgReceivedEvent>                CMPCTBLOCK          = new EventStreamer<>(eventBus, CompactBlockMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<SendCompactBlockMsgReceivedEvent>            SENDCMPCT           = new EventStreamer<>(eventBus, SendCompactBlockMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetBlockTxnMsgReceivedEvent>                 GETBLOCKTXN         = new EventStreamer<>(eventBus, GetBlockTxnMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<BlockTxnMsgReceivedEvent>                    BLOCKTXN            = new EventStreamer<>(eventBus, BlockTxnMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<FeeMsgReceivedEvent>                         FEE                 = new EventStreamer<>(eventBus, FeeMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetAddrMsgReceivedEvent>                     GETADDR             = new EventStreamer<>(eventBus, GetAddrMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetDataMsgReceivedEvent>                     GETDATA             = new EventStreamer<>(eventBus, GetDataMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<InvMsgReceivedEvent>                         INV                 = new EventStreamer<>(eventBus, InvMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<NotFoundMsgReceivedEvent>                    NOTFOUND            = new EventStreamer<>(eventBus, NotFoundMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PingMsgReceivedEvent>                        PING                = new EventStreamer<>(eventBus, PingMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PongMsgReceivedEvent>                        PONG                = new EventStreamer<>(eventBus, PongMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<RejectMsgReceivedEvent>                      REJECT              = new EventStreamer<>(eventBus, RejectMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<TxMsgReceivedEvent>                          TX                  = new EventStreamer<>(eventBus, TxMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<RawTxMsgReceivedEvent>                       TX_RAW              = new EventStreamer<>(eventBus, RawTxMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetHeadersMsgReceivedEvent>                  GETHEADERS          = new EventStreamer<>(eventBus, GetHeadersMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<SendHeadersMsgReceivedEvent>                 SENDHEADERS         = new EventStreamer<>(eventBus, SendHeadersMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<HeadersMsgReceivedEvent>                     HEADERS             = new EventStreamer<>(eventBus, HeadersMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<MempoolMsgReceivedEvent>                     MEMPOOL             = new EventStreamer<>(eventBus, MempoolMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetHeadersEnMsgReceivedEvent>                GETHEADERSEN        = new EventStreamer<>(eventBus, GetHeadersEnMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<HeadersEnMsgReceivedEvent>                   HEADERSEN           = new EventStreamer<>(eventBus, HeadersEnMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PartialBlockTxnDownloadedEvent>              PARTIAL_BLOCKTXN    = new EventStreamer<>(eventBus, PartialBlockTxnDownloadedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<TxsBatchMsgReceivedEvent>                    TX_BATCH            = new EventStreamer<>(eventBus, TxsBatchMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<RawTxsBatchMsgReceivedEvent>                 TX_RAW_BATCH        = new EventStreamer<>(eventBus, RawTxsBatchMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<DsDetectedMsgReceivedEvent>                  DSDETECTED          = new EventStreamer<>(eventBus, DsDetectedMsgReceivedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<DatarefTxMsgReceivedEvent>                   DATAREFTX           = new EventStreamer<>(eventBus, DatarefTxMsgReceivedEvent.class, numThreads, useVirtualThreads);
+
+        public final EventStreamer<MsgSentEvent>                                ALL_SENT            = new EventStreamer<>(eventBus, MsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<VersionMsgSentEvent>                         VERSION_SENT        = new EventStreamer<>(eventBus, VersionMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<VersionAckMsgSentEvent>                      VERSIONACK_SENT     = new EventStreamer<>(eventBus, VersionAckMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<AddrMsgSentEvent>                            ADDR_SENT           = new EventStreamer<>(eventBus, AddrMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<BlockMsgSentEvent>                           BLOCK_SENT          = new EventStreamer<>(eventBus, BlockMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<CompactBlockMsgSentEvent>                    CMPCTBLOCK_SENT     = new EventStreamer<>(eventBus, CompactBlockMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetBlockTxnMsgSentEvent>                     GETBLOCKTXN_SENT    = new EventStreamer<>(eventBus, GetBlockTxnMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<BlockTxnMsgSentEvent>                        BLOCKTXN_SENT       = new EventStreamer<>(eventBus, BlockTxnMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<SendCompactBlockMsgSentEvent>                SENDCMPCT_SENT      = new EventStreamer<>(eventBus, SendCompactBlockMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<FeeMsgSentEvent>                             FEE_SENT            = new EventStreamer<>(eventBus, FeeMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetAddrMsgSentEvent>                         GETADDR_SENT        = new EventStreamer<>(eventBus, GetAddrMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetDataMsgSentEvent>                         GETDATA_SENT        = new EventStreamer<>(eventBus, GetDataMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<InvMsgSentEvent>                             INV_SENT            = new EventStreamer<>(eventBus, InvMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<NotFoundMsgSentEvent>                        NOTFOUND_SENT       = new EventStreamer<>(eventBus, NotFoundMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PingMsgSentEvent>                            PING_SENT           = new EventStreamer<>(eventBus, PingMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<PongMsgSentEvent>                            PONG_SENT           = new EventStreamer<>(eventBus, PongMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<RejectMsgSentEvent>                          REJECT_SENT         = new EventStreamer<>(eventBus, RejectMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<TxMsgSentEvent>                              TX_SENT             = new EventStreamer<>(eventBus, TxMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetHeadersMsgSentEvent>                      GETHEADERS_SENT     = new EventStreamer<>(eventBus, GetHeadersMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<SendHeadersMsgSentEvent>                     SENDHEADERS_SENT    = new EventStreamer<>(eventBus, SendHeadersMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<HeadersMsgSentEvent>                         HEADERS_SENT        = new EventStreamer<>(eventBus, HeadersMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<MempoolMsgSentEvent>                         MEMPOOL_SENT        = new EventStreamer<>(eventBus, MempoolMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<GetHeadersEnMsgSentEvent>                    GETHEADERSEN_SENT   = new EventStreamer<>(eventBus, GetHeadersEnMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<DsDetectedMsgSentEvent>                      DSDETECTED_SENT     = new EventStreamer<>(eventBus, DsDetectedMsgSentEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<DatarefTxMsgSentEvent>                       DATAREFTX_SENT      = new EventStreamer<>(eventBus, DatarefTxMsgSentEvent.class, numThreads, useVirtualThreads);
     }
 
     /**
@@ -161,11 +165,11 @@ public class P2PEventStreamer {
      */
     public class ErrorEventStreamer extends BaseEventStreamer {
         public ErrorEventStreamer(int numThreads) { super(numThreads);}
-        public final EventStreamer<StreamErrorEvent>                 STREAM_ERROR                   = new EventStreamer<>(eventBus, StreamErrorEvent.class, numThreads);
-        public final EventStreamer<StreamMessageErrorEvent>          STREAM_MSG_ERROR               = new EventStreamer<>(eventBus, StreamMessageErrorEvent.class, numThreads);
-        public final EventStreamer<StreamCorruptedDataEvent>         STREAM_CORRUPTED_DATA          = new EventStreamer<>(eventBus, StreamCorruptedDataEvent.class, numThreads);
-        public final EventStreamer<InvalidMessageErrorEvent>         INVALID_MSG_ERROR              = new EventStreamer<>(eventBus, InvalidMessageErrorEvent.class, numThreads);
-        public final EventStreamer<MsgPartDeserializationErrorEvent> MSG_PART_DESERIALIZATION_ERROR = new EventStreamer<>(eventBus, MsgPartDeserializationErrorEvent.class, numThreads);
+        public final EventStreamer<StreamErrorEvent>                 STREAM_ERROR                   = new EventStreamer<>(eventBus, StreamErrorEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<StreamMessageErrorEvent>          STREAM_MSG_ERROR               = new EventStreamer<>(eventBus, StreamMessageErrorEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<StreamCorruptedDataEvent>         STREAM_CORRUPTED_DATA          = new EventStreamer<>(eventBus, StreamCorruptedDataEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<InvalidMessageErrorEvent>         INVALID_MSG_ERROR              = new EventStreamer<>(eventBus, InvalidMessageErrorEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<MsgPartDeserializationErrorEvent> MSG_PART_DESERIALIZATION_ERROR = new EventStreamer<>(eventBus, MsgPartDeserializationErrorEvent.class, numThreads, useVirtualThreads);
     }
 
     /**
@@ -178,14 +182,14 @@ public class P2PEventStreamer {
             return e -> handlerStateClass.isInstance(e.getState());
         }
 
-        public final EventStreamer<HandlerStateEvent> ALL        = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, numThreads);
-        public final EventStreamer<HandlerStateEvent> NETWORK    = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(NetworkHandlerState.class), numThreads);
-        public final EventStreamer<HandlerStateEvent> MESSAGES   = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(MessageHandlerState.class), numThreads);
-        public final EventStreamer<HandlerStateEvent> HANDSHAKE  = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(HandshakeHandlerState.class), numThreads);
-        public final EventStreamer<HandlerStateEvent> PINGPONG   = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(PingPongHandlerState.class), numThreads);
-        public final EventStreamer<HandlerStateEvent> DISCOVERY  = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(DiscoveryHandlerState.class), numThreads);
-        public final EventStreamer<HandlerStateEvent> BLACKLIST  = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(BlacklistHandlerState.class), numThreads);
-        public final EventStreamer<HandlerStateEvent> BLOCKS     = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(BlockDownloaderHandlerState.class), numThreads);
+        public final EventStreamer<HandlerStateEvent> ALL        = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<HandlerStateEvent> NETWORK    = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(NetworkHandlerState.class), numThreads, useVirtualThreads);
+        public final EventStreamer<HandlerStateEvent> MESSAGES   = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(MessageHandlerState.class), numThreads, useVirtualThreads);
+        public final EventStreamer<HandlerStateEvent> HANDSHAKE  = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(HandshakeHandlerState.class), numThreads, useVirtualThreads);
+        public final EventStreamer<HandlerStateEvent> PINGPONG   = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(PingPongHandlerState.class), numThreads, useVirtualThreads);
+        public final EventStreamer<HandlerStateEvent> DISCOVERY  = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(DiscoveryHandlerState.class), numThreads, useVirtualThreads);
+        public final EventStreamer<HandlerStateEvent> BLACKLIST  = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(BlacklistHandlerState.class), numThreads, useVirtualThreads);
+        public final EventStreamer<HandlerStateEvent> BLOCKS     = new EventStreamer<>(stateEventBus, HandlerStateEvent.class, getFilterForHandler(BlockDownloaderHandlerState.class), numThreads, useVirtualThreads);
     }
 
     /**
@@ -193,12 +197,12 @@ public class P2PEventStreamer {
      */
     public class BlockEventStreamer extends BaseEventStreamer {
         public BlockEventStreamer(int numThreads) { super(numThreads);}
-        public final EventStreamer<LiteBlockDownloadedEvent>    LITE_BLOCK_DOWNLOADED       = new EventStreamer<>(eventBus, LiteBlockDownloadedEvent.class, numThreads);
-        public final EventStreamer<BlockDownloadedEvent>        BLOCK_DOWNLOADED            = new EventStreamer<>(eventBus, BlockDownloadedEvent.class, numThreads);
-        public final EventStreamer<BlockDiscardedEvent>         BLOCK_DISCARDED             = new EventStreamer<>(eventBus, BlockDiscardedEvent.class, numThreads);
-        public final EventStreamer<BlockHeaderDownloadedEvent>  BLOCK_HEADER_DOWNLOADED     = new EventStreamer<>(eventBus, BlockHeaderDownloadedEvent.class, numThreads);
-        public final EventStreamer<BlockTXsDownloadedEvent>     BLOCK_TXS_DOWNLOADED        = new EventStreamer<>(eventBus, BlockTXsDownloadedEvent.class, numThreads);
-        public final EventStreamer<BlockRawTXsDownloadedEvent>  BLOCK_RAW_TXS_DOWNLOADED    = new EventStreamer<>(eventBus, BlockRawTXsDownloadedEvent.class, numThreads);
+        public final EventStreamer<LiteBlockDownloadedEvent>    LITE_BLOCK_DOWNLOADED       = new EventStreamer<>(eventBus, LiteBlockDownloadedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<BlockDownloadedEvent>        BLOCK_DOWNLOADED            = new EventStreamer<>(eventBus, BlockDownloadedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<BlockDiscardedEvent>         BLOCK_DISCARDED             = new EventStreamer<>(eventBus, BlockDiscardedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<BlockHeaderDownloadedEvent>  BLOCK_HEADER_DOWNLOADED     = new EventStreamer<>(eventBus, BlockHeaderDownloadedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<BlockTXsDownloadedEvent>     BLOCK_TXS_DOWNLOADED        = new EventStreamer<>(eventBus, BlockTXsDownloadedEvent.class, numThreads, useVirtualThreads);
+        public final EventStreamer<BlockRawTXsDownloadedEvent>  BLOCK_RAW_TXS_DOWNLOADED    = new EventStreamer<>(eventBus, BlockRawTXsDownloadedEvent.class, numThreads, useVirtualThreads);
     }
 
     /**
@@ -239,9 +243,10 @@ public class P2PEventStreamer {
     }
 
     /** Constructor */
-    public P2PEventStreamer(EventBus eventBus, EventBus stateEventBus) {
-        this.eventBus       = eventBus;
-        this.stateEventBus  = stateEventBus;
+    public P2PEventStreamer(EventBus eventBus, EventBus stateEventBus, boolean useVirtualThreads) {
+        this.eventBus           = eventBus;
+        this.stateEventBus      = stateEventBus;
+        this.useVirtualThreads  = useVirtualThreads;
 
 
         this.GENERIC    = new GenericEventStreamer(DEFAULT_NUM_THREADS_GENERIC);
@@ -252,4 +257,9 @@ public class P2PEventStreamer {
         this.BLOCKS     = new BlockEventStreamer(DEFAULT_NUM_THREADS_BLOCK);
         this.ERRORS     = new ErrorEventStreamer(DEFAULT_NUM_THREADS_ERRORS);
     }
+
+    /** Constructor */
+    public P2PEventStreamer(EventBus eventBus, EventBus stateEventBus) {
+        this(eventBus, stateEventBus, false);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,365 @@
+package io.bitcoinsv.jcl.net.protocol.wrapper.receivers;
+
+import com.google.common.base.Preconditions;
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash;
+import io.bitcoinsv.jcl.net.network.PeerAddress;
+import io.bitcoinsv.jcl.net.protocol.events.control.BlockDiscardedEvent;
+import io.bitcoinsv.jcl.net.protocol.events.data.BlockHeaderDownloadedEvent;
+import io.bitcoinsv.jcl.net.protocol.events.data.BlockRawTXsDownloadedEvent;
+import io.bitcoinsv.jcl.net.protocol.handlers.message.MessageHandler;
+import io.bitcoinsv.jcl.net.protocol.handlers.message.MessageHandlerConfig;
+import io.bitcoinsv.jcl.net.protocol.messages.BlockHeaderMsg;
+import io.bitcoinsv.jcl.net.protocol.messages.PartialBlockHeaderMsg;
+import io.bitcoinsv.jcl.net.protocol.messages.PartialBlockRawTxMsg;
+import io.bitcoinsv.jcl.net.protocol.messages.RawTxMsg;
+import io.bitcoinsv.jcl.net.protocol.wrapper.P2P;
+import io.bitcoinsv.jcl.tools.blobStore.BlockStorePosix;
+import io.bitcoinsv.jcl.tools.blobStore.BlockStorePosixWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * This component receives Raw Blocks from the network and saves them straight into a {@link BlockStorePosix}, as
+ * they are downloaded. Unlike the {@link RawBlockReceiver}, the Txs are not stored anywhere else in the meantime: as
+ * soon as a batch of Txs arrives, its bytes are appended to the Block file, so the memory used does not depend on the
+ * size of the Block.
+ *
+ *  - When the Header of a Block arrives, the Block file is created, and the Header and the number of Txs are written.
+ *  - The batches of Txs are appended in order (batches might arrive out of order, since the Events are processed by
+ *    several Threads, so those arriving early are kept until its turn comes). Only the batches coming from the Peer
+ *    that sent the Header are written: Those coming from another Peer before its Header is processed are kept
+ *    apart, and they are replayed once it does.
+ *  - Once all the bytes of the Block have been written, the Block is committed (atomically), and it becomes visible
+ *    in the Store.
+ *  - If the Block is discarded, the Block file is removed.
+ *
+ * Downloads are resumable: The P2P protocol does not allow to request a range of bytes of a Block, so if its download
+ * is restarted (from the same or a different Peer) all its bytes come over the wire again, but the Txs already
+ * written are NOT processed again: they are skipped, and only the bytes after them are appended to the file. The
+ * progress is also checkpointed on disk every few MB (see {@link BlockStorePosixWriter#checkpoint()}), so after a
+ * restart the partial Blocks can be re-requested ({@link #resumeDownloads()}) and they will be resumed from their
+ * last checkpoint.
+ *
+ *  NOTE: "RawTxs" must be enabled in the P2P Service.
+ */
+public class RawBlockFileReceiver {
+
+    private static final Logger log = LoggerFactory.getLogger(RawBlockFileReceiver.class);
+
+    // Default number of bytes written between 2 checkpoints of a Block:
+    public static final long DEFAULT_CHECKPOINT_INTERVAL_BYTES = 16_000_000;
+
+    /** State of a Block being written */
+    private static class BlockInProgress {
+        private volatile PeerAddress source;
+        private final BlockStorePosixWriter writer;
+        private final long txsSizeInBytes;
+        private long nextOrderNumber;
+        // Bytes of the Txs received from the current source so far (some of them might have been skipped):
+        private long streamOffset;
+        private long bytesSinceCheckpoint;
+        // Batches arrived before their turn, by order number:
+        private final TreeMap<Long, List<byte[]>> pendingBatches = new TreeMap<>();
+        // Peers this Block was downloaded from before the current source. Their batches are dropped:
+        private final Set<PeerAddress> formerSources = new HashSet<>();
+
+        BlockInProgress(PeerAddress source, BlockStorePosixWriter writer, long txsSizeInBytes) {
+            this.source = source;
+            this.writer = writer;
+            this.txsSizeInBytes = txsSizeInBytes;
+        }
+
+        // The Block is downloaded again from the beginning, from the source given:
+        void restart(PeerAddress source) {
+            if (!source.equals(this.source)) this.formerSources.add(this.source);
+            this.formerSources.remove(source);
+            this.source = source;
+            this.nextOrderNumber = 0;
+            this.streamOffset = 0;
+            this.pendingBatches.clear();
+        }
+
+        boolean isCompleted() { return writer.getTxsBytesWritten() >= txsSizeInBytes; }
+    }
+
+    private final P2P p2p;
+    private final BlockStorePosix blockStore;
+    private final long checkpointIntervalBytes;
+
+    // Blocks being written at this moment:
+    private final Map<Sha256Hash, BlockInProgress> blocksInProgress = new ConcurrentHashMap<>();
+
+    // Batches of Txs processed before the Header of their Block (Events are processed by several Threads), by Block
+    // and by the Peer they come from:
+    private final Map<Sha256Hash, Map<PeerAddress, Map<Long, List<byte[]>>>> earlyBatches = new ConcurrentHashMap<>();
+
+    // Callbacks:
+    private final List<Consumer<Sha256Hash>> onBlockStoredHandlers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Sha256Hash>> onBlockDiscardedHandlers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor.
+     * @param p2p                       P2P Service
+     * @param blockStore                Store where the Blocks are saved
+     * @param checkpointIntervalBytes   Number of bytes of a Block written between 2 checkpoints
+     */
+    public RawBlockFileReceiver(P2P p2p, BlockStorePosix blockStore, long checkpointIntervalBytes) {
+        Preconditions.checkArgument(((MessageHandlerConfig) p2p.getHandler(MessageHandler.HANDLER_ID).getConfig()).isRawTxsEnabled(),
+                "This Receiver can only work if 'RawTxs' is enabled in the P2P Service");
+        Preconditions.checkArgument(checkpointIntervalBytes > 0, "The checkpoint interval must be positive");
+        this.p2p = p2p;
+        this.blockStore = blockStore;
+        this.checkpointIntervalBytes = checkpointIntervalBytes;
+
+        // We feed this receiver with the Events from the P2P Service:
+        p2p.EVENTS.BLOCKS.BLOCK_HEADER_DOWNLOADED.forEach(this::onHeaderDownloaded);
+        p2p.EVENTS.BLOCKS.BLOCK_RAW_TXS_DOWNLOADED.forEach(this::onRawTxsDownloaded);
+        p2p.EVENTS.BLOCKS.BLOCK_DISCARDED.forEach(this::onBlockDiscarded);
+    }
+
+    /**
+     * Constructor, using the default checkpoint interval.
+     * @param p2p           P2P Service
+     * @param blockStore    Store where the Blocks are saved
+     */
+    public RawBlockFileReceiver(P2P p2p, BlockStorePosix blockStore) {
+        this(p2p, blockStore, DEFAULT_CHECKPOINT_INTERVAL_BYTES);
+    }
+
+    /** Registers a callback triggered when a Block has been completely saved and committed into the Store */
+    public void onBlockStored(Consumer<Sha256Hash> handler)     { this.onBlockStoredHandlers.add(handler); }
+
+    /** Registers a callback triggered when a Block being saved is discarded */
+    public void onBlockDiscarded(Consumer<Sha256Hash> handler)  { this.onBlockDiscardedHandlers.add(handler); }
+
+    /** Returns the hashes of the Blocks being saved at this moment */
+    public Set<Sha256Hash> getBlocksInProgress() {
+        return new HashSet<>(blocksInProgress.keySet());
+    }
+
+    private void onHeaderDownloaded(BlockHeaderDownloadedEvent event) {
+        PartialBlockHeaderMsg headerMsg = event.getBtcMsg().getBody();
+        BlockHeaderMsg blockHeader = headerMsg.getBlockHeader();
+        Sha256Hash blockHash = blockHeader.getHash();
+
+        // If this Block is already being saved, its download has been restarted. We keep what we've written so far
+        // (checkpointed), and the Txs coming again will be skipped until we reach that point. The batches from the
+        // previous sources are dropped from now on, and those from the new one already received are replayed:
+        BlockInProgress previous = blocksInProgress.get(blockHash);
+        if (previous != null) {
+            synchronized (previous) {
+                if (!previous.writer.isFinished()) {
+                    log.debug("Block {} restarted from {} ({} bytes already written), previous source: {}",
+                            blockHash, event.getPeerAddress(), previous.writer.getTxsBytesWritten(), previous.source);
+                    try {
+                        previous.writer.checkpoint();
+                        previous.bytesSinceCheckpoint = 0;
+                    } catch (Exception e) {
+                        log.error("Error saving the checkpoint of the Block " + blockHash, e);
+                        discard(blockHash, previous);
+                        return;
+                    }
+                    previous.restart(event.getPeerAddress());
+                    takeEarlyBatches(blockHash, previous);
+                    writePendingBatches(blockHash, previous);
+                    return;
+                }
+            }
+        }
+
+        if (blockStore.containsBlock(blockHash)) {
+            log.debug("Block {} already stored, ignoring it", blockHash);
+            earlyBatches.remove(blockHash);
+            return;
+        }
+
+        try {
+            // If this Block was partially saved before (by a previous run), we resume it from its last checkpoint:
+            BlockStorePosixWriter writer = blockStore.resumeBlockWriter(blockHash).orElse(null);
+            if (writer != null) {
+                log.debug("Block {} resumed from its checkpoint ({} bytes already written)", blockHash, writer.getTxsBytesWritten());
+            } else {
+                writer = blockStore.openBlockWriter(blockHeader.toBean(), blockHeader.getTransactionCount().getValue());
+            }
+            BlockInProgress block = new BlockInProgress(event.getPeerAddress(), writer, headerMsg.getTxsSizeInbytes().getValue());
+            synchronized (block) {
+                blocksInProgress.put(blockHash, block);
+                takeEarlyBatches(blockHash, block);
+                writePendingBatches(blockHash, block);
+            }
+        } catch (Exception e) {
+            log.error("Error opening the Block " + blockHash + " for writing", e);
+            earlyBatches.remove(blockHash);
+        }
+    }
+
+    private void onRawTxsDownloaded(BlockRawTXsDownloadedEvent event) {
+        PartialBlockRawTxMsg txsMsg = event.getBtcMsg().getBody();
+        Sha256Hash blockHash = txsMsg.getBlockHeader().getHash();
+        long orderNumber = txsMsg.getTxsOrderNumber().getValue();
+        List<byte[]> txsBytes = txsMsg.getTxs().stream().map(RawTxMsg::getContent).collect(Collectors.toList());
+        PeerAddress source = event.getPeerAddress();
+
+        BlockInProgress block = blocksInProgress.get(blockHash);
+        if (block == null) {
+            // The Header might not have been processed yet. We keep the batch until it does:
+            if (blockStore.containsBlock(blockHash)) return;
+            addEarlyBatch(blockHash, source, orderNumber, txsBytes);
+            // The Header might have been processed in the meantime, and it might have missed this batch:
+            block = blocksInProgress.get(blockHash);
+            if (block == null) return;
+            synchronized (block) {
+                if (block.writer.isFinished()) return;
+                takeEarlyBatches(blockHash, block);
+                writePendingBatches(blockHash, block);
+            }
+            return;
+        }
+
+        synchronized (block) {
+            if (block.writer.isFinished()) return;
+            if (block.source.equals(source)) {
+                block.pendingBatches.put(orderNumber, txsBytes);
+                writePendingBatches(blockHash, block);
+            } else if (!block.formerSources.contains(source)) {
+                // The download might have been restarted from this source, and its Header not processed yet:
+                addEarlyBatch(blockHash, source, orderNumber, txsBytes);
+            }
+        }
+    }
+
+    private void addEarlyBatch(Sha256Hash blockHash, PeerAddress source, long orderNumber, List<byte[]> txsBytes) {
+        earlyBatches.computeIfAbsent(blockHash, h -> new ConcurrentHashMap<>())
+                .computeIfAbsent(source, p -> new ConcurrentSkipListMap<>())
+                .put(orderNumber, txsBytes);
+    }
+
+    // It moves the batches kept for the Block and coming from its current source to the pending ones, and drops those
+    // coming from its previous sources. Must be called while holding the Block lock:
+    private void takeEarlyBatches(Sha256Hash blockHash, BlockInProgress block) {
+        Map<PeerAddress, Map<Long, List<byte[]>>> batchesBySource = earlyBatches.get(blockHash);
+        if (batchesBySource == null) return;
+        block.formerSources.forEach(batchesBySource::remove);
+        Map<Long, List<byte[]>> batches = batchesBySource.remove(block.source);
+        if (batches != null) block.pendingBatches.putAll(batches);
+    }
+
+    // It writes all the batches that are ready, in order, and commits the Block if all its bytes have been written.
+    // If something goes wrong, the Block is discarded. Must be called while holding the Block lock:
+    private void writePendingBatches(Sha256Hash blockHash, BlockInProgress block) {
+        try {
+            while (!block.pendingBatches.isEmpty() && block.pendingBatches.firstKey() == block.nextOrderNumber) {
+                append(block, block.pendingBatches.pollFirstEntry().getValue());
+                block.nextOrderNumber++;
+            }
+            commitIfCompleted(blockHash, block);
+            if (block.bytesSinceCheckpoint >= checkpointIntervalBytes && !block.writer.isFinished()) {
+                block.writer.checkpoint();
+                block.bytesSinceCheckpoint = 0;
+            }
+        } catch (Exception e) {
+            log.error("Error writing the Block " + blockHash, e);
+            discard(blockHash, block);
+        }
+    }
+
+    // It appends the Txs to the Block file, skipping those already written before the download was restarted. Must be
+    // called while holding the Block lock:
+    private void append(BlockInProgress block, List<byte[]> txsBytes) throws Exception {
+        long bytesWritten = block.writer.getTxsBytesWritten();
+        List<byte[]> txsToWrite = new ArrayList<>(txsBytes.size());
+        for (byte[] tx : txsBytes) {
+            long txEnd = block.streamOffset + tx.length;
+            if (txEnd > bytesWritten) {
+                // The Txs are the same no matter the Peer, so the bytes written must end in a Tx boundary:
+                if (block.streamOffset < bytesWritten) {
+                    throw new IllegalStateException("The bytes written do not match the Txs received");
+                }
+                txsToWrite.add(tx);
+            }
+            block.streamOffset = txEnd;
+        }
+        if (txsToWrite.isEmpty()) return;
+        long bytesBefore = block.writer.getTxsBytesWritten();
+        block.writer.append(txsToWrite);
+        block.bytesSinceCheckpoint += block.writer.getTxsBytesWritten() - bytesBefore;
+    }
+
+    private void onBlockDiscarded(BlockDiscardedEvent event) {
+        Sha256Hash blockHash = Sha256Hash.wrap(event.getHash());
+        earlyBatches.remove(blockHash);
+        BlockInProgress block = blocksInProgress.get(blockHash);
+        if (block == null) return;
+        synchronized (block) { discard(blockHash, block); }
+    }
+
+    // It commits the Block if all its bytes have been written. Must be called while holding the Block lock:
+    private void commitIfCompleted(Sha256Hash blockHash, BlockInProgress block) throws Exception {
+        if (!block.isCompleted()) return;
+        block.writer.commit();
+        blocksInProgress.remove(blockHash, block);
+        earlyBatches.remove(blockHash);
+        onBlockStoredHandlers.forEach(h -> h.accept(blockHash));
+    }
+
+    // It removes the Block written so far. Must be called while holding the Block lock:
+    private void discard(Sha256Hash blockHash, BlockInProgress block) {
+        block.writer.abort();
+        earlyBatches.remove(blockHash);
+        if (blocksInProgress.remove(blockHash, block)) {
+            onBlockDiscardedHandlers.forEach(h -> h.accept(blockHash));
+        }
+    }
+
+    /**
+     * It requests the download (with priority) of all the Blocks partially saved in the Store, so they are resumed
+     * from their last checkpoint. Useful after a restart.
+     * @return the hashes of the Blocks requested
+     */
+    public List<Sha256Hash> resumeDownloads() {
+        List<Sha256Hash> partialBlocks = blockStore.getPartialBlocks().stream()
+                .filter(h -> !blocksInProgress.containsKey(h))
+                .collect(Collectors.toList());
+        if (!partialBlocks.isEmpty()) {
+            log.debug("Resuming the download of {} partial Blocks", partialBlocks.size());
+            p2p.REQUESTS.BLOCKS.downloadWithPriority(partialBlocks.stream().map(Sha256Hash::toString).collect(Collectors.toList())).submit();
+        }
+        return partialBlocks;
+    }
+
+    /**
+     * It stops saving the Blocks in progress, but they are NOT discarded: their progress is checkpointed, so they can
+     * be resumed later on (see {@link #resumeDownloads()}).
+     */
+    public void suspend() {
+        earlyBatches.clear();
+        blocksInProgress.forEach((hash, block) -> {
+            synchronized (block) {
+                try {
+                    if (!block.writer.isFinished()) block.writer.suspend();
+                } catch (Exception e) {
+                    log.error("Error saving the checkpoint of the Block " + hash, e);
+                }
+                blocksInProgress.remove(hash, block);
+            }
+        });
+    }
+
+    /** Discards all the Blocks being saved at this moment */
+    public void clear() {
+        earlyBatches.clear();
+        blocksInProgress.forEach((hash, block) -> {
+            synchronized (block) { discard(hash, block); }
+        });
+    }
+}
@@ -0,0 +1,657 @@
+package io.bitcoinsv.jcl.net.protocol.wrapper.sync;
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.AbstractBlock;
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Header;
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly;
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.extended.LiteBlock;
+import io.bitcoinsv.bitcoinjsv.bitcoin.bean.base.HeaderBean;
+import io.bitcoinsv.bitcoinjsv.bitcoin.bean.extended.ChainInfoBean;
+import io.bitcoinsv.bitcoinjsv.bitcoin.bean.extended.LiteBlockBean;
+import io.bitcoinsv.bitcoinjsv.blockchain.pow.factory.RuleCheckerFactory;
+import io.bitcoinsv.bitcoinjsv.blockstore.BlockStore;
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash;
+import io.bitcoinsv.bitcoinjsv.core.Utils;
+import io.bitcoinsv.bitcoinjsv.exception.VerificationException;
+import io.bitcoinsv.bitcoinjsv.params.Net;
+import io.bitcoinsv.bitcoinjsv.params.NetworkParameters;
+import io.bitcoinsv.jcl.net.protocol.config.ProtocolConfig;
+import io.bitcoinsv.jcl.net.network.PeerAddress;
+import io.bitcoinsv.jcl.net.protocol.events.control.BlockDiscardedEvent;
+import io.bitcoinsv.jcl.net.protocol.events.control.BlockDownloadedEvent;
+import io.bitcoinsv.jcl.net.protocol.events.control.PeerHandshakedDisconnectedEvent;
+import io.bitcoinsv.jcl.net.protocol.events.control.PeerHandshakedEvent;
+import io.bitcoinsv.jcl.net.protocol.events.data.HeadersEnMsgReceivedEvent;
+import io.bitcoinsv.jcl.net.protocol.events.data.HeadersMsgReceivedEvent;
+import io.bitcoinsv.jcl.net.protocol.messages.*;
+import io.bitcoinsv.jcl.net.protocol.messages.common.BodyMessage;
+import io.bitcoinsv.jcl.net.protocol.wrapper.P2P;
+import io.bitcoinsv.jcl.tools.chainStore.ChainMemStore;
+import io.bitcoinsv.jcl.tools.chainStore.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Headers-first Chain Synchronizer. It builds the Chain of Headers from the network into a {@link ChainMemStore},
+ * and it hands over the Blocks of that Chain to the BlockDownloader Handler, in height order:
+ *
+ * HEADERS:
+ *  - A GET_HEADERS (or GET_HEADERS_EN) is sent to several Peers, using the Tip of our Chain as the Locator. The first
+ *    Peer to reply wins, and the replies from the rest are mostly Headers we already have, so they are dismissed fast.
+ *  - As soon as a full batch of Headers arrives, the GET_HEADERS for the next batch is sent (to the same Peer that
+ *    replied, which has proven to be fast, and to others), BEFORE the current batch is processed. So the network
+ *    round-trip of the next batch overlaps with the processing of the current one.
+ *  - Each Header is validated (it links to the previous one, its Proof of Work and its timestamp) and linked into the
+ *    Chain. The Difficulty of the Header must also be the one expected by the consensus rules of the Network (2016
+ *    blocks retargets, EDA, DAA), given the Headers before it. If a Peer sends an invalid Header, that Peer is not
+ *    used to get Headers anymore.
+ *  - If there are forks, the best Chain is the one with the most cumulative work (chainwork), not the longest one.
+ *  - If a Peer does not reply in time, the request is sent to other Peers. Once the Headers are in sync, new requests
+ *    are sent every now and then to keep up with the new Blocks.
+ *
+ * BLOCKS:
+ *  - As the Chain grows, windows of Blocks are handed over to the BlockDownloader, following the best chain and in
+ *    height order. The number of Blocks requested is limited by a "look-ahead": the highest Block requested can be at
+ *    most "blocksLookAhead" blocks after the lowest Block not downloaded yet.
+ *  - If the best Chain switches to another branch (reorg), the Blocks of the old branch above the fork point are
+ *    cancelled, and the feed goes back to the fork point.
+ *  - A Block discarded by the BlockDownloader is requested again (with priority), up to "maxBlockDownloadAttempts"
+ *    times in a row. After that, it's reported as failed and it waits for "blockRetryBackoff" before it's requested
+ *    again (with a new round of attempts), so a Block some Peers keep failing never stalls the feed for good.
+ *
+ * The current State (including Headers/sec and Blocks/sec) is available through {@link #getState()}.
+ */
+public class HeadersFirstSync {
+
+    private static final Logger log = LoggerFactory.getLogger(HeadersFirstSync.class);
+
+    // Max number of Headers in a HEADERS/HEADERS_EN Message:
+    public static final int MAX_HEADERS_PER_MSG = 2000;
+
+    // Frequency of the Job that checks timeouts, refreshes the Headers and calculates the speed:
+    private static final Duration JOB_FREQUENCY = Duration.ofSeconds(1);
+
+    /** Node of the Chain of Headers. It keeps its Height and the cumulative work of the Chain up to it */
+    public static class HeaderNode implements Node<Sha256Hash> {
+        private final LiteBlock block;
+
+        public HeaderNode(HeaderReadOnly header, int height, BigInteger chainWork) {
+            // The Chain Info clears the Hash of its Header when modified, so we work on a copy and set it again:
+            Sha256Hash headerHash = header.getHash();
+            Header headerBean = copyOf(header);
+            ChainInfoBean chainInfo = new ChainInfoBean(headerBean);
+            chainInfo.setHeight(height);
+            chainInfo.setChainWork(chainWork);
+            headerBean.setHash(headerHash);
+            LiteBlockBean block = new LiteBlockBean() {{
+                // The Hash is the one of the Header, NOT calculated again:
+                this.hash = headerHash;
+            }};
+            block.setHeader(headerBean);
+            block.setChainInfo(chainInfo);
+            this.block = block;
+        }
+
+        // A Node linked to the parent given:
+        public HeaderNode(HeaderReadOnly header, HeaderNode parent) {
+            this(header, parent.getHeight() + 1, parent.getChainWork().add(header.getWork()));
+        }
+
+        private static Header copyOf(HeaderReadOnly header) {
+            HeaderBean result = new HeaderBean((AbstractBlock) null);
+            result.setVersion(header.getVersion());
+            result.setPrevBlockHash(header.getPrevBlockHash());
+            result.setMerkleRoot(header.getMerkleRoot());
+            result.setTime(header.getTime());
+            result.setDifficultyTarget(header.getDifficultyTarget());
+            result.setNonce(header.getNonce());
+            result.setHash(header.getHash());
+            return result;
+        }
+
+        @Override
+        public Sha256Hash getId()                   { return block.getHash(); }
+        public HeaderReadOnly getHeader()           { return block.getHeader(); }
+        public int getHeight()                      { return block.getHeight(); }
+        public BigInteger getChainWork()            { return block.getChainWork(); }
+        LiteBlock getBlock()                        { return this.block; }
+    }
+
+    /*
+     * A read-only view of the Chain of Headers, so the consensus rules can walk back from a Header. It keeps track of
+     * whether the rules asked for a Header before the beginning of our Chain (in which case they cannot be evaluated).
+     */
+    private class ChainView implements BlockStore<LiteBlock> {
+        private boolean ancestorMissing;
+
+        @Override
+        public LiteBlock get(Sha256Hash hash) {
+            Optional<HeaderNode> node = chain.getNode(hash);
+            if (node.isEmpty()) ancestorMissing = true;
+            return node.map(HeaderNode::getBlock).orElse(null);
+        }
+        @Override
+        public LiteBlock getPrev(LiteBlock block)           { return get(block.getHeader().getPrevBlockHash()); }
+        @Override
+        public LiteBlock getChainHead()                     { return bestTip.getBlock(); }
+        @Override
+        public Boolean put(LiteBlock block)                 { throw new UnsupportedOperationException(); }
+        @Override
+        public void setChainHead(LiteBlock block)           { throw new UnsupportedOperationException(); }
+        @Override
+        public void close()                                 {}
+    }
+
+    /** A GET_HEADERS sent to a Peer, pending of reply */
+    private static class HeadersRequest {
+        private final Sha256Hash locator;
+        private final Instant timestamp = Instant.now();
+        HeadersRequest(Sha256Hash locator) { this.locator = locator; }
+    }
+
+    private final P2P p2p;
+    private final HeadersFirstSyncConfig config;
+    private final ChainMemStore<Sha256Hash, HeaderNode> chain;
+    // Consensus rules for the Difficulty (null if the Network is unknown, so only the Proof of Work is checked):
+    private final RuleCheckerFactory difficultyRules;
+    // Tip of the best Chain (the one with the most chainwork):
+    private volatile HeaderNode bestTip;
+
+    // Peers:
+    private final Set<PeerAddress> peers = ConcurrentHashMap.newKeySet();
+    private final Set<PeerAddress> misbehavingPeers = ConcurrentHashMap.newKeySet();
+
+    // Headers State. The processing of the Headers is serialized through this lock:
+    private final Object headersLock = new Object();
+    private final Map<PeerAddress, HeadersRequest> headersRequests = new ConcurrentHashMap<>();
+    private Sha256Hash lastLocatorRequested;
+    private Instant lastHeadersRequestTimestamp = Instant.MIN;
+    private volatile boolean headersSynced;
+    private volatile long numHeaders;
+
+    // Blocks State:
+    private final Object blocksLock = new Object();
+    private final Map<String, Long> blocksInFlight = new HashMap<>();
+    private final TreeSet<Long> heightsDownloaded = new TreeSet<>();
+    // Number of times each Block in flight has been requested:
+    private final Map<String, Integer> blockAttempts = new HashMap<>();
+    // Blocks in flight that failed too many times in a row, and the time they will be requested again:
+    private final Map<String, Instant> blocksWaitingRetry = new HashMap<>();
+    private long nextBlockHeight;
+    private long lowestPendingHeight;
+    private volatile long numBlocksDownloaded;
+    private volatile long numBlocksFailed;
+
+    // Speed:
+    private Instant lastSpeedTimestamp = Instant.now();
+    private long lastNumHeaders;
+    private long lastNumBlocksDownloaded;
+    private volatile double headersPerSec;
+    private volatile double blocksPerSec;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor.
+     * @param p2p       P2P Service
+     * @param config    Sync Configuration
+     */
+    public HeadersFirstSync(P2P p2p, HeadersFirstSyncConfig config) {
+        this.p2p = p2p;
+        this.config = config;
+        HeaderReadOnly startingHeader = (config.getStartingHeader() != null)
+                ? config.getStartingHeader()
+                : p2p.getProtocolConfig().getGenesisBlock().toBean();
+        this.bestTip = new HeaderNode(startingHeader, config.getStartingHeight(), startingHeader.getWork());
+        this.chain = new ChainMemStore<>(bestTip, config.getStartingHeight());
+        NetworkParameters networkParams = (config.getNetworkParams() != null)
+                ? config.getNetworkParams()
+                : findNetworkParams(p2p.getProtocolConfig());
+        if (networkParams == null) log.warn("Unknown Network: the Difficulty of the Headers won't be checked");
+        this.difficultyRules = (networkParams != null) ? RuleCheckerFactory.create(networkParams) : null;
+        this.numHeaders = 1;
+        this.nextBlockHeight = config.getStartingHeight() + 1;
+        this.lowestPendingHeight = this.nextBlockHeight;
+
+        // We feed this component with the Events from the P2P Service:
+        p2p.EVENTS.PEERS.HANDSHAKED.forEach(this::onPeerHandshaked);
+        p2p.EVENTS.PEERS.HANDSHAKED_DISCONNECTED.forEach(this::onPeerDisconnected);
+        p2p.EVENTS.MSGS.HEADERS.forEach(this::onHeadersMsgReceived);
+        p2p.EVENTS.MSGS.HEADERSEN.forEach(this::onHeadersEnMsgReceived);
+        p2p.EVENTS.BLOCKS.BLOCK_DOWNLOADED.forEach(this::onBlockDownloaded);
+        p2p.EVENTS.BLOCKS.BLOCK_DISCARDED.forEach(this::onBlockDiscarded);
+    }
+
+    /** Convenience constructor, using the default configuration */
+    public HeadersFirstSync(P2P p2p) {
+        this(p2p, new HeadersFirstSyncConfig());
+    }
+
+    // It returns the Network of the P2P Service, looking it up by its Genesis Block (and its Id, if several match):
+    private static NetworkParameters findNetworkParams(ProtocolConfig protocolConfig) {
+        String genesisHash = protocolConfig.getGenesisBlock().getHash().toString();
+        List<NetworkParameters> candidates = Arrays.stream(Net.values())
+                .map(Net::params)
+                .filter(p -> genesisHash.equals(p.genesisHash()))
+                .collect(Collectors.toList());
+        return candidates.stream()
+                .filter(p -> p.getId().equals(protocolConfig.getBasicConfig().getId()))
+                .findFirst()
+                .orElse((candidates.size() == 1) ? candidates.get(0) : null);
+    }
+
+    /** It starts the Synchronization */
+    public void start() {
+        this.executor = p2p.getRuntimeConfig().getExecutionModel().getScheduledLane("JclHeadersFirstSync");
+        this.executor.scheduleAtFixedRate(this::jobSync, JOB_FREQUENCY.toMillis(), JOB_FREQUENCY.toMillis(), TimeUnit.MILLISECONDS);
+        requestHeadersIfNeeded();
+    }
+
+    /** It stops the Synchronization */
+    public void stop() {
+        if (this.executor != null) this.executor.shutdownNow();
+    }
+
+    /** Returns the Chain of Headers built so far */
+    public ChainMemStore<Sha256Hash, HeaderNode> getChain() { return this.chain; }
+
+    /** Returns the current State */
+    public HeadersFirstSyncState getState() {
+        HeaderNode tip = bestTip;
+        synchronized (blocksLock) {
+            return new HeadersFirstSyncState(
+                    tip.getHeight(),
+                    tip.getId(),
+                    numHeaders,
+                    headersPerSec,
+                    headersRequests.size(),
+                    headersSynced,
+                    nextBlockHeight,
+                    lowestPendingHeight - 1,
+                    numBlocksDownloaded,
+                    blocksPerSec,
+                    blocksInFlight.size(),
+                    numBlocksFailed,
+                    blocksWaitingRetry.size());
+        }
+    }
+
+    // Event Handler:
+    private void onPeerHandshaked(PeerHandshakedEvent event) {
+        peers.add(event.getPeerAddress());
+        requestHeadersIfNeeded();
+    }
+
+    // Event Handler:
+    private void onPeerDisconnected(PeerHandshakedDisconnectedEvent event) {
+        peers.remove(event.getPeerAddress());
+        misbehavingPeers.remove(event.getPeerAddress());
+        headersRequests.remove(event.getPeerAddress());
+    }
+
+    // Event Handler:
+    private void onHeadersMsgReceived(HeadersMsgReceivedEvent event) {
+        List<BlockHeaderMsg> headerMsgs = event.getBtcMsg().getBody().getBlockHeaderMsgList();
+        List<HeaderReadOnly> headers = headerMsgs.stream().map(BlockHeaderMsg::toBean).collect(Collectors.toList());
+        processHeaders(event.getPeerAddress(), headers, headers.size() >= MAX_HEADERS_PER_MSG);
+    }
+
+    // Event Handler:
+    private void onHeadersEnMsgReceived(HeadersEnMsgReceivedEvent event) {
+        List<BlockHeaderEnMsg> headerMsgs = event.getBtcMsg().getBody().getBlockHeaderEnMsgList();
+        List<HeaderReadOnly> headers = headerMsgs.stream().map(BlockHeaderEnMsg::toBean).collect(Collectors.toList());
+        boolean moreHeaders = !headerMsgs.isEmpty() && !headerMsgs.get(headerMsgs.size() - 1).isNoMoreHeaders();
+        processHeaders(event.getPeerAddress(), headers, moreHeaders);
+    }
+
+    /*
+     * It processes a batch of Headers coming from a Peer. If there are more Headers after these, the next batch is
+     * requested BEFORE this batch is processed.
+     */
+    private void processHeaders(PeerAddress peerAddress, List<HeaderReadOnly> headers, boolean moreHeaders) {
+        if (misbehavingPeers.contains(peerAddress)) return;
+        synchronized (headersLock) {
+            HeadersRequest request = headersRequests.remove(peerAddress);
+            if (headers.isEmpty()) {
+                if (request != null) headersSynced = true;
+                return;
+            }
+
+            // If we already have the last Header, there is nothing new here (duplicate reply):
+            Sha256Hash lastHash = headers.get(headers.size() - 1).getHash();
+            if (chain.contains(lastHash)) return;
+
+            // Pipelining: we request the next batch straight away:
+            if (moreHeaders && !lastHash.equals(lastLocatorRequested)) {
+                requestHeaders(lastHash, peerAddress);
+            }
+
+            // If the first Header does not link to our Chain, we ask this Peer for the Headers after our Tip:
+            Sha256Hash firstParent = headers.get(0).getPrevBlockHash();
+            if (!chain.contains(firstParent)) {
+                if (headersRequests.isEmpty()) requestHeaders(bestTip.getId(), peerAddress);
+                return;
+            }
+
+            // We validate and link the Headers:
+            int numAdded = 0;
+            HeaderNode parent = chain.getNode(firstParent).get();
+            HeaderNode oldBestTip = bestTip;
+            HeaderNode newBestTip = null;
+            long maxTimestamp = Instant.now().plus(config.getMaxFutureBlockTime()).getEpochSecond();
+            for (HeaderReadOnly header : headers) {
+                HeaderNode node = new HeaderNode(header, parent);
+                String error = validate(node, parent, maxTimestamp);
+                if (error != null) {
+                    log.warn("Invalid Header {} from {}: {}. Peer won't be used for Headers anymore", header.getHash(), peerAddress, error);
+                    misbehavingPeers.add(peerAddress);
+                    break;
+                }
+                Boolean added = chain.addNode(parent.getId(), node);
+                if (Boolean.TRUE.equals(added)) {
+                    numAdded++;
+                    if (node.getChainWork().compareTo(bestTip.getChainWork()) > 0) newBestTip = node;
+                }
+                parent = chain.getNode(node.getId()).orElse(node);
+            }
+            numHeaders += numAdded;
+            if (newBestTip != null) {
+                bestTip = newBestTip;
+                rewindBlocks(oldBestTip, newBestTip);
+            }
+            if (!moreHeaders && request != null) headersSynced = true;
+        }
+        feedBlocks();
+    }
+
+    // It validates a Header. It returns null if valid, or the reason why it's NOT valid:
+    private String validate(HeaderNode node, HeaderNode parent, long maxTimestamp) {
+        HeaderReadOnly header = node.getHeader();
+        if (!header.getPrevBlockHash().equals(parent.getId())) return "Header does not link to the previous one";
+        if (header.getTime() > maxTimestamp) return "Timestamp too far in the future";
+        if (config.isCheckProofOfWork()) {
+            try {
+                BigInteger target = Utils.decodeCompactBits(header.getDifficultyTarget());
+                if (target.signum() <= 0 || header.getHash().toBigInteger().compareTo(target) > 0) return "Proof of Work not valid";
+            } catch (Exception e) {
+                return "Difficulty target not valid";
+            }
+            return validateDifficulty(node, parent);
+        }
+        return null;
+    }
+
+    /*
+     * It checks that the Difficulty of the Header is the one expected by the consensus rules. The rules need some
+     * Headers before this one (up to a whole retarget interval), so for the first Headers after the starting Header
+     * they cannot be evaluated, and only the Proof of Work is checked.
+     */
+    private String validateDifficulty(HeaderNode node, HeaderNode parent) {
+        if (difficultyRules == null) return null;
+        ChainView chainView = new ChainView();
+        try {
+            difficultyRules.getRuleChecker(parent.getBlock(), node.getBlock()).checkRules(parent.getBlock(), node.getBlock(), chainView);
+            return null;
+        } catch (VerificationException e) {
+            return chainView.ancestorMissing ? null : "Difficulty not valid: " + e.getMessage();
+        } catch (Exception e) {
+            log.trace("Difficulty of Header {} could not be checked: {}", node.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * It sends a GET_HEADERS to the Peer given (if any) and to other Peers, up to the number of Peers per Request.
+     * Only Peers not waiting for a reply already are used.
+     */
+    private void requestHeaders(Sha256Hash locator, PeerAddress preferredPeer) {
+        List<PeerAddress> candidates = peers.stream()
+                .filter(p -> !misbehavingPeers.contains(p) && !headersRequests.containsKey(p) && !p.equals(preferredPeer))
+                .collect(Collectors.toList());
+        Collections.shuffle(candidates);
+        if (preferredPeer != null && peers.contains(preferredPeer) && !headersRequests.containsKey(preferredPeer)) {
+            candidates.add(0, preferredPeer);
+        }
+
+        List<PeerAddress> peersToAsk = candidates.stream().limit(config.getHeadersPeersPerRequest()).collect(Collectors.toList());
+        if (peersToAsk.isEmpty()) return;
+
+        BodyMessage msg = (config.isUseEnrichedHeaders()) ? buildGetHeadersEnMsg(locator) : buildGetHeadersMsg(locator);
+        for (PeerAddress peerAddress : peersToAsk) {
+            headersRequests.put(peerAddress, new HeadersRequest(locator));
+            p2p.REQUESTS.MSGS.send(peerAddress, msg).submit();
+        }
+        lastLocatorRequested = locator;
+        lastHeadersRequestTimestamp = Instant.now();
+    }
+
+    // It requests Headers from our Tip, if we are not in sync and there are no requests in flight:
+    private void requestHeadersIfNeeded() {
+        if (executor == null) return;
+        synchronized (headersLock) {
+            if (!headersRequests.isEmpty()) return;
+            boolean refreshNeeded = Duration.between(lastHeadersRequestTimestamp, Instant.now()).compareTo(config.getHeadersRefreshInterval()) > 0;
+            if (headersSynced && !refreshNeeded) return;
+            requestHeaders(bestTip.getId(), null);
+        }
+    }
+
+    // It returns the Hashes to use as a Locator: the last 10 Blocks of the best Chain and then exponentially back:
+    private List<Sha256Hash> getLocator(Sha256Hash tip) {
+        List<Sha256Hash> result = new ArrayList<>();
+        int tipHeight = chain.getHeight(tip).orElse(config.getStartingHeight());
+        int step = 1;
+        for (long height = tipHeight; height > config.getStartingHeight(); height -= step) {
+            getBestChainHashAt(height).ifPresent(result::add);
+            if (result.size() >= 10) step *= 2;
+        }
+        if (result.isEmpty() || !result.get(0).equals(tip)) result.add(0, tip);
+        getBestChainHashAt(config.getStartingHeight()).ifPresent(result::add);
+        return result;
+    }
+
+    private GetHeadersMsg buildGetHeadersMsg(Sha256Hash locator) {
+        List<HashMsg> hashMsgs = getLocator(locator).stream()
+                .map(h -> HashMsg.builder().hash(h.getReversedBytes()).build())
+                .collect(Collectors.toList());
+        BaseGetDataAndHeaderMsg baseMsg = BaseGetDataAndHeaderMsg.builder()
+                .version(p2p.getProtocolConfig().getBasicConfig().getProtocolVersion())
+                .blockLocatorHash(hashMsgs)
+                .hashCount(VarIntMsg.builder().value(hashMsgs.size()).build())
+                .hashStop(HashMsg.builder().hash(Sha256Hash.ZERO_HASH.getBytes()).build())
+                .build();
+        return GetHeadersMsg.builder().baseGetDataAndHeaderMsg(baseMsg).build();
+    }
+
+    private GetHeadersEnMsg buildGetHeadersEnMsg(Sha256Hash locator) {
+        return GetHeadersEnMsg.builder()
+                .version(p2p.getProtocolConfig().getBasicConfig().getProtocolVersion())
+                .blockLocatorHash(HashMsg.builder().hash(locator.getReversedBytes()).build())
+                .hashStop(HashMsg.builder().hash(Sha256Hash.ZERO_HASH.getBytes()).build())
+                .build();
+    }
+
+    // It returns the Hash of the Block at the height given in the best Chain (the one with the most chainwork):
+    private Optional<Sha256Hash> getBestChainHashAt(long height) {
+        HeaderNode node = bestTip;
+        if (height > node.getHeight()) return Optional.empty();
+        List<Sha256Hash> nodes = chain.getNodesAtHeight(height);
+        if (nodes.size() <= 1) return nodes.stream().findFirst();
+        // There is a fork at this height, so we walk back from the Tip (forks are usually close to it):
+        while (node != null && node.getHeight() > height) node = chain.getParentNode(node.getId()).orElse(null);
+        return Optional.ofNullable(node).map(HeaderNode::getId);
+    }
+
+    // It returns the last Node that the Chains ending at the two Nodes given have in common:
+    private HeaderNode getForkNode(HeaderNode tipA, HeaderNode tipB) {
+        HeaderNode a = tipA;
+        HeaderNode b = tipB;
+        while (a != null && b != null && !a.getId().equals(b.getId())) {
+            if (a.getHeight() >= b.getHeight()) a = chain.getParentNode(a.getId()).orElse(null);
+            else                                b = chain.getParentNode(b.getId()).orElse(null);
+        }
+        return (a != null && b != null) ? a : null;
+    }
+
+    /*
+     * If the best Chain has switched to a different branch (reorg), the Blocks of the old branch above the fork point
+     * are no longer needed: their downloads are cancelled and the feed goes back to the fork point, so the Blocks of
+     * the new branch are requested from there.
+     */
+    private void rewindBlocks(HeaderNode oldTip, HeaderNode newTip) {
+        HeaderNode forkNode = getForkNode(oldTip, newTip);
+        long forkHeight = (forkNode != null) ? forkNode.getHeight() : config.getStartingHeight();
+        if (forkHeight >= oldTip.getHeight()) return; // The new Tip just extends the old one
+        List<String> blocksToCancel;
+        synchronized (blocksLock) {
+            if (nextBlockHeight <= forkHeight + 1) return;
+            blocksToCancel = blocksInFlight.entrySet().stream()
+                    .filter(e -> e.getValue() > forkHeight)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            blocksToCancel.forEach(blocksInFlight::remove);
+            blockAttempts.keySet().retainAll(blocksInFlight.keySet());
+            blocksWaitingRetry.keySet().retainAll(blocksInFlight.keySet());
+            heightsDownloaded.tailSet(forkHeight, false).clear();
+            nextBlockHeight = forkHeight + 1;
+            lowestPendingHeight = Math.min(lowestPendingHeight, nextBlockHeight);
+        }
+        log.info("Reorg from {} (height {}) to {} (height {}): Blocks feed rewound to height {}",
+                oldTip.getId(), oldTip.getHeight(), newTip.getId(), newTip.getHeight(), forkHeight + 1);
+        if (config.isDownloadBlocks() && !blocksToCancel.isEmpty()) p2p.REQUESTS.BLOCKS.cancelDownload(blocksToCancel).submit();
+    }
+
+    /*
+     * It hands over the next windows of Blocks to the BlockDownloader, in height order, up to the look-ahead limit.
+     */
+    private void feedBlocks() {
+        if (!config.isDownloadBlocks()) return;
+        List<List<String>> windows = new ArrayList<>();
+        synchronized (blocksLock) {
+            long bestHeight = bestTip.getHeight();
+            long maxHeight = Math.min(bestHeight, lowestPendingHeight + config.getBlocksLookAhead() - 1);
+            List<String> window = new ArrayList<>();
+            while (nextBlockHeight <= maxHeight) {
+                Optional<Sha256Hash> blockHash = getBestChainHashAt(nextBlockHeight);
+                if (blockHash.isEmpty()) break;
+                blocksInFlight.put(blockHash.get().toString(), nextBlockHeight);
+                window.add(blockHash.get().toString());
+                nextBlockHeight++;
+                if (window.size() >= config.getBlocksWindowSize()) {
+                    windows.add(window);
+                    window = new ArrayList<>();
+                }
+            }
+            if (!window.isEmpty()) windows.add(window);
+        }
+        windows.forEach(w -> p2p.REQUESTS.BLOCKS.download(w).submit());
+    }
+
+    // Event Handler:
+    private void onBlockDownloaded(BlockDownloadedEvent event) {
+        String blockHash = event.getBlockHeader().getHash().toString();
+        synchronized (blocksLock) {
+            Long height = blocksInFlight.remove(blockHash);
+            if (height == null) return;
+            blockAttempts.remove(blockHash);
+            blocksWaitingRetry.remove(blockHash);
+            numBlocksDownloaded++;
+            heightsDownloaded.add(height);
+            while (!heightsDownloaded.isEmpty() && heightsDownloaded.first() == lowestPendingHeight) {
+                heightsDownloaded.pollFirst();
+                lowestPendingHeight++;
+            }
+        }
+        feedBlocks();
+    }
+
+    /*
+     * Event Handler. The Blocks are needed in order, so a discarded Block is requested again, and with priority, up to
+     * the max number of attempts. After that it's reported as failed, and it stays in flight (the feed does NOT go
+     * past the look-ahead limit meanwhile) until it's requested again after a backoff (see "retryBlocks()").
+     */
+    private void onBlockDiscarded(BlockDiscardedEvent event) {
+        String blockHash = event.getHash();
+        int attempts;
+        synchronized (blocksLock) {
+            if (!blocksInFlight.containsKey(blockHash) || blocksWaitingRetry.containsKey(blockHash)) return;
+            attempts = blockAttempts.merge(blockHash, 1, Integer::sum);
+            if (attempts >= config.getMaxBlockDownloadAttempts()) {
+                blockAttempts.remove(blockHash);
+                blocksWaitingRetry.put(blockHash, Instant.now().plus(config.getBlockRetryBackoff()));
+                numBlocksFailed++;
+                log.warn("Block {} (height {}) discarded {} times. Retrying in {}", blockHash,
+                        blocksInFlight.get(blockHash), attempts, config.getBlockRetryBackoff());
+                return;
+            }
+        }
+        p2p.REQUESTS.BLOCKS.downloadWithPriority(blockHash).submit();
+    }
+
+    // It requests again the Blocks that failed too many times, once their backoff is over:
+    private void retryBlocks(Instant now) {
+        List<String> blocksToRetry;
+        synchronized (blocksLock) {
+            blocksToRetry = blocksWaitingRetry.entrySet().stream()
+                    .filter(e -> !e.getValue().isAfter(now))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            blocksToRetry.forEach(blocksWaitingRetry::remove);
+        }
+        if (!blocksToRetry.isEmpty()) log.info("Requesting again {} Blocks that failed before", blocksToRetry.size());
+        blocksToRetry.forEach(blockHash -> p2p.REQUESTS.BLOCKS.downloadWithPriority(blockHash).submit());
+    }
+
+    /*
+     * Job executed periodically: it re-sends the GET_HEADERS that timed out, refreshes the Headers once in sync,
+     * requests again the Blocks that failed before, and calculates the speed.
+     */
+    private void jobSync() {
+        try {
+            // Timeouts:
+            Instant now = Instant.now();
+            synchronized (headersLock) {
+                List<PeerAddress> expired = headersRequests.entrySet().stream()
+                        .filter(e -> Duration.between(e.getValue().timestamp, now).compareTo(config.getHeadersRequestTimeout()) > 0)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+                if (!expired.isEmpty()) {
+                    log.debug("GET_HEADERS to {} timed out", expired);
+                    expired.forEach(headersRequests::remove);
+                    if (headersRequests.isEmpty()) {
+                        headersSynced = false;
+                        requestHeaders(bestTip.getId(), null);
+                    }
+                }
+            }
+            requestHeadersIfNeeded();
+
+            // Blocks that failed before:
+            retryBlocks(now);
+
+            // Speed:
+            long millis = Math.max(1, Duration.between(lastSpeedTimestamp, now).toMillis());
+            long currentNumHeaders = numHeaders;
+            long currentNumBlocks = numBlocksDownloaded;
+            headersPerSec = (double) (currentNumHeaders - lastNumHeaders) * 1000 / millis;
+            blocksPerSec = (double) (currentNumBlocks - lastNumBlocksDownloaded) * 1000 / millis;
+            lastNumHeaders = currentNumHeaders;
+            lastNumBlocksDownloaded = currentNumBlocks;
+            lastSpeedTimestamp = now;
+            log.trace(getState().toString());
+        } catch (Exception e) {
+            log.error("Error in the HeadersFirstSync Job", e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package io.bitcoinsv.jcl.net.protocol.wrapper.sync;
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly;
+import io.bitcoinsv.bitcoinjsv.params.NetworkParameters;
+
+import java.time.Duration;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It stores the configuration variables needed by the HeadersFirstSync.
+ */
+public class HeadersFirstSyncConfig {
+
+    // Default Values:
+    public static final int DEFAULT_HEADERS_PEERS_PER_REQUEST = 2;
+    public static final Duration DEFAULT_HEADERS_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_HEADERS_REFRESH_INTERVAL = Duration.ofMinutes(1);
+    public static final int DEFAULT_BLOCKS_LOOK_AHEAD = 500;
+    public static final int DEFAULT_BLOCKS_WINDOW_SIZE = 50;
+    public static final int DEFAULT_MAX_BLOCK_DOWNLOAD_ATTEMPTS = 5;
+    public static final Duration DEFAULT_BLOCK_RETRY_BACKOFF = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_MAX_FUTURE_BLOCK_TIME = Duration.ofHours(2);
+
+    // Header the Chain starts from, and its Height. If not specified, the Genesis Block of the Network is used:
+    private HeaderReadOnly startingHeader;
+    private int startingHeight = 0;
+
+    // Number of Peers each GET_HEADERS is sent to. The first one to reply wins:
+    private int headersPeersPerRequest = DEFAULT_HEADERS_PEERS_PER_REQUEST;
+    // Time we wait for a HEADERS reply before asking other Peers:
+    private Duration headersRequestTimeout = DEFAULT_HEADERS_REQUEST_TIMEOUT;
+    // Once the Headers are in sync, time between new GET_HEADERS, to keep up with the new Blocks:
+    private Duration headersRefreshInterval = DEFAULT_HEADERS_REFRESH_INTERVAL;
+    // If TRUE, the GET_HEADERS_EN/HEADERS_EN (enriched headers) messages are used instead:
+    private boolean useEnrichedHeaders = false;
+    // If FALSE, the Proof of Work of the Headers is NOT checked (useful for testing):
+    private boolean checkProofOfWork = true;
+    // Network whose consensus rules are used to check the Difficulty of each Header (retargets, EDA, DAA). If not
+    // specified, it's the one of the P2P Service (if it's a known Network):
+    private NetworkParameters networkParams;
+    // Max time in the future a Header timestamp can be:
+    private Duration maxFutureBlockTime = DEFAULT_MAX_FUTURE_BLOCK_TIME;
+
+    // If TRUE, the Blocks are handed over to the BlockDownloader as the Headers are linked:
+    private boolean downloadBlocks = true;
+    // Max distance (in height) between the lowest Block not downloaded yet and the highest Block requested:
+    private int blocksLookAhead = DEFAULT_BLOCKS_LOOK_AHEAD;
+    // Max number of Blocks handed over to the BlockDownloader in each request:
+    private int blocksWindowSize = DEFAULT_BLOCKS_WINDOW_SIZE;
+    // Max number of times in a row a Block is requested. After that, it's reported as failed and requested again
+    // after the "blockRetryBackoff":
+    private int maxBlockDownloadAttempts = DEFAULT_MAX_BLOCK_DOWNLOAD_ATTEMPTS;
+    private Duration blockRetryBackoff = DEFAULT_BLOCK_RETRY_BACKOFF;
+
+    public HeadersFirstSyncConfig(HeaderReadOnly startingHeader,
+                                  Integer startingHeight,
+                                  Integer headersPeersPerRequest,
+                                  Duration headersRequestTimeout,
+                                  Duration headersRefreshInterval,
+                                  Boolean useEnrichedHeaders,
+                                  Boolean checkProofOfWork,
+                                  NetworkParameters networkParams,
+                                  Duration maxFutureBlockTime,
+                                  Boolean downloadBlocks,
+                                  Integer blocksLookAhead,
+                                  Integer blocksWindowSize,
+                                  Integer maxBlockDownloadAttempts,
+                                  Duration blockRetryBackoff) {
+        this.startingHeader = startingHeader;
+        if (startingHeight != null)         this.startingHeight = startingHeight;
+        if (headersPeersPerRequest != null) this.headersPeersPerRequest = Math.max(1, headersPeersPerRequest);
+        if (headersRequestTimeout != null)  this.headersRequestTimeout = headersRequestTimeout;
+        if (headersRefreshInterval != null) this.headersRefreshInterval = headersRefreshInterval;
+        if (useEnrichedHeaders != null)     this.useEnrichedHeaders = useEnrichedHeaders;
+        if (checkProofOfWork != null)       this.checkProofOfWork = checkProofOfWork;
+        this.networkParams = networkParams;
+        if (maxFutureBlockTime != null)     this.maxFutureBlockTime = maxFutureBlockTime;
+        if (downloadBlocks != null)         this.downloadBlocks = downloadBlocks;
+        if (blocksLookAhead != null)        this.blocksLookAhead = Math.max(1, blocksLookAhead);
+        if (blocksWindowSize != null)       this.blocksWindowSize = Math.max(1, blocksWindowSize);
+        if (maxBlockDownloadAttempts != null) this.maxBlockDownloadAttempts = Math.max(1, maxBlockDownloadAttempts);
+        if (blockRetryBackoff != null)      this.blockRetryBackoff = blockRetryBackoff;
+    }
+
+    public HeadersFirstSyncConfig() {}
+
+    public HeaderReadOnly getStartingHeader()       { return this.startingHeader; }
+    public int getStartingHeight()                  { return this.startingHeight; }
+    public int getHeadersPeersPerRequest()          { return this.headersPeersPerRequest; }
+    public Duration getHeadersRequestTimeout()      { return this.headersRequestTimeout; }
+    public Duration getHeadersRefreshInterval()     { return this.headersRefreshInterval; }
+    public boolean isUseEnrichedHeaders()           { return this.useEnrichedHeaders; }
+    public boolean isCheckProofOfWork()             { return this.checkProofOfWork; }
+    public NetworkParameters getNetworkParams()     { return this.networkParams; }
+    public Duration getMaxFutureBlockTime()         { return this.maxFutureBlockTime; }
+    public boolean isDownloadBlocks()               { return this.downloadBlocks; }
+    public int getBlocksLookAhead()                 { return this.blocksLookAhead; }
+    public int getBlocksWindowSize()                { return this.blocksWindowSize; }
+    public int getMaxBlockDownloadAttempts()        { return this.maxBlockDownloadAttempts; }
+    public Duration getBlockRetryBackoff()          { return this.blockRetryBackoff; }
+
+    public HeadersFirstSyncConfigBuilder toBuilder() {
+        return new HeadersFirstSyncConfigBuilder()
+                .startingHeader(this.startingHeader)
+                .startingHeight(this.startingHeight)
+                .headersPeersPerRequest(this.headersPeersPerRequest)
+                .headersRequestTimeout(this.headersRequestTimeout)
+                .headersRefreshInterval(this.headersRefreshInterval)
+                .useEnrichedHeaders(this.useEnrichedHeaders)
+                .checkProofOfWork(this.checkProofOfWork)
+                .networkParams(this.networkParams)
+                .maxFutureBlockTime(this.maxFutureBlockTime)
+                .downloadBlocks(this.downloadBlocks)
+                .blocksLookAhead(this.blocksLookAhead)
+                .blocksWindowSize(this.blocksWindowSize)
+                .maxBlockDownloadAttempts(this.maxBlockDownloadAttempts)
+                .blockRetryBackoff(this.blockRetryBackoff);
+    }
+
+    public static HeadersFirstSyncConfigBuilder builder() {
+        return new HeadersFirstSyncConfigBuilder();
+    }
+
+    /**
+     * Builder
+     */
+    public static class HeadersFirstSyncConfigBuilder {
+        private HeaderReadOnly startingHeader;
+        private Integer startingHeight;
+        private Integer headersPeersPerRequest;
+        private Duration headersRequestTimeout;
+        private Duration headersRefreshInterval;
+        private Boolean useEnrichedHeaders;
+        private Boolean checkProofOfWork;
+        private NetworkParameters networkParams;
+        private Duration maxFutureBlockTime;
+        private Boolean downloadBlocks;
+        private Integer blocksLookAhead;
+        private Integer blocksWindowSize;
+        private Integer maxBlockDownloadAttempts;
+        private Duration blockRetryBackoff;
+
+        HeadersFirstSyncConfigBuilder() {}
+
+        public HeadersFirstSyncConfigBuilder startingHeader(HeaderReadOnly startingHeader) {
+            this.startingHeader = startingHeader;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder startingHeight(int startingHeight) {
+            this.startingHeight = startingHeight;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder headersPeersPerRequest(int headersPeersPerRequest) {
+            this.headersPeersPerRequest = headersPeersPerRequest;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder headersRequestTimeout(Duration headersRequestTimeout) {
+            this.headersRequestTimeout = headersRequestTimeout;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder headersRefreshInterval(Duration headersRefreshInterval) {
+            this.headersRefreshInterval = headersRefreshInterval;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder useEnrichedHeaders(boolean useEnrichedHeaders) {
+            this.useEnrichedHeaders = useEnrichedHeaders;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder checkProofOfWork(boolean checkProofOfWork) {
+            this.checkProofOfWork = checkProofOfWork;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder networkParams(NetworkParameters networkParams) {
+            this.networkParams = networkParams;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder maxFutureBlockTime(Duration maxFutureBlockTime) {
+            this.maxFutureBlockTime = maxFutureBlockTime;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder downloadBlocks(boolean downloadBlocks) {
+            this.downloadBlocks = downloadBlocks;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder blocksLookAhead(int blocksLookAhead) {
+            this.blocksLookAhead = blocksLookAhead;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder blocksWindowSize(int blocksWindowSize) {
+            this.blocksWindowSize = blocksWindowSize;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder maxBlockDownloadAttempts(int maxBlockDownloadAttempts) {
+            this.maxBlockDownloadAttempts = maxBlockDownloadAttempts;
+            return this;
+        }
+
+        public HeadersFirstSyncConfigBuilder blockRetryBackoff(Duration blockRetryBackoff) {
+            this.blockRetryBackoff = blockRetryBackoff;
+            return this;
+        }
+
+        public HeadersFirstSyncConfig build() {
+            return new HeadersFirstSyncConfig(startingHeader, startingHeight, headersPeersPerRequest,
+                    headersRequestTimeout, headersRefreshInterval, useEnrichedHeaders, checkProofOfWork,
+                    networkParams, maxFutureBlockTime, downloadBlocks, blocksLookAhead, blocksWindowSize,
+                    maxBlockDownloadAttempts, blockRetryBackoff);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.bitcoinsv.jcl.net.protocol.wrapper.sync;
+
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash;
+
+import java.text.DecimalFormat;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It stores the State of the HeadersFirstSync at a point in time: the progress of the Headers and of the Blocks,
+ * and the speed (Headers/sec and Blocks/sec) measured during the last interval.
+ */
+public final class HeadersFirstSyncState {
+
+    // Headers:
+    private final long bestHeaderHeight;
+    private final Sha256Hash bestHeaderHash;
+    private final long numHeaders;
+    private final double headersPerSec;
+    private final int headersRequestsInFlight;
+    private final boolean headersSynced;
+
+    // Blocks:
+    private final long nextBlockHeight;
+    private final long blocksDownloadedHeight;
+    private final long numBlocksDownloaded;
+    private final double blocksPerSec;
+    private final int blocksInFlight;
+    private final long numBlocksFailed;
+    private final int blocksWaitingRetry;
+
+    public HeadersFirstSyncState(long bestHeaderHeight, Sha256Hash bestHeaderHash, long numHeaders, double headersPerSec,
+                                 int headersRequestsInFlight, boolean headersSynced,
+                                 long nextBlockHeight, long blocksDownloadedHeight, long numBlocksDownloaded,
+                                 double blocksPerSec, int blocksInFlight, long numBlocksFailed,
+                                 int blocksWaitingRetry) {
+        this.bestHeaderHeight = bestHeaderHeight;
+        this.bestHeaderHash = bestHeaderHash;
+        this.numHeaders = numHeaders;
+        this.headersPerSec = headersPerSec;
+        this.headersRequestsInFlight = headersRequestsInFlight;
+        this.headersSynced = headersSynced;
+        this.nextBlockHeight = nextBlockHeight;
+        this.blocksDownloadedHeight = blocksDownloadedHeight;
+        this.numBlocksDownloaded = numBlocksDownloaded;
+        this.blocksPerSec = blocksPerSec;
+        this.blocksInFlight = blocksInFlight;
+        this.numBlocksFailed = numBlocksFailed;
+        this.blocksWaitingRetry = blocksWaitingRetry;
+    }
+
+    public long getBestHeaderHeight()       { return this.bestHeaderHeight; }
+    public Sha256Hash getBestHeaderHash()   { return this.bestHeaderHash; }
+    public long getNumHeaders()             { return this.numHeaders; }
+    public double getHeadersPerSec()        { return this.headersPerSec; }
+    public int getHeadersRequestsInFlight() { return this.headersRequestsInFlight; }
+    public boolean isHeadersSynced()        { return this.headersSynced; }
+    public long getNextBlockHeight()        { return this.nextBlockHeight; }
+    public long getBlocksDownloadedHeight() { return this.blocksDownloadedHeight; }
+    public long getNumBlocksDownloaded()    { return this.numBlocksDownloaded; }
+    public double getBlocksPerSec()         { return this.blocksPerSec; }
+    public int getBlocksInFlight()          { return this.blocksInFlight; }
+    public long getNumBlocksFailed()        { return this.numBlocksFailed; }
+    public int getBlocksWaitingRetry()      { return this.blocksWaitingRetry; }
+
+    @Override
+    public String toString() {
+        DecimalFormat format = new DecimalFormat("#0.0");
+        StringBuffer result = new StringBuffer();
+        result.append("HeadersFirstSync State: ");
+        result.append("Headers: height ").append(bestHeaderHeight);
+        result.append(headersSynced ? " (synced)" : "");
+        result.append(", ").append(format.format(headersPerSec)).append(" headers/sec");
+        result.append(", ").append(headersRequestsInFlight).append(" requests in flight");
+        result.append(" : Blocks: height ").append(blocksDownloadedHeight);
+        result.append(", ").append(numBlocksDownloaded).append(" downloaded");
+        result.append(", ").append(format.format(blocksPerSec)).append(" blocks/sec");
+        result.append(", ").append(blocksInFlight).append(" in flight (next: ").append(nextBlockHeight).append(")");
+        result.append(numBlocksFailed > 0 ? ", " + numBlocksFailed + " failed" : "");
+        result.append(blocksWaitingRetry > 0 ? " (" + blocksWaitingRetry + " waiting to retry)" : "");
+        return result.toString();
+    }
+}
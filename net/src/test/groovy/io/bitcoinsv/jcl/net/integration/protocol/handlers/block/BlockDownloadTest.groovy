@@ -17,7 +17,6 @@ import io.bitcoinsv.jcl.tools.config.RuntimeConfig
 import io.bitcoinsv.jcl.tools.config.provided.RuntimeConfigDefault
 import io.bitcoinsv.jcl.tools.thread.ThreadUtils
 import io.bitcoinsv.bitcoinjsv.core.Utils
-import io.bitcoinsv.jcl.tools.util.EventsHistory
 import spock.lang.Ignore
 import spock.lang.Specification
 
@@ -291,10 +290,10 @@ class BlockDownloadTest extends Specification {
 
             // Now we show the History of ALL the blocks:
             println(" TEST DONE. Printing the Whole Download Hisatory:\n");
-            Map<String, EventsHistory.HistoricItem> history = downloadState.blocksHistory;
+            Map<String, List<BlocksDownloadHistory.HistoricItem>> history = downloadState.blocksHistory;
             for (String blockHash: history.keySet()) {
                 println(" > block " + blockHash + " :");
-                for (EventsHistory.HistoricItem historicItem : history.get(blockHash)) {
+                for (BlocksDownloadHistory.HistoricItem historicItem : history.get(blockHash)) {
                     println("  - " + historicItem.toString());
                 }
             }
@@ -0,0 +1,90 @@
+package io.bitcoinsv.jcl.net.performance
+
+import io.bitcoinsv.jcl.net.network.PeerAddress
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlockDownloaderHandlerConfig
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlocksPendingManager
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Performance Testing of the BlocksPendingManager. We queue a big number of Blocks (like during the download of the
+ * whole chain) and we assign all of them to a set of Peers, checking that the time it takes to assign each Block does
+ * not depend on the number of Blocks pending.
+ */
+class BlocksPendingManagerPerformanceTest extends Specification {
+
+    // Number of Blocks queued and Peers connected:
+    private static final int NUM_BLOCKS = 500_000
+    private static final int NUM_PEERS = 100
+
+    // Max time allowed to queue and assign all the Blocks:
+    private static final Duration MAX_TIME_TO_QUEUE = Duration.ofSeconds(5)
+    private static final Duration MAX_TIME_TO_ASSIGN = Duration.ofSeconds(20)
+
+    private static String blockHash(int index) {
+        return String.format("%064x", index)
+    }
+
+    def "Testing assignment of queued Blocks"() {
+        given:
+            List<PeerAddress> peers = new ArrayList<>()
+            for (int i = 0; i < NUM_PEERS; i++) peers.add(PeerAddress.localhost(10_000 + i))
+
+            List<String> blocks = new ArrayList<>()
+            for (int i = 0; i < NUM_BLOCKS; i++) blocks.add(blockHash(i))
+
+            BlocksPendingManager blocksPendingManager = new BlocksPendingManager()
+            blocksPendingManager.setBestMatchCriteria(bestMatchCriteria)
+
+            // If Blocks are downloaded from their announcers, each Block is announced by 5 Peers:
+            if (bestMatchCriteria == BlockDownloaderHandlerConfig.BestMatchCriteria.FROM_ANNOUNCERS) {
+                for (int i = 0; i < NUM_BLOCKS; i++) {
+                    for (int j = 0; j < 5; j++) blocksPendingManager.registerBlockAnnouncement(blocks.get(i), peers.get((i + j * 7) % NUM_PEERS))
+                }
+            }
+
+        when:
+            // We queue all the Blocks, 10% of them with priority:
+            Instant queueBegin = Instant.now()
+            blocksPendingManager.add(blocks.subList(0, NUM_BLOCKS - NUM_BLOCKS / 10 as int))
+            blocksPendingManager.addWithPriority(blocks.subList(NUM_BLOCKS - NUM_BLOCKS / 10 as int, NUM_BLOCKS))
+            Duration queueTime = Duration.between(queueBegin, Instant.now())
+
+            // We assign Blocks to the Peers in a round-robin fashion until there are no more Blocks. All the Peers
+            // are available except the one being assigned:
+            Instant assignBegin = Instant.now()
+            int numAssigned = 0
+            int numRounds = 0
+            boolean moreBlocks = true
+            while (moreBlocks) {
+                moreBlocks = false
+                for (PeerAddress peer : peers) {
+                    List<PeerAddress> otherPeers = new ArrayList<>(peers)
+                    otherPeers.remove(peer)
+                    Optional<String> block = blocksPendingManager.extractMostSuitableBlockForDownload(peer, otherPeers, Collections.emptyList())
+                    if (block.isPresent()) {
+                        numAssigned++
+                        moreBlocks = true
+                    }
+                }
+                numRounds++
+            }
+            Duration assignTime = Duration.between(assignBegin, Instant.now())
+
+            println(bestMatchCriteria.toString() + ": " + NUM_BLOCKS + " Blocks queued in " + queueTime.toMillis() + " ms")
+            println(bestMatchCriteria.toString() + ": " + numAssigned + " Blocks assigned to " + NUM_PEERS + " Peers in "
+                    + assignTime.toMillis() + " ms (" + (assignTime.toNanos() / numAssigned / 1000) + " microsecs/block, " + numRounds + " rounds)")
+
+        then:
+            numAssigned == NUM_BLOCKS
+            blocksPendingManager.size() == 0
+            queueTime.compareTo(MAX_TIME_TO_QUEUE) < 0
+            assignTime.compareTo(MAX_TIME_TO_ASSIGN) < 0
+
+        where:
+            bestMatchCriteria << [BlockDownloaderHandlerConfig.BestMatchCriteria.FROM_ANYONE,
+                                  BlockDownloaderHandlerConfig.BestMatchCriteria.FROM_ANNOUNCERS]
+    }
+}
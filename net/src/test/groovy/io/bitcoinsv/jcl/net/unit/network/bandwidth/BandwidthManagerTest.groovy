@@ -0,0 +1,67 @@
+package io.bitcoinsv.jcl.net.unit.network.bandwidth
+
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthConfig
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthManager
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthState
+import io.bitcoinsv.jcl.net.network.bandwidth.TrafficClass
+import io.bitcoinsv.jcl.tools.metrics.MetricsRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+
+/**
+ * A Testing class for the BandwidthManager: the global, per-Peer and per-class limits are all enforced, and the
+ * bytes transferred are reported by class.
+ */
+class BandwidthManagerTest extends Specification {
+
+    def "Testing limits global, per peer and per class"() {
+        given:
+            BandwidthConfig config = BandwidthConfig.builder()
+                    .maxBytesOutPerSec(1_000_000)
+                    .peerMaxBytesOutPerSec(100_000)
+                    .maxBytesOutPerSec(TrafficClass.BLOCKS, 50_000)
+                    .burst(Duration.ofSeconds(1))
+                    .build()
+            BandwidthManager manager = new BandwidthManager(config, MetricsRegistry.DISABLED)
+            BandwidthManager.PeerBandwidth peer1 = manager.newPeer()
+            BandwidthManager.PeerBandwidth peer2 = manager.newPeer()
+            BandwidthManager.Direction OUT = BandwidthManager.Direction.OUT
+        when:
+            long blocksAllowance = manager.allowance(OUT, peer1, TrafficClass.BLOCKS)
+            long controlAllowance = manager.allowance(OUT, peer1, TrafficClass.CONTROL)
+            manager.record(OUT, peer1, TrafficClass.BLOCKS, 50_000)
+            long blocksAllowanceAfter = manager.allowance(OUT, peer2, TrafficClass.BLOCKS)
+            long peer1ControlAfter = manager.allowance(OUT, peer1, TrafficClass.CONTROL)
+            long peer2ControlAfter = manager.allowance(OUT, peer2, TrafficClass.CONTROL)
+            long waitNanos = manager.nanosUntilAllowed(OUT, peer2, TrafficClass.BLOCKS)
+            long inAllowance = manager.allowance(BandwidthManager.Direction.IN, peer1, TrafficClass.BLOCKS)
+            BandwidthState state = manager.getState()
+            manager.stop()
+        then:
+            blocksAllowance == 50_000
+            controlAllowance == 100_000
+            // The Blocks budget is shared by all the Peers:
+            blocksAllowanceAfter <= 1_000
+            // The Peer budget is only consumed for that Peer:
+            peer1ControlAfter <= 51_000
+            peer2ControlAfter == 100_000
+            waitNanos > 0
+            inAllowance == Long.MAX_VALUE
+            state.getTotalBytesOut(TrafficClass.BLOCKS) == 50_000
+            state.getTotalBytesOut(TrafficClass.CONTROL) == 0
+            state.getBytesOutPerSec(TrafficClass.BLOCKS) > 0
+    }
+
+    def "Testing Manager without limits"() {
+        given:
+            BandwidthManager manager = new BandwidthManager()
+            BandwidthManager.PeerBandwidth peer = manager.newPeer()
+        when:
+            manager.record(BandwidthManager.Direction.IN, peer, TrafficClass.TXS, 1_000_000_000)
+        then:
+            !manager.isLimited()
+            manager.allowance(BandwidthManager.Direction.IN, peer, TrafficClass.TXS) == Long.MAX_VALUE
+            manager.getState().getTotalBytesIn(TrafficClass.TXS) == 1_000_000_000
+    }
+}
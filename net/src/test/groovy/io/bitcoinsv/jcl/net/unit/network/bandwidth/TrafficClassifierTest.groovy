@@ -0,0 +1,77 @@
+package io.bitcoinsv.jcl.net.unit.network.bandwidth
+
+import io.bitcoinsv.jcl.net.network.bandwidth.TrafficClass
+import io.bitcoinsv.jcl.net.network.bandwidth.TrafficClassifier
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.charset.StandardCharsets
+
+/**
+ * A Testing class for the TrafficClassifier: the bytes are broken down into classes following the framing of the
+ * messages, no matter how they are split in chunks.
+ */
+class TrafficClassifierTest extends Specification {
+
+    // It builds a message with a Header (regular or extended) and a body of the length given:
+    static byte[] buildMsg(String command, int bodyLength, boolean extended) {
+        ByteBuffer buffer = ByteBuffer.allocate((extended ? 44 : 24) + bodyLength).order(ByteOrder.LITTLE_ENDIAN)
+        buffer.putInt((int) 0xe8f3e1e3L)
+        buffer.put(Arrays.copyOf((extended ? "extmsg" : command).getBytes(StandardCharsets.US_ASCII), 12))
+        buffer.putInt(extended ? -1 : bodyLength)
+        buffer.putInt(0)
+        if (extended) {
+            buffer.put(Arrays.copyOf(command.getBytes(StandardCharsets.US_ASCII), 12))
+            buffer.putLong(bodyLength)
+        }
+        return buffer.array()
+    }
+
+    def "Testing bytes classified by message, in chunks of any size"() {
+        given:
+            ByteArrayOutputStream stream = new ByteArrayOutputStream()
+            stream.write(buildMsg("ping", 8, false))
+            stream.write(buildMsg("block", 1000, false))
+            stream.write(buildMsg("verack", 0, false))
+            stream.write(buildMsg("tx", 300, true))
+            byte[] data = stream.toByteArray()
+            TrafficClassifier classifier = new TrafficClassifier()
+            Map<TrafficClass, Long> bytes = new HashMap<>()
+            List<Long> msgLengths = new ArrayList<>()
+        when:
+            for (int i = 0; i < data.length; i += chunkSize) {
+                classifier.feed(data, i, Math.min(chunkSize, data.length - i), { c, start, msgLength, d, offset, length ->
+                    bytes.merge(c, (long) length, Long::sum)
+                    if (start) msgLengths.add(msgLength)
+                })
+            }
+        then:
+            classifier.isFramed()
+            bytes.get(TrafficClass.CONTROL) == 32 + 24
+            bytes.get(TrafficClass.BLOCKS) == 1024
+            bytes.get(TrafficClass.TXS) == 344
+            msgLengths == [32L, 1024L, 24L, 344L]
+        where:
+            chunkSize << [1, 7, 30, 5000]
+    }
+
+    def "Testing bytes that are not Bitcoin messages"() {
+        given:
+            byte[] data = new byte[100]
+            new Random().nextBytes(data)
+            data[4] = (byte) 0xFF
+            TrafficClassifier classifier = new TrafficClassifier()
+            long controlBytes = 0
+            boolean anyStart = false
+        when:
+            classifier.feed(data, 0, data.length, { c, start, msgLength, d, offset, length ->
+                if (c == TrafficClass.CONTROL) controlBytes += length
+                anyStart |= start
+            })
+        then:
+            !classifier.isFramed()
+            controlBytes == 100
+            !anyStart
+    }
+}
@@ -0,0 +1,50 @@
+package io.bitcoinsv.jcl.net.unit.network.bandwidth
+
+import io.bitcoinsv.jcl.net.network.bandwidth.BandwidthConfig
+import io.bitcoinsv.jcl.net.network.bandwidth.TrafficClass
+import io.bitcoinsv.jcl.net.network.bandwidth.WeightedFairQueue
+import spock.lang.Specification
+
+/**
+ * A Testing class for the WeightedFairQueue: the bytes are shared between the classes according to their weights,
+ * and the order within each class is kept.
+ */
+class WeightedFairQueueTest extends Specification {
+
+    def "Testing control traffic not starved by a backlog of blocks"() {
+        given:
+            WeightedFairQueue<String> queue = new WeightedFairQueue<>(new BandwidthConfig())
+            for (int i = 0; i < 10; i++) queue.offer(TrafficClass.BLOCKS, "block" + i, 1_000_000)
+            queue.offer(TrafficClass.CONTROL, "ping", 32)
+        when:
+            String first = queue.poll()
+            String second = queue.poll()
+            List<String> rest = new ArrayList<>()
+            while (!queue.isEmpty()) rest.add(queue.poll())
+        then:
+            // The control message does not wait for the whole backlog of blocks:
+            [first, second].contains("ping")
+            rest == (1..9).collect { "block" + it }
+            queue.poll() == null
+    }
+
+    def "Testing bytes shared according to the weights"() {
+        given:
+            BandwidthConfig config = BandwidthConfig.builder()
+                    .weight(TrafficClass.TXS, 3)
+                    .weight(TrafficClass.BLOCKS, 1)
+                    .build()
+            WeightedFairQueue<TrafficClass> queue = new WeightedFairQueue<>(config)
+            int MSG_SIZE = 10_000
+            for (int i = 0; i < 1000; i++) {
+                queue.offer(TrafficClass.TXS, TrafficClass.TXS, MSG_SIZE)
+                queue.offer(TrafficClass.BLOCKS, TrafficClass.BLOCKS, MSG_SIZE)
+            }
+        when:
+            Map<TrafficClass, Integer> served = new HashMap<>()
+            for (int i = 0; i < 400; i++) served.merge(queue.poll(), 1, Integer::sum)
+            double ratio = served.get(TrafficClass.TXS) / served.get(TrafficClass.BLOCKS)
+        then:
+            ratio > 2.5 && ratio < 3.5
+    }
+}
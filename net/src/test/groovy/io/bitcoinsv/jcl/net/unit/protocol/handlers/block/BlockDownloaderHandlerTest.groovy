@@ -0,0 +1,86 @@
+package io.bitcoinsv.jcl.net.unit.protocol.handlers.block
+
+import io.bitcoinsv.bitcoinjsv.params.MainNetParams
+import io.bitcoinsv.bitcoinjsv.params.Net
+import io.bitcoinsv.jcl.net.network.PeerAddress
+import io.bitcoinsv.jcl.net.network.events.NetStartEvent
+import io.bitcoinsv.jcl.net.network.events.NetStopEvent
+import io.bitcoinsv.jcl.net.protocol.config.ProtocolConfig
+import io.bitcoinsv.jcl.net.protocol.config.ProtocolConfigBuilder
+import io.bitcoinsv.jcl.net.protocol.events.control.PeerHandshakedEvent
+import io.bitcoinsv.jcl.net.protocol.events.control.SendMsgRequest
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlockDownloaderHandlerConfig
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlockDownloaderHandlerImpl
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlockPeerInfo
+import io.bitcoinsv.jcl.net.protocol.messages.GetdataMsg
+import io.bitcoinsv.jcl.tools.config.provided.RuntimeConfigDefault
+import io.bitcoinsv.jcl.tools.events.EventBus
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * A Testing class to check that Blocks are assigned to Peers as soon as they are requested, without waiting for any
+ * periodic Job.
+ */
+class BlockDownloaderHandlerTest extends Specification {
+
+    String blockA = "00000000000000000a53e4b1ce6b8a6ac5d89bf8d4eb6a73e1f4b4f36f0b0a01"
+    String blockB = "00000000000000000a53e4b1ce6b8a6ac5d89bf8d4eb6a73e1f4b4f36f0b0a02"
+
+    def "blocks requested right after download()"() {
+        given:
+        ProtocolConfig protocolConfig = ProtocolConfigBuilder.get(new MainNetParams(Net.MAINNET))
+        BlockDownloaderHandlerConfig config = BlockDownloaderHandlerConfig.builder()
+                .basicConfig(protocolConfig.getBasicConfig())
+                .maxBlocksInParallel(2)
+                .build()
+        BlockDownloaderHandlerImpl handler = new BlockDownloaderHandlerImpl("test", new RuntimeConfigDefault(), config)
+        EventBus eventBus = EventBus.builder().build()
+        handler.useEventBus(eventBus)
+        handler.init()
+
+        // We keep track of the moment each Block is requested (GETDATA sent):
+        List<Long> requestTimestamps = new CopyOnWriteArrayList<>()
+        CountDownLatch warmUpLatch = new CountDownLatch(1)
+        CountDownLatch latch = new CountDownLatch(2)
+        eventBus.subscribe(SendMsgRequest.class, { e ->
+            if (((SendMsgRequest) e).getBtcMsg().getBody() instanceof GetdataMsg) {
+                requestTimestamps.add(System.nanoTime())
+                warmUpLatch.countDown()
+                latch.countDown()
+            }
+        })
+
+        // 2 Peers connected and handshaked:
+        PeerAddress peer1 = PeerAddress.localhost(0001)
+        PeerAddress peer2 = PeerAddress.localhost(0002)
+        handler.onNetStart(new NetStartEvent(null))
+        [peer1, peer2].each { peer ->
+            handler.handlerInfo.put(peer, new BlockPeerInfo(peer, null))
+            handler.onPeerHandshaked(new PeerHandshakedEvent(peer, null))
+        }
+
+        when:
+        // The first download warms up the process, the second one is measured. The first GETDATA built is much slower
+        // (classes loaded, serializers initialized, etc), and the Handler is locked meanwhile, so we wait for it
+        // instead of waiting a fixed time: Otherwise the second download might be measured while still waiting for it:
+        handler.download(Arrays.asList(blockA))
+        boolean warmedUp = warmUpLatch.await(5, TimeUnit.SECONDS)
+        long begin = System.nanoTime()
+        handler.download(Arrays.asList(blockB))
+        boolean requested = latch.await(1, TimeUnit.SECONDS)
+        long latencyMicros = (requestTimestamps.max() - begin) / 1000
+        println("Block requested " + latencyMicros + " microsecs after download()")
+        handler.onNetStop(new NetStopEvent())
+
+        then:
+        warmedUp
+        requested
+        handler.getBlocksBeingDownloaded().containsAll(Arrays.asList(blockA, blockB))
+        // Well below the frequency of the monitoring Job (100 millisecs):
+        latencyMicros < 50_000
+    }
+}
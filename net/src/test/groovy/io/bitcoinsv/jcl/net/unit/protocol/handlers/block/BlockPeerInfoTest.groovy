@@ -0,0 +1,68 @@
+package io.bitcoinsv.jcl.net.unit.protocol.handlers.block
+
+import io.bitcoinsv.jcl.net.network.PeerAddress
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlockPeerInfo
+import spock.lang.Specification
+
+import java.time.Duration
+
+/**
+ * A Testing class to check the in-flight window of Blocks of each Peer.
+ */
+class BlockPeerInfoTest extends Specification {
+
+    PeerAddress peer1 = PeerAddress.localhost(0001);
+
+    /**
+     * The window of a Peer is 1 until its speed is known, and then it grows with the speed, up to the max given.
+     */
+    def "in-flight window adapts to the Peer speed"() {
+        given:
+        BlockPeerInfo peerInfo = new BlockPeerInfo(peer1, null)
+        when:
+        int windowUnknownSpeed = peerInfo.getInFlightWindow(8, Duration.ofSeconds(1))
+        peerInfo.startDownloading("Block-A", 1)
+        peerInfo.finishDownloading("Block-A", 100_000)          // avg block size: 100KB
+        peerInfo.downloadSpeed = 350_000                        // 350 KB/sec
+        int windowMediumSpeed = peerInfo.getInFlightWindow(8, Duration.ofSeconds(1))
+        peerInfo.downloadSpeed = 10_000_000                     // 10 MB/sec
+        int windowHighSpeed = peerInfo.getInFlightWindow(8, Duration.ofSeconds(1))
+        int windowNoPipelining = peerInfo.getInFlightWindow(1, Duration.ofSeconds(1))
+        then:
+        windowUnknownSpeed == 1
+        windowMediumSpeed == 4
+        windowHighSpeed == 8
+        windowNoPipelining == 1
+    }
+
+    /**
+     * Blocks are tracked individually within the window: The first one is the current Block, and when it's
+     * downloaded the next one starts. The Peer is IDLE again only when all of them have been downloaded.
+     */
+    def "blocks tracked individually in the window"() {
+        given:
+        BlockPeerInfo peerInfo = new BlockPeerInfo(peer1, null)
+        when:
+        peerInfo.startDownloading("Block-A", 1)
+        peerInfo.startDownloading("Block-B", 1)
+        peerInfo.startDownloading("Block-C", 2)
+        String firstCurrent = peerInfo.getCurrentBlockInfo().getHash()
+        int firstInFlight = peerInfo.getNumBlocksInFlight()
+
+        // Block-C arrives before Block-B:
+        peerInfo.finishDownloading("Block-A", 1_000)
+        peerInfo.receivingBlock("Block-C")
+        String secondCurrent = peerInfo.getCurrentBlockInfo().getHash()
+        peerInfo.finishDownloading("Block-C", 1_000)
+        boolean processingBeforeLast = peerInfo.isProcessing()
+        peerInfo.finishDownloading("Block-B", 1_000)
+        then:
+        firstCurrent == "Block-A"
+        firstInFlight == 3
+        secondCurrent == "Block-C"
+        processingBeforeLast
+        peerInfo.isIdle()
+        peerInfo.getCurrentBlockInfo() == null
+        !peerInfo.isBlockInFlight("Block-B")
+    }
+}
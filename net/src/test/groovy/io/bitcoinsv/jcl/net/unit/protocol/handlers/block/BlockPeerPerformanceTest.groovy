@@ -0,0 +1,62 @@
+package io.bitcoinsv.jcl.net.unit.protocol.handlers.block
+
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlockPeerPerformance
+import spock.lang.Specification
+
+import java.time.Duration
+
+import static io.bitcoinsv.jcl.net.protocol.handlers.block.BlockPeerPerformance.BlockSizeClass.*
+
+/**
+ * A Testing class to check the Performance Model of the Peers.
+ */
+class BlockPeerPerformanceTest extends Specification {
+
+    /**
+     * The Throughput is an EWMA of the samples, and it's tracked separately for each Block size. If there are no
+     * samples for a size, the general Throughput is used.
+     */
+    def "throughput tracked by block size"() {
+        given:
+        BlockPeerPerformance performance = new BlockPeerPerformance()
+        when:
+        boolean knownBefore = performance.isKnown()
+        Optional<Duration> timeBefore = performance.getExpectedDownloadTime(SMALL)
+        performance.recordDownload(500_000, Duration.ofMillis(100))          // SMALL: 5 MB/sec
+        performance.recordDownload(500_000, Duration.ofMillis(50))           // SMALL: 10 MB/sec
+        performance.recordDownload(200_000_000, Duration.ofSeconds(100))     // LARGE: 2 MB/sec
+        then:
+        !knownBefore
+        timeBefore.isEmpty()
+        performance.isKnown()
+        performance.getThroughput(SMALL) == 6_500_000                        // 0.3 * 10 MB + 0.7 * 5 MB
+        performance.getThroughput(LARGE) == 2_000_000
+        performance.getThroughput(MEDIUM) < 0
+        performance.getExpectedDownloadTime(MEDIUM).isPresent()              // based on the general Throughput
+        performance.getExpectedDownloadTime(LARGE).get().toSeconds() == 250  // 500 MB at 2 MB/sec
+        performance.getNumDownloads() == 3
+    }
+
+    /**
+     * Stalls and Failures make the Expected Download Time longer
+     */
+    def "stalls and failures penalize the peer"() {
+        given:
+        BlockPeerPerformance performance = new BlockPeerPerformance()
+        performance.recordDownload(1_000_000, Duration.ofSeconds(1))
+        when:
+        Duration timeClean = performance.getExpectedDownloadTime(MEDIUM).get()
+        performance.recordStall()
+        Duration timeStalled = performance.getExpectedDownloadTime(MEDIUM).get()
+        performance.recordFailure()
+        Duration timeFailed = performance.getExpectedDownloadTime(MEDIUM).get()
+        BlockPeerPerformance snapshot = performance.getSnapshot()
+        then:
+        timeClean.toSeconds() == 10
+        timeStalled > timeClean
+        timeFailed > timeStalled
+        snapshot.getNumStalls() == 1
+        snapshot.getNumFailures() == 1
+        snapshot.getFailureScore() > 0.99
+    }
+}
@@ -0,0 +1,54 @@
+package io.bitcoinsv.jcl.net.unit.protocol.handlers.block
+
+import io.bitcoinsv.jcl.net.network.PeerAddress
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlocksDownloadHistory
+import spock.lang.Specification
+
+/**
+ * A Testing class for the BlocksDownloadHistory: the events are rendered when queried, and the history is bounded
+ * both per block and in number of blocks.
+ */
+class BlocksDownloadHistoryTest extends Specification {
+
+    def "Testing events rendered when queried"() {
+        given:
+            BlocksDownloadHistory history = new BlocksDownloadHistory()
+            PeerAddress peer = PeerAddress.localhost(8333)
+        when:
+            history.register("blockA", peer, BlocksDownloadHistory.Event.DOWNLOAD_STARTED)
+            history.register("blockA", peer, BlocksDownloadHistory.Event.TXS_DOWNLOADED, 10, 25)
+            history.register("blockA", peer, BlocksDownloadHistory.Event.DOWNLOAD_ISSUE, 0, 0, "Peer idle")
+            history.register("blockA", BlocksDownloadHistory.Event.MOVED_TO_PENDING)
+            List<BlocksDownloadHistory.HistoricItem<String, PeerAddress>> items = history.getBlockHistory("blockA").get()
+        then:
+            items.collect { it.getEvent() } == [
+                    "Starting downloading",
+                    "10 Txs downloaded, (25 Txs so far)",
+                    "Download Issue detected : Peer idle",
+                    "Block moved back to the pending Pool"]
+            items.get(0).getSource() == peer
+            items.get(3).getSource() == null
+            !history.getBlockHistory("blockB").isPresent()
+    }
+
+    def "Testing history bounded per block and in number of blocks"() {
+        given:
+            BlocksDownloadHistory history = new BlocksDownloadHistory(3, 2)
+        when:
+            for (int i = 1; i <= 5; i++) {
+                history.register("blockA", null, BlocksDownloadHistory.Event.TXS_DOWNLOADED, i, i)
+            }
+            history.register("blockB", BlocksDownloadHistory.Event.DOWNLOAD_STARTED)
+            history.register("blockA", BlocksDownloadHistory.Event.HEADER_DOWNLOADED)
+            // "blockB" is now the least recently active, so it's the one removed:
+            history.register("blockC", BlocksDownloadHistory.Event.DOWNLOAD_STARTED)
+        then:
+            history.size() == 2
+            history.getBlockHistory("blockA").get().collect { it.getEvent() } == [
+                    "4 Txs downloaded, (4 Txs so far)",
+                    "5 Txs downloaded, (5 Txs so far)",
+                    "Header downloaded"]
+            !history.getBlockHistory("blockB").isPresent()
+            history.getBlocksHistory().keySet() == ["blockA", "blockC"] as Set
+    }
+}
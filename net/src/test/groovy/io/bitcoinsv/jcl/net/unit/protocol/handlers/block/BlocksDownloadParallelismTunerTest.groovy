@@ -0,0 +1,78 @@
+package io.bitcoinsv.jcl.net.unit.protocol.handlers.block
+
+import io.bitcoinsv.jcl.net.protocol.events.control.BlocksDownloadParallelismChangedEvent
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlocksDownloadParallelismTuner
+import spock.lang.Specification
+
+import java.time.Duration
+
+/**
+ * A Testing class to check the auto-tuning of the Blocks downloaded in parallel.
+ */
+class BlocksDownloadParallelismTunerTest extends Specification {
+
+    // A Sample of 10 seconds, with no memory pressure:
+    private static BlocksDownloadParallelismTuner.Sample sample(long bytesPerSec, int numStalls, boolean limitReached) {
+        return new BlocksDownloadParallelismTuner.Sample(bytesPerSec * 10, Duration.ofSeconds(10), 10, numStalls, limitReached, 0.3, 0.1)
+    }
+
+    /**
+     * The parallelism goes up while the throughput improves, and the last increase is undone when it does not.
+     */
+    def "increase while throughput improves"() {
+        given:
+        BlocksDownloadParallelismTuner tuner = new BlocksDownloadParallelismTuner(2, 100, 50, 2_000)
+        when:
+        Optional<BlocksDownloadParallelismChangedEvent> first = tuner.adjust(sample(1_000_000, 0, true))
+        Optional<BlocksDownloadParallelismChangedEvent> second = tuner.adjust(sample(2_000_000, 0, true))
+        int blocksAfterIncreases = tuner.getMaxBlocksInParallel()
+        Optional<BlocksDownloadParallelismChangedEvent> third = tuner.adjust(sample(2_010_000, 0, true))
+        Optional<BlocksDownloadParallelismChangedEvent> fourth = tuner.adjust(sample(2_010_000, 0, true))
+        then:
+        first.get().getReason() == BlocksDownloadParallelismChangedEvent.Reason.THROUGHPUT_IMPROVING
+        second.get().getReason() == BlocksDownloadParallelismChangedEvent.Reason.THROUGHPUT_IMPROVING
+        blocksAfterIncreases == 4
+        second.get().getMaxMBinParallel() == 300
+        third.get().getReason() == BlocksDownloadParallelismChangedEvent.Reason.NO_IMPROVEMENT
+        third.get().getMaxBlocksInParallel() == 3
+        fourth.isEmpty()    // cooling down
+    }
+
+    /**
+     * The parallelism does not change if the limits have not been reached, and it never goes beyond the hard limits.
+     */
+    def "hard limits respected"() {
+        given:
+        BlocksDownloadParallelismTuner tuner = new BlocksDownloadParallelismTuner(4, 100, 5, 120)
+        when:
+        Optional<BlocksDownloadParallelismChangedEvent> notReached = tuner.adjust(sample(1_000_000, 0, false))
+        tuner.adjust(sample(2_000_000, 0, true))    // 5 blocks, 110 MB
+        tuner.adjust(sample(3_000_000, 0, true))    // 5 blocks, 120 MB
+        Optional<BlocksDownloadParallelismChangedEvent> atLimit = tuner.adjust(sample(4_000_000, 0, true))
+        then:
+        notReached.isEmpty()
+        tuner.getMaxBlocksInParallel() == 5
+        tuner.getMaxMBinParallel() == 120
+        atLimit.isEmpty()
+    }
+
+    /**
+     * The parallelism is halved when the memory runs low, or when the Peers stall more and more.
+     */
+    def "decrease on memory pressure and stalls"() {
+        given:
+        BlocksDownloadParallelismTuner tuner = new BlocksDownloadParallelismTuner(16, 1_000, 50, 2_000)
+        when:
+        Optional<BlocksDownloadParallelismChangedEvent> memory = tuner.adjust(
+                new BlocksDownloadParallelismTuner.Sample(0, Duration.ofSeconds(10), 10, 0, true, 0.95, 0.1))
+        Optional<BlocksDownloadParallelismChangedEvent> stalls = tuner.adjust(sample(1_000_000, 5, true))
+        Optional<BlocksDownloadParallelismChangedEvent> sameStalls = tuner.adjust(sample(1_000_000, 5, true))
+        then:
+        memory.get().getReason() == BlocksDownloadParallelismChangedEvent.Reason.MEMORY_PRESSURE
+        memory.get().getMaxBlocksInParallel() == 8
+        memory.get().getMaxMBinParallel() == 500
+        stalls.get().getReason() == BlocksDownloadParallelismChangedEvent.Reason.STALLS
+        stalls.get().getMaxBlocksInParallel() == 4
+        sameStalls.isEmpty()
+    }
+}
@@ -2,10 +2,13 @@ package io.bitcoinsv.jcl.net.unit.protocol.handlers.block
 
 import com.google.common.base.Objects
 import io.bitcoinsv.jcl.net.network.PeerAddress
+import io.bitcoinsv.jcl.net.protocol.handlers.block.BlockPeerPerformance
 import io.bitcoinsv.jcl.net.protocol.handlers.block.BlocksPendingManager
 import io.bitcoinsv.jcl.net.protocol.handlers.block.BlockDownloaderHandlerConfig
 import spock.lang.Specification
 
+import java.time.Duration
+
 
 /**
  * A Testing class to check that the Download CRITERIA and ACTIONS defined work well and the right Peers are choosen
@@ -334,4 +337,136 @@ class BlocksPendingManagerTest extends Specification {
         assignments.equals(expected)
     }
 
-}
\ No newline at end of file
+    /**
+     * default criteria and Actions, all peers available.
+     * BlockA can ONLY be downloaded from Peer3
+     * Expected result > P1:B, P2:C, P3:A
+     */
+    def "exclusivity, all peers available. "() {
+        given:
+        BlocksPendingManager blocksPendingManager = new BlocksPendingManager();
+        blocksPendingManager.add(pendingBlocks);
+        blocksPendingManager.registerBlockExclusivity(Arrays.asList(blockA), peer3)
+
+        // Expected Assignment:
+        List<PeerBlockAssignment> expected = Arrays.asList(
+                new PeerBlockAssignment(peer1, blockB),
+                new PeerBlockAssignment(peer2, blockC),
+                new PeerBlockAssignment(peer3, blockA)
+        )
+        when:
+        List<PeerBlockAssignment> assignments = runAndGetAssignments(
+                BlockDownloaderHandlerConfig.BestMatchCriteria.FROM_ANYONE,
+                BlockDownloaderHandlerConfig.BestMatchNotAvailableAction.DOWNLOAD_FROM_ANYONE,  // not relevant
+                BlockDownloaderHandlerConfig.NoBestMatchAction.DOWNLOAD_FROM_ANYONE,            // not relevant
+                blocksPendingManager,
+                Arrays.asList(peer1, peer2, peer3),     // Peers available
+                new ArrayList<>())                      // Pers NOT available
+        then:
+        assignments.equals(expected)
+        blocksPendingManager.size() == 0
+    }
+
+    /**
+     * Restricted Mode: Only the blocks already attempted are assigned, and they go first.
+     * BlockC has been attempted before and re-added with priority
+     * Expected result > P1:C
+     */
+    def "restricted mode, only blocks attempted"() {
+        given:
+        BlocksPendingManager blocksPendingManager = new BlocksPendingManager();
+        blocksPendingManager.registerNewDownloadAttempt(blockC)
+        blocksPendingManager.addWithPriority(blockC)
+        blocksPendingManager.switchToRestrictedMode()
+
+        // Expected Assignment:
+        List<PeerBlockAssignment> expected = Arrays.asList(new PeerBlockAssignment(peer1, blockC))
+        when:
+        List<PeerBlockAssignment> assignments = runAndGetAssignments(
+                BlockDownloaderHandlerConfig.BestMatchCriteria.FROM_ANYONE,
+                BlockDownloaderHandlerConfig.BestMatchNotAvailableAction.DOWNLOAD_FROM_ANYONE,  // not relevant
+                BlockDownloaderHandlerConfig.NoBestMatchAction.DOWNLOAD_FROM_ANYONE,            // not relevant
+                blocksPendingManager,
+                Arrays.asList(peer1, peer2, peer3),     // Peers available
+                new ArrayList<>())                      // Pers NOT available
+        then:
+        assignments.equals(expected)
+        blocksPendingManager.getPendingBlocks().equals(Arrays.asList(blockA, blockB))
+    }
+
+    /**
+     * Performance by Block Size: BlockA is known to be a LARGE Block. Peer1 is fast downloading small blocks but it
+     * has failed recently, and we know nothing about Peer2. Peer3 has already downloaded large blocks at good speed.
+     * Expected result > P1:B, P2:C, P3:A
+     */
+    def "large blocks assigned to the best Peer for their size"() {
+        given:
+        BlockPeerPerformance peer1Performance = new BlockPeerPerformance()
+        peer1Performance.recordDownload(500_000, Duration.ofMillis(100))             // 5 MB/sec
+        peer1Performance.recordFailure()
+        BlockPeerPerformance peer3Performance = new BlockPeerPerformance()
+        peer3Performance.recordDownload(200_000_000, Duration.ofSeconds(20))         // 10 MB/sec
+        Map<PeerAddress, BlockPeerPerformance> performances = [(peer1): peer1Performance, (peer3): peer3Performance]
+
+        BlocksPendingManager blocksPendingManager = new BlocksPendingManager();
+        blocksPendingManager.setPeersPerformance({ p -> performances.get(p) })
+        blocksPendingManager.registerBlockSize(blockA, 300_000_000)
+
+        // Expected Assignment:
+        List<PeerBlockAssignment> expected = Arrays.asList(
+                new PeerBlockAssignment(peer1, blockB),
+                new PeerBlockAssignment(peer2, blockC),
+                new PeerBlockAssignment(peer3, blockA)
+        )
+        when:
+        List<PeerBlockAssignment> assignments = runAndGetAssignments(
+                BlockDownloaderHandlerConfig.BestMatchCriteria.FROM_ANYONE,
+                BlockDownloaderHandlerConfig.BestMatchNotAvailableAction.DOWNLOAD_FROM_ANYONE,  // not relevant
+                BlockDownloaderHandlerConfig.NoBestMatchAction.DOWNLOAD_FROM_ANYONE,            // not relevant
+                blocksPendingManager,
+                Arrays.asList(peer1, peer2, peer3),     // Peers available
+                new ArrayList<>())                      // Pers NOT available
+        then:
+        assignments.equals(expected)
+        blocksPendingManager.size() == 0
+    }
+
+    /**
+     * Peers disconnected: BlockA announced by Peer3, BlockB announced by Peer1, and Peer3 has priority for BlockC.
+     * Peer3 disconnects, and a new Peer (Peer4) takes its place, reusing its Index. Neither Peer4 nor Peer2 inherit
+     * the announcements or the priorities of Peer3.
+     * Expected result > P1:A, P2:B, P4:C
+     */
+    def "peers disconnected free their index, and do not pass on their announcements"() {
+        given:
+        PeerAddress peer4 = PeerAddress.localhost(0004);
+        BlocksPendingManager blocksPendingManager = new BlocksPendingManager();
+        blocksPendingManager.registerBlockAnnouncement(blockA, peer3)
+        blocksPendingManager.registerBlockAnnouncement(blockB, peer1)
+        blocksPendingManager.registerBlockPriority(Arrays.asList(blockC), peer3)
+
+        // Expected Assignment:
+        List<PeerBlockAssignment> expected = Arrays.asList(
+                new PeerBlockAssignment(peer1, blockA),
+                new PeerBlockAssignment(peer2, blockB),
+                new PeerBlockAssignment(peer4, blockC),
+        )
+        when:
+        blocksPendingManager.registerPeerDisconnected(peer3)
+        List<PeerBlockAssignment> assignments = runAndGetAssignments(
+                BlockDownloaderHandlerConfig.BestMatchCriteria.FROM_ANNOUNCERS,
+                BlockDownloaderHandlerConfig.BestMatchNotAvailableAction.DOWNLOAD_FROM_ANYONE,
+                BlockDownloaderHandlerConfig.NoBestMatchAction.DOWNLOAD_FROM_ANYONE,
+                blocksPendingManager,
+                Arrays.asList(peer1, peer2, peer4),     // Peers available
+                Arrays.asList())                        // Peers NOR available
+        then:
+        assignments.equals(expected)
+        !blocksPendingManager.peersIndex.containsKey(peer3)
+        blocksPendingManager.peersByIndex.size() == 3
+        !blocksPendingManager.peersByIndex.contains(peer3)
+        !blocksPendingManager.priorityBlocksByPeer.containsKey(peer3)
+        blocksPendingManager.blocksPeerPriority.isEmpty()
+    }
+
+}
@@ -0,0 +1,339 @@
+package io.bitcoinsv.jcl.net.unit.protocol.handlers.wrapper
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.AbstractBlock
+import io.bitcoinsv.bitcoinjsv.bitcoin.bean.base.HeaderBean
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
+import io.bitcoinsv.bitcoinjsv.core.Utils
+import io.bitcoinsv.bitcoinjsv.params.MainNetParams
+import io.bitcoinsv.bitcoinjsv.params.Net
+import io.bitcoinsv.bitcoinjsv.params.NetworkParameters
+import io.bitcoinsv.jcl.net.network.PeerAddress
+import io.bitcoinsv.jcl.net.protocol.config.ProtocolConfig
+import io.bitcoinsv.jcl.net.protocol.config.ProtocolConfigBuilder
+import io.bitcoinsv.jcl.net.protocol.events.control.BlockDiscardedEvent
+import io.bitcoinsv.jcl.net.protocol.events.control.BlockDownloadedEvent
+import io.bitcoinsv.jcl.net.protocol.handlers.blacklist.BlacklistHandler
+import io.bitcoinsv.jcl.net.protocol.handlers.discovery.DiscoveryHandler
+import io.bitcoinsv.jcl.net.protocol.handlers.pingPong.PingPongHandler
+import io.bitcoinsv.jcl.net.protocol.messages.BlockHeaderMsg
+import io.bitcoinsv.jcl.net.protocol.messages.HashMsg
+import io.bitcoinsv.jcl.net.protocol.messages.HeadersMsg
+import io.bitcoinsv.jcl.net.protocol.wrapper.P2P
+import io.bitcoinsv.jcl.net.protocol.wrapper.P2PBuilder
+import io.bitcoinsv.jcl.net.protocol.wrapper.sync.HeadersFirstSync
+import io.bitcoinsv.jcl.net.protocol.wrapper.sync.HeadersFirstSyncConfig
+import io.bitcoinsv.jcl.net.protocol.wrapper.sync.HeadersFirstSyncState
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Testing class for the HeadersFirstSync. A Server serves the Headers of a Chain built on the fly, and a Client
+ * synchronizes it.
+ */
+class HeadersFirstSyncTest extends Specification {
+
+    // Easy Difficulty, so we can build valid Headers quickly:
+    private static final long EASY_TARGET = 0x207fffffL
+    // Real Difficulty: Headers built with this one will NOT pass the Proof of Work check:
+    private static final long HARD_TARGET = 0x1d00ffffL
+
+    // A Network like the Main one, but whose minimum Difficulty is the easy one, so the Chains built with it follow
+    // its consensus rules:
+    private static final NetworkParameters EASY_NET = new MainNetParams(Net.MAINNET) {
+        @Override
+        BigInteger getMaxTarget() { return Utils.decodeCompactBits(EASY_TARGET) }
+    }
+
+    // It builds a Chain of Headers on top of the parent given. The Blocks are 20 minutes apart, so the retargets keep
+    // the Difficulty at its minimum:
+    static List<BlockHeaderMsg> buildChain(Sha256Hash parentHash, int numHeaders, long difficultyTarget) {
+        List<BlockHeaderMsg> result = new ArrayList<>()
+        Sha256Hash prevHash = parentHash
+        long timestamp = 1231006505L
+        for (int i = 0; i < numHeaders; i++) {
+            HeaderBean header = new HeaderBean((AbstractBlock) null)
+            header.setVersion(1)
+            header.setPrevBlockHash(prevHash)
+            header.setMerkleRoot(Sha256Hash.ZERO_HASH)
+            header.setTime(timestamp + (i * 1200))
+            header.setDifficultyTarget(difficultyTarget)
+            BigInteger target = Utils.decodeCompactBits(difficultyTarget)
+            long nonce = 0
+            Sha256Hash hash
+            while (true) {
+                header.setNonce(nonce)
+                hash = Sha256Hash.wrapReversed(Sha256Hash.twiceOf(header.serialize()).getBytes())
+                if (difficultyTarget != EASY_TARGET || hash.toBigInteger() <= target) break
+                nonce++
+            }
+            result.add(BlockHeaderMsg.builder()
+                    .hash(hash)
+                    .version(1)
+                    .prevBlockHash(HashMsg.builder().hash(prevHash.getReversedBytes()).build())
+                    .merkleRoot(HashMsg.builder().hash(Sha256Hash.ZERO_HASH.getBytes()).build())
+                    .creationTimestamp(header.getTime())
+                    .difficultyTarget(difficultyTarget)
+                    .nonce(nonce)
+                    .transactionCount(0)
+                    .build())
+            prevHash = hash
+        }
+        return result
+    }
+
+    // It builds a P2P Service, with only the Handlers we need for this Test:
+    static P2P buildP2P(String id, ProtocolConfig config) {
+        return new P2PBuilder(id)
+                .config(config)
+                .useLocalhost()
+                .serverPort(0) // Random Port
+                .excludeHandler(PingPongHandler.HANDLER_ID)
+                .excludeHandler(DiscoveryHandler.HANDLER_ID)
+                .excludeHandler(BlacklistHandler.HANDLER_ID)
+                .build()
+    }
+
+    // It makes the Server reply to GET_HEADERS with the Headers of the Chain given:
+    static void serveHeaders(P2P server, Sha256Hash genesisHash, List<BlockHeaderMsg> chain) {
+        Map<Sha256Hash, Integer> indexes = new HashMap<>()
+        indexes.put(genesisHash, -1)
+        for (int i = 0; i < chain.size(); i++) indexes.put(chain.get(i).getHash(), i)
+
+        server.EVENTS.MSGS.GETHEADERS.forEach({ e ->
+            // We use the first Hash of the Locator that we know of:
+            Integer index = e.getBtcMsg().getBody().getBaseGetDataAndHeaderMsg().getBlockLocatorHash().stream()
+                    .map({ h -> indexes.get(Sha256Hash.wrapReversed(h.getHashBytes())) })
+                    .filter({ i -> i != null })
+                    .findFirst().orElse(-1)
+            List<BlockHeaderMsg> headers = chain.subList(Math.min(index + 1, chain.size()), Math.min(index + 1 + HeadersFirstSync.MAX_HEADERS_PER_MSG, chain.size()))
+            server.REQUESTS.MSGS.send(e.getPeerAddress(), HeadersMsg.builder().blockHeaderMsgList(headers).build()).submit()
+        })
+    }
+
+    def "Testing Headers and Blocks look-ahead"() {
+        given:
+            int NUM_HEADERS = 3000
+            int LOOK_AHEAD = 100
+            ProtocolConfig config = ProtocolConfigBuilder.get(new MainNetParams())
+            Sha256Hash genesisHash = config.getGenesisBlock().getHash()
+            BlockHeaderMsg startingHeader = buildChain(genesisHash, 1, EASY_TARGET).get(0)
+            List<BlockHeaderMsg> chain = buildChain(startingHeader.getHash(), NUM_HEADERS, EASY_TARGET)
+
+            P2P server = buildP2P("server", config)
+            P2P client = buildP2P("client", config)
+            serveHeaders(server, startingHeader.getHash(), chain)
+
+            // The Chain crosses a retarget, so its Difficulty is checked against the rules of the Network:
+            HeadersFirstSyncConfig syncConfig = HeadersFirstSyncConfig.builder()
+                    .startingHeader(startingHeader.toBean())
+                    .networkParams(EASY_NET)
+                    .blocksLookAhead(LOOK_AHEAD)
+                    .blocksWindowSize(10)
+                    .build()
+            HeadersFirstSync sync = new HeadersFirstSync(client, syncConfig)
+
+        when:
+            server.startServer()
+            client.start()
+            sync.start()
+            client.REQUESTS.PEERS.connect(server.getPeerAddress()).submit()
+
+            // We wait until the Headers are in sync (or we give up):
+            HeadersFirstSyncState state = sync.getState()
+            long timeout = System.currentTimeMillis() + 10_000
+            while (!(state.isHeadersSynced() && state.getBestHeaderHeight() == NUM_HEADERS) && System.currentTimeMillis() < timeout) {
+                Thread.sleep(100)
+                state = sync.getState()
+            }
+            println(state)
+
+            sync.stop()
+            client.stop()
+            server.stop()
+
+        then:
+            state.isHeadersSynced()
+            state.getBestHeaderHeight() == NUM_HEADERS
+            state.getBestHeaderHash() == chain.get(NUM_HEADERS - 1).getHash()
+            state.getNumHeaders() == NUM_HEADERS + 1
+            // No Blocks are served, so only those within the look-ahead have been requested:
+            state.getNumBlocksDownloaded() == 0
+            state.getNextBlockHeight() == LOOK_AHEAD + 1
+            state.getBlocksInFlight() == LOOK_AHEAD
+    }
+
+    def "Testing Headers with invalid Proof of Work"() {
+        given:
+            ProtocolConfig config = ProtocolConfigBuilder.get(new MainNetParams())
+            Sha256Hash genesisHash = config.getGenesisBlock().getHash()
+            List<BlockHeaderMsg> chain = buildChain(genesisHash, 10, HARD_TARGET)
+
+            P2P server = buildP2P("server", config)
+            P2P client = buildP2P("client", config)
+            serveHeaders(server, genesisHash, chain)
+
+            HeadersFirstSync sync = new HeadersFirstSync(client, HeadersFirstSyncConfig.builder().downloadBlocks(false).build())
+            boolean headersRequested = false
+            server.EVENTS.MSGS.GETHEADERS.forEach({ e -> headersRequested = true })
+
+        when:
+            server.startServer()
+            client.start()
+            sync.start()
+            client.REQUESTS.PEERS.connect(server.getPeerAddress()).submit()
+
+            long timeout = System.currentTimeMillis() + 5_000
+            while (!headersRequested && System.currentTimeMillis() < timeout) Thread.sleep(100)
+            Thread.sleep(500)
+            HeadersFirstSyncState state = sync.getState()
+
+            sync.stop()
+            client.stop()
+            server.stop()
+
+        then:
+            headersRequested
+            state.getBestHeaderHeight() == 0
+            state.getNumHeaders() == 1
+    }
+
+    def "Testing Headers with a Difficulty different from the expected one"() {
+        given:
+            ProtocolConfig config = ProtocolConfigBuilder.get(new MainNetParams())
+            BlockHeaderMsg startingHeader = buildChain(config.getGenesisBlock().getHash(), 1, EASY_TARGET).get(0)
+            List<BlockHeaderMsg> chain = buildChain(startingHeader.getHash(), 10, EASY_TARGET)
+            // This one has a valid Proof of Work for its own Difficulty, but it's easier than the minimum:
+            chain.addAll(buildChain(chain.get(9).getHash(), 1, 0x2100ffffL))
+            chain.addAll(buildChain(chain.get(10).getHash(), 5, EASY_TARGET))
+
+            P2P client = buildP2P("client", config)
+            HeadersFirstSync sync = new HeadersFirstSync(client, HeadersFirstSyncConfig.builder()
+                    .startingHeader(startingHeader.toBean())
+                    .networkParams(EASY_NET)
+                    .downloadBlocks(false)
+                    .build())
+            PeerAddress peer = PeerAddress.localhost(8333)
+
+        when:
+            sync.processHeaders(peer, chain.collect { it.toBean() }, false)
+            HeadersFirstSyncState state = sync.getState()
+
+        then:
+            state.getBestHeaderHeight() == 10
+            state.getBestHeaderHash() == chain.get(9).getHash()
+            sync.misbehavingPeers.contains(peer)
+    }
+
+    def "Testing the best Chain is the one with the most chainwork"() {
+        given:
+            ProtocolConfig config = ProtocolConfigBuilder.get(new MainNetParams())
+            Sha256Hash genesisHash = config.getGenesisBlock().getHash()
+            // A long Chain with little work, and a short one (not mined, so the PoW is not checked) with a lot. The
+            // Regtest rules do not pin the Difficulty, so both Chains are valid:
+            List<BlockHeaderMsg> longChain = buildChain(genesisHash, 20, EASY_TARGET)
+            List<BlockHeaderMsg> heavyChain = buildChain(genesisHash, 5, HARD_TARGET)
+
+            P2P client = buildP2P("client", config)
+            HeadersFirstSync sync = new HeadersFirstSync(client, HeadersFirstSyncConfig.builder()
+                    .checkProofOfWork(false)
+                    .networkParams(Net.REGTEST.params())
+                    .downloadBlocks(false)
+                    .build())
+            PeerAddress peer = PeerAddress.localhost(8333)
+
+        when:
+            sync.processHeaders(peer, longChain.collect { it.toBean() }, false)
+            HeadersFirstSyncState stateLong = sync.getState()
+            sync.processHeaders(peer, heavyChain.collect { it.toBean() }, false)
+            HeadersFirstSyncState stateHeavy = sync.getState()
+
+        then:
+            stateLong.getBestHeaderHeight() == 20
+            stateLong.getBestHeaderHash() == longChain.get(19).getHash()
+            stateHeavy.getBestHeaderHeight() == 5
+            stateHeavy.getBestHeaderHash() == heavyChain.get(4).getHash()
+            stateHeavy.getNumHeaders() == 26
+            sync.getBestChainHashAt(3) == Optional.of(heavyChain.get(2).getHash())
+            sync.getBestChainHashAt(10) == Optional.empty()
+    }
+
+    def "Testing the Blocks feed goes back to the fork point on a reorg"() {
+        given:
+            ProtocolConfig config = ProtocolConfigBuilder.get(new MainNetParams())
+            Sha256Hash genesisHash = config.getGenesisBlock().getHash()
+            List<BlockHeaderMsg> longChain = buildChain(genesisHash, 20, EASY_TARGET)
+            // The heavy Chain forks from the long one at height 2:
+            List<BlockHeaderMsg> heavyChain = buildChain(longChain.get(1).getHash(), 5, HARD_TARGET)
+
+            P2P client = buildP2P("client", config)
+            HeadersFirstSync sync = new HeadersFirstSync(client, HeadersFirstSyncConfig.builder()
+                    .checkProofOfWork(false)
+                    .networkParams(Net.REGTEST.params())
+                    .build())
+            PeerAddress peer = PeerAddress.localhost(8333)
+
+        when:
+            sync.processHeaders(peer, longChain.collect { it.toBean() }, false)
+            HeadersFirstSyncState stateLong = sync.getState()
+            sync.processHeaders(peer, heavyChain.collect { it.toBean() }, false)
+            HeadersFirstSyncState stateHeavy = sync.getState()
+
+        then: "the Blocks of the long Chain above the fork are dropped, and the ones of the heavy Chain are requested"
+            stateLong.getNextBlockHeight() == 21
+            stateLong.getBlocksInFlight() == 20
+            stateHeavy.getBestHeaderHeight() == 7
+            stateHeavy.getNextBlockHeight() == 8
+            stateHeavy.getBlocksInFlight() == 7
+            sync.blocksInFlight.keySet() == ((longChain.subList(0, 2) + heavyChain).collect { it.getHash().toString() } as Set)
+    }
+
+    def "Testing a Block discarded too many times is requested again after the backoff, and the feed moves on"() {
+        given:
+            ProtocolConfig config = ProtocolConfigBuilder.get(new MainNetParams())
+            List<BlockHeaderMsg> chain = buildChain(config.getGenesisBlock().getHash(), 4, EASY_TARGET)
+
+            P2P client = buildP2P("client", config)
+            HeadersFirstSync sync = new HeadersFirstSync(client, HeadersFirstSyncConfig.builder()
+                    .checkProofOfWork(false)
+                    .networkParams(Net.REGTEST.params())
+                    .blocksLookAhead(2)
+                    .maxBlockDownloadAttempts(3)
+                    .blockRetryBackoff(Duration.ZERO)
+                    .build())
+            PeerAddress peer = PeerAddress.localhost(8333)
+            String blockHash = chain.get(0).getHash().toString()
+
+        when:
+            sync.processHeaders(peer, chain.collect { it.toBean() }, false)
+            2.times { sync.onBlockDiscarded(new BlockDiscardedEvent(blockHash, BlockDiscardedEvent.DiscardedReason.TIMEOUT)) }
+            HeadersFirstSyncState stateRetrying = sync.getState()
+            sync.onBlockDiscarded(new BlockDiscardedEvent(blockHash, BlockDiscardedEvent.DiscardedReason.TIMEOUT))
+            HeadersFirstSyncState stateFailed = sync.getState()
+            sync.retryBlocks(Instant.now())
+            HeadersFirstSyncState stateRequestedAgain = sync.getState()
+            boolean inFlightAfterRetry = sync.blocksInFlight.containsKey(blockHash)
+            boolean attemptsReset = !sync.blockAttempts.containsKey(blockHash)
+            // The Block finally arrives, and so does the next one:
+            chain.subList(0, 2).each { sync.onBlockDownloaded(new BlockDownloadedEvent(peer, it, Duration.ofSeconds(1), 100L)) }
+            HeadersFirstSyncState stateDownloaded = sync.getState()
+
+        then: "the Block is not dropped while it waits for the backoff, and it gets a new round of attempts after it"
+            stateRetrying.getBlocksInFlight() == 2
+            stateRetrying.getNumBlocksFailed() == 0
+            stateFailed.getBlocksInFlight() == 2
+            stateFailed.getNumBlocksFailed() == 1
+            stateFailed.getBlocksWaitingRetry() == 1
+            stateFailed.getNextBlockHeight() == 3
+            stateRequestedAgain.getBlocksWaitingRetry() == 0
+            inFlightAfterRetry
+            attemptsReset
+
+        and: "the feed moves on past the Block"
+            sync.lowestPendingHeight == 3
+            stateDownloaded.getNextBlockHeight() == 5
+            stateDownloaded.getBlocksInFlight() == 2
+            sync.blocksInFlight.keySet() == (chain.subList(2, 4).collect { it.getHash().toString() } as Set)
+    }
+}
@@ -0,0 +1,175 @@
+package io.bitcoinsv.jcl.net.unit.protocol.handlers.wrapper
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
+import io.bitcoinsv.jcl.net.network.PeerAddress
+import io.bitcoinsv.jcl.net.protocol.config.ProtocolConfig
+import io.bitcoinsv.jcl.net.protocol.config.provided.ProtocolBSVMainConfig
+import io.bitcoinsv.jcl.net.protocol.events.data.BlockHeaderDownloadedEvent
+import io.bitcoinsv.jcl.net.protocol.events.data.BlockRawTXsDownloadedEvent
+import io.bitcoinsv.jcl.net.protocol.handlers.blacklist.BlacklistHandler
+import io.bitcoinsv.jcl.net.protocol.handlers.discovery.DiscoveryHandler
+import io.bitcoinsv.jcl.net.protocol.handlers.pingPong.PingPongHandler
+import io.bitcoinsv.jcl.net.protocol.messages.BlockHeaderMsg
+import io.bitcoinsv.jcl.net.protocol.messages.HashMsg
+import io.bitcoinsv.jcl.net.protocol.messages.PartialBlockHeaderMsg
+import io.bitcoinsv.jcl.net.protocol.messages.PartialBlockRawTxMsg
+import io.bitcoinsv.jcl.net.protocol.messages.RawTxMsg
+import io.bitcoinsv.jcl.net.protocol.messages.common.BitcoinMsg
+import io.bitcoinsv.jcl.net.protocol.wrapper.P2P
+import io.bitcoinsv.jcl.net.protocol.wrapper.P2PBuilder
+import io.bitcoinsv.jcl.net.protocol.wrapper.receivers.RawBlockFileReceiver
+import io.bitcoinsv.jcl.tools.blobStore.BlockStorePosix
+import io.bitcoinsv.jcl.tools.blobStore.BlockStorePosixConfig
+import io.bitcoinsv.jcl.tools.blobStore.BlockStorePosixWriter
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Testing class for the RawBlockFileReceiver. The Events of the P2P Service are fed straight into the Receiver, so
+ * we can reproduce the order in which they might be processed when the download of a Block is restarted.
+ */
+class RawBlockFileReceiverTest extends Specification {
+
+    private static RawBlockFileReceiver buildReceiver(BlockStorePosix blockStore) {
+        ProtocolConfig config = new ProtocolBSVMainConfig()
+        P2P p2p = new P2PBuilder("testing")
+                .config(config)
+                .config(config.getMessageConfig().toBuilder().rawTxsEnabled(true).build())
+                .useLocalhost()
+                .serverPort(0) // Random Port
+                .excludeHandler(PingPongHandler.HANDLER_ID)
+                .excludeHandler(DiscoveryHandler.HANDLER_ID)
+                .excludeHandler(BlacklistHandler.HANDLER_ID)
+                .build()
+        return new RawBlockFileReceiver(p2p, blockStore)
+    }
+
+    private static BlockHeaderMsg buildHeaderMsg(HeaderReadOnly header, int numTxs) {
+        return BlockHeaderMsg.builder()
+                .hash(header.getHash())
+                .version(header.getVersion())
+                .prevBlockHash(HashMsg.builder().hash(header.getPrevBlockHash().getReversedBytes()).build())
+                .merkleRoot(HashMsg.builder().hash(header.getMerkleRoot().getReversedBytes()).build())
+                .creationTimestamp(header.getTime())
+                .difficultyTarget(header.getDifficultyTarget())
+                .nonce(header.getNonce())
+                .transactionCount(numTxs)
+                .build()
+    }
+
+    private static BlockHeaderDownloadedEvent headerEvent(PeerAddress peer, BlockHeaderMsg headerMsg, long txsSize) {
+        PartialBlockHeaderMsg msg = PartialBlockHeaderMsg.builder()
+                .blockHeader(headerMsg)
+                .txsSizeInBytes(txsSize)
+                .blockTxsFormat(PartialBlockHeaderMsg.BlockTxsFormat.RAW)
+                .build()
+        return new BlockHeaderDownloadedEvent(peer, new BitcoinMsg<>(null, msg))
+    }
+
+    private static BlockRawTXsDownloadedEvent txsEvent(PeerAddress peer, BlockHeaderMsg headerMsg, long orderNumber, List<byte[]> txs) {
+        PartialBlockRawTxMsg msg = PartialBlockRawTxMsg.builder()
+                .blockHeader(headerMsg)
+                .txs(txs.collect { new RawTxMsg(it, 0) })
+                .txsOrdersNumber(orderNumber)
+                .build()
+        return new BlockRawTXsDownloadedEvent(peer, new BitcoinMsg<>(null, msg))
+    }
+
+    def "testing a download restarted from a second Peer, whose Txs arrive before its Header"() {
+        given:
+            Path folder = Files.createTempDirectory("rawBlockFileReceiver")
+            BlockStorePosix blockStore = new BlockStorePosix(BlockStorePosixConfig.builder()
+                    .workingFolder(folder)
+                    .batchSize(10_000)
+                    .build())
+            RawBlockFileReceiver receiver = buildReceiver(blockStore)
+            List<Sha256Hash> blocksStored = new ArrayList<>()
+            receiver.onBlockStored({ h -> blocksStored.add(h) })
+
+            List<byte[]> txs = (1..4).collect { TestingUtils.buildTx().serialize() }
+            long txsSize = txs.sum { it.length } as long
+            BlockHeaderMsg headerMsg = buildHeaderMsg(TestingUtils.buildBlock(), txs.size())
+            Sha256Hash blockHash = headerMsg.getHash()
+            PeerAddress peer1 = PeerAddress.localhost(8333)
+            PeerAddress peer2 = PeerAddress.localhost(8334)
+
+        when: "the first Peer only sends the first batch"
+            receiver.onHeaderDownloaded(headerEvent(peer1, headerMsg, txsSize))
+            receiver.onRawTxsDownloaded(txsEvent(peer1, headerMsg, 0, [txs[0]]))
+        then:
+            receiver.getBlocksInProgress() == [blockHash] as Set
+            blocksStored.isEmpty()
+
+        when: "the download is restarted from the second Peer, but its Txs are processed before its Header"
+            receiver.onRawTxsDownloaded(txsEvent(peer2, headerMsg, 1, [txs[2], txs[3]]))
+            receiver.onRawTxsDownloaded(txsEvent(peer2, headerMsg, 0, [txs[0], txs[1]]))
+        then: "they are kept until its Header arrives"
+            receiver.getBlocksInProgress() == [blockHash] as Set
+            blocksStored.isEmpty()
+
+        when: "the Header from the second Peer arrives, and then a late (and wrong) batch from the first one"
+            receiver.onHeaderDownloaded(headerEvent(peer2, headerMsg, txsSize))
+            receiver.onRawTxsDownloaded(txsEvent(peer1, headerMsg, 1, [txs[3]]))
+            byte[] txsStored = blockStore.readBlockTxs(blockHash).toList().inject(new ByteArrayOutputStream()) { out, b -> out.write(b); out }.toByteArray()
+        then: "the Block is completed with the Txs from the second Peer"
+            blocksStored == [blockHash]
+            receiver.getBlocksInProgress().isEmpty()
+            blockStore.containsBlock(blockHash)
+            blockStore.getPartialBlocks().isEmpty()
+            Arrays.equals(txsStored, txs.inject(new ByteArrayOutputStream()) { out, b -> out.write(b); out }.toByteArray())
+        cleanup:
+            blockStore.clear()
+    }
+
+    def "testing the batches kept for a Block are dropped when its Header is ignored, or its Block can't be opened"() {
+        given:
+            Path folder = Files.createTempDirectory("rawBlockFileReceiver")
+            BlockStorePosixConfig storeConfig = BlockStorePosixConfig.builder()
+                    .workingFolder(folder)
+                    .batchSize(10_000)
+                    .build()
+            BlockStorePosix blockStore = new BlockStorePosix(storeConfig)
+            // A Store where no Block can be opened for writing:
+            BlockStorePosix brokenStore = new BlockStorePosix(storeConfig) {
+                @Override
+                BlockStorePosixWriter openBlockWriter(HeaderReadOnly header, long numberOfTxs) {
+                    throw new IOException("Disk full")
+                }
+            }
+            RawBlockFileReceiver receiver = buildReceiver(blockStore)
+            RawBlockFileReceiver brokenReceiver = buildReceiver(brokenStore)
+
+            List<byte[]> txs = (1..2).collect { TestingUtils.buildTx().serialize() }
+            long txsSize = txs.sum { it.length } as long
+            HeaderReadOnly storedHeader = TestingUtils.buildBlock()
+            BlockHeaderMsg storedHeaderMsg = buildHeaderMsg(storedHeader, txs.size())
+            BlockHeaderMsg brokenHeaderMsg = buildHeaderMsg(TestingUtils.buildBlock(), txs.size())
+            PeerAddress peer = PeerAddress.localhost(8333)
+
+        when: "a batch arrives before its Header, and the Block is stored by someone else before the Header arrives"
+            receiver.onRawTxsDownloaded(txsEvent(peer, storedHeaderMsg, 0, [txs[0]]))
+            boolean keptBeforeStored = receiver.earlyBatches.containsKey(storedHeaderMsg.getHash())
+            blockStore.saveBlock(storedHeader, txs.size(), txs.inject(new ByteArrayOutputStream()) { out, b -> out.write(b); out }.toByteArray())
+            blockStore.commitBlock(storedHeader.getHash())
+            receiver.onHeaderDownloaded(headerEvent(peer, storedHeaderMsg, txsSize))
+        then: "the Header is ignored, and the batch is dropped"
+            keptBeforeStored
+            receiver.getBlocksInProgress().isEmpty()
+            receiver.earlyBatches.isEmpty()
+
+        when: "a batch arrives before its Header, and the Block can't be opened for writing when the Header arrives"
+            brokenReceiver.onRawTxsDownloaded(txsEvent(peer, brokenHeaderMsg, 0, [txs[0]]))
+            boolean keptBeforeFailure = brokenReceiver.earlyBatches.containsKey(brokenHeaderMsg.getHash())
+            brokenReceiver.onHeaderDownloaded(headerEvent(peer, brokenHeaderMsg, txsSize))
+        then: "the batch is dropped"
+            keptBeforeFailure
+            brokenReceiver.getBlocksInProgress().isEmpty()
+            brokenReceiver.earlyBatches.isEmpty()
+        cleanup:
+            blockStore.clear()
+    }
+}
@@ -6,8 +6,8 @@ import io.bitcoinsv.jcl.store.blockStore.metadata.Metadata;
 import io.bitcoinsv.jcl.store.foundationDB.blockStore.BlockStoreFDB;
 import io.bitcoinsv.jcl.store.foundationDB.blockStore.BlockStoreFDBConfig;
 import io.bitcoinsv.jcl.store.foundationDB.common.LargeTransaction;
+import io.bitcoinsv.jcl.store.keyValue.blockChainStore.BlockChainStoreCache;
 import io.bitcoinsv.jcl.store.keyValue.blockChainStore.BlockChainStoreKeyValue;
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
@@ -43,6 +43,9 @@ public class BlockChainStoreFDB extends BlockStoreFDB implements BlockChainStore
     // Events Streamer:
     private final BlockChainStoreStreamer blockChainStoreStreamer;
 
+    // Caches of Headers, BlockChainInfo, ChainPathInfo and Tips:
+    private final BlockChainStoreCache cache;
+
     public BlockChainStoreFDB(@Nonnull BlockChainStoreFDBConfig config,
                               boolean triggerBlockEvents,
                               boolean triggerTxEvents,
@@ -66,10 +69,11 @@ public class BlockChainStoreFDB extends BlockStoreFDB implements BlockChainStore
         // We set up the executor Service in case we need to launch processes in a different Thread, which is the case
         // when we publish state, do automatic Fork prunning or automatic orphan prunning
         if (this.statePublishFrequency != null || this.enableAutomaticForkPrunning || this.enableAutomaticOrphanPrunning) {
-            this.scheduledExecutorService = ThreadUtils.getScheduledExecutorService("BlockChainStore-LevelDB-thread");
+            this.scheduledExecutorService = config.getRuntimeConfig().getExecutionModel().getScheduledLane("BlockChainStore-FoundationDB-thread");
         }
 
         blockChainStoreStreamer = new BlockChainStoreStreamer(super.eventBus);
+        this.cache = new BlockChainStoreCache(config.getCacheMaxSize());
     }
 
     @Override public byte[] fullKeyForBlockNext(String blockHash)       { return fullKey(blocksDir, keyForBlockNext(blockHash));}
@@ -80,10 +84,12 @@ public class BlockChainStoreFDB extends BlockStoreFDB implements BlockChainStore
     @Override public byte[] fullKeyForBlockHashesByHeight(int height)     {return fullKey(blocksDir, keyForBlocksByHeight(height));}
 
     @Override public BlockChainStoreStreamer EVENTS()                   { return blockChainStoreStreamer;}
+    @Override public BlockChainStoreCache getCache()                    { return cache;}
 
     @Override
     public void start() {
         super.start();
+        cache.invalidateAll();
 
         // If the DB is empty, we initialize it with the Genesis block:
         if (getNumBlocks() == 0) {
@@ -125,6 +131,7 @@ public class BlockChainStoreFDB extends BlockStoreFDB implements BlockChainStore
     public void clear() {
         // We clear the DB the usual way:
         super.clear();
+        cache.invalidateAll();
         // and we restore the Genesis block:
         db.run(tr -> {
             LargeTransaction largeTransaction = new LargeTransaction(db, incompleteTxRefDir, tr,  BlockStoreFDBConfig.TRANSACTION_MAX_SIZE_BYTES);
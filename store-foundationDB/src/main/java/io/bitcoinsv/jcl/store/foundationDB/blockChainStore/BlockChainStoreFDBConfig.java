@@ -20,32 +20,42 @@ public class BlockChainStoreFDBConfig extends BlockStoreFDBConfig implements Blo
     private static int DEFAULT_FORK_HEIGH_DIFF = 2;
     // Default: The Age of an Orphan Block to be eligible for prunning
     private static Duration DEFAULT_ORPHAN_AGE = Duration.ofMinutes(30);
+    // Default: Max number of Items in each Cache
+    private static int DEFAULT_CACHE_MAX_SIZE = 10_000;
 
     private HeaderReadOnly genesisBlock;
     private int         forkPrunningHeightDifference = DEFAULT_FORK_HEIGH_DIFF;
     private boolean     forkPrunningIncludeTxs;
     private Duration    orphanPrunningBlockAge = DEFAULT_ORPHAN_AGE;
+    private int         cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
 
     public BlockChainStoreFDBConfig(RuntimeConfig runtimeConfig,
                                     String clusterFile,
                                     Integer apiVersion,
                                     Integer transactionSize,
                                     String networkId,
+                                    Long filterExpectedItems,
+                                    Double filterFalsePositiveRate,
+                                    Integer blockTxsParallelism,
+                                    Integer lockStripes,
                                     HeaderReadOnly genesisBlock,
                                     Integer forkPrunningHeightDifference,
                                     boolean forkPrunningIncludeTxs,
-                                    Duration orphanPrunningBlockAge) {
-        super(runtimeConfig, clusterFile, apiVersion, networkId, transactionSize);
+                                    Duration orphanPrunningBlockAge,
+                                    Integer cacheMaxSize) {
+        super(runtimeConfig, clusterFile, apiVersion, networkId, transactionSize, filterExpectedItems, filterFalsePositiveRate, blockTxsParallelism, lockStripes);
         this.genesisBlock = genesisBlock;
         if (forkPrunningHeightDifference != null) this.forkPrunningHeightDifference = forkPrunningHeightDifference;
         this.forkPrunningIncludeTxs = forkPrunningIncludeTxs;
         if (orphanPrunningBlockAge != null) this.orphanPrunningBlockAge = orphanPrunningBlockAge;
+        if (cacheMaxSize != null) this.cacheMaxSize = cacheMaxSize;
     }
 
     public HeaderReadOnly getGenesisBlock()         { return this.genesisBlock; }
     public int getForkPrunningHeightDifference()    { return this.forkPrunningHeightDifference; }
     public boolean isForkPrunningIncludeTxs()       { return this.forkPrunningIncludeTxs; }
     public Duration getOrphanPrunningBlockAge()     { return this.orphanPrunningBlockAge; }
+    public int getCacheMaxSize()                    { return this.cacheMaxSize; }
 
     public static BlockChainStoreFDBConfigBuilder chainBuild() {
         return new BlockChainStoreFDBConfigBuilder();
@@ -60,10 +70,15 @@ public class BlockChainStoreFDBConfig extends BlockStoreFDBConfig implements Blo
         private Integer apiVersion;
         private Integer transactionSize;
         private String networkId;
+        private Long filterExpectedItems;
+        private Double filterFalsePositiveRate;
+        private Integer blockTxsParallelism;
+        private Integer lockStripes;
         private HeaderReadOnly genesisBlock;
         private Integer forkPrunningHeightDifference;
         private boolean forkPrunningIncludeTxs;
         private Duration orphanPrunningBlockAge;
+        private Integer cacheMaxSize;
 
         BlockChainStoreFDBConfigBuilder() {
         }
@@ -93,6 +108,26 @@ public class BlockChainStoreFDBConfig extends BlockStoreFDBConfig implements Blo
             return this;
         }
 
+        public BlockChainStoreFDBConfig.BlockChainStoreFDBConfigBuilder filterExpectedItems(Long filterExpectedItems) {
+            this.filterExpectedItems = filterExpectedItems;
+            return this;
+        }
+
+        public BlockChainStoreFDBConfig.BlockChainStoreFDBConfigBuilder filterFalsePositiveRate(Double filterFalsePositiveRate) {
+            this.filterFalsePositiveRate = filterFalsePositiveRate;
+            return this;
+        }
+
+        public BlockChainStoreFDBConfig.BlockChainStoreFDBConfigBuilder blockTxsParallelism(Integer blockTxsParallelism) {
+            this.blockTxsParallelism = blockTxsParallelism;
+            return this;
+        }
+
+        public BlockChainStoreFDBConfig.BlockChainStoreFDBConfigBuilder lockStripes(Integer lockStripes) {
+            this.lockStripes = lockStripes;
+            return this;
+        }
+
         public BlockChainStoreFDBConfig.BlockChainStoreFDBConfigBuilder genesisBlock(HeaderReadOnly genesisBlock) {
             this.genesisBlock = genesisBlock;
             return this;
@@ -113,8 +148,13 @@ public class BlockChainStoreFDBConfig extends BlockStoreFDBConfig implements Blo
             return this;
         }
 
+        public BlockChainStoreFDBConfig.BlockChainStoreFDBConfigBuilder cacheMaxSize(Integer cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+            return this;
+        }
+
         public BlockChainStoreFDBConfig build() {
-            return new BlockChainStoreFDBConfig(runtimeConfig, clusterFile, apiVersion, transactionSize, networkId, genesisBlock, forkPrunningHeightDifference, forkPrunningIncludeTxs, orphanPrunningBlockAge);
+            return new BlockChainStoreFDBConfig(runtimeConfig, clusterFile, apiVersion, transactionSize, networkId, filterExpectedItems, filterFalsePositiveRate, blockTxsParallelism, lockStripes, genesisBlock, forkPrunningHeightDifference, forkPrunningIncludeTxs, orphanPrunningBlockAge, cacheMaxSize);
         }
 
     }
@@ -14,7 +14,10 @@ import io.bitcoinsv.jcl.store.blockStore.metadata.Metadata;
 import io.bitcoinsv.jcl.store.foundationDB.common.FDBIterator;
 import io.bitcoinsv.jcl.store.foundationDB.common.FDBSafeIterator;
 import io.bitcoinsv.jcl.store.foundationDB.common.LargeTransaction;
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreBulkIngest;
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreFilter;
 import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreKeyValue;
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreLocks;
 import io.bitcoinsv.jcl.store.keyValue.common.KeyValueIterator;
 import io.bitcoinsv.jcl.tools.bytes.ByteArrayWriter;
 import io.bitcoinsv.jcl.tools.events.EventBus;
@@ -27,8 +30,6 @@ import java.util.*;
 import java.util.concurrent.*;
 
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
@@ -51,8 +52,8 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
     private final boolean triggerBlockEvents;
     private final boolean triggerTxEvents;
 
-    // A lock (used by some methods, to ensure Thread-safety):
-    private ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Locks (used by some methods, to ensure Thread-safety):
+    private final BlockStoreLocks locks;
 
     // DB Connection:
     protected FDB fdb;
@@ -66,6 +67,7 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
     protected DirectorySubspace blocksMetadataDir;
     protected DirectorySubspace txsMetadataDir;
     protected DirectorySubspace txsDir;
+    protected DirectorySubspace countersDir;
     protected DirectorySubspace shardsDir;
     protected DirectorySubspace incompleteTxRefDir;
 
@@ -77,12 +79,21 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
     // Executor to trigger Async Methods:
     private ExecutorService executor;
 
+    // Executor to process the Txs of a Block in parallel segments:
+    private ExecutorService parallelExecutor;
+
     // MetadataClass linked to Blocks;
     private Class<? extends Metadata> blockMetadataClass;
 
     // Metadata class linked to Txs
     private Class<? extends Metadata> txMetadataClass;
 
+    // Filters of the Txs and Blocks stored (always disabled, see BlockStoreFDBConfig):
+    private final BlockStoreFilter filter;
+
+    // State of the Bulk Ingest:
+    private final BlockStoreBulkIngest bulkIngest = new BlockStoreBulkIngest();
+
     public BlockStoreFDB(@Nonnull BlockStoreFDBConfig config,
                          boolean triggerBlockEvents,
                          boolean triggerTxEvents,
@@ -93,15 +104,20 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
         this.triggerTxEvents = triggerTxEvents;
         this.blockMetadataClass = blockMetadataClass;
         this.txMetadataClass = txMetadataClass;
+        this.filter = new BlockStoreFilter(config.getFilterExpectedItems(), config.getFilterFalsePositiveRate());
+        this.locks = new BlockStoreLocks(config.getLockStripes());
 
-        // Events Configuration:
+        // Events Configuration: The Store has its own Pool, so the Event Handlers (which might read or save
+        // big Blocks) do not take the Threads of the IO Lane shared with the Net Handlers:
         this.eventBusExecutor = ThreadUtils.getCachedThreadExecutorService("BlockStore-FoundationDB");
         this.eventBus = EventBus.builder().executor(this.eventBusExecutor).build();
         this.blockStoreStreamer = new BlockStoreStreamer(this.eventBus);
 
         // Executor (to trigger async methods)
-        //this.executor = Executors.newSingleThreadExecutor();
-        this.executor = Executors.newFixedThreadPool(50);
+        this.executor = config.getRuntimeConfig().getExecutionModel().getIOLane("BlockStore-FoundationDB-async");
+
+        // Executor (to process the Txs of a Block in parallel):
+        this.parallelExecutor = config.getRuntimeConfig().getExecutionModel().getIOLane("BlockStore-FoundationDB-parallel", Math.max(1, config.getBlockTxsParallelism()));
     }
 
     // Convenience method:
@@ -118,6 +134,11 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
         return this.executor;
     }
 
+    @Override
+    public ExecutorService getParallelExecutor() {
+        return this.parallelExecutor;
+    }
+
     /**
      * This method initializes the connection to the DB and it initialises the internal Directory structure of the Data.
      * If no cluster File is specified in the Configuration, then the default location is used (check documentation for
@@ -137,6 +158,10 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
         initDirectoryStructure();
         //If the previous shutdown was unclean, it's possible that we may be left with some corrupted data.
         clearCorruptData();
+        // We check the Counters (the Store might have been created before they existed):
+        _initCounters();
+        // We load the Filters with the Txs and Blocks already stored:
+        loadFilter();
     }
 
     /* It creates the Directory Layer structure */
@@ -150,6 +175,7 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
                 blocksMetadataDir = blocksDir.createOrOpen(tr, Arrays.asList(DIR_METADATA)).get();
                 txsDir = netDir.createOrOpen(tr, Arrays.asList(DIR_TXS)).get();
                 txsMetadataDir = txsDir.createOrOpen(tr, Arrays.asList(DIR_METADATA)).get();
+                countersDir = netDir.createOrOpen(tr, Arrays.asList(DIR_COUNTERS)).get();
                 shardsDir = netDir.createOrOpen(tr, Arrays.asList("SHARDS")).get();
                 incompleteTxRefDir = netDir.createOrOpen(tr, Arrays.asList("REFERENCES")).get();
             } catch (Exception ex){
@@ -191,15 +217,13 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
 
     @Override
     public void stop() {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = locks.request().store(true).acquire()) {
             log.info("FDB-Store Stopping...");
             this.db.close();
             this.eventBusExecutor.shutdownNow();
             this.executor.shutdownNow();
+            this.parallelExecutor.shutdownNow();
             log.info("FDB-Store Stopped.");
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
@@ -275,6 +299,33 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
         return value;
     }
 
+    @Override
+    public void _addToCounter(LargeTransaction tr, String counterName, long valueToAdd) {
+        // The Counters are stored as 64-bit little-endian integers, so they can be updated with an atomic ADD, which
+        // does not conflict with other Transactions updating the same Counter:
+        if (valueToAdd == 0) return;
+        tr.mutate(MutationType.ADD, fullKeyForCounter(tr, counterName), bytes(valueToAdd));
+    }
+
+    @Override public List<byte[]> readAll(LargeTransaction tr, List<byte[]> keys) {
+        // All the reads are sent to the DB first, so they are pipelined instead of waiting for each one in turn:
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>(keys.size());
+        for (byte[] key : keys) futures.add(tr.get(key));
+
+        List<byte[]> result = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] value;
+            try {
+                value = futures.get(i).get();
+            } catch (Exception ex){
+                throw new RuntimeException(ex);
+            }
+            //an empty value means it's a blob
+            result.add((value != null && value.length == 0) ? readBlob(tr, keys.get(i)) : value);
+        }
+        return result;
+    }
+
     private byte[] readBlob(LargeTransaction tr, byte[] key) {
         ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
 
@@ -310,6 +361,7 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
 
     @Override public Logger getLogger()                                                          { return log;}
     @Override public byte[] keyFromItem(KeyValue item)                                           { return item.getKey();}
+    @Override public byte[] valueFromItem(KeyValue item)                                         { return item.getValue();}
 
     @Override public byte[] fullKeyForBlocks(LargeTransaction tr )                                    { return fullKey(blocksDir);}
     @Override public byte[] fullKeyForBlock(LargeTransaction tr, String blockHash)                    { return fullKey(blocksDir, keyForBlock(blockHash));}
@@ -339,6 +391,7 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
     @Override public byte[] fullKeyForBlocks()                                                  { return fullKey(blocksDir);}
     @Override public byte[] fullKeyForTxs()                                                     { return fullKey(txsDir);}
     @Override public byte[] fullKeyForOrphanBlockHash(LargeTransaction tr, String blockHash)         { return fullKey(fullKeyForBlocks(), keyForOrphanBlockHash(blockHash));}
+    @Override public byte[] fullKeyForCounter(LargeTransaction tr, String counterName)               { return fullKey(countersDir, keyForCounter(counterName));}
     @Override public BlockStoreStreamer EVENTS()                                                { return this.blockStoreStreamer; }
 
     @Override public Class<? extends Metadata>  getMetadataClassForBlocks()                     { return this.blockMetadataClass; }
@@ -352,10 +405,22 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
                                                 byte[] endingWith,
                                                 BiPredicate<LargeTransaction, byte[]> keyVerifier,
                                                 Function<KeyValue, I> buildItemBy) {
+        return getIterator(startingWith, null, null, endingWith, keyVerifier, buildItemBy);
+    }
+
+    @Override
+    public <I> KeyValueIterator<I,LargeTransaction> getIterator( byte[] startingWith,
+                                                byte[] fromKey,
+                                                byte[] toKey,
+                                                byte[] endingWith,
+                                                BiPredicate<LargeTransaction, byte[]> keyVerifier,
+                                                Function<KeyValue, I> buildItemBy) {
         return FDBSafeIterator.<I>safeBuilder()
                 .database(this.db)
                 .incompleteTxsDir(incompleteTxRefDir)
                 .startingWithPreffix(startingWith)
+                .fromKey(fromKey)
+                .toKey(toKey)
                 .endingWithSuffix(endingWith)
                 .keyIsValidWhen(keyVerifier)
                 .buildItemBy(buildItemBy)
@@ -387,12 +452,15 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
             // to calculate and keep the KEY for each Tx, to do it only once:
             Map<String, byte[]> txKeys = new ConcurrentHashMap<>();
 
-            // We check if the Txs exists in the DB (we launch the queries, will collect the results later on)
+            // We check if the Txs exists in the DB (we launch the queries, will collect the results later on). The
+            // Txs the Filter knows are not stored are not read:
             for (Tx tx : txs) {
                 String txHash = tx.getHashAsString();
                 byte[] txKey = fullKeyForTx(tr, txHash);
                 txKeys.put(txHash, txKey);
-                readFutures.put(txHash, readAsync(tr, txKey));
+                readFutures.put(txHash, filter.getTxs().mightContain(txHash)
+                        ? readAsync(tr, txKey)
+                        : CompletableFuture.completedFuture(null));
             }
 
             // Now we loop over the futures checking the results, and if the Tx does NOT exists we insert it
@@ -402,9 +470,11 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
                 byte[] value = readFutures.get(txHash).get();
                 if (value == null) {
                     save(tr, txKeys.get(txHash), bytes(tx));
+                    filter.getTxs().add(txHash);
                     result.add(tx);
                 }
             }
+            _addToCounter(tr, COUNTER_TXS, result.size());
 
             return result;
 
@@ -472,6 +542,8 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
         });
         // And we init again the Directory Layer structure:
         initDirectoryStructure();
+        _initCounters();
+        loadFilter();
     }
 
     @Override
@@ -488,7 +560,7 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
     public BlockStoreFDBConfig getConfig()      { return this.config; }
     public boolean isTriggerBlockEvents()       { return this.triggerBlockEvents; }
     public boolean isTriggerTxEvents()          { return this.triggerTxEvents; }
-    public ReadWriteLock getLock()              { return this.lock; }
+    public BlockStoreLocks getLocks()           { return this.locks; }
     public FDB getFdb()                         { return this.fdb; }
     public Database getDb()                     { return this.db; }
     public DirectorySubspace getNetDir()        { return this.netDir; }
@@ -496,6 +568,8 @@ public class BlockStoreFDB implements BlockStoreKeyValue<KeyValue, LargeTransact
     public DirectorySubspace getBlocksDir()     { return this.blocksDir; }
     public DirectorySubspace getTxsDir()        { return this.txsDir; }
     public EventBus getEventBus()               { return this.eventBus; }
+    public BlockStoreFilter getFilter()         { return this.filter; }
+    public BlockStoreBulkIngest getBulkIngest() { return this.bulkIngest; }
 
     public static BlockStoreFDBBuilder builder() { return new BlockStoreFDBBuilder(); }
 
@@ -49,6 +49,16 @@ public class BlockStoreFDBConfig implements BlockStoreKeyValueConfig {
     /** Java API Version. This might change if the maven dependency is updated, so be careful */
     private static final int API_VERSION = 510;
 
+    /** Filters Default configuration (disabled) */
+    private static final long FILTER_EXPECTED_ITEMS = 0;
+    private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+    // Max number of Threads processing the Txs of a Block, by default:
+    private static final int BLOCK_TXS_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    // Number of Locks the Blocks and Txs are distributed into, by default:
+    private static final int LOCK_STRIPES = 64;
+
     /** Runtime Config */
     private final RuntimeConfig runtimeConfig;
 
@@ -70,16 +80,41 @@ public class BlockStoreFDBConfig implements BlockStoreKeyValueConfig {
      */
     private int transactionBatchSize;
 
+    /**
+     * Number of Txs the Filters of Txs and Blocks are sized for (zero disables them), and their max rate of false
+     * positives. The Filters are kept in memory, so they only know about the Items saved by this process: a
+     * FoundationDB cluster is usually shared by several processes, and the Items saved by the others would be
+     * reported as NOT stored. So the Filters are NOT supported in FoundationDB, and enabling them is rejected.
+     */
+    private long filterExpectedItems;
+    private double filterFalsePositiveRate;
+
+    /** Max number of Threads used to process the Txs of a Block in parallel (see BlockTxsSpliterator) */
+    private int blockTxsParallelism;
+
+    /** Number of Locks (stripes) the Blocks and Txs are distributed into (see BlockStoreLocks) */
+    private int lockStripes;
+
     public BlockStoreFDBConfig(RuntimeConfig runtimeConfig,
                                String clusterFile,
                                Integer apiVersion,
                                @Nonnull String networkId,
-                               Integer transactionBatchSize) {
+                               Integer transactionBatchSize,
+                               Long filterExpectedItems,
+                               Double filterFalsePositiveRate,
+                               Integer blockTxsParallelism,
+                               Integer lockStripes) {
         this.runtimeConfig = (runtimeConfig != null) ? runtimeConfig: new RuntimeConfigDefault();
         this.clusterFile = clusterFile;
         this.apiVersion = (apiVersion != null) ? apiVersion : API_VERSION;
         this.networkId = networkId;
         this.transactionBatchSize = (transactionBatchSize != null) ? transactionBatchSize : TRANSACTION_BATCH_SIZE;
+        this.filterExpectedItems = (filterExpectedItems != null) ? filterExpectedItems : FILTER_EXPECTED_ITEMS;
+        if (this.filterExpectedItems > 0)
+            throw new IllegalArgumentException("The Filters are not supported in FoundationDB, since it can be written by several processes");
+        this.filterFalsePositiveRate = (filterFalsePositiveRate != null) ? filterFalsePositiveRate : FILTER_FALSE_POSITIVE_RATE;
+        this.blockTxsParallelism = (blockTxsParallelism != null) ? blockTxsParallelism : BLOCK_TXS_PARALLELISM;
+        this.lockStripes = (lockStripes != null) ? lockStripes : LOCK_STRIPES;
     }
 
     public RuntimeConfig getRuntimeConfig() { return this.runtimeConfig; }
@@ -87,6 +122,10 @@ public class BlockStoreFDBConfig implements BlockStoreKeyValueConfig {
     public int getApiVersion()              { return this.apiVersion; }
     public String getNetworkId()            { return this.networkId; }
     public int getTransactionBatchSize()    { return this.transactionBatchSize; }
+    public long getFilterExpectedItems()    { return this.filterExpectedItems; }
+    public double getFilterFalsePositiveRate() { return this.filterFalsePositiveRate; }
+    public int getBlockTxsParallelism()     { return this.blockTxsParallelism; }
+    public int getLockStripes()             { return this.lockStripes; }
 
     public static BlockStoreFDBConfigBuilder builder() {
         return new BlockStoreFDBConfigBuilder();
@@ -101,6 +140,10 @@ public class BlockStoreFDBConfig implements BlockStoreKeyValueConfig {
         private Integer apiVersion;
         private @Nonnull String networkId;
         private Integer transactionBatchSize;
+        private Long filterExpectedItems;
+        private Double filterFalsePositiveRate;
+        private Integer blockTxsParallelism;
+        private Integer lockStripes;
 
         BlockStoreFDBConfigBuilder() {
         }
@@ -130,8 +173,28 @@ public class BlockStoreFDBConfig implements BlockStoreKeyValueConfig {
             return this;
         }
 
+        public BlockStoreFDBConfig.BlockStoreFDBConfigBuilder filterExpectedItems(Long filterExpectedItems) {
+            this.filterExpectedItems = filterExpectedItems;
+            return this;
+        }
+
+        public BlockStoreFDBConfig.BlockStoreFDBConfigBuilder filterFalsePositiveRate(Double filterFalsePositiveRate) {
+            this.filterFalsePositiveRate = filterFalsePositiveRate;
+            return this;
+        }
+
+        public BlockStoreFDBConfig.BlockStoreFDBConfigBuilder blockTxsParallelism(Integer blockTxsParallelism) {
+            this.blockTxsParallelism = blockTxsParallelism;
+            return this;
+        }
+
+        public BlockStoreFDBConfig.BlockStoreFDBConfigBuilder lockStripes(Integer lockStripes) {
+            this.lockStripes = lockStripes;
+            return this;
+        }
+
         public BlockStoreFDBConfig build() {
-            return new BlockStoreFDBConfig(runtimeConfig, clusterFile, apiVersion, networkId, transactionBatchSize);
+            return new BlockStoreFDBConfig(runtimeConfig, clusterFile, apiVersion, networkId, transactionBatchSize, filterExpectedItems, filterFalsePositiveRate, blockTxsParallelism, lockStripes);
         }
     }
 }
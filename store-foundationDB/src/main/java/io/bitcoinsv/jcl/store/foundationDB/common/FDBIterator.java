@@ -57,8 +57,21 @@ public class FDBIterator<I> extends KeyValueIteratorImpl<I, LargeTransaction, Ke
                        byte[] endingWithSuffix,
                        BiPredicate<LargeTransaction, byte[]> keyIsValidWhen,
                        Function<KeyValue, I> buildItemBy) {
+        this(currentTransaction, startingWithPreffix, null, null, endingWithSuffix, keyIsValidWhen, buildItemBy);
+    }
 
-        super(startingWithPreffix, endingWithSuffix, keyIsValidWhen, buildItemBy);
+    /**
+     * Constructor. The Iterator only returns the Keys within the range given (fromKey inclusive, toKey exclusive)
+     */
+    public FDBIterator(LargeTransaction currentTransaction,
+                       byte[] startingWithPreffix,
+                       byte[] fromKey,
+                       byte[] toKey,
+                       byte[] endingWithSuffix,
+                       BiPredicate<LargeTransaction, byte[]> keyIsValidWhen,
+                       Function<KeyValue, I> buildItemBy) {
+
+        super(startingWithPreffix, fromKey, toKey, endingWithSuffix, keyIsValidWhen, buildItemBy);
 
         // Argument check:
         checkArgument(currentTransaction != null, "a Transaction must be specified");
@@ -69,7 +82,7 @@ public class FDBIterator<I> extends KeyValueIteratorImpl<I, LargeTransaction, Ke
         this.currentTransaction = currentTransaction;
 
         // We init the FDB Iterator:
-        this.fdbIterator = currentTransaction.getRange(keyPreffix, "\\xff".getBytes()).iterator();
+        this.fdbIterator = currentTransaction.getRange(firstKey(), "\\xff".getBytes()).iterator();
     }
 
     @Override protected boolean  hasNextItemFromDB()            { return fdbIterator.hasNext(); }
@@ -88,6 +101,8 @@ public class FDBIterator<I> extends KeyValueIteratorImpl<I, LargeTransaction, Ke
     public static class FDBIteratorBuilder<I> {
         private LargeTransaction currentTransaction;
         private byte[] startingWithPreffix;
+        private byte[] fromKey;
+        private byte[] toKey;
         private byte[] endingWithSuffix;
         private BiPredicate<LargeTransaction, byte[]> keyIsValidWhen;
         private Function<KeyValue, I> buildItemBy;
@@ -105,6 +120,16 @@ public class FDBIterator<I> extends KeyValueIteratorImpl<I, LargeTransaction, Ke
             return this;
         }
 
+        public FDBIterator.FDBIteratorBuilder<I> fromKey(byte[] fromKey) {
+            this.fromKey = fromKey;
+            return this;
+        }
+
+        public FDBIterator.FDBIteratorBuilder<I> toKey(byte[] toKey) {
+            this.toKey = toKey;
+            return this;
+        }
+
         public FDBIterator.FDBIteratorBuilder<I> endingWithSuffix(byte[] endingWithSuffix) {
             this.endingWithSuffix = endingWithSuffix;
             return this;
@@ -121,7 +146,7 @@ public class FDBIterator<I> extends KeyValueIteratorImpl<I, LargeTransaction, Ke
         }
 
         public FDBIterator<I> build() {
-            return new FDBIterator<I>(currentTransaction, startingWithPreffix, endingWithSuffix, keyIsValidWhen, buildItemBy);
+            return new FDBIterator<I>(currentTransaction, startingWithPreffix, fromKey, toKey, endingWithSuffix, keyIsValidWhen, buildItemBy);
         }
 
     }
@@ -50,11 +50,13 @@ public class FDBSafeIterator<T> extends FDBIterator<T> implements Iterator<T> {
     public FDBSafeIterator(Database database,
                            DirectorySubspace incompleteTxsDir,
                            byte[] startingWithPreffix,
+                           byte[] fromKey,
+                           byte[] toKey,
                            byte[] endingWithSuffix,
                            BiPredicate<LargeTransaction, byte[]> keyIsValidWhen,
                            Function<KeyValue, T> buildItemBy,
                            Long maxItemsToProcess) {
-        super(new LargeTransaction(database, incompleteTxsDir, BlockStoreFDBConfig.TRANSACTION_MAX_SIZE_BYTES), startingWithPreffix, endingWithSuffix, keyIsValidWhen, buildItemBy);
+        super(new LargeTransaction(database, incompleteTxsDir, BlockStoreFDBConfig.TRANSACTION_MAX_SIZE_BYTES), startingWithPreffix, fromKey, toKey, endingWithSuffix, keyIsValidWhen, buildItemBy);
         this.db = database;
         if (maxItemsToProcess != null) this.maxItemsToProcess = maxItemsToProcess;
     }
@@ -85,6 +87,8 @@ public class FDBSafeIterator<T> extends FDBIterator<T> implements Iterator<T> {
         private Database database;
         private DirectorySubspace incompleteTxsDir;
         private byte[] startingWithPreffix;
+        private byte[] fromKey;
+        private byte[] toKey;
         private byte[] endingWithSuffix;
         private BiPredicate<LargeTransaction, byte[]> keyIsValidWhen;
         private Function<KeyValue, T> buildItemBy;
@@ -108,6 +112,16 @@ public class FDBSafeIterator<T> extends FDBIterator<T> implements Iterator<T> {
             return this;
         }
 
+        public FDBSafeIteratorBuilder<T> fromKey(byte[] fromKey) {
+            this.fromKey = fromKey;
+            return this;
+        }
+
+        public FDBSafeIteratorBuilder<T> toKey(byte[] toKey) {
+            this.toKey = toKey;
+            return this;
+        }
+
         public FDBSafeIteratorBuilder<T> endingWithSuffix(byte[] endingWithSuffix) {
             this.endingWithSuffix = endingWithSuffix;
             return this;
@@ -129,11 +143,11 @@ public class FDBSafeIterator<T> extends FDBIterator<T> implements Iterator<T> {
         }
 
         public FDBSafeIterator<T> build() {
-            return new FDBSafeIterator<T>(database, incompleteTxsDir, startingWithPreffix, endingWithSuffix, keyIsValidWhen, buildItemBy, maxItemsToProcess);
+            return new FDBSafeIterator<T>(database, incompleteTxsDir, startingWithPreffix, fromKey, toKey, endingWithSuffix, keyIsValidWhen, buildItemBy, maxItemsToProcess);
         }
 
         public String toString() {
-            return "FDBSafeIterator.FDBSafeIteratorBuilder(database=" + this.database + "incompleteTxsDir="+ incompleteTxsDir + ", startingWithPreffix=" + java.util.Arrays.toString(this.startingWithPreffix) + ", endingWithSuffix=" + java.util.Arrays.toString(this.endingWithSuffix) + ", keyIsValidWhen=" + this.keyIsValidWhen + ", buildItemBy=" + this.buildItemBy + ", maxItemsToProcess=" + this.maxItemsToProcess + ")";
+            return "FDBSafeIterator.FDBSafeIteratorBuilder(database=" + this.database + "incompleteTxsDir="+ incompleteTxsDir + ", startingWithPreffix=" + java.util.Arrays.toString(this.startingWithPreffix) + ", fromKey=" + java.util.Arrays.toString(this.fromKey) + ", toKey=" + java.util.Arrays.toString(this.toKey) + ", endingWithSuffix=" + java.util.Arrays.toString(this.endingWithSuffix) + ", keyIsValidWhen=" + this.keyIsValidWhen + ", buildItemBy=" + this.buildItemBy + ", maxItemsToProcess=" + this.maxItemsToProcess + ")";
         }
     }
 }
@@ -143,6 +143,21 @@ public class LargeTransaction {
     }
 
 
+    /**
+     * It performs an atomic operation on the key (see {@link MutationType}), which does not conflict with other
+     * transactions changing the same key (used to update the Counters, for instance).
+     */
+    public synchronized void mutate(MutationType type, byte[] key, byte[] param){
+        unsavedKeys.add(key);
+
+        if(param.length + (key.length * 3) > maxTransactionValueSizeBytes - currentTransactionValueSizeBytes){
+            next(true);
+        }
+
+        currentTransaction.mutate(type, key, param);
+        currentTransactionValueSizeBytes += param.length + (key.length * 2);
+    }
+
     public synchronized void clear(Range range){
         currentTransaction.clear(range);
     }
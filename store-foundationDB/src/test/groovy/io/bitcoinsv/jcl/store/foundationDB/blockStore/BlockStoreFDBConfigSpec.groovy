@@ -0,0 +1,31 @@
+package io.bitcoinsv.jcl.store.foundationDB.blockStore
+
+
+import spock.lang.Specification
+
+/**
+ * Testing class for the Configuration of the FoundationDB Block Store (no DB needed)
+ */
+class BlockStoreFDBConfigSpec extends Specification {
+
+    def "testing the Filters are rejected, since the DB can be written by several processes"() {
+        when:
+            BlockStoreFDBConfig.builder()
+                    .networkId("BSV-Main")
+                    .filterExpectedItems(filterExpectedItems)
+                    .build()
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            filterExpectedItems << [1L, 1_000_000L]
+    }
+
+    def "testing the Filters are disabled by default"() {
+        when:
+            BlockStoreFDBConfig config = BlockStoreFDBConfig.builder()
+                    .networkId("BSV-Main")
+                    .build()
+        then:
+            config.getFilterExpectedItems() == 0
+    }
+}
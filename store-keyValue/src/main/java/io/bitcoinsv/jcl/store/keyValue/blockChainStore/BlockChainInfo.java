@@ -18,6 +18,11 @@ import java.math.BigInteger;
  * itself, and this one).
  *
  * NOTE: A block is "connected" to a Chain if there is an entry for that Block containing this info.
+ *
+ * Each entry also stores a "skip" pointer to one of the ancestors of the Block (the one at the height given by
+ * {@link #getSkipHeight(int)}, same as the "pskip" in bitcoind). Following these pointers any ancestor of a Block can
+ * be reached in O(log n) steps. The skip pointer is NULL for the Genesis Block and for Blocks connected before this
+ * field was introduced.
  */
 public final class BlockChainInfo implements Serializable {
     private final String blockHash;
@@ -25,13 +30,15 @@ public final class BlockChainInfo implements Serializable {
     private final int height;
     private final long totalChainSize;
     private final int chainPathId;
+    private final String skipBlockHash;
 
-    BlockChainInfo(String blockHash, BigInteger chainWork, int height, long totalChainSize, int chainPathId) {
+    BlockChainInfo(String blockHash, BigInteger chainWork, int height, long totalChainSize, int chainPathId, String skipBlockHash) {
         this.blockHash = blockHash;
         this.chainWork = chainWork;
         this.height = height;
         this.totalChainSize = totalChainSize;
         this.chainPathId = chainPathId;
+        this.skipBlockHash = skipBlockHash;
     }
 
     public String getBlockHash()        { return this.blockHash; }
@@ -39,14 +46,30 @@ public final class BlockChainInfo implements Serializable {
     public int getHeight()              { return this.height; }
     public long getTotalChainSize()     { return this.totalChainSize; }
     public int getChainPathId()         { return this.chainPathId; }
+    public String getSkipBlockHash()    { return this.skipBlockHash; }
+
+    /** Turns the lowest '1' bit in the binary representation of a number into a '0' */
+    private static int invertLowestOne(int n) { return n & (n - 1); }
+
+    /**
+     * Returns the height of the ancestor the skip pointer of a Block at the height given points to. Any height lower
+     * than the given one would work, but these are chosen so ancestors can be reached in O(log n) steps (bitcoind).
+     */
+    public static int getSkipHeight(int height) {
+        if (height < 2) return 0;
+        // Determine which height to jump back to. Any number strictly lower than height is acceptable,
+        // but the following expression seems to perform well in simulations (max 110 steps to go back
+        // up to 2**18 blocks).
+        return ((height & 1) != 0) ? invertLowestOne(invertLowestOne(height - 1)) + 1 : invertLowestOne(height);
+    }
 
     @Override
     public String toString() {
-        return "BlockChainInfo(blockHash=" + this.getBlockHash() + ", chainWork=" + this.getChainWork() + ", height=" + this.getHeight() + ", totalChainSize=" + this.getTotalChainSize() + ", chainPathId=" + this.getChainPathId() + ")";
+        return "BlockChainInfo(blockHash=" + this.getBlockHash() + ", chainWork=" + this.getChainWork() + ", height=" + this.getHeight() + ", totalChainSize=" + this.getTotalChainSize() + ", chainPathId=" + this.getChainPathId() + ", skipBlockHash=" + this.getSkipBlockHash() + ")";
     }
 
     public BlockChainInfoBuilder toBuilder() {
-        return new BlockChainInfoBuilder().blockHash(this.blockHash).chainWork(this.chainWork).height(this.height).totalChainSize(this.totalChainSize).chainPathId(this.chainPathId);
+        return new BlockChainInfoBuilder().blockHash(this.blockHash).chainWork(this.chainWork).height(this.height).totalChainSize(this.totalChainSize).chainPathId(this.chainPathId).skipBlockHash(this.skipBlockHash);
     }
 
     public static BlockChainInfoBuilder builder() {
@@ -62,6 +85,7 @@ public final class BlockChainInfo implements Serializable {
         private int height;
         private long totalChainSize;
         private int chainPathId;
+        private String skipBlockHash;
 
         BlockChainInfoBuilder() {
         }
@@ -91,8 +115,13 @@ public final class BlockChainInfo implements Serializable {
             return this;
         }
 
+        public BlockChainInfo.BlockChainInfoBuilder skipBlockHash(String skipBlockHash) {
+            this.skipBlockHash = skipBlockHash;
+            return this;
+        }
+
         public BlockChainInfo build() {
-            return new BlockChainInfo(blockHash, chainWork, height, totalChainSize, chainPathId);
+            return new BlockChainInfo(blockHash, chainWork, height, totalChainSize, chainPathId, skipBlockHash);
         }
 
     }
@@ -46,6 +46,9 @@ public class BlockChainInfoSerializer {
         BitcoinSerializerUtils.serializeVarInt(object.getTotalChainSize(), writer);
         writer.writeUint32LE(object.getChainPathId());
 
+        // Skip pointer (empty if there is none):
+        BitcoinSerializerUtils.serializeVarStr(object.getSkipBlockHash() == null ? "" : object.getSkipBlockHash(), writer);
+
         return writer.reader().getFullContentAndClose();
     }
 
@@ -65,12 +68,20 @@ public class BlockChainInfoSerializer {
         var chainSize = BitcoinSerializerUtils.deserializeVarInt(reader);
         var pathId = (int)reader.readUint32();
 
+        // The Skip pointer is not present in the entries saved by previous versions:
+        String skipBlockHash = null;
+        if (!reader.isEmpty()) {
+            skipBlockHash = BitcoinSerializerUtils.deserializeVarStr(reader);
+            if (skipBlockHash.isEmpty()) skipBlockHash = null;
+        }
+
         return resultBuilder
                 .blockHash(blockHash)
                 .chainWork(chainWork)
                 .height(height)
                 .totalChainSize(chainSize)
                 .chainPathId(pathId)
+                .skipBlockHash(skipBlockHash)
                 .build();
     }
 }
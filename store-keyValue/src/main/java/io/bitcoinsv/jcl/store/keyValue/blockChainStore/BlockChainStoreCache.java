@@ -0,0 +1,68 @@
+package io.bitcoinsv.jcl.store.keyValue.blockChainStore;
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly;
+import io.bitcoinsv.jcl.store.blockChainStore.BlockChainStoreCacheState;
+import io.bitcoinsv.jcl.store.keyValue.common.HashesList;
+import io.bitcoinsv.jcl.store.keyValue.common.StoreCache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Read-through Caches used by the {@link BlockChainStoreKeyValue} for the Items read most often while the Blocks are
+ * validated and connected: Block Headers, BlockChainInfo, ChainPathInfo and the Tips of the Chains.
+ *
+ * The Items are only cached when they are read holding the Store Lock (so no other Thread is changing them at that
+ * moment), and they are invalidated by the Store whenever they are saved or removed (when Blocks are connected,
+ * disconnected or pruned). If a Transaction is rolled back all the Caches are invalidated, since they might contain
+ * Items read within that Transaction.
+ */
+public class BlockChainStoreCache {
+
+    // Names of the Caches, as shown in the State:
+    public static final String CACHE_HEADERS        = "headers";
+    public static final String CACHE_CHAIN_INFO     = "chainInfo";
+    public static final String CACHE_CHAIN_PATHS    = "chainPaths";
+    public static final String CACHE_TIPS           = "tips";
+
+    // There is only one List of Tips, so that Cache only has one Key:
+    public static final String KEY_TIPS = "tips";
+
+    private final StoreCache<String, HeaderReadOnly> headers;
+    private final StoreCache<String, BlockChainInfo> chainInfo;
+    private final StoreCache<Integer, ChainPathInfo> chainPaths;
+    private final StoreCache<String, HashesList> tips;
+
+    /** Constructor. A max size of zero disables the Caches */
+    public BlockChainStoreCache(int maxSize) {
+        this.headers = new StoreCache<>(maxSize);
+        this.chainInfo = new StoreCache<>(maxSize);
+        this.chainPaths = new StoreCache<>(maxSize);
+        this.tips = new StoreCache<>(maxSize > 0 ? 1 : 0);
+    }
+
+    public StoreCache<String, HeaderReadOnly> getHeaders()      { return this.headers; }
+    public StoreCache<String, BlockChainInfo> getChainInfo()    { return this.chainInfo; }
+    public StoreCache<Integer, ChainPathInfo> getChainPaths()   { return this.chainPaths; }
+    public StoreCache<String, HashesList> getTips()             { return this.tips; }
+
+    public void invalidateAll() {
+        headers.invalidateAll();
+        chainInfo.invalidateAll();
+        chainPaths.invalidateAll();
+        tips.invalidateAll();
+    }
+
+    public Map<String, BlockChainStoreCacheState> getState() {
+        Map<String, BlockChainStoreCacheState> result = new LinkedHashMap<>();
+        result.put(CACHE_HEADERS, headers.getState());
+        result.put(CACHE_CHAIN_INFO, chainInfo.getState());
+        result.put(CACHE_CHAIN_PATHS, chainPaths.getState());
+        result.put(CACHE_TIPS, tips.getState());
+        return result;
+    }
+}
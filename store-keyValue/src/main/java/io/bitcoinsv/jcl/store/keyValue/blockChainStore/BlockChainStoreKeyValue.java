@@ -14,6 +14,7 @@ import io.bitcoinsv.jcl.store.blockChainStore.events.ChainPruneEvent;
 import io.bitcoinsv.jcl.store.blockChainStore.events.ChainStateEvent;
 import io.bitcoinsv.jcl.store.blockChainStore.validation.exception.BlockChainRuleFailureException;
 import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreKeyValue;
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreLocks;
 import io.bitcoinsv.jcl.store.keyValue.common.HashesList;
 
 import java.math.BigInteger;
@@ -45,6 +46,8 @@ import static java.util.Optional.ofNullable;
  *  "b:chain:[blockHash]":  an instance of b.lockChainInfo. If this Block can be CONNECTED to the Chain (meaning that
  *                          its parent is also stored and connected to the Chain), then this isntance stores the
  *                          relative chain info for this Block.*
+ *                          It also stores a "skip" pointer to one of its ancestors, so any ancestor of a Block can
+ *                          be reached in O(log n) reads (see {@link BlockChainInfo}).
  *
  *  Also, there is a new Key (in the "BLOCKCHAIN" directory) that stores a List with the TIPS of the Chain
  *  (Block Hashes). Its usually a one-element List, but in case of a FORK it might contain more than one element.
@@ -86,6 +89,9 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
     /** Configuration: */
     BlockChainStoreKeyValueConfig getConfig();
 
+    /** Caches of Headers, BlockChainInfo, ChainPathInfo and Tips */
+    BlockChainStoreCache getCache();
+
     // Keys used to store block info and it's relative position within the Chain:
     String KEY_SUFFIX_BLOCK_NEXT     = "next";         // Block built on top of this one
     String KEY_PREFFIX_BLOCK_CHAIN   = "b_chain";      // Chain info for this block based on Hash
@@ -129,6 +135,37 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
 
     default void validateBlockChainInfo(ChainInfo block) throws BlockChainRuleFailureException {};
 
+    /*
+     Caches: The Items read are only stored in the Cache if the current Thread holds the Chain Lock (or the whole
+     Store), so no other Thread can change them until the Lock is released. Whenever an Item is saved or removed, it's
+     removed from its Cache.
+     */
+
+    default boolean _isCacheable() {
+        return getLocks().getChain().isHeldByCurrentThread() || getLocks().getStore().isWriteLockedByCurrentThread();
+    }
+
+    /*
+     Locks: The Block Headers are part of the Chain, so saving or removing them also changes the Chain Structure
+     (tips, paths, etc), which is locked as a whole.
+     */
+
+    @Override
+    default BlockStoreLocks.Request _lockBlocks(boolean write, Collection<String> blockHashes) {
+        return BlockStoreKeyValue.super._lockBlocks(write, blockHashes).chain(write);
+    }
+
+    @Override
+    default void executeInTransaction(T tr, Runnable task) {
+        try {
+            BlockStoreKeyValue.super.executeInTransaction(tr, task);
+        } catch (RuntimeException e) {
+            // The Caches might contain Items read within the Transaction rolled back:
+            getCache().invalidateAll();
+            throw e;
+        }
+    }
+
     /*
      BlockChain Store DB Operations:
      These methods execute the business logic. Most of the time, each one of the methods below map a method of the
@@ -141,22 +178,28 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
      */
 
     private BlockChainInfo _getBlockChainInfo(T tr, String blockHash) {
+        BlockChainInfo result = getCache().getChainInfo().get(blockHash);
+        if (result != null) return result;
         byte[] value = read(tr, fullKeyForBlockChainInfo(blockHash));
-        return toBlockChainInfo(value);
+        result = toBlockChainInfo(value);
+        if (_isCacheable()) getCache().getChainInfo().put(blockHash, result);
+        return result;
     }
 
     private void _saveBlockChainInfo(T tr, BlockChainInfo blockChainInfo) {
         byte[] key = fullKeyForBlockChainInfo(blockChainInfo.getBlockHash());
         byte[] value = bytes(blockChainInfo);
         save(tr, key, value);
+        getCache().getChainInfo().invalidate(blockChainInfo.getBlockHash());
         getLogger().trace("BlockChainInfo Saved/Updated [block: {}, path: {}, height: {}]", blockChainInfo.getBlockHash(), blockChainInfo.getChainPathId(), blockChainInfo.getHeight());
     }
 
     private void _removeBlockChainInfo(T tr, String blockHash) {
         remove(tr, fullKeyForBlockChainInfo(blockHash));
+        getCache().getChainInfo().invalidate(blockHash);
     }
 
-    private BlockChainInfo _getBlockChainInfo(HeaderReadOnly block, BlockChainInfo parentBlockChainInfo, int chainPathId){
+    private BlockChainInfo _getBlockChainInfo(T tr, HeaderReadOnly block, BlockChainInfo parentBlockChainInfo, int chainPathId){
         // We calculate the Height of the Chain:
         int resultHeight = (parentBlockChainInfo != null)
                 ? parentBlockChainInfo.getHeight() + 1
@@ -172,6 +215,13 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                 ? parentBlockChainInfo.getChainWork().add(block.getWork())
                 : getConfig().getGenesisBlock().getWork();
 
+        // We set the Skip pointer, pointing to one of the ancestors of this Block:
+        String skipBlockHash = null;
+        if (parentBlockChainInfo != null) {
+            BlockChainInfo skipBlockChainInfo = _getAncestor(tr, parentBlockChainInfo, BlockChainInfo.getSkipHeight(resultHeight));
+            skipBlockHash = (skipBlockChainInfo != null) ? skipBlockChainInfo.getBlockHash() : null;
+        }
+
         // We build the object and save it:
         BlockChainInfo blockChainInfo = BlockChainInfo.builder()
                 .blockHash(block.getHash().toString())
@@ -179,6 +229,7 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                 .height(resultHeight)
                 .totalChainSize(resultChainSize)
                 .chainPathId(chainPathId)
+                .skipBlockHash(skipBlockHash)
                 .build();
 
         return blockChainInfo;
@@ -258,13 +309,19 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
 
     default List<String> _getChainTips(T tr) {
         List<String> result = new ArrayList<>();
-        HashesList tips = toHashes(read(tr, fullKeyForChainTips()));
+        HashesList tips = getCache().getTips().get(BlockChainStoreCache.KEY_TIPS);
+        if (tips == null) {
+            tips = toHashes(read(tr, fullKeyForChainTips()));
+            if (_isCacheable()) getCache().getTips().put(BlockChainStoreCache.KEY_TIPS, tips);
+        }
+        // The List cached is never returned, so it's not changed:
         if (tips != null) result.addAll(tips.getHashes());
         return result;
     }
 
     private void _saveChainTips(T tr, HashesList chainstips) {
         save(tr, fullKeyForChainTips(), bytes(chainstips));
+        getCache().getTips().invalidate(BlockChainStoreCache.KEY_TIPS);
     }
 
     private void _updateTipsChain(T tr, String blockHashToAdd, String blockHashToRemove) {
@@ -282,30 +339,35 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
     }
 
     default void connectBlock(Sha256Hash blockHash, Consumer<Sha256Hash> onBlockConnected) throws BlockChainRuleFailureException {
-        try {
-            getLock().writeLock().lock();
-            T tr = createTransaction();
-
-            var header = _getBlock(tr, blockHash.toString());
-
-            _connectBlock(tr, header, null, onBlockConnected);
-        } finally {
-            getLock().writeLock().unlock();
+        try (BlockStoreLocks.Held held = _lockBlocks(true, Arrays.asList(blockHash.toString())).acquire()) {
+            _connectBlockInTransaction(blockHash, onBlockConnected);
         }
     }
 
     default List<Sha256Hash> connectBlock(Sha256Hash blockHash) throws BlockChainRuleFailureException {
-        try {
-            getLock().writeLock().lock();
-            T tr = createTransaction();
-
-            var header = _getBlock(tr, blockHash.toString());
-
-            return _connectBlock(tr, header, null, null).stream()
+        try (BlockStoreLocks.Held held = _lockBlocks(true, Arrays.asList(blockHash.toString())).acquire()) {
+            return _connectBlockInTransaction(blockHash, null).stream()
                 .map(HashProvider::getHash)
                 .collect(Collectors.toList());
-        } finally {
-            getLock().writeLock().unlock();
+        }
+    }
+
+    // It connects the Block in its own Transaction. If the Block breaks a Rule, the Transaction is still committed,
+    // since the Block has been removed:
+    private List<HeaderReadOnly> _connectBlockInTransaction(Sha256Hash blockHash, Consumer<Sha256Hash> onBlockConnected) throws BlockChainRuleFailureException {
+        T tr = createTransaction();
+        try {
+            var header = _getBlock(tr, blockHash.toString());
+            List<HeaderReadOnly> result = _connectBlock(tr, header, null, onBlockConnected);
+            commitTransaction(tr);
+            return result;
+        } catch (BlockChainRuleFailureException e) {
+            commitTransaction(tr);
+            throw e;
+        } catch (RuntimeException e) {
+            rollbackTransaction(tr);
+            getCache().invalidateAll();
+            throw e;
         }
     }
 
@@ -382,7 +444,7 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
     private BlockChainInfo _getBlockChainInfo(T tr, HeaderReadOnly blockHeader, BlockChainInfo parentBlockChainInfo) {
         // Special case for the Genesis Block:
         if (parentBlockChainInfo == null) {
-            return _getBlockChainInfo(blockHeader, parentBlockChainInfo, 1);
+            return _getBlockChainInfo(tr, blockHeader, parentBlockChainInfo, 1);
         }
 
         // Regular scenario, when connecting a Block to an existing Parent:
@@ -408,7 +470,7 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
             pathIdForNewBlock = _createNewChainPath(tr, parentBlockChainInfo.getChainPathId(), blockHeader.getHash().toString()).getId();
         }
         // connect this block
-        return _getBlockChainInfo(blockHeader, parentBlockChainInfo, pathIdForNewBlock);
+        return _getBlockChainInfo(tr, blockHeader, parentBlockChainInfo, pathIdForNewBlock);
     }
 
     default void disconnectBlock(Sha256Hash blockHash) {
@@ -416,13 +478,9 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
     }
 
     default void disconnectBlock(Sha256Hash blockHash, Consumer<Sha256Hash> onDisconnected) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(true).acquire()) {
             T tr = createTransaction();
-
-            _disconnectBlock(tr, blockHash.toString(), onDisconnected);
-        } finally {
-            getLock().writeLock().unlock();
+            executeInTransaction(tr, () -> _disconnectBlock(tr, blockHash.toString(), onDisconnected));
         }
     }
 
@@ -544,16 +602,13 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
     }
 
     default void _publishState() {
-            try {
-                getLock().readLock().lock();
+            try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
                 //getLogger().trace("Publishing State...");
                 ChainStateEvent event = new ChainStateEvent(getState());
                 getEventBus().publish(event);
                 //getLogger().trace("State published");
             } catch (Exception e) {
                 getLogger().error("ERROR at publishing State", e);
-            } finally {
-                 getLock().readLock().unlock();
             }
     }
 
@@ -567,6 +622,7 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
 
         // we save the Block...:
        BlockStoreKeyValue.super._saveBlock(tr, blockHeader);
+       getCache().getHeaders().invalidate(blockHeader.getHash().toString());
 
         // and its relation with its parent (ONLY If this is NOT the GENESIS Block)
         if (!blockHeader.getHash().equals(getConfig().getGenesisBlock().getHash())) {
@@ -615,6 +671,16 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
 
         // we remove the Block the usual way:
         BlockStoreKeyValue.super._removeBlock(tr, blockHash);
+        getCache().getHeaders().invalidate(blockHash);
+    }
+
+    @Override
+    default HeaderReadOnly _getBlock(T tr, String blockHash) {
+        HeaderReadOnly result = getCache().getHeaders().get(blockHash);
+        if (result != null) return result;
+        result = BlockStoreKeyValue.super._getBlock(tr, blockHash);
+        if (_isCacheable()) getCache().getHeaders().put(blockHash, result);
+        return result;
     }
 
     private void _updateLastPathId(T tr, int pathId) {
@@ -647,6 +713,7 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
         byte[] key = fullKeyForChainPath(pathId);
         byte[] value = bytes(result);
         save(tr, key, value);
+        getCache().getChainPaths().invalidate(pathId);
         getLogger().trace("PathInfo Saved [path id: {}, parent path: {}]", pathId, parentId);
         return result;
     }
@@ -654,13 +721,17 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
     private void _removeChainPath(T tr, int pathId) {
         byte[] key = fullKeyForChainPath(pathId);
         remove(tr, key);
+        getCache().getChainPaths().invalidate(pathId);
         getLogger().trace("PathInfo Removed [path id: {}]", pathId);
     }
 
     private ChainPathInfo _getChainPathInfo(T tr, int pathId) {
+        ChainPathInfo result = getCache().getChainPaths().get(pathId);
+        if (result != null) return result;
         byte[] key = fullKeyForChainPath(pathId);
         byte[] value = read(tr, key);
-        ChainPathInfo result = toChainPathInfo(value);
+        result = toChainPathInfo(value);
+        if (_isCacheable()) getCache().getChainPaths().put(pathId, result);
         return result;
     }
 
@@ -704,14 +775,92 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
 
     }
 
+    // It returns the Ancestor of the Block given at the height given (or the Block itself if the height is the same),
+    // following the Skip pointers (same algorithm as "GetAncestor" in bitcoind), so it takes O(log n) reads:
+    private BlockChainInfo _getAncestor(T tr, BlockChainInfo blockChainInfo, int height) {
+        if (blockChainInfo == null || height < 0 || height > blockChainInfo.getHeight()) return null;
+        BlockChainInfo blockWalk = blockChainInfo;
+        int heightWalk = blockChainInfo.getHeight();
+        while (blockWalk != null && heightWalk > height) {
+            // Blocks connected before the Skip pointers were introduced do not have one, so we use the Paths instead:
+            if (blockWalk.getSkipBlockHash() == null) return _getAncestorByPaths(tr, blockWalk, height);
+
+            int heightSkip = BlockChainInfo.getSkipHeight(heightWalk);
+            int heightSkipPrev = BlockChainInfo.getSkipHeight(heightWalk - 1);
+            // Only follow the Skip pointer if the parent's Skip pointer is not better:
+            if (heightSkip == height || (heightSkip > height && !(heightSkipPrev < heightSkip - 2 && heightSkipPrev >= height))) {
+                blockWalk = _getBlockChainInfo(tr, blockWalk.getSkipBlockHash());
+                heightWalk = heightSkip;
+            } else {
+                HeaderReadOnly blockWalkHeader = _getBlock(tr, blockWalk.getBlockHash());
+                blockWalk = _getBlockChainInfo(tr, blockWalkHeader.getPrevBlockHash().toString());
+                heightWalk--;
+            }
+        }
+        return blockWalk;
+    }
+
+    // It returns the Paths that make up the history of the Block given, starting from the Path the Block belongs to and
+    // going up to the Genesis Path. For each Path, it returns the Height of the last Block in that Path that is an
+    // ancestor of the Block given (or the Block itself):
+    private LinkedHashMap<Integer, Integer> _getPathsHistory(T tr, BlockChainInfo blockChainInfo) {
+        LinkedHashMap<Integer, Integer> result = new LinkedHashMap<>();
+        int exitHeight = blockChainInfo.getHeight();
+        ChainPathInfo pathInfo = _getChainPathInfo(tr, blockChainInfo.getChainPathId());
+        while (pathInfo != null) {
+            result.put(pathInfo.getId(), exitHeight);
+            // The Path is left right before the Block it begins with:
+            BlockChainInfo firstBlockInPath = _getBlockChainInfo(tr, pathInfo.getBlockHash());
+            if (firstBlockInPath == null) break;
+            exitHeight = firstBlockInPath.getHeight() - 1;
+            pathInfo = _getChainPathInfo(tr, pathInfo.getParent_id());
+        }
+        return result;
+    }
+
+    // It returns the Ancestor of the Block given at the height given, using the Blocks stored at that Height and
+    // the Paths that make up the history of the Block. Used for Blocks that do not have a Skip pointer:
+    private BlockChainInfo _getAncestorByPaths(T tr, BlockChainInfo blockChainInfo, int height) {
+        if (height == blockChainInfo.getHeight()) return blockChainInfo;
+        Map<Integer, Integer> pathsHistory = _getPathsHistory(tr, blockChainInfo);
+        for (String hash : _getBlockHashesByHeight(tr, height).getHashes()) {
+            BlockChainInfo candidate = _getBlockChainInfo(tr, hash);
+            if (candidate == null) continue;
+            Integer exitHeight = pathsHistory.get(candidate.getChainPathId());
+            if (exitHeight != null && height <= exitHeight) return candidate;
+        }
+        return null;
+    }
+
+    // It returns the Lowest Common Ancestor of the 2 Blocks given: The first Path shared by the histories of both
+    // Blocks contains it, and the Ancestor is at the lowest of the heights both histories leave that Path at:
+    private BlockChainInfo _getLowestCommonAncestor(T tr, BlockChainInfo block1, BlockChainInfo block2) {
+        Map<Integer, Integer> pathsHistory1 = _getPathsHistory(tr, block1);
+        Map<Integer, Integer> pathsHistory2 = _getPathsHistory(tr, block2);
+        for (Map.Entry<Integer, Integer> pathEntry : pathsHistory2.entrySet()) {
+            Integer exitHeight1 = pathsHistory1.get(pathEntry.getKey());
+            if (exitHeight1 != null) return _getAncestor(tr, block1, Math.min(exitHeight1, pathEntry.getValue()));
+        }
+        return null;
+    }
+
+    // It builds a ChainInfo out of the BlockChainInfo given:
+    private ChainInfo _buildChainInfo(T tr, BlockChainInfo blockChainInfo) {
+        HeaderReadOnly blockHeader = _getBlock(tr, blockChainInfo.getBlockHash());
+        ChainInfoBean chainInfoResult = new ChainInfoBean(blockHeader);
+        chainInfoResult.setChainWork(blockChainInfo.getChainWork());
+        chainInfoResult.setHeight(blockChainInfo.getHeight());
+        chainInfoResult.makeImmutable();
+        return chainInfoResult;
+    }
+
     /*
      * High level Functions
      */
 
     @Override
     default BlockChainStoreState getState() {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             List<ChainInfo> tipsChainInfo = getTipsChains().stream()
                     .map(h -> getBlockChainInfo(h).get())
                     .collect(Collectors.toList());
@@ -719,17 +868,18 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                     .tipsChains(tipsChainInfo)
                     .numBlocks(getNumBlocks())
                     .numTxs(getNumTxs())
+                    .numOrphanBlocks(getNumOrphanBlocks())
+                    .caches(getCache().getState())
+                    .filters(getFilter().isEnabled() ? getFilter().getState() : null)
+                    .locks(getLocks().getState())
                     .build();
-        } finally {
-            getLock().readLock().unlock();
         }
 
     }
 
     @Override
     default List<Sha256Hash> getTipsChains() {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             List<Sha256Hash> result = new ArrayList<>();
             T tr = createTransaction();
             executeInTransaction(tr , () -> {
@@ -737,15 +887,12 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                 result.addAll(tipsChain.stream().map(Sha256Hash::wrap).collect(Collectors.toList()));
             });
             return result;
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default List<Sha256Hash> getTipsChains(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             List<Sha256Hash> result = new ArrayList<>();
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
@@ -774,18 +921,16 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                 }
             });
             return result;
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     /**
-     * Efficiently( O(total_paths) ) Checks whether either hash is within the same chain
-     * @Return True if both hashes share a common path, false if not
+     * Checks whether one of the Blocks is an ancestor of the other (or the same Block), following the Skip pointers
+     * of the highest one: O(log n)
+     * @Return True if both Blocks are in the same Chain, false if not
      */
     default boolean isInChain(Sha256Hash blockHash1, Sha256Hash blockHash2) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             AtomicReference<Boolean> result = new AtomicReference<>(false);
 
             T tr = createTransaction();
@@ -797,165 +942,81 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                    return;
                 }
 
-                //get the chain path from the higest block
-                ChainPathInfo highestChainPathInfo;
-                ChainPathInfo targetChainPathInfo;
-                if(block1.getHeight() > block2.getHeight()) {
-                    highestChainPathInfo =  _getChainPathInfo(tr, block1.getChainPathId());
-                    targetChainPathInfo = _getChainPathInfo(tr, block2.getChainPathId());
-                } else {
-                    highestChainPathInfo =  _getChainPathInfo(tr, block2.getChainPathId());
-                    targetChainPathInfo = _getChainPathInfo(tr, block1.getChainPathId());
-                }
-
-                //traverse the chain path back to genesis to see if the target path is on the same path
-                while(highestChainPathInfo != null){
-                    if(highestChainPathInfo.getId() == targetChainPathInfo.getId()){
-                        result.set(true);
-                        return;
-                    }
-
-                    highestChainPathInfo = _getChainPathInfo(tr, highestChainPathInfo.getParent_id());
-                }
+                // The lowest Block must be the ancestor of the highest one at its same height:
+                BlockChainInfo highestBlock = (block1.getHeight() > block2.getHeight()) ? block1 : block2;
+                BlockChainInfo lowestBlock = (highestBlock == block1) ? block2 : block1;
+                BlockChainInfo ancestor = _getAncestor(tr, highestBlock, lowestBlock.getHeight());
+                result.set(ancestor != null && ancestor.getBlockHash().equals(lowestBlock.getBlockHash()));
             });
 
             return result.get();
-
-        } finally {
-                getLock().readLock().unlock();
         }
     }
 
     @Override
     default Optional<ChainInfo> getAncestorByHeight(Sha256Hash blockHash, int ancestorHeight) {
 
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             AtomicReference<ChainInfo> result = new AtomicReference<>();
 
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 BlockChainInfo currentBlock = _getBlockChainInfo(tr, blockHash.toString());
-                List<BlockChainInfo> ancestorBlocks = _getBlockHashesByHeight(tr, ancestorHeight).getHashes().stream().map(h -> _getBlockChainInfo(tr, h)).collect(Collectors.toList());
-
-                if(currentBlock == null || ancestorBlocks.isEmpty()){
+                if(currentBlock == null || currentBlock.getHeight() < ancestorHeight) {
                     return;
                 }
 
-                if(currentBlock.getHeight() < ancestorHeight) {
+                // We follow the Skip pointers down to the height requested:
+                BlockChainInfo ancestorBlock = _getAncestor(tr, currentBlock, ancestorHeight);
+                if (ancestorBlock == null) {
                     return;
                 }
 
-                //starting path
-                ChainPathInfo chainPathInfo = _getChainPathInfo(tr, currentBlock.getChainPathId());
-
-                //recursively loop up the given blocks chain paths, if one of the ancestor blocks is on the same path, then we know it's a direct ancestor
-                BlockChainInfo ancestorBlock = null;
-                while(chainPathInfo != null){
-                    for(BlockChainInfo blockChainInfo : ancestorBlocks){
-                        if(blockChainInfo.getChainPathId() == chainPathInfo.getId()) {
-                            ancestorBlock = blockChainInfo;
-                            break;
-                        }
-                    }
-                    chainPathInfo = _getChainPathInfo(tr, chainPathInfo.getParent_id());
-                }
-
-                HeaderReadOnly ancestorBlockHeader = _getBlock(tr, ancestorBlock.getBlockHash());
-
-                ChainInfoBean chainInfoResult = new ChainInfoBean(ancestorBlockHeader);
-                chainInfoResult.setChainWork(ancestorBlock.getChainWork());
-                chainInfoResult.setHeight(ancestorBlock.getHeight());
-                chainInfoResult.makeImmutable();
-
-                result.set(chainInfoResult);
+                result.set(_buildChainInfo(tr, ancestorBlock));
             });
 
             return ofNullable(result.get());
-
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default Optional<ChainInfo> getLowestCommonAncestor(List<Sha256Hash> blockHashes) {
 
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             AtomicReference<ChainInfo> result = new AtomicReference<>();
 
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
-                Set<BlockChainInfo> leafNodeSet = new TreeSet<>(Comparator.comparing(BlockChainInfo::getHeight).reversed());
-
-                // we loop through each of the chain path histories, taking the common root ancestors, then the ancestor with the largest height will be the highest common ancestor
+                // The common Ancestor of all the Blocks is calculated pair by pair: the common ancestor of the first 2,
+                // then the common ancestor of that one and the third Block, and so on...
+                BlockChainInfo lowestCommonAncestor = null;
                 for(Sha256Hash hash : blockHashes){
                     BlockChainInfo chainInfo = _getBlockChainInfo(tr, hash.toString());
 
                     if(chainInfo == null)
                         return;
 
-                    //we will store all ancestors up to genesis
-                    Set<BlockChainInfo> ancestorRootNodes = new TreeSet<>(Comparator.comparing(BlockChainInfo::getHeight));
-
-                    //starting path
-                    ChainPathInfo chainPathInfo = _getChainPathInfo(tr, chainInfo.getChainPathId());
-
-                    //recursively loop up the chain paths, and get the first nodes parent in that branch. The parent is the common ancestor. Then take the intersection of all three lists to
-                    //find the common ancestor(s). Then we take the ancestor with the highest height from the new intersected list.
-                    while(chainPathInfo != null){
-                        HeaderReadOnly firstNodeBlock = _getBlock(tr, chainPathInfo.getBlockHash());
-                        BlockChainInfo rootNodeBlockChainInfo;
-
-                        //secial handling for genesis branch, as genesis blocks parent is itself
-                        if(firstNodeBlock.getHash().equals(getConfig().getGenesisBlock().getHash())){
-                            rootNodeBlockChainInfo = _getBlockChainInfo(tr, firstNodeBlock.getHash().toString());
-                        } else {
-                            rootNodeBlockChainInfo = _getBlockChainInfo(tr, firstNodeBlock.getPrevBlockHash().toString());
-                        }
+                    lowestCommonAncestor = (lowestCommonAncestor == null)
+                            ? chainInfo
+                            : _getLowestCommonAncestor(tr, lowestCommonAncestor, chainInfo);
 
-                        //Add to list of common ancestors
-                        ancestorRootNodes.add(rootNodeBlockChainInfo);
-
-                        //recursively loop up the paths
-                        chainPathInfo = _getChainPathInfo(tr, chainPathInfo.getParent_id());
-                    }
-
-                    //we want to keep the intersection between all the sets, if this is the first loop then the intersection will be an empty set, so just copy it over.
-                    if(leafNodeSet.isEmpty()){
-                        leafNodeSet.addAll(ancestorRootNodes);
-                    } else {
-                        //if not, then the intersection is the common ancestors between both lists
-                        leafNodeSet.retainAll(ancestorRootNodes);
-                    }
+                    if (lowestCommonAncestor == null)
+                        return;
                 }
 
-                //As this list is sorted by height decending, the first in the list will be the common ancestor with the highest height
-                BlockChainInfo lowestCommonAncestorChainInfo = leafNodeSet.iterator().next();
-                HeaderReadOnly lowestCommonAncestorHeader = _getBlock(tr, lowestCommonAncestorChainInfo.getBlockHash());
-
-                ChainInfoBean chainInfoResult = new ChainInfoBean(lowestCommonAncestorHeader);
-                chainInfoResult.setChainWork(lowestCommonAncestorChainInfo.getChainWork());
-                chainInfoResult.setHeight(lowestCommonAncestorChainInfo.getHeight());
-                chainInfoResult.makeImmutable();
-
-                //the first element in the set, is now the higest common ancestor
-                result.set(chainInfoResult);
+                if (lowestCommonAncestor != null) {
+                    result.set(_buildChainInfo(tr, lowestCommonAncestor));
+                }
             });
 
             return ofNullable(result.get());
-
-        } finally {
-            getLock().readLock().unlock();
         }
 
     }
 
     @Override
     default Optional<ChainInfo> getFirstBlockInHistory(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             AtomicReference<ChainInfo> result = new AtomicReference<>();
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
@@ -1001,22 +1062,16 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                 result.set(chainInfoResult);
             });
             return ofNullable(result.get());
-
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default void removeTipsChains() {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(true).acquire()) {
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 _saveChainTips(tr, HashesList.builder().build());
             });
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
@@ -1046,16 +1101,14 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
 
     @Override
     default Optional<ChainInfo> getBlockChainInfo(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             AtomicReference<ChainInfo> result = new AtomicReference<>();
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 HeaderReadOnly block = _getBlock(tr, blockHash.toString());
                 if (block == null) return;
 
-                byte[] value = read(tr, fullKeyForBlockChainInfo(blockHash.toString()));
-                BlockChainInfo blockChainInfo = toBlockChainInfo(value);
+                BlockChainInfo blockChainInfo = _getBlockChainInfo(tr, blockHash.toString());
                 if (blockChainInfo != null) {
                     ChainInfoBean chainInfoResult = new ChainInfoBean(block);
                     chainInfoResult.setChainWork(blockChainInfo.getChainWork());
@@ -1065,32 +1118,21 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                 }
             });
             return ofNullable(result.get());
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default boolean isConnected(Sha256Hash blockHash) {
         AtomicBoolean result = new AtomicBoolean();
-        try {
-            getLock().readLock().lock();
-            byte[] key = fullKeyForBlockChainInfo(blockHash.toString());
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             T tr = createTransaction();
-            executeInTransaction(tr, () -> {
-                byte[] value = read(tr, key);
-                result.set(value != null);
-              }
-            );
-        } finally {
-            getLock().readLock().unlock();
+            executeInTransaction(tr, () -> result.set(_getBlockChainInfo(tr, blockHash.toString()) != null));
         }
         return result.get();
     }
 
     default boolean isOnLongestChain(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
 
             // We get the longest chain
             var longestChain = getLongestChain();
@@ -1118,37 +1160,28 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
             return ancestor
                 .map(ancestorInfo -> ancestorInfo.getHeader().getHash().equals(blockHash))
                 .orElse(false);
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default Optional<ChainInfo> getLongestChain() {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
 
             return getState().getTipsChains().stream()
                 .max(Comparator.comparingInt(ChainInfoReadOnly::getHeight));
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default Optional<Sha256Hash> getPrevBlock(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             return getBlock(blockHash).map(HeaderReadOnly::getPrevBlockHash);
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default List<Sha256Hash> getNextBlocks(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
             List<Sha256Hash> result = new ArrayList<>();
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
@@ -1156,8 +1189,13 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                 result.addAll(children.stream().map(Sha256Hash::wrap).collect(Collectors.toList()));
             });
             return result;
-        } finally {
-            getLock().readLock().unlock();
+        }
+    }
+
+    @Override
+    default long getNumOrphanBlocks() {
+        try (BlockStoreLocks.Held held = getLocks().request().chain(false).acquire()) {
+            return _getCounterOrCount(COUNTER_ORPHANS, fullKeyPreffixForOrphanBlocks());
         }
     }
 
@@ -1168,7 +1206,7 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
 
         // The iterator will loop over that Keys that belong to the "blocks" folder and start with the preffix
         // used for storing orphans:
-        byte[] startingWithKey = fullKey(fullKeyForBlocks(), KEY_PREFFIX_ORPHAN_HASH);
+        byte[] startingWithKey = fullKeyPreffixForOrphanBlocks();
 
 
         // The keyVerifier Function will check that each Key we loop over is a Valid Key: A Valid Key is a key that
@@ -1195,8 +1233,7 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
     @Override
     default void prune(Sha256Hash tipChainHash, boolean removeTxs) {
         getLogger().debug("Prunning chain tip #" + tipChainHash + " ...");
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().chain(true).acquire()) {
             List<Sha256Hash> tipsChains = getTipsChains();
 
             // First we check if this Hash really is a TIP of a chain:
@@ -1235,8 +1272,6 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
             // We trigger a Prune Event:
             ChainPruneEvent event = new ChainPruneEvent(tipChainHash, parentHashOpt.get(), hashesBlocksToRemove);
             getEventBus().publish(event);
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
@@ -1248,8 +1283,7 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
     //   longer than "prunningAgeDifference"
 
     default void _automaticForkPrunning() {
-            try {
-                getLock().writeLock().lock();
+            try (BlockStoreLocks.Held held = getLocks().request().chain(true).acquire()) {
                 getLogger().debug("Automatic Fork Pruning initiating...");
                 // We only prune if there is more than one chain:
                 List<Sha256Hash> tipsChain = getTipsChains();
@@ -1263,8 +1297,6 @@ public interface BlockChainStoreKeyValue<E, T> extends BlockStoreKeyValue<E, T>,
                     tipsToPrune.forEach(c -> prune(c, getConfig().isForkPrunningIncludeTxs()));
                 }
                 getLogger().debug("Automatic Fork Pruning finished.");
-            } finally {
-                getLock().writeLock().unlock();
             }
     }
 
@@ -31,4 +31,10 @@ public interface BlockChainStoreKeyValueConfig extends BlockStoreKeyValueConfig
     /** If Automatic Orphan Prunning is enabled, any Orphan block older than this value will be removed */
     Duration getOrphanPrunningBlockAge();
 
+    /**
+     * Max number of Items kept in each one of the Caches of Headers, BlockChainInfo and ChainPathInfo
+     * (see BlockChainStoreCache). Zero disables the Caches.
+     */
+    int getCacheMaxSize();
+
 }
@@ -0,0 +1,109 @@
+package io.bitcoinsv.jcl.store.keyValue.blockStore;
+
+
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreBulkIngestState;
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreBulkIngestState.Phase;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * State of a Bulk Ingest in the {@link BlockStoreKeyValue}. A Bulk Ingest is meant for the initial load of a Store
+ * (from a snapshot of the chain, for instance). While it's running, Txs and Blocks are saved without triggering
+ * Events or checking whether they already exist, and the Keys of each batch are written in order.
+ *
+ * The "txIndex" and "numTxs" properties of the Blocks the Txs are linked to are kept in memory, and the "tx_block"
+ * Keys (the reverse index from each Tx to its Blocks) are not written at all: Both are built in a second pass, when
+ * the Ingest finishes. Until then, those properties and the Blocks linked to each Tx are not reliable.
+ */
+public class BlockStoreBulkIngest {
+
+    /**
+     * Indexes of the Txs linked to a Block during the Ingest: [firstIndex, nextIndex). Once its indexes and properties
+     * have been written, the Block is marked as indexed, so it's skipped if the second pass is run again.
+     */
+    public static class BlockTxs {
+        private final long firstIndex;
+        private long nextIndex;
+        private volatile boolean indexed;
+
+        BlockTxs(long firstIndex) {
+            this.firstIndex = firstIndex;
+            this.nextIndex = firstIndex;
+        }
+
+        public long getFirstIndex() { return this.firstIndex; }
+        public long getNextIndex()  { return this.nextIndex; }
+        public long getNumTxs()     { return this.nextIndex - this.firstIndex; }
+        public boolean isIndexed()  { return this.indexed; }
+        void markIndexed()          { this.indexed = true; }
+    }
+
+    private volatile Phase phase = Phase.IDLE;
+    private long startTime;
+
+    private final Map<String, BlockTxs> blocks = new ConcurrentHashMap<>();
+    private final LongAdder txs = new LongAdder();
+    private final LongAdder txLinks = new LongAdder();
+    private final LongAdder txLinksIndexed = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public boolean isActive()                   { return phase != Phase.IDLE; }
+    public Phase getPhase()                     { return this.phase; }
+    public Map<String, BlockTxs> getBlocks()    { return this.blocks; }
+
+    public synchronized void start() {
+        if (isActive()) throw new IllegalStateException("A Bulk Ingest is already running");
+        blocks.clear();
+        txs.reset();
+        txLinks.reset();
+        txLinksIndexed.reset();
+        keys.reset();
+        bytes.reset();
+        startTime = System.currentTimeMillis();
+        phase = Phase.INGESTING;
+    }
+
+    /**
+     * It starts the second pass. If a previous one failed, the Txs of the Blocks already indexed are counted as
+     * indexed, and the rest are indexed again from the beginning.
+     */
+    public synchronized void startIndexing() {
+        txLinksIndexed.reset();
+        txLinksIndexed.add(blocks.values().stream().filter(BlockTxs::isIndexed).mapToLong(BlockTxs::getNumTxs).sum());
+        phase = Phase.INDEXING;
+    }
+
+    public synchronized void finish()           { phase = Phase.IDLE; }
+
+    /**
+     * It reserves the indexes for the Txs given linked to the Block, and returns the first one. The first time a
+     * Block is used, its current "txIndex" is taken from the function given.
+     */
+    public long nextTxIndex(String blockHash, Supplier<Long> currentTxIndex, int numTxs) {
+        BlockTxs blockTxs = blocks.computeIfAbsent(blockHash, h -> new BlockTxs(currentTxIndex.get()));
+        long result = blockTxs.nextIndex;
+        blockTxs.nextIndex += numTxs;
+        txLinks.add(numTxs);
+        return result;
+    }
+
+    public void txsSaved(long numTxs)                   { txs.add(numTxs); }
+    public void txLinksIndexed(long numTxLinks)         { txLinksIndexed.add(numTxLinks); }
+    public void keysWritten(long numKeys, long numBytes) {
+        keys.add(numKeys);
+        bytes.add(numBytes);
+    }
+
+    public synchronized BlockStoreBulkIngestState getState() {
+        long elapsedMillis = isActive() ? System.currentTimeMillis() - startTime : 0;
+        return new BlockStoreBulkIngestState(phase, blocks.size(), txs.sum(), txLinks.sum(), txLinksIndexed.sum(),
+                keys.sum(), bytes.sum(), elapsedMillis);
+    }
+}
@@ -0,0 +1,57 @@
+package io.bitcoinsv.jcl.store.keyValue.blockStore;
+
+
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreFilterState;
+import io.bitcoinsv.jcl.store.keyValue.common.StoreFilter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Filters used by the {@link BlockStoreKeyValue} in front of the DB, with the Hashes of all the Txs and Blocks
+ * stored. They are used to skip reading the DB when looking up Txs or Blocks that are not stored, which is the
+ * most common case when saving new Txs (see {@link StoreFilter}).
+ *
+ * The Filters are loaded from the DB when the Store starts, and kept up to date when Txs and Blocks are saved.
+ */
+public class BlockStoreFilter {
+
+    // Names of the Filters, as shown in the State:
+    public static final String FILTER_TXS       = "txs";
+    public static final String FILTER_BLOCKS    = "blocks";
+
+    private final StoreFilter txs;
+    private final StoreFilter blocks;
+
+    /** Constructor. Zero expected Items disables the Filters */
+    public BlockStoreFilter(long expectedItems, double falsePositiveRate) {
+        this.txs = new StoreFilter(expectedItems, falsePositiveRate);
+        // There are many less Blocks than Txs:
+        this.blocks = new StoreFilter(expectedItems > 0 ? Math.max(1, expectedItems / 1_000) : 0, falsePositiveRate);
+    }
+
+    public StoreFilter getTxs()     { return this.txs; }
+    public StoreFilter getBlocks()  { return this.blocks; }
+
+    public boolean isEnabled()      { return txs.isEnabled(); }
+
+    public void clear() {
+        txs.clear();
+        blocks.clear();
+    }
+
+    public void loaded() {
+        txs.loaded();
+        blocks.loaded();
+    }
+
+    public Map<String, BlockStoreFilterState> getState() {
+        Map<String, BlockStoreFilterState> result = new LinkedHashMap<>();
+        result.put(FILTER_TXS, txs.getState());
+        result.put(FILTER_BLOCKS, blocks.getState());
+        return result;
+    }
+}
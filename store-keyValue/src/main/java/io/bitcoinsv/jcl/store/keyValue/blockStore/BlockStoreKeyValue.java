@@ -4,12 +4,15 @@ package io.bitcoinsv.jcl.store.keyValue.blockStore;
 import com.google.common.collect.Lists;
 
 import io.bitcoinsv.jcl.store.blockStore.BlockStore;
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreBulkIngestState;
 import io.bitcoinsv.jcl.store.blockStore.BlocksCompareResult;
 import io.bitcoinsv.jcl.store.blockStore.events.*;
 import io.bitcoinsv.jcl.store.blockStore.metadata.Metadata;
 import io.bitcoinsv.jcl.store.keyValue.common.HashesList;
 import io.bitcoinsv.jcl.store.keyValue.common.HashesListSerializer;
 import io.bitcoinsv.jcl.store.keyValue.common.KeyValueIterator;
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema;
+import io.bitcoinsv.jcl.store.keyValue.common.StoreFilter;
 import io.bitcoinsv.jcl.tools.bytes.ByteArrayReader;
 import io.bitcoinsv.jcl.tools.bytes.ByteArrayWriter;
 import io.bitcoinsv.jcl.tools.events.EventBus;
@@ -29,12 +32,15 @@ import org.slf4j.Logger;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -85,6 +91,9 @@ import java.util.stream.Collectors;
  *          "tx_block:3f62b8f3447cc716900ea6fab805fa86226af7246ff0f984a8ab7e7f1d6b48ae:000000000000000004700fc34237707d8b92d398bb6f8bc76e421e7a42dec4b3"
  *          "tx_block:3f62b8f3447cc716900ea6fab805fa86226af7246ff0f984a8ab7e7f1d6b48ae:000000000000000004700fc34237707d8b92d398bb6f8bc76e421e7a42dec4b3"
  *
+ * This is the original String layout of the Keys ({@link KeySchema#STRING}). Implementations might use a more compact
+ * binary layout instead ({@link KeySchema#BINARY}), as long as they override the functions that build and parse the
+ * Keys (fullKeyXXX, fullKeyPreffixXXX and extractXXXFromKey).
  *
  * @param <E>   Type of each ENTRY in the DB. Each Key-Value DB implementation usually provides Iterators that returns
  *              Entries from the DB (KeyValue in FoundationDB, a Map.Entry in LevelDb, etc).
@@ -106,11 +115,25 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
     /** An executor to trigger Async methods: */
     ExecutorService getExecutor();
 
+    /**
+     * An executor to run the segments of the Txs of a Block in parallel (see
+     * {@link BlockStoreKeyValueConfig#getBlockTxsParallelism()}). It's a View over the IO Lane of the Execution Model,
+     * since those Tasks access the DB.
+     */
+    ExecutorService getParallelExecutor();
+
+    /** Filters of the Txs and Blocks stored, used to skip the lookups of Items that are not in the DB */
+    BlockStoreFilter getFilter();
+
+    /** State of the Bulk Ingest, used for the initial loads of the Store (see {@link #startBulkIngest()}) */
+    BlockStoreBulkIngest getBulkIngest();
+
     /** Definition of the Directory structure: */
     String DIR_BLOCKCHAIN            = "blockchain";
     String DIR_BLOCKS                = "blocks";
     String DIR_TXS                   = "txs";
     String DIR_METADATA              = "metadata";
+    String DIR_COUNTERS              = "counters";
 
     /** preffixes/suffixes used in Keys: */
     String KEY_SEPARATOR             = ":";
@@ -125,13 +148,23 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
     String KEY_PREFFIX_ORPHAN_HASH = "orphan_h" + KEY_SEPARATOR;
     String KEY_PREFFIX_BLOCK_META    = "block_m" + KEY_SEPARATOR;    // Metadata linked to a Block
     String KEY_PREFFIX_TX_META       = "tx_m" + KEY_SEPARATOR; //Metadata linked to a tx
+    String KEY_PREFFIX_COUNTER       = "counter" + KEY_SEPARATOR;    // A Counter maintained along with the data
 
-    /** This method returns a Lock that can be used to make sure Thread-safety is in place */
-    ReadWriteLock getLock();
+    /** Counters maintained along with the data, so the totals can be read in O(1): */
+    String COUNTER_BLOCKS            = "blocks";
+    String COUNTER_TXS               = "txs";
+    String COUNTER_ORPHANS           = "orphans";
+    String COUNTER_VALID             = "valid";     // If present, the rest of counters are reliable
+
+    /** This method returns the Locks used to make sure Thread-safety is in place (see {@link BlockStoreLocks}) */
+    BlockStoreLocks getLocks();
 
     /** Function that takes an Item from the DB and return the Key */
     byte[] keyFromItem(E item);
 
+    /** Function that takes an Item from the DB and return the Value */
+    byte[] valueFromItem(E item);
+
     /*
      * FUNCTIONS TO BE IMPLEMENTED BY DB-SPECIFIC IMPLEMENTATIONS:
      */
@@ -155,6 +188,9 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
     byte[]  read(T tr, byte[] key);
     void    removeBlockDir(String blockHash);
 
+    /* It reads the values of all the Keys given, in the same order (null if the Key does not exist) */
+    List<byte[]> readAll(T tr, List<byte[]> keys);
+
     List<Tx> _saveTxsIfNotExist(T tr, List<Tx> txs);
 
     /*
@@ -187,6 +223,7 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
     byte[] fullKeyForTxs();
     byte[] fullKey(Object ...subKeys);      // Returns a FULL Key that is a concatenation of the subKeys provided
     byte[] fullKeyForOrphanBlockHash(T tr, String blockHash);
+    byte[] fullKeyForCounter(T tr, String counterName);
     void printKeys();                       // For logging:
 
 
@@ -209,6 +246,18 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
     <I> KeyValueIterator<I,T> getIterator(T transaction, byte[] startingWith, byte[] endingWith,
                                           BiPredicate<T, byte[]> keyVerifier,
                                           Function<E, I>  buildItemBy);
+
+    /**
+     * Same as "getIterator(startingWith, endingWith, keyVerifier, buildItemBy)", but only the Keys within the range
+     * given are processed, from "fromKey" (inclusive) to "toKey" (exclusive). Any of them can be null. It's used to
+     * split a big set of Keys into segments that can be processed in parallel.
+     */
+    <I> KeyValueIterator<I,T> getIterator(byte[] startingWith, byte[] fromKey, byte[] toKey, byte[] endingWith,
+                                          BiPredicate<T, byte[]> keyVerifier,
+                                          Function<E, I>  buildItemBy);
+
+    // Min number of Txs in each segment, when the Txs of a Block are split (see BlockTxsSpliterator):
+    int MIN_BLOCK_TXS_SEGMENT_SIZE = 1_000;
     /*
      * DEFAULT IMPLEMENTATIONS:
      * ========================
@@ -226,23 +275,39 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
     default String keyForBlockTxIndex(String blockHash)             { return KEY_PREFFIX_BLOCK_PROP + blockHash + KEY_SUFFIX_BLOCK_TXINDEX; }
     default String keyForTx(String txHash)                          { return KEY_PREFFIX_TX + txHash + KEY_SEPARATOR;}
     default String keyForTxBlock(String txHash, String blockHash)   { return KEY_PREFFIX_TX_BLOCK + txHash + KEY_SEPARATOR + blockHash + KEY_SEPARATOR; }
-    default String keyForBlockTx(String txHash, long txIndex)       {
+    default String keyForBlockTx(String txHash, long txIndex)       { return keyForBlockTxsFrom(txIndex) + txHash + KEY_SEPARATOR; }
+    default String keyForBlockTxsFrom(long txIndex)                 {
         /** We get the log of the number and add 1 to get the amount of digits in the number. We then convert that number to a char to use as a prefix to guarantee
          *  Lexicographical ordering. So for example, the series: 0, 1, 42, 1623463626463, which would normally appear as: 0, 1, 1623463626463, 42 (which is lexi, not numerical)
          *  would now appear as: "0, "1, #42, .1623463626463. We also add 1 to the index as 0 blows up this formula.
          *
          *  NOTES: If the db implementation does not order lexicographically, then we need to override this function
          */
-        return KEY_PREFFIX_TX_LINK + Character.toString((int)Math.log10(txIndex + 1) + 1) + "" + ( txIndex + 1) + KEY_SEPARATOR + txHash + KEY_SEPARATOR;
+        return KEY_PREFFIX_TX_LINK + Character.toString((int)Math.log10(txIndex + 1) + 1) + "" + ( txIndex + 1) + KEY_SEPARATOR;
     }
     default String keyForBlockDir(String blockHash)                 { return blockHash;}
     default String keyForOrphanBlockHash(String blockHash)          { return KEY_PREFFIX_ORPHAN_HASH + blockHash + KEY_SEPARATOR;}
     default String keyForBlockMetadata(String blockHash)            { return KEY_PREFFIX_BLOCK_META + blockHash + KEY_SEPARATOR + getMetadataClassForBlocks().getSimpleName();}
     default String keyForTxMetadata(String txHash)                  { return KEY_PREFFIX_TX_META + txHash + KEY_SEPARATOR + getMetadataClassForTxs();}
+    default String keyForCounter(String counterName)                { return KEY_PREFFIX_COUNTER + counterName + KEY_SEPARATOR;}
 
     @Override
     default long getNumKeys(String preffix)                         { return numKeys(preffix.getBytes()); }
 
+    /*
+     * Functions to generate FULL Keys used as PREFFIXES when iterating over the DB. They follow the String layout
+     * described in the class javadoc. Implementations using a different layout (like {@link KeySchema#BINARY}) need to
+     * override them.
+     */
+
+    default byte[] fullKeyPreffixForBlocks()                        { return fullKey(fullKeyForBlocks(), KEY_PREFFIX_BLOCK); }
+    default byte[] fullKeyPreffixForTxs()                           { return fullKey(fullKeyForTxs(), KEY_PREFFIX_TX); }
+    default byte[] fullKeyPreffixForTxBlocks(String txHash)         { return fullKey(fullKeyForTxs(), KEY_PREFFIX_TX_BLOCK + txHash + KEY_SEPARATOR); }
+    default byte[] fullKeyPreffixForBlockTxs(String blockHash)      { return fullKey(fullKeyForBlockDir(blockHash), KEY_PREFFIX_TX_LINK); }
+    // The Keys of the Txs of a Block are sorted by their index, so this Key is right before the Tx in the index given:
+    default byte[] fullKeyPreffixForBlockTxs(String blockHash, long txIndex) { return fullKey(fullKeyForBlockDir(blockHash), keyForBlockTxsFrom(txIndex)); }
+    default byte[] fullKeyPreffixForOrphanBlocks()                  { return fullKey(fullKeyForBlocks(), KEY_PREFFIX_ORPHAN_HASH); }
+
 
     // A convenience method for getting the Full fullKey for a Block Directory, with specifying a DB-Transaction.
     default byte[] fullKeyForBlockDir(String blockHash) {
@@ -386,7 +451,7 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
         // We store each one of the Keys we process, so we can also trigger the global "taskForAllKeys", passing
         // all of them as a parameter. This list could be potentially huge, so we only use it if the
         // "taskForAllKeys" parameters has been set (not null)
-        List<byte[]> allKeysToProcess = new ArrayList<>();
+        List<byte[]> allKeysToProcess = (taskForAllKeys != null) ? new ArrayList<>() : null;
 
         long currentIndex = -1;
         long numKeysProcessed = 0;
@@ -433,6 +498,112 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
         }
     }
 
+    /*
+        Counters: The number of Blocks, Txs and Orphan Blocks are kept in specific Keys, updated within the same
+        Transaction as the data they count, so they can be read without iterating over the DB. The COUNTER_VALID Key
+        indicates whether they can be trusted: it's saved when the Store is created (empty), or after a recount. If
+        it's not present (a Store created before the Counters existed), the totals are calculated by iterating over
+        the Keys, until the Counters are rebuilt by "recountCounters()".
+     */
+
+    default boolean _isCountersValid(T tr) {
+        return isBytesOk(read(tr, fullKeyForCounter(tr, COUNTER_VALID)));
+    }
+
+    default long _getCounter(T tr, String counterName) {
+        Long value = toLong(read(tr, fullKeyForCounter(tr, counterName)));
+        return (value != null) ? value : 0;
+    }
+
+    default void _addToCounter(T tr, String counterName, long valueToAdd) {
+        if (valueToAdd == 0) return;
+        byte[] key = fullKeyForCounter(tr, counterName);
+        Long value = toLong(read(tr, key));
+        save(tr, key, bytes(((value != null) ? value : 0) + valueToAdd));
+    }
+
+    // It returns TRUE if there is NO Key starting with the preffix given:
+    default boolean _isEmpty(T tr, byte[] preffix) {
+        return !getIterator(tr, preffix, null, null, this::keyFromItem).hasNext();
+    }
+
+    /**
+     * It checks the Counters when the Store starts: If they are not valid but the Store is empty, they become valid
+     * from now on (all of them are zero). Otherwise, a warning is logged.
+     */
+    default void _initCounters() {
+        T tr = createTransaction();
+        executeInTransaction(tr, () -> {
+            if (_isCountersValid(tr)) return;
+            if (_isEmpty(tr, fullKeyPreffixForBlocks()) && _isEmpty(tr, fullKeyPreffixForTxs())) {
+                save(tr, fullKeyForCounter(tr, COUNTER_VALID), bytes(1L));
+            } else {
+                getLogger().warn("The Store has no Counters: The number of Blocks and Txs will be calculated by iterating over the DB. Run 'recountCounters()' to rebuild them.");
+            }
+        });
+    }
+
+    /**
+     * It rebuilds the Counters from scratch, by iterating over the whole DB: the number of Blocks, Txs, Orphan Blocks
+     * and the number of Txs of each Block. This is a long operation, meant to be run OFFLINE (it locks the Store
+     * until it finishes), after upgrading a Store created without Counters or if their values are not trusted.
+     */
+    default void recountCounters() {
+        try (BlockStoreLocks.Held held = getLocks().request().store(true).acquire()) {
+            getLogger().info("Recounting Counters...");
+            long numBlocks = numKeys(fullKeyPreffixForBlocks());
+            long numTxs = numKeys(fullKeyPreffixForTxs());
+            long numOrphans = numKeys(fullKeyPreffixForOrphanBlocks());
+
+            // The Number of Txs of each Block:
+            Iterator<String> blocksIt = getIterator(fullKeyPreffixForBlocks(), null, null, e -> extractBlockHashFromKey(keyFromItem(e)).get());
+            while (blocksIt.hasNext()) {
+                String blockHash = blocksIt.next();
+                long numBlockTxs = numKeys(fullKeyPreffixForBlockTxs(blockHash));
+                T tr = createTransaction();
+                executeInTransaction(tr, () -> save(tr, fullKeyForBlockNumTxs(tr, blockHash), bytes(numBlockTxs)));
+            }
+
+            T tr = createTransaction();
+            executeInTransaction(tr, () -> {
+                save(tr, fullKeyForCounter(tr, COUNTER_BLOCKS), bytes(numBlocks));
+                save(tr, fullKeyForCounter(tr, COUNTER_TXS), bytes(numTxs));
+                save(tr, fullKeyForCounter(tr, COUNTER_ORPHANS), bytes(numOrphans));
+                save(tr, fullKeyForCounter(tr, COUNTER_VALID), bytes(1L));
+            });
+            getLogger().info("Counters recounted: " + numBlocks + " blocks, " + numTxs + " txs, " + numOrphans + " orphan blocks.");
+        }
+    }
+
+    /**
+     * It loads the Filters of Txs and Blocks from scratch, by iterating over the whole DB. It's run when the Store
+     * starts, and it can also be run later on if the Filters have too many Items already removed (it locks the Store
+     * until it finishes).
+     */
+    default void loadFilter() {
+        if (!getFilter().isEnabled()) return;
+        try (BlockStoreLocks.Held held = getLocks().request().store(true).acquire()) {
+            getLogger().info("Loading Filters...");
+            getFilter().clear();
+            Iterator<String> txsIt = getIterator(fullKeyPreffixForTxs(), null, null, e -> extractTxHashFromKey(keyFromItem(e)).get());
+            while (txsIt.hasNext()) getFilter().getTxs().add(txsIt.next());
+            Iterator<String> blocksIt = getIterator(fullKeyPreffixForBlocks(), null, null, e -> extractBlockHashFromKey(keyFromItem(e)).get());
+            while (blocksIt.hasNext()) getFilter().getBlocks().add(blocksIt.next());
+            getFilter().loaded();
+            getLogger().info("Filters loaded: " + getFilter().getState());
+        }
+    }
+
+    // It returns the value of the Counter given, or the number of Keys starting with the preffix if not valid:
+    default long _getCounterOrCount(String counterName, byte[] preffix) {
+        AtomicLong result = new AtomicLong(-1);
+        T tr = createTransaction();
+        executeInTransaction(tr, () -> {
+            if (_isCountersValid(tr)) result.set(_getCounter(tr, counterName));
+        });
+        return (result.get() >= 0) ? result.get() : numKeys(preffix);
+    }
+
     /*
         Block Store DB Operations:
         These methods execute the business logic. Most of them map a method of the BlockStore interface, but with
@@ -447,6 +618,8 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
 
         if(!isBytesOk(_getBlockBytes(tr, blockHash))) {
             save(tr, fullKeyForBlock(tr, blockHash), bytes(blockHeader));
+            getFilter().getBlocks().add(blockHash);
+            _addToCounter(tr, COUNTER_BLOCKS, 1);
             savedBlocks.add(blockHeader);
         }
 
@@ -466,7 +639,11 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
     }
 
     default void _removeBlock(T tr, String blockHash) {
-        remove(tr, fullKeyForBlock(tr, blockHash));
+        if (isBytesOk(_getBlockBytes(tr, blockHash))) {
+            remove(tr, fullKeyForBlock(tr, blockHash));
+            getFilter().getBlocks().remove(blockHash);
+            _addToCounter(tr, COUNTER_BLOCKS, -1);
+        }
         remove(tr, fullKeyForBlockNumTxs(tr, blockHash));
         remove(tr, fullKeyForBlockTxIndex(tr, blockHash));
 
@@ -488,17 +665,27 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
 
     default void _saveOrphanBlockHash(T tr, String blockHash) {
         byte[] key = fullKeyForOrphanBlockHash(tr, blockHash);
+        // The value is empty, so we check the existence of the Key by comparing with null:
+        if (read(tr, key) == null) _addToCounter(tr, COUNTER_ORPHANS, 1);
         save(tr, key, new byte[0]);
         getLogger().trace("Orphan Block Saved/Updated [block: " + blockHash + "]");
     }
 
     default void _removeOrphanBlockHash(T tr, String blockHash) {
-        remove(tr, fullKeyForOrphanBlockHash(tr, blockHash));
+        byte[] key = fullKeyForOrphanBlockHash(tr, blockHash);
+        if (read(tr, key) != null) {
+            remove(tr, key);
+            _addToCounter(tr, COUNTER_ORPHANS, -1);
+        }
     }
 
 
     default byte[] _getBlockBytes(T tr, String blockHash) {
-        return read(tr, fullKeyForBlock(tr, blockHash));
+        StoreFilter filter = getFilter().getBlocks();
+        if (!filter.mightContain(blockHash)) return null;
+        byte[] result = read(tr, fullKeyForBlock(tr, blockHash));
+        if (result == null) filter.falsePositive();
+        return result;
     }
 
     default HeaderReadOnly _getBlock(T tr, String blockHash) {
@@ -579,26 +766,100 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
     }
 
 
-    default void _saveTx(T tr, Tx tx) {
-        // We store the Whole TX Object
+    // It stores the Whole TX Object, and returns TRUE if it did NOT exist before. The Txs Counter is NOT updated:
+    default boolean _putTx(T tr, Tx tx) {
         String txHash = tx.getHash().toString();
+        boolean isNew = !isBytesOk(_getTxBytes(tr, txHash));
         save(tr, fullKeyForTx(tr, txHash), bytes(tx));
+        if (isNew) getFilter().getTxs().add(txHash);
+        return isNew;
+    }
+
+    default void _saveTx(T tr, Tx tx) {
+        if (_putTx(tr, tx)) _addToCounter(tr, COUNTER_TXS, 1);
     }
 
     default void _saveTxs(T tr, List<Tx> txs) {
-        txs.forEach(tx -> _saveTx(tr, tx));
+        long numNewTxs = txs.stream().filter(tx -> _putTx(tr, tx)).count();
+        _addToCounter(tr, COUNTER_TXS, numNewTxs);
     }
 
     default byte[] _getTxBytes(T tr, String txHash) {
-        return read(tr, fullKeyForTx(tr, txHash));
+        StoreFilter filter = getFilter().getTxs();
+        if (!filter.mightContain(txHash)) return null;
+        byte[] result = read(tr, fullKeyForTx(tr, txHash));
+        if (result == null) filter.falsePositive();
+        return result;
     }
 
     default Tx _getTx(T tr, String txHash) {
         return toTx(_getTxBytes(tr, txHash));
     }
 
+    // It reads the Items with the Hashes given in one go, skipping those the Filter knows are not stored:
+    private List<byte[]> _readAllFiltered(T tr, List<String> hashes, StoreFilter filter, Function<String, byte[]> keyBuilder) {
+        List<byte[]> keys = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < hashes.size(); i++) {
+            if (!filter.mightContain(hashes.get(i))) continue;
+            keys.add(keyBuilder.apply(hashes.get(i)));
+            positions.add(i);
+        }
+        List<byte[]> result = new ArrayList<>(Collections.nCopies(hashes.size(), (byte[]) null));
+        List<byte[]> values = keys.isEmpty() ? Collections.emptyList() : readAll(tr, keys);
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == null) filter.falsePositive();
+            result.set(positions.get(i), values.get(i));
+        }
+        return result;
+    }
+
+    default List<byte[]> _getTxsBytes(T tr, List<String> txHashes) {
+        return _readAllFiltered(tr, txHashes, getFilter().getTxs(), h -> fullKeyForTx(tr, h));
+    }
+
+    default List<byte[]> _getBlocksBytes(T tr, List<String> blockHashes) {
+        return _readAllFiltered(tr, blockHashes, getFilter().getBlocks(), h -> fullKeyForBlock(tr, h));
+    }
+
+    private List<Metadata> _getTxsMetadata(T tr, List<String> txHashes) {
+        try {
+            List<byte[]> keys = txHashes.stream().map(h -> fullKeyForTxMetadata(tr, h)).collect(Collectors.toList());
+            List<Metadata> result = new ArrayList<>();
+            for (byte[] value : readAll(tr, keys)) {
+                Metadata metadata = null;
+                if (value != null) {
+                    metadata = (Metadata) getMetadataClassForTxs().getConstructor().newInstance();
+                    metadata.load(value);
+                }
+                result.add(metadata);
+            }
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // It runs the task given over the Hashes given, in sublists of the Transaction batch size (each one within its
+    // own Transaction), and returns all the results in the same order:
+    private <R> List<R> _readInBatches(List<Sha256Hash> hashes, BiFunction<T, List<String>, List<R>> task) {
+        try (BlockStoreLocks.Held held = getLocks().request().acquire()) {
+            List<R> result = new ArrayList<>(hashes.size());
+            for (List<Sha256Hash> subList : Lists.partition(hashes, getConfig().getTransactionBatchSize())) {
+                List<String> subListHashes = subList.stream().map(Sha256Hash::toString).collect(Collectors.toList());
+                T tr = createTransaction();
+                executeInTransaction(tr, () -> result.addAll(task.apply(tr, subListHashes)));
+            }
+            return result;
+        }
+    }
+
     default void _removeTx(T tr, String txHash) {
-        remove(tr, fullKeyForTx(tr, txHash));
+        if (isBytesOk(_getTxBytes(tr, txHash))) {
+            remove(tr, fullKeyForTx(tr, txHash));
+            getFilter().getTxs().remove(txHash);
+            _addToCounter(tr, COUNTER_TXS, -1);
+        }
         List<String> blockHashes =_getBlockHashesLinkedToTx(tr, txHash);
 
         for (String blockHash : blockHashes)
@@ -616,13 +877,55 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
 
     default List<String> _getBlockHashesLinkedToTx(T tr, String txHash) {
         List<String> result = new ArrayList<>();
-        byte[] preffix = fullKey(fullKeyForTxs(), KEY_PREFFIX_TX_BLOCK  + txHash + KEY_SEPARATOR);
-        String preffixStr = new String(preffix);
+        byte[] preffix = fullKeyPreffixForTxBlocks(txHash);
         Iterator<String> it = getIterator(tr, preffix, null, null, e -> extractBlockHashFromKey(keyFromItem(e)).get());
         while (it.hasNext()) result.add(it.next());
         return result;
     }
 
+    /*
+        Locks: Each operation locks the Blocks and Txs it changes (or reads), so operations over different Blocks
+        and Txs can run concurrently (see BlockStoreLocks).
+     */
+
+    /**
+     * It returns a Request of the Locks needed to save, remove or read the Blocks given. Blocks are also part of the
+     * Chain in the BlockChain Store, which overrides this method to include the Chain Domain.
+     */
+    default BlockStoreLocks.Request _lockBlocks(boolean write, Collection<String> blockHashes) {
+        return getLocks().request().blocks(write, blockHashes);
+    }
+
+    // It returns the Blocks linked to any of the Txs given:
+    default Set<String> _getBlockHashesLinkedToTxs(List<String> txHashes) {
+        Set<String> result = new HashSet<>();
+        T tr = createTransaction();
+        executeInTransaction(tr, () -> txHashes.forEach(h -> result.addAll(_getBlockHashesLinkedToTx(tr, h))));
+        return result;
+    }
+
+    /**
+     * It locks the Txs given and the Blocks they are linked to, for writing (removing a Tx also unlinks it from its
+     * Blocks). The Blocks are locked before the Txs, so they are read first and read again once locked: if the Txs
+     * have been linked to more Blocks in the meantime, the Locks are released and acquired again.
+     */
+    default BlockStoreLocks.Held _lockTxsAndTheirBlocks(List<String> txHashes) {
+        Set<String> blockHashes = _getBlockHashesLinkedToTxs(txHashes);
+        while (true) {
+            BlockStoreLocks.Held result = getLocks().request().blocks(true, blockHashes).txs(true, txHashes).acquire();
+            Set<String> blocksLinked;
+            try {
+                blocksLinked = _getBlockHashesLinkedToTxs(txHashes);
+            } catch (RuntimeException e) {
+                result.close();
+                throw e;
+            }
+            if (blockHashes.containsAll(blocksLinked)) return result;
+            result.close();
+            blockHashes.addAll(blocksLinked);
+        }
+    }
+
     default Long _getBlockNumTxs(T tr, String blockHash) {
         byte[] key = fullKeyForBlockNumTxs(tr, blockHash);
         String temp = new String(key);
@@ -716,44 +1019,343 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
         return blocksLinked.contains(blockHash);
     }
 
+    /*
+        Segments of the Txs of a Block: The Keys linking the Txs to a Block are sorted by the index of each Tx, so they
+        can be split into segments of consecutive indexes, from 0 to the "txIndex" property of the Block (the index
+        for the next Tx). The first and last segments have no lower/upper limit, so no Key is left out.
+     */
+
+    // It returns an Iterator over the Txs of the Block given, with indexes in the range [fromIndex, toIndex):
+    default <I> KeyValueIterator<I, T> _getBlockTxsIterator(String blockHash, long fromIndex, long toIndex, long lastIndex,
+                                                            BiPredicate<T, byte[]> keyVerifier,
+                                                            Function<E, I> buildItemBy) {
+        byte[] fromKey = (fromIndex > 0) ? fullKeyPreffixForBlockTxs(blockHash, fromIndex) : null;
+        byte[] toKey = (toIndex < lastIndex) ? fullKeyPreffixForBlockTxs(blockHash, toIndex) : null;
+        return getIterator(fullKeyPreffixForBlockTxs(blockHash), fromKey, toKey, null, keyVerifier, buildItemBy);
+    }
+
+    default <I> Spliterator<I> _getBlockTxsSpliterator(String blockHash,
+                                                       BiPredicate<T, byte[]> keyVerifier,
+                                                       Function<E, I> buildItemBy) {
+        AtomicLong lastIndex = new AtomicLong();
+        T tr = createTransaction();
+        executeInTransaction(tr, () -> lastIndex.set(_getTxIndexForBlock(tr, blockHash)));
+        return new BlockTxsSpliterator<>(
+                (from, to) -> _getBlockTxsIterator(blockHash, from, to, lastIndex.get(), keyVerifier, buildItemBy),
+                0, lastIndex.get(), MIN_BLOCK_TXS_SEGMENT_SIZE);
+    }
+
+    // It returns an Iterable over the Tx Hashes of the Block given, which Spliterator can be split into segments:
+    default Iterable<Sha256Hash> _getBlockTxsIterable(String blockHash, BiPredicate<T, byte[]> keyVerifier) {
+        Function<E, Sha256Hash> buildItemBy = e -> Sha256Hash.wrap(extractTxHashFromKey(keyFromItem(e)).get());
+        return new Iterable<>() {
+            @Override
+            public Iterator<Sha256Hash> iterator() {
+                return getIterator(fullKeyPreffixForBlockTxs(blockHash), null, keyVerifier, buildItemBy);
+            }
+            @Override
+            public Spliterator<Sha256Hash> spliterator() {
+                return _getBlockTxsSpliterator(blockHash, keyVerifier, buildItemBy);
+            }
+        };
+    }
+
+    // It returns the Iterators over the Txs of a Block with indexes from "firstIndex", split into segments of similar size:
+    default <I> List<KeyValueIterator<I, T>> _getBlockTxsSegments(String blockHash, long firstIndex, long lastIndex,
+                                                                  int maxSegments, Function<E, I> buildItemBy) {
+        long numTxs = lastIndex - firstIndex;
+        int numSegments = (int) Math.max(1, Math.min(maxSegments, numTxs / MIN_BLOCK_TXS_SEGMENT_SIZE));
+        List<KeyValueIterator<I, T>> result = new ArrayList<>();
+        for (int i = 0; i < numSegments; i++) {
+            long fromIndex = firstIndex + numTxs * i / numSegments;
+            long toIndex = firstIndex + numTxs * (i + 1) / numSegments;
+            result.add(_getBlockTxsIterator(blockHash, fromIndex, toIndex, lastIndex, null, buildItemBy));
+        }
+        return result;
+    }
+
+    /*
+     * It runs the tasks given in parallel, and waits until all of them are done, even if some of them fail (so nothing
+     * is still running when the caller releases its locks). The first failure is then thrown. The Tasks are run by
+     * the Executor for parallel Tasks and by the calling Thread (see the method below).
+     */
+    default void _runInParallel(List<Runnable> tasks) {
+        _runInParallel(getParallelExecutor(), tasks);
+    }
+
+    /*
+     * It runs the tasks given in parallel in the Executor given, and waits until all of them are done. The Executor
+     * might be a View over a Lane shared with other Components (and with the caller itself), so the calling Thread
+     * never waits for a Task that has not started yet: it runs every Task not claimed by a Thread of the Executor, and
+     * then only waits for the ones already running. So even if all the Threads of the Lane are blocked in here, the
+     * Tasks always make progress.
+     */
+    default void _runInParallel(ExecutorService executor, List<Runnable> tasks) {
+        // Each Task is claimed only once, either by a Thread of the Executor or by the calling Thread:
+        List<AtomicBoolean> claimed = new ArrayList<>();
+        List<CompletableFuture<Void>> doneInExecutor = new ArrayList<>();
+        List<Future<?>> submitted = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            claimed.add(new AtomicBoolean());
+            doneInExecutor.add(new CompletableFuture<>());
+        }
+        try {
+            for (int i = 1; i < tasks.size(); i++) {
+                int index = i;
+                submitted.add(executor.submit(() -> {
+                    if (!claimed.get(index).compareAndSet(false, true)) return;
+                    try {
+                        tasks.get(index).run();
+                        doneInExecutor.get(index).complete(null);
+                    } catch (Throwable th) {
+                        doneInExecutor.get(index).completeExceptionally(th);
+                    }
+                }));
+            }
+        } catch (RejectedExecutionException e) {
+            // The Tasks not submitted are run by the calling Thread
+        }
+
+        RuntimeException failure = null;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!claimed.get(i).compareAndSet(false, true)) continue;
+            if (i > 0 && i <= submitted.size()) submitted.get(i - 1).cancel(false);
+            try {
+                tasks.get(i).run();
+            } catch (RuntimeException e) {
+                if (failure == null) failure = e;
+            }
+            doneInExecutor.get(i).complete(null);
+        }
+
+        // The rest of Tasks have been claimed by the Executor, so they are already running:
+        boolean interrupted = false;
+        for (CompletableFuture<Void> done : doneInExecutor) {
+            while (true) {
+                try {
+                    done.get();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true; // We still wait for the Task, but the interruption is kept
+                } catch (ExecutionException ee) {
+                    if (failure == null) failure = new RuntimeException(ee.getCause());
+                    break;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * It removes the Txs of a Block. The Txs are split into segments, processed in parallel, so the "txHashConsumer"
+     * might be called from different Threads.
+     * The Counter of Txs is updated along with each Tx removed, and the "numTxs" and "txIndex" properties of the Block
+     * are only reset once all the segments are done. So if it fails halfway through, the Store is still consistent
+     * and it can be run again: the Txs already removed are skipped.
+     */
     default void _removeBlockTxs(String blockHash, Consumer<String> txHashConsumer) {
 
-        // We update now the numTxs and txIndex properties of this block:
+        // The txIndex of this Block is used to split the Txs:
+        AtomicLong lastIndex = new AtomicLong();
         T transaction = createTransaction();
-        executeInTransaction(transaction, () -> {
-            long numTxs = _getBlockNumTxs(transaction, blockHash);
-            long txIndex = _getTxIndexForBlock(transaction, blockHash);
-            _addBlockNumTxs(transaction, blockHash, -numTxs);
-            _addTxIndexToBlock(transaction, blockHash, -txIndex);
+        executeInTransaction(transaction, () -> lastIndex.set(_getTxIndexForBlock(transaction, blockHash)));
+
+        // For each Tx in this Block, we update its "blocks" property, removing the reference to this Block. Each Tx is
+        // locked on behalf of the Thread that called this method (which already holds the Store and this Block):
+        List<Runnable> tasks = new ArrayList<>();
+        for (KeyValueIterator<byte[], T> iterator : _getBlockTxsSegments(blockHash, 0, lastIndex.get(), getConfig().getBlockTxsParallelism(), this::keyFromItem)) {
+            tasks.add(() -> loopOverKeysAndRun(iterator, (tr, key) -> {
+                String txHash = extractTxHashFromKey(key).get();
+                try (BlockStoreLocks.Held held = getLocks().request().withinStore().txs(true, Arrays.asList(txHash)).acquire()) {
+                    // We remove the "tx_block" Key, where we store the txIndex for this Tx/Block:
+                    remove(tr, fullKeyForTxBlock(tr, txHash, blockHash));
+                    // We check the blocks linked to this Tx. If there are no more blocks linked, we also remove the Tx itself:
+                    List<String> blockHashes = _getBlockHashesLinkedToTx(tr, txHash);
+                    if (blockHashes.isEmpty() && isBytesOk(_getTxBytes(tr, txHash))) {
+                        remove(tr, fullKeyForTx(tr, txHash));
+                        _addToCounter(tr, COUNTER_TXS, -1);
+                        getFilter().getTxs().remove(txHash);
+                    }
+                }
+                txHashConsumer.accept(txHash);
+            }, null));
+        }
+        _runInParallel(tasks);
+
+        // Now we remove the whole Block directory, and only then the properties of the Block are reset:
+        removeBlockDir(blockHash);
+        T trBlock = createTransaction();
+        executeInTransaction(trBlock, () -> {
+            _addBlockNumTxs(trBlock, blockHash, -_getBlockNumTxs(trBlock, blockHash));
+            _addTxIndexToBlock(trBlock, blockHash, -_getTxIndexForBlock(trBlock, blockHash));
         });
+    }
 
-        // We locate the Block Subfolder and the Key to start iterating over:
-        byte[] keyStart = fullKey(fullKeyForBlockDir(blockHash), null);
+    /*
+        Bulk Ingest: While it's running, the Txs are saved without checking whether they exist, no Events are
+        triggered and the Keys of each batch are sorted before writing them, so they are written sequentially. The Txs
+        are only linked to a Block by the Keys in the Block directory (with the txIndex as their value): the "tx_block"
+        Keys and the "numTxs" and "txIndex" properties of the Blocks are written in a second pass, when it finishes.
+     */
 
-        // For each Tx in this Block, we update its "blocks" property, removing the reference to this Block.
-        KeyValueIterator<byte[], T> iterator = getIterator(keyStart, null, null, e -> keyFromItem(e));
-        loopOverKeysAndRun(iterator, (tr, key) -> {
-            String txHash = extractTxHashFromKey(key).get();
-            // We remove the "tx_block" Key, where we store the txIndex for this Tx/Block:
-            remove(tr, fullKeyForTxBlock(tr, txHash, blockHash));
-            // We check the blocks linked to this Tx. If there are no more blocks linked, we also remove the Tx itself:
-            List<String> blockHashes =_getBlockHashesLinkedToTx(tr, txHash);
-            if (blockHashes.isEmpty()) {
-                remove(tr, fullKeyForTx(tr, txHash));
+    default SortedMap<byte[], byte[]> _bulkEntries() {
+        return new TreeMap<>(Arrays::compareUnsigned);
+    }
+
+    // It writes the entries given, in the order of their Keys:
+    default void _bulkWrite(T tr, SortedMap<byte[], byte[]> entries) {
+        long numBytes = 0;
+        for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+            save(tr, entry.getKey(), entry.getValue());
+            numBytes += entry.getKey().length + entry.getValue().length;
+        }
+        getBulkIngest().keysWritten(entries.size(), numBytes);
+    }
+
+    default void _bulkAddTxs(T tr, List<Tx> txs, SortedMap<byte[], byte[]> entries) {
+        for (Tx tx : txs) {
+            String txHash = tx.getHash().toString();
+            entries.put(fullKeyForTx(tr, txHash), bytes(tx));
+            getFilter().getTxs().add(txHash);
+        }
+        getBulkIngest().txsSaved(txs.size());
+    }
+
+    default void _bulkAddTxLinks(T tr, List<String> txHashes, String blockHash, byte[] blockDirFullKey,
+                                 SortedMap<byte[], byte[]> entries) {
+        long txIndex = getBulkIngest().nextTxIndex(blockHash, () -> _getTxIndexForBlock(tr, blockHash), txHashes.size());
+        for (String txHash : txHashes) {
+            entries.put(fullKeyForBlockTx(tr, blockDirFullKey, txHash, txIndex), bytes(txIndex));
+            txIndex++;
+        }
+    }
+
+    default void _bulkSaveTxs(T tr, List<Tx> txs) {
+        SortedMap<byte[], byte[]> entries = _bulkEntries();
+        _bulkAddTxs(tr, txs, entries);
+        _bulkWrite(tr, entries);
+    }
+
+    default void _bulkLinkTxsToBlock(T tr, List<String> txHashes, String blockHash, byte[] blockDirFullKey) {
+        SortedMap<byte[], byte[]> entries = _bulkEntries();
+        _bulkAddTxLinks(tr, txHashes, blockHash, blockDirFullKey, entries);
+        _bulkWrite(tr, entries);
+    }
+
+    default void _bulkSaveBlockTxs(T tr, List<Tx> txs, String blockHash, byte[] blockDirFullKey) {
+        SortedMap<byte[], byte[]> entries = _bulkEntries();
+        _bulkAddTxs(tr, txs, entries);
+        List<String> txHashes = txs.stream().map(Tx::getHashAsString).collect(Collectors.toList());
+        _bulkAddTxLinks(tr, txHashes, blockHash, blockDirFullKey, entries);
+        _bulkWrite(tr, entries);
+    }
+
+    // It writes the "tx_block" Keys of the Txs given. The value of each Key in the Block directory is the txIndex:
+    default void _bulkIndexTxLinks(String blockHash, List<Map.Entry<byte[], byte[]>> txLinks) {
+        T tr = createTransaction();
+        executeInTransaction(tr, () -> {
+            SortedMap<byte[], byte[]> entries = _bulkEntries();
+            for (Map.Entry<byte[], byte[]> txLink : txLinks) {
+                String txHash = extractTxHashFromKey(txLink.getKey()).get();
+                entries.put(fullKeyForTxBlock(tr, txHash, blockHash), txLink.getValue());
             }
-            txHashConsumer.accept(txHash);
-        }, null);
+            _bulkWrite(tr, entries);
+        });
+        getBulkIngest().txLinksIndexed(txLinks.size());
+    }
 
-        // Now we remove the whole Block directory:
-        removeBlockDir(blockHash);
+    /**
+     * Second pass of the Bulk Ingest, for each Block which Txs have been linked during it: it writes the "tx_block"
+     * Keys of those Txs and the "numTxs" and "txIndex" properties of the Block. The Txs are split into segments,
+     * indexed in parallel.
+     */
+    default void _bulkIndexBlockTxs(String blockHash, BlockStoreBulkIngest.BlockTxs blockTxs) {
+        Function<E, Map.Entry<byte[], byte[]>> buildItemBy = e -> new AbstractMap.SimpleEntry<>(keyFromItem(e), valueFromItem(e));
+        List<Runnable> tasks = new ArrayList<>();
+        for (KeyValueIterator<Map.Entry<byte[], byte[]>, T> iterator : _getBlockTxsSegments(blockHash,
+                blockTxs.getFirstIndex(), blockTxs.getNextIndex(), getConfig().getBlockTxsParallelism(), buildItemBy)) {
+            tasks.add(() -> {
+                List<Map.Entry<byte[], byte[]>> txLinks = new ArrayList<>();
+                while (iterator.hasNext()) {
+                    txLinks.add(iterator.next());
+                    if (txLinks.size() < getConfig().getTransactionBatchSize()) continue;
+                    _bulkIndexTxLinks(blockHash, txLinks);
+                    txLinks.clear();
+                }
+                if (!txLinks.isEmpty()) _bulkIndexTxLinks(blockHash, txLinks);
+            });
+        }
+        _runInParallel(tasks);
+
+        T tr = createTransaction();
+        executeInTransaction(tr, () -> {
+            _addBlockNumTxs(tr, blockHash, blockTxs.getNumTxs());
+            save(tr, fullKeyForBlockTxIndex(tr, blockHash), bytes(blockTxs.getNextIndex()));
+        });
+        blockTxs.markIndexed();
+    }
+
+    // Removing or unlinking Txs and Blocks relies on the indexes that are only built when the Bulk Ingest finishes:
+    default void _checkNoBulkIngest(String operation) {
+        if (getBulkIngest().isActive())
+            throw new IllegalStateException(operation + " is not supported while a Bulk Ingest is running");
+    }
+
+    /**
+     * It starts a Bulk Ingest, meant for the initial load of the Store. Until it finishes, the Txs and Blocks saved
+     * do not trigger Events, the Txs are saved without checking whether they already exist, and the Keys of each
+     * batch are sorted before writing them. The "tx_block" index and the number of Txs of each Block are built when
+     * the Ingest finishes (see {@link #finishBulkIngest()}), so until then the Blocks linked to each Tx and the
+     * Counters are not reliable. Removing or unlinking Txs and Blocks is not supported during a Bulk Ingest (an
+     * {@link IllegalStateException} is thrown).
+     */
+    default void startBulkIngest() {
+        try (BlockStoreLocks.Held held = getLocks().request().store(true).acquire()) {
+            getBulkIngest().start();
+            getLogger().info("Bulk Ingest started.");
+        }
+    }
+
+    /**
+     * It finishes the Bulk Ingest, building the secondary indexes of the Txs linked to Blocks during it, and
+     * recounting the Txs stored. It returns the final State of the Ingest.
+     * If it fails, the Ingest is still active and this method can be called again: the Blocks already indexed are
+     * skipped, and the rest are indexed again.
+     */
+    default BlockStoreBulkIngestState finishBulkIngest() {
+        BlockStoreBulkIngest bulkIngest = getBulkIngest();
+        try (BlockStoreLocks.Held held = getLocks().request().store(true).acquire()) {
+            if (!bulkIngest.isActive()) return bulkIngest.getState();
+            bulkIngest.startIndexing();
+            getLogger().info("Bulk Ingest: indexing the Txs of " + bulkIngest.getBlocks().size() + " blocks...");
+            bulkIngest.getBlocks().forEach((blockHash, blockTxs) -> {
+                if (!blockTxs.isIndexed()) _bulkIndexBlockTxs(blockHash, blockTxs);
+            });
+
+            // The Txs were saved without checking whether they existed, so they are counted again:
+            long numTxs = numKeys(fullKeyPreffixForTxs());
+            T tr = createTransaction();
+            executeInTransaction(tr, () -> save(tr, fullKeyForCounter(tr, COUNTER_TXS), bytes(numTxs)));
+
+            // Only now that everything is written the Ingest is finished:
+            BlockStoreBulkIngestState result = bulkIngest.getState();
+            bulkIngest.finish();
+            getLogger().info("Bulk Ingest finished: " + result);
+            return result;
+        }
+    }
+
+    /** It returns the State of the current Bulk Ingest, with its progress and throughput */
+    default BlockStoreBulkIngestState getBulkIngestState() {
+        return getBulkIngest().getState();
     }
 
     /* DB High-Level Operations: */
 
     @Override
     default List<HeaderReadOnly> saveBlock(HeaderReadOnly blockHeader) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = _lockBlocks(true, Arrays.asList(blockHeader.getHash().toString())).acquire()) {
 
             AtomicReference<List<HeaderReadOnly>> atomicArray = new AtomicReference(new ArrayList<>());
 
@@ -764,17 +1366,13 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
             });
 
             return atomicArray.get();
-
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default List<HeaderReadOnly> saveBlocks(List<HeaderReadOnly> blockHeaders) {
-
-        try {
-            getLock().writeLock().lock();
+        List<String> blockHashes = blockHeaders.stream().map(b -> b.getHash().toString()).collect(Collectors.toList());
+        try (BlockStoreLocks.Held held = _lockBlocks(true, blockHashes).acquire()) {
 
             AtomicReference<List<HeaderReadOnly>> atomicArray = new AtomicReference(new ArrayList<>());
             /*
@@ -791,41 +1389,39 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
             }
 
             return atomicArray.get();
-
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default boolean containsBlock(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = _lockBlocks(false, Arrays.asList(blockHash.toString())).acquire()) {
             AtomicBoolean result = new AtomicBoolean();
             T tr = createTransaction();
             executeInTransaction(tr, () -> result.set(_getBlockBytes(tr, blockHash.toString()) != null));
             return result.get();
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default Optional<HeaderReadOnly> getBlock(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = _lockBlocks(false, Arrays.asList(blockHash.toString())).acquire()) {
             AtomicReference<HeaderReadOnly> result = new AtomicReference<>();
             T tr = createTransaction();
             executeInTransaction(tr, () -> result.set(_getBlock(tr, blockHash.toString())));
             return Optional.ofNullable(result.get());
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
+    @Override
+    default List<Optional<HeaderReadOnly>> getBlocks(List<Sha256Hash> blockHashes) {
+        return _readInBatches(blockHashes, (tr, hashes) -> _getBlocksBytes(tr, hashes).stream()
+                .map(b -> Optional.ofNullable(toBlockHeader(b)))
+                .collect(Collectors.toList()));
+    }
+
     @Override
     default Iterator<Sha256Hash> getBlocksIterator() {
-        byte[] keyPreffix = fullKey(fullKeyForBlocks(), KEY_PREFFIX_BLOCK);
+        byte[] keyPreffix = fullKeyPreffixForBlocks();
         // The "buildItemBy" is the function used to take a Key and return each Item of the Iterator. The iterator
         // will returns a series of BlockHeader, so this function will build a Block Hash out of a Key:
 
@@ -842,23 +1438,22 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
 
     @Override
     default void removeBlock(Sha256Hash blockHash) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = _lockBlocks(true, Arrays.asList(blockHash.toString())).acquire()) {
+            _checkNoBulkIngest("removeBlock");
             T tr = createTransaction();
                executeInTransaction(tr, () -> {
                    _removeBlock(tr, blockHash.toString());
                    _unlinkBlock(blockHash.toString());
                    _triggerBlocksRemovedEvent(Arrays.asList(blockHash));
               });
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void removeBlocks(List<Sha256Hash> blockHashes) {
-        try {
-            getLock().writeLock().lock();
+        List<String> hashes = blockHashes.stream().map(Sha256Hash::toString).collect(Collectors.toList());
+        try (BlockStoreLocks.Held held = _lockBlocks(true, hashes).acquire()) {
+            _checkNoBulkIngest("removeBlocks");
             /*
                 Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
                 each Transaction is small (some KeyValue vendors have limitations)
@@ -870,34 +1465,25 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
                 executeInTransaction(tr, () -> _removeBlocks(tr, subList.stream().map(h -> h.toString()).collect(Collectors.toList())));
             }
             _triggerBlocksRemovedEvent(blockHashes);
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default long getNumBlocks() {
-        try {
-            getLock().readLock().lock();
-            byte[] startingWith = fullKey(fullKeyForBlocks(), KEY_PREFFIX_BLOCK);
-            return numKeys(startingWith);
-        } finally {
-            getLock().readLock().unlock();
+        try (BlockStoreLocks.Held held = getLocks().request().acquire()) {
+            return _getCounterOrCount(COUNTER_BLOCKS, fullKeyPreffixForBlocks());
         }
     }
 
     @Override
     default Optional<Metadata> getBlockMetadata(Sha256Hash blockHash) {
         AtomicReference<Metadata> result = new AtomicReference<>();
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(false, Arrays.asList(blockHash.toString())).acquire()) {
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 Metadata metadata = _getBlockMetadata(tr, blockHash.toString());
                 result.set(metadata);
             });
-        } finally {
-            getLock().readLock().unlock();
         }
         return Optional.ofNullable(result.get());
     }
@@ -905,167 +1491,160 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
     @Override
     default Optional<Metadata> getTxMetadata(Sha256Hash txHash) {
         AtomicReference<Metadata> result = new AtomicReference<>();
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().txs(false, Arrays.asList(txHash.toString())).acquire()) {
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 Metadata metadata = _getTxMetadata(tr, txHash.toString());
                 result.set(metadata);
             });
-        } finally {
-            getLock().readLock().unlock();
         }
         return Optional.ofNullable(result.get());
     }
 
+    @Override
+    default List<Optional<Metadata>> getTxsMetadata(List<Sha256Hash> txHashes) {
+        return _readInBatches(txHashes, (tr, hashes) -> _getTxsMetadata(tr, hashes).stream()
+                .map(Optional::ofNullable)
+                .collect(Collectors.toList()));
+    }
+
     @Override
     default void saveBlockMetadata(Sha256Hash blockHash, Metadata metadata) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(true, Arrays.asList(blockHash.toString())).acquire()) {
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 _saveBlockMetadata(tr, blockHash.toString(), metadata);
             });
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void saveTxMetadata(Sha256Hash txHash, Metadata metadata) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().txs(true, Arrays.asList(txHash.toString())).acquire()) {
             T tr = createTransaction();
             executeInTransaction(tr, () -> _saveTxMetadata(tr, txHash.toString(), metadata));
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void removeBlockMetadata(Sha256Hash blockHash) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(true, Arrays.asList(blockHash.toString())).acquire()) {
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 _removeBlockMetadata(tr, blockHash.toString());
             });
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void removeTxMetadata(Sha256Hash txHash) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().txs(true, Arrays.asList(txHash.toString())).acquire()) {
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 _removeTxMetadata(tr, txHash.toString());
             });
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void saveTx(Tx tx) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().txs(true, Arrays.asList(tx.getHashAsString())).acquire()) {
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
-                _saveTx(tr, tx);
+                if (getBulkIngest().isActive()) _bulkSaveTxs(tr, Arrays.asList(tx));
+                else _saveTx(tr, tx);
                 _triggerTxsStoredEvent(Arrays.asList(tx));
             });
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void saveTxs(List<Tx> txs) {
-        try {
-            getLock().writeLock().lock();
-            /*
-                Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
-                each Transaction is small (some KeyValue vendors have limitations)
-             */
-            List<List<Tx>> subLists = Lists.partition(txs, getConfig().getTransactionBatchSize());
-            for (List<Tx> subList : subLists) {
+        /*
+            Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
+            each Transaction is small (some KeyValue vendors have limitations). Each one only locks its own Txs.
+         */
+        List<List<Tx>> subLists = Lists.partition(txs, getConfig().getTransactionBatchSize());
+        for (List<Tx> subList : subLists) {
+            List<String> txHashes = subList.stream().map(Tx::getHashAsString).collect(Collectors.toList());
+            try (BlockStoreLocks.Held held = getLocks().request().txs(true, txHashes).acquire()) {
                 T tr = createTransaction();
-                executeInTransaction(tr, () -> _saveTxs(tr, subList));
+                executeInTransaction(tr, () -> {
+                    if (getBulkIngest().isActive()) _bulkSaveTxs(tr, subList);
+                    else _saveTxs(tr, subList);
+                });
             }
-            _triggerTxsStoredEvent(txs);
-        } finally {
-            getLock().writeLock().unlock();
         }
+        _triggerTxsStoredEvent(txs);
     }
 
     @Override
     default boolean containsTx(Sha256Hash txHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().txs(false, Arrays.asList(txHash.toString())).acquire()) {
             AtomicBoolean result = new AtomicBoolean();
             T tr = createTransaction();
             executeInTransaction(tr, () -> result.set(_getTxBytes(tr, txHash.toString()) != null));
             return result.get();
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default Optional<Tx> getTx(Sha256Hash txHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().txs(false, Arrays.asList(txHash.toString())).acquire()) {
             AtomicReference<Tx> result = new AtomicReference<>();
             T tr = createTransaction();
             executeInTransaction(tr, () -> result.set(_getTx(tr, txHash.toString())));
             return Optional.ofNullable(result.get());
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
+    @Override
+    default List<Boolean> containsTxs(List<Sha256Hash> txHashes) {
+        return _readInBatches(txHashes, (tr, hashes) -> _getTxsBytes(tr, hashes).stream()
+                .map(b -> b != null)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    default List<Optional<Tx>> getTxs(List<Sha256Hash> txHashes) {
+        return _readInBatches(txHashes, (tr, hashes) -> _getTxsBytes(tr, hashes).stream()
+                .map(b -> Optional.ofNullable(toTx(b)))
+                .collect(Collectors.toList()));
+    }
+
     @Override
     default void removeTx(Sha256Hash txHash) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = _lockTxsAndTheirBlocks(Arrays.asList(txHash.toString()))) {
+            _checkNoBulkIngest("removeTx");
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 _removeTx(tr, txHash.toString());
                 _triggerTxsRemovedEvent(Arrays.asList(txHash));
             });
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void removeTxs(List<Sha256Hash> txHashes) {
-        try {
-            getLock().writeLock().lock();
-            /*
-                Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
-                each Transaction is small (some KeyValue vendors have limitations)
-             */
-            List<List<Sha256Hash>> subLists = Lists.partition(txHashes, getConfig().getTransactionBatchSize());
-            for (List<Sha256Hash> subList : subLists) {
+        /*
+            Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
+            each Transaction is small (some KeyValue vendors have limitations)
+         */
+        List<List<Sha256Hash>> subLists = Lists.partition(txHashes, getConfig().getTransactionBatchSize());
+        for (List<Sha256Hash> subList : subLists) {
+            List<String> subListHashes = subList.stream().map(h -> h.toString()).collect(Collectors.toList());
+            try (BlockStoreLocks.Held held = _lockTxsAndTheirBlocks(subListHashes)) {
+                _checkNoBulkIngest("removeTxs");
                 T tr = createTransaction();
-                executeInTransaction(tr, () ->
-                        _removeTxs(tr, subList.stream().map(h -> h.toString()).collect(Collectors.toList()))
-                );
+                executeInTransaction(tr, () -> _removeTxs(tr, subListHashes));
             }
-            _triggerTxsRemovedEvent(txHashes);
-        } finally {
-            getLock().writeLock().unlock();
         }
+        _triggerTxsRemovedEvent(txHashes);
     }
 
     @Override
     default List<Sha256Hash> getPreviousTxs(Sha256Hash txHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().txs(false, Arrays.asList(txHash.toString())).acquire()) {
             List<Sha256Hash> result = new ArrayList<>();
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
@@ -1077,34 +1656,27 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
                 result.addAll(txsNeeded);
             });
             return result;
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default long getNumTxs() {
-        try {
-            getLock().readLock().lock();
-            byte[] startingWith = fullKey(fullKeyForTxs(), KEY_PREFFIX_TX);
-            return numKeys(startingWith);
-        } finally {
-            getLock().readLock().unlock();
+        try (BlockStoreLocks.Held held = getLocks().request().acquire()) {
+            return _getCounterOrCount(COUNTER_TXS, fullKeyPreffixForTxs());
         }
     }
 
     @Override
     default List<Tx> saveTxsIfNotExist(List<Tx> txs) {
-
-        try {
-            getLock().writeLock().lock();
-            List<Tx> result = new ArrayList<>();
-            /*
-                Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
-                each Transaction is small (some KeyValue vendors have limitations)
-             */
-            List<List<Tx>> subLists = Lists.partition(txs, getConfig().getTransactionBatchSize());
-            for (List<Tx> subList : subLists) {
+        List<Tx> result = new ArrayList<>();
+        /*
+            Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
+            each Transaction is small (some KeyValue vendors have limitations). Each one only locks its own Txs.
+         */
+        List<List<Tx>> subLists = Lists.partition(txs, getConfig().getTransactionBatchSize());
+        for (List<Tx> subList : subLists) {
+            List<String> txHashes = subList.stream().map(Tx::getHashAsString).collect(Collectors.toList());
+            try (BlockStoreLocks.Held held = getLocks().request().txs(true, txHashes).acquire()) {
                 T tr = createTransaction();
                 executeInTransaction(tr, () -> {
                     List<Tx> partialTxs = _saveTxsIfNotExist(tr, subList);
@@ -1112,10 +1684,8 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
                     }
                 );
             }
-            return result;
-        } finally {
-            getLock().writeLock().unlock();
         }
+        return result;
     }
 
     @Override
@@ -1130,10 +1700,13 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
 
     @Override
     default void linkTxToBlock(Sha256Hash txHash, Sha256Hash blockHash) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(true, Arrays.asList(blockHash.toString())).txs(false, Arrays.asList(txHash.toString())).acquire()) {
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
+                    if (getBulkIngest().isActive()) {
+                        _bulkLinkTxsToBlock(tr, Arrays.asList(txHash.toString()), blockHash.toString(), fullKeyForBlockDir(blockHash.toString()));
+                        return;
+                    }
                     // We get the Tx Index for this block:
                     long txIndex = _getTxIndexForBlock(tr, blockHash.toString());
                     // we remove link the Tx to the block:
@@ -1144,24 +1717,26 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
                     _addBlockNumTxs(tr, blockHash.toString(), 1);
                 }
             );
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void linkTxsToBlock(List<Sha256Hash> txsHashes, Sha256Hash blockHash) {
-        try {
-            getLock().writeLock().lock();
-            /*
-                Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
-                each Transaction is small (some KeyValue vendors have limitations)
-             */
-            byte[] blockDirFullKey = fullKeyForBlockDir(blockHash.toString());
-            List<List<Sha256Hash>> subLists = Lists.partition(txsHashes, getConfig().getTransactionBatchSize());
-            for (List<Sha256Hash> subList : subLists) {
+        /*
+            Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
+            each Transaction is small (some KeyValue vendors have limitations)
+         */
+        byte[] blockDirFullKey = fullKeyForBlockDir(blockHash.toString());
+        List<List<Sha256Hash>> subLists = Lists.partition(txsHashes, getConfig().getTransactionBatchSize());
+        for (List<Sha256Hash> subList : subLists) {
+            List<String> subListHashes = subList.stream().map(Sha256Hash::toString).collect(Collectors.toList());
+            try (BlockStoreLocks.Held held = getLocks().request().blocks(true, Arrays.asList(blockHash.toString())).txs(false, subListHashes).acquire()) {
                 T tr = createTransaction();
                 executeInTransaction(tr, () -> {
+                        if (getBulkIngest().isActive()) {
+                            _bulkLinkTxsToBlock(tr, subListHashes, blockHash.toString(), blockDirFullKey);
+                            return;
+                        }
                         // We get the Tx Index for this Block:
                         long txIndex = _getTxIndexForBlock(tr, blockHash.toString());
 
@@ -1178,15 +1753,13 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
                     }
                 );
             }
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void unlinkTxFromBlock(Sha256Hash txHash, Sha256Hash blockHash) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(true, Arrays.asList(blockHash.toString())).txs(false, Arrays.asList(txHash.toString())).acquire()) {
+            _checkNoBulkIngest("unlinkTxFromBlock");
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
                 // We get the Index fo this Tx within this Block:
@@ -1195,83 +1768,65 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
                 if (txIndex.isPresent())
                     _unlinkTxFromBlock(tr, txHash.toString(), blockHash.toString(), txIndex.get());
             });
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void unlinkTxsFromBlock(List<Sha256Hash> txsHashes, Sha256Hash blockHash) {
-        try {
-            getLock().writeLock().lock();
-            /*
-                Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
-                each Transaction is small (some KeyValue vendors have limitations)
-             */
-            List<List<Sha256Hash>> subLists = Lists.partition(txsHashes, getConfig().getTransactionBatchSize());
-            for (List<Sha256Hash> subList : subLists) {
+        /*
+            Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
+            each Transaction is small (some KeyValue vendors have limitations)
+         */
+        List<List<Sha256Hash>> subLists = Lists.partition(txsHashes, getConfig().getTransactionBatchSize());
+        for (List<Sha256Hash> subList : subLists) {
+            List<String> subListHashes = subList.stream().map(Sha256Hash::toString).collect(Collectors.toList());
+            try (BlockStoreLocks.Held held = getLocks().request().blocks(true, Arrays.asList(blockHash.toString())).txs(false, subListHashes).acquire()) {
+                _checkNoBulkIngest("unlinkTxsFromBlock");
                 T tr = createTransaction();
                 executeInTransaction(tr, () -> {
-                    // We get the Tx Index for this Block:
-                    long txIndex = _getTxIndexForBlock(tr, blockHash.toString());
-
-                    // We iterate over the Txs and we link them using a different index each:
+                    // We unlink each Tx using the Index it was given when linked to this Block. The number of Txs of
+                    // the Block is updated as we go (the TxIndex is not, so the Txs linked later keep the order):
                     for (Sha256Hash txHash : subList) {
-                        _unlinkTxFromBlock(tr, txHash.toString(), blockHash.toString(), txIndex++);
+                        Optional<Long> txIndex = _getTxIndexForTxBlock(tr, txHash.toString(), blockHash.toString());
+                        if (txIndex.isPresent())
+                            _unlinkTxFromBlock(tr, txHash.toString(), blockHash.toString(), txIndex.get());
                     }
-
-                    // we update the number of Txs of this block:
-                    _addBlockNumTxs(tr, blockHash.toString(), -subList.size());
-
-                    // We update the TxIndex for this Block:
-                    _addTxIndexToBlock(tr, blockHash.toString(), -subList.size());
-
                     });
             }
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void unlinkTx(Sha256Hash txHash) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = _lockTxsAndTheirBlocks(Arrays.asList(txHash.toString()))) {
+            _checkNoBulkIngest("unlinkTx");
             T tr = createTransaction();
             executeInTransaction(tr, () -> _unlinkTx(tr, txHash.toString()));
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default void unlinkBlock(Sha256Hash blockHash) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(true, Arrays.asList(blockHash.toString())).acquire()) {
+            _checkNoBulkIngest("unlinkBlock");
             _unlinkBlock(blockHash.toString());
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default boolean isTxLinkToblock(Sha256Hash txHash, Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(false, Arrays.asList(blockHash.toString())).acquire()) {
             AtomicBoolean result = new AtomicBoolean();
             T tr = createTransaction();
             executeInTransaction(tr, () -> result.set(_isTxLinkToBlock(tr, txHash.toString(), blockHash.toString())));
             return result.get();
-        } finally {
-            getLock().readLock().unlock();
         }
 
     }
 
     @Override
     default List<Sha256Hash> getBlockHashLinkedToTx(Sha256Hash txHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().txs(false, Arrays.asList(txHash.toString())).acquire()) {
             List<Sha256Hash> result = new ArrayList<>();
             T tr = createTransaction();
             executeInTransaction(tr, () -> {
@@ -1280,17 +1835,14 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
 
             });
             return result;
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default Iterable<Sha256Hash> getBlockTxs(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(false, Arrays.asList(blockHash.toString())).acquire()) {
 
-            byte[] keyPreffix = fullKey(fullKeyForBlockDir(blockHash.toString()), KEY_PREFFIX_TX_LINK);
+            byte[] keyPreffix = fullKeyPreffixForBlockTxs(blockHash.toString());
             Function<E, Sha256Hash> buildKeyFunction = e -> {
                 byte[] key = keyFromItem(e);
                 return Sha256Hash.wrap(extractTxHashFromKey(key).get());
@@ -1299,39 +1851,45 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
             Iterator<Sha256Hash> it = getIterator(keyPreffix, null, null, buildKeyFunction);
             Iterable<Sha256Hash> result = () -> it;
             return result;
-        } finally {
-            getLock().readLock().unlock();
+        }
+    }
+
+    @Override
+    default Spliterator<Sha256Hash> getBlockTxsSpliterator(Sha256Hash blockHash) {
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(false, Arrays.asList(blockHash.toString())).acquire()) {
+            return _getBlockTxsIterable(blockHash.toString(), null).spliterator();
         }
     }
 
     @Override
     default long getBlockNumTxs(Sha256Hash blockHash) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(false, Arrays.asList(blockHash.toString())).acquire()) {
             AtomicLong result = new AtomicLong();
             T tr = createTransaction();
             executeInTransaction(tr, () -> result.set(_getBlockNumTxs(tr, blockHash.toString())));
             return result.get();
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
     @Override
     default void saveBlockTxs(Sha256Hash blockHash, List<Tx> txs) {
-        try {
-            getLock().writeLock().lock();
-            /*
-                Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
-                each Transaction is small (some KeyValue vendors have limitations)
-             */
-            // In this case, since in each Transaction we are NOt only Linking the Txs but ALSO saving the TX THEMSELVES,
-            // we are using a TR Batch Size Twice as SMALL as usual...
-            List<List<Tx>> subLists = Lists.partition(txs, getConfig().getTransactionBatchSize() / 2);
-            byte[] blockDirFullKey = fullKeyForBlockDir(blockHash.toString());
-            for (List<Tx> subList : subLists) {
+        /*
+            Any operation performed on a List of Items will need to be split into smaller lists, just to make sure
+            each Transaction is small (some KeyValue vendors have limitations)
+         */
+        // In this case, since in each Transaction we are NOt only Linking the Txs but ALSO saving the TX THEMSELVES,
+        // we are using a TR Batch Size Twice as SMALL as usual...
+        List<List<Tx>> subLists = Lists.partition(txs, getConfig().getTransactionBatchSize() / 2);
+        byte[] blockDirFullKey = fullKeyForBlockDir(blockHash.toString());
+        for (List<Tx> subList : subLists) {
+            List<String> subListHashes = subList.stream().map(Tx::getHashAsString).collect(Collectors.toList());
+            try (BlockStoreLocks.Held held = getLocks().request().blocks(true, Arrays.asList(blockHash.toString())).txs(true, subListHashes).acquire()) {
                 T tr = createTransaction();
                 executeInTransaction(tr, () -> {
+                    if (getBulkIngest().isActive()) {
+                        _bulkSaveBlockTxs(tr, subList, blockHash.toString(), blockDirFullKey);
+                        return;
+                    }
                     // We store the TX...
                     _saveTxs(tr, subList);
                     // Now we link them:
@@ -1350,29 +1908,30 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
                     _addTxIndexToBlock(tr, blockHash.toString(), subList.size());
 
                 });
-            } // for...
-            _triggerTxsStoredEvent(txs);
-        } finally {
-            getLock().writeLock().unlock();
-        }
+            }
+        } // for...
+        _triggerTxsStoredEvent(txs);
     }
 
     @Override
     default void removeBlockTxs(Sha256Hash blockHash) {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = getLocks().request().blocks(true, Arrays.asList(blockHash.toString())).acquire()) {
+            _checkNoBulkIngest("removeBlockTxs");
 
                 // We remove all The Txs from this Block. the problem is that we need to trigger an TXS_REMOVED Event but the
                 // number of Txs must be huge, so we cannot just trigger a single event with a huge list inside. Instead, we
                 // are keeping track of the number of Txs we remove, and we only trigger an event when we reach the Threshold.
                 // We put all that logic inside a Lambda function that will be passed to the method that removes the Txs...
 
+                // The Txs are removed in parallel, so the list is synchronized:
                 List<Sha256Hash> batchTxsRemoved = new ArrayList<>();
                 Consumer<String> txHashConsumer = txHash -> {
-                    batchTxsRemoved.add(Sha256Hash.wrap(txHash));
-                    if (batchTxsRemoved.size() == MAX_EVENT_ITEMS) {
-                        _triggerTxsRemovedEvent(batchTxsRemoved);
-                        batchTxsRemoved.clear();
+                    synchronized (batchTxsRemoved) {
+                        batchTxsRemoved.add(Sha256Hash.wrap(txHash));
+                        if (batchTxsRemoved.size() == MAX_EVENT_ITEMS) {
+                            _triggerTxsRemovedEvent(new ArrayList<>(batchTxsRemoved));
+                            batchTxsRemoved.clear();
+                        }
                     }
                 };
                 _removeBlockTxs(blockHash.toString(), txHashConsumer);
@@ -1380,16 +1939,12 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
                 // In case there are still Tx that have not been published in an Event...
                 if (batchTxsRemoved.size() > 0) _triggerTxsRemovedEvent(batchTxsRemoved);
           //  }
-
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
     @Override
     default Optional<BlocksCompareResult> compareBlocks(Sha256Hash blockHashA, Sha256Hash blockHashB) {
-        try {
-            getLock().readLock().lock();
+        try (BlockStoreLocks.Held held = _lockBlocks(false, Arrays.asList(blockHashA.toString(), blockHashB.toString())).acquire()) {
             Optional<HeaderReadOnly> blockHeaderA = getBlock(blockHashA);
             Optional<HeaderReadOnly> blockHeaderB = getBlock(blockHashB);
 
@@ -1399,59 +1954,48 @@ public interface BlockStoreKeyValue<E,T> extends BlockStore {
                     .blockA(blockHeaderA.get())
                     .blockB(blockHeaderB.get());
 
-            byte[] keyPreffixA = fullKey(fullKeyForBlockDir(blockHashA.toString()), KEY_PREFFIX_TX_LINK);
-            byte[] keyPreffixB = fullKey(fullKeyForBlockDir(blockHashB.toString()), KEY_PREFFIX_TX_LINK);
+            // The Iterables returned can also be split into segments and processed in parallel, by using their
+            // Spliterators (each Tx is checked against the other Block, so this is where most of the time goes)
 
             // We create an Iterable for the TXs in common:
-            Function<E, Sha256Hash> buildItemBy = e -> Sha256Hash.wrap(extractTxHashFromKey(keyFromItem(e)).get());
-
             BiPredicate<T, byte[]> commonKeyValid = (tr, k) -> _isTxLinkToBlock(tr, extractTxHashFromKey(k).get(), blockHashB.toString());
-            Iterator<Sha256Hash> commonIterator = getIterator(keyPreffixA, null, commonKeyValid, buildItemBy);
-            Iterable<Sha256Hash> commonIterable = () -> commonIterator;
-            resultBuilder.txsInCommonIt(commonIterable);
+            resultBuilder.txsInCommonIt(_getBlockTxsIterable(blockHashA.toString(), commonKeyValid));
 
             // We create an Iterable for the TXs that are ONLY in the block A:
-
             BiPredicate<T, byte[]> onlyAKeyValid = (tr, k) -> !_isTxLinkToBlock(tr, extractTxHashFromKey(k).get(), blockHashB.toString());
-            Iterator<Sha256Hash> onlyAIterator = getIterator(keyPreffixA, null, onlyAKeyValid, buildItemBy);
-            Iterable<Sha256Hash> onlyAIterable = () -> onlyAIterator;
-            resultBuilder.txsOnlyInA(onlyAIterable);
+            resultBuilder.txsOnlyInA(_getBlockTxsIterable(blockHashA.toString(), onlyAKeyValid));
 
             // We create an Iterable for the TXs that are ONLY in the block B:
             BiPredicate<T, byte[]> onlyBKeyValid = (tr, k) -> !_isTxLinkToBlock(tr, extractTxHashFromKey(k).get(), blockHashA.toString());
-            Iterator<Sha256Hash> onlyBIterator = getIterator(keyPreffixB, null, onlyBKeyValid, buildItemBy);
-            Iterable<Sha256Hash> onlyBIterable = () -> onlyBIterator;
-            resultBuilder.txsOnlyInB(onlyBIterable);
+            resultBuilder.txsOnlyInB(_getBlockTxsIterable(blockHashB.toString(), onlyBKeyValid));
 
             return Optional.of(resultBuilder.build());
-        } finally {
-            getLock().readLock().unlock();
         }
     }
 
-    /* Events triggering Operations */
+    /* Events triggering Operations. No Events are triggered during a Bulk Ingest */
 
     default void _triggerBlocksStoredEvent(List<HeaderReadOnly> blockHeaders) {
-        if (isTriggerBlockEvents()) {
+        if (isTriggerBlockEvents() && !getBulkIngest().isActive()) {
             List<Sha256Hash> blockHashes = blockHeaders.stream().map(b -> b.getHash()).collect(Collectors.toList());
             getEventBus().publish(new BlocksSavedEvent(blockHashes));
         }
     }
 
     default void _triggerBlocksRemovedEvent(List<Sha256Hash> blockHashes) {
-        if (isTriggerBlockEvents())
+        if (isTriggerBlockEvents() && !getBulkIngest().isActive())
             getEventBus().publish(new BlocksRemovedEvent(blockHashes));
     }
 
     default void _triggerTxsStoredEvent(List<Tx> txs) {
-        if (isTriggerTxEvents()) {
+        if (isTriggerTxEvents() && !getBulkIngest().isActive()) {
             List<Sha256Hash> txHashes = txs.stream().map(tx -> tx.getHash()).collect(Collectors.toList());
             getEventBus().publish(new TxsSavedEvent(txHashes));
         }
     }
 
     default void _triggerTxsRemovedEvent(List<Sha256Hash> txHashes) {
-        if (isTriggerTxEvents())
+        if (isTriggerTxEvents() && !getBulkIngest().isActive())
             getEventBus().publish(new TxsRemovedEvent(txHashes));
     }
 
@@ -24,4 +24,26 @@ public interface BlockStoreKeyValueConfig {
      * Returns the Network ID representing the Chain stored.
      */
     String getNetworkId();
+
+    /**
+     * Returns the number of Txs the Filters in front of the DB are sized for (they grow if more Txs are stored). The
+     * Filters are used to skip reading the DB when looking for Txs or Blocks that are not stored. If zero, the Filters
+     * are disabled (see BlockStoreFilter).
+     */
+    long getFilterExpectedItems();
+
+    /** Returns the max rate of false positives of the Filters in front of the DB (0.01 = 1%) */
+    double getFilterFalsePositiveRate();
+
+    /**
+     * Returns the max number of Threads used to process the Txs of a Block in parallel (when removing them, for
+     * instance). The Txs are split into segments of consecutive Txs, and each segment is processed by one Thread.
+     */
+    int getBlockTxsParallelism();
+
+    /**
+     * Returns the number of Locks (stripes) the Blocks and Txs are distributed into, by their Hash. Operations over
+     * Blocks or Txs in different stripes can run concurrently (see BlockStoreLocks).
+     */
+    int getLockStripes();
 }
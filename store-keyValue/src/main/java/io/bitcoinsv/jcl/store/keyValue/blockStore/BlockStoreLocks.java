@@ -0,0 +1,156 @@
+package io.bitcoinsv.jcl.store.keyValue.blockStore;
+
+
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreLockState;
+import io.bitcoinsv.jcl.store.keyValue.common.StoreLock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Locks used by the {@link BlockStoreKeyValue} to make sure Thread-safety is in place. Instead of one Lock for the
+ * whole Store, the Locks are split into Domains (see {@link StoreLock}), so independent Blocks and Txs can be
+ * written concurrently:
+ *
+ * - STORE:     Operations over the whole Store (clear, stop, recounting the Counters, etc) lock it for writing,
+ *              the rest of them for reading.
+ * - CHAIN:     The structure of the Chain (tips, paths and the Chain info of each Block). It's only used by the
+ *              BlockChain Store, which also locks it when Blocks are saved or removed, since that changes the Chain.
+ * - BLOCKS:    Striped by Block Hash: The Block Header, its properties and the Txs linked to it.
+ * - TXS:       Striped by Tx Hash: The Tx itself and its properties. Linking a Tx to a Block only locks it for
+ *              reading (the Tx is not changed, but it can not be removed in the meantime).
+ * - COUNTERS:  The Counters of Blocks, Txs and Orphans, which are shared by all the Items. It's only held while
+ *              the Counters are updated, when a Transaction is committed.
+ *
+ * The Domains are always acquired in the order above, and the stripes within a Domain in ascending order, so two
+ * Threads never wait for each other. The time spent waiting for each Domain is reported in its State.
+ */
+public class BlockStoreLocks {
+
+    // Names of the Domains, as shown in the State:
+    public static final String LOCK_STORE       = "store";
+    public static final String LOCK_CHAIN       = "chain";
+    public static final String LOCK_BLOCKS      = "blocks";
+    public static final String LOCK_TXS         = "txs";
+    public static final String LOCK_COUNTERS    = "counters";
+
+    private final StoreLock store = new StoreLock(1);
+    private final StoreLock chain = new StoreLock(1);
+    private final StoreLock blocks;
+    private final StoreLock txs;
+    private final StoreLock counters = new StoreLock(1);
+
+    /** Constructor */
+    public BlockStoreLocks(int numStripes) {
+        this.blocks = new StoreLock(numStripes);
+        this.txs = new StoreLock(numStripes);
+    }
+
+    public StoreLock getStore()     { return this.store; }
+    public StoreLock getChain()     { return this.chain; }
+    public StoreLock getBlocks()    { return this.blocks; }
+    public StoreLock getTxs()       { return this.txs; }
+    public StoreLock getCounters()  { return this.counters; }
+
+    /** It returns a new Request, to specify the Locks needed and acquire them */
+    public Request request() {
+        return new Request();
+    }
+
+    /** It acquires the Counters Domain. Nothing else can be locked until it's released */
+    public Held lockCounters() {
+        List<Lock> locksHeld = new ArrayList<>();
+        counters.acquire(true, locksHeld);
+        return new Held(locksHeld);
+    }
+
+    public Map<String, BlockStoreLockState> getState() {
+        Map<String, BlockStoreLockState> result = new LinkedHashMap<>();
+        result.put(LOCK_STORE, store.getState());
+        result.put(LOCK_CHAIN, chain.getState());
+        result.put(LOCK_BLOCKS, blocks.getState());
+        result.put(LOCK_TXS, txs.getState());
+        result.put(LOCK_COUNTERS, counters.getState());
+        return result;
+    }
+
+    /**
+     * A Request of the Locks needed by an operation. The Store Domain is always locked (for reading, unless
+     * specified otherwise), and the rest of Domains only if they are specified.
+     */
+    public class Request {
+        private boolean withStore = true;
+        private boolean storeWrite;
+        private Boolean chainWrite;
+        private boolean blocksWrite;
+        private Collection<String> blockHashes;
+        private boolean txsWrite;
+        private Collection<String> txHashes;
+
+        private Request() {}
+
+        public Request store(boolean write) {
+            this.storeWrite = write;
+            return this;
+        }
+
+        /** The Store Domain is not acquired: the Locks are requested on behalf of a Thread already holding it */
+        public Request withinStore() {
+            this.withStore = false;
+            return this;
+        }
+
+        public Request chain(boolean write) {
+            this.chainWrite = write;
+            return this;
+        }
+
+        public Request blocks(boolean write, Collection<String> blockHashes) {
+            this.blocksWrite = write;
+            this.blockHashes = blockHashes;
+            return this;
+        }
+
+        public Request txs(boolean write, Collection<String> txHashes) {
+            this.txsWrite = write;
+            this.txHashes = txHashes;
+            return this;
+        }
+
+        public Held acquire() {
+            List<Lock> locksHeld = new ArrayList<>();
+            try {
+                if (withStore) store.acquire(storeWrite, locksHeld);
+                if (chainWrite != null) chain.acquire(chainWrite, locksHeld);
+                if (blockHashes != null) blocks.acquire(blocksWrite, blockHashes, locksHeld);
+                if (txHashes != null) txs.acquire(txsWrite, txHashes, locksHeld);
+            } catch (RuntimeException e) {
+                new Held(locksHeld).close();
+                throw e;
+            }
+            return new Held(locksHeld);
+        }
+    }
+
+    /** Locks held by a Thread. They are released when it's closed, in the reverse order */
+    public static class Held implements AutoCloseable {
+        private final List<Lock> locks;
+
+        private Held(List<Lock> locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            for (int i = locks.size() - 1; i >= 0; i--) locks.get(i).unlock();
+            locks.clear();
+        }
+    }
+}
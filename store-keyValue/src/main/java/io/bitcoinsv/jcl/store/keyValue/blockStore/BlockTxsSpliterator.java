@@ -0,0 +1,85 @@
+package io.bitcoinsv.jcl.store.keyValue.blockStore;
+
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Spliterator over the Txs linked to a Block. The Keys that link the Txs to a Block are sorted by the index of each
+ * Tx within the Block, so the whole set of Keys can be split into segments of consecutive indexes, each one of them
+ * iterated over by its own DB Iterator. This way, the Txs of a huge Block can be processed in parallel (by using a
+ * parallel Stream, for instance).
+ *
+ * The segments are defined by the Tx indexes, so their sizes are estimations (some Txs might have been removed from
+ * the Block). The DB Iterator of each segment is not created until the segment is traversed, and a segment can only
+ * be split before that.
+ *
+ * @param <I> Type of each Item returned
+ */
+public class BlockTxsSpliterator<I> implements Spliterator<I> {
+
+    // Function that returns an Iterator over the Txs with indexes in the range given [from, to):
+    private final BiFunction<Long, Long, Iterator<I>> iteratorForRange;
+    // A segment is not split if the resulting segments have less Txs than this:
+    private final long minSegmentSize;
+
+    private long fromIndex;
+    private final long toIndex;
+    private Iterator<I> iterator;
+
+    /** Constructor */
+    public BlockTxsSpliterator(BiFunction<Long, Long, Iterator<I>> iteratorForRange,
+                               long fromIndex,
+                               long toIndex,
+                               long minSegmentSize) {
+        this.iteratorForRange = iteratorForRange;
+        this.fromIndex = fromIndex;
+        this.toIndex = Math.max(fromIndex, toIndex);
+        this.minSegmentSize = Math.max(1, minSegmentSize);
+    }
+
+    private Iterator<I> getIterator() {
+        if (iterator == null) iterator = iteratorForRange.apply(fromIndex, toIndex);
+        return iterator;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super I> action) {
+        Iterator<I> it = getIterator();
+        if (!it.hasNext()) return false;
+        action.accept(it.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super I> action) {
+        Iterator<I> it = getIterator();
+        while (it.hasNext()) action.accept(it.next());
+    }
+
+    @Override
+    public Spliterator<I> trySplit() {
+        long size = toIndex - fromIndex;
+        if (iterator != null || size < minSegmentSize * 2) return null;
+        // The first half is returned, and this one keeps the second one (so the order is kept):
+        long middleIndex = fromIndex + (size / 2);
+        Spliterator<I> result = new BlockTxsSpliterator<>(iteratorForRange, fromIndex, middleIndex, minSegmentSize);
+        fromIndex = middleIndex;
+        return result;
+    }
+
+    @Override
+    public long estimateSize() {
+        return toIndex - fromIndex;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
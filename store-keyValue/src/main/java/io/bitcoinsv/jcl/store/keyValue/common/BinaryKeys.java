@@ -0,0 +1,199 @@
+package io.bitcoinsv.jcl.store.keyValue.common;
+
+import io.bitcoinsv.bitcoinjsv.core.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Binary Key Schema (version 2) for Key-Value Stores. Each Key starts with a 1-byte namespace, followed by its
+ * components in binary format:
+ *  - hashes are stored as raw 32 bytes (the same bytes as their hex representation)
+ *  - numbers are stored in fixed-width big-endian format, so the Keys keep their numerical order when sorted
+ *    lexicographically.
+ *
+ * Layout of the Keys:
+ *
+ *  [0x00]                                      : Schema info (version, network)
+ *  [0x01][blockHash]                           : Block Header
+ *  [0x02][blockHash]                           : Number of Txs of a Block
+ *  [0x03][blockHash]                           : Last Tx index used in a Block
+ *  [0x04][blockHash][txIndex:8][txHash]        : Link Block -> Tx (Txs sorted by their index within the Block)
+ *  [0x05][txHash]                              : Tx
+ *  [0x06][txHash][blockHash]                   : Link Tx -> Block (value: Tx index within the Block)
+ *  [0x07][blockHash]                           : Orphan Block
+ *  [0x08][blockHash]                           : Block Metadata
+ *  [0x09][txHash]                              : Tx Metadata
+ *  [0x10][blockHash]                           : Blocks built on top of a Block
+ *  [0x11][blockHash]                           : Chain Info of a Block
+ *  [0x12][height:4]                            : Blocks at a Height
+ *  [0x13]                                      : Chain Tips
+ *  [0x14]                                      : Last Chain Path id used
+ *  [0x15][pathId:4]                            : Chain Path
+ *
+ * A Key like "blockchain\BSV-Main\txs\tx_block_link:[txHash]:[blockHash]:" (160 bytes) becomes a 65-byte Key.
+ *
+ * Since a namespace is only 1 byte, the network is not part of the Keys anymore: a DB using this Schema only stores
+ * the data of one network, which is recorded in the Schema info.
+ */
+public final class BinaryKeys {
+
+    public static final int HASH_LENGTH = 32;
+
+    // Namespaces:
+    public static final byte NS_SCHEMA          = 0x00;
+    public static final byte NS_BLOCK           = 0x01;
+    public static final byte NS_BLOCK_NUMTXS    = 0x02;
+    public static final byte NS_BLOCK_TXINDEX   = 0x03;
+    public static final byte NS_BLOCK_TX        = 0x04;
+    public static final byte NS_TX              = 0x05;
+    public static final byte NS_TX_BLOCK        = 0x06;
+    public static final byte NS_ORPHAN          = 0x07;
+    public static final byte NS_BLOCK_META      = 0x08;
+    public static final byte NS_TX_META         = 0x09;
+    public static final byte NS_BLOCK_NEXT      = 0x10;
+    public static final byte NS_BLOCK_CHAIN     = 0x11;
+    public static final byte NS_BLOCK_HEIGHT    = 0x12;
+    public static final byte NS_CHAIN_TIPS      = 0x13;
+    public static final byte NS_PATHS_LAST      = 0x14;
+    public static final byte NS_PATH            = 0x15;
+    public static final byte NS_COUNTER         = 0x16;
+
+    /** Key where the Schema info is stored */
+    public static final byte[] KEY_SCHEMA = new byte[] { NS_SCHEMA };
+
+    private BinaryKeys() {}
+
+    /** Key made of just a namespace */
+    public static byte[] key(byte namespace) {
+        return new byte[] { namespace };
+    }
+
+    /** Key made of a namespace and a Hash */
+    public static byte[] key(byte namespace, String hash) {
+        byte[] result = new byte[1 + HASH_LENGTH];
+        result[0] = namespace;
+        writeHash(hash, result, 1);
+        return result;
+    }
+
+    /** Key made of a namespace and 2 hashes */
+    public static byte[] key(byte namespace, String hash1, String hash2) {
+        byte[] result = new byte[1 + HASH_LENGTH * 2];
+        result[0] = namespace;
+        writeHash(hash1, result, 1);
+        writeHash(hash2, result, 1 + HASH_LENGTH);
+        return result;
+    }
+
+    /** Key made of a namespace and a number */
+    public static byte[] key(byte namespace, int number) {
+        byte[] result = new byte[5];
+        result[0] = namespace;
+        Utils.uint32ToByteArrayBE(number & 0xFFFFFFFFL, result, 1);
+        return result;
+    }
+
+    /** Key of a Counter, made of a namespace and its name */
+    public static byte[] keyForCounter(String counterName) {
+        return concat(key(NS_COUNTER), counterName.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** Key that links a Tx to a Block, in the position given */
+    public static byte[] keyForBlockTx(String blockHash, long txIndex, String txHash) {
+        return keyForBlockTx(key(NS_BLOCK_TX, blockHash), txIndex, txHash);
+    }
+
+    /** Key that links a Tx to a Block, in the position given. The Block is given by its preffix: [0x04][blockHash] */
+    public static byte[] keyForBlockTx(byte[] blockTxsPreffix, long txIndex, String txHash) {
+        byte[] result = new byte[1 + HASH_LENGTH + 8 + HASH_LENGTH];
+        System.arraycopy(blockTxsPreffix, 0, result, 0, 1 + HASH_LENGTH);
+        writeUint64BE(txIndex, result, 1 + HASH_LENGTH);
+        writeHash(txHash, result, 1 + HASH_LENGTH + 8);
+        return result;
+    }
+
+    /** Preffix of the Keys that link Txs to a Block, starting from the position given (included) */
+    public static byte[] keyForBlockTxsFrom(String blockHash, long txIndex) {
+        byte[] result = new byte[1 + HASH_LENGTH + 8];
+        System.arraycopy(key(NS_BLOCK_TX, blockHash), 0, result, 0, 1 + HASH_LENGTH);
+        writeUint64BE(txIndex, result, 1 + HASH_LENGTH);
+        return result;
+    }
+
+    /** Concatenation of several Keys (used to build preffixes) */
+    public static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) if (part != null) length += part.length;
+        byte[] result = new byte[length];
+        int pos = 0;
+        for (byte[] part : parts) {
+            if (part == null) continue;
+            System.arraycopy(part, 0, result, pos, part.length);
+            pos += part.length;
+        }
+        return result;
+    }
+
+    /** Returns the Tx Hash contained in the Key, if any */
+    public static Optional<String> extractTxHash(byte[] key) {
+        if (key == null || key.length == 0) return Optional.empty();
+        switch (key[0]) {
+            case NS_TX:
+            case NS_TX_BLOCK:
+            case NS_TX_META:    return readHash(key, 1);
+            case NS_BLOCK_TX:   return readHash(key, 1 + HASH_LENGTH + 8);
+            default:            return Optional.empty();
+        }
+    }
+
+    /** Returns the Block Hash contained in the Key, if any */
+    public static Optional<String> extractBlockHash(byte[] key) {
+        if (key == null || key.length == 0) return Optional.empty();
+        switch (key[0]) {
+            case NS_BLOCK:
+            case NS_BLOCK_NUMTXS:
+            case NS_BLOCK_TXINDEX:
+            case NS_BLOCK_TX:
+            case NS_ORPHAN:
+            case NS_BLOCK_META:
+            case NS_BLOCK_NEXT:
+            case NS_BLOCK_CHAIN:    return readHash(key, 1);
+            case NS_TX_BLOCK:       return readHash(key, 1 + HASH_LENGTH);
+            default:                return Optional.empty();
+        }
+    }
+
+    /** Returns the Schema info: [version][network Id] */
+    public static byte[] schemaInfo(KeySchema schema, String networkId) {
+        byte[] netBytes = (networkId != null) ? networkId.getBytes() : new byte[0];
+        byte[] result = new byte[1 + netBytes.length];
+        result[0] = (byte) schema.getVersion();
+        System.arraycopy(netBytes, 0, result, 1, netBytes.length);
+        return result;
+    }
+
+    public static KeySchema schemaFromInfo(byte[] info)     { return KeySchema.fromVersion(info[0]); }
+    public static String networkFromInfo(byte[] info)       { return new String(info, 1, info.length - 1); }
+
+    private static void writeHash(String hash, byte[] dest, int offset) {
+        byte[] hashBytes = Utils.HEX.decode(hash);
+        if (hashBytes.length != HASH_LENGTH) throw new IllegalArgumentException("Wrong Hash length: " + hash);
+        System.arraycopy(hashBytes, 0, dest, offset, HASH_LENGTH);
+    }
+
+    private static void writeUint64BE(long value, byte[] dest, int offset) {
+        for (int i = 7; i >= 0; i--) {
+            dest[offset + i] = (byte) (value & 0xFF);
+            value >>>= 8;
+        }
+    }
+
+    private static Optional<String> readHash(byte[] key, int offset) {
+        if (key.length < offset + HASH_LENGTH) return Optional.empty();
+        return Optional.of(Utils.HEX.encode(key, offset, HASH_LENGTH));
+    }
+}
@@ -0,0 +1,28 @@
+package io.bitcoinsv.jcl.store.keyValue.common;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Layout of the Keys used by a Key-Value Store:
+ *
+ *  - STRING: The original layout (version 1). Keys are Strings made of "directories" and sub-keys, with the hashes in
+ *            hex format. See {@link io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreKeyValue}.
+ *  - BINARY: Compact layout (version 2). Keys are made of a 1-byte namespace followed by raw 32-byte hashes and
+ *            fixed-width numbers. See {@link BinaryKeys}.
+ */
+public enum KeySchema {
+    STRING(1),
+    BINARY(2);
+
+    private final int version;
+
+    KeySchema(int version) { this.version = version; }
+
+    public int getVersion() { return this.version; }
+
+    public static KeySchema fromVersion(int version) {
+        for (KeySchema schema : values()) if (schema.version == version) return schema;
+        throw new IllegalArgumentException("Key Schema version not supported: " + version);
+    }
+}
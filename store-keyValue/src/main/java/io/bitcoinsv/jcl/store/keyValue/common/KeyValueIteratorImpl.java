@@ -1,5 +1,6 @@
 package io.bitcoinsv.jcl.store.keyValue.common;
 
+import java.util.Arrays;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 
@@ -19,6 +20,10 @@ import java.util.function.Function;
  *
  *  - The suffix: The Iterator will only return thos Kes that ends witht he given suffix.
  *
+ *  - The range: Optionally, the Iterator can be limited to a range of Keys within the preffix, starting from a Key
+ *    (inclusive) and ending before another one (exclusive). This is useful to split a big set of Keys into several
+ *    segments, so they can be processed in parallel.
+ *
  *  - The Item-BuilderFunction: For each Key, the Iterator will validate it agains the parameters (the preffix and
  *    suffix) above, and if valid, it will return a new "Item", which can be retrieved from the Client-side by calling
  *    the "next()" method. This "item" might be the Key itself, or the Value, or any other value. In order to make this
@@ -46,6 +51,8 @@ public abstract class KeyValueIteratorImpl<I,T,E> implements KeyValueIterator<I,
     // Keys Range definition:
     protected byte[] keyPreffix;
     protected byte[] keySuffix;
+    protected byte[] keyFrom;
+    protected byte[] keyTo;
 
     // Function to verify if each Key is Valid (apart form the Preffix & suffix Verification)
     protected BiPredicate<T, byte[]> keyVerifier;
@@ -87,14 +94,41 @@ public abstract class KeyValueIteratorImpl<I,T,E> implements KeyValueIterator<I,
                                 byte[] endingWith,
                                 BiPredicate<T, byte[]> keyIsValidWhen,
                                 Function<E, I> buildItemBy) {
+        this(startingWith, null, null, endingWith, keyIsValidWhen, buildItemBy);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param startingWith      Preffix: The Keys processed will need to start with it.
+     * @param fromKey           If specified, the Keys processed will need to be equal or greater than this one.
+     * @param toKey             If specified, the Keys processed will need to be lower than this one.
+     * @param endingWith        Suffix: The keys processed will beed to end with it.
+     * @param keyIsValidWhen    Verification Function that is applied over each Key, only valid keys will be processed
+     * @param buildItemBy       Function that is invoked to build each Item that will be returned by the "next()" method.
+     */
+    public KeyValueIteratorImpl(byte[] startingWith,
+                                byte[] fromKey,
+                                byte[] toKey,
+                                byte[] endingWith,
+                                BiPredicate<T, byte[]> keyIsValidWhen,
+                                Function<E, I> buildItemBy) {
         this.keyPreffix = (startingWith != null)? startingWith : new byte[0];
+        this.keyFrom = fromKey;
+        this.keyTo = toKey;
         this.keySuffix = endingWith;
         this.keyVerifier = keyIsValidWhen;
         this.itemFunction = buildItemBy;
     }
 
+    /** Returns the Key the DB-specific iterator must start from: the beginning of the range, or the Preffix */
+    protected byte[] firstKey() {
+        return (keyFrom != null && Arrays.compareUnsigned(keyFrom, keyPreffix) > 0) ? keyFrom : keyPreffix;
+    }
+
     /** Indicates if a Key starts with the preffix given */
     private boolean keyStartsWith(byte[] key, byte[] preffix) {
+        if (key.length < preffix.length) return false;
         for (int i = 0; i < preffix.length; i++)
             if (preffix[i] != key[i]) return false;
         return true;
@@ -102,6 +136,7 @@ public abstract class KeyValueIteratorImpl<I,T,E> implements KeyValueIterator<I,
 
     /** Indicates if a Key ends with the suffix given */
     private boolean keyEndsWith(byte[] key, byte[] suffix) {
+        if (key.length < suffix.length) return false;
         for (int i = 1; i <= suffix.length; i++)
             if (suffix[suffix.length -i ] != key[key.length -i]) return false;
         return true;
@@ -118,6 +153,12 @@ public abstract class KeyValueIteratorImpl<I,T,E> implements KeyValueIterator<I,
         return (key != null) && (keyPreffix == null || keyStartsWith(key, keyPreffix));
     }
 
+    // Indicates if the Key is Valid considering the end of the Range configured (the Keys are sorted, so once we reach
+    // the end of the Range there are no more valid Keys)
+    private boolean isKeyRangeValid(byte[] key) {
+        return (key != null) && (keyTo == null || Arrays.compareUnsigned(key, keyTo) < 0);
+    }
+
     // Indicates if the Key is Valid considering the Suffix configured
     private boolean isKeySuffixValid(byte[] key) {
         return (key != null) && (keySuffix == null || keyEndsWith(key, keySuffix));
@@ -130,7 +171,7 @@ public abstract class KeyValueIteratorImpl<I,T,E> implements KeyValueIterator<I,
 
     // Indicates if the Key is Valid considering this Iterator Configuration
     private boolean isKeyValid(byte[] key) {
-        boolean result = isKeyPreffixValid(key) && isKeySuffixValid(key) && isKeyVerifierValid(key);
+        boolean result = isKeyPreffixValid(key) && isKeyRangeValid(key) && isKeySuffixValid(key) && isKeyVerifierValid(key);
         return result;
     }
 
@@ -144,6 +185,8 @@ public abstract class KeyValueIteratorImpl<I,T,E> implements KeyValueIterator<I,
             if (nextKey == null) break;
             // If the Key does not meet the Preffix, we stop looking...
             if (!isKeyPreffixValid(nextKey)) break;
+            // If the Key is beyond the Range, we stop looking...
+            if (!isKeyRangeValid(nextKey)) break;
 
             // If the fullKey is Valid, we stop looking:
             if (isKeyValid(nextKey)) break;
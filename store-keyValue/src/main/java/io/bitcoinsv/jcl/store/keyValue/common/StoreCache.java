@@ -0,0 +1,78 @@
+package io.bitcoinsv.jcl.store.keyValue.common;
+
+
+import io.bitcoinsv.jcl.store.blockChainStore.BlockChainStoreCacheState;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Cache of Objects already deserialized from the DB, bounded by a max number of Items. When it's full, the Least
+ * Recently Used Item is evicted. It also keeps track of the number of hits and misses.
+ *
+ * The Cache does not know anything about the DB, so it's up to the Store to invalidate the Items when the values
+ * they are cached from are changed or removed. A Cache with a max size of zero is disabled.
+ *
+ * This class is Thread-safe.
+ */
+public class StoreCache<K, V> {
+
+    private final int maxSize;
+    private final Map<K, V> items;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** Constructor */
+    public StoreCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.items = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > StoreCache.this.maxSize;
+            }
+        };
+    }
+
+    public boolean isEnabled() { return maxSize > 0; }
+
+    /** It returns the Item linked to the Key, or null if it's not in the Cache */
+    public V get(K key) {
+        if (!isEnabled()) return null;
+        V result;
+        synchronized (items) {
+            result = items.get(key);
+        }
+        if (result != null) hits.increment(); else misses.increment();
+        return result;
+    }
+
+    public void put(K key, V value) {
+        if (!isEnabled() || value == null) return;
+        synchronized (items) {
+            items.put(key, value);
+        }
+    }
+
+    public void invalidate(K key) {
+        if (!isEnabled()) return;
+        synchronized (items) {
+            items.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (items) {
+            items.clear();
+        }
+    }
+
+    public BlockChainStoreCacheState getState() {
+        synchronized (items) {
+            return new BlockChainStoreCacheState(hits.sum(), misses.sum(), items.size());
+        }
+    }
+}
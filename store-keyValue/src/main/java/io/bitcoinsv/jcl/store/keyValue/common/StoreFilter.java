@@ -0,0 +1,191 @@
+package io.bitcoinsv.jcl.store.keyValue.common;
+
+
+import com.google.common.hash.Hashing;
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreFilterState;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Scalable Bloom Filter of the Hashes of the Items stored in the DB. If the Filter says an Item is NOT in it, then
+ * it's NOT in the DB either, so the Store can skip reading it. If it says it might be, the DB must be read.
+ *
+ * The Filter is made of several Bloom Filters (stages): when the current one is full a new one is added, twice as
+ * big and with half the false-positive rate, so the compound false-positive rate never goes above the one given.
+ *
+ * Items can not be removed from a Bloom Filter, so removing an Item only increases the number of false positives
+ * until the Filter is loaded again. This also means that the Items added within a Transaction that is rolled back
+ * are kept. In both cases the Filter still never gives a false negative, which is what makes it safe to use.
+ *
+ * The Filter is not "loaded" until all the Items in the DB have been added to it (see {@link #loaded()}). Until then,
+ * every Item might be in it. A Filter with zero expected Items is disabled.
+ *
+ * Each stage is a bitset kept in an AtomicLongArray, whose bits are set with compare-and-set, so adding Items and
+ * looking them up are lock-free and can run concurrently. Only adding a new stage (when the current one is full) and
+ * clearing the Filter are synchronized.
+ *
+ * The Filter only knows about the Items added by this process, so it's only safe to use when no other process
+ * writes into the same DB (see the Filter configuration of each Store).
+ */
+public class StoreFilter {
+
+    private final long expectedItems;
+    private final double falsePositiveRate;
+
+    /** A Bloom Filter sized for a number of Items and a false-positive rate */
+    private static class Stage {
+        private final long capacity;
+        private final double rate;
+        private final AtomicLongArray bits;
+        private final long numBits;
+        private final int numHashFunctions;
+        private final AtomicLong items = new AtomicLong();
+
+        Stage(long capacity, double rate) {
+            this.capacity = capacity;
+            this.rate = rate;
+            // Same formulas the Guava Bloom Filter uses to calculate its number of bits and hash functions:
+            long optimalBits = Math.max(64, (long) (-capacity * Math.log(rate) / (Math.log(2) * Math.log(2))));
+            this.bits = new AtomicLongArray(Math.toIntExact((optimalBits + 63) / 64));
+            this.numBits = bits.length() * 64L;
+            this.numHashFunctions = Math.max(1, (int) Math.round((double) optimalBits / capacity * Math.log(2)));
+        }
+
+        /** It reserves room for one more Item, returns FALSE if the Stage is full */
+        boolean reserve() { return items.incrementAndGet() <= capacity; }
+
+        void put(long hash1, long hash2) {
+            long combinedHash = hash1;
+            for (int i = 0; i < numHashFunctions; i++) {
+                long bitIndex = (combinedHash & Long.MAX_VALUE) % numBits;
+                int longIndex = (int) (bitIndex >>> 6);
+                long mask = 1L << bitIndex;
+                long current;
+                do {
+                    current = bits.get(longIndex);
+                    if ((current & mask) != 0) break;
+                } while (!bits.compareAndSet(longIndex, current, current | mask));
+                combinedHash += hash2;
+            }
+        }
+
+        boolean mightContain(long hash1, long hash2) {
+            long combinedHash = hash1;
+            for (int i = 0; i < numHashFunctions; i++) {
+                long bitIndex = (combinedHash & Long.MAX_VALUE) % numBits;
+                if ((bits.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) return false;
+                combinedHash += hash2;
+            }
+            return true;
+        }
+
+        long memoryBytes() { return numBits / 8; }
+    }
+
+    // The stages are added to the list before they become the current one, so an Item is never in a stage the
+    // lookups do not check:
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+    private volatile Stage currentStage;
+    private volatile long memoryBytes;
+    private volatile boolean loaded;
+
+    private final LongAdder items = new LongAdder();
+    private final LongAdder removedItems = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /** Constructor */
+    public StoreFilter(long expectedItems, double falsePositiveRate) {
+        this.expectedItems = expectedItems;
+        this.falsePositiveRate = falsePositiveRate;
+        clear();
+    }
+
+    public boolean isEnabled()  { return expectedItems > 0; }
+    public boolean isLoaded()   { return loaded; }
+
+    /** It removes all the Items. The Filter is not loaded until {@link #loaded()} is called */
+    public synchronized void clear() {
+        loaded = false;
+        stages.clear();
+        currentStage = null;
+        memoryBytes = 0;
+        items.reset();
+        removedItems.reset();
+    }
+
+    /** It marks the Filter as loaded: all the Items in the DB have been added to it */
+    public void loaded() {
+        if (isEnabled()) loaded = true;
+    }
+
+    public void add(String hash) {
+        if (!isEnabled()) return;
+        long[] hashes = hash(hash);
+        Stage stage = currentStage;
+        while (stage == null || !stage.reserve()) stage = addStage(stage);
+        stage.put(hashes[0], hashes[1]);
+        items.increment();
+    }
+
+    /** The Item can not be removed, but it's counted, so we know when its worth loading the Filter again */
+    public void remove(String hash) {
+        if (!isEnabled()) return;
+        removedItems.increment();
+    }
+
+    /** It returns FALSE if the Item is definitely NOT in the DB */
+    public boolean mightContain(String hash) {
+        if (!loaded) return true;
+        long[] hashes = hash(hash);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hashes[0], hashes[1])) {
+                positives.increment();
+                return true;
+            }
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /** It records a lookup the Filter said the Item might be in the DB, but it was not */
+    public void falsePositive() {
+        if (loaded) falsePositives.increment();
+    }
+
+    // The two 64-bit halves of the Murmur3 Hash of the Item, used to calculate the bits of each hash function:
+    private static long[] hash(String hash) {
+        ByteBuffer bytes = ByteBuffer.wrap(Hashing.murmur3_128().hashString(hash, StandardCharsets.UTF_8).asBytes())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        return new long[] { bytes.getLong(0), bytes.getLong(8) };
+    }
+
+    // It adds a new stage after the full one given, unless another Thread has already done it. Returns the current one:
+    private synchronized Stage addStage(Stage fullStage) {
+        if (currentStage != fullStage) return currentStage;
+        // The first stage takes half the false-positive rate, the next one (twice as big) a quarter, and so on:
+        Stage stage = (fullStage == null)
+                ? new Stage(expectedItems, falsePositiveRate / 2)
+                : new Stage(fullStage.capacity * 2, fullStage.rate / 2);
+        stages.add(stage);
+        memoryBytes += stage.memoryBytes();
+        currentStage = stage;
+        return stage;
+    }
+
+    public BlockStoreFilterState getState() {
+        return new BlockStoreFilterState(items.sum(), removedItems.sum(), negatives.sum(), positives.sum(),
+                falsePositives.sum(), memoryBytes, loaded);
+    }
+}
@@ -0,0 +1,111 @@
+package io.bitcoinsv.jcl.store.keyValue.common;
+
+
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreLockState;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Lock Domain: a set of Read/Write Locks (stripes), each one of them protecting the Items which Hashes are mapped
+ * to it. Items in different stripes can be changed concurrently. A Domain with only one stripe is a plain
+ * Read/Write Lock.
+ *
+ * The Items are mapped to a stripe by the first bytes of their Hash. Hashes are usually shown reversed (as in the
+ * Blocks, which start with zeros), so those bytes are the LAST ones of the String representation.
+ *
+ * When several stripes are needed at once, they are always acquired in the same (ascending) order, so two Threads
+ * never wait for each other. The Domain also records the time Threads spend waiting for its Locks.
+ */
+public class StoreLock {
+
+    private final ReentrantReadWriteLock[] stripes;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /** Constructor */
+    public StoreLock(int numStripes) {
+        this.stripes = new ReentrantReadWriteLock[Math.max(1, numStripes)];
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new ReentrantReadWriteLock();
+    }
+
+    public int getNumStripes()                      { return stripes.length; }
+    public ReentrantReadWriteLock getStripe(int i)  { return stripes[i]; }
+
+    /** It returns the stripe the Hash given is mapped to */
+    public int stripeFor(String hash) {
+        if (stripes.length == 1) return 0;
+        int value = 0;
+        int numChars = Math.min(8, hash.length());
+        for (int i = hash.length() - numChars; i < hash.length(); i++) {
+            int digit = Character.digit(hash.charAt(i), 16);
+            if (digit < 0) return Math.floorMod(hash.hashCode(), stripes.length);
+            value = (value << 4) | digit;
+        }
+        return Math.floorMod(value, stripes.length);
+    }
+
+    /** It acquires the whole Domain. Only meant for Domains with one stripe */
+    public void acquire(boolean write, List<Lock> locksHeld) {
+        lock(write ? stripes[0].writeLock() : stripes[0].readLock(), locksHeld);
+    }
+
+    /** It acquires the stripes of the Hashes given, in ascending order, and adds them to the Locks held */
+    public void acquire(boolean write, Collection<String> hashes, List<Lock> locksHeld) {
+        TreeSet<Integer> stripesToLock = new TreeSet<>();
+        for (String hash : hashes) stripesToLock.add(stripeFor(hash));
+        for (int stripe : stripesToLock)
+            lock(write ? stripes[stripe].writeLock() : stripes[stripe].readLock(), locksHeld);
+    }
+
+    private void lock(Lock lock, List<Lock> locksHeld) {
+        acquisitions.increment();
+        if (!tryLock(lock)) {
+            long start = System.nanoTime();
+            lock.lock();
+            long waited = System.nanoTime() - start;
+            waits.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+        locksHeld.add(lock);
+    }
+
+    // Unlike "tryLock()", this one does not get ahead of the Threads already waiting:
+    private boolean tryLock(Lock lock) {
+        try {
+            return lock.tryLock(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Indicates if the current Thread holds any of the stripes of this Domain (for reading or writing) */
+    public boolean isHeldByCurrentThread() {
+        for (ReentrantReadWriteLock stripe : stripes)
+            if (stripe.isWriteLockedByCurrentThread() || stripe.getReadHoldCount() > 0) return true;
+        return false;
+    }
+
+    /** Indicates if the current Thread holds this Domain for writing. Only meant for Domains with one stripe */
+    public boolean isWriteLockedByCurrentThread() {
+        return stripes[0].isWriteLockedByCurrentThread();
+    }
+
+    public BlockStoreLockState getState() {
+        return new BlockStoreLockState(stripes.length, acquisitions.sum(), waits.sum(), waitNanos.sum(), maxWaitNanos.get());
+    }
+}
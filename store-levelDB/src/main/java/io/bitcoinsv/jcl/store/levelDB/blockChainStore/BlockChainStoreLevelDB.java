@@ -5,9 +5,11 @@ import io.bitcoinsv.jcl.store.blockChainStore.events.BlockChainStoreStreamer;
 import io.bitcoinsv.jcl.store.blockChainStore.validation.exception.BlockChainRuleFailureException;
 import io.bitcoinsv.jcl.store.blockChainStore.validation.rules.BlockChainRule;
 import io.bitcoinsv.jcl.store.blockStore.metadata.Metadata;
+import io.bitcoinsv.jcl.store.keyValue.blockChainStore.BlockChainStoreCache;
 import io.bitcoinsv.jcl.store.keyValue.blockChainStore.BlockChainStoreKeyValue;
+import io.bitcoinsv.jcl.store.keyValue.common.BinaryKeys;
 import io.bitcoinsv.jcl.store.levelDB.blockStore.BlockStoreLevelDB;
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
+import io.bitcoinsv.jcl.store.levelDB.common.LevelDBTransaction;
 import io.bitcoinsv.bitcoinjsv.bitcoin.api.extended.ChainInfo;
 import org.slf4j.Logger;
 
@@ -27,7 +29,7 @@ import java.util.concurrent.TimeUnit;
  * connection to the LevelDB.
 
  */
-public class BlockChainStoreLevelDB extends BlockStoreLevelDB implements BlockChainStoreKeyValue<Map.Entry<byte[], byte[]>, Object> {
+public class BlockChainStoreLevelDB extends BlockStoreLevelDB implements BlockChainStoreKeyValue<Map.Entry<byte[], byte[]>, LevelDBTransaction> {
 
     private static final Logger log = org.slf4j.LoggerFactory.getLogger(BlockChainStoreLevelDB.class);
     // Configuration:
@@ -49,6 +51,9 @@ public class BlockChainStoreLevelDB extends BlockStoreLevelDB implements BlockCh
     // Events Streamer:
     private final BlockChainStoreStreamer blockChainStoreStreamer;
 
+    // Caches of Headers, BlockChainInfo, ChainPathInfo and Tips:
+    private final BlockChainStoreCache cache;
+
     public BlockChainStoreLevelDB(@Nonnull BlockChainStoreLevelDBConfig config,
                                   boolean triggerBlockEvents,
                                   boolean triggerTxEvents,
@@ -72,23 +77,25 @@ public class BlockChainStoreLevelDB extends BlockStoreLevelDB implements BlockCh
         // We set up the executor Service in case we need to launch processes in a different Thread, which is the case
         // when we publish state, do automatic Fork prunning or automatic orphan prunning
         if (this.statePublishFrequency != null || this.enableAutomaticForkPrunning || this.enableAutomaticOrphanPrunning) {
-            this.scheduledExecutorService = ThreadUtils.getScheduledExecutorService("BlockChainStore-LevelDB-thread");
+            this.scheduledExecutorService = config.getRuntimeConfig().getExecutionModel().getScheduledLane("BlockChainStore-LevelDB-thread");
         }
 
         blockChainStoreStreamer = new BlockChainStoreStreamer(super.eventBus);
+        this.cache = new BlockChainStoreCache(config.getCacheMaxSize());
     }
 
 
 
-    @Override public byte[] fullKeyForBlockNext(String blockHash)       { return fullKey(this.fullKeyForBlocks(), keyForBlockNext(blockHash));}
-    @Override public byte[] fullKeyForBlockChainInfo(String blockHash)  { return fullKey(this.fullKeyForBlocks(), keyForBlockChainInfo(blockHash));}
-    @Override public byte[] fullKeyForChainTips()                       { return fullKey(this.fullKeyForBlocks(), keyForChainTips());}
-    @Override public byte[] fullKeyForChainPathsLast()                  { return fullKey(this.fullKeyForBlocks(), keyForChainPathsLast());}
-    @Override public byte[] fullKeyForChainPath(int branchId)           { return fullKey(this.fullKeyForBlocks(), keyForChainPath(branchId));}
-    @Override public byte[] fullKeyForBlockHashesByHeight(int height)     {return fullKey(this.fullKeyForBlocks(), keyForBlocksByHeight(height));}
+    @Override public byte[] fullKeyForBlockNext(String blockHash)       { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK_NEXT, blockHash) : fullKey(this.fullKeyForBlocks(), keyForBlockNext(blockHash));}
+    @Override public byte[] fullKeyForBlockChainInfo(String blockHash)  { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK_CHAIN, blockHash) : fullKey(this.fullKeyForBlocks(), keyForBlockChainInfo(blockHash));}
+    @Override public byte[] fullKeyForChainTips()                       { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_CHAIN_TIPS) : fullKey(this.fullKeyForBlocks(), keyForChainTips());}
+    @Override public byte[] fullKeyForChainPathsLast()                  { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_PATHS_LAST) : fullKey(this.fullKeyForBlocks(), keyForChainPathsLast());}
+    @Override public byte[] fullKeyForChainPath(int branchId)           { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_PATH, branchId) : fullKey(this.fullKeyForBlocks(), keyForChainPath(branchId));}
+    @Override public byte[] fullKeyForBlockHashesByHeight(int height)   { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK_HEIGHT, height) : fullKey(this.fullKeyForBlocks(), keyForBlocksByHeight(height));}
 
 
     @Override public BlockChainStoreStreamer EVENTS()                   { return blockChainStoreStreamer;}
+    @Override public BlockChainStoreCache getCache()                    { return cache;}
 
     @Override
     public void validateBlockChainInfo(ChainInfo block) throws BlockChainRuleFailureException {
@@ -102,10 +109,11 @@ public class BlockChainStoreLevelDB extends BlockStoreLevelDB implements BlockCh
     @Override
     public void start() {
         super.start();
+        cache.invalidateAll();
 
         // If the DB is empty, we initialize it with the Genesis block:
         if (getNumBlocks() == 0) {
-            Object tr = createTransaction();
+            LevelDBTransaction tr = createTransaction();
             executeInTransaction(tr, () -> _initGenesisBlock(tr, config.getGenesisBlock()));
         }
 
@@ -147,8 +155,9 @@ public class BlockChainStoreLevelDB extends BlockStoreLevelDB implements BlockCh
     public void clear() {
         // We clear the DB the usual way:
         super.clear();
+        cache.invalidateAll();
         // and we restore the Genesis block:
-        Object tr = createTransaction();
+        LevelDBTransaction tr = createTransaction();
         executeInTransaction(tr, () -> _initGenesisBlock(tr, config.getGenesisBlock()));
     }
 
@@ -4,6 +4,7 @@ package io.bitcoinsv.jcl.store.levelDB.blockChainStore;
 import io.bitcoinsv.jcl.store.blockChainStore.validation.BlockChainStoreRuleConfig;
 import io.bitcoinsv.jcl.store.blockChainStore.validation.rules.BlockChainRule;
 import io.bitcoinsv.jcl.store.keyValue.blockChainStore.BlockChainStoreKeyValueConfig;
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema;
 import io.bitcoinsv.jcl.store.levelDB.blockStore.BlockStoreLevelDBConfig;
 import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
 
@@ -28,24 +29,34 @@ public class BlockChainStoreLevelDBConfig extends BlockStoreLevelDBConfig implem
     private static int DEFAULT_FORK_HEIGH_DIFF = 2;
     // Default: The Age of an Orphan Block to be eligible for prunning
     private static Duration DEFAULT_ORPHAN_AGE = Duration.ofMinutes(30);
+    // Default: Max number of Items in each Cache
+    private static int DEFAULT_CACHE_MAX_SIZE = 10_000;
 
     private HeaderReadOnly genesisBlock;
     private int         forkPrunningHeightDifference = DEFAULT_FORK_HEIGH_DIFF;
     private boolean     forkPrunningIncludeTxs;
     private Duration    orphanPrunningBlockAge = DEFAULT_ORPHAN_AGE;
     private BlockChainStoreRuleConfig ruleConfig = new BlockChainStoreRuleConfig(Collections.emptyList());
+    private int         cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
 
     public BlockChainStoreLevelDBConfig(String id,
                                         Path workingFolder,
                                         RuntimeConfig runtimeConfig,
                                         Integer transactionSize,
                                         String networkId,
+                                        KeySchema keySchema,
+                                        Long writeBatchMaxBytes,
+                                        Long filterExpectedItems,
+                                        Double filterFalsePositiveRate,
+                                        Integer blockTxsParallelism,
+                                        Integer lockStripes,
                                         HeaderReadOnly genesisBlock,
                                         Integer forkPrunningHeightDifference,
                                         boolean forkPrunningIncludeTxs,
                                         Duration orphanPrunningBlockAge,
-                                        BlockChainStoreRuleConfig ruleConfig) {
-        super(id, workingFolder, runtimeConfig, transactionSize, networkId);
+                                        BlockChainStoreRuleConfig ruleConfig,
+                                        Integer cacheMaxSize) {
+        super(id, workingFolder, runtimeConfig, transactionSize, networkId, keySchema, writeBatchMaxBytes, filterExpectedItems, filterFalsePositiveRate, blockTxsParallelism, lockStripes);
         this.genesisBlock = genesisBlock;
         if (forkPrunningHeightDifference != null) this.forkPrunningHeightDifference = forkPrunningHeightDifference;
         this.forkPrunningIncludeTxs = forkPrunningIncludeTxs;
@@ -56,6 +67,7 @@ public class BlockChainStoreLevelDBConfig extends BlockStoreLevelDBConfig implem
         }
 
         if (ruleConfig != null) this.ruleConfig = ruleConfig;
+        if (cacheMaxSize != null) this.cacheMaxSize = cacheMaxSize;
     }
 
     public HeaderReadOnly getGenesisBlock()         { return this.genesisBlock; }
@@ -63,6 +75,7 @@ public class BlockChainStoreLevelDBConfig extends BlockStoreLevelDBConfig implem
     public boolean isForkPrunningIncludeTxs()       { return this.forkPrunningIncludeTxs; }
     public Duration getOrphanPrunningBlockAge()     { return this.orphanPrunningBlockAge; }
     public List<BlockChainRule> getBlockChainRules() {return this.ruleConfig.getRuleList(); }
+    public int getCacheMaxSize()                    { return this.cacheMaxSize; }
 
     public static BlockChainStoreLevelDBConfigBuilder chainBuild() {
         return new BlockChainStoreLevelDBConfigBuilder();
@@ -77,11 +90,18 @@ public class BlockChainStoreLevelDBConfig extends BlockStoreLevelDBConfig implem
         private RuntimeConfig runtimeConfig;
         private Integer transactionSize;
         private String networkId;
+        private KeySchema keySchema;
+        private Long writeBatchMaxBytes;
+        private Long filterExpectedItems;
+        private Double filterFalsePositiveRate;
+        private Integer blockTxsParallelism;
+        private Integer lockStripes;
         private HeaderReadOnly genesisBlock;
         private Integer forkPrunningHeightDifference;
         private boolean forkPrunningIncludeTxs;
         private Duration orphanPrunningBlockAge;
         private BlockChainStoreRuleConfig ruleConfig;
+        private Integer cacheMaxSize;
 
         BlockChainStoreLevelDBConfigBuilder() {
         }
@@ -111,6 +131,36 @@ public class BlockChainStoreLevelDBConfig extends BlockStoreLevelDBConfig implem
             return this;
         }
 
+        public BlockChainStoreLevelDBConfig.BlockChainStoreLevelDBConfigBuilder keySchema(KeySchema keySchema) {
+            this.keySchema = keySchema;
+            return this;
+        }
+
+        public BlockChainStoreLevelDBConfig.BlockChainStoreLevelDBConfigBuilder writeBatchMaxBytes(Long writeBatchMaxBytes) {
+            this.writeBatchMaxBytes = writeBatchMaxBytes;
+            return this;
+        }
+
+        public BlockChainStoreLevelDBConfig.BlockChainStoreLevelDBConfigBuilder filterExpectedItems(Long filterExpectedItems) {
+            this.filterExpectedItems = filterExpectedItems;
+            return this;
+        }
+
+        public BlockChainStoreLevelDBConfig.BlockChainStoreLevelDBConfigBuilder filterFalsePositiveRate(Double filterFalsePositiveRate) {
+            this.filterFalsePositiveRate = filterFalsePositiveRate;
+            return this;
+        }
+
+        public BlockChainStoreLevelDBConfig.BlockChainStoreLevelDBConfigBuilder blockTxsParallelism(Integer blockTxsParallelism) {
+            this.blockTxsParallelism = blockTxsParallelism;
+            return this;
+        }
+
+        public BlockChainStoreLevelDBConfig.BlockChainStoreLevelDBConfigBuilder lockStripes(Integer lockStripes) {
+            this.lockStripes = lockStripes;
+            return this;
+        }
+
         public BlockChainStoreLevelDBConfig.BlockChainStoreLevelDBConfigBuilder genesisBlock(HeaderReadOnly genesisBlock) {
             this.genesisBlock = genesisBlock;
             return this;
@@ -136,8 +186,13 @@ public class BlockChainStoreLevelDBConfig extends BlockStoreLevelDBConfig implem
             return this;
         }
 
+        public BlockChainStoreLevelDBConfig.BlockChainStoreLevelDBConfigBuilder cacheMaxSize(Integer cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+            return this;
+        }
+
         public BlockChainStoreLevelDBConfig build() {
-            return new BlockChainStoreLevelDBConfig(id, workingFolder, runtimeConfig, transactionSize, networkId, genesisBlock, forkPrunningHeightDifference, forkPrunningIncludeTxs, orphanPrunningBlockAge, ruleConfig);
+            return new BlockChainStoreLevelDBConfig(id, workingFolder, runtimeConfig, transactionSize, networkId, keySchema, writeBatchMaxBytes, filterExpectedItems, filterFalsePositiveRate, blockTxsParallelism, lockStripes, genesisBlock, forkPrunningHeightDifference, forkPrunningIncludeTxs, orphanPrunningBlockAge, ruleConfig, cacheMaxSize);
         }
     }
 }
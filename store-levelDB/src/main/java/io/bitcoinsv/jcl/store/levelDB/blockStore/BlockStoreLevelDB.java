@@ -4,12 +4,19 @@ package io.bitcoinsv.jcl.store.levelDB.blockStore;
 import io.bitcoinsv.bitcoinjsv.core.Sha256Hash;
 import io.bitcoinsv.jcl.store.blockStore.events.BlockStoreStreamer;
 import io.bitcoinsv.jcl.store.blockStore.metadata.Metadata;
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreBulkIngest;
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreFilter;
 import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreKeyValue;
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreLocks;
+import io.bitcoinsv.jcl.store.keyValue.common.BinaryKeys;
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema;
 import io.bitcoinsv.jcl.store.keyValue.common.KeyValueIterator;
 import io.bitcoinsv.jcl.store.levelDB.common.LevelDBIterator;
+import io.bitcoinsv.jcl.store.levelDB.common.LevelDBTransaction;
 import io.bitcoinsv.jcl.tools.events.EventBus;
 import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
 import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx;
+import io.bitcoinsv.bitcoinjsv.core.Utils;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
@@ -17,15 +24,15 @@ import org.slf4j.Logger;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 
@@ -40,16 +47,28 @@ import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
  * imnplementation-specific details are defined here.
  * <p>
  * - In LevelDB, each Database Entrie returned by a LevelDB iterator is a Map.Entry<byte[],byte[]>
- * - LevelDB does NOT support Transactions, so we use "Object" as the Transaction type, and all the methods that
- * are supposed to create/commit/rollback transactions do nothing.
+ * - LevelDB does NOT support Transactions, but it supports atomic WriteBatches, so the Transaction type is a
+ * {@link LevelDBTransaction}: the changes are written in one single Batch when it's committed. The Transaction is
+ * linked to the Thread that creates it, and any Transaction created in the same Thread before it's committed (some
+ * methods call others that also create Transactions) joins it. The changes made with no Transaction (null) are also
+ * added to the current Transaction of the Thread if there is one, or written directly to the DB otherwise.
+ * - The Keys follow the layout given by the {@link KeySchema}: New DBs use the one in the configuration (BINARY by
+ * default), but an existing DB keeps the layout it was created with. DBs created before the BINARY layout existed
+ * (no Schema info stored) use the STRING one, and can be converted with {@link LevelDBKeySchemaMigration}.
  */
-public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], byte[]>, Object> {
+public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], byte[]>, LevelDBTransaction> {
 
 
     // A separator for full keys, made from composing smaller sub-keys:
     public static final String KEY_SEPARATOR = "\\";
     private static final Logger log = org.slf4j.LoggerFactory.getLogger(BlockStoreLevelDB.class);
 
+    // Max number of attempts when reading a Key (see "read()"):
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    // Min number of Keys to read in "readAll()" so they are split and read in parallel:
+    private static final int MIN_KEYS_PARALLEL_READ = 1_000;
+
     // Events Configuration:
     protected final EventBus eventBus;
     private final ExecutorService executorService;
@@ -58,8 +77,8 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
     // LevelDB instance:
     protected DB levelDBStore;
 
-    // A lock (used by some methods, to ensure Thread-safety):
-    private ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Locks (used by some methods, to ensure Thread-safety):
+    private final BlockStoreLocks locks;
 
     // Configuration
     private BlockStoreLevelDBConfig config;
@@ -69,12 +88,31 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
     // Executor to trigger Async Methods:
     private ExecutorService executor;
 
+    // Executor to process the Txs of a Block in parallel segments:
+    private ExecutorService parallelExecutor;
+
+    // Executor to read several ranges of Keys in parallel (see "readAll()"):
+    private final ExecutorService readExecutor;
+    private final int numReadThreads;
+
     // MetadataClass linked to Blocks;
     private Class<? extends Metadata> blockMetadataClass;
 
     // Metadata Class linked to Txs;
     private Class<? extends Metadata> txMetadataClass;
 
+    // Layout of the Keys used in this DB:
+    private KeySchema keySchema;
+
+    // Current Transaction of each Thread:
+    private final ThreadLocal<LevelDBTransaction> currentTransaction = new ThreadLocal<>();
+
+    // Filters of the Txs and Blocks stored:
+    private final BlockStoreFilter filter;
+
+    // State of the Bulk Ingest:
+    private final BlockStoreBulkIngest bulkIngest = new BlockStoreBulkIngest();
+
     public BlockStoreLevelDB(@Nonnull BlockStoreLevelDBConfig config,
                              boolean triggerBlockEvents,
                              boolean triggerTxEvents,
@@ -86,20 +124,27 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
             this.triggerTxEvents = triggerTxEvents;
             this.blockMetadataClass = blockMetadataClass;
             this.txMetadataClass = txMetadataClass;
+            this.filter = new BlockStoreFilter(config.getFilterExpectedItems(), config.getFilterFalsePositiveRate());
+            this.locks = new BlockStoreLocks(config.getLockStripes());
 
             // LevelDB engine configuration. We define the Path where the LevelDB Db will be stored:
-            Options options = new Options();
+            openDB();
 
-            Path levelDBPath = config.getWorkingFolder();
-            levelDBStore = factory.open(levelDBPath.toFile(), options);
-
-            // Events Configuration:
+            // Events Configuration: The Store has its own Pool, so the Event Handlers (which might read or save
+            // big Blocks) do not take the Threads of the IO Lane shared with the Net Handlers:
             this.executorService = ThreadUtils.getCachedThreadExecutorService("BlockStore-LevelDB");
             this.eventBus = EventBus.builder().executor(this.executorService).build();
             this.blockStoreStreamer = new BlockStoreStreamer(this.eventBus);
 
             // Executor (to trigger async methods)
             this.executor = Executors.newSingleThreadExecutor();
+
+            // Executor (to process the Txs of a Block in parallel), also taken from the IO Lane:
+            this.parallelExecutor = config.getRuntimeConfig().getExecutionModel().getIOLane("BlockStore-LevelDB-parallel", Math.max(1, config.getBlockTxsParallelism()));
+
+            // Executor (to read Keys in parallel), a View over the IO Lane running one range per CPU core at most:
+            this.numReadThreads = Runtime.getRuntime().availableProcessors();
+            this.readExecutor = config.getRuntimeConfig().getExecutionModel().getIOLane("BlockStore-LevelDB-read", numReadThreads);
         } catch (IOException ioe) {
             log.error(ioe.getMessage());
             throw new RuntimeException(ioe);
@@ -110,6 +155,49 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
         return new BlockStoreLevelDBBuilder();
     }
 
+    // It opens the DB and detects the Key Schema used in it:
+    private void openDB() throws IOException {
+        Options options = new Options();
+        Path levelDBPath = config.getWorkingFolder();
+        levelDBStore = factory.open(levelDBPath.toFile(), options);
+
+        byte[] schemaInfo = levelDBStore.get(BinaryKeys.KEY_SCHEMA);
+        if (schemaInfo != null) {
+            this.keySchema = BinaryKeys.schemaFromInfo(schemaInfo);
+            String dbNetworkId = BinaryKeys.networkFromInfo(schemaInfo);
+            if (!dbNetworkId.equals(config.getNetworkId())) {
+                levelDBStore.close();
+                throw new RuntimeException("The LevelDB in " + levelDBPath + " belongs to the network " + dbNetworkId
+                        + ", not to " + config.getNetworkId());
+            }
+        } else if (isDBEmpty()) {
+            this.keySchema = config.getKeySchema();
+            if (keySchema == KeySchema.BINARY)
+                levelDBStore.put(BinaryKeys.KEY_SCHEMA, BinaryKeys.schemaInfo(keySchema, config.getNetworkId()));
+        } else {
+            // A DB created before the Schema info was stored:
+            this.keySchema = KeySchema.STRING;
+            if (config.getKeySchema() != KeySchema.STRING)
+                log.warn("LevelDB in " + levelDBPath + " uses the STRING Key Schema. Run the LevelDBKeySchemaMigration to convert it to " + config.getKeySchema());
+        }
+
+        // We check the Counters (the Store might have been created before they existed):
+        _initCounters();
+
+        // We load the Filters with the Txs and Blocks already stored:
+        loadFilter();
+    }
+
+    private boolean isDBEmpty() throws IOException {
+        try (DBIterator it = levelDBStore.iterator()) {
+            it.seekToFirst();
+            return !it.hasNext();
+        }
+    }
+
+    public KeySchema getKeySchema()             { return this.keySchema; }
+    protected boolean isBinaryKeys()            { return this.keySchema == KeySchema.BINARY; }
+
     // Convenience method...
     private String castToString(Object obj) {
         if (obj instanceof String) return (String) obj;
@@ -122,9 +210,75 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
         return this.executor;
     }
 
+    @Override
+    public ExecutorService getParallelExecutor() {
+        return this.parallelExecutor;
+    }
+
+    // It returns the Transaction given, or the current one of this Thread (if any) if it's null:
+    private LevelDBTransaction resolve(LevelDBTransaction tr) {
+        return (tr != null) ? tr : currentTransaction.get();
+    }
+
+    @Override
+    public byte[] read(LevelDBTransaction tr, byte[] key) {
+        // The changes made in the Transaction are not in the DB yet:
+        LevelDBTransaction transaction = resolve(tr);
+        if (transaction != null && transaction.isChanged(key)) return transaction.getChange(key);
+
+        // LevelDB reads the tables without locking the current version of the DB, so a compaction running in the
+        // background might remove a table right before it's opened. In that case we read again, since by then the
+        // current version does not contain that table anymore:
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return levelDBStore.get(key);
+            } catch (RuntimeException e) {
+                if (attempt == MAX_READ_ATTEMPTS || !(e.getCause() instanceof FileNotFoundException)) throw e;
+            }
+        }
+    }
+
+    @Override
+    public List<byte[]> readAll(LevelDBTransaction tr, List<byte[]> keys) {
+        LevelDBTransaction transaction = resolve(tr);
+
+        // The Keys are read in order, so the Blocks of the LevelDB tables they are in are read sequentially (and
+        // the ones already in the Cache are reused by the next Keys):
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (i, j) -> Arrays.compareUnsigned(keys.get(i), keys.get(j)));
+
+        byte[][] result = new byte[keys.size()][];
+        if (keys.size() < MIN_KEYS_PARALLEL_READ || numReadThreads == 1) {
+            for (int i : order) result[i] = read(transaction, keys.get(i));
+        } else {
+            // Big lists are split into contiguous ranges of Keys, each one read in a different Thread. The Transaction
+            // is only read here, and its owner Thread is blocked until all the ranges are read (it reads the ranges
+            // not started yet itself, so it never waits for Threads of the IO Lane that might be busy):
+            int rangeSize = (order.length + numReadThreads - 1) / numReadThreads;
+            List<Runnable> ranges = new ArrayList<>();
+            for (int from = 0; from < order.length; from += rangeSize) {
+                int rangeFrom = from;
+                int rangeTo = Math.min(from + rangeSize, order.length);
+                ranges.add(() -> {
+                    for (int i = rangeFrom; i < rangeTo; i++) result[order[i]] = read(transaction, keys.get(order[i]));
+                });
+            }
+            _runInParallel(readExecutor, ranges);
+        }
+        return Arrays.asList(result);
+    }
+
     @Override
     public byte[] fullKey(Object... subKeys) {
         if (subKeys == null) return null;
+        // In the BINARY Schema, the subKeys are just concatenated:
+        if (isBinaryKeys()) {
+            byte[][] parts = new byte[subKeys.length][];
+            for (int i = 0; i < subKeys.length; i++)
+                parts[i] = (subKeys[i] instanceof String) ? ((String) subKeys[i]).getBytes() : (byte[]) subKeys[i];
+            return BinaryKeys.concat(parts);
+        }
         StringBuffer result = new StringBuffer();
         for (int i = 0; i < subKeys.length; i++) {
             if (subKeys[i] != null)
@@ -134,41 +288,134 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
     }
 
 
-    @Override public void   save(Object tr, byte[] key, byte[] value){levelDBStore.put(key, value);}
-    @Override public void   remove(Object tr, byte[] key)                                   { levelDBStore.delete(key); }
-    @Override public byte[] read(Object tr, byte[] key)                                     { return levelDBStore.get(key); }
-    @Override public Object createTransaction()                                             { return null;}
-    @Override public void   commitTransaction(Object tr)                                    {}
-    @Override public void   rollbackTransaction(Object tr)                                  {}
+    @Override
+    public void save(LevelDBTransaction tr, byte[] key, byte[] value) {
+        LevelDBTransaction transaction = resolve(tr);
+        if (transaction != null) transaction.put(key, value);
+        else levelDBStore.put(key, value);
+    }
+
+    @Override
+    public void remove(LevelDBTransaction tr, byte[] key) {
+        LevelDBTransaction transaction = resolve(tr);
+        if (transaction != null) transaction.delete(key);
+        else levelDBStore.delete(key);
+    }
+
+    @Override
+    public LevelDBTransaction createTransaction() {
+        LevelDBTransaction result = currentTransaction.get();
+        if (result != null) {
+            result.join();
+        } else {
+            result = new LevelDBTransaction(levelDBStore, config.getWriteBatchMaxBytes());
+            currentTransaction.set(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void commitTransaction(LevelDBTransaction tr) {
+        // Only the outermost level of the Transaction writes the changes, unless the Batch is full (and an inner
+        // level is committed, so the changes are consistent with the Counters):
+        if (!tr.leave()) {
+            if (tr.isFull()) writeWithCounters(tr, tr::flush);
+            return;
+        }
+        currentTransaction.remove();
+        writeWithCounters(tr, tr::commit);
+    }
+
+    // It writes the changes of the Transaction along with the amounts added to the Counters, in the same Batch:
+    private void writeWithCounters(LevelDBTransaction tr, Runnable write) {
+        if (tr.getCounters().isEmpty()) {
+            write.run();
+            return;
+        }
+        // The amounts added to the Counters are applied to their current values, which can not change until the
+        // Batch is written:
+        try (BlockStoreLocks.Held held = locks.lockCounters()) {
+            for (Map.Entry<ByteBuffer, Long> counter : tr.getCounters().entrySet()) {
+                byte[] key = counter.getKey().array();
+                Long value = toLong(read(tr, key));
+                tr.put(key, bytes(((value != null) ? value : 0) + counter.getValue()));
+            }
+            write.run();
+        }
+    }
+
+    @Override
+    public void rollbackTransaction(LevelDBTransaction tr) {
+        // An inner level can not discard the changes on its own, the Exception will reach the outermost one anyway:
+        if (!tr.leave()) return;
+        currentTransaction.remove();
+        tr.rollback();
+    }
+
+    @Override
+    public long _getCounter(LevelDBTransaction tr, String counterName) {
+        // The amount added within the Transaction is not applied yet:
+        LevelDBTransaction transaction = resolve(tr);
+        Long added = (transaction != null) ? transaction.getCounters().get(ByteBuffer.wrap(fullKeyForCounter(tr, counterName))) : null;
+        return BlockStoreKeyValue.super._getCounter(tr, counterName) + ((added != null) ? added : 0);
+    }
+
+    @Override
+    public void _addToCounter(LevelDBTransaction tr, String counterName, long valueToAdd) {
+        if (valueToAdd == 0) return;
+        LevelDBTransaction transaction = resolve(tr);
+        if (transaction != null) {
+            transaction.addToCounter(fullKeyForCounter(tr, counterName), valueToAdd);
+            return;
+        }
+        try (BlockStoreLocks.Held held = locks.lockCounters()) {
+            BlockStoreKeyValue.super._addToCounter(null, counterName, valueToAdd);
+        }
+    }
 
     @Override public Logger getLogger()                                                     { return log;}
     @Override public byte[] keyFromItem(Map.Entry<byte[], byte[]> item)                     { return item.getKey(); }
-    @Override public byte[] fullKeyForBlocks(Object tr)                                     { return fullKey(DIR_BLOCKCHAIN, config.getNetworkId(), DIR_BLOCKS);}
-    @Override public byte[] fullKeyForBlock(Object tr, String blockHash)                    { return fullKey(fullKeyForBlocks(tr), keyForBlock(blockHash)); }
-    @Override public byte[] fullKeyForBlockNumTxs(Object tr, String blockHash)              { return fullKey(fullKeyForBlocks(tr), keyForBlockNumTxs(blockHash)); }
-    @Override public byte[] fullKeyForBlockTxIndex(Object tr, String blockHash)             { return fullKey(fullKeyForBlocks(), keyForBlockTxIndex(blockHash));}
-
-    @Override public byte[] fullKeyForBlockTx(Object tr, String blockHash, String txHash, long txIndex) {
+    @Override public byte[] valueFromItem(Map.Entry<byte[], byte[]> item)                   { return item.getValue(); }
+    @Override public byte[] fullKeyForBlocks(LevelDBTransaction tr)                                     { return fullKeyForBlocks(); }
+    @Override public byte[] fullKeyForBlock(LevelDBTransaction tr, String blockHash)                    { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK, blockHash) : fullKey(fullKeyForBlocks(tr), keyForBlock(blockHash)); }
+    @Override public byte[] fullKeyForBlockNumTxs(LevelDBTransaction tr, String blockHash)              { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK_NUMTXS, blockHash) : fullKey(fullKeyForBlocks(tr), keyForBlockNumTxs(blockHash)); }
+    @Override public byte[] fullKeyForBlockTxIndex(LevelDBTransaction tr, String blockHash)             { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK_TXINDEX, blockHash) : fullKey(fullKeyForBlocks(), keyForBlockTxIndex(blockHash));}
+
+    @Override public byte[] fullKeyForBlockTx(LevelDBTransaction tr, String blockHash, String txHash, long txIndex) {
+        if (isBinaryKeys()) return BinaryKeys.keyForBlockTx(blockHash, txIndex, txHash);
         return fullKey(fullKeyForBlocks(tr), keyForBlockDir(blockHash), keyForBlockTx(txHash, txIndex));
     }
 
-    @Override public byte[] fullKeyForBlockTx(Object tr, byte[] blockDirFullKey, String txHash, long txIndex) {
+    @Override public byte[] fullKeyForBlockTx(LevelDBTransaction tr, byte[] blockDirFullKey, String txHash, long txIndex) {
+        if (isBinaryKeys()) return BinaryKeys.keyForBlockTx(blockDirFullKey, txIndex, txHash);
         return fullKey(blockDirFullKey, keyForBlockTx(txHash, txIndex));}
 
-    @Override public byte[] fullKeyForBlockDir(Object tr, String blockHash)                 { return fullKey(fullKeyForBlocks(tr), keyForBlockDir(blockHash)); }
-    @Override public byte[] fullKeyForBlocksMetadata(Object tr)                             { return fullKey(fullKeyForBlocks(tr), DIR_METADATA);}
-    @Override public byte[] fullKeyForTxsMetadata(Object tr)                                 { return fullKey(fullKeyForTxs(tr), DIR_METADATA);}
+    @Override public byte[] fullKeyForBlockDir(LevelDBTransaction tr, String blockHash)                 { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK_TX, blockHash) : fullKey(fullKeyForBlocks(tr), keyForBlockDir(blockHash)); }
+    @Override public byte[] fullKeyForBlocksMetadata(LevelDBTransaction tr)                             { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK_META) : fullKey(fullKeyForBlocks(tr), DIR_METADATA);}
+    @Override public byte[] fullKeyForTxsMetadata(LevelDBTransaction tr)                                { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_TX_META) : fullKey(fullKeyForTxs(tr), DIR_METADATA);}
+
+    @Override public byte[] fullKeyForBlockMetadata(LevelDBTransaction tr, String blockHash)            { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK_META, blockHash) : fullKey(fullKeyForBlocksMetadata(tr), keyForBlockMetadata(blockHash));}
+    @Override public byte[] fullKeyForTxMetadata(LevelDBTransaction tr, String txHash)                  { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_TX_META, txHash) : fullKey(fullKeyForTxsMetadata(tr), keyForTxMetadata(txHash));}
+
+    @Override public byte[] fullKeyForTxs(LevelDBTransaction tr)                                        { return fullKeyForTxs(); }
+    @Override public byte[] fullKeyForTx(LevelDBTransaction tr, String txHash)                          { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_TX, txHash) : fullKey(fullKeyForTxs(tr), keyForTx(txHash)); }
+    @Override public byte[] fullKeyForTxBlock(LevelDBTransaction tr, String txHash, String blockHash)   { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_TX_BLOCK, txHash, blockHash) : fullKey(fullKeyForTxs(tr), keyForTxBlock(txHash, blockHash)); }
 
-    @Override public byte[] fullKeyForBlockMetadata(Object tr, String blockHash)            { return fullKey(fullKeyForBlocksMetadata(tr), keyForBlockMetadata(blockHash));}
-    @Override public byte[] fullKeyForTxMetadata(Object tr, String txHash)                  { return fullKey(fullKeyForTxsMetadata(tr), keyForTxMetadata(txHash));}
+    // In the BINARY Schema there are no "directories", the Keys of Blocks and Txs are all in the root:
+    @Override public byte[] fullKeyForBlocks()                                              { return isBinaryKeys() ? new byte[0] : fullKey(DIR_BLOCKCHAIN, config.getNetworkId(), DIR_BLOCKS);}
+    @Override public byte[] fullKeyForTxs()                                                 { return isBinaryKeys() ? new byte[0] : fullKey(DIR_BLOCKCHAIN, config.getNetworkId(), DIR_TXS);}
+    @Override public byte[] fullKeyForOrphanBlockHash(LevelDBTransaction tr, String blockHash)          { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_ORPHAN, blockHash) : fullKey(this.fullKeyForBlocks(), keyForOrphanBlockHash(blockHash));}
+    @Override public byte[] fullKeyForCounter(LevelDBTransaction tr, String counterName)                { return isBinaryKeys() ? BinaryKeys.keyForCounter(counterName) : fullKey(DIR_BLOCKCHAIN, config.getNetworkId(), DIR_COUNTERS, keyForCounter(counterName));}
 
-    @Override public byte[] fullKeyForTxs(Object tr)                                        { return fullKey(DIR_BLOCKCHAIN, config.getNetworkId(), DIR_TXS); }
-    @Override public byte[] fullKeyForTx(Object tr, String txHash)                          { return fullKey(fullKeyForTxs(tr), keyForTx(txHash)); }
-    @Override public byte[] fullKeyForTxBlock(Object tr, String txHash, String blockHash)   { return fullKey(fullKeyForTxs(tr), keyForTxBlock(txHash, blockHash)); }
+    @Override public byte[] fullKeyPreffixForBlocks()                                       { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK) : BlockStoreKeyValue.super.fullKeyPreffixForBlocks(); }
+    @Override public byte[] fullKeyPreffixForTxs()                                          { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_TX) : BlockStoreKeyValue.super.fullKeyPreffixForTxs(); }
+    @Override public byte[] fullKeyPreffixForTxBlocks(String txHash)                        { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_TX_BLOCK, txHash) : BlockStoreKeyValue.super.fullKeyPreffixForTxBlocks(txHash); }
+    @Override public byte[] fullKeyPreffixForBlockTxs(String blockHash)                     { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_BLOCK_TX, blockHash) : BlockStoreKeyValue.super.fullKeyPreffixForBlockTxs(blockHash); }
+    @Override public byte[] fullKeyPreffixForBlockTxs(String blockHash, long txIndex)       { return isBinaryKeys() ? BinaryKeys.keyForBlockTxsFrom(blockHash, txIndex) : BlockStoreKeyValue.super.fullKeyPreffixForBlockTxs(blockHash, txIndex); }
+    @Override public byte[] fullKeyPreffixForOrphanBlocks()                                 { return isBinaryKeys() ? BinaryKeys.key(BinaryKeys.NS_ORPHAN) : BlockStoreKeyValue.super.fullKeyPreffixForOrphanBlocks(); }
 
-    @Override public byte[] fullKeyForBlocks()                                              { return fullKey(DIR_BLOCKCHAIN, config.getNetworkId(), DIR_BLOCKS);}
-    @Override public byte[] fullKeyForTxs()                                                 { return fullKey(DIR_BLOCKCHAIN, config.getNetworkId(), DIR_TXS);}
-    @Override public byte[] fullKeyForOrphanBlockHash(Object tr, String blockHash)          { return fullKey(this.fullKeyForBlocks(), keyForOrphanBlockHash(blockHash));}
+    @Override public Optional<String> extractTxHashFromKey(byte[] key)                      { return isBinaryKeys() ? BinaryKeys.extractTxHash(key) : BlockStoreKeyValue.super.extractTxHashFromKey(key); }
+    @Override public Optional<String> extractBlockHashFromKey(byte[] key)                   { return isBinaryKeys() ? BinaryKeys.extractBlockHash(key) : BlockStoreKeyValue.super.extractBlockHashFromKey(key); }
     @Override public BlockStoreStreamer EVENTS()                                            { return this.blockStoreStreamer; }
 
     @Override public Class<? extends Metadata>  getMetadataClassForBlocks()                 { return this.blockMetadataClass; }
@@ -179,13 +426,27 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
     }
 
     @Override
-    public <T> KeyValueIterator<T, Object> getIterator(byte[] startingWith,
+    public <T> KeyValueIterator<T, LevelDBTransaction> getIterator(byte[] startingWith,
                                                        byte[] endingWith,
-                                                       BiPredicate<Object, byte[]> keyVerifier,
+                                                       BiPredicate<LevelDBTransaction, byte[]> keyVerifier,
                                                        Function<Map.Entry<byte[], byte[]>, T> buildItemBy) {
+        return getIterator(startingWith, null, null, endingWith, keyVerifier, buildItemBy);
+    }
+
+    @Override
+    public <T> KeyValueIterator<T, LevelDBTransaction> getIterator(byte[] startingWith,
+                                                       byte[] fromKey,
+                                                       byte[] toKey,
+                                                       byte[] endingWith,
+                                                       BiPredicate<LevelDBTransaction, byte[]> keyVerifier,
+                                                       Function<Map.Entry<byte[], byte[]>, T> buildItemBy) {
+        // The LevelDB Iterators do not see the changes in the WriteBatch, so the Iterator merges them with the DB:
         return LevelDBIterator.<T>builder()
                 .database(this.levelDBStore)
+                .transaction(currentTransaction.get())
                 .startingWithPreffix(startingWith)
+                .fromKey(fromKey)
+                .toKey(toKey)
                 .endingWithSuffix(endingWith)
                 .keyIsValidWhen((keyVerifier != null) ? k -> keyVerifier.test(null, k) : null)
                 .buildItemBy(buildItemBy)
@@ -193,25 +454,28 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
     }
 
     @Override
-    public <T> KeyValueIterator<T, Object> getIterator(Object tr,
+    public <T> KeyValueIterator<T, LevelDBTransaction> getIterator(LevelDBTransaction tr,
                                                        byte[] startingWith,
                                                        byte[] endingWith,
-                                                       BiPredicate<Object, byte[]> keyVerifier,
+                                                       BiPredicate<LevelDBTransaction, byte[]> keyVerifier,
                                                        Function<Map.Entry<byte[], byte[]>, T> buildItemBy) {
         return getIterator(startingWith, endingWith, keyVerifier, buildItemBy);
     }
 
     @Override
-    public List<Tx> _saveTxsIfNotExist(Object tr, List<Tx> txs) {
+    public List<Tx> _saveTxsIfNotExist(LevelDBTransaction tr, List<Tx> txs) {
         List<Tx> result = new ArrayList<>();
         // We just iterate over the TXs and insert those that does not exist
         for (Tx tx : txs) {
-            byte[] txBytes = _getTxBytes(tr, tx.getHash().toString());
+            String txHash = tx.getHash().toString();
+            byte[] txBytes = _getTxBytes(tr, txHash);
             if (txBytes == null || txBytes.length == 0) {
-                _saveTx(tr, tx);
+                save(tr, fullKeyForTx(tr, txHash), bytes(tx));
+                filter.getTxs().add(txHash);
                 result.add(tx);
             }
         }
+        _addToCounter(tr, COUNTER_TXS, result.size());
         return result;
     }
 
@@ -234,9 +498,8 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
             if (levelDBStore != null) {
                 levelDBStore.close();
             }
-            Options options = new Options();
-            Path levelDBPath = config.getWorkingFolder();
-            levelDBStore = factory.open(levelDBPath.toFile(), options);
+            openDB();
+            log.info(" - key schema: " + keySchema);
         } catch (IOException ioe) {
             log.error(ioe.getMessage(), ioe);
             throw new RuntimeException(ioe);
@@ -245,18 +508,17 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
 
     @Override
     public void stop() {
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = locks.request().store(true).acquire()) {
             log.info("LevelDB-Store Stopping...");
             this.executorService.shutdownNow();
             this.executor.shutdownNow();
+            this.parallelExecutor.shutdownNow();
+            this.readExecutor.shutdownNow();
             this.levelDBStore.close();
             log.info("LevelDB-Store Stopped.");
         } catch (IOException ioe) {
             log.error(ioe.getMessage(), ioe);
             throw new RuntimeException(ioe);
-        } finally {
-            getLock().writeLock().unlock();
         }
     }
 
@@ -264,8 +526,7 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
     public void clear() {
         // LevelDb stores all the info inside a Folder in the File System, so the fastest way is to just remove the
         // folder content, and re-initiate the DB...
-        try {
-            getLock().writeLock().lock();
+        try (BlockStoreLocks.Held held = locks.request().store(true).acquire()) {
             levelDBStore.close();
             Path levelDBPath = config.getWorkingFolder();
             Files.walk(levelDBPath)
@@ -273,12 +534,9 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
                     .map(Path::toFile)
                     .forEach(File::delete);
             Files.createDirectory(levelDBPath);
-            Options options = new Options();
-            levelDBStore = factory.open(levelDBPath.toFile(), options);
+            openDB();
         } catch (IOException ioe) {
             getLogger().error("ERROR Clearing the DB", ioe);
-        } finally {
-            getLock().writeLock().unlock();
         }
 
     }
@@ -288,14 +546,19 @@ public class BlockStoreLevelDB implements BlockStoreKeyValue<Map.Entry<byte[], b
         DBIterator it = levelDBStore.iterator();
         it.seekToFirst();
         log.info(" > DB Content:");
-        while (it.hasNext()) log.info(" > " + new String(it.next().getKey()));
+        while (it.hasNext()) {
+            byte[] key = it.next().getKey();
+            log.info(" > " + (isBinaryKeys() ? Utils.HEX.encode(key) : new String(key)));
+        }
     }
 
-    public ReadWriteLock getLock()              { return this.lock; }
+    public BlockStoreLocks getLocks()           { return this.locks; }
     public BlockStoreLevelDBConfig getConfig()  { return this.config; }
     public boolean isTriggerBlockEvents()       { return this.triggerBlockEvents; }
     public boolean isTriggerTxEvents()          { return this.triggerTxEvents; }
     public EventBus getEventBus()               { return this.eventBus; }
+    public BlockStoreFilter getFilter()         { return this.filter; }
+    public BlockStoreBulkIngest getBulkIngest() { return this.bulkIngest; }
 
     /**
      * Builder
@@ -2,7 +2,9 @@ package io.bitcoinsv.jcl.store.levelDB.blockStore;
 
 
 import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreKeyValueConfig;
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema;
 import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
+import io.bitcoinsv.jcl.tools.config.provided.RuntimeConfigDefault;
 
 import javax.annotation.Nonnull;
 import java.nio.file.Path;
@@ -27,6 +29,23 @@ public class BlockStoreLevelDBConfig implements BlockStoreKeyValueConfig {
     // Transaction BATCH Default Size
     private static final int TRANSACTION_BATCH_SIZE = 5000;
 
+    // Key Schema used by default in new DBs:
+    public static final KeySchema DEFAULT_KEY_SCHEMA = KeySchema.BINARY;
+
+    // Write Batch Default max size (in bytes): No limit, so each Transaction is written in one atomic operation:
+    public static final long WRITE_BATCH_NO_LIMIT = Long.MAX_VALUE;
+    private static final long WRITE_BATCH_MAX_BYTES = WRITE_BATCH_NO_LIMIT;
+
+    // Filters Default configuration (disabled):
+    private static final long FILTER_EXPECTED_ITEMS = 0;
+    private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+    // Max number of Threads processing the Txs of a Block, by default:
+    private static final int BLOCK_TXS_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    // Number of Locks the Blocks and Txs are distributed into, by default:
+    private static final int LOCK_STRIPES = 64;
+
     /** Maximun number of Items that can be processed in a single DB Transaction */
     private final int transactionBatchSize;
 
@@ -43,35 +62,81 @@ public class BlockStoreLevelDBConfig implements BlockStoreKeyValueConfig {
      */
     private String networkId;
 
+    /**
+     * Layout of the Keys used in NEW DBs. An existing DB always keeps the layout it was created with, until it's
+     * migrated (see LevelDBKeySchemaMigration).
+     */
+    private KeySchema keySchema;
+
+    /**
+     * Max size (in bytes) of the changes kept in a Transaction (WriteBatch). No limit by default. If a limit is set
+     * and a Transaction grows beyond it, its changes (and the Counters updated) are written to the DB after each
+     * operation within it, so the Transaction is NOT atomic anymore: a rollback only discards the operations done
+     * since the last write (see LevelDBTransaction).
+     * Only meant for bulk loads that can be repeated from scratch if they fail.
+     */
+    private final long writeBatchMaxBytes;
+
+    /**
+     * Number of Txs the Filters of Txs and Blocks are sized for (zero disables them), and their max rate of false
+     * positives. The Filters are loaded from the DB when the Store starts (see BlockStoreFilter).
+     */
+    private final long filterExpectedItems;
+    private final double filterFalsePositiveRate;
+
+    /** Max number of Threads used to process the Txs of a Block in parallel (see BlockTxsSpliterator) */
+    private final int blockTxsParallelism;
+
+    /** Number of Locks (stripes) the Blocks and Txs are distributed into (see BlockStoreLocks) */
+    private final int lockStripes;
+
     public BlockStoreLevelDBConfig( String id,
                                     Path workingFolder,
                                     RuntimeConfig runtimeConfig,
                                     Integer transactionBatchSize,
-                                    @Nonnull String networkId) {
-        this.runtimeConfig = runtimeConfig;
+                                    @Nonnull String networkId,
+                                    KeySchema keySchema,
+                                    Long writeBatchMaxBytes,
+                                    Long filterExpectedItems,
+                                    Double filterFalsePositiveRate,
+                                    Integer blockTxsParallelism,
+                                    Integer lockStripes) {
+        this.runtimeConfig = (runtimeConfig != null) ? runtimeConfig : new RuntimeConfigDefault();
         // The working folder for this BD will be built based on a combination of different parameters:
         // The working folder has priority. If not specified, we use runtime Working folder, with a suffix that might
         // be a default one or the "id" parameter.
         this.workingFolder = (workingFolder != null)
                 ? workingFolder
                 : (id != null)
-                    ? Paths.get(runtimeConfig.getFileUtils().getRootPath().toString(), LEVELDB_FOLDER, id)
-                    : Paths.get(runtimeConfig.getFileUtils().getRootPath().toString(), LEVELDB_FOLDER, DEFAULT_DB);
+                    ? Paths.get(this.runtimeConfig.getFileUtils().getRootPath().toString(), LEVELDB_FOLDER, id)
+                    : Paths.get(this.runtimeConfig.getFileUtils().getRootPath().toString(), LEVELDB_FOLDER, DEFAULT_DB);
         this.transactionBatchSize = (transactionBatchSize != null) ? transactionBatchSize : TRANSACTION_BATCH_SIZE;
         this.networkId = networkId;
+        this.keySchema = (keySchema != null) ? keySchema : DEFAULT_KEY_SCHEMA;
+        this.writeBatchMaxBytes = (writeBatchMaxBytes != null) ? writeBatchMaxBytes : WRITE_BATCH_MAX_BYTES;
+        this.filterExpectedItems = (filterExpectedItems != null) ? filterExpectedItems : FILTER_EXPECTED_ITEMS;
+        this.filterFalsePositiveRate = (filterFalsePositiveRate != null) ? filterFalsePositiveRate : FILTER_FALSE_POSITIVE_RATE;
+        this.blockTxsParallelism = (blockTxsParallelism != null) ? blockTxsParallelism : BLOCK_TXS_PARALLELISM;
+        this.lockStripes = (lockStripes != null) ? lockStripes : LOCK_STRIPES;
     }
 
     public int getTransactionBatchSize()    { return this.transactionBatchSize; }
     public Path getWorkingFolder()          { return this.workingFolder; }
     public RuntimeConfig getRuntimeConfig() { return this.runtimeConfig; }
     public String getNetworkId()            { return this.networkId; }
+    public KeySchema getKeySchema()         { return this.keySchema; }
+    public long getWriteBatchMaxBytes()     { return this.writeBatchMaxBytes; }
+    public long getFilterExpectedItems()    { return this.filterExpectedItems; }
+    public double getFilterFalsePositiveRate() { return this.filterFalsePositiveRate; }
+    public int getBlockTxsParallelism()     { return this.blockTxsParallelism; }
+    public int getLockStripes()             { return this.lockStripes; }
 
     public static BlockStoreLevelDBConfigBuilder builder() {
         return new BlockStoreLevelDBConfigBuilder();
     }
 
     public BlockStoreLevelDBConfigBuilder toBuilder() {
-        return new BlockStoreLevelDBConfigBuilder().workingFolder(this.workingFolder).runtimeConfig(this.runtimeConfig).transactionBatchSize(this.transactionBatchSize).networkId(this.networkId);
+        return new BlockStoreLevelDBConfigBuilder().workingFolder(this.workingFolder).runtimeConfig(this.runtimeConfig).transactionBatchSize(this.transactionBatchSize).networkId(this.networkId).keySchema(this.keySchema).writeBatchMaxBytes(this.writeBatchMaxBytes).filterExpectedItems(this.filterExpectedItems).filterFalsePositiveRate(this.filterFalsePositiveRate).blockTxsParallelism(this.blockTxsParallelism).lockStripes(this.lockStripes);
     }
 
     /**
@@ -83,6 +148,12 @@ public class BlockStoreLevelDBConfig implements BlockStoreKeyValueConfig {
         private RuntimeConfig runtimeConfig;
         private Integer transactionBatchSize;
         private @Nonnull String networkId;
+        private KeySchema keySchema;
+        private Long writeBatchMaxBytes;
+        private Long filterExpectedItems;
+        private Double filterFalsePositiveRate;
+        private Integer blockTxsParallelism;
+        private Integer lockStripes;
 
         BlockStoreLevelDBConfigBuilder() {
         }
@@ -112,8 +183,38 @@ public class BlockStoreLevelDBConfig implements BlockStoreKeyValueConfig {
             return this;
         }
 
+        public BlockStoreLevelDBConfig.BlockStoreLevelDBConfigBuilder keySchema(KeySchema keySchema) {
+            this.keySchema = keySchema;
+            return this;
+        }
+
+        public BlockStoreLevelDBConfig.BlockStoreLevelDBConfigBuilder writeBatchMaxBytes(Long writeBatchMaxBytes) {
+            this.writeBatchMaxBytes = writeBatchMaxBytes;
+            return this;
+        }
+
+        public BlockStoreLevelDBConfig.BlockStoreLevelDBConfigBuilder filterExpectedItems(Long filterExpectedItems) {
+            this.filterExpectedItems = filterExpectedItems;
+            return this;
+        }
+
+        public BlockStoreLevelDBConfig.BlockStoreLevelDBConfigBuilder filterFalsePositiveRate(Double filterFalsePositiveRate) {
+            this.filterFalsePositiveRate = filterFalsePositiveRate;
+            return this;
+        }
+
+        public BlockStoreLevelDBConfig.BlockStoreLevelDBConfigBuilder blockTxsParallelism(Integer blockTxsParallelism) {
+            this.blockTxsParallelism = blockTxsParallelism;
+            return this;
+        }
+
+        public BlockStoreLevelDBConfig.BlockStoreLevelDBConfigBuilder lockStripes(Integer lockStripes) {
+            this.lockStripes = lockStripes;
+            return this;
+        }
+
         public BlockStoreLevelDBConfig build() {
-            return new BlockStoreLevelDBConfig(id, workingFolder, runtimeConfig, transactionBatchSize, networkId);
+            return new BlockStoreLevelDBConfig(id, workingFolder, runtimeConfig, transactionBatchSize, networkId, keySchema, writeBatchMaxBytes, filterExpectedItems, filterFalsePositiveRate, blockTxsParallelism, lockStripes);
         }
     }
 }
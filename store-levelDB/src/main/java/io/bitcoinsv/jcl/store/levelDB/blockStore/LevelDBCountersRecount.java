@@ -0,0 +1,35 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore;
+
+
+import java.nio.file.Paths;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Command-line tool that rebuilds the Counters of a LevelDB Store (number of Blocks, Txs, Orphan Blocks and number of
+ * Txs of each Block), by iterating over the whole DB. It must be run OFFLINE (the DB can not be in use by any other
+ * process), after upgrading a Store created before the Counters existed, or whenever their values are not trusted.
+ *
+ *      LevelDBCountersRecount [DB folder] [network Id]
+ */
+public class LevelDBCountersRecount {
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: LevelDBCountersRecount [DB folder] [network Id]");
+            return;
+        }
+        BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                .workingFolder(Paths.get(args[0]))
+                .networkId(args[1])
+                .build();
+        BlockStoreLevelDB db = BlockStoreLevelDB.builder().config(config).build();
+        try {
+            db.recountCounters();
+            System.out.println("Counters recounted: " + db.getNumBlocks() + " blocks, " + db.getNumTxs() + " txs.");
+        } finally {
+            db.stop();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore;
+
+
+import io.bitcoinsv.jcl.store.keyValue.blockChainStore.BlockChainStoreKeyValue;
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreKeyValue;
+import io.bitcoinsv.jcl.store.keyValue.common.BinaryKeys;
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteBatch;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It converts a LevelDB created with the STRING Key Schema into the BINARY Key Schema (see {@link BinaryKeys}).
+ *
+ * The migration is done in place: each Key of the network given is re-written in the BINARY format (the values do
+ * not change) and the old Key is removed, in batches. The Schema info is only stored at the very end, so if the
+ * migration is interrupted the DB is still considered a STRING one, and the migration can just be run again (the
+ * Keys already converted are not in the STRING layout anymore, so they are not processed twice).
+ *
+ * The DB must NOT be in use by a BlockStore while it's being migrated. Since the BINARY Keys do not contain the
+ * network, the DB can only contain data from ONE network.
+ *
+ * It can be used from code or from the command line:
+ *      LevelDBKeySchemaMigration [DB folder] [network Id]
+ */
+public class LevelDBKeySchemaMigration {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(LevelDBKeySchemaMigration.class);
+
+    // Number of Keys converted in each LevelDB WriteBatch:
+    private static final int BATCH_SIZE = 10_000;
+
+    // Separators used in the STRING Layout:
+    private static final String DIR_SEPARATOR = BlockStoreLevelDB.KEY_SEPARATOR;
+    private static final String SEPARATOR = BlockStoreKeyValue.KEY_SEPARATOR;
+
+    /** Result of the Migration */
+    public static class MigrationResult {
+        private final long keysMigrated;
+        private final long keysSkipped;
+        private final long keyBytesBefore;
+        private final long keyBytesAfter;
+        private final Duration time;
+
+        MigrationResult(long keysMigrated, long keysSkipped, long keyBytesBefore, long keyBytesAfter, Duration time) {
+            this.keysMigrated = keysMigrated;
+            this.keysSkipped = keysSkipped;
+            this.keyBytesBefore = keyBytesBefore;
+            this.keyBytesAfter = keyBytesAfter;
+            this.time = time;
+        }
+
+        public long getKeysMigrated()   { return this.keysMigrated; }
+        public long getKeysSkipped()    { return this.keysSkipped; }
+        public long getKeyBytesBefore() { return this.keyBytesBefore; }
+        public long getKeyBytesAfter()  { return this.keyBytesAfter; }
+        public Duration getTime()       { return this.time; }
+
+        @Override
+        public String toString() {
+            return "Key Schema Migration: " + keysMigrated + " keys migrated, " + keysSkipped + " skipped, key bytes: "
+                    + keyBytesBefore + " -> " + keyBytesAfter + ", in " + time.toMillis() + " millisecs";
+        }
+    }
+
+    private final Path dbFolder;
+    private final String networkId;
+
+    /** Constructor */
+    public LevelDBKeySchemaMigration(Path dbFolder, String networkId) {
+        this.dbFolder = dbFolder;
+        this.networkId = networkId;
+    }
+
+    /** It performs the Migration */
+    public MigrationResult migrate() throws IOException {
+        Instant begin = Instant.now();
+        long keysMigrated = 0, keysSkipped = 0, keyBytesBefore = 0, keyBytesAfter = 0;
+        byte[] rootPreffix = (BlockStoreKeyValue.DIR_BLOCKCHAIN + DIR_SEPARATOR).getBytes();
+        byte[] netPreffix = (BlockStoreKeyValue.DIR_BLOCKCHAIN + DIR_SEPARATOR + networkId + DIR_SEPARATOR).getBytes();
+
+        DB db = factory.open(dbFolder.toFile(), new Options());
+        try {
+            byte[] schemaInfo = db.get(BinaryKeys.KEY_SCHEMA);
+            if (schemaInfo != null) {
+                log.info("LevelDB in " + dbFolder + " already uses the " + BinaryKeys.schemaFromInfo(schemaInfo) + " Key Schema.");
+                return new MigrationResult(0, 0, 0, 0, Duration.between(begin, Instant.now()));
+            }
+
+            // We check there is no data from other networks. The Keys are sorted, so we only need to check the Keys
+            // right before and after the ones of this network:
+            if (containsOtherNetworks(db, rootPreffix, netPreffix))
+                throw new IllegalStateException("The LevelDB in " + dbFolder + " contains data from other networks apart from " + networkId);
+
+            WriteBatch batch = db.createWriteBatch();
+            int keysInBatch = 0;
+            try (DBIterator it = db.iterator()) {
+                it.seek(netPreffix);
+                while (it.hasNext()) {
+                    Map.Entry<byte[], byte[]> entry = it.next();
+                    byte[] key = entry.getKey();
+                    if (!startsWith(key, netPreffix)) break;
+
+                    byte[] newKey = convertKey(new String(key, netPreffix.length, key.length - netPreffix.length));
+                    if (newKey == null) {
+                        log.warn("Key not recognized, not migrated: " + new String(key));
+                        keysSkipped++;
+                        continue;
+                    }
+                    batch.put(newKey, entry.getValue());
+                    batch.delete(key);
+                    keysMigrated++;
+                    keyBytesBefore += key.length;
+                    keyBytesAfter += newKey.length;
+
+                    if (++keysInBatch == BATCH_SIZE) {
+                        db.write(batch);
+                        batch.close();
+                        batch = db.createWriteBatch();
+                        keysInBatch = 0;
+                        log.info(" - " + keysMigrated + " keys migrated...");
+                    }
+                }
+            }
+            db.write(batch);
+            batch.close();
+
+            // Done. We store the Schema info:
+            db.put(BinaryKeys.KEY_SCHEMA, BinaryKeys.schemaInfo(KeySchema.BINARY, networkId));
+        } finally {
+            db.close();
+        }
+        MigrationResult result = new MigrationResult(keysMigrated, keysSkipped, keyBytesBefore, keyBytesAfter, Duration.between(begin, Instant.now()));
+        log.info(result.toString());
+        return result;
+    }
+
+    private boolean containsOtherNetworks(DB db, byte[] rootPreffix, byte[] netPreffix) throws IOException {
+        try (DBIterator it = db.iterator()) {
+            it.seek(rootPreffix);
+            if (it.hasNext()) {
+                byte[] key = it.next().getKey();
+                if (startsWith(key, rootPreffix) && !startsWith(key, netPreffix)) return true;
+            }
+            // We skip the Keys of this network: "[netPreffix]" + 0xFF is after all of them:
+            byte[] afterNetPreffix = BinaryKeys.concat(netPreffix, new byte[] {(byte) 0xFF});
+            it.seek(afterNetPreffix);
+            return it.hasNext() && startsWith(it.next().getKey(), rootPreffix);
+        }
+    }
+
+    private static boolean startsWith(byte[] key, byte[] preffix) {
+        if (key.length < preffix.length) return false;
+        for (int i = 0; i < preffix.length; i++) if (key[i] != preffix[i]) return false;
+        return true;
+    }
+
+    // It returns the i-th field of a relative Key separated by ":", (ex: field("a:b:c:", 1) = "b")
+    private static String field(String key, int index) {
+        return key.split(SEPARATOR)[index];
+    }
+
+    /**
+     * It converts a Key in STRING layout into its BINARY equivalent. The Key is relative to the network "directory",
+     * so it starts with "blocks\" or "txs\". Returns null if the Key is not recognized.
+     */
+    static byte[] convertKey(String key) {
+        String[] dirs = key.split(Pattern.quote(DIR_SEPARATOR));
+
+        if (dirs[0].equals(BlockStoreKeyValue.DIR_TXS)) {
+            if (dirs.length == 2) {
+                String item = dirs[1];
+                if (item.startsWith(BlockStoreKeyValue.KEY_PREFFIX_TX))
+                    return BinaryKeys.key(BinaryKeys.NS_TX, field(item, 1));
+                if (item.startsWith(BlockStoreKeyValue.KEY_PREFFIX_TX_BLOCK))
+                    return BinaryKeys.key(BinaryKeys.NS_TX_BLOCK, field(item, 1), field(item, 2));
+            } else if (dirs.length == 3 && dirs[1].equals(BlockStoreKeyValue.DIR_METADATA)
+                    && dirs[2].startsWith(BlockStoreKeyValue.KEY_PREFFIX_TX_META)) {
+                return BinaryKeys.key(BinaryKeys.NS_TX_META, field(dirs[2], 1));
+            }
+            return null;
+        }
+
+        if (dirs[0].equals(BlockStoreKeyValue.DIR_COUNTERS)) {
+            if (dirs.length == 2 && dirs[1].startsWith(BlockStoreKeyValue.KEY_PREFFIX_COUNTER))
+                return BinaryKeys.keyForCounter(field(dirs[1], 1));
+            return null;
+        }
+
+        if (dirs[0].equals(BlockStoreKeyValue.DIR_BLOCKS)) {
+            if (dirs.length == 2) {
+                String item = dirs[1];
+                if (item.startsWith(BlockStoreKeyValue.KEY_PREFFIX_BLOCK))
+                    return BinaryKeys.key(BinaryKeys.NS_BLOCK, field(item, 1));
+                if (item.startsWith(BlockStoreKeyValue.KEY_PREFFIX_BLOCK_PROP)) {
+                    String blockHash = field(item, 1);
+                    String property = field(item, 2);
+                    if (item.endsWith(BlockStoreKeyValue.KEY_SUFFIX_BLOCK_NUMTXS))
+                        return BinaryKeys.key(BinaryKeys.NS_BLOCK_NUMTXS, blockHash);
+                    if (item.endsWith(BlockStoreKeyValue.KEY_SUFFIX_BLOCK_TXINDEX))
+                        return BinaryKeys.key(BinaryKeys.NS_BLOCK_TXINDEX, blockHash);
+                    if (property.equals(BlockChainStoreKeyValue.KEY_SUFFIX_BLOCK_NEXT))
+                        return BinaryKeys.key(BinaryKeys.NS_BLOCK_NEXT, blockHash);
+                    return null;
+                }
+                if (item.startsWith(BlockStoreKeyValue.KEY_PREFFIX_ORPHAN_HASH))
+                    return BinaryKeys.key(BinaryKeys.NS_ORPHAN, field(item, 1));
+                if (item.startsWith(BlockChainStoreKeyValue.KEY_PREFFIX_BLOCK_CHAIN + SEPARATOR))
+                    return BinaryKeys.key(BinaryKeys.NS_BLOCK_CHAIN, field(item, 1));
+                if (item.startsWith(BlockChainStoreKeyValue.KEY_PREFFIX_BLOCK_HEIGHT + SEPARATOR))
+                    return BinaryKeys.key(BinaryKeys.NS_BLOCK_HEIGHT, Integer.parseInt(field(item, 1)));
+                if (item.startsWith(BlockChainStoreKeyValue.KEY_CHAIN_TIPS + SEPARATOR))
+                    return BinaryKeys.key(BinaryKeys.NS_CHAIN_TIPS);
+                if (item.startsWith(BlockChainStoreKeyValue.KEY_PREFFIX_PATHS + SEPARATOR))
+                    return BinaryKeys.key(BinaryKeys.NS_PATHS_LAST);
+                if (item.startsWith(BlockChainStoreKeyValue.KEY_PREFFIX_PATH + SEPARATOR))
+                    return BinaryKeys.key(BinaryKeys.NS_PATH, Integer.parseInt(field(item, 1)));
+            } else if (dirs.length == 3 && dirs[1].equals(BlockStoreKeyValue.DIR_METADATA)
+                    && dirs[2].startsWith(BlockStoreKeyValue.KEY_PREFFIX_BLOCK_META)) {
+                return BinaryKeys.key(BinaryKeys.NS_BLOCK_META, field(dirs[2], 1));
+            } else if (dirs.length == 3 && dirs[2].startsWith(BlockStoreKeyValue.KEY_PREFFIX_TX_LINK)) {
+                // "tx_link:[length char][txIndex + 1]:[txHash]:"
+                String blockHash = dirs[1];
+                String txIndexStr = field(dirs[2], 1).substring(1);
+                long txIndex = Long.parseLong(txIndexStr) - 1;
+                return BinaryKeys.keyForBlockTx(blockHash, txIndex, field(dirs[2], 2));
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: LevelDBKeySchemaMigration [DB folder] [network Id]");
+            return;
+        }
+        MigrationResult result = new LevelDBKeySchemaMigration(Paths.get(args[0]), args[1]).migrate();
+        System.out.println(result);
+    }
+}
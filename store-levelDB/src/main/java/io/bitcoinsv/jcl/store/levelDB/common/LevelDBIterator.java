@@ -5,6 +5,8 @@ import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.function.Function;
@@ -17,13 +19,24 @@ import java.util.function.Predicate;
  * This class is an implementation of an Iterator that fetches the data from a LevelDB DataBase.
  * It extends the functionality of KeyValueIteratorIml, and provides specific implementations for those methods that
  * need to be rewritten, since they depen on specific implemenation-details.
+ *
+ * The LevelDB iterators do not see the changes made within a Transaction and not committed yet (they are kept in a
+ * WriteBatch), so if a Transaction is given its changes are merged with the contents of the DB: the Keys removed in
+ * the Transaction are skipped, and the Keys saved in it are returned in order, with their new values. The Iterator
+ * works over a snapshot of both, so the changes made while iterating are not returned.
  */
-public class LevelDBIterator<I> extends KeyValueIteratorImpl<I, Object, Map.Entry<byte[], byte[]>> implements Iterator<I> {
+public class LevelDBIterator<I> extends KeyValueIteratorImpl<I, LevelDBTransaction, Map.Entry<byte[], byte[]>> implements Iterator<I> {
 
     // Connection to a LevelDB Database:
     private DB levelDB;
     private DBIterator iterator;
 
+    // Changes made within the Transaction (null values for the Keys removed), and the next Entries of each source:
+    private Iterator<Map.Entry<byte[], byte[]>> changesIterator;
+    private Map.Entry<byte[], byte[]> nextFromDB;
+    private Map.Entry<byte[], byte[]> nextFromChanges;
+    private Map.Entry<byte[], byte[]> nextEntry;
+
     /**
      * Constructor
      */
@@ -32,7 +45,34 @@ public class LevelDBIterator<I> extends KeyValueIteratorImpl<I, Object, Map.Entr
                            byte[] endingWithSuffix,
                            Predicate<byte[]> keyIsValidWhen,
                            Function<Map.Entry<byte[], byte[]>, I> buildItemBy) {
-        super(startingWithPreffix, endingWithSuffix,
+        this(database, startingWithPreffix, null, null, endingWithSuffix, keyIsValidWhen, buildItemBy);
+    }
+
+    /**
+     * Constructor. The Iterator only returns the Keys within the range given (fromKey inclusive, toKey exclusive)
+     */
+    public LevelDBIterator(@Nonnull DB database,
+                           byte[] startingWithPreffix,
+                           byte[] fromKey,
+                           byte[] toKey,
+                           byte[] endingWithSuffix,
+                           Predicate<byte[]> keyIsValidWhen,
+                           Function<Map.Entry<byte[], byte[]>, I> buildItemBy) {
+        this(database, null, startingWithPreffix, fromKey, toKey, endingWithSuffix, keyIsValidWhen, buildItemBy);
+    }
+
+    /**
+     * Constructor. The Iterator also returns the changes made within the Transaction given (if any)
+     */
+    public LevelDBIterator(@Nonnull DB database,
+                           LevelDBTransaction transaction,
+                           byte[] startingWithPreffix,
+                           byte[] fromKey,
+                           byte[] toKey,
+                           byte[] endingWithSuffix,
+                           Predicate<byte[]> keyIsValidWhen,
+                           Function<Map.Entry<byte[], byte[]>, I> buildItemBy) {
+        super(startingWithPreffix, fromKey, toKey, endingWithSuffix,
                 (keyIsValidWhen != null)? (tr, key) -> keyIsValidWhen.test(key) : null, buildItemBy);
         try {
             // We init the basic properties:
@@ -40,7 +80,10 @@ public class LevelDBIterator<I> extends KeyValueIteratorImpl<I, Object, Map.Entr
 
             // We init the Level DB Iterator and point it to the First Key:
             iterator = database.iterator();
-            iterator.seek(super.keyPreffix);
+            iterator.seek(super.firstKey());
+            changesIterator = (transaction != null)
+                    ? transaction.getChanges(startingWithPreffix, fromKey, toKey).iterator()
+                    : Collections.emptyIterator();
         } catch (Exception e) {
             // This mit happens sometimes, when trying to use the Iterator when the Db is closing...
             e.printStackTrace();
@@ -48,10 +91,43 @@ public class LevelDBIterator<I> extends KeyValueIteratorImpl<I, Object, Map.Entr
         }
     }
 
-    @Override protected boolean hasNextItemFromDB()                             { return iterator.hasNext(); }
-    @Override protected Map.Entry<byte[], byte[]> nextEntryFromDB()             { return iterator.next(); }
+    // It returns the next Entry, merging the contents of the DB and the changes made in the Transaction:
+    private Map.Entry<byte[], byte[]> mergeNextEntry() {
+        while (true) {
+            if (nextFromDB == null && iterator.hasNext()) nextFromDB = iterator.next();
+            if (nextFromChanges == null && changesIterator.hasNext()) nextFromChanges = changesIterator.next();
+            if (nextFromChanges == null) {
+                Map.Entry<byte[], byte[]> result = nextFromDB;
+                nextFromDB = null;
+                return result;
+            }
+            int comparison = (nextFromDB == null) ? 1 : Arrays.compareUnsigned(nextFromDB.getKey(), nextFromChanges.getKey());
+            if (comparison < 0) {
+                Map.Entry<byte[], byte[]> result = nextFromDB;
+                nextFromDB = null;
+                return result;
+            }
+            // The Key has been changed in the Transaction, so its value in the DB (if any) is outdated:
+            if (comparison == 0) nextFromDB = null;
+            Map.Entry<byte[], byte[]> change = nextFromChanges;
+            nextFromChanges = null;
+            if (change.getValue() != null) return change;
+        }
+    }
+
+    @Override protected boolean hasNextItemFromDB() {
+        if (nextEntry == null) nextEntry = mergeNextEntry();
+        return nextEntry != null;
+    }
+
+    @Override protected Map.Entry<byte[], byte[]> nextEntryFromDB() {
+        Map.Entry<byte[], byte[]> result = (nextEntry != null) ? nextEntry : mergeNextEntry();
+        nextEntry = null;
+        return result;
+    }
+
     @Override protected byte[] getKeyFromEntry(Map.Entry<byte[], byte[]> item)  { return item.getKey(); }
-    @Override public Object getCurrentTransaction()                             { return null; }
+    @Override public LevelDBTransaction getCurrentTransaction()                 { return null; }
 
     public static <I> LevelDBIteratorBuilder<I> builder() {
         return new LevelDBIteratorBuilder<I>();
@@ -63,7 +139,10 @@ public class LevelDBIterator<I> extends KeyValueIteratorImpl<I, Object, Map.Entr
      */
     public static class LevelDBIteratorBuilder<I> {
         private @Nonnull DB database;
+        private LevelDBTransaction transaction;
         private byte[] startingWithPreffix;
+        private byte[] fromKey;
+        private byte[] toKey;
         private byte[] endingWithSuffix;
         private Predicate<byte[]> keyIsValidWhen;
         private Function<Map.Entry<byte[], byte[]>, I> buildItemBy;
@@ -76,11 +155,26 @@ public class LevelDBIterator<I> extends KeyValueIteratorImpl<I, Object, Map.Entr
             return this;
         }
 
+        public LevelDBIterator.LevelDBIteratorBuilder<I> transaction(LevelDBTransaction transaction) {
+            this.transaction = transaction;
+            return this;
+        }
+
         public LevelDBIterator.LevelDBIteratorBuilder<I> startingWithPreffix(byte[] startingWithPreffix) {
             this.startingWithPreffix = startingWithPreffix;
             return this;
         }
 
+        public LevelDBIterator.LevelDBIteratorBuilder<I> fromKey(byte[] fromKey) {
+            this.fromKey = fromKey;
+            return this;
+        }
+
+        public LevelDBIterator.LevelDBIteratorBuilder<I> toKey(byte[] toKey) {
+            this.toKey = toKey;
+            return this;
+        }
+
         public LevelDBIterator.LevelDBIteratorBuilder<I> endingWithSuffix(byte[] endingWithSuffix) {
             this.endingWithSuffix = endingWithSuffix;
             return this;
@@ -97,7 +191,7 @@ public class LevelDBIterator<I> extends KeyValueIteratorImpl<I, Object, Map.Entr
         }
 
         public LevelDBIterator<I> build() {
-            return new LevelDBIterator<I>(database, startingWithPreffix, endingWithSuffix, keyIsValidWhen, buildItemBy);
+            return new LevelDBIterator<I>(database, transaction, startingWithPreffix, fromKey, toKey, endingWithSuffix, keyIsValidWhen, buildItemBy);
         }
     }
 }
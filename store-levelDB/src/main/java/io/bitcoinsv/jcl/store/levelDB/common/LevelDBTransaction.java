@@ -0,0 +1,155 @@
+package io.bitcoinsv.jcl.store.levelDB.common;
+
+
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Transaction in LevelDB, based on a WriteBatch: All the changes made are kept in the Batch and written to the DB
+ * in one single atomic operation when the Transaction is committed, or discarded if it's rolled back.
+ *
+ * LevelDB does not allow reading the contents of a Batch, so the changes are also kept in a Map, so the Transaction
+ * can "read its own writes" (used when updating the Counters or the Tx Index of a Block, for instance). The Map is
+ * sorted the same way as the Keys in LevelDB, so the Iterators can merge the changes with the contents of the DB
+ * (see "getChanges()" and LevelDBIterator) and nothing is written before the Transaction is committed.
+ *
+ * Optionally (it's disabled by default), a max size can be set for the Batch: when the size of the changes reaches
+ * it, the Batch is written to the DB and a new one is started. That only happens when an inner level of the
+ * Transaction is committed (an operation is complete), and the amounts added to the Counters so far are written in
+ * the same Batch (see "BlockStoreLevelDB.commitTransaction()"), so the data and its Counters are always written
+ * together. But the Transaction is NOT atomic as a whole anymore (only each Batch is), so it's only meant for bulk
+ * loads that can be repeated from scratch if they fail.
+ *
+ * The Counters are shared by all the Transactions, so instead of their values the Transaction only keeps what's
+ * added to them. Those amounts are added to the current values right before the Transaction is committed (see
+ * "BlockStoreLevelDB.commitTransaction()"), so two Transactions updating the same Counter do not overwrite each other.
+ *
+ * This class is NOT Thread-safe: A Transaction belongs to the Thread that created it.
+ */
+public class LevelDBTransaction {
+
+    private final DB levelDB;
+    private final long maxBatchBytes;
+
+    private WriteBatch batch;
+    // Changes in the Batch, sorted by Key (a null value means the Key is removed):
+    private final NavigableMap<byte[], byte[]> changes = new TreeMap<>(Arrays::compareUnsigned);
+    private long batchBytes;
+    // Amounts added to the Counters, not applied yet:
+    private final Map<ByteBuffer, Long> counters = new HashMap<>();
+
+    // Number of times this Transaction has been "joined" (created again within the same Thread) and not committed yet:
+    private int level = 1;
+
+    /** Constructor */
+    public LevelDBTransaction(DB levelDB, long maxBatchBytes) {
+        this.levelDB = levelDB;
+        this.maxBatchBytes = maxBatchBytes;
+        this.batch = levelDB.createWriteBatch();
+    }
+
+    public void put(byte[] key, byte[] value) {
+        batch.put(key, value);
+        changes.put(key, value);
+        addBytes(key.length + value.length);
+    }
+
+    public void delete(byte[] key) {
+        batch.delete(key);
+        changes.put(key, null);
+        addBytes(key.length);
+    }
+
+    /** It adds the value given to the Counter stored in the Key. It will be applied when it's committed */
+    public void addToCounter(byte[] key, long valueToAdd) {
+        counters.merge(ByteBuffer.wrap(key), valueToAdd, Long::sum);
+    }
+
+    /** Returns the amounts added to the Counters within this Transaction, and not applied yet */
+    public Map<ByteBuffer, Long> getCounters()  { return this.counters; }
+
+    /** Indicates if the Key has been changed (saved or removed) within this Transaction */
+    public boolean isChanged(byte[] key)    { return changes.containsKey(key); }
+
+    /** Returns the value of a Key changed within this Transaction (null if it's been removed) */
+    public byte[] getChange(byte[] key)     { return changes.get(key); }
+
+    /**
+     * Returns a copy of the changes made within this Transaction (null values for the Keys removed), sorted by Key,
+     * for the Keys starting with the preffix given and within the range [fromKey, toKey) (both optional). Since it's
+     * a copy, the Transaction can still be changed while the result is traversed.
+     */
+    public List<Map.Entry<byte[], byte[]>> getChanges(byte[] preffix, byte[] fromKey, byte[] toKey) {
+        List<Map.Entry<byte[], byte[]>> result = new ArrayList<>();
+        if (preffix == null) preffix = new byte[0];
+        byte[] firstKey = (fromKey != null && Arrays.compareUnsigned(fromKey, preffix) > 0) ? fromKey : preffix;
+        for (Map.Entry<byte[], byte[]> change : changes.tailMap(firstKey, true).entrySet()) {
+            byte[] key = change.getKey();
+            if (Arrays.mismatch(key, 0, Math.min(key.length, preffix.length), preffix, 0, preffix.length) != -1) break;
+            if (toKey != null && Arrays.compareUnsigned(key, toKey) >= 0) break;
+            result.add(new AbstractMap.SimpleImmutableEntry<>(key, change.getValue()));
+        }
+        return result;
+    }
+
+    public boolean isEmpty()                { return changes.isEmpty(); }
+    public long getBatchBytes()             { return this.batchBytes; }
+
+    private void addBytes(long numBytes) {
+        batchBytes += numBytes;
+    }
+
+    /** Indicates if the Batch has reached its max size, so it should be written before the Transaction is committed */
+    public boolean isFull()                 { return batchBytes >= maxBatchBytes; }
+
+    /**
+     * It writes the Batch into the DB, and starts a new one. The amounts added to the Counters must have been already
+     * saved into the Batch, since they are discarded.
+     */
+    public void flush() {
+        try {
+            if (!changes.isEmpty()) levelDB.write(batch);
+        } finally {
+            closeBatch();
+            counters.clear();
+        }
+        batch = levelDB.createWriteBatch();
+    }
+
+    /** The Transaction is used again (nested) within the same Thread */
+    public void join()                      { level++; }
+
+    /** It returns TRUE if this is the outermost level of the Transaction, so it can be committed/rolled back */
+    public boolean leave()                  { return --level == 0; }
+
+    public void commit() {
+        try {
+            if (!changes.isEmpty()) levelDB.write(batch);
+        } finally {
+            closeBatch();
+            counters.clear();
+        }
+    }
+
+    public void rollback() {
+        closeBatch();
+        counters.clear();
+    }
+
+    private void closeBatch() {
+        try {
+            batch.close();
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+        changes.clear();
+        batchBytes = 0;
+    }
+}
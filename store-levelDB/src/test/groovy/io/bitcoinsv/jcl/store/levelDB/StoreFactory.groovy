@@ -9,6 +9,7 @@ import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
 import io.bitcoinsv.jcl.store.blockChainStore.BlockChainStore
 import io.bitcoinsv.jcl.store.blockStore.BlockStore
 import io.bitcoinsv.jcl.store.blockStore.metadata.Metadata
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema
 
 import java.nio.file.Path
 import java.time.Duration
@@ -33,10 +34,16 @@ class StoreFactory {
 
     /** It creates an instance of the BlockStore interface, including metadata class for Blocks */
     static BlockStore getInstance(String netId, boolean triggerBlockEvents, boolean triggerTxEvents, Class<? extends Metadata> blockMetadataClass, Class<? extends Metadata> txMetadataClass) {
+        return getInstance(netId, triggerBlockEvents, triggerTxEvents, blockMetadataClass, txMetadataClass, null)
+    }
+
+    /** It creates an instance of the BlockStore interface, using the Key Schema given (the default one if null) */
+    static BlockStore getInstance(String netId, boolean triggerBlockEvents, boolean triggerTxEvents, Class<? extends Metadata> blockMetadataClass, Class<? extends Metadata> txMetadataClass, KeySchema keySchema) {
         Path dbPath = Path.of(buildWorkingFolder())
         BlockStoreLevelDBConfig dbConfig = BlockStoreLevelDBConfig.builder()
                 .workingFolder(dbPath)
                 .networkId(netId)
+                .keySchema(keySchema)
                 .build()
         BlockStore db = BlockStoreLevelDB.builder()
                 .config(dbConfig)
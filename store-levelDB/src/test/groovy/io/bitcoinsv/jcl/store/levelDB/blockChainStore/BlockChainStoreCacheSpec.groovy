@@ -0,0 +1,114 @@
+package io.bitcoinsv.jcl.store.levelDB.blockChainStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.extended.ChainInfo
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
+import io.bitcoinsv.jcl.store.blockChainStore.BlockChainStoreCacheState
+import io.bitcoinsv.jcl.store.keyValue.blockChainStore.BlockChainStoreCache
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Specification
+
+import java.nio.file.Path
+
+/**
+ * Testing class for the Caches of the BlockChainStore: the results must be the same with and without Caches, and
+ * the Items must be invalidated when the Blocks are connected, disconnected or pruned.
+ */
+class BlockChainStoreCacheSpec extends Specification {
+
+    private BlockChainStoreLevelDB getInstance(HeaderReadOnly genesisBlock, Integer cacheMaxSize) {
+        BlockChainStoreLevelDBConfig config = BlockChainStoreLevelDBConfig.chainBuild()
+                .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                .networkId("BSV-Main")
+                .genesisBlock(genesisBlock)
+                .cacheMaxSize(cacheMaxSize)
+                .build()
+        return BlockChainStoreLevelDB.chainStoreBuilder().config(config).build()
+    }
+
+    def "testing the Cache is invalidated when the Chain changes"() {
+        given:
+            HeaderReadOnly genesisBlock = TestingUtils.buildBlock(Sha256Hash.ZERO_HASH.toString())
+            BlockChainStoreLevelDB db = getInstance(genesisBlock, cacheMaxSize)
+
+            // - [genesis] - [A] - [B] - [D]
+            //                  \- [C]
+            HeaderReadOnly blockA = TestingUtils.buildBlock(genesisBlock.hash.toString())
+            HeaderReadOnly blockB = TestingUtils.buildBlock(blockA.hash.toString())
+            HeaderReadOnly blockC = TestingUtils.buildBlock(blockA.hash.toString())
+            HeaderReadOnly blockD = TestingUtils.buildBlock(blockB.hash.toString())
+        when:
+            db.start()
+            db.saveBlocks([blockA, blockB, blockC])
+
+            // We read the same Items several times, so they are cached:
+            for (int i = 0; i < 5; i++) {
+                db.getTipsChains()
+                db.getBlockChainInfo(blockB.hash)
+                db.getTipsChains(blockA.hash)
+            }
+            Set<Sha256Hash> tipsBefore = db.getTipsChains() as Set
+
+            // Connecting a new Block changes the Tips:
+            db.saveBlock(blockD)
+            Set<Sha256Hash> tipsAfterConnect = db.getTipsChains() as Set
+            Optional<ChainInfo> blockDInfo = db.getBlockChainInfo(blockD.hash)
+
+            // Pruning the Fork removes the Block, its Chain Info and its Tip:
+            db.prune(blockC.hash, false)
+            Set<Sha256Hash> tipsAfterPrune = db.getTipsChains() as Set
+            boolean blockCExists = db.getBlock(blockC.hash).isPresent()
+            boolean blockCConnected = db.isConnected(blockC.hash)
+
+            // Disconnecting a Block disconnects it and all the Blocks built on top of it:
+            db.disconnectBlock(blockB.hash)
+            boolean blockBConnected = db.isConnected(blockB.hash)
+            boolean blockDConnected = db.getBlockChainInfo(blockD.hash).isPresent()
+            Set<Sha256Hash> tipsAfterDisconnect = db.getTipsChains() as Set
+
+            BlockChainStoreCacheState tipsCacheState = db.getState().getCaches().get(BlockChainStoreCache.CACHE_TIPS)
+        then:
+            tipsBefore == [blockB.hash, blockC.hash] as Set
+            tipsAfterConnect == [blockD.hash, blockC.hash] as Set
+            blockDInfo.isPresent() && blockDInfo.get().getHeight() == 3
+            tipsAfterPrune == [blockD.hash] as Set
+            !blockCExists
+            !blockCConnected
+            !blockBConnected
+            !blockDConnected
+            tipsAfterDisconnect == [blockA.hash] as Set
+            (tipsCacheState.getHits() > 0) == (cacheMaxSize != 0)
+        cleanup:
+            db.clear()
+            db.stop()
+        where:
+            cacheMaxSize << [null, 0]
+    }
+
+    def "testing the Cache is bounded"() {
+        given:
+            HeaderReadOnly genesisBlock = TestingUtils.buildBlock(Sha256Hash.ZERO_HASH.toString())
+            BlockChainStoreLevelDB db = getInstance(genesisBlock, 5)
+            List<HeaderReadOnly> blocks = new ArrayList<>()
+            String parentHash = genesisBlock.hash.toString()
+            for (int i = 0; i < 20; i++) {
+                HeaderReadOnly block = TestingUtils.buildBlock(parentHash)
+                blocks.add(block)
+                parentHash = block.hash.toString()
+            }
+        when:
+            db.start()
+            db.saveBlocks(blocks)
+            blocks.forEach { db.getBlockChainInfo(it.hash) }
+            BlockChainStoreCacheState headersState = db.getState().getCaches().get(BlockChainStoreCache.CACHE_HEADERS)
+            BlockChainStoreCacheState chainInfoState = db.getState().getCaches().get(BlockChainStoreCache.CACHE_CHAIN_INFO)
+        then:
+            headersState.getSize() == 5
+            chainInfoState.getSize() == 5
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+}
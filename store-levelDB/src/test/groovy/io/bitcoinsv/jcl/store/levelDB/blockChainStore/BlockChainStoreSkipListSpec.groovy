@@ -0,0 +1,116 @@
+package io.bitcoinsv.jcl.store.levelDB.blockChainStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
+import io.bitcoinsv.jcl.store.keyValue.blockChainStore.BlockChainInfo
+import io.bitcoinsv.jcl.store.keyValue.blockChainStore.BlockChainInfoSerializer
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Specification
+
+import java.nio.file.Path
+
+/**
+ * Testing class for the Skip pointers stored in the BlockChainInfo, used to look up Ancestors and Common Ancestors.
+ */
+class BlockChainStoreSkipListSpec extends Specification {
+
+    private BlockChainStoreLevelDB getInstance(HeaderReadOnly genesisBlock) {
+        BlockChainStoreLevelDBConfig config = BlockChainStoreLevelDBConfig.chainBuild()
+                .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                .networkId("BSV-Main")
+                .genesisBlock(genesisBlock)
+                .build()
+        return BlockChainStoreLevelDB.chainStoreBuilder().config(config).build()
+    }
+
+    // It builds a line of Blocks on top of the parent given:
+    private List<HeaderReadOnly> buildBlocks(HeaderReadOnly parent, int numBlocks) {
+        List<HeaderReadOnly> result = new ArrayList<>()
+        String parentHash = parent.hash.toString()
+        for (int i = 0; i < numBlocks; i++) {
+            HeaderReadOnly block = TestingUtils.buildBlock(parentHash)
+            result.add(block)
+            parentHash = block.hash.toString()
+        }
+        return result
+    }
+
+    def "testing Ancestors and Common Ancestors with Skip pointers"() {
+        given:
+            HeaderReadOnly genesisBlock = TestingUtils.buildBlock(Sha256Hash.ZERO_HASH.toString())
+            BlockChainStoreLevelDB db = getInstance(genesisBlock)
+
+            // - [genesis] - [1] ... [100] ... [120] ... [300]     (main)
+            //                          \- [101'] ... [150']        (fork1)
+            //                                 \- [111''] ... [140'']  (fork2, from height 110 of fork1)
+            List<HeaderReadOnly> main = [genesisBlock] + buildBlocks(genesisBlock, 300)
+            List<HeaderReadOnly> fork1 = main.subList(0, 101) + buildBlocks(main.get(100), 50)
+            List<HeaderReadOnly> fork2 = fork1.subList(0, 111) + buildBlocks(fork1.get(110), 30)
+        when:
+            db.start()
+            db.saveBlocks(main.subList(1, main.size()))
+            db.saveBlocks(fork1.subList(101, fork1.size()))
+            db.saveBlocks(fork2.subList(111, fork2.size()))
+
+            // Every Skip pointer points to the ancestor at the Skip height:
+            boolean skipPointersOK = [main, fork1, fork2].every { chain ->
+                (1..<chain.size()).every { height ->
+                    BlockChainInfo info = db.toBlockChainInfo(db.read(null, db.fullKeyForBlockChainInfo(chain.get(height).hash.toString())))
+                    info.getSkipBlockHash() == chain.get(BlockChainInfo.getSkipHeight(height)).hash.toString()
+                }
+            }
+
+            // Every ancestor of the tips is found:
+            boolean ancestorsOK = [main, fork1, fork2].every { chain ->
+                HeaderReadOnly tip = chain.get(chain.size() - 1)
+                (0..<chain.size()).every { height -> db.getAncestorByHeight(tip.hash, height).get().getHeader().getHash() == chain.get(height).hash }
+            }
+            boolean ancestorHigherThanBlock = db.getAncestorByHeight(fork2.get(120).hash, 121).isPresent()
+
+        then:
+            skipPointersOK
+            ancestorsOK
+            !ancestorHigherThanBlock
+            db.isInChain(main.get(50).hash, fork2.get(130).hash)
+            db.isInChain(fork2.get(130).hash, main.get(100).hash)
+            db.isInChain(fork1.get(105).hash, fork2.get(115).hash)
+            db.isInChain(main.get(200).hash, main.get(200).hash)
+            // A Block above the Fork point in the main Chain is not an ancestor of the Forks:
+            !db.isInChain(main.get(105).hash, fork1.get(140).hash)
+            !db.isInChain(fork1.get(120).hash, fork2.get(130).hash)
+            db.getLowestCommonAncestor([main.get(300).hash, fork1.get(150).hash]).get().getHeight() == 100
+            db.getLowestCommonAncestor([fork1.get(150).hash, fork2.get(140).hash]).get().getHeader().getHash() == fork1.get(110).hash
+            db.getLowestCommonAncestor([main.get(300).hash, fork1.get(150).hash, fork2.get(140).hash]).get().getHeader().getHash() == main.get(100).hash
+            db.getLowestCommonAncestor([main.get(200).hash, main.get(250).hash]).get().getHeader().getHash() == main.get(200).hash
+            db.getLowestCommonAncestor([fork2.get(112).hash, fork2.get(105).hash]).get().getHeader().getHash() == fork2.get(105).hash
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+
+    def "testing BlockChainInfo saved without Skip pointer"() {
+        given:
+            BlockChainInfo info = BlockChainInfo.builder()
+                    .blockHash(Sha256Hash.ZERO_HASH.toString())
+                    .chainWork(BigInteger.TEN)
+                    .height(5)
+                    .totalChainSize(100)
+                    .chainPathId(2)
+                    .build()
+            BlockChainInfoSerializer serializer = BlockChainInfoSerializer.getInstance()
+        when:
+            byte[] bytes = serializer.serialize(info)
+            // Previous versions did not store the Skip pointer, which is the last (empty) field:
+            byte[] legacyBytes = Arrays.copyOf(bytes, bytes.length - 1)
+            BlockChainInfo legacyInfo = serializer.deserialize(legacyBytes)
+            BlockChainInfo skipInfo = serializer.deserialize(serializer.serialize(info.toBuilder().skipBlockHash("abc").build()))
+        then:
+            serializer.deserialize(bytes).getSkipBlockHash() == null
+            legacyInfo.getSkipBlockHash() == null
+            legacyInfo.getHeight() == 5
+            legacyInfo.getChainPathId() == 2
+            skipInfo.getSkipBlockHash() == "abc"
+    }
+}
@@ -0,0 +1,185 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
+import io.bitcoinsv.jcl.store.blockStore.BlocksCompareResult
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.store.levelDB.common.LevelDBTransaction
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import io.bitcoinsv.jcl.tools.config.RuntimeConfig
+import io.bitcoinsv.jcl.tools.config.provided.RuntimeConfigDefault
+import groovy.transform.CompileStatic
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.stream.Collectors
+import java.util.stream.StreamSupport
+
+/**
+ * Testing class for the iteration over the Txs of a Block split into segments, processed in parallel.
+ */
+class BlockStoreBlockTxsSegmentsSpec extends Specification {
+
+    private BlockStoreLevelDB getInstance(KeySchema keySchema) {
+        BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                .networkId("BSV-Main")
+                .keySchema(keySchema)
+                .blockTxsParallelism(4)
+                .build()
+        return BlockStoreLevelDB.builder().config(config).build()
+    }
+
+    // It collects all the Items returned by the Spliterator, processing its segments in parallel:
+    private List<Sha256Hash> collectInParallel(Spliterator<Sha256Hash> spliterator) {
+        return StreamSupport.stream(spliterator, true).collect(Collectors.toList())
+    }
+
+    def "testing iterating, comparing and removing the Txs of a Block in parallel segments"() {
+        given:
+            BlockStoreLevelDB db = getInstance(keySchema)
+            HeaderReadOnly blockA = TestingUtils.buildBlock()
+            HeaderReadOnly blockB = TestingUtils.buildBlock()
+            List<Tx> txs = new ArrayList<>()
+            for (int i = 0; i < 5_000; i++) txs.add(TestingUtils.buildTx())
+            List<Sha256Hash> txHashes = txs.collect { it.getHash() }
+            List<Sha256Hash> txHashesInCommon = txHashes.subList(0, 1_000)
+        when:
+            db.start()
+            db.saveBlocks([blockA, blockB])
+            db.saveBlockTxs(blockA.getHash(), txs)
+            db.linkTxsToBlock(txHashesInCommon, blockB.getHash())
+
+            // The Spliterator is split into segments, which together contain all the Txs, in order:
+            Spliterator<Sha256Hash> spliterator = db.getBlockTxsSpliterator(blockA.getHash())
+            Spliterator<Sha256Hash> firstHalf = spliterator.trySplit()
+            List<Sha256Hash> segmentsTxs = new ArrayList<>()
+            firstHalf.forEachRemaining { segmentsTxs.add(it) }
+            spliterator.forEachRemaining { segmentsTxs.add(it) }
+
+            List<Sha256Hash> parallelTxs = collectInParallel(db.getBlockTxsSpliterator(blockA.getHash()))
+            List<Sha256Hash> sequentialTxs = db.getBlockTxs(blockA.getHash()).collect()
+
+            // The Iterables of the Comparison can also be processed in parallel:
+            BlocksCompareResult comparison = db.compareBlocks(blockA.getHash(), blockB.getHash()).get()
+            List<Sha256Hash> txsInCommon = collectInParallel(comparison.getTxsInCommonIt().spliterator())
+            List<Sha256Hash> txsOnlyInA = collectInParallel(comparison.getTxsOnlyInA().spliterator())
+            List<Sha256Hash> txsOnlyInB = comparison.getTxsOnlyInB().collect()
+
+            // The Txs are removed in parallel. Those also linked to Block B are kept:
+            db.removeBlockTxs(blockA.getHash())
+        then:
+            firstHalf != null
+            firstHalf.estimateSize() == 2_500
+            segmentsTxs == txHashes
+            parallelTxs == txHashes
+            sequentialTxs == txHashes
+            txsInCommon == txHashesInCommon
+            txsOnlyInA == txHashes.subList(1_000, txHashes.size())
+            txsOnlyInB.isEmpty()
+            db.getBlockNumTxs(blockA.getHash()) == 0
+            !db.getBlockTxs(blockA.getHash()).iterator().hasNext()
+            db.getNumTxs() == 1_000
+            txHashesInCommon.every { db.containsTx(it) }
+            !txHashes.subList(1_000, txHashes.size()).any { db.containsTx(it) }
+            db.getBlockTxs(blockB.getHash()).collect() == txHashesInCommon
+        cleanup:
+            db.clear()
+            db.stop()
+        where:
+            keySchema << [KeySchema.BINARY, KeySchema.STRING]
+    }
+
+    def "testing removing the Txs of a Block can be run again after a failure"() {
+        given:
+            BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                    .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                    .networkId("BSV-Main")
+                    .blockTxsParallelism(4)
+                    .build()
+            // Once 2.000 Keys have been removed, the next one fails:
+            AtomicInteger numRemovals = new AtomicInteger()
+            AtomicBoolean failRemovals = new AtomicBoolean()
+            BlockStoreLevelDB db = new BlockStoreLevelDB(config, false, false, null, null) {
+                @Override
+                @CompileStatic
+                void remove(LevelDBTransaction tr, byte[] key) {
+                    if (failRemovals.get() && numRemovals.incrementAndGet() == 2_000)
+                        throw new RuntimeException("Testing a failure while removing the Txs")
+                    super.remove(tr, key)
+                }
+            }
+            HeaderReadOnly blockA = TestingUtils.buildBlock()
+            HeaderReadOnly blockB = TestingUtils.buildBlock()
+            List<Tx> txs = (1..5_000).collect { TestingUtils.buildTx() }
+            List<Sha256Hash> txHashes = txs.collect { it.getHash() }
+            List<Sha256Hash> txHashesInCommon = txHashes.subList(0, 1_000)
+        when:
+            db.start()
+            db.saveBlocks([blockA, blockB])
+            db.saveBlockTxs(blockA.getHash(), txs)
+            db.linkTxsToBlock(txHashesInCommon, blockB.getHash())
+            failRemovals.set(true)
+            Exception failure = null
+            try {
+                db.removeBlockTxs(blockA.getHash())
+            } catch (Exception e) {
+                failure = e
+            }
+            long numTxsAfterFailure = db.getNumTxs()
+            long numTxsStoredAfterFailure = txHashes.count { db.containsTx(it) }
+            long blockNumTxsAfterFailure = db.getBlockNumTxs(blockA.getHash())
+            db.removeBlockTxs(blockA.getHash())
+        then: "after the failure, the Counter matches the Txs still stored, and the Block keeps its properties"
+            failure != null
+            numTxsStoredAfterFailure < 5_000
+            numTxsAfterFailure == numTxsStoredAfterFailure
+            blockNumTxsAfterFailure == 5_000
+        and: "once run again, the rest of the Txs are removed, and counted only once"
+            db.getNumTxs() == 1_000
+            db.getBlockNumTxs(blockA.getHash()) == 0
+            !db.getBlockTxs(blockA.getHash()).iterator().hasNext()
+            txHashesInCommon.every { db.containsTx(it) }
+            !txHashes.subList(1_000, txHashes.size()).any { db.containsTx(it) }
+        cleanup:
+            failRemovals.set(false)
+            db.clear()
+            db.stop()
+    }
+
+    def "testing removing the Txs of a Block from a Thread of the IO Lane, with no other Thread free in it"() {
+        given:
+            // The IO Lane has only one Thread, which runs the removal itself:
+            RuntimeConfig runtimeConfig = new RuntimeConfigDefault().toBuilder().maxNumThreadsForP2P(1).build()
+            BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                    .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                    .runtimeConfig(runtimeConfig)
+                    .networkId("BSV-Main")
+                    .blockTxsParallelism(4)
+                    .build()
+            BlockStoreLevelDB db = BlockStoreLevelDB.builder().config(config).build()
+            ExecutorService ioLane = runtimeConfig.getExecutionModel().getIOLane("testing")
+            HeaderReadOnly block = TestingUtils.buildBlock()
+            List<Tx> txs = (1..5_000).collect { TestingUtils.buildTx() }
+        when:
+            db.start()
+            db.saveBlock(block)
+            db.saveBlockTxs(block.getHash(), txs)
+            // The segments queued in the IO Lane can not start, so they are run by the calling Thread:
+            ioLane.submit({ -> db.removeBlockTxs(block.getHash()) } as Runnable).get(60, TimeUnit.SECONDS)
+        then:
+            db.getNumTxs() == 0
+            db.getBlockNumTxs(block.getHash()) == 0
+        cleanup:
+            ioLane.shutdownNow()
+            db.clear()
+            db.stop()
+    }
+}
@@ -0,0 +1,203 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreBulkIngestState
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.store.levelDB.common.LevelDBTransaction
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Testing class for the Bulk Ingest, used for the initial loads of the Block Store.
+ */
+class BlockStoreBulkIngestSpec extends Specification {
+
+    private BlockStoreLevelDB getInstance(KeySchema keySchema) {
+        BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                .networkId("BSV-Main")
+                .keySchema(keySchema)
+                .blockTxsParallelism(4)
+                .build()
+        return BlockStoreLevelDB.builder().config(config).triggerTxEvents(true).build()
+    }
+
+    def "testing saving and linking Txs in a Bulk Ingest, and building the indexes when it finishes"() {
+        given:
+            BlockStoreLevelDB db = getInstance(keySchema)
+            HeaderReadOnly blockA = TestingUtils.buildBlock()
+            HeaderReadOnly blockB = TestingUtils.buildBlock()
+            List<Tx> txsA = new ArrayList<>()
+            for (int i = 0; i < 3_000; i++) txsA.add(TestingUtils.buildTx())
+            List<Tx> txsB = new ArrayList<>()
+            for (int i = 0; i < 500; i++) txsB.add(TestingUtils.buildTx())
+            List<Sha256Hash> txHashesA = txsA.collect { it.getHash() }
+            List<Sha256Hash> txHashesB = txsB.collect { it.getHash() }
+            AtomicInteger numTxsSavedEvents = new AtomicInteger()
+        when:
+            db.start()
+            db.EVENTS().TXS_SAVED.forEach({ e -> numTxsSavedEvents.incrementAndGet() })
+            db.saveBlocks([blockA, blockB])
+
+            // Block B already has one Tx linked before the Ingest:
+            db.saveTx(txsB.get(0))
+            db.linkTxToBlock(txHashesB.get(0), blockB.getHash())
+            Thread.sleep(100)
+            int numEventsBefore = numTxsSavedEvents.get()
+
+            db.startBulkIngest()
+            db.saveBlockTxs(blockA.getHash(), txsA)
+            db.saveTxs(txsB.subList(1, txsB.size()))
+            db.linkTxsToBlock(txHashesB.subList(1, txHashesB.size()), blockB.getHash())
+            // Some Txs saved again, and also linked to Block B:
+            db.saveTxs(txsA.subList(0, 100))
+            db.linkTxsToBlock(txHashesA.subList(0, 100), blockB.getHash())
+            BlockStoreBulkIngestState ingestingState = db.getBulkIngestState()
+            BlockStoreBulkIngestState finalState = db.finishBulkIngest()
+            Thread.sleep(100)
+        then:
+            numEventsBefore == 1
+            numTxsSavedEvents.get() == numEventsBefore
+            ingestingState.getPhase() == BlockStoreBulkIngestState.Phase.INGESTING
+            ingestingState.getTxs() == 3_000 + 499 + 100
+            ingestingState.getTxLinks() == 3_000 + 499 + 100
+            ingestingState.getTxLinksIndexed() == 0
+            ingestingState.getKeys() > 0
+            finalState.getTxLinksIndexed() == finalState.getTxLinks()
+            finalState.getIndexingProgress() == 100
+            finalState.getBlocks() == 2
+            db.getBulkIngestState().getPhase() == BlockStoreBulkIngestState.Phase.IDLE
+
+            // The Txs are stored and counted only once:
+            db.getNumTxs() == 3_500
+            txHashesA.every { db.containsTx(it) }
+            txHashesB.every { db.containsTx(it) }
+
+            // The Txs of each Block are in the order they were linked:
+            db.getBlockTxs(blockA.getHash()).collect() == txHashesA
+            db.getBlockTxs(blockB.getHash()).collect() == txHashesB + txHashesA.subList(0, 100)
+            db.getBlockNumTxs(blockA.getHash()) == 3_000
+            db.getBlockNumTxs(blockB.getHash()) == 600
+
+            // The reverse index from each Tx to its Blocks:
+            db.getBlockHashLinkedToTx(txHashesA.get(0)).toSet() == [blockA.getHash(), blockB.getHash()].toSet()
+            db.getBlockHashLinkedToTx(txHashesA.get(2_999)) == [blockA.getHash()]
+            db.getBlockHashLinkedToTx(txHashesB.get(250)) == [blockB.getHash()]
+            db.isTxLinkToblock(txHashesB.get(0), blockB.getHash())
+
+            // After the Ingest, the Txs linked keep the order:
+            db.linkTxToBlock(txHashesB.get(1), blockA.getHash())
+            db.getBlockTxs(blockA.getHash()).collect().last() == txHashesB.get(1)
+        cleanup:
+            db.clear()
+            db.stop()
+        where:
+            keySchema << [KeySchema.BINARY, KeySchema.STRING]
+    }
+
+    def "testing removing or unlinking Txs and Blocks is rejected during a Bulk Ingest"() {
+        given:
+            BlockStoreLevelDB db = getInstance(KeySchema.BINARY)
+            HeaderReadOnly block = TestingUtils.buildBlock()
+            Tx tx = TestingUtils.buildTx()
+            Map<String, Closure> removals = [
+                    removeTx          : { db.removeTx(tx.getHash()) },
+                    removeTxs         : { db.removeTxs([tx.getHash()]) },
+                    removeBlock       : { db.removeBlock(block.getHash()) },
+                    removeBlocks      : { db.removeBlocks([block.getHash()]) },
+                    removeBlockTxs    : { db.removeBlockTxs(block.getHash()) },
+                    unlinkTx          : { db.unlinkTx(tx.getHash()) },
+                    unlinkTxFromBlock : { db.unlinkTxFromBlock(tx.getHash(), block.getHash()) },
+                    unlinkTxsFromBlock: { db.unlinkTxsFromBlock([tx.getHash()], block.getHash()) },
+                    unlinkBlock       : { db.unlinkBlock(block.getHash()) }
+            ]
+        when:
+            db.start()
+            db.saveBlock(block)
+            db.startBulkIngest()
+            db.saveBlockTxs(block.getHash(), [tx])
+            List<String> rejected = removals.findAll { name, removal ->
+                try {
+                    removal.call()
+                    return false
+                } catch (IllegalStateException e) {
+                    return true
+                }
+            }.collect { it.key }
+            db.finishBulkIngest()
+        then:
+            rejected == removals.keySet().toList()
+            db.containsBlock(block.getHash())
+            db.containsTx(tx.getHash())
+            db.getBlockTxs(block.getHash()).collect() == [tx.getHash()]
+            db.getBlockHashLinkedToTx(tx.getHash()) == [block.getHash()]
+        when: "once finished, they are allowed again"
+            db.removeBlockTxs(block.getHash())
+        then:
+            !db.containsTx(tx.getHash())
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+
+    def "testing a Bulk Ingest which indexing fails can be finished again"() {
+        given:
+            BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                    .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                    .networkId("BSV-Main")
+                    .blockTxsParallelism(1)
+                    .build()
+            HeaderReadOnly blockA = TestingUtils.buildBlock()
+            HeaderReadOnly blockB = TestingUtils.buildBlock()
+            List<Tx> txsA = (1..200).collect { TestingUtils.buildTx() }
+            List<Tx> txsB = (1..300).collect { TestingUtils.buildTx() }
+            // The first time the Txs are counted again, once all the Blocks have been indexed, it fails:
+            AtomicBoolean failRecount = new AtomicBoolean()
+            BlockStoreLevelDB db = new BlockStoreLevelDB(config, false, false, null, null) {
+                @Override
+                void save(LevelDBTransaction tr, byte[] key, byte[] value) {
+                    if (Arrays.equals(key, fullKeyForCounter(tr, COUNTER_TXS)) && failRecount.getAndSet(false))
+                        throw new RuntimeException("Testing a failure while finishing the Bulk Ingest")
+                    super.save(tr, key, value)
+                }
+            }
+        when:
+            db.start()
+            db.saveBlocks([blockA, blockB])
+            db.startBulkIngest()
+            db.saveBlockTxs(blockA.getHash(), txsA)
+            db.saveBlockTxs(blockB.getHash(), txsB)
+            failRecount.set(true)
+            Exception failure = null
+            try {
+                db.finishBulkIngest()
+            } catch (Exception e) {
+                failure = e
+            }
+            BlockStoreBulkIngestState failedState = db.getBulkIngestState()
+            BlockStoreBulkIngestState finalState = db.finishBulkIngest()
+        then:
+            failure != null
+            failedState.getPhase() == BlockStoreBulkIngestState.Phase.INDEXING
+            finalState.getTxLinksIndexed() == finalState.getTxLinks()
+            db.getBulkIngestState().getPhase() == BlockStoreBulkIngestState.Phase.IDLE
+
+            // The Blocks indexed in the first attempt are not indexed again:
+            db.getNumTxs() == 500
+            db.getBlockNumTxs(blockA.getHash()) == 200
+            db.getBlockNumTxs(blockB.getHash()) == 300
+            db.getBlockTxs(blockB.getHash()).collect() == txsB.collect { it.getHash() }
+            db.getBlockHashLinkedToTx(txsB.get(299).getHash()) == [blockB.getHash()]
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+}
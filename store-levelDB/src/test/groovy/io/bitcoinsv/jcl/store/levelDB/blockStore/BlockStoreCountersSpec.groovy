@@ -0,0 +1,110 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreKeyValue
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Specification
+
+/**
+ * Testing class for the Counters maintained by the Store (number of Blocks and Txs), and their recount.
+ */
+class BlockStoreCountersSpec extends Specification {
+
+    // It returns the real number of Blocks and Txs, by iterating over the Keys:
+    private long countBlocks(BlockStoreLevelDB db)  { return db.numKeys(db.fullKeyPreffixForBlocks()) }
+    private long countTxs(BlockStoreLevelDB db)     { return db.numKeys(db.fullKeyPreffixForTxs()) }
+
+    def "testing Counters are updated along with the Data"() {
+        given:
+            BlockStoreLevelDB db = (BlockStoreLevelDB) StoreFactory.getInstance("BSV-Main", false, false, null, null, keySchema)
+            HeaderReadOnly block1 = TestingUtils.buildBlock()
+            HeaderReadOnly block2 = TestingUtils.buildBlock()
+            List<Tx> txs = new ArrayList<>()
+            for (int i = 0; i < 10; i++) txs.add(TestingUtils.buildTx())
+            List<Sha256Hash> txHashes = txs.collect { it.getHash() }
+        when:
+            db.start()
+            // Blocks and Txs saved twice are only counted once:
+            db.saveBlocks([block1, block2])
+            db.saveBlock(block1)
+            db.saveTxs(txs.subList(0, 4))
+            db.saveTx(txs.get(0))
+            db.saveTxsIfNotExist(txs.subList(2, 6))
+            db.saveBlockTxs(block1.getHash(), txs.subList(4, 10))
+            long numBlocksAfterSave = db.getNumBlocks()
+            long numTxsAfterSave = db.getNumTxs()
+            long block1NumTxsAfterSave = db.getBlockNumTxs(block1.getHash())
+
+            // Unlinking some Txs from the Block:
+            db.unlinkTxsFromBlock(txHashes.subList(4, 6), block1.getHash())
+            db.unlinkTxsFromBlock(txHashes.subList(4, 6), block1.getHash())
+            long block1NumTxsAfterUnlink = db.getBlockNumTxs(block1.getHash())
+
+            // Removing Txs (some of them twice or not existing) and Blocks:
+            db.removeTxs(txHashes.subList(0, 2))
+            db.removeTx(txHashes.get(0))
+            db.removeBlock(block2.getHash())
+            db.removeBlock(block2.getHash())
+            long numBlocksAfterRemove = db.getNumBlocks()
+            long numTxsAfterRemove = db.getNumTxs()
+
+            // Removing the Txs of a Block:
+            db.removeBlockTxs(block1.getHash())
+            long numTxsAfterRemoveBlockTxs = db.getNumTxs()
+            long realNumTxsAfterRemoveBlockTxs = countTxs(db)
+        then:
+            numBlocksAfterSave == 2
+            numTxsAfterSave == 10
+            block1NumTxsAfterSave == 6
+            block1NumTxsAfterUnlink == 4
+            numBlocksAfterRemove == 1
+            numBlocksAfterRemove == countBlocks(db)
+            numTxsAfterRemove == 8
+            numTxsAfterRemoveBlockTxs == realNumTxsAfterRemoveBlockTxs
+            db.getBlockNumTxs(block1.getHash()) == 0
+        cleanup:
+            db.clear()
+            db.stop()
+        where:
+            keySchema << [KeySchema.STRING, KeySchema.BINARY]
+    }
+
+    def "testing Store without Counters and recount"() {
+        given:
+            BlockStoreLevelDB db = (BlockStoreLevelDB) StoreFactory.getInstance("BSV-Main", false, false)
+            HeaderReadOnly block = TestingUtils.buildBlock()
+            List<Tx> txs = new ArrayList<>()
+            for (int i = 0; i < 20; i++) txs.add(TestingUtils.buildTx())
+        when:
+            db.start()
+            db.saveBlock(block)
+            db.saveBlockTxs(block.getHash(), txs)
+
+            // We simulate a Store created before the Counters existed, with wrong values in them:
+            db.remove(null, db.fullKeyForCounter(null, BlockStoreKeyValue.COUNTER_VALID))
+            db.save(null, db.fullKeyForCounter(null, BlockStoreKeyValue.COUNTER_TXS), db.bytes(5L))
+            db.save(null, db.fullKeyForBlockNumTxs(null, block.getHash().toString()), db.bytes(7L))
+            db.stop()
+            db.start()
+            boolean validAfterRestart = db._isCountersValid(null)
+            long numTxsWithoutCounters = db.getNumTxs()
+
+            // We recount them:
+            db.recountCounters()
+        then:
+            !validAfterRestart
+            numTxsWithoutCounters == 20
+            db._isCountersValid(null)
+            db._getCounter(null, BlockStoreKeyValue.COUNTER_TXS) == 20
+            db._getCounter(null, BlockStoreKeyValue.COUNTER_BLOCKS) == 1
+            db.getBlockNumTxs(block.getHash()) == 20
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+}
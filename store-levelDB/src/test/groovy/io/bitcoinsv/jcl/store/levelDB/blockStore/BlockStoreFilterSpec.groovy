@@ -0,0 +1,127 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreFilterState
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreFilter
+import io.bitcoinsv.jcl.store.keyValue.common.StoreFilter
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Specification
+
+import java.nio.file.Path
+
+/**
+ * Testing class for the Filters of Txs and Blocks used to skip the lookups of Items not stored in the DB.
+ */
+class BlockStoreFilterSpec extends Specification {
+
+    private BlockStoreLevelDB getInstance(Path workingFolder, Long filterExpectedItems) {
+        BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                .workingFolder(workingFolder)
+                .networkId("BSV-Main")
+                .filterExpectedItems(filterExpectedItems)
+                .build()
+        return BlockStoreLevelDB.builder().config(config).build()
+    }
+
+    def "testing Filters are kept up to date and loaded when the Store starts"() {
+        given:
+            Path workingFolder = Path.of(StoreFactory.buildWorkingFolder())
+            BlockStoreLevelDB db = getInstance(workingFolder, filterExpectedItems)
+            HeaderReadOnly block = TestingUtils.buildBlock()
+            List<Tx> txs = new ArrayList<>()
+            for (int i = 0; i < 20; i++) txs.add(TestingUtils.buildTx())
+            List<Tx> txsNotStored = new ArrayList<>()
+            for (int i = 0; i < 20; i++) txsNotStored.add(TestingUtils.buildTx())
+        when:
+            db.start()
+            db.saveBlock(block)
+            db.saveTxs(txs.subList(0, 10))
+            List<Tx> txsInserted = db.saveTxsIfNotExist(txs)
+            boolean allTxsFound = txs.every { db.containsTx(it.getHash()) }
+            boolean anyTxNotStoredFound = txsNotStored.any { db.containsTx(it.getHash()) }
+            boolean blockFound = db.containsBlock(block.getHash())
+
+            // A removed Tx is still in the Filter, but not in the DB:
+            db.removeTx(txs.get(0).getHash())
+            boolean removedTxFound = db.containsTx(txs.get(0).getHash())
+            BlockStoreFilterState txsState = db.getFilter().getState().get(BlockStoreFilter.FILTER_TXS)
+
+            // After restarting, the Filter is loaded from the DB:
+            db.stop()
+            db = getInstance(workingFolder, filterExpectedItems)
+            db.start()
+            boolean allTxsFoundAfterRestart = txs.subList(1, txs.size()).every { db.containsTx(it.getHash()) }
+            boolean removedTxFoundAfterRestart = db.containsTx(txs.get(0).getHash())
+            boolean blockFoundAfterRestart = db.containsBlock(block.getHash())
+            BlockStoreFilterState txsStateAfterRestart = db.getFilter().getState().get(BlockStoreFilter.FILTER_TXS)
+        then:
+            txsInserted.size() == 10
+            allTxsFound
+            !anyTxNotStoredFound
+            blockFound
+            !removedTxFound
+            txsState.isLoaded() == (filterExpectedItems != null)
+            txsState.getItems() == ((filterExpectedItems != null) ? 20 : 0)
+            txsState.getRemovedItems() == ((filterExpectedItems != null) ? 1 : 0)
+            (txsState.getNegatives() >= 20) == (filterExpectedItems != null)
+            allTxsFoundAfterRestart
+            !removedTxFoundAfterRestart
+            blockFoundAfterRestart
+            txsStateAfterRestart.getItems() == ((filterExpectedItems != null) ? 19 : 0)
+        cleanup:
+            db.clear()
+            db.stop()
+        where:
+            filterExpectedItems << [null, 5L]
+    }
+
+    def "testing Filter grows beyond the Items expected"() {
+        given:
+            StoreFilter filter = new StoreFilter(100, 0.01)
+            List<String> hashes = new ArrayList<>()
+            for (int i = 0; i < 2_000; i++) hashes.add(TestingUtils.buildTx().getHash().toString())
+        when:
+            filter.loaded()
+            hashes.forEach { filter.add(it) }
+            boolean allFound = hashes.every { filter.mightContain(it) }
+            int numFalsePositives = 0
+            for (int i = 0; i < 10_000; i++) {
+                if (filter.mightContain(UUID.randomUUID().toString())) numFalsePositives++
+            }
+            BlockStoreFilterState state = filter.getState()
+        then:
+            allFound
+            state.getItems() == 2_000
+            // The compound false positive rate stays around the one given (1%):
+            numFalsePositives < 200
+            state.getMemoryBytes() > 0
+    }
+
+    def "testing Items added from several Threads while the Filter grows are never missed"() {
+        given:
+            StoreFilter filter = new StoreFilter(100, 0.01)
+            int numThreads = 8
+            List<List<String>> hashes = (1..numThreads).collect { (1..2_000).collect { UUID.randomUUID().toString() } }
+        when:
+            filter.loaded()
+            List<String> missed = Collections.synchronizedList(new ArrayList<>())
+            List<Thread> threads = (0..<numThreads).collect { i ->
+                Thread.start {
+                    // Each Item is looked up right after it's added, while other Threads keep adding stages:
+                    hashes.get(i).each { h ->
+                        filter.add(h)
+                        if (!filter.mightContain(h)) missed.add(h)
+                    }
+                }
+            }
+            threads.each { it.join() }
+            BlockStoreFilterState state = filter.getState()
+        then:
+            missed.isEmpty()
+            hashes.flatten().every { filter.mightContain(it) }
+            state.getItems() == numThreads * 2_000
+    }
+}
@@ -0,0 +1,63 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import org.iq80.leveldb.DBIterator
+import spock.lang.Ignore
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Benchmark of the Key Schemas: It stores the same Block and Txs using each Schema, and measures the bytes used by
+ * the Keys of each Tx, and the number of Txs saved per second.
+ * We are NOT testing functionality here, just making measurements.
+ */
+class BlockStoreKeySchemaBenchmarkSpec extends Specification {
+
+    @Ignore // time-consuming
+    def "Benchmark of bytes per Tx and Txs saved per sec"() {
+        given:
+            int NUM_TXS = 100_000           // Total Num of Tx inserted
+            int BATCH_TXS_SIZE = 10_000     // Num Txs saved on each call/batch
+            BlockStoreLevelDB db = (BlockStoreLevelDB) StoreFactory.getInstance("BSV-Main", false, false, null, null, keySchema)
+            HeaderReadOnly block = TestingUtils.buildBlock()
+            List<Tx> txs = new ArrayList<>()
+            for (int i = 0; i < NUM_TXS; i++) txs.add(TestingUtils.buildTx())
+        when:
+            db.start()
+            db.saveBlock(block)
+            Instant begin = Instant.now()
+            for (int i = 0; i < NUM_TXS; i += BATCH_TXS_SIZE)
+                db.saveBlockTxs(block.getHash(), txs.subList(i, i + BATCH_TXS_SIZE))
+            long millisecs = Duration.between(begin, Instant.now()).toMillis()
+
+            // We add up the size of all the Keys:
+            long keyBytes = 0
+            long valueBytes = 0
+            DBIterator it = db.levelDBStore.iterator()
+            it.seekToFirst()
+            while (it.hasNext()) {
+                Map.Entry<byte[], byte[]> entry = it.next()
+                keyBytes += entry.getKey().length
+                valueBytes += entry.getValue().length
+            }
+            it.close()
+
+            println("Key Schema " + keySchema + ":")
+            println(" - " + (keyBytes / NUM_TXS) + " key bytes per Tx, " + (valueBytes / NUM_TXS) + " value bytes per Tx")
+            println(" - " + ((NUM_TXS * 1000L) / millisecs) + " txs/sec saved")
+        then:
+            db.getNumTxs() == NUM_TXS
+        cleanup:
+            db.clear()
+            db.stop()
+        where:
+            keySchema << [KeySchema.STRING, KeySchema.BINARY]
+    }
+}
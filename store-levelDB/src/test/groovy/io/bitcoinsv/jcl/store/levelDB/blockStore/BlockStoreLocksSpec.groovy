@@ -0,0 +1,115 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreLockState
+import io.bitcoinsv.jcl.store.keyValue.blockStore.BlockStoreLocks
+import io.bitcoinsv.jcl.store.keyValue.common.StoreLock
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.util.concurrent.locks.Lock
+
+/**
+ * Testing class for the Locks of the Block Store: Blocks and Txs are distributed into stripes by their Hash, so
+ * independent Items can be written concurrently, and the time spent waiting is reported per Domain.
+ */
+class BlockStoreLocksSpec extends Specification {
+
+    private static final int NUM_STRIPES = 16
+
+    private BlockStoreLevelDB getInstance() {
+        BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                .networkId("BSV-Main")
+                .transactionBatchSize(100)
+                .lockStripes(NUM_STRIPES)
+                .build()
+        return BlockStoreLevelDB.builder().config(config).build()
+    }
+
+    def "testing the stripes of the Hashes are acquired in ascending order"() {
+        given:
+            StoreLock storeLock = new StoreLock(NUM_STRIPES)
+            List<String> hashes = (1..50).collect { TestingUtils.buildTx().getHash().toString() }
+        when:
+            List<Lock> locksHeld = new ArrayList<>()
+            storeLock.acquire(true, hashes, locksHeld)
+            List<Integer> stripesHeld = locksHeld.collect { l -> (0..<NUM_STRIPES).find { storeLock.getStripe(it).writeLock().is(l) } }
+            boolean heldWhileLocked = storeLock.isHeldByCurrentThread()
+            locksHeld.each { it.unlock() }
+        then:
+            hashes.every { storeLock.stripeFor(it) == storeLock.stripeFor(it) && storeLock.stripeFor(it) < NUM_STRIPES }
+            stripesHeld == hashes.collect { storeLock.stripeFor(it) }.unique().sort()
+            heldWhileLocked
+            !storeLock.isHeldByCurrentThread()
+            storeLock.getState().getAcquisitions() == stripesHeld.size()
+    }
+
+    def "testing saving Txs and Blocks from several Threads keeps the Counters right"() {
+        given:
+            BlockStoreLevelDB db = getInstance()
+            int numThreads = 4
+            List<HeaderReadOnly> blocks = (1..numThreads).collect { TestingUtils.buildBlock() }
+            List<List<Tx>> blockTxs = (1..numThreads).collect { (1..300).collect { TestingUtils.buildTx() } }
+            List<List<Tx>> looseTxs = (1..numThreads).collect { (1..300).collect { TestingUtils.buildTx() } }
+        when:
+            db.start()
+            List<Thread> threads = (0..<numThreads).collect { i ->
+                Thread.start {
+                    db.saveBlock(blocks.get(i))
+                    db.saveBlockTxs(blocks.get(i).getHash(), blockTxs.get(i))
+                    looseTxs.get(i).each { db.saveTx(it) }
+                }
+            }
+            threads.each { it.join() }
+            Map<String, BlockStoreLockState> locksState = db.getLocks().getState()
+        then:
+            db.getNumBlocks() == numThreads
+            db.getNumTxs() == numThreads * 600
+            (0..<numThreads).every { db.getBlockNumTxs(blocks.get(it).getHash()) == 300 }
+            (0..<numThreads).every { db.getBlockTxs(blocks.get(it).getHash()).toSet() == blockTxs.get(it).collect { tx -> tx.getHash() }.toSet() }
+            locksState.keySet().toList() == [BlockStoreLocks.LOCK_STORE, BlockStoreLocks.LOCK_CHAIN, BlockStoreLocks.LOCK_BLOCKS,
+                                             BlockStoreLocks.LOCK_TXS, BlockStoreLocks.LOCK_COUNTERS]
+            locksState.get(BlockStoreLocks.LOCK_BLOCKS).getStripes() == NUM_STRIPES
+            locksState.get(BlockStoreLocks.LOCK_TXS).getAcquisitions() > 0
+            locksState.get(BlockStoreLocks.LOCK_COUNTERS).getAcquisitions() > 0
+            locksState.get(BlockStoreLocks.LOCK_CHAIN).getAcquisitions() == 0
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+
+    def "testing a Tx locked only blocks the Txs in its stripe, and the wait is reported"() {
+        given:
+            BlockStoreLevelDB db = getInstance()
+            StoreLock txsLock = db.getLocks().getTxs()
+            Tx txLocked = TestingUtils.buildTx()
+            Tx txFree = TestingUtils.buildTx()
+            while (txsLock.stripeFor(txFree.getHash().toString()) == txsLock.stripeFor(txLocked.getHash().toString()))
+                txFree = TestingUtils.buildTx()
+        when:
+            db.start()
+            BlockStoreLocks.Held held = db.getLocks().request().txs(true, [txLocked.getHash().toString()]).acquire()
+            Thread writer = Thread.start { db.saveTx(txLocked) }
+            Thread.sleep(200)
+            boolean writerBlocked = writer.isAlive()
+            db.saveTx(txFree)
+            held.close()
+            writer.join()
+            BlockStoreLockState txsState = db.getLocks().getState().get(BlockStoreLocks.LOCK_TXS)
+        then:
+            writerBlocked
+            db.containsTx(txLocked.getHash())
+            db.containsTx(txFree.getHash())
+            txsState.getWaits() >= 1
+            txsState.getMaxWaitNanos() >= 100_000_000
+            txsState.getContention() > 0
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+}
@@ -0,0 +1,80 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Ignore
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Benchmark of the ingestion of Txs, with the changes of each Transaction written in a single Write Batch (default),
+ * and written one by one (a Write Batch max size of zero bytes, which is how the Store used to work).
+ * We are NOT testing functionality here, just making measurements. The first two runs only warm up the JVM, the
+ * numbers to compare are the ones of the last two.
+ */
+class BlockStoreWriteBatchBenchmarkSpec extends Specification {
+
+    // It returns the number of Txs processed per second:
+    private long txsPerSec(int numTxs, Instant begin) {
+        return (numTxs * 1000L) / Math.max(1, Duration.between(begin, Instant.now()).toMillis())
+    }
+
+    @Ignore // time-consuming
+    def "Benchmark of Txs saved per sec, with and without Write Batches"() {
+        given:
+            int NUM_TXS = 100_000           // Total Num of Tx inserted
+            int BATCH_TXS_SIZE = 10_000     // Num Txs saved on each call/batch
+            BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                .networkId("BSV-Main")
+                .writeBatchMaxBytes(writeBatchMaxBytes)
+                .build()
+            BlockStoreLevelDB db = BlockStoreLevelDB.builder().config(config).build()
+            HeaderReadOnly block1 = TestingUtils.buildBlock()
+            HeaderReadOnly block2 = TestingUtils.buildBlock()
+            List<Tx> txs = new ArrayList<>()
+            for (int i = 0; i < NUM_TXS; i++) txs.add(TestingUtils.buildTx())
+            List<Sha256Hash> txHashes = txs.collect { it.getHash() }
+        when:
+            db.start()
+            db.saveBlocks([block1, block2])
+
+            // saveBlockTxs: saving and linking the Txs:
+            Instant begin = Instant.now()
+            for (int i = 0; i < NUM_TXS; i += BATCH_TXS_SIZE)
+                db.saveBlockTxs(block1.getHash(), txs.subList(i, i + BATCH_TXS_SIZE))
+            long saveBlockTxsRate = txsPerSec(NUM_TXS, begin)
+
+            // linkTxsToBlock: linking the same Txs to another Block:
+            begin = Instant.now()
+            for (int i = 0; i < NUM_TXS; i += BATCH_TXS_SIZE)
+                db.linkTxsToBlock(txHashes.subList(i, i + BATCH_TXS_SIZE), block2.getHash())
+            long linkTxsRate = txsPerSec(NUM_TXS, begin)
+
+            // saveTxs: saving them again:
+            begin = Instant.now()
+            for (int i = 0; i < NUM_TXS; i += BATCH_TXS_SIZE)
+                db.saveTxs(txs.subList(i, i + BATCH_TXS_SIZE))
+            long saveTxsRate = txsPerSec(NUM_TXS, begin)
+
+            println("Write Batch max bytes " + config.getWriteBatchMaxBytes() + ":")
+            println(" - saveBlockTxs   : " + saveBlockTxsRate + " txs/sec")
+            println(" - linkTxsToBlock : " + linkTxsRate + " txs/sec")
+            println(" - saveTxs        : " + saveTxsRate + " txs/sec")
+        then:
+            db.getNumTxs() == NUM_TXS
+            db.getBlockNumTxs(block2.getHash()) == NUM_TXS
+        cleanup:
+            db.clear()
+            db.stop()
+        where:
+            writeBatchMaxBytes << [0L, null, 0L, null]
+    }
+}
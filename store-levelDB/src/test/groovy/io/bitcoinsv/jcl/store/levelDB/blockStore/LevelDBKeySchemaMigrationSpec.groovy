@@ -0,0 +1,108 @@
+package io.bitcoinsv.jcl.store.levelDB.blockStore
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
+import io.bitcoinsv.jcl.store.blockStore.metadata.provided.BlockValidationMD
+import io.bitcoinsv.jcl.store.blockStore.metadata.provided.TxValidationMD
+import io.bitcoinsv.jcl.store.keyValue.common.BinaryKeys
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Specification
+
+import java.nio.file.Path
+
+/**
+ * Testing class for the Migration of a LevelDB from the STRING to the BINARY Key Schema.
+ */
+class LevelDBKeySchemaMigrationSpec extends Specification {
+
+    private static final String NET_ID = "BSV-Main"
+    private static final String HASH = "3f62b8f3447cc716900ea6fab805fa86226af7246ff0f984a8ab7e7f1d6b48ae"
+
+    // It opens the DB in the folder given, using the default Key Schema for new DBs:
+    private BlockStoreLevelDB openDB(Path folder) {
+        BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                .workingFolder(folder)
+                .networkId(NET_ID)
+                .build()
+        return BlockStoreLevelDB.builder()
+                .config(config)
+                .blockMetadataClass(BlockValidationMD.class)
+                .txMetadataClass(TxValidationMD.class)
+                .build()
+    }
+
+    def "testing migrating a DB from STRING to BINARY keys"() {
+        given:
+            BlockStoreLevelDB db = (BlockStoreLevelDB) StoreFactory.getInstance(NET_ID, false, false,
+                    BlockValidationMD.class, TxValidationMD.class, KeySchema.STRING)
+            Path folder = db.getConfig().getWorkingFolder()
+            HeaderReadOnly block1 = TestingUtils.buildBlock()
+            HeaderReadOnly block2 = TestingUtils.buildBlock()
+            List<Tx> txs = new ArrayList<>()
+            for (int i = 0; i < 20; i++) txs.add(TestingUtils.buildTx())
+            List<Sha256Hash> txHashes = txs.collect { it.getHash() }
+        when:
+            // We populate a DB using the STRING Schema:
+            db.start()
+            db.saveBlocks([block1, block2])
+            db.saveBlockTxs(block1.getHash(), txs)
+            db.linkTxsToBlock(txHashes.subList(0, 5), block2.getHash())
+            db.saveBlockMetadata(block1.getHash(), new BlockValidationMD(20, true, false))
+            db.stop()
+
+            // An existing DB keeps its Schema, even if the default one is different:
+            BlockStoreLevelDB dbBeforeMigration = openDB(folder)
+            KeySchema schemaBeforeMigration = dbBeforeMigration.getKeySchema()
+            long numTxsBeforeMigration = dbBeforeMigration.getNumTxs()
+            dbBeforeMigration.stop()
+
+            // We migrate it and open it again:
+            LevelDBKeySchemaMigration.MigrationResult result = new LevelDBKeySchemaMigration(folder, NET_ID).migrate()
+            LevelDBKeySchemaMigration.MigrationResult secondResult = new LevelDBKeySchemaMigration(folder, NET_ID).migrate()
+            BlockStoreLevelDB dbMigrated = openDB(folder)
+        then:
+            schemaBeforeMigration == KeySchema.STRING
+            numTxsBeforeMigration == 20
+            result.getKeysSkipped() == 0
+            result.getKeysMigrated() > 0
+            result.getKeyBytesAfter() * 2 < result.getKeyBytesBefore()
+            secondResult.getKeysMigrated() == 0
+            dbMigrated.getKeySchema() == KeySchema.BINARY
+            dbMigrated.getNumBlocks() == 2
+            dbMigrated.getNumTxs() == 20
+            dbMigrated.getBlockNumTxs(block1.getHash()) == 20
+            dbMigrated.getBlockNumTxs(block2.getHash()) == 5
+            dbMigrated.getBlockTxs(block1.getHash()).collect() == txHashes
+            dbMigrated.getBlockTxs(block2.getHash()).collect() == txHashes.subList(0, 5)
+            dbMigrated.getBlockHashLinkedToTx(txHashes.get(0)).toSet() == [block1.getHash(), block2.getHash()].toSet()
+            dbMigrated.getTx(txHashes.get(7)).get().getHash() == txHashes.get(7)
+            ((BlockValidationMD) dbMigrated.getBlockMetadata(block1.getHash()).get()).getNumTxs() == 20
+        cleanup:
+            dbMigrated.clear()
+            dbMigrated.stop()
+    }
+
+    def "testing converting Keys from the STRING layout"() {
+        expect:
+            LevelDBKeySchemaMigration.convertKey(stringKey) == binaryKey
+        where:
+            stringKey                                       | binaryKey
+            "blocks\\block:" + HASH + ":"                   | BinaryKeys.key(BinaryKeys.NS_BLOCK, HASH)
+            "blocks\\block_p:" + HASH + ":numTxs:"          | BinaryKeys.key(BinaryKeys.NS_BLOCK_NUMTXS, HASH)
+            "blocks\\block_p:" + HASH + ":next:"            | BinaryKeys.key(BinaryKeys.NS_BLOCK_NEXT, HASH)
+            "blocks\\" + HASH + "\\tx_link:\u0002" + "42:" + HASH + ":" | BinaryKeys.keyForBlockTx(HASH, 41, HASH)
+            "blocks\\b_chain:" + HASH + ":"                 | BinaryKeys.key(BinaryKeys.NS_BLOCK_CHAIN, HASH)
+            "blocks\\b_height:1234:"                        | BinaryKeys.key(BinaryKeys.NS_BLOCK_HEIGHT, 1234)
+            "blocks\\chain_tips:"                           | BinaryKeys.key(BinaryKeys.NS_CHAIN_TIPS)
+            "blocks\\chain_paths:last:"                     | BinaryKeys.key(BinaryKeys.NS_PATHS_LAST)
+            "blocks\\chain_path:7:"                         | BinaryKeys.key(BinaryKeys.NS_PATH, 7)
+            "txs\\tx_block_link:" + HASH + ":" + HASH + ":" | BinaryKeys.key(BinaryKeys.NS_TX_BLOCK, HASH, HASH)
+            "txs\\metadata\\tx_m:" + HASH + ":class a.B"    | BinaryKeys.key(BinaryKeys.NS_TX_META, HASH)
+            "counters\\counter:txs:"                        | BinaryKeys.keyForCounter("txs")
+            "txs\\unknown:"                                 | null
+    }
+}
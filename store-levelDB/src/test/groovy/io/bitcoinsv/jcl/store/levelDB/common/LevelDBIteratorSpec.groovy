@@ -6,6 +6,7 @@ import io.bitcoinsv.jcl.store.levelDB.blockStore.BlockStoreLevelDB
 import io.bitcoinsv.jcl.store.levelDB.StoreFactory
 import io.bitcoinsv.jcl.store.blockStore.BlockStore
 import io.bitcoinsv.jcl.store.blockStore.metadata.Metadata
+import io.bitcoinsv.jcl.store.keyValue.common.KeySchema
 
 import java.util.function.Function
 
@@ -18,7 +19,8 @@ class LevelDBIteratorSpec extends IteratorSpecBase {
 
     @Override
     BlockStore getInstance(String netId, boolean triggerBlockEvents, boolean triggerTxEvents, Class<? extends Metadata> blockMetadataClass, Class<? extends Metadata> txMetadataClass) {
-        return StoreFactory.getInstance(netId, triggerBlockEvents, triggerTxEvents)
+        // The preffixes and suffixes used in these tests follow the STRING layout of the Keys:
+        return StoreFactory.getInstance(netId, triggerBlockEvents, triggerTxEvents, null, null, KeySchema.STRING)
     }
 
     @Override
@@ -0,0 +1,195 @@
+package io.bitcoinsv.jcl.store.levelDB.common
+
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
+import io.bitcoinsv.jcl.store.levelDB.StoreFactory
+import io.bitcoinsv.jcl.store.levelDB.blockStore.BlockStoreLevelDB
+import io.bitcoinsv.jcl.store.levelDB.blockStore.BlockStoreLevelDBConfig
+import io.bitcoinsv.jcl.tools.common.TestingUtils
+import spock.lang.Specification
+
+import java.nio.file.Path
+
+/**
+ * Testing class for the LevelDB Transactions (based on WriteBatches)
+ */
+class LevelDBTransactionSpec extends Specification {
+
+    // It creates a Store with the max size of the Write Batch given:
+    private BlockStoreLevelDB getInstance(Long writeBatchMaxBytes) {
+        BlockStoreLevelDBConfig config = BlockStoreLevelDBConfig.builder()
+                .workingFolder(Path.of(StoreFactory.buildWorkingFolder()))
+                .networkId("BSV-Main")
+                .writeBatchMaxBytes(writeBatchMaxBytes)
+                .build()
+        return BlockStoreLevelDB.builder().config(config).build()
+    }
+
+    def "testing changes are only written when the Transaction is committed"() {
+        given:
+            BlockStoreLevelDB db = getInstance(null)
+            byte[] key1 = "key1".getBytes()
+            byte[] key2 = "key2".getBytes()
+        when:
+            db.start()
+            db.save(null, key2, "initial".getBytes())
+            LevelDBTransaction tr = db.createTransaction()
+            db.save(tr, key1, "value1".getBytes())
+            db.remove(tr, key2)
+            // The Transaction reads its own changes, but they are not in the DB yet:
+            boolean trReadsChanges = (db.read(tr, key1) == "value1".getBytes()) && (db.read(tr, key2) == null)
+            boolean dbUnchanged = (db.levelDBStore.get(key1) == null) && (db.levelDBStore.get(key2) == "initial".getBytes())
+            db.commitTransaction(tr)
+            boolean dbChanged = (db.levelDBStore.get(key1) == "value1".getBytes()) && (db.levelDBStore.get(key2) == null)
+        then:
+            trReadsChanges
+            dbUnchanged
+            dbChanged
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+
+    def "testing changes are discarded when the Transaction is rolled back"() {
+        given:
+            BlockStoreLevelDB db = getInstance(null)
+            byte[] key = "key".getBytes()
+        when:
+            db.start()
+            LevelDBTransaction tr = db.createTransaction()
+            db.executeInTransaction(tr, {
+                db.save(tr, key, "value".getBytes())
+                throw new RuntimeException("Forced Error")
+            })
+        then:
+            thrown(RuntimeException)
+            db.read(null, key) == null
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+
+    def "testing Transactions created within the same Thread are joined"() {
+        given:
+            BlockStoreLevelDB db = getInstance(null)
+            byte[] key1 = "key1".getBytes()
+            byte[] key2 = "key2".getBytes()
+        when:
+            db.start()
+            LevelDBTransaction outer = db.createTransaction()
+            LevelDBTransaction inner = db.createTransaction()
+            db.save(inner, key1, "value1".getBytes())
+            // changes with no Transaction also go to the current one:
+            db.save(null, key2, "value2".getBytes())
+            db.commitTransaction(inner)
+            boolean writtenAfterInnerCommit = db.levelDBStore.get(key1) != null || db.levelDBStore.get(key2) != null
+            db.commitTransaction(outer)
+            boolean writtenAfterOuterCommit = db.levelDBStore.get(key1) != null && db.levelDBStore.get(key2) != null
+        then:
+            inner.is(outer)
+            !writtenAfterInnerCommit
+            writtenAfterOuterCommit
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+
+    def "testing the Write Batch is flushed when it reaches its max size"() {
+        given:
+            BlockStoreLevelDB db = getInstance(150)
+        when:
+            db.start()
+            LevelDBTransaction tr = db.createTransaction()
+            for (int i = 0; i < 10; i++) {
+                // Each change is an operation within the Transaction (an inner level):
+                LevelDBTransaction inner = db.createTransaction()
+                db.save(inner, ("key" + i).getBytes(), new byte[20])
+                db.commitTransaction(inner)
+            }
+            // 10 changes of 24 bytes each: the first 7 (168 bytes) have been written when the Batch reached 150 bytes:
+            long numKeysBeforeCommit = (0..<10).count { db.levelDBStore.get(("key" + it).getBytes()) != null }
+            db.commitTransaction(tr)
+            long numKeysAfterCommit = (0..<10).count { db.levelDBStore.get(("key" + it).getBytes()) != null }
+        then:
+            numKeysBeforeCommit == 7
+            numKeysAfterCommit == 10
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+
+    def "testing iterating within a Transaction returns its changes, and does not write them"() {
+        given:
+            BlockStoreLevelDB db = getInstance(null)
+            byte[] preffix = "dir:".getBytes()
+        when:
+            db.start()
+            ["a", "c", "e"].each { db.save(null, (new String(preffix) + it).getBytes(), it.getBytes()) }
+            db.save(null, "other".getBytes(), "other".getBytes())
+            LevelDBTransaction tr = db.createTransaction()
+            db.save(tr, "dir:b".getBytes(), "b".getBytes())
+            db.save(tr, "dir:c".getBytes(), "c2".getBytes())
+            db.remove(tr, "dir:e".getBytes())
+            db.save(tr, "dir:f".getBytes(), "f".getBytes())
+            db.save(tr, "zzz".getBytes(), "zzz".getBytes())
+            List<String> itemsInTr = db.getIterator(preffix, null, null, { e -> new String(e.getKey()) + "=" + new String(e.getValue()) }).toList()
+            List<String> itemsInRange = db.getIterator(preffix, "dir:b".getBytes(), "dir:f".getBytes(), null, null, { e -> new String(e.getKey()) }).toList()
+            boolean dbUnchanged = (db.levelDBStore.get("dir:b".getBytes()) == null) && (db.levelDBStore.get("dir:e".getBytes()) != null)
+            db.rollbackTransaction(tr)
+            List<String> itemsAfterRollback = db.getIterator(preffix, null, null, { e -> new String(e.getKey()) }).toList()
+        then:
+            itemsInTr == ["dir:a=a", "dir:b=b", "dir:c=c2", "dir:f=f"]
+            itemsInRange == ["dir:b", "dir:c"]
+            dbUnchanged
+            itemsAfterRollback == ["dir:a", "dir:c", "dir:e"]
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+
+    def "testing a big Transaction is not written until it's committed, unless a max size is set"() {
+        given:
+            BlockStoreLevelDB db = getInstance(null)
+        when:
+            db.start()
+            LevelDBTransaction tr = db.createTransaction()
+            for (int i = 0; i < 700; i++) db.save(tr, ("key" + i).getBytes(), new byte[100_000])
+            long numKeysBeforeRollback = (0..<700).count { db.levelDBStore.get(("key" + it).getBytes()) != null }
+            db.rollbackTransaction(tr)
+            long numKeysAfterRollback = (0..<700).count { db.read(null, ("key" + it).getBytes()) != null }
+        then:
+            db.getConfig().getWriteBatchMaxBytes() == BlockStoreLevelDBConfig.WRITE_BATCH_NO_LIMIT
+            numKeysBeforeRollback == 0
+            numKeysAfterRollback == 0
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+
+    def "testing the Counters are written along with the data when the Batch is full, and rolled back with it"() {
+        given:
+            BlockStoreLevelDB db = getInstance(150)
+            List<Tx> txs = (1..10).collect { TestingUtils.buildTx() }
+        when:
+            db.start()
+            LevelDBTransaction tr = db.createTransaction()
+            db.executeInTransaction(tr, {
+                // The first operation fills the Batch, so it's written along with its Counters:
+                db.saveTxs(txs.subList(0, 5))
+                // Within one operation, the data is not written until it's complete:
+                LevelDBTransaction inner = db.createTransaction()
+                db.executeInTransaction(inner, {
+                    txs.subList(5, 10).each { db._saveTx(inner, it) }
+                    throw new RuntimeException("Forced Error")
+                })
+            })
+        then:
+            thrown(RuntimeException)
+            txs.subList(0, 5).every { db.containsTx(it.getHash()) }
+            txs.subList(5, 10).every { !db.containsTx(it.getHash()) }
+            db.getNumTxs() == 5
+        cleanup:
+            db.clear()
+            db.stop()
+    }
+}
@@ -47,6 +47,11 @@ public interface BlockChainStore extends BlockStore {
      */
     Iterable<Sha256Hash> getOrphanBlocks();
 
+    /**
+     * Returns the number of Orphan blocks in the DB
+     */
+    long getNumOrphanBlocks();
+
     /**
      * Returns the relative info about the Chain that the Block given is connected to. If the Block is not stored in
      * the DB or it' stored but not connected to any Chain (because there might be a GAP between the Genesis clock and
@@ -0,0 +1,36 @@
+package io.bitcoinsv.jcl.store.blockChainStore;
+
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It stores the State of one of the Caches used by the BlockChain Store at a point in time: The number of lookups
+ * found in the Cache (hits) and not found (misses) since the Store started, and the number of items in it.
+ */
+public final class BlockChainStoreCacheState {
+    private final long hits;
+    private final long misses;
+    private final long size;
+
+    public BlockChainStoreCacheState(long hits, long misses, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.size = size;
+    }
+
+    public long getHits()       { return this.hits; }
+    public long getMisses()     { return this.misses; }
+    public long getSize()       { return this.size; }
+
+    /** Percentage of lookups found in the Cache [0-100] */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return (lookups == 0) ? 0 : (hits * 100d) / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheState(hitRate=" + String.format("%.1f", getHitRate()) + "%, hits=" + hits + ", misses=" + misses + ", size=" + size + ")";
+    }
+}
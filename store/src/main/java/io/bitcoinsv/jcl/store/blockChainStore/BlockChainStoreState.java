@@ -3,8 +3,11 @@ package io.bitcoinsv.jcl.store.blockChainStore;
 
 
 import io.bitcoinsv.bitcoinjsv.bitcoin.api.extended.ChainInfo;
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreFilterState;
+import io.bitcoinsv.jcl.store.blockStore.BlockStoreLockState;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author i.fernandez@nchain.com
@@ -16,20 +19,37 @@ public final class BlockChainStoreState {
     private final List<ChainInfo> tipsChains;
     private final long numBlocks;
     private final long numTxs;
+    private final long numOrphanBlocks;
+    // State of each Cache (by name). Empty if the Caches are disabled:
+    private final Map<String, BlockChainStoreCacheState> caches;
+    // State of each Filter (by name). Empty if the Filters are disabled:
+    private final Map<String, BlockStoreFilterState> filters;
+    // State of each Lock Domain (by name), with the time spent waiting for it:
+    private final Map<String, BlockStoreLockState> locks;
 
-    BlockChainStoreState(List<ChainInfo> tipsChains, long numBlocks, long numTxs) {
+    BlockChainStoreState(List<ChainInfo> tipsChains, long numBlocks, long numTxs, long numOrphanBlocks,
+                         Map<String, BlockChainStoreCacheState> caches, Map<String, BlockStoreFilterState> filters,
+                         Map<String, BlockStoreLockState> locks) {
         this.tipsChains = tipsChains;
         this.numBlocks = numBlocks;
         this.numTxs = numTxs;
+        this.numOrphanBlocks = numOrphanBlocks;
+        this.caches = (caches != null) ? caches : Map.of();
+        this.filters = (filters != null) ? filters : Map.of();
+        this.locks = (locks != null) ? locks : Map.of();
     }
 
     public List<ChainInfo> getTipsChains()  { return this.tipsChains; }
     public long getNumBlocks()              { return this.numBlocks; }
     public long getNumTxs()                 { return this.numTxs; }
+    public long getNumOrphanBlocks()        { return this.numOrphanBlocks; }
+    public Map<String, BlockChainStoreCacheState> getCaches() { return this.caches; }
+    public Map<String, BlockStoreFilterState> getFilters() { return this.filters; }
+    public Map<String, BlockStoreLockState> getLocks() { return this.locks; }
 
     @Override
     public String toString() {
-        return "BlockChainStoreState(tipsChains=" + this.getTipsChains() + ", numBlocks=" + this.getNumBlocks() + ", numTxs=" + this.getNumTxs() + ")";
+        return "BlockChainStoreState(tipsChains=" + this.getTipsChains() + ", numBlocks=" + this.getNumBlocks() + ", numTxs=" + this.getNumTxs() + ", numOrphanBlocks=" + this.getNumOrphanBlocks() + ", caches=" + this.getCaches() + ", filters=" + this.getFilters() + ", locks=" + this.getLocks() + ")";
     }
 
     public static BlockChainStoreStateBuilder builder() {
@@ -43,6 +63,10 @@ public final class BlockChainStoreState {
         private List<ChainInfo> tipsChains;
         private long numBlocks;
         private long numTxs;
+        private long numOrphanBlocks;
+        private Map<String, BlockChainStoreCacheState> caches;
+        private Map<String, BlockStoreFilterState> filters;
+        private Map<String, BlockStoreLockState> locks;
 
         BlockChainStoreStateBuilder() {
         }
@@ -62,8 +86,28 @@ public final class BlockChainStoreState {
             return this;
         }
 
+        public BlockChainStoreState.BlockChainStoreStateBuilder numOrphanBlocks(long numOrphanBlocks) {
+            this.numOrphanBlocks = numOrphanBlocks;
+            return this;
+        }
+
+        public BlockChainStoreState.BlockChainStoreStateBuilder caches(Map<String, BlockChainStoreCacheState> caches) {
+            this.caches = caches;
+            return this;
+        }
+
+        public BlockChainStoreState.BlockChainStoreStateBuilder filters(Map<String, BlockStoreFilterState> filters) {
+            this.filters = filters;
+            return this;
+        }
+
+        public BlockChainStoreState.BlockChainStoreStateBuilder locks(Map<String, BlockStoreLockState> locks) {
+            this.locks = locks;
+            return this;
+        }
+
         public BlockChainStoreState build() {
-            return new BlockChainStoreState(tipsChains, numBlocks, numTxs);
+            return new BlockChainStoreState(tipsChains, numBlocks, numTxs, numOrphanBlocks, caches, filters, locks);
         }
     }
 }
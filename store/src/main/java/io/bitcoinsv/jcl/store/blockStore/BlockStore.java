@@ -11,6 +11,7 @@ import io.bitcoinsv.bitcoinjsv.core.Sha256Hash;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -68,6 +69,12 @@ public interface BlockStore {
      */
     Optional<HeaderReadOnly> getBlock(Sha256Hash blockHash);
 
+    /**
+     * Retrieves the Blocks specified by the Hashes given, in the same order (empty if the Block is not found). It's
+     * faster than calling "getBlock()" for each one, since all the Blocks are read from the DB in one go.
+     */
+    List<Optional<HeaderReadOnly>> getBlocks(List<Sha256Hash> blockHashes);
+
     /**
      * Returns an Iterator over all the blocks in the DB
      */
@@ -113,6 +120,9 @@ public interface BlockStore {
     /** Retrieves the metadata attached to the tx given, if any */
     Optional<Metadata>  getTxMetadata(Sha256Hash txHash);
 
+    /** Retrieves the metadata attached to the txs given, in the same order (empty if there is none) */
+    List<Optional<Metadata>> getTxsMetadata(List<Sha256Hash> txHashes);
+
     /** It saves some Metadata linked to a Tx */
     void saveTxMetadata(Sha256Hash txHash, Metadata metadata);
 
@@ -160,6 +170,17 @@ public interface BlockStore {
      */
     Optional<Tx> getTx(Sha256Hash txHash);
 
+    /**
+     * Tells whether the Db contains each one of the Txs given, in the same order.
+     */
+    List<Boolean> containsTxs(List<Sha256Hash> txHashes);
+
+    /**
+     * Retrieves the TXs with the HASHES given, in the same order (empty if the Tx is not found). It's faster than
+     * calling "getTx()" for each one, since all the Txs are read from the DB in one go.
+     */
+    List<Optional<Tx>> getTxs(List<Sha256Hash> txHashes);
+
     /**
      * Removes the TX with the HASH (in HEX format) given.
      * If this Tx is linked to a Block, that link is also removed.
@@ -251,6 +272,13 @@ public interface BlockStore {
     /**  Returns an Iterable with the Tx Hashes belonging to the block given */
     Iterable<Sha256Hash> getBlockTxs(Sha256Hash blockHash);
 
+    /**
+     * Returns a Spliterator over the Tx Hashes belonging to the block given, in the same order as "getBlockTxs()".
+     * The Txs are split into segments that can be processed in parallel, which is much faster for huge Blocks:
+     * {@code StreamSupport.stream(db.getBlockTxsSpliterator(blockHash), true)}
+     */
+    Spliterator<Sha256Hash> getBlockTxsSpliterator(Sha256Hash blockHash);
+
     /** Returns the number of TXs belonging to this block */
     long getBlockNumTxs(Sha256Hash blockHash);
 
@@ -0,0 +1,72 @@
+package io.bitcoinsv.jcl.store.blockStore;
+
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It stores the State of a Bulk Ingest in the Block Store at a point in time: the phase it's in, the number of Txs
+ * saved and linked to Blocks, the number of links already indexed in the second pass, the Keys and Bytes written
+ * and the throughput since the Ingest started.
+ */
+public final class BlockStoreBulkIngestState {
+
+    /** Phases of a Bulk Ingest */
+    public enum Phase {
+        IDLE,           // No Bulk Ingest running
+        INGESTING,      // Txs and Blocks are being saved
+        INDEXING        // The Ingest is finishing: the secondary indexes are being built
+    }
+
+    private final Phase phase;
+    private final long blocks;
+    private final long txs;
+    private final long txLinks;
+    private final long txLinksIndexed;
+    private final long keys;
+    private final long bytes;
+    private final long elapsedMillis;
+
+    public BlockStoreBulkIngestState(Phase phase, long blocks, long txs, long txLinks, long txLinksIndexed,
+                                     long keys, long bytes, long elapsedMillis) {
+        this.phase = phase;
+        this.blocks = blocks;
+        this.txs = txs;
+        this.txLinks = txLinks;
+        this.txLinksIndexed = txLinksIndexed;
+        this.keys = keys;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Phase getPhase()             { return this.phase; }
+    public long getBlocks()             { return this.blocks; }
+    public long getTxs()                { return this.txs; }
+    public long getTxLinks()            { return this.txLinks; }
+    public long getTxLinksIndexed()     { return this.txLinksIndexed; }
+    public long getKeys()               { return this.keys; }
+    public long getBytes()              { return this.bytes; }
+    public long getElapsedMillis()      { return this.elapsedMillis; }
+
+    public double getTxsPerSec()        { return perSec(txs); }
+    public double getKeysPerSec()       { return perSec(keys); }
+    public double getBytesPerSec()      { return perSec(bytes); }
+
+    /** Percentage of the links between Txs and Blocks already indexed [0-100] */
+    public double getIndexingProgress() {
+        return (txLinks == 0) ? 100 : (txLinksIndexed * 100d) / txLinks;
+    }
+
+    private double perSec(long value) {
+        return (elapsedMillis == 0) ? 0 : (value * 1000d) / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkIngestState(phase=" + phase + ", blocks=" + blocks + ", txs=" + txs + ", txLinks=" + txLinks
+                + ", indexed=" + String.format("%.2f", getIndexingProgress()) + "%"
+                + ", keys=" + keys + ", bytes=" + (bytes / 1024) + "KB, elapsed=" + elapsedMillis + "ms"
+                + ", txs/sec=" + String.format("%.0f", getTxsPerSec())
+                + ", keys/sec=" + String.format("%.0f", getKeysPerSec()) + ")";
+    }
+}
@@ -0,0 +1,54 @@
+package io.bitcoinsv.jcl.store.blockStore;
+
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It stores the State of one of the Filters used by the Block Store to skip the lookups of Items that are not in the
+ * DB, at a point in time: The number of Items added and removed, the lookups answered by the Filter without reading
+ * the DB (negatives), those that had to read it (positives) and the positives that were not in the DB after all
+ * (false positives), and the memory used by the Filter.
+ */
+public final class BlockStoreFilterState {
+    private final long items;
+    private final long removedItems;
+    private final long negatives;
+    private final long positives;
+    private final long falsePositives;
+    private final long memoryBytes;
+    private final boolean loaded;
+
+    public BlockStoreFilterState(long items, long removedItems, long negatives, long positives, long falsePositives,
+                                 long memoryBytes, boolean loaded) {
+        this.items = items;
+        this.removedItems = removedItems;
+        this.negatives = negatives;
+        this.positives = positives;
+        this.falsePositives = falsePositives;
+        this.memoryBytes = memoryBytes;
+        this.loaded = loaded;
+    }
+
+    public long getItems()          { return this.items; }
+    public long getRemovedItems()   { return this.removedItems; }
+    public long getNegatives()      { return this.negatives; }
+    public long getPositives()      { return this.positives; }
+    public long getFalsePositives() { return this.falsePositives; }
+    public long getMemoryBytes()    { return this.memoryBytes; }
+    public boolean isLoaded()       { return this.loaded; }
+
+    /** Percentage of the lookups of Items not in the DB that the Filter could not answer [0-100] */
+    public double getFalsePositiveRate() {
+        long lookupsNotFound = negatives + falsePositives;
+        return (lookupsNotFound == 0) ? 0 : (falsePositives * 100d) / lookupsNotFound;
+    }
+
+    @Override
+    public String toString() {
+        return "FilterState(items=" + items + ", removedItems=" + removedItems + ", negatives=" + negatives
+                + ", positives=" + positives + ", falsePositives=" + falsePositives
+                + ", falsePositiveRate=" + String.format("%.2f", getFalsePositiveRate()) + "%"
+                + ", memory=" + (memoryBytes / 1024) + "KB, loaded=" + loaded + ")";
+    }
+}
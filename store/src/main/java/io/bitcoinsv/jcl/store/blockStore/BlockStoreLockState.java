@@ -0,0 +1,51 @@
+package io.bitcoinsv.jcl.store.blockStore;
+
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * It stores the State of one of the Lock Domains used by the Block Store at a point in time: the number of stripes
+ * (Locks) in the Domain, the number of times they've been acquired, how many of those the Thread had to wait because
+ * another one was holding it, and the time spent waiting.
+ */
+public final class BlockStoreLockState {
+    private final int stripes;
+    private final long acquisitions;
+    private final long waits;
+    private final long waitNanos;
+    private final long maxWaitNanos;
+
+    public BlockStoreLockState(int stripes, long acquisitions, long waits, long waitNanos, long maxWaitNanos) {
+        this.stripes = stripes;
+        this.acquisitions = acquisitions;
+        this.waits = waits;
+        this.waitNanos = waitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public int getStripes()             { return this.stripes; }
+    public long getAcquisitions()       { return this.acquisitions; }
+    public long getWaits()              { return this.waits; }
+    public long getWaitNanos()          { return this.waitNanos; }
+    public long getMaxWaitNanos()       { return this.maxWaitNanos; }
+
+    /** Percentage of the acquisitions that had to wait [0-100] */
+    public double getContention() {
+        return (acquisitions == 0) ? 0 : (waits * 100d) / acquisitions;
+    }
+
+    /** Average time waited by the acquisitions that had to wait, in milliseconds */
+    public double getAvgWaitMillis() {
+        return (waits == 0) ? 0 : (waitNanos / 1_000_000d) / waits;
+    }
+
+    @Override
+    public String toString() {
+        return "LockState(stripes=" + stripes + ", acquisitions=" + acquisitions + ", waits=" + waits
+                + ", contention=" + String.format("%.2f", getContention()) + "%"
+                + ", waitTime=" + (waitNanos / 1_000_000) + "ms"
+                + ", avgWait=" + String.format("%.3f", getAvgWaitMillis()) + "ms"
+                + ", maxWait=" + (maxWaitNanos / 1_000_000) + "ms)";
+    }
+}
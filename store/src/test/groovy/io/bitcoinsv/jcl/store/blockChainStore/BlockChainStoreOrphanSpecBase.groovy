@@ -73,6 +73,7 @@ abstract class BlockChainStoreOrphanSpecBase extends BlockChainStoreSpecBase {
                 println(" Orphan block found: " + orphan)
                 orphanBlocks.add(orphan)
             }
+            long numOrphanBlocks = db.getNumOrphanBlocks()
 
             // Now we connect everything, by inserting the missing blocks [block3] and [block4]. Now there shouldn't be
             // any orphan blocks at all..
@@ -89,6 +90,7 @@ abstract class BlockChainStoreOrphanSpecBase extends BlockChainStoreSpecBase {
                 println(" Orphan block found: " + orphan)
                 orphanBlocksAfterConnecting.add(orphan)
             }
+            long numOrphanBlocksAfterConnecting = db.getNumOrphanBlocks()
 
         then:
             orphanBlocks.size() == 3
@@ -97,6 +99,8 @@ abstract class BlockChainStoreOrphanSpecBase extends BlockChainStoreSpecBase {
             orphanBlocks.contains(block7.hash)
 
             orphanBlocksAfterConnecting.size() == 0
+            numOrphanBlocks == 3
+            numOrphanBlocksAfterConnecting == 0
 
         cleanup:
             db.removeBlocks(Arrays.asList(genesisBlock, block1, block2, block3, block4, block5, block6, block7)
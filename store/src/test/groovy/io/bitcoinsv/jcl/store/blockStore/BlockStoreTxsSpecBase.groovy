@@ -1,7 +1,11 @@
 package io.bitcoinsv.jcl.store.blockStore
 
 
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
 import io.bitcoinsv.bitcoinjsv.bitcoin.bean.base.TxBean
+import io.bitcoinsv.jcl.store.blockStore.metadata.Metadata
+import io.bitcoinsv.jcl.store.blockStore.metadata.provided.BlockValidationMD
+import io.bitcoinsv.jcl.store.blockStore.metadata.provided.TxValidationMD
 import io.bitcoinsv.jcl.tools.common.TestingUtils
 import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
 import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
@@ -373,4 +377,52 @@ abstract class BlockStoreTxsSpecBase extends BlockStoreSpecBase {
         db.stop()
         println(" - Test Done.")
     }
+
+    /**
+     * We test the Multi-get Operations: several Txs, Blocks and Metadata are read in one go, including some that
+     * are not in the DB. The results are returned in the same order as the Hashes given.
+     */
+    def "testing reading several Txs, Blocks and Metadata at once"() {
+        given:
+            println(" - Connecting to the DB...")
+            BlockStore db = getInstance("BSV-Main", false, false, BlockValidationMD.class, TxValidationMD.class)
+            int totalTxs = 5_000
+        when:
+            db.start()
+            List<Tx> txs = new ArrayList<>()
+            for (int i = 0; i < totalTxs; i++) txs.add(TestingUtils.buildTx())
+            List<HeaderReadOnly> blocks = [TestingUtils.buildBlock(), TestingUtils.buildBlock()]
+            db.saveTxs(txs)
+            db.saveBlocks(blocks)
+            db.saveTxMetadata(txs.get(0).getHash(), new TxValidationMD(true))
+            db.saveTxMetadata(txs.get(2).getHash(), new TxValidationMD(false))
+
+            // We ask for the Txs saved, mixed with others that are not in the DB:
+            List<Tx> txsNotSaved = [TestingUtils.buildTx(), TestingUtils.buildTx()]
+            List<Sha256Hash> txHashes = [txsNotSaved.get(0).getHash()] +
+                    txs.collect { it.getHash() } +
+                    [txsNotSaved.get(1).getHash()]
+            List<Optional<Tx>> txsRead = db.getTxs(txHashes)
+            List<Boolean> txsFound = db.containsTxs(txHashes)
+            List<Optional<HeaderReadOnly>> blocksRead = db.getBlocks([blocks.get(1).getHash(), Sha256Hash.ZERO_HASH, blocks.get(0).getHash()])
+            List<Optional<Metadata>> metadataRead = db.getTxsMetadata(txs.subList(0, 3).collect { it.getHash() })
+        then:
+            txsRead.size() == totalTxs + 2
+            !txsRead.get(0).isPresent()
+            !txsRead.get(totalTxs + 1).isPresent()
+            (0..<totalTxs).every { txsRead.get(it + 1).get() == txs.get(it) }
+            txsFound == [false] + Collections.nCopies(totalTxs, true) + [false]
+            blocksRead.get(0).get() == blocks.get(1)
+            !blocksRead.get(1).isPresent()
+            blocksRead.get(2).get() == blocks.get(0)
+            metadataRead.get(0).get() == new TxValidationMD(true)
+            !metadataRead.get(1).isPresent()
+            metadataRead.get(2).get() == new TxValidationMD(false)
+            db.getTxs([]).isEmpty()
+        cleanup:
+            println(" - Cleanup...")
+            db.clear()
+            db.stop()
+            println(" - Test Done.")
+    }
 }
@@ -17,10 +17,14 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -35,6 +39,9 @@ public class BlockStorePosix {
 
     private static final Logger log = LoggerFactory.getLogger(BlockStorePosix.class);
 
+    // Extension of the checkpoint files of the blocks partially written:
+    private static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
     private BlockStorePosixConfig config;
     public BlockStorePosix(BlockStorePosixConfig config) {
         this.config = config;
@@ -91,6 +98,61 @@ public class BlockStorePosix {
         }
     }
 
+    /**
+     * Opens a Writer to save the block as its txs arrive, instead of saving all the txs at once. The header and the
+     * number of txs are written straight away, and the txs appended later on are written directly into the file.
+     * The block is not visible until the writer is committed, and it's discarded if the writer is closed before that.
+     *
+     * @param headerReadOnly the header for the block
+     * @param numberOfTxs the total txs within the block
+     * @return a writer for this block
+     * @throws IllegalAccessException exception is thrown if the block has already been committed
+     */
+    public BlockStorePosixWriter openBlockWriter(HeaderReadOnly headerReadOnly, long numberOfTxs) throws IllegalAccessException, IOException {
+        Sha256Hash blockHash = headerReadOnly.getHash();
+
+        if (containsBlock(blockHash)) {
+            throw new IllegalAccessException("cannot write to a committed block");
+        }
+
+        return new BlockStorePosixWriter(blockHash, getTempPath(blockHash), getBlockPath(blockHash), getCheckpointPath(blockHash), headerReadOnly, numberOfTxs);
+    }
+
+    /**
+     * Resumes the writing of a block from its last checkpoint (see {@link BlockStorePosixWriter#checkpoint()}). The
+     * bytes on disk are checked against the checkpoint, and anything written after it is dropped.
+     *
+     * @param blockHash
+     * @return a writer positioned right after the last checkpoint, or empty if there is no valid checkpoint
+     */
+    public Optional<BlockStorePosixWriter> resumeBlockWriter(Sha256Hash blockHash) throws IOException {
+        if (containsBlock(blockHash)) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(BlockStorePosixWriter.resume(blockHash, getTempPath(blockHash), getBlockPath(blockHash), getCheckpointPath(blockHash)));
+    }
+
+    /**
+     * @return the hashes of the blocks partially written with a checkpoint, so they can be resumed
+     */
+    public List<Sha256Hash> getPartialBlocks() {
+        Path tempDir = getBlocksDir().resolve("tmp");
+        if (!Files.exists(tempDir)) {
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> paths = Files.walk(tempDir)) {
+            return paths.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(CHECKPOINT_EXTENSION))
+                    .map(name -> Sha256Hash.wrap(name.substring(0, name.length() - CHECKPOINT_EXTENSION.length())))
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            log.warn("Unable to read the partial blocks", ex);
+            return Collections.emptyList();
+        }
+    }
+
     /**
      * Removes the temp file which indicates the file has been written
      *
@@ -297,9 +359,11 @@ public class BlockStorePosix {
     public void removeBlock(Sha256Hash blockHash) {
         File blockFile = getBlockPath(blockHash).toFile();
         File tempFile = getTempPath(blockHash).toFile();
+        File checkpointFile = getCheckpointPath(blockHash).toFile();
 
         blockFile.delete();
         tempFile.delete();
+        checkpointFile.delete();
     }
 
     /**
@@ -393,4 +457,14 @@ public class BlockStorePosix {
         var path = getBlocksDir().resolve("tmp");
         return getBlockPath(path, blockHash);
     }
+
+    /**
+     * The checkpoint of a block being written is stored next to its temp file
+     *
+     * @param blockHash
+     * @return
+     */
+    private Path getCheckpointPath(Sha256Hash blockHash) {
+        return getTempPath(blockHash).resolveSibling(blockHash.toString() + CHECKPOINT_EXTENSION);
+    }
 }
@@ -0,0 +1,244 @@
+package io.bitcoinsv.jcl.tools.blobStore;
+
+import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly;
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash;
+import io.bitcoinsv.bitcoinjsv.core.VarInt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distributed under the Open BSV software license, see the accompanying file LICENSE
+ * Copyright (c) 2020 Bitcoin Association
+ *
+ * Writes a single Block into the {@link BlockStorePosix} as its bytes arrive, so the Block does not need to be kept
+ * anywhere else before being saved. The Header and the number of Txs are written first, and then the Txs are appended
+ * straight into the file through a {@link FileChannel}.
+ *
+ * The Block is written to its temp path, so it's not visible until {@link #commit()} is called: the file is then
+ * flushed to disk and atomically moved to its final (fanout) path. If the writer is closed without committing, the
+ * temp file is removed.
+ *
+ * The progress can also be checkpointed ({@link #checkpoint()}): the bytes written so far are flushed to disk, and a
+ * small checkpoint file is saved next to the temp file, with the number of bytes written and the hash of the last
+ * chunk appended. A writer suspended ({@link #suspend()}) keeps its temp file, so the Block can be resumed later on
+ * (even after a restart) through {@link BlockStorePosix#resumeBlockWriter(Sha256Hash)}, which validates that the
+ * bytes on disk match the checkpoint.
+ */
+public class BlockStorePosixWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockStorePosixWriter.class);
+
+    // Version of the format of the checkpoint file:
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private final Sha256Hash blockHash;
+    private final Path tempPath;
+    private final Path blockPath;
+    private final Path checkpointPath;
+    private final FileChannel channel;
+    private final long headerLength;
+    private long txsBytesWritten;
+    private boolean finished;
+
+    // Last chunk appended (or validated, when resuming), and its position (relative to the Txs), used in the
+    // checkpoints:
+    private byte[] lastChunk;
+    private long lastChunkOffset;
+
+    BlockStorePosixWriter(Sha256Hash blockHash, Path tempPath, Path blockPath, Path checkpointPath, HeaderReadOnly header, long numberOfTxs) throws IOException {
+        this.blockHash = blockHash;
+        this.tempPath = tempPath;
+        this.blockPath = blockPath;
+        this.checkpointPath = checkpointPath;
+        Files.createDirectories(tempPath.getParent());
+        Files.deleteIfExists(checkpointPath);
+        this.channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        byte[] headerBytes = header.serialize();
+        byte[] numTxsBytes = new VarInt(numberOfTxs).encode();
+        writeFully(ByteBuffer.wrap(headerBytes));
+        writeFully(ByteBuffer.wrap(numTxsBytes));
+        this.headerLength = headerBytes.length + numTxsBytes.length;
+    }
+
+    // Constructor used when resuming a Block: the temp file is truncated to the size of the last checkpoint:
+    private BlockStorePosixWriter(Sha256Hash blockHash, Path tempPath, Path blockPath, Path checkpointPath,
+                                  long headerLength, long txsBytesWritten) throws IOException {
+        this.blockHash = blockHash;
+        this.tempPath = tempPath;
+        this.blockPath = blockPath;
+        this.checkpointPath = checkpointPath;
+        this.headerLength = headerLength;
+        this.txsBytesWritten = txsBytesWritten;
+        this.channel = FileChannel.open(tempPath, StandardOpenOption.WRITE);
+        this.channel.truncate(headerLength + txsBytesWritten);
+        this.channel.position(headerLength + txsBytesWritten);
+    }
+
+    /**
+     * It resumes the Block from its last checkpoint, if there is one and the bytes on disk match it (the last chunk
+     * written must be there and its hash must be the same). Otherwise, it returns null.
+     */
+    static BlockStorePosixWriter resume(Sha256Hash blockHash, Path tempPath, Path blockPath, Path checkpointPath) throws IOException {
+        if (!Files.exists(tempPath) || !Files.exists(checkpointPath)) return null;
+        long headerLength, txsBytesWritten, lastChunkOffset;
+        byte[] lastChunkHash = new byte[Sha256Hash.LENGTH];
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(checkpointPath))) {
+            if (in.readInt() != CHECKPOINT_VERSION) return null;
+            headerLength = in.readLong();
+            txsBytesWritten = in.readLong();
+            lastChunkOffset = in.readLong();
+            in.readFully(lastChunkHash);
+        } catch (EOFException e) {
+            return null;
+        }
+
+        // We check the bytes on disk. The last chunk is kept, so the next checkpoint is still valid even if nothing
+        // else is appended before it:
+        long fileLength = Files.size(tempPath);
+        if (fileLength < headerLength + txsBytesWritten) return null;
+        byte[] lastChunkBytes = null;
+        if (txsBytesWritten > 0) {
+            try (FileChannel readChannel = FileChannel.open(tempPath, StandardOpenOption.READ)) {
+                ByteBuffer lastChunk = ByteBuffer.allocate((int) (txsBytesWritten - lastChunkOffset));
+                while (lastChunk.hasRemaining()) {
+                    if (readChannel.read(lastChunk, headerLength + lastChunkOffset + lastChunk.position()) < 0) return null;
+                }
+                if (!Arrays.equals(Sha256Hash.hashTwice(lastChunk.array()), lastChunkHash)) return null;
+                lastChunkBytes = lastChunk.array();
+            }
+        }
+        BlockStorePosixWriter result = new BlockStorePosixWriter(blockHash, tempPath, blockPath, checkpointPath, headerLength, txsBytesWritten);
+        result.lastChunk = lastChunkBytes;
+        result.lastChunkOffset = lastChunkOffset;
+        return result;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private void checkNotFinished() throws IOException {
+        if (finished) throw new IOException("Block " + blockHash + " already committed or aborted");
+    }
+
+    /** Appends the bytes of one or more Txs to the Block */
+    public synchronized void append(byte[] txsBytes) throws IOException {
+        checkNotFinished();
+        writeFully(ByteBuffer.wrap(txsBytes));
+        lastChunk = txsBytes;
+        lastChunkOffset = txsBytesWritten;
+        txsBytesWritten += txsBytes.length;
+    }
+
+    /** Appends the bytes of a list of Txs to the Block, with a single gathering write */
+    public synchronized void append(List<byte[]> txsBytes) throws IOException {
+        checkNotFinished();
+        ByteBuffer[] buffers = new ByteBuffer[txsBytes.size()];
+        long total = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(txsBytes.get(i));
+            total += buffers[i].remaining();
+        }
+        long written = 0;
+        while (written < total) written += channel.write(buffers);
+        if (!txsBytes.isEmpty()) {
+            lastChunk = txsBytes.get(txsBytes.size() - 1);
+            lastChunkOffset = txsBytesWritten + total - lastChunk.length;
+        }
+        txsBytesWritten += total;
+    }
+
+    /**
+     * It flushes the bytes written so far to disk and saves a checkpoint, so the Block can be resumed from this point.
+     * The checkpoint file is replaced atomically.
+     */
+    public synchronized void checkpoint() throws IOException {
+        checkNotFinished();
+        channel.force(false);
+        byte[] lastChunkHash = (lastChunk != null) ? Sha256Hash.hashTwice(lastChunk) : new byte[Sha256Hash.LENGTH];
+        Path checkpointTempPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(checkpointTempPath))) {
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(headerLength);
+            out.writeLong(txsBytesWritten);
+            out.writeLong(lastChunkOffset);
+            out.write(lastChunkHash);
+        }
+        try {
+            Files.move(checkpointTempPath, checkpointPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(checkpointTempPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * It saves a checkpoint and closes the file, but the Block is NOT discarded: it can be resumed later on
+     */
+    public synchronized void suspend() throws IOException {
+        checkNotFinished();
+        try {
+            checkpoint();
+        } finally {
+            finished = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * Flushes the Block to disk and moves it to its final path, so it becomes visible in the Store. The move is atomic
+     * (if the file system does not support it, the file is just moved).
+     */
+    public synchronized void commit() throws IOException {
+        checkNotFinished();
+        finished = true;
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+        Files.createDirectories(blockPath.getParent());
+        try {
+            Files.move(tempPath, blockPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, blockPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.deleteIfExists(checkpointPath);
+    }
+
+    /** Discards the Block written so far */
+    public synchronized void abort() {
+        if (finished) return;
+        finished = true;
+        try {
+            channel.close();
+            Files.deleteIfExists(tempPath);
+            Files.deleteIfExists(checkpointPath);
+        } catch (IOException e) {
+            log.warn("Unable to remove the temp file of block " + blockHash, e);
+        }
+    }
+
+    public Sha256Hash getBlockHash()                    { return this.blockHash; }
+    public synchronized long getTxsBytesWritten()       { return this.txsBytesWritten; }
+    public synchronized boolean isFinished()            { return this.finished; }
+
+    /** If the Block has not been committed, it's discarded */
+    @Override
+    public void close() {
+        abort();
+    }
+}
@@ -285,7 +285,7 @@ public class ChainMemStore<NodeId, NodeData extends Node<NodeId>> {
         try {
             lock.readLock().lock();
             long longestChainLength = getMaxLength();
-            List<NodeId> nodes = getNodesAtHeight(longestChainLength - 1);
+            List<NodeId> nodes = getNodesAtHeight(rootNode.startingHeight + longestChainLength - 1);
             return getNode(nodes.get(0)).get(); // The first one. does it matter?
         } finally {
             lock.readLock().unlock();
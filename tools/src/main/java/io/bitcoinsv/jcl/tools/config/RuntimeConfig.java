@@ -3,6 +3,8 @@ package io.bitcoinsv.jcl.tools.config;
 
 import io.bitcoinsv.jcl.tools.bytes.ByteArrayConfig;
 import io.bitcoinsv.jcl.tools.files.FileUtils;
+import io.bitcoinsv.jcl.tools.metrics.MetricsRegistry;
+import io.bitcoinsv.jcl.tools.thread.ExecutionModel;
 
 /**
  * @author i.fernandez@nchain.com
@@ -38,4 +40,42 @@ public interface RuntimeConfig {
      * system.
      */
     boolean useCachedThreadPoolForP2P();
+
+    /**
+     * Returns the number of Threads in the CPU Lane of the Execution Model (a Work-stealing Pool used for short,
+     * non-blocking Tasks)
+     */
+    int getNumThreadsForCPULane();
+
+    /** Returns the number of Threads in the Scheduled Lane of the Execution Model */
+    int getNumThreadsForScheduledLane();
+
+    /**
+     * Returns the maximum number of Threads in the Long-Running Lane of the Execution Model, used for Tasks that
+     * block for a long time (like the deserialization of big Messages), so they do not starve the IO Lane.
+     */
+    int getMaxNumThreadsForLongRunningLane();
+
+    /**
+     * If TRUE, the Tasks that spend most of their time blocked (waiting for bytes from the network, waiting for a
+     * Handler to be ready, Event Bus callbacks, etc) are run in Virtual Threads instead of Platform Threads. This only
+     * has effect in JDK 21+: in previous versions, Platform Threads are used anyway.
+     */
+    boolean useVirtualThreadsForBlockingTasks();
+
+    /**
+     * If TRUE, the Metrics of the processing of the messages (bytes read, deserialization, EventBus, handlers...) are
+     * collected. Otherwise, the instrumented code does nothing.
+     */
+    boolean isMetricsEnabled();
+
+    /** Returns the Registry where the Metrics are collected. If Metrics are disabled, a disabled Registry is returned */
+    MetricsRegistry getMetricsRegistry();
+
+    /**
+     * Returns the Execution Model that all the Handlers/Components must draw their Threads from. The IO Lane of this
+     * model is bounded by "getMaxNumThreadsForP2P", and its Threads are only kept alive while in use if
+     * "useCachedThreadPoolForP2P" is TRUE.
+     */
+    ExecutionModel getExecutionModel();
 }
@@ -3,6 +3,8 @@ package io.bitcoinsv.jcl.tools.config;
 
 import io.bitcoinsv.jcl.tools.bytes.ByteArrayConfig;
 import io.bitcoinsv.jcl.tools.files.FileUtils;
+import io.bitcoinsv.jcl.tools.metrics.MetricsRegistry;
+import io.bitcoinsv.jcl.tools.thread.ExecutionModel;
 
 /**
  * @author i.fernandez@nchain.com
@@ -17,17 +19,83 @@ public class RuntimeConfigImpl implements RuntimeConfig {
     protected FileUtils fileUtils;
     protected int maxNumThreadsForP2P;
     protected boolean useCachedThreadPoolForP2P;
+    protected int numThreadsForCPULane = ExecutionModel.DEFAULT_CPU_THREADS;
+    protected int numThreadsForScheduledLane = ExecutionModel.DEFAULT_SCHEDULED_THREADS;
+    protected boolean useVirtualThreadsForBlockingTasks;
+    protected boolean metricsEnabled;
+    protected int maxNumThreadsForLongRunningLane = ExecutionModel.DEFAULT_LONG_RUNNING_THREADS;
+
+    // Execution Model and Metrics Registry, created on demand the first time they are requested:
+    private ExecutionModel executionModel;
+    private MetricsRegistry metricsRegistry;
 
     public RuntimeConfigImpl(ByteArrayConfig byteArrayMemoryConfig,
                              int msgSizeInBytesForRealTimeProcessing,
                              FileUtils fileUtils,
                              int maxNumThreadsForP2P,
-                             boolean useCachedThreadPoolForP2P) {
+                             boolean useCachedThreadPoolForP2P,
+                             int numThreadsForCPULane,
+                             int numThreadsForScheduledLane,
+                             boolean useVirtualThreadsForBlockingTasks,
+                             boolean metricsEnabled,
+                             int maxNumThreadsForLongRunningLane) {
         this.byteArrayMemoryConfig = byteArrayMemoryConfig;
         this.msgSizeInBytesForRealTimeProcessing = msgSizeInBytesForRealTimeProcessing;
         this.fileUtils = fileUtils;
         this.maxNumThreadsForP2P = maxNumThreadsForP2P;
         this.useCachedThreadPoolForP2P = useCachedThreadPoolForP2P;
+        this.numThreadsForCPULane = numThreadsForCPULane;
+        this.numThreadsForScheduledLane = numThreadsForScheduledLane;
+        this.useVirtualThreadsForBlockingTasks = useVirtualThreadsForBlockingTasks;
+        this.metricsEnabled = metricsEnabled;
+        this.maxNumThreadsForLongRunningLane = maxNumThreadsForLongRunningLane;
+    }
+
+    public RuntimeConfigImpl(ByteArrayConfig byteArrayMemoryConfig,
+                             int msgSizeInBytesForRealTimeProcessing,
+                             FileUtils fileUtils,
+                             int maxNumThreadsForP2P,
+                             boolean useCachedThreadPoolForP2P,
+                             int numThreadsForCPULane,
+                             int numThreadsForScheduledLane,
+                             boolean useVirtualThreadsForBlockingTasks,
+                             boolean metricsEnabled) {
+        this(byteArrayMemoryConfig, msgSizeInBytesForRealTimeProcessing, fileUtils, maxNumThreadsForP2P,
+                useCachedThreadPoolForP2P, numThreadsForCPULane, numThreadsForScheduledLane,
+                useVirtualThreadsForBlockingTasks, metricsEnabled, ExecutionModel.DEFAULT_LONG_RUNNING_THREADS);
+    }
+
+    public RuntimeConfigImpl(ByteArrayConfig byteArrayMemoryConfig,
+                             int msgSizeInBytesForRealTimeProcessing,
+                             FileUtils fileUtils,
+                             int maxNumThreadsForP2P,
+                             boolean useCachedThreadPoolForP2P,
+                             int numThreadsForCPULane,
+                             int numThreadsForScheduledLane,
+                             boolean useVirtualThreadsForBlockingTasks) {
+        this(byteArrayMemoryConfig, msgSizeInBytesForRealTimeProcessing, fileUtils, maxNumThreadsForP2P,
+                useCachedThreadPoolForP2P, numThreadsForCPULane, numThreadsForScheduledLane,
+                useVirtualThreadsForBlockingTasks, false);
+    }
+
+    public RuntimeConfigImpl(ByteArrayConfig byteArrayMemoryConfig,
+                             int msgSizeInBytesForRealTimeProcessing,
+                             FileUtils fileUtils,
+                             int maxNumThreadsForP2P,
+                             boolean useCachedThreadPoolForP2P,
+                             int numThreadsForCPULane,
+                             int numThreadsForScheduledLane) {
+        this(byteArrayMemoryConfig, msgSizeInBytesForRealTimeProcessing, fileUtils, maxNumThreadsForP2P,
+                useCachedThreadPoolForP2P, numThreadsForCPULane, numThreadsForScheduledLane, false);
+    }
+
+    public RuntimeConfigImpl(ByteArrayConfig byteArrayMemoryConfig,
+                             int msgSizeInBytesForRealTimeProcessing,
+                             FileUtils fileUtils,
+                             int maxNumThreadsForP2P,
+                             boolean useCachedThreadPoolForP2P) {
+        this(byteArrayMemoryConfig, msgSizeInBytesForRealTimeProcessing, fileUtils, maxNumThreadsForP2P,
+                useCachedThreadPoolForP2P, ExecutionModel.DEFAULT_CPU_THREADS, ExecutionModel.DEFAULT_SCHEDULED_THREADS, false);
     }
 
     public RuntimeConfigImpl() {}
@@ -37,15 +105,42 @@ public class RuntimeConfigImpl implements RuntimeConfig {
     public FileUtils getFileUtils()                                 { return this.fileUtils; }
     public int getMaxNumThreadsForP2P()                             { return this.maxNumThreadsForP2P; }
     public boolean useCachedThreadPoolForP2P()                      { return this.useCachedThreadPoolForP2P;}
+    public int getNumThreadsForCPULane()                            { return this.numThreadsForCPULane; }
+    public int getNumThreadsForScheduledLane()                      { return this.numThreadsForScheduledLane; }
+    public boolean useVirtualThreadsForBlockingTasks()              { return this.useVirtualThreadsForBlockingTasks; }
+    public boolean isMetricsEnabled()                               { return this.metricsEnabled; }
+    public int getMaxNumThreadsForLongRunningLane()                 { return this.maxNumThreadsForLongRunningLane; }
     public static RuntimeConfigImplBuilder builder()                { return new RuntimeConfigImplBuilder(); }
 
+    public synchronized ExecutionModel getExecutionModel() {
+        if (this.executionModel == null) {
+            this.executionModel = new ExecutionModel("Jcl", numThreadsForCPULane, maxNumThreadsForP2P,
+                    useCachedThreadPoolForP2P, numThreadsForScheduledLane, useVirtualThreadsForBlockingTasks,
+                    maxNumThreadsForLongRunningLane);
+        }
+        return this.executionModel;
+    }
+
+    public synchronized MetricsRegistry getMetricsRegistry() {
+        if (!metricsEnabled) return MetricsRegistry.DISABLED;
+        if (this.metricsRegistry == null) {
+            this.metricsRegistry = new MetricsRegistry("Jcl", true);
+        }
+        return this.metricsRegistry;
+    }
+
     public RuntimeConfigImplBuilder toBuilder() {
         return new RuntimeConfigImplBuilder()
                 .byteArrayMemoryConfig(this.byteArrayMemoryConfig)
                 .msgSizeInBytesForRealTimeProcessing(this.msgSizeInBytesForRealTimeProcessing)
                 .fileUtils(this.fileUtils)
                 .maxNumThreadsForP2P(this.maxNumThreadsForP2P)
-                .useCachedThreadPoolForP2P(this.useCachedThreadPoolForP2P);
+                .useCachedThreadPoolForP2P(this.useCachedThreadPoolForP2P)
+                .numThreadsForCPULane(this.numThreadsForCPULane)
+                .numThreadsForScheduledLane(this.numThreadsForScheduledLane)
+                .useVirtualThreadsForBlockingTasks(this.useVirtualThreadsForBlockingTasks)
+                .metricsEnabled(this.metricsEnabled)
+                .maxNumThreadsForLongRunningLane(this.maxNumThreadsForLongRunningLane);
     }
 
     /**
@@ -57,6 +152,11 @@ public class RuntimeConfigImpl implements RuntimeConfig {
         private FileUtils fileUtils;
         protected int maxNumThreadsForP2P;
         protected boolean useCachedThreadPoolForP2P;
+        protected int numThreadsForCPULane = ExecutionModel.DEFAULT_CPU_THREADS;
+        protected int numThreadsForScheduledLane = ExecutionModel.DEFAULT_SCHEDULED_THREADS;
+        protected boolean useVirtualThreadsForBlockingTasks;
+        protected boolean metricsEnabled;
+        protected int maxNumThreadsForLongRunningLane = ExecutionModel.DEFAULT_LONG_RUNNING_THREADS;
 
         RuntimeConfigImplBuilder() {
         }
@@ -86,8 +186,35 @@ public class RuntimeConfigImpl implements RuntimeConfig {
             return this;
         }
 
+        public RuntimeConfigImplBuilder numThreadsForCPULane(int numThreadsForCPULane) {
+            this.numThreadsForCPULane = numThreadsForCPULane;
+            return this;
+        }
+
+        public RuntimeConfigImplBuilder numThreadsForScheduledLane(int numThreadsForScheduledLane) {
+            this.numThreadsForScheduledLane = numThreadsForScheduledLane;
+            return this;
+        }
+
+        public RuntimeConfigImplBuilder useVirtualThreadsForBlockingTasks(boolean useVirtualThreadsForBlockingTasks) {
+            this.useVirtualThreadsForBlockingTasks = useVirtualThreadsForBlockingTasks;
+            return this;
+        }
+
+        public RuntimeConfigImplBuilder metricsEnabled(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+            return this;
+        }
+
+        public RuntimeConfigImplBuilder maxNumThreadsForLongRunningLane(int maxNumThreadsForLongRunningLane) {
+            this.maxNumThreadsForLongRunningLane = maxNumThreadsForLongRunningLane;
+            return this;
+        }
+
         public RuntimeConfigImpl build() {
-            return new RuntimeConfigImpl(byteArrayMemoryConfig, msgSizeInBytesForRealTimeProcessing, fileUtils, maxNumThreadsForP2P, useCachedThreadPoolForP2P);
+            return new RuntimeConfigImpl(byteArrayMemoryConfig, msgSizeInBytesForRealTimeProcessing, fileUtils,
+                    maxNumThreadsForP2P, useCachedThreadPoolForP2P, numThreadsForCPULane, numThreadsForScheduledLane,
+                    useVirtualThreadsForBlockingTasks, metricsEnabled, maxNumThreadsForLongRunningLane);
         }
     }
 }
@@ -5,6 +5,7 @@ import io.bitcoinsv.jcl.tools.bytes.ByteArrayConfig;
 import io.bitcoinsv.jcl.tools.config.RuntimeConfig;
 import io.bitcoinsv.jcl.tools.config.RuntimeConfigImpl;
 import io.bitcoinsv.jcl.tools.files.FileUtilsBuilder;
+import io.bitcoinsv.jcl.tools.thread.ExecutionModel;
 
 
 /**
@@ -20,6 +21,11 @@ public final class RuntimeConfigDefault extends RuntimeConfigImpl implements Run
     public final static int DEF_MSG_SIZE_BYTES_REAL_TIME = 10_000_000;;
     public final static int DEF_P2P_THREADS_MAX = 50;
     public final static boolean DEF_P2P_THREADS_CACHED = false;
+    public final static int DEF_CPU_LANE_THREADS = ExecutionModel.DEFAULT_CPU_THREADS;
+    public final static int DEF_SCHEDULED_LANE_THREADS = ExecutionModel.DEFAULT_SCHEDULED_THREADS;
+    public final static boolean DEF_VIRTUAL_THREADS_FOR_BLOCKING_TASKS = false;
+    public final static boolean DEF_METRICS_ENABLED = false;
+    public final static int DEF_LONG_RUNNING_LANE_THREADS = ExecutionModel.DEFAULT_LONG_RUNNING_THREADS;
 
     /** Constructor */
     public RuntimeConfigDefault() {
@@ -39,6 +45,11 @@ public final class RuntimeConfigDefault extends RuntimeConfigImpl implements Run
         super.msgSizeInBytesForRealTimeProcessing = DEF_MSG_SIZE_BYTES_REAL_TIME;
         super.maxNumThreadsForP2P = DEF_P2P_THREADS_MAX;
         super.useCachedThreadPoolForP2P = DEF_P2P_THREADS_CACHED;
+        super.numThreadsForCPULane = DEF_CPU_LANE_THREADS;
+        super.numThreadsForScheduledLane = DEF_SCHEDULED_LANE_THREADS;
+        super.useVirtualThreadsForBlockingTasks = DEF_VIRTUAL_THREADS_FOR_BLOCKING_TASKS;
+        super.metricsEnabled = DEF_METRICS_ENABLED;
+        super.maxNumThreadsForLongRunningLane = DEF_LONG_RUNNING_LANE_THREADS;
 
         try {
             FileUtilsBuilder fileUtilsBuilder = new FileUtilsBuilder().useTempFolder();
@@ -2,6 +2,9 @@ package io.bitcoinsv.jcl.tools.events;
 
 
 
+import io.bitcoinsv.jcl.tools.jfr.EventHandledEvent;
+import io.bitcoinsv.jcl.tools.jfr.EventPublishedEvent;
+import io.bitcoinsv.jcl.tools.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +34,11 @@ import java.util.function.Consumer;
  *   Events.
  * - Pass a Function in the constructor that will be used to decide the priority of each Event.
  *
+ * If a MetricsRegistry is specified, the time each Event waits until its Handlers are executed and the time taken by
+ * the Handlers are recorded, broken down by Event Type.
+ *
+ * Publishing an Event and running each one of its Handlers are also recorded as JFR Events (see
+ * {@link EventPublishedEvent} and {@link EventHandledEvent}), if enabled in the JFR recording.
  */
 public class EventBus {
 
@@ -56,10 +64,23 @@ public class EventBus {
     // An executor for running the Handlers:
     private ExecutorService executor;
 
+    // Name of this Bus, used in the Metrics and JFR Events:
+    private String name;
+
+    // Metrics:
+    private MetricsRegistry metrics = MetricsRegistry.DISABLED;
+    private String metricQueueWait;
+    private String metricHandle;
 
     /** Constructor */
-    private EventBus(ExecutorService executor) {
+    private EventBus(ExecutorService executor, MetricsRegistry metrics, String metricsName) {
         this.executor = executor;
+        this.name = metricsName;
+        if (metrics != null) {
+            this.metrics = metrics;
+            this.metricQueueWait = metricsName + ".queueWait";
+            this.metricHandle = metricsName + ".handle";
+        }
     }
 
     private EventBus() {}
@@ -80,7 +101,16 @@ public class EventBus {
         Consumer<? extends Event> consumerOptimized = (event) -> {
             List<Consumer<? extends Event>> eventConsumers = eventHandlers.get(eventClass);
             for (Consumer consumer : eventConsumers) {
+                EventHandledEvent jfrEvent = new EventHandledEvent();
+                jfrEvent.begin();
                 try {consumer.accept(event);} catch (Exception e) {e.printStackTrace();}
+                if (jfrEvent.shouldCommit()) {
+                    jfrEvent.bus = name;
+                    jfrEvent.handler = EventHandledEvent.handlerName(consumer);
+                    jfrEvent.eventType = event.getClass().getSimpleName();
+                    jfrEvent.setTraceInfo(event);
+                    jfrEvent.commit();
+                }
             }
         };
 
@@ -93,7 +123,17 @@ public class EventBus {
     public void publish(Event event) {
         // We do not do anything at all if nobody is listening to this event
         if (eventHandlersOptimized.containsKey(event.getClass())) {
-            Runnable task = () -> {eventHandlersOptimized.get(event.getClass()).accept(event);};
+            EventPublishedEvent jfrEvent = new EventPublishedEvent();
+            if (jfrEvent.isEnabled()) {
+                jfrEvent.bus = name;
+                jfrEvent.eventType = event.getClass().getSimpleName();
+                jfrEvent.setTraceInfo(event);
+                jfrEvent.commit();
+            }
+            long publishedAt = metrics.startTimer();
+            Runnable task = (publishedAt == 0)
+                    ? () -> {eventHandlersOptimized.get(event.getClass()).accept(event);}
+                    : () -> runAndMeasure(event, publishedAt);
             if (executor != null) { // Asynchronously
                 try {
                     executor.submit(task);
@@ -110,6 +150,15 @@ public class EventBus {
 
     }
 
+    // It runs the Handlers of the Event given, recording the time the Event has been waiting and the execution time:
+    private void runAndMeasure(Event event, long publishedAt) {
+        String eventType = event.getClass().getSimpleName();
+        long startedAt = metrics.startTimer();
+        metrics.histogram(metricQueueWait, eventType).record(startedAt - publishedAt);
+        eventHandlersOptimized.get(event.getClass()).accept(event);
+        metrics.histogram(metricHandle, eventType).recordSince(startedAt);
+    }
+
     /** Returns the EVentBus Status (ONLY FOR TESTING/DEBUGGING) */
     public String getStatus() {
         String result = "";
@@ -130,6 +179,8 @@ public class EventBus {
      */
     public static class EventBusBuilder {
         private ExecutorService executor;
+        private MetricsRegistry metrics;
+        private String metricsName = "eventBus";
 
         EventBusBuilder() {}
         public EventBus.EventBusBuilder executor(ExecutorService executor) {
@@ -137,8 +188,15 @@ public class EventBus {
             return this;
         }
 
+        /** The Metrics of this Bus are stored in the Registry given, prefixed by the name given */
+        public EventBus.EventBusBuilder metrics(MetricsRegistry metrics, String metricsName) {
+            this.metrics = metrics;
+            this.metricsName = metricsName;
+            return this;
+        }
+
         public EventBus build() {
-            return new EventBus(executor);
+            return new EventBus(executor, metrics, metricsName);
         }
     }
 
@@ -1,6 +1,7 @@
 package io.bitcoinsv.jcl.tools.events;
 
-import io.bitcoinsv.jcl.tools.thread.ThreadUtils;
+import io.bitcoinsv.jcl.tools.jfr.EventHandledEvent;
+import io.bitcoinsv.jcl.tools.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,9 +14,14 @@ import java.util.function.Consumer;
  * Copyright (c) 2018-2020 nChain Ltd
  *
  * This class allows for processing Events in a separate Thread/s, without impacting the execution time of the main
- * Thread. It uses an internal Queue to store those Events, and that queue is being consumed in an infinite loop.
- * The consumption of each Event is performed by executing a Consumer task sthat is also fed into this class on
- * creation.
+ * Thread. The consumption of each Event is performed by executing a Consumer task sthat is also fed into this class on
+ * creation. The Events added before this processor is started are stored in an internal Queue, and they are submitted
+ * when it starts. After that, Events are submitted straight away to the Executor, so no Thread is kept busy
+ * waiting for new Events.
+ *
+ * If a MetricsRegistry is specified, the time each Event waits until it's processed and the processing time are
+ * recorded, broken down by Event Type. The processing of each Event is also recorded as a JFR Event
+ * ({@link EventHandledEvent}), if enabled in the JFR recording.
  */
 public class EventQueueProcessor {
 
@@ -26,16 +32,29 @@ public class EventQueueProcessor {
     // Executor used to run the Consumers/Event Handlers
     private ExecutorService eventsExecutor;
 
-    // Executor used to consume the Queue:
-    private ExecutorService queueExecutor;
-
-    // Queue where we store the Events
+    // Queue where we store the Events until the processor is started:
     private BlockingQueue<Event> eventsQueue = new LinkedBlockingQueue<>();
+    private volatile boolean started;
+
+    private final String name;
+
+    // Metrics:
+    private final MetricsRegistry metrics;
+    private final String metricQueueWait;
+    private final String metricProcess;
 
     /** Constructor */
-    public EventQueueProcessor(String name, ExecutorService eventsExecutor) {
+    public EventQueueProcessor(String name, ExecutorService eventsExecutor, MetricsRegistry metrics) {
+        this.name = name;
         this.eventsExecutor = eventsExecutor;
-        this.queueExecutor = ThreadUtils.getSingleThreadScheduledExecutorService(name + "-queueProcessor");
+        this.metrics = (metrics != null) ? metrics : MetricsRegistry.DISABLED;
+        this.metricQueueWait = name + ".queueWait";
+        this.metricProcess = name + ".process";
+    }
+
+    /** Constructor */
+    public EventQueueProcessor(String name, ExecutorService eventsExecutor) {
+        this(name, eventsExecutor, MetricsRegistry.DISABLED);
     }
 
     /** It adds an Event Handler/Consumer, linked to an event Type. More than on Handler can be assigned to a Type */
@@ -46,7 +65,15 @@ public class EventQueueProcessor {
     /** I adds a new Event to be consumed. This method returns immediately, the Event is processed in a separate Thread */
     public void addEvent(Event event) {
         try {
-            eventsQueue.offer(event);
+            if (!started) {
+                synchronized (this) {
+                    if (!started) {
+                        eventsQueue.offer(event);
+                        return;
+                    }
+                }
+            }
+            submit(event);
         } catch (RejectedExecutionException e) {
             // Most probably, we are trying to submit tasks when this executor has been already shutdown. This
             // might happen if the order of events triggered by the EventBus is not in the right order:
@@ -57,28 +84,47 @@ public class EventQueueProcessor {
         }
     }
 
-    /** Starts the Execution */
-    public void start() {
-        this.queueExecutor.submit(this::eventsProcessorJob);
+    /** Starts the Execution. The Events added so far are submitted in the same order they were added */
+    public synchronized void start() {
+        // The flag is only set once the queue is empty: until then, the Events added from other Threads wait for the
+        // lock and are queued, so they are never submitted before the older ones:
+        Event event;
+        while ((event = eventsQueue.poll()) != null) {
+            submit(event);
+        }
+        this.started = true;
     }
 
     /** Stops the execution */
     public void stop() {
         this.eventsExecutor.shutdownNow();
-        this.queueExecutor.shutdownNow();
     }
 
-    /**
-     * It processes the Queue of events one after another.
-     */
-    private void eventsProcessorJob() {
-        try {
-            while (true) {
-                Event event = eventsQueue.take();
-                eventsExecutor.submit(()-> eventsConsumers.get(event.getClass()).accept(event));
-            }
-        } catch (InterruptedException ie) {
-            //log.error(ie.getMessage(), ie);
+    private void submit(Event event) {
+        long submittedAt = metrics.startTimer();
+        if (submittedAt == 0) {
+            eventsExecutor.submit(()-> process(event));
+        } else {
+            eventsExecutor.submit(()-> {
+                String eventType = event.getClass().getSimpleName();
+                long startedAt = metrics.startTimer();
+                metrics.histogram(metricQueueWait, eventType).record(startedAt - submittedAt);
+                process(event);
+                metrics.histogram(metricProcess, eventType).recordSince(startedAt);
+            });
+        }
+    }
+
+    private void process(Event event) {
+        EventHandledEvent jfrEvent = new EventHandledEvent();
+        jfrEvent.begin();
+        eventsConsumers.get(event.getClass()).accept(event);
+        if (jfrEvent.shouldCommit()) {
+            jfrEvent.bus = name;
+            jfrEvent.handler = name;
+            jfrEvent.eventType = event.getClass().getSimpleName();
+            jfrEvent.setTraceInfo(event);
+            jfrEvent.commit();
         }
     }
 }
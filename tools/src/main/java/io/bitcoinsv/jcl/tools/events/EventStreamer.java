@@ -51,24 +51,36 @@ public class EventStreamer<E extends Event> {
     // Queue, by applying filters and calling the callback. This second execuor can be adjusted by specifying the
     // max number of threads it uses.
     private int numThreads;
+    // If TRUE, both executors use Virtual Threads (if supported by the JVM), since the Queue consumer spends most of
+    // its time blocked and the callbacks are client code we have no control over:
+    private boolean useVirtualThreads;
     private Executor queueExecutor; // for consuming the queue:
     private Executor eventExecutor; // for trigerring the callback for each event
 
-    public EventStreamer(EventBus eventBus, Class<E> eventClass, int numThreads) {
+    public EventStreamer(EventBus eventBus, Class<E> eventClass, int numThreads, boolean useVirtualThreads) {
         this.eventBus = eventBus;
         this.eventClass = eventClass;
         this.numThreads = numThreads;
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    public EventStreamer(EventBus eventBus, Class<E> eventClass, int numThreads) {
+        this(eventBus, eventClass, numThreads, false);
     }
 
     public EventStreamer(EventBus eventBus, Class<E> eventClass) {
         this(eventBus, eventClass, DEFAULT_NUM_THREADS);
     }
 
-    public EventStreamer(EventBus eventBus, Class<E> eventClass, Predicate<E> filter, int numThreads) {
-        this(eventBus, eventClass, numThreads);
+    public EventStreamer(EventBus eventBus, Class<E> eventClass, Predicate<E> filter, int numThreads, boolean useVirtualThreads) {
+        this(eventBus, eventClass, numThreads, useVirtualThreads);
         filters.add(filter);
     }
 
+    public EventStreamer(EventBus eventBus, Class<E> eventClass, Predicate<E> filter, int numThreads) {
+        this(eventBus, eventClass, filter, numThreads, false);
+    }
+
     public EventStreamer(EventBus eventBus, Class<E> eventClass, Predicate<E> filter) {
         this(eventBus, eventClass, filter, DEFAULT_NUM_THREADS);
     }
@@ -121,12 +133,14 @@ public class EventStreamer<E extends Event> {
         if (this.queueExecutor == null) {
             // We configure our own executor responsible for consuming the QUEUE of events:
             String queueThreadName = "EventStreamerQueue[" + eventClass.getSimpleName() + "]";
-            this.queueExecutor = ThreadUtils.getSingleThreadExecutorService(queueThreadName);
+            this.queueExecutor = (useVirtualThreads)
+                    ? ThreadUtils.getVirtualThreadExecutorService(queueThreadName)
+                    : ThreadUtils.getSingleThreadExecutorService(queueThreadName);
             this.queueExecutor.execute(this::processEventsQueue);
 
             // We configure the executor responsible for processing the Events:
             String eventThreadName = "EventStreamerProcessor[" + eventClass.getSimpleName() + "]";
-            this.eventExecutor = ThreadUtils.getCachedThreadExecutorService(eventThreadName, this.numThreads);
+            this.eventExecutor = ThreadUtils.getCachedThreadExecutorService(eventThreadName, this.numThreads, useVirtualThreads);
 
             // Every time an event is triggered by the Source EventBus, we add it to our eventQueue:
             eventBus.subscribe(eventClass, e -> this.events.offer(e));
@@ -0,0 +1,56 @@
+package io.bitcoinsv.jcl.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * JFR Event recorded when a Handler has processed an Event. Its duration is the processing time.
+ */
+@Name("io.bitcoinsv.jcl.EventHandled")
+@Label("Event Handled")
+@Category({"JCL", "Events"})
+@Description("Event processed by a Handler")
+@StackTrace(false)
+public class EventHandledEvent extends Event {
+    @Label("Bus")
+    public String bus;
+
+    @Label("Handler")
+    public String handler;
+
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Peer")
+    public String peer;
+
+    @Label("Command")
+    public String command;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    /** It fills the fields related to the Message, if the Event is linked to one */
+    public void setTraceInfo(Object event) {
+        if (event instanceof TraceableEvent) {
+            TraceableEvent traceableEvent = (TraceableEvent) event;
+            this.peer = traceableEvent.getTracePeer();
+            this.command = traceableEvent.getTraceCommand();
+            this.size = traceableEvent.getTraceSize();
+        }
+    }
+
+    /**
+     * Returns a readable name for the Handler given. Handlers are usually lambdas, so we use the name of the class
+     * where they are defined.
+     */
+    public static String handlerName(Object handler) {
+        String className = handler.getClass().getName();
+        int lambdaIndex = className.indexOf("$$Lambda");
+        if (lambdaIndex > 0) className = className.substring(0, lambdaIndex);
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+}
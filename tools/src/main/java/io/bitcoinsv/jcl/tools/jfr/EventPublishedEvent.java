@@ -0,0 +1,42 @@
+package io.bitcoinsv.jcl.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * JFR Event recorded when an Event is published to an EventBus.
+ */
+@Name("io.bitcoinsv.jcl.EventPublished")
+@Label("Event Published")
+@Category({"JCL", "Events"})
+@Description("Event published to an EventBus")
+@StackTrace(false)
+public class EventPublishedEvent extends Event {
+    @Label("Bus")
+    public String bus;
+
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Peer")
+    public String peer;
+
+    @Label("Command")
+    public String command;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    /** It fills the fields related to the Message, if the Event is linked to one */
+    public void setTraceInfo(Object event) {
+        if (event instanceof TraceableEvent) {
+            TraceableEvent traceableEvent = (TraceableEvent) event;
+            this.peer = traceableEvent.getTracePeer();
+            this.command = traceableEvent.getTraceCommand();
+            this.size = traceableEvent.getTraceSize();
+        }
+    }
+}
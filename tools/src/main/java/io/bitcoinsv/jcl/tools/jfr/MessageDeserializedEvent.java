@@ -0,0 +1,31 @@
+package io.bitcoinsv.jcl.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * JFR Event recorded when the Body of an incoming Message has been deserialized. For big Messages deserialized in
+ * real-time, its duration also includes the time waiting for the bytes to arrive.
+ */
+@Name("io.bitcoinsv.jcl.MessageDeserialized")
+@Label("Message Deserialized")
+@Category({"JCL", "Messages"})
+@Description("Body of an incoming Message deserialized")
+@StackTrace(false)
+public class MessageDeserializedEvent extends Event {
+    @Label("Peer")
+    public String peer;
+
+    @Label("Command")
+    public String command;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    @Label("Real-Time")
+    @Description("TRUE if the Message has been deserialized in real-time, as the bytes arrived")
+    public boolean realTime;
+}
@@ -0,0 +1,26 @@
+package io.bitcoinsv.jcl.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * JFR Event recorded when the Header of an incoming Message has been parsed, so we know which Message is coming next.
+ */
+@Name("io.bitcoinsv.jcl.MessageFramed")
+@Label("Message Framed")
+@Category({"JCL", "Messages"})
+@Description("Header of an incoming Message parsed")
+@StackTrace(false)
+public class MessageFramedEvent extends Event {
+    @Label("Peer")
+    public String peer;
+
+    @Label("Command")
+    public String command;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+}
@@ -0,0 +1,23 @@
+package io.bitcoinsv.jcl.tools.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * JFR Event recorded every time bytes are read from the Socket connected to a Peer.
+ */
+@Name("io.bitcoinsv.jcl.SocketRead")
+@Label("Socket Read")
+@Category({"JCL", "Network"})
+@Description("Bytes read from the Socket connected to a Peer")
+@StackTrace(false)
+public class SocketReadEvent extends Event {
+    @Label("Peer")
+    public String peer;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+}
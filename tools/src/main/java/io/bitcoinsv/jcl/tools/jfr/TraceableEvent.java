@@ -0,0 +1,19 @@
+package io.bitcoinsv.jcl.tools.jfr;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * An Event that is related to a Message exchanged with a Peer. When this kind of Event goes through the EventBus,
+ * the JFR Events recorded include this info, so the path of a Message can be reconstructed from a JFR recording.
+ *
+ * These methods are only called when the JFR Events are enabled.
+ */
+public interface TraceableEvent {
+    /** Remote Peer the Message comes from or goes to */
+    String getTracePeer();
+    /** Command of the Message (version, inv, tx...) */
+    String getTraceCommand();
+    /** Size of the Message in bytes */
+    long getTraceSize();
+}
@@ -0,0 +1,29 @@
+package io.bitcoinsv.jcl.tools.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A monotonic Counter, backed by a LongAdder, so it can be updated from many Threads at the same time without
+ * contention. Counters are obtained from a {@link MetricsRegistry}. If the Registry is disabled, a NO-OP Counter is
+ * returned instead, so the instrumented code costs nothing.
+ */
+public class Counter {
+
+    /** A Counter that does nothing. Returned by a disabled Registry */
+    static final Counter NOOP = new Counter() {
+        @Override public void inc()           {}
+        @Override public void add(long value) {}
+    };
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {}
+
+    public void inc()                   { value.increment(); }
+    public void add(long value)         { this.value.add(value); }
+    public long get()                   { return value.sum(); }
+    void reset()                        { value.reset(); }
+}
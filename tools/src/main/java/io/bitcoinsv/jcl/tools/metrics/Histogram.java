@@ -0,0 +1,115 @@
+package io.bitcoinsv.jcl.tools.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A lock-free Histogram of (non-negative) long values, like durations in nanoseconds or sizes in bytes.
+ *
+ * The values are stored in log-linear Buckets: values below 16 have their own Bucket, and above that each power of 2
+ * is split into 8 Buckets. So the percentiles have a maximum relative error of 12.5%, which is good enough to spot
+ * latency problems, and recording a value is just a couple of bit operations and an atomic increment.
+ *
+ * Histograms are obtained from a {@link MetricsRegistry}. If the Registry is disabled, a NO-OP Histogram is returned
+ * instead, and {@link MetricsRegistry#startTimer()} returns 0, so the instrumented code costs nothing.
+ */
+public class Histogram {
+
+    /** A Histogram that does nothing. Returned by a disabled Registry */
+    static final Histogram NOOP = new Histogram() {
+        @Override public void record(long value)            {}
+        @Override public void recordSince(long startNanos)  {}
+    };
+
+    // Buckets definition:
+    private static final int LINEAR_LIMIT   = 16;  // values below this have their own Bucket
+    private static final int SUB_BUCKET_BITS = 3;  // each power of 2 is split into 2^3 Buckets
+    private static final int SUB_BUCKETS    = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_EXPONENT = 4;   // log2(LINEAR_LIMIT)
+    private static final int NUM_BUCKETS    = LINEAR_LIMIT + (63 - FIRST_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    Histogram() {}
+
+    // It returns the index of the Bucket the value given belongs to:
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) return (int) Math.max(0, value);
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return LINEAR_LIMIT + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    // It returns the highest value that belongs to the Bucket given:
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) return index;
+        int exponent = FIRST_EXPONENT + (index - LINEAR_LIMIT) / SUB_BUCKETS;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        long lowerBound = (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /** Records a new value. Negative values are recorded as 0 */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(bucketIndex(v));
+        count.increment();
+        sum.add(v);
+        min.accumulate(v);
+        max.accumulate(v);
+    }
+
+    /** Records the time elapsed since the timestamp given (obtained by {@link MetricsRegistry#startTimer()}) */
+    public void recordSince(long startNanos) {
+        if (startNanos != 0) record(System.nanoTime() - startNanos);
+    }
+
+    /** Returns a Snapshot of the values recorded so far */
+    public HistogramSnapshot getSnapshot() {
+        long[] values = new long[NUM_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            values[i] = buckets.get(i);
+            total += values[i];
+        }
+        long maxValue = max.get();
+        return new HistogramSnapshot(
+                total,
+                sum.sum(),
+                (total == 0) ? 0 : min.get(),
+                (total == 0) ? 0 : maxValue,
+                percentile(values, total, 0.50, maxValue),
+                percentile(values, total, 0.90, maxValue),
+                percentile(values, total, 0.99, maxValue));
+    }
+
+    // It returns the value below which the percentage given of the values recorded fall:
+    private static long percentile(long[] values, long total, double percentile, long maxValue) {
+        if (total == 0) return 0;
+        long target = (long) Math.ceil(total * percentile);
+        long accumulated = 0;
+        for (int i = 0; i < values.length; i++) {
+            accumulated += values[i];
+            if (accumulated >= target) return Math.min(bucketUpperBound(i), maxValue);
+        }
+        return maxValue;
+    }
+
+    void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) buckets.set(i, 0);
+        count.reset();
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+
+    public long getCount() { return count.sum(); }
+}
@@ -0,0 +1,41 @@
+package io.bitcoinsv.jcl.tools.metrics;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Values of a {@link Histogram} at a point in time. The percentiles are approximated (see {@link Histogram}).
+ */
+public final class HistogramSnapshot {
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+
+    HistogramSnapshot(long count, long sum, long min, long max, long p50, long p90, long p99) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    public long getCount()      { return this.count; }
+    public long getSum()        { return this.sum; }
+    public long getMin()        { return this.min; }
+    public long getMax()        { return this.max; }
+    public double getMean()     { return (count == 0) ? 0 : (double) sum / count; }
+    public long getP50()        { return this.p50; }
+    public long getP90()        { return this.p90; }
+    public long getP99()        { return this.p99; }
+
+    @Override
+    public String toString() {
+        return "count: " + count + ", min: " + min + ", p50: " + p50 + ", p90: " + p90 + ", p99: " + p99 + ", max: " + max;
+    }
+}
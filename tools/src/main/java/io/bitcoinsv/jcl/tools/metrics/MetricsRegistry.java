@@ -0,0 +1,162 @@
+package io.bitcoinsv.jcl.tools.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Registry of Metrics (Counters and Histograms), used to instrument the different stages of the processing of the
+ * messages (bytes read, header parsing, body deserialization, time waiting in the EventBus, handlers execution...).
+ *
+ * Each Metric is identified by a name, and optionally a "tag" (like the message type), so the same metric can be
+ * broken down by tag without building a new String every time. The Metric "msg.deserialize" with tag "inv", for
+ * example, is shown as "msg.deserialize[inv]".
+ *
+ * The Metrics are meant to be cheap: All of them are lock-free, and the instrumented code is expected to obtain them
+ * once and keep the reference when possible. If the Registry is disabled, NO-OP Metrics are returned and
+ * {@link #startTimer()} returns 0, so there is no cost apart from a (predictable) branch.
+ *
+ * The values can be polled by {@link #getSnapshot()}, or through JMX after calling {@link #registerMBean()}.
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    /** A Registry that is always disabled */
+    public static final MetricsRegistry DISABLED = new MetricsRegistry("disabled", false);
+
+    private static final String JMX_DOMAIN = "io.bitcoinsv.jcl";
+
+    private final String name;
+    private final boolean enabled;
+
+    // Metrics without Tag, and Metrics with Tag (indexed by name and then by Tag):
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Counter>> taggedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Histogram>> taggedHistograms = new ConcurrentHashMap<>();
+
+    private ObjectName mbeanName;
+
+    /** Constructor */
+    public MetricsRegistry(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+    }
+
+    public String getName()     { return this.name; }
+    public boolean isEnabled()  { return this.enabled; }
+
+    /** Returns the Counter with the name given, creating it if needed */
+    public Counter counter(String name) {
+        if (!enabled) return Counter.NOOP;
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /** Returns the Counter with the name and Tag given, creating it if needed */
+    public Counter counter(String name, String tag) {
+        if (!enabled) return Counter.NOOP;
+        return getOrCreate(taggedCounters, name, tag, Counter::new);
+    }
+
+    /** Returns the Histogram with the name given, creating it if needed */
+    public Histogram histogram(String name) {
+        if (!enabled) return Histogram.NOOP;
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /** Returns the Histogram with the name and Tag given, creating it if needed */
+    public Histogram histogram(String name, String tag) {
+        if (!enabled) return Histogram.NOOP;
+        return getOrCreate(taggedHistograms, name, tag, Histogram::new);
+    }
+
+    /**
+     * Returns a timestamp to be used later on in {@link Histogram#recordSince(long)}. If the Registry is disabled, it
+     * returns 0, and the time is not even read.
+     */
+    public long startTimer() {
+        if (!enabled) return 0;
+        long now = System.nanoTime();
+        return (now == 0) ? 1 : now;
+    }
+
+    private static <T> T getOrCreate(Map<String, Map<String, T>> map, String name, String tag, Supplier<T> creator) {
+        Map<String, T> metricsByTag = map.get(name);
+        if (metricsByTag == null) metricsByTag = map.computeIfAbsent(name, n -> new ConcurrentHashMap<>());
+        T result = metricsByTag.get(tag);
+        if (result == null) result = metricsByTag.computeIfAbsent(tag, t -> creator.get());
+        return result;
+    }
+
+    private static String fullName(String name, String tag) {
+        return name + "[" + tag + "]";
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((name, counter) -> result.put(name, counter.get()));
+        taggedCounters.forEach((name, byTag) -> byTag.forEach((tag, counter) -> result.put(fullName(name, tag), counter.get())));
+        return result;
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getHistograms() {
+        Map<String, HistogramSnapshot> result = new TreeMap<>();
+        histograms.forEach((name, histogram) -> result.put(name, histogram.getSnapshot()));
+        taggedHistograms.forEach((name, byTag) -> byTag.forEach((tag, histogram) -> result.put(fullName(name, tag), histogram.getSnapshot())));
+        return result;
+    }
+
+    /** Returns the values of all the Metrics at this moment */
+    public MetricsSnapshot getSnapshot() {
+        return new MetricsSnapshot(name, Instant.now(), getCounters(), getHistograms());
+    }
+
+    /** Resets all the Metrics to zero */
+    @Override
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(Histogram::reset);
+        taggedCounters.values().forEach(byTag -> byTag.values().forEach(Counter::reset));
+        taggedHistograms.values().forEach(byTag -> byTag.values().forEach(Histogram::reset));
+    }
+
+    /** Registers this Registry in the Platform MBean Server. It does nothing if the Registry is disabled */
+    public synchronized void registerMBean() {
+        if (!enabled || mbeanName != null) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) server.registerMBean(this, objectName);
+            this.mbeanName = objectName;
+        } catch (Exception e) {
+            log.warn("Error registering the Metrics MBean for " + name, e);
+        }
+    }
+
+    /** Removes this Registry from the Platform MBean Server, if it was registered */
+    public synchronized void unregisterMBean() {
+        if (mbeanName == null) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(mbeanName)) server.unregisterMBean(mbeanName);
+        } catch (Exception e) {
+            log.warn("Error unregistering the Metrics MBean for " + name, e);
+        } finally {
+            this.mbeanName = null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.bitcoinsv.jcl.tools.metrics;
+
+import java.util.Map;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * JMX interface of the {@link MetricsRegistry}.
+ */
+public interface MetricsRegistryMXBean {
+    boolean isEnabled();
+    Map<String, Long> getCounters();
+    Map<String, HistogramSnapshot> getHistograms();
+    void reset();
+}
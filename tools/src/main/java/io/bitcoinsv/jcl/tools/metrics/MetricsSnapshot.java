@@ -0,0 +1,52 @@
+package io.bitcoinsv.jcl.tools.metrics;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * Values of all the Counters and Histograms of a {@link MetricsRegistry} at a point in time. Durations are stored
+ * in nanoseconds, sizes in bytes.
+ */
+public final class MetricsSnapshot {
+    private final String name;
+    private final Instant timestamp;
+    private final Map<String, Long> counters;
+    private final Map<String, HistogramSnapshot> histograms;
+
+    MetricsSnapshot(String name, Instant timestamp, Map<String, Long> counters, Map<String, HistogramSnapshot> histograms) {
+        this.name = name;
+        this.timestamp = timestamp;
+        this.counters = Collections.unmodifiableMap(counters);
+        this.histograms = Collections.unmodifiableMap(histograms);
+    }
+
+    public String getName()                                 { return this.name; }
+    public Instant getTimestamp()                           { return this.timestamp; }
+    public Map<String, Long> getCounters()                  { return this.counters; }
+    public Map<String, HistogramSnapshot> getHistograms()   { return this.histograms; }
+
+    /** Returns the value of the Counter given, or 0 if it does not exist */
+    public long getCounter(String name)                     { return counters.getOrDefault(name, 0L); }
+
+    /** Returns the Snapshot of the Histogram given, or null if it does not exist */
+    public HistogramSnapshot getHistogram(String name)      { return histograms.get(name); }
+
+    @Override
+    public String toString() {
+        StringBuffer result = new StringBuffer();
+        result.append("Metrics [" + name + "] at " + timestamp + ":\n");
+        result.append(counters.entrySet().stream()
+                .map(e -> " - " + e.getKey() + " : " + e.getValue())
+                .collect(Collectors.joining("\n")));
+        if (!counters.isEmpty() && !histograms.isEmpty()) result.append("\n");
+        result.append(histograms.entrySet().stream()
+                .map(e -> " - " + e.getKey() + " : " + e.getValue())
+                .collect(Collectors.joining("\n")));
+        return result.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package io.bitcoinsv.jcl.tools.thread;
+
+import java.time.Duration;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * State of one of the Lanes of the {@link ExecutionModel} at a point in time.
+ */
+public final class ExecutionLaneState {
+    private final ExecutionModel.Lane lane;
+    private final int numThreads;
+    private final int poolSize;
+    private final int numTasksRunning;
+    private final long numTasksQueued;
+    private final long numTasksCompleted;
+    private final Duration busyTime;
+    // Percentage of time the Threads of this Lane have been busy since the previous State [0..1]:
+    private final double utilization;
+
+    ExecutionLaneState(ExecutionModel.Lane lane, int numThreads, int poolSize, int numTasksRunning,
+                       long numTasksQueued, long numTasksCompleted, Duration busyTime, double utilization) {
+        this.lane = lane;
+        this.numThreads = numThreads;
+        this.poolSize = poolSize;
+        this.numTasksRunning = numTasksRunning;
+        this.numTasksQueued = numTasksQueued;
+        this.numTasksCompleted = numTasksCompleted;
+        this.busyTime = busyTime;
+        this.utilization = utilization;
+    }
+
+    public ExecutionModel.Lane getLane()    { return this.lane; }
+    public int getNumThreads()              { return this.numThreads; }
+    public int getPoolSize()                { return this.poolSize; }
+    public int getNumTasksRunning()         { return this.numTasksRunning; }
+    public long getNumTasksQueued()         { return this.numTasksQueued; }
+    public long getNumTasksCompleted()      { return this.numTasksCompleted; }
+    public Duration getBusyTime()           { return this.busyTime; }
+    public double getUtilization()          { return this.utilization; }
+
+    @Override
+    public String toString() {
+        return lane + ": " + poolSize + "/" + numThreads + " threads, "
+                + numTasksRunning + " running, "
+                + numTasksQueued + " queued, "
+                + numTasksCompleted + " completed, "
+                + String.format("%.1f", utilization * 100) + "% utilization";
+    }
+
+    public static ExecutionLaneStateBuilder builder() {
+        return new ExecutionLaneStateBuilder();
+    }
+
+    /**
+     * Builder
+     */
+    public static class ExecutionLaneStateBuilder {
+        private ExecutionModel.Lane lane;
+        private int numThreads;
+        private int poolSize;
+        private int numTasksRunning;
+        private long numTasksQueued;
+        private long numTasksCompleted;
+        private Duration busyTime;
+        private double utilization;
+
+        ExecutionLaneStateBuilder() {}
+
+        public ExecutionLaneStateBuilder lane(ExecutionModel.Lane lane) {
+            this.lane = lane;
+            return this;
+        }
+
+        public ExecutionLaneStateBuilder numThreads(int numThreads) {
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        public ExecutionLaneStateBuilder poolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        public ExecutionLaneStateBuilder numTasksRunning(int numTasksRunning) {
+            this.numTasksRunning = numTasksRunning;
+            return this;
+        }
+
+        public ExecutionLaneStateBuilder numTasksQueued(long numTasksQueued) {
+            this.numTasksQueued = numTasksQueued;
+            return this;
+        }
+
+        public ExecutionLaneStateBuilder numTasksCompleted(long numTasksCompleted) {
+            this.numTasksCompleted = numTasksCompleted;
+            return this;
+        }
+
+        public ExecutionLaneStateBuilder busyTime(Duration busyTime) {
+            this.busyTime = busyTime;
+            return this;
+        }
+
+        public ExecutionLaneStateBuilder utilization(double utilization) {
+            this.utilization = utilization;
+            return this;
+        }
+
+        public ExecutionLaneState build() {
+            return new ExecutionLaneState(lane, numThreads, poolSize, numTasksRunning, numTasksQueued,
+                    numTasksCompleted, busyTime, utilization);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package io.bitcoinsv.jcl.tools.thread;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * The Execution Model used by JCL. Instead of having each Handler/Component creating its own Thread Pools, all of
+ * them draw from the same set of "Lanes", each one of them intended for a different kind of work:
+ *
+ *  - CPU Lane: A Work-stealing ForkJoinPool, with as many Threads as CPU cores by default. For short, CPU-bound
+ *    Tasks that never block (serialization, broadcasting, etc).
+ *  - IO Lane: A bounded Thread Pool, for Tasks that might block (reading from the network, waiting for bytes to
+ *    arrive, Event Bus callbacks, access to the DB, etc).
+ *  - Long-Running Lane: A separate bounded Thread Pool, for Tasks that block for a long time, like the
+ *    deserialization of a big Message while its bytes keep arriving. They are kept apart from the IO Lane so a burst
+ *    of them can not starve the short Tasks there (Event Bus callbacks, Ping/Pong, Handshakes, etc).
+ *  - Scheduled Lane: A small Scheduled Pool, for Tasks that need to run in the future or periodically.
+ *
+ * Optionally, the IO and Long-Running Lanes can run on Virtual Threads (JDK 21+). In that case each Task runs in its
+ * own Virtual Thread, so a Task blocked waiting for bytes or Events does not keep a Platform Thread busy, and those
+ * Lanes are no longer bounded (the limits set on each View by "maxConcurrency" still apply). If the JVM does not
+ * support Virtual Threads, the regular bounded Pools are used instead.
+ *
+ * Each Component gets its own "view" over a Lane (see {@link #getCPULane(String)}, {@link #getIOLane(String)} and
+ * {@link #getScheduledLane(String)}). The View can be shutdown without affecting the rest of Components.
+ *
+ * The utilization of each Lane is measured and can be obtained by {@link #getState()}.
+ *
+ * Some Threads are deliberately kept out of the Lanes: those running a loop for the whole life of a Component (the
+ * Thread moving the {@link TimerWheel}, the jobs of the NetworkHandler that open and close Connections, etc). They
+ * would hold a Lane Thread forever, reducing the capacity of the Lane for the rest of Components.
+ */
+public class ExecutionModel {
+
+    /** Definition of the Lanes */
+    public enum Lane { CPU, IO, LONG_RUNNING, SCHEDULED }
+
+    /** Metrics about a Lane, updated by the Views every time a Task is run */
+    static class LaneMetrics {
+        private final Lane lane;
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder numTasksCompleted = new LongAdder();
+        private final AtomicInteger numTasksRunning = new AtomicInteger();
+
+        // Values in the last State, to calculate the utilization since then:
+        private long lastBusyNanos;
+        private long lastTimestampNanos = System.nanoTime();
+
+        LaneMetrics(Lane lane)                  { this.lane = lane; }
+        void taskStarted()                      { numTasksRunning.incrementAndGet(); }
+        void taskFinished(long durationNanos) {
+            numTasksRunning.decrementAndGet();
+            numTasksCompleted.increment();
+            busyNanos.add(durationNanos);
+        }
+        Lane getLane()                          { return this.lane; }
+
+        // It returns the utilization of the Lane since the last time this method was called.
+        synchronized double updateUtilization(int numThreads) {
+            long now = System.nanoTime();
+            long busy = busyNanos.sum();
+            long elapsed = now - lastTimestampNanos;
+            double result = (elapsed > 0 && numThreads > 0)
+                    ? Math.min(1.0, (double) (busy - lastBusyNanos) / ((double) elapsed * numThreads))
+                    : 0;
+            lastBusyNanos = busy;
+            lastTimestampNanos = now;
+            return result;
+        }
+    }
+
+    // Default Values:
+    public static final int      DEFAULT_CPU_THREADS        = Runtime.getRuntime().availableProcessors();
+    public static final int      DEFAULT_IO_THREADS         = 50;
+    public static final int      DEFAULT_LONG_RUNNING_THREADS = 20;
+    public static final int      DEFAULT_SCHEDULED_THREADS  = 2;
+    private static final Duration IO_THREADS_KEEP_ALIVE     = Duration.ofSeconds(60);
+
+    private final String name;
+    private final ForkJoinPool cpuLane;
+    private final ExecutorService ioLane;
+    private final int maxIOThreads;
+    private final boolean virtualIOThreads;
+    private final ExecutorService longRunningLane;
+    private volatile int maxLongRunningThreads;
+    private final ScheduledThreadPoolExecutor scheduledLane;
+
+    private final LaneMetrics cpuMetrics = new LaneMetrics(Lane.CPU);
+    private final LaneMetrics ioMetrics = new LaneMetrics(Lane.IO);
+    private final LaneMetrics longRunningMetrics = new LaneMetrics(Lane.LONG_RUNNING);
+    private final LaneMetrics scheduledMetrics = new LaneMetrics(Lane.SCHEDULED);
+
+    /**
+     * Constructor.
+     *
+     * @param name              Prefix used for the Threads names
+     * @param numCPUThreads     Parallelism of the CPU Lane
+     * @param maxIOThreads      Maximum number of Threads in the IO Lane
+     * @param cachedIOThreads   If TRUE, the IO Threads are created on demand and die after a period of inactivity.
+     *                          Otherwise, they are kept alive once created.
+     * @param numScheduledThreads Number of Threads in the Scheduled Lane
+     * @param virtualIOThreads  If TRUE and the JVM supports it, the IO and Long-Running Lanes run on Virtual Threads
+     * @param maxLongRunningThreads Maximum number of Threads in the Long-Running Lane
+     */
+    public ExecutionModel(String name, int numCPUThreads, int maxIOThreads, boolean cachedIOThreads,
+                          int numScheduledThreads, boolean virtualIOThreads, int maxLongRunningThreads) {
+        checkArgument(numCPUThreads > 0, "The number of CPU Threads must be greater than 0");
+        checkArgument(maxIOThreads > 0, "The number of IO Threads must be greater than 0");
+        checkArgument(maxLongRunningThreads > 0, "The number of Long-Running Threads must be greater than 0");
+        checkArgument(numScheduledThreads > 0, "The number of Scheduled Threads must be greater than 0");
+        this.name = name;
+
+        ForkJoinPool.ForkJoinWorkerThreadFactory cpuThreadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setDaemon(true);
+            thread.setName(name + "CPU:" + thread.getId());
+            return thread;
+        };
+        // "asyncMode" is TRUE, since we only submit independent Tasks (no fork/join), so FIFO order fits better:
+        this.cpuLane = new ForkJoinPool(numCPUThreads, cpuThreadFactory, null, true);
+
+        this.maxIOThreads = maxIOThreads;
+        this.virtualIOThreads = virtualIOThreads && ThreadUtils.isVirtualThreadsSupported();
+        this.maxLongRunningThreads = maxLongRunningThreads;
+        if (this.virtualIOThreads) {
+            this.ioLane = ThreadUtils.getVirtualThreadExecutorService(name + "IO");
+            this.longRunningLane = ThreadUtils.getVirtualThreadExecutorService(name + "LongRunning");
+        } else {
+            this.ioLane = buildBlockingPool(name + "IO", maxIOThreads, cachedIOThreads);
+            // Long-Running Tasks come in bursts (big Messages), so these Threads are always released when idle:
+            this.longRunningLane = buildBlockingPool(name + "LongRunning", maxLongRunningThreads, true);
+        }
+
+        this.scheduledLane = new ScheduledThreadPoolExecutor(numScheduledThreads,
+                ThreadUtils.getThreadFactory(name + "Scheduled", Thread.NORM_PRIORITY, true));
+        this.scheduledLane.setRemoveOnCancelPolicy(true);
+    }
+
+    /** Constructor. The Long-Running Lane gets the default number of Threads */
+    public ExecutionModel(String name, int numCPUThreads, int maxIOThreads, boolean cachedIOThreads,
+                          int numScheduledThreads, boolean virtualIOThreads) {
+        this(name, numCPUThreads, maxIOThreads, cachedIOThreads, numScheduledThreads, virtualIOThreads,
+                DEFAULT_LONG_RUNNING_THREADS);
+    }
+
+    /** Constructor. The IO Lane runs on Platform Threads */
+    public ExecutionModel(String name, int numCPUThreads, int maxIOThreads, boolean cachedIOThreads, int numScheduledThreads) {
+        this(name, numCPUThreads, maxIOThreads, cachedIOThreads, numScheduledThreads, false);
+    }
+
+    /** Constructor with default values */
+    public ExecutionModel(String name) {
+        this(name, DEFAULT_CPU_THREADS, DEFAULT_IO_THREADS, false, DEFAULT_SCHEDULED_THREADS);
+    }
+
+    /** Returns a View over the CPU Lane. The Tasks submitted must NOT block */
+    public ExecutorService getCPULane(String clientName) {
+        return new LaneExecutorService(clientName, cpuLane, cpuMetrics);
+    }
+
+    /** Returns a View over the IO Lane. Tasks that might block must be submitted here */
+    public ExecutorService getIOLane(String clientName) {
+        return new LaneExecutorService(clientName, ioLane, ioMetrics);
+    }
+
+    /**
+     * Returns a View over the IO Lane, which runs at most "maxConcurrency" of its Tasks at the same time. If
+     * "maxConcurrency" is 1, the Tasks are run one after another in the same order they are submitted.
+     */
+    public ExecutorService getIOLane(String clientName, int maxConcurrency) {
+        checkArgument(maxConcurrency > 0, "maxConcurrency must be greater than 0");
+        return new LaneExecutorService(clientName, ioLane, ioMetrics, maxConcurrency);
+    }
+
+    /**
+     * Returns a View over the Long-Running Lane. Tasks that block for a long time (like deserializing a big Message
+     * while its bytes arrive) must be submitted here, so they do not starve the short Tasks in the IO Lane
+     */
+    public ExecutorService getLongRunningLane(String clientName) {
+        return new LaneExecutorService(clientName, longRunningLane, longRunningMetrics);
+    }
+
+    /**
+     * Returns a View over the Long-Running Lane, which grows (if needed) so it can run at least "minThreads" Tasks at
+     * the same time. Used when the number of Tasks blocked at once depends on the client (one per Peer, for example),
+     * so the Tasks beyond the default size are not left waiting in the queue.
+     */
+    public ExecutorService getLongRunningLane(String clientName, int minThreads) {
+        growLongRunningLane(minThreads);
+        return getLongRunningLane(clientName);
+    }
+
+    private synchronized void growLongRunningLane(int minThreads) {
+        if (minThreads <= maxLongRunningThreads) return;
+        maxLongRunningThreads = minThreads;
+        if (!virtualIOThreads) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) longRunningLane;
+            pool.setMaximumPoolSize(minThreads);
+            pool.setCorePoolSize(minThreads);
+        }
+    }
+
+    /** Returns a View over the Scheduled Lane */
+    public ScheduledExecutorService getScheduledLane(String clientName) {
+        return new LaneScheduledExecutorService(clientName, scheduledLane, scheduledMetrics);
+    }
+
+    /**
+     * Returns the current State of the Lanes. The utilization of each Lane is calculated since the last time this
+     * method was called.
+     */
+    public synchronized ExecutionModelState getState() {
+        List<ExecutionLaneState> lanesState = new ArrayList<>();
+        lanesState.add(ExecutionLaneState.builder()
+                .lane(Lane.CPU)
+                .numThreads(cpuLane.getParallelism())
+                .poolSize(cpuLane.getPoolSize())
+                .numTasksRunning(cpuMetrics.numTasksRunning.get())
+                .numTasksQueued(cpuLane.getQueuedSubmissionCount() + cpuLane.getQueuedTaskCount())
+                .numTasksCompleted(cpuMetrics.numTasksCompleted.sum())
+                .busyTime(Duration.ofNanos(cpuMetrics.busyNanos.sum()))
+                .utilization(cpuMetrics.updateUtilization(cpuLane.getParallelism()))
+                .build());
+        // With Virtual Threads there is no Pool: one Thread is alive per running Task, and nothing is ever queued. The
+        // utilization is then measured against the number of Platform Threads we would have used otherwise:
+        int ioRunning = ioMetrics.numTasksRunning.get();
+        lanesState.add(ExecutionLaneState.builder()
+                .lane(Lane.IO)
+                .numThreads(virtualIOThreads ? maxIOThreads : ((ThreadPoolExecutor) ioLane).getMaximumPoolSize())
+                .poolSize(virtualIOThreads ? ioRunning : ((ThreadPoolExecutor) ioLane).getPoolSize())
+                .numTasksRunning(ioRunning)
+                .numTasksQueued(virtualIOThreads ? 0 : ((ThreadPoolExecutor) ioLane).getQueue().size())
+                .numTasksCompleted(ioMetrics.numTasksCompleted.sum())
+                .busyTime(Duration.ofNanos(ioMetrics.busyNanos.sum()))
+                .utilization(ioMetrics.updateUtilization(maxIOThreads))
+                .build());
+        int longRunningRunning = longRunningMetrics.numTasksRunning.get();
+        lanesState.add(ExecutionLaneState.builder()
+                .lane(Lane.LONG_RUNNING)
+                .numThreads(virtualIOThreads ? maxLongRunningThreads : ((ThreadPoolExecutor) longRunningLane).getMaximumPoolSize())
+                .poolSize(virtualIOThreads ? longRunningRunning : ((ThreadPoolExecutor) longRunningLane).getPoolSize())
+                .numTasksRunning(longRunningRunning)
+                .numTasksQueued(virtualIOThreads ? 0 : ((ThreadPoolExecutor) longRunningLane).getQueue().size())
+                .numTasksCompleted(longRunningMetrics.numTasksCompleted.sum())
+                .busyTime(Duration.ofNanos(longRunningMetrics.busyNanos.sum()))
+                .utilization(longRunningMetrics.updateUtilization(maxLongRunningThreads))
+                .build());
+        lanesState.add(ExecutionLaneState.builder()
+                .lane(Lane.SCHEDULED)
+                .numThreads(scheduledLane.getCorePoolSize())
+                .poolSize(scheduledLane.getPoolSize())
+                .numTasksRunning(scheduledMetrics.numTasksRunning.get())
+                .numTasksQueued(scheduledLane.getQueue().size())
+                .numTasksCompleted(scheduledMetrics.numTasksCompleted.sum())
+                .busyTime(Duration.ofNanos(scheduledMetrics.busyNanos.sum()))
+                .utilization(scheduledMetrics.updateUtilization(scheduledLane.getCorePoolSize()))
+                .build());
+        return new ExecutionModelState(name, lanesState);
+    }
+
+    /** It shuts down all the Lanes. After this, none of the Views can be used */
+    public void shutdown() {
+        cpuLane.shutdownNow();
+        ioLane.shutdownNow();
+        longRunningLane.shutdownNow();
+        scheduledLane.shutdownNow();
+    }
+
+    // It builds a bounded Pool of Platform Threads, for Tasks that might block:
+    private static ThreadPoolExecutor buildBlockingPool(String threadsName, int maxThreads, boolean cachedThreads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads,
+                IO_THREADS_KEEP_ALIVE.toMillis(), TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                ThreadUtils.getThreadFactory(threadsName, Thread.NORM_PRIORITY, true));
+        pool.allowCoreThreadTimeOut(cachedThreads);
+        return pool;
+    }
+
+    public String getName()                 { return this.name; }
+    public boolean isVirtualIOThreads()     { return this.virtualIOThreads; }
+}
@@ -0,0 +1,33 @@
+package io.bitcoinsv.jcl.tools.thread;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * State of the {@link ExecutionModel} at a point in time: the State of each one of its Lanes.
+ */
+public final class ExecutionModelState {
+    private final String name;
+    private final List<ExecutionLaneState> lanes;
+
+    ExecutionModelState(String name, List<ExecutionLaneState> lanes) {
+        this.name = name;
+        this.lanes = Collections.unmodifiableList(lanes);
+    }
+
+    public String getName()                     { return this.name; }
+    public List<ExecutionLaneState> getLanes()  { return this.lanes; }
+
+    public ExecutionLaneState getLane(ExecutionModel.Lane lane) {
+        return lanes.stream().filter(l -> l.getLane() == lane).findFirst().orElse(null);
+    }
+
+    @Override
+    public String toString() {
+        return "Execution Model [" + name + "]: " + lanes.stream().map(ExecutionLaneState::toString).collect(Collectors.joining(" | "));
+    }
+}
@@ -0,0 +1,195 @@
+package io.bitcoinsv.jcl.tools.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A "view" over one of the Lanes of the {@link ExecutionModel}. Each component (Handler, Store, etc) gets its own
+ * view, so it can use it as a regular ExecutorService, but the Tasks are executed by the Threads of the shared Lane.
+ *
+ * A View can also limit the number of its Tasks running at the same time ("maxConcurrency"). In that case, the Tasks
+ * exceeding that limit wait in a local Queue until a previous one finishes. A View with a "maxConcurrency" of 1
+ * runs its Tasks one after another, in the same order they were submitted, like a SingleThread executor.
+ *
+ * Shutting down this view does NOT shutdown the Lane: it only rejects new Tasks submitted through this view, and
+ * (in case of "shutdownNow") interrupts the Tasks that were submitted through it and are still running, and discards
+ * the ones still waiting for their turn. If the Lane itself is shutdown, the Tasks waiting are discarded too.
+ */
+class LaneExecutorService extends AbstractExecutorService {
+
+    // Name of the Component using this View. Running Threads are renamed after it, so Thread dumps are still readable:
+    protected final String name;
+    protected final ExecutorService lane;
+    protected final ExecutionModel.LaneMetrics metrics;
+
+    // Threads currently running Tasks submitted through this View:
+    private final Set<Thread> runningThreads = ConcurrentHashMap.newKeySet();
+
+    // Number of Tasks submitted through this view and not finished yet:
+    private final AtomicInteger numTasksPending = new AtomicInteger();
+
+    // Maximum number of Tasks from this View running at the same time (0 = no limit), and Tasks waiting for their turn:
+    private final int maxConcurrency;
+    private final AtomicInteger numTasksDispatched = new AtomicInteger();
+    private final Queue<Runnable> tasksWaiting = new ConcurrentLinkedQueue<>();
+
+    protected volatile boolean shutdown;
+    protected volatile boolean stopped;
+
+    LaneExecutorService(String name, ExecutorService lane, ExecutionModel.LaneMetrics metrics, int maxConcurrency) {
+        this.name = name;
+        this.lane = lane;
+        this.metrics = metrics;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    LaneExecutorService(String name, ExecutorService lane, ExecutionModel.LaneMetrics metrics) {
+        this(name, lane, metrics, 0);
+    }
+
+    protected void checkNotShutdown() {
+        if (shutdown) throw new RejectedExecutionException(name + " has been shutdown");
+    }
+
+    /** It wraps the Task, so the Lane metrics are updated and the Task can be interrupted from this view */
+    protected Runnable wrap(Runnable task) {
+        return () -> {
+            if (stopped) return;
+            Thread thread = Thread.currentThread();
+            String threadName = thread.getName();
+            runningThreads.add(thread);
+            thread.setName(name + ":" + thread.getId());
+            metrics.taskStarted();
+            long startNanos = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                metrics.taskFinished(System.nanoTime() - startNanos);
+                thread.setName(threadName);
+                runningThreads.remove(thread);
+                // We do not let an interruption meant for this Task leak into the next Task run by the same Thread:
+                Thread.interrupted();
+            }
+        };
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        checkNotShutdown();
+        numTasksPending.incrementAndGet();
+        Runnable task = wrap(command);
+        if (maxConcurrency <= 0) {
+            try {
+                lane.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        taskDone();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                taskDone();
+                throw e;
+            }
+        } else {
+            tasksWaiting.offer(task);
+            dispatchWaitingTasks();
+        }
+    }
+
+    // It submits the Tasks waiting in the local Queue to the Lane, as long as the "maxConcurrency" limit allows it:
+    private void dispatchWaitingTasks() {
+        while (true) {
+            int numDispatched = numTasksDispatched.get();
+            if (numDispatched >= maxConcurrency || tasksWaiting.isEmpty()) return;
+            if (!numTasksDispatched.compareAndSet(numDispatched, numDispatched + 1)) continue;
+            Runnable task = tasksWaiting.poll();
+            if (task == null) {
+                numTasksDispatched.decrementAndGet();
+                continue;
+            }
+            try {
+                lane.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        taskDone();
+                        numTasksDispatched.decrementAndGet();
+                        dispatchWaitingTasks();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The Lane itself has been shutdown, so neither this Task nor the ones still waiting will ever run:
+                taskDone();
+                numTasksDispatched.decrementAndGet();
+                discardWaitingTasks();
+                return;
+            }
+        }
+    }
+
+    // It removes all the Tasks waiting in the local Queue, and returns them. They are no longer pending:
+    private List<Runnable> discardWaitingTasks() {
+        List<Runnable> result = new ArrayList<>();
+        Runnable task;
+        while ((task = tasksWaiting.poll()) != null) {
+            result.add(task);
+            taskDone();
+        }
+        return result;
+    }
+
+    private void taskDone() {
+        if (numTasksPending.decrementAndGet() == 0 && shutdown) {
+            synchronized (this) { notifyAll(); }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown = true;
+        this.stopped = true;
+        runningThreads.forEach(Thread::interrupt);
+        return discardWaitingTasks();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.shutdown && numTasksPending.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (!isTerminated()) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) return false;
+                wait(remainingMillis);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + metrics.getLane() + " lane]";
+    }
+}
@@ -0,0 +1,89 @@
+package io.bitcoinsv.jcl.tools.thread;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A "view" over the Scheduled Lane of the {@link ExecutionModel}. Same as {@link LaneExecutorService}, but it also
+ * allows to schedule Tasks. Shutting down this view cancels the periodic Tasks scheduled through it (and all of them,
+ * in case of "shutdownNow"), but the Lane itself keeps running.
+ */
+class LaneScheduledExecutorService extends LaneExecutorService implements ScheduledExecutorService {
+
+    private final ScheduledExecutorService scheduledLane;
+
+    // Tasks scheduled through this View, and whether they are periodic or not:
+    private final ConcurrentHashMap<ScheduledFuture<?>, Boolean> scheduledTasks = new ConcurrentHashMap<>();
+
+    LaneScheduledExecutorService(String name, ScheduledExecutorService lane, ExecutionModel.LaneMetrics metrics) {
+        super(name, lane, metrics);
+        this.scheduledLane = lane;
+    }
+
+    private <T extends ScheduledFuture<?>> T register(T future, boolean periodic) {
+        scheduledTasks.keySet().removeIf(Future::isDone);
+        scheduledTasks.put(future, periodic);
+        return future;
+    }
+
+    private <V> Callable<V> wrap(Callable<V> callable) {
+        return () -> {
+            Object[] result = new Object[1];
+            Exception[] error = new Exception[1];
+            wrap(() -> {
+                try {
+                    result[0] = callable.call();
+                } catch (Exception e) {
+                    error[0] = e;
+                }
+            }).run();
+            if (error[0] != null) throw error[0];
+            return (V) result[0];
+        };
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        checkNotShutdown();
+        return register(scheduledLane.schedule(wrap(command), delay, unit), false);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        checkNotShutdown();
+        return register(scheduledLane.schedule(wrap(callable), delay, unit), false);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        checkNotShutdown();
+        return register(scheduledLane.scheduleAtFixedRate(wrap(command), initialDelay, period, unit), true);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        checkNotShutdown();
+        return register(scheduledLane.scheduleWithFixedDelay(wrap(command), initialDelay, delay, unit), true);
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        scheduledTasks.forEach((future, periodic) -> { if (periodic) future.cancel(false); });
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> result = super.shutdownNow();
+        scheduledTasks.keySet().forEach(future -> future.cancel(true));
+        return result;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return super.isTerminated() && scheduledTasks.keySet().stream().allMatch(Future::isDone);
+    }
+}
@@ -2,7 +2,10 @@ package io.bitcoinsv.jcl.tools.thread;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -18,6 +21,31 @@ import java.util.stream.Collectors;
  */
 public class ThreadUtils {
 
+    private static final Logger log = LoggerFactory.getLogger(ThreadUtils.class);
+
+    // Virtual Threads are only available in JDK 21+. Since this library is compiled against Java 11, we access them
+    // by reflection. These references are NULL if they are not available in the JVM we are running on:
+    private static final Method THREAD_OF_VIRTUAL           = findMethod(Thread.class, "ofVirtual");
+    private static final Method THREAD_BUILDER_NAME         = findMethod("java.lang.Thread$Builder", "name", String.class, long.class);
+    private static final Method THREAD_BUILDER_FACTORY      = findMethod("java.lang.Thread$Builder", "factory");
+    private static final Method EXECUTORS_THREAD_PER_TASK   = findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private static Method findMethod(String className, String methodName, Class<?>... paramTypes) {
+        try {
+            return findMethod(Class.forName(className), methodName, paramTypes);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(Class<?> clazz, String methodName, Class<?>... paramTypes) {
+        try {
+            return clazz.getMethod(methodName, paramTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
 
     /**
      * ThreadFactory used by the EventBus that control the events in the Streams assigned to the remote Peers.
@@ -94,6 +122,55 @@ public class ThreadUtils {
         return Executors.newSingleThreadScheduledExecutor(getThreadFactory(threadName, Thread.MAX_PRIORITY, true));
     }
 
+    /** Indicates if Virtual Threads are supported by the JVM we are running on (JDK 21+) */
+    public static boolean isVirtualThreadsSupported() {
+        return THREAD_OF_VIRTUAL != null && THREAD_BUILDER_NAME != null && THREAD_BUILDER_FACTORY != null
+                && EXECUTORS_THREAD_PER_TASK != null;
+    }
+
+    /**
+     * Returns a ThreadFactory that creates Virtual Threads, named after the name given plus a counter. It returns NULL
+     * if Virtual Threads are not supported.
+     */
+    public static ThreadFactory getVirtualThreadFactory(String threadName) {
+        if (!isVirtualThreadsSupported()) return null;
+        try {
+            Object builder = THREAD_OF_VIRTUAL.invoke(null);
+            builder = THREAD_BUILDER_NAME.invoke(builder, threadName + ":", 0L);
+            return (ThreadFactory) THREAD_BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Error creating a Virtual Thread Factory", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns an Executor that runs each Task in a new Virtual Thread. Intended for Tasks that spend most of their
+     * time blocked. If Virtual Threads are not supported, a CachedThread executor is returned instead.
+     */
+    public static ExecutorService getVirtualThreadExecutorService(String threadName) {
+        ThreadFactory virtualThreadFactory = getVirtualThreadFactory(threadName);
+        if (virtualThreadFactory != null) {
+            try {
+                return (ExecutorService) EXECUTORS_THREAD_PER_TASK.invoke(null, virtualThreadFactory);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Error creating a Virtual Thread Executor", e);
+            }
+        }
+        return getCachedThreadExecutorService(threadName);
+    }
+
+    /**
+     * Returns a CachedThread executor with up to "maxThreads" Threads. If "virtualThreads" is TRUE and the JVM
+     * supports them, the Threads are Virtual, so blocking in them does not keep a Platform Thread busy.
+     */
+    public static ExecutorService getCachedThreadExecutorService(String threadName, int maxThreads, boolean virtualThreads) {
+        ThreadFactory virtualThreadFactory = virtualThreads ? getVirtualThreadFactory(threadName) : null;
+        if (virtualThreadFactory == null) return getCachedThreadExecutorService(threadName, maxThreads);
+        return new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), virtualThreadFactory);
+    }
+
 
     /**
      * Temporary Code to printout info about the Threads triggered by JCL (A Threads is being considered part of
@@ -26,13 +26,21 @@ public class TimeoutTask {
     Runnable task;
     // Task to run if the timeout is reached (sad path)
     Runnable timeoutTask;
+    // Timer Wheel used to keep track of the timeout when the Task is executed asynchronously
+    TimerWheel timerWheel;
 
     // Constructor
-    protected TimeoutTask(ExecutorService executor, Runnable task, Runnable timeoutTask, int timeoutMillisecs) {
+    protected TimeoutTask(ExecutorService executor, Runnable task, Runnable timeoutTask, int timeoutMillisecs, TimerWheel timerWheel) {
         this.executor = executor;
         this.task = task;
         this.timeoutTask = timeoutTask;
         this.timeoutMillisecs = timeoutMillisecs;
+        this.timerWheel = timerWheel;
+    }
+
+    // Constructor
+    protected TimeoutTask(ExecutorService executor, Runnable task, Runnable timeoutTask, int timeoutMillisecs) {
+        this(executor, task, timeoutTask, timeoutMillisecs, null);
     }
 
     /**
@@ -59,4 +67,34 @@ public class TimeoutTask {
             logger.error("Error executing a TimeoutMonitorTask", e);
         }
     }
+
+    /**
+     * Executes the task asynchronously: the calling Thread is NOT blocked waiting for the Task to finish. Instead, a
+     * Deadline is registered in the Timer Wheel, and if the task has not finished by then, it gets interrupted and
+     * the alternate "timeoutTask" is executed instead. If the task finishes on time, the Deadline is cancelled.
+     *
+     * @return the Future of the main Task
+     */
+    public Future<?> executeAsync() {
+        TimerWheel wheel = (timerWheel != null) ? timerWheel : TimerWheel.getInstance();
+        final TimerWheel.Timeout[] deadline = new TimerWheel.Timeout[1];
+        Future<?> taskResult = executor.submit(() -> {
+            try {
+                task.run();
+            } finally {
+                if (deadline[0] != null) deadline[0].cancel();
+            }
+        });
+        deadline[0] = wheel.schedule(() -> {
+            if (!taskResult.isDone() && taskResult.cancel(true) && timeoutTask != null) {
+                try {
+                    timeoutTask.run();
+                } catch (Exception e) {
+                    logger.error("Error executing the timeout fallback", e);
+                }
+            }
+        }, timeoutMillisecs);
+        if (taskResult.isDone()) deadline[0].cancel();
+        return taskResult;
+    }
 }
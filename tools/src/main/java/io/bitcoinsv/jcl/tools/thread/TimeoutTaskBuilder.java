@@ -14,6 +14,7 @@ public class TimeoutTaskBuilder {
     private Runnable task;
     private Runnable timeoutTask;
     private int timeoutMillisecs;
+    private TimerWheel timerWheel;
 
     // Constructor
     private TimeoutTaskBuilder() {}
@@ -42,9 +43,18 @@ public class TimeoutTaskBuilder {
         return this;
     }
 
+    /**
+     * Specifies the Timer Wheel used to keep track of the timeout when the Task is executed asynchronously. If not
+     * specified, the shared instance is used.
+     */
+    public TimeoutTaskBuilder timeoutHandledBy(TimerWheel timerWheel) {
+        this.timerWheel = timerWheel;
+        return this;
+    }
+
     /** Returns an instance of {@link TimeoutTask} */
     public TimeoutTask build() {
-        return new TimeoutTask(executorService, task, timeoutTask, timeoutMillisecs);
+        return new TimeoutTask(executorService, task, timeoutTask, timeoutMillisecs, timerWheel);
     }
 
     /** Creates a new Builder */
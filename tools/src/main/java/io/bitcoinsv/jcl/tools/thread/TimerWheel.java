@@ -0,0 +1,345 @@
+package io.bitcoinsv.jcl.tools.thread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * @author i.fernandez@nchain.com
+ * Copyright (c) 2018-2020 nChain Ltd
+ *
+ * A Hierarchical Timing Wheel, used to schedule deadlines (timeouts) that are triggered once in the future.
+ *
+ * Instead of having each Handler running its own Thread, looping over all its Peers in order to check if any timeout
+ * has been broken, each Handler registers a Deadline here whenever it needs one (a Ping response, inactivity of a
+ * Block being downloaded, a Batch of messages to flush, etc), and the Task linked to that Deadline is only executed
+ * when the Deadline expires. Scheduling and cancelling a Deadline are both O(1) operations.
+ *
+ * The Wheel is made up of several LEVELS. Each Level is a circular array of SLOTS. Each Slot in Level 0 represents
+ * one "tick" (a time interval), each Slot in Level 1 represents a whole revolution of the Level 0, and so on. Deadlines
+ * far in the future are stored in the upper levels, and they are "cascaded" down to the lower levels as the time
+ * passes, until they reach Level 0 and they expire.
+ *
+ * The Tasks are NOT executed by the Thread that moves the Wheel, they are submitted to an ExecutorService instead, so
+ * a slow Task does not delay the rest of Deadlines. Components that use the {@link ExecutionModel} pass the View of
+ * their own Lane when they schedule a Task, so it runs there. The Wheel's own Executor is only used otherwise.
+ *
+ * A Single instance of this class can be shared by all the Handlers (see {@link #getInstance()}).
+ */
+public class TimerWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+
+    // Default values:
+    public static final Duration DEFAULT_TICK_DURATION  = Duration.ofMillis(50);
+    public static final int      DEFAULT_WHEEL_BITS     = 6;    // 64 Slots per Level
+    public static final int      DEFAULT_NUM_LEVELS     = 5;    // 50ms * 64^5 ~ 621 days
+
+    // Shared instance:
+    private static volatile TimerWheel instance;
+
+    /**
+     * A Deadline registered in the Wheel. It can be cancelled at any time before it expires. Each instance is linked
+     * to other instances within the same Slot, so it can be removed from it in constant time.
+     */
+    public static class Timeout {
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final Executor executor;
+        private final long deadlineTick;
+
+        // Links within the Slot this Timeout is stored in:
+        private Timeout prev;
+        private Timeout next;
+        private Slot slot;
+
+        private volatile boolean cancelled;
+        private volatile boolean expired;
+
+        private Timeout(TimerWheel wheel, Runnable task, Executor executor, long deadlineTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.executor = executor;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /** Cancels this Timeout. Returns TRUE if it was cancelled, or FALSE if it had already expired/cancelled */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+
+        public boolean isCancelled()    { return this.cancelled; }
+        public boolean isExpired()      { return this.expired; }
+    }
+
+    /** A Slot of one Level of the Wheel. It stores a doubly-linked list of Timeouts */
+    private static class Slot {
+        private Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.slot = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) head.prev = timeout;
+            head = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            else head = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.slot = null;
+        }
+
+        /** Removes all the Timeouts from this Slot and returns the first one (they are still linked together) */
+        Timeout drain() {
+            Timeout result = head;
+            head = null;
+            return result;
+        }
+    }
+
+    // Configuration:
+    private final String name;
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final int numLevels;
+
+    // The Wheel itself: [Level][Slot]
+    private final Slot[][] levels;
+
+    // Time reference, and the last Tick processed:
+    private final long startNanos;
+    private long currentTick;
+
+    // Executor where the expired Tasks are run, unless they specify their own:
+    private final ExecutorService tasksExecutor;
+    // Executor running the job that moves the Wheel forward:
+    private ExecutorService tickExecutor;
+
+    // Some indicators:
+    private final AtomicLong numTimeoutsPending = new AtomicLong();
+    private final AtomicLong numTimeoutsExpired = new AtomicLong();
+    private final AtomicLong numTimeoutsCancelled = new AtomicLong();
+
+    /** Constructor */
+    public TimerWheel(String name, Duration tickDuration, int wheelBits, int numLevels, ExecutorService tasksExecutor) {
+        checkArgument(tickDuration != null && !tickDuration.isNegative() && !tickDuration.isZero(), "The Tick duration must be positive");
+        checkArgument(wheelBits > 0 && wheelBits < 16, "The number of bits of each Wheel must be in [1..15]");
+        checkArgument(numLevels > 0 && (wheelBits * numLevels) < 63, "Too many Levels for the Wheel size given");
+        this.name = name;
+        this.tickNanos = tickDuration.toNanos();
+        this.wheelBits = wheelBits;
+        this.wheelMask = (1 << wheelBits) - 1;
+        this.numLevels = numLevels;
+        this.levels = new Slot[numLevels][1 << wheelBits];
+        for (int l = 0; l < numLevels; l++) {
+            for (int s = 0; s <= wheelMask; s++) {
+                levels[l][s] = new Slot();
+            }
+        }
+        this.startNanos = System.nanoTime();
+        this.currentTick = 0;
+        this.tasksExecutor = (tasksExecutor != null)
+                ? tasksExecutor
+                : ThreadUtils.getCachedThreadExecutorService(name + "-Tasks");
+    }
+
+    /** Constructor, using default values */
+    public TimerWheel(String name) {
+        this(name, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_BITS, DEFAULT_NUM_LEVELS, null);
+    }
+
+    /**
+     * It returns a single instance of this Class (Singleton), shared by all the Handlers. This instance is started
+     * the first time it's requested, and it's never stopped (its Threads are daemon).
+     */
+    public static TimerWheel getInstance() {
+        if (instance == null) {
+            synchronized (TimerWheel.class) {
+                if (instance == null) {
+                    TimerWheel wheel = new TimerWheel("JclTimerWheel");
+                    wheel.start();
+                    instance = wheel;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /** Starts the Thread that moves the Wheel forward */
+    public synchronized void start() {
+        if (tickExecutor != null) return;
+        this.tickExecutor = ThreadUtils.getSingleThreadExecutorService(name);
+        this.tickExecutor.submit(this::tickJob);
+    }
+
+    /** Stops the Wheel. Pending Timeouts are NOT executed */
+    public synchronized void stop() {
+        if (tickExecutor != null) tickExecutor.shutdownNow();
+        tasksExecutor.shutdownNow();
+    }
+
+    /**
+     * Schedules the Task given to be executed once the delay given has passed. The precision is the Tick duration
+     * of this Wheel, so the Task might run up to one Tick later than requested, but never earlier.
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        return schedule(task, delay, null);
+    }
+
+    /**
+     * Schedules the Task given to be executed in the Executor given once the delay given has passed. If the Executor
+     * is null, the Task is executed in the Executor of this Wheel.
+     */
+    public Timeout schedule(Runnable task, Duration delay, Executor executor) {
+        long delayNanos = Math.max(0, delay.toNanos());
+        // We round UP the absolute deadline (not just the delay), so the Task is never executed before it:
+        long deadlineNanos = (System.nanoTime() - startNanos) + delayNanos;
+        long deadlineTick = (deadlineNanos + tickNanos - 1) / tickNanos;
+        Timeout timeout = new Timeout(this, task, executor, deadlineTick);
+        synchronized (this) {
+            insert(timeout, currentTick + 1);
+        }
+        numTimeoutsPending.incrementAndGet();
+        return timeout;
+    }
+
+    /** Convenience method to schedule a Task specifying the delay in milliseconds */
+    public Timeout schedule(Runnable task, long delayMillisecs) {
+        return schedule(task, Duration.ofMillis(delayMillisecs));
+    }
+
+    // It cancels the Timeout given, removing it from its Slot:
+    private boolean cancel(Timeout timeout) {
+        synchronized (this) {
+            if (timeout.expired || timeout.cancelled) return false;
+            timeout.cancelled = true;
+            if (timeout.slot != null) timeout.slot.remove(timeout);
+        }
+        numTimeoutsPending.decrementAndGet();
+        numTimeoutsCancelled.incrementAndGet();
+        return true;
+    }
+
+    // It inserts the Timeout in the right Level and Slot, based on how far in the future its deadline is. A new
+    // Timeout can never be placed in the current Tick (which is already processed), so "minTick" is the next one,
+    // but the Timeouts cascaded down from upper levels can still expire in the current Tick.
+    // NOTE: It must be called while holding the lock:
+    private void insert(Timeout timeout, long minTick) {
+        long deadlineTick = Math.max(timeout.deadlineTick, minTick);
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < numLevels - 1 && delta >= (1L << (wheelBits * (level + 1)))) {
+            level++;
+        }
+        // If the Deadline is further away than the whole Wheel, we place it in the furthest Slot of the last Level,
+        // it will be re-evaluated every time that Slot is cascaded:
+        long maxDelta = (1L << (wheelBits * numLevels)) - 1;
+        if (delta > maxDelta) deadlineTick = currentTick + maxDelta;
+
+        int slotIndex = (int) ((deadlineTick >>> (wheelBits * level)) & wheelMask);
+        levels[level][slotIndex].add(timeout);
+    }
+
+    // It moves the Wheel one Tick forward, and returns the list of Timeouts expired in that Tick.
+    // NOTE: It must be called while holding the lock:
+    private void advance(List<Timeout> expiredTimeouts) {
+        currentTick++;
+
+        // Before processing the Slot at Level 0, we cascade down the Timeouts from the upper levels, if we have
+        // completed a whole revolution of the lower level:
+        for (int level = 1; level < numLevels; level++) {
+            long lowerBitsMask = (1L << (wheelBits * level)) - 1;
+            if ((currentTick & lowerBitsMask) != 0) break;
+            int slotIndex = (int) ((currentTick >>> (wheelBits * level)) & wheelMask);
+            Timeout timeout = levels[level][slotIndex].drain();
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout.slot = null;
+                insert(timeout, currentTick);
+                timeout = next;
+            }
+        }
+
+        // Now we process the Slot of the current Tick at Level 0:
+        Timeout timeout = levels[0][(int) (currentTick & wheelMask)].drain();
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.slot = null;
+            if (timeout.deadlineTick <= currentTick) {
+                timeout.expired = true;
+                expiredTimeouts.add(timeout);
+            } else {
+                // Not expired yet (it was clamped to the end of the Wheel). We put it back:
+                insert(timeout, currentTick + 1);
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * This job runs in a separate Thread: It moves the Wheel forward, one Tick at a time, and it submits the Tasks
+     * of the expired Timeouts to the Executor
+     */
+    private void tickJob() {
+        try {
+            List<Timeout> expiredTimeouts = new ArrayList<>();
+            while (true) {
+                long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+                synchronized (this) {
+                    // If this Thread has been delayed, we catch up with all the Ticks missed:
+                    while (currentTick < targetTick) {
+                        advance(expiredTimeouts);
+                    }
+                }
+
+                for (Timeout timeout : expiredTimeouts) {
+                    numTimeoutsPending.decrementAndGet();
+                    numTimeoutsExpired.incrementAndGet();
+                    try {
+                        Executor executor = (timeout.executor != null) ? timeout.executor : tasksExecutor;
+                        executor.execute(() -> {
+                            try {
+                                timeout.task.run();
+                            } catch (Exception e) {
+                                logger.error("Error executing a Timeout Task", e);
+                            }
+                        });
+                    } catch (Exception e) {
+                        logger.error("Error submitting a Timeout Task", e);
+                    }
+                }
+                expiredTimeouts.clear();
+
+                // We wait until the next Tick:
+                long nextTickNanos = startNanos + ((targetTick + 1) * tickNanos);
+                long waitNanos = nextTickNanos - System.nanoTime();
+                if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        } catch (InterruptedException ie) {
+            // We do nothing, most probably it's due to the Wheel being stopped...
+        }
+    }
+
+    public Duration getTickDuration()       { return Duration.ofNanos(this.tickNanos); }
+    public long getNumTimeoutsPending()     { return this.numTimeoutsPending.get(); }
+    public long getNumTimeoutsExpired()     { return this.numTimeoutsExpired.get(); }
+    public long getNumTimeoutsCancelled()   { return this.numTimeoutsCancelled.get(); }
+}
@@ -0,0 +1,81 @@
+package io.bitcoinsv.jcl.tools.performance.thread
+
+import io.bitcoinsv.jcl.tools.thread.ExecutionModel
+import io.bitcoinsv.jcl.tools.thread.ThreadUtils
+import groovy.util.logging.Slf4j
+import spock.lang.Specification
+
+import java.lang.management.ManagementFactory
+import java.lang.management.ThreadMXBean
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.TimeUnit
+
+/**
+ * Performance comparison between running blocking Tasks in the IO Lane with Platform Threads and with Virtual
+ * Threads. If the JVM does not support Virtual Threads (JDK < 21), the Execution Model falls back to Platform Threads,
+ * so both runs should give similar results.
+ */
+@Slf4j
+class VirtualThreadsPerformanceSpec extends Specification {
+
+    /**
+     * We submit a number of Tasks that spend all their time blocked (like a reader waiting for bytes to arrive), and
+     * we measure the time it takes to run all of them and the number of Platform Threads alive during the process.
+     * With Platform Threads, the IO Lane is bounded, so the Tasks run in batches of MAX_IO_THREADS and the number of
+     * Threads does not grow beyond that. With Virtual Threads, all of them are blocked at the same time, so the whole
+     * run takes less than those batches would, while the Platform Threads are still bounded (by the carrier Threads).
+     */
+    def "comparing Platform and Virtual Threads running blocking Tasks"() {
+        given:
+            final int NUM_TASKS = 2_000
+            final Duration TASK_BLOCKING_TIME = Duration.ofMillis(10)
+            final int MAX_IO_THREADS = 50
+
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean()
+            ExecutionModel executionModel = new ExecutionModel("JclTest", 2, MAX_IO_THREADS, false, 1, useVirtualThreads)
+            ExecutorService executor = executionModel.getIOLane("blockingTasks")
+            CountDownLatch latch = new CountDownLatch(NUM_TASKS)
+
+        when:
+            threadMXBean.resetPeakThreadCount()
+            int initialThreads = threadMXBean.getThreadCount()
+            Instant begin = Instant.now()
+            for (int i = 0; i < NUM_TASKS; i++) {
+                executor.submit({
+                    Thread.sleep(TASK_BLOCKING_TIME.toMillis())
+                    latch.countDown()
+                } as Runnable)
+            }
+            boolean allDone = latch.await(60, TimeUnit.SECONDS)
+            Duration duration = Duration.between(begin, Instant.now())
+            int peakThreads = threadMXBean.getPeakThreadCount()
+            double tasksPerSec = (NUM_TASKS * 1000.0) / Math.max(1, duration.toMillis())
+            boolean virtualUsed = executionModel.isVirtualIOThreads()
+
+            log.info("Virtual Threads requested: {}, supported: {}, used: {}",
+                    useVirtualThreads, ThreadUtils.isVirtualThreadsSupported(), virtualUsed)
+            log.info("{} blocking Tasks run in {} milliseconds ({} tasks/sec)",
+                    NUM_TASKS, duration.toMillis(), String.format("%.2f", tasksPerSec))
+            log.info("Platform Threads: {} before, {} peak", initialThreads, peakThreads)
+            log.info("{}", executionModel.getState())
+
+            // Minimum time needed if the Tasks run in batches of MAX_IO_THREADS, and max Platform Threads expected:
+            long batchedMillis = (NUM_TASKS / MAX_IO_THREADS) * TASK_BLOCKING_TIME.toMillis()
+            int maxNewThreads = (virtualUsed ? Runtime.getRuntime().availableProcessors() : MAX_IO_THREADS) + 5
+
+            executor.shutdown()
+            executionModel.shutdown()
+
+        then:
+            allDone
+            virtualUsed == (useVirtualThreads && ThreadUtils.isVirtualThreadsSupported())
+            (peakThreads - initialThreads) <= maxNewThreads
+            virtualUsed ? (duration.toMillis() < batchedMillis) : (duration.toMillis() >= batchedMillis)
+
+        where:
+            useVirtualThreads << [false, true]
+    }
+}
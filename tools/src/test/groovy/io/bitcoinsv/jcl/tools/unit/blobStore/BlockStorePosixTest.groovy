@@ -3,8 +3,10 @@ package io.bitcoinsv.jcl.tools.unit.blobStore
 import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.HeaderReadOnly
 import io.bitcoinsv.bitcoinjsv.bitcoin.api.base.Tx
 import io.bitcoinsv.bitcoinjsv.bitcoin.bean.base.FullBlockBean
+import io.bitcoinsv.bitcoinjsv.core.Sha256Hash
 import io.bitcoinsv.jcl.tools.blobStore.BlockStorePosix
 import io.bitcoinsv.jcl.tools.blobStore.BlockStorePosixConfig
+import io.bitcoinsv.jcl.tools.blobStore.BlockStorePosixWriter
 import io.bitcoinsv.jcl.tools.common.TestingUtils
 import org.apache.groovy.json.internal.ArrayUtils
 import shaded.org.apache.maven.wagon.ResourceDoesNotExistException
@@ -238,4 +240,154 @@ class BlockStorePosixTest extends Specification {
         blockStorePosix.clear()
     }
 
+
+    def "test streaming a block through a writer"() {
+        given:
+        Path path = buildWorkingFolder()
+        BlockStorePosixConfig blockStorePosixConfig = BlockStorePosixConfig.builder()
+                .batchSize(100_000)
+                .workingFolder(path)
+                .build()
+        BlockStorePosix blockStorePosix = new BlockStorePosix(blockStorePosixConfig)
+
+        Tx tx = TestingUtils.buildTx()
+        Tx tx2 = TestingUtils.buildTx()
+        Tx tx3 = TestingUtils.buildTx()
+        HeaderReadOnly block = TestingUtils.buildBlock()
+
+        FullBlockBean blockBean = new FullBlockBean()
+        blockBean.setHeader(block)
+        blockBean.setTransactions(List.of(tx, tx2, tx3))
+
+        when:
+        BlockStorePosixWriter writer = blockStorePosix.openBlockWriter(block, 3)
+        writer.append(tx.serialize())
+        writer.append(List.of(tx2.serialize(), tx3.serialize()))
+        boolean visibleBeforeCommit = blockStorePosix.containsBlock(block.getHash())
+        writer.commit()
+
+        then:
+        !visibleBeforeCommit
+        writer.getTxsBytesWritten() == tx.serialize().length + tx2.serialize().length + tx3.serialize().length
+        blockStorePosix.containsBlock(block.getHash())
+        blockStorePosix.readBlockHeader(block.getHash()) == block
+        blockStorePosix.readNumberOfTxs(block.getHash()) == 3
+        Arrays.equals(blockStorePosix.readBlock(block.getHash()).findFirst().get(), blockBean.serialize())
+
+        cleanup:
+        blockStorePosix.clear()
+    }
+
+    def "test closing a writer without committing"() {
+        given:
+        Path path = buildWorkingFolder()
+        BlockStorePosixConfig blockStorePosixConfig = BlockStorePosixConfig.builder()
+                .batchSize(100_000)
+                .workingFolder(path)
+                .build()
+        BlockStorePosix blockStorePosix = new BlockStorePosix(blockStorePosixConfig)
+
+        Tx tx = TestingUtils.buildTx()
+        HeaderReadOnly block = TestingUtils.buildBlock()
+
+        when:
+        BlockStorePosixWriter writer = blockStorePosix.openBlockWriter(block, 1)
+        writer.append(tx.serialize())
+        writer.close()
+
+        // After closing, the block can be written again from scratch:
+        BlockStorePosixWriter writer2 = blockStorePosix.openBlockWriter(block, 1)
+        writer2.append(tx.serialize())
+        writer2.commit()
+        blockStorePosix.openBlockWriter(block, 1)
+
+        then:
+        thrown(IllegalAccessException)
+        blockStorePosix.containsBlock(block.getHash())
+        blockStorePosix.readBlockTxs(block.getHash()).findFirst().get() == tx.serialize()
+
+        cleanup:
+        blockStorePosix.clear()
+    }
+
+    def "test resuming a writer from its checkpoint"() {
+        given:
+        Path path = buildWorkingFolder()
+        BlockStorePosixConfig blockStorePosixConfig = BlockStorePosixConfig.builder()
+                .batchSize(100_000)
+                .workingFolder(path)
+                .build()
+        BlockStorePosix blockStorePosix = new BlockStorePosix(blockStorePosixConfig)
+
+        Tx tx = TestingUtils.buildTx()
+        Tx tx2 = TestingUtils.buildTx()
+        Tx tx3 = TestingUtils.buildTx()
+        HeaderReadOnly block = TestingUtils.buildBlock()
+
+        FullBlockBean blockBean = new FullBlockBean()
+        blockBean.setHeader(block)
+        blockBean.setTransactions(List.of(tx, tx2, tx3))
+
+        when:
+        BlockStorePosixWriter writer = blockStorePosix.openBlockWriter(block, 3)
+        writer.append(tx.serialize())
+        writer.checkpoint()
+        // This one is written after the checkpoint, so it will be dropped when resuming:
+        writer.append(tx2.serialize())
+        List<Sha256Hash> partialBlocks = blockStorePosix.getPartialBlocks()
+
+        BlockStorePosixWriter resumedWriter = blockStorePosix.resumeBlockWriter(block.getHash()).get()
+        long bytesResumed = resumedWriter.getTxsBytesWritten()
+        resumedWriter.append(List.of(tx2.serialize(), tx3.serialize()))
+        resumedWriter.commit()
+
+        then:
+        partialBlocks == List.of(block.getHash())
+        bytesResumed == tx.serialize().length
+        blockStorePosix.getPartialBlocks().isEmpty()
+        !blockStorePosix.resumeBlockWriter(block.getHash()).isPresent()
+        Arrays.equals(blockStorePosix.readBlock(block.getHash()).findFirst().get(), blockBean.serialize())
+
+        cleanup:
+        blockStorePosix.clear()
+    }
+
+    def "test suspending a writer right after resuming it"() {
+        given:
+        Path path = buildWorkingFolder()
+        BlockStorePosixConfig blockStorePosixConfig = BlockStorePosixConfig.builder()
+                .batchSize(100_000)
+                .workingFolder(path)
+                .build()
+        BlockStorePosix blockStorePosix = new BlockStorePosix(blockStorePosixConfig)
+
+        Tx tx = TestingUtils.buildTx()
+        Tx tx2 = TestingUtils.buildTx()
+        HeaderReadOnly block = TestingUtils.buildBlock()
+
+        FullBlockBean blockBean = new FullBlockBean()
+        blockBean.setHeader(block)
+        blockBean.setTransactions(List.of(tx, tx2))
+
+        when:
+        BlockStorePosixWriter writer = blockStorePosix.openBlockWriter(block, 2)
+        writer.append(tx.serialize())
+        writer.suspend()
+
+        // It's resumed and suspended again before anything else is appended (while skipping the Txs already written):
+        BlockStorePosixWriter resumedWriter = blockStorePosix.resumeBlockWriter(block.getHash()).get()
+        resumedWriter.suspend()
+
+        Optional<BlockStorePosixWriter> resumedAgain = blockStorePosix.resumeBlockWriter(block.getHash())
+        long bytesResumed = resumedAgain.map({ w -> w.getTxsBytesWritten() }).orElse(0L)
+        resumedAgain.ifPresent({ w -> w.append(tx2.serialize()); w.commit() })
+
+        then:
+        resumedAgain.isPresent()
+        bytesResumed == tx.serialize().length
+        Arrays.equals(blockStorePosix.readBlock(block.getHash()).findFirst().get(), blockBean.serialize())
+
+        cleanup:
+        blockStorePosix.clear()
+    }
 }
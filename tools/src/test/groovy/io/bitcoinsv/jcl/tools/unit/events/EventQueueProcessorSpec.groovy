@@ -0,0 +1,59 @@
+package io.bitcoinsv.jcl.tools.unit.events
+
+import io.bitcoinsv.jcl.tools.events.Event
+import io.bitcoinsv.jcl.tools.events.EventQueueProcessor
+import spock.lang.Specification
+
+import java.util.concurrent.AbstractExecutorService
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Testing class for the EventQueueProcessor
+ */
+class EventQueueProcessorSpec extends Specification {
+
+    class TestEvent extends Event {
+        String id;
+        TestEvent(String id) { this.id = id;}
+    }
+
+    /**
+     * An Executor that runs each task in the calling Thread. The first time it's used, it lets another Thread add an
+     * Event and takes some time to return, so that Event is added while the queued ones are still being submitted.
+     */
+    class SlowExecutor extends AbstractExecutorService {
+        CountDownLatch firstSubmitted = new CountDownLatch(1)
+        @Override void execute(Runnable task) {
+            task.run()
+            if (firstSubmitted.getCount() > 0) {
+                firstSubmitted.countDown()
+                Thread.sleep(300)
+            }
+        }
+        @Override void shutdown() {}
+        @Override List<Runnable> shutdownNow() { return [] }
+        @Override boolean isShutdown() { return false }
+        @Override boolean isTerminated() { return false }
+        @Override boolean awaitTermination(long timeout, TimeUnit unit) { return true }
+    }
+
+    def "testing Events added while the queued ones are submitted are processed after them"() {
+        given:
+            SlowExecutor executor = new SlowExecutor()
+            EventQueueProcessor processor = new EventQueueProcessor("testing", executor)
+            List<String> processed = Collections.synchronizedList(new ArrayList<>())
+            processor.addProcessor(TestEvent.class, { e -> processed.add(((TestEvent) e).id) })
+        when:
+            processor.addEvent(new TestEvent("queued1"))
+            processor.addEvent(new TestEvent("queued2"))
+            Thread lateThread = Thread.start {
+                executor.firstSubmitted.await()
+                processor.addEvent(new TestEvent("late"))
+            }
+            processor.start()
+            lateThread.join()
+        then:
+            processed == ["queued1", "queued2", "late"]
+    }
+}
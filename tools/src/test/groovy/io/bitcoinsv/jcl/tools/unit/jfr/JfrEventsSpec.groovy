@@ -0,0 +1,76 @@
+package io.bitcoinsv.jcl.tools.unit.jfr
+
+import io.bitcoinsv.jcl.tools.events.Event
+import io.bitcoinsv.jcl.tools.events.EventBus
+import io.bitcoinsv.jcl.tools.jfr.TraceableEvent
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordedEvent
+import jdk.jfr.consumer.RecordingFile
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Testing class for the JFR Events recorded by JCL.
+ */
+class JfrEventsSpec extends Specification {
+
+    static class TestMsgEvent extends Event implements TraceableEvent {
+        String getTracePeer()       { return "127.0.0.1:8333" }
+        String getTraceCommand()    { return "inv" }
+        long getTraceSize()         { return 37 }
+    }
+
+    /**
+     * We test that publishing an Event in the EventBus and processing it are recorded as JFR Events, including the
+     * info about the Message linked to the Event.
+     */
+    def "testing EventBus JFR events"() {
+        given:
+            EventBus eventBus = EventBus.builder().build()
+            eventBus.subscribe(TestMsgEvent.class, { e -> })
+            Recording recording = new Recording()
+            recording.enable("io.bitcoinsv.jcl.EventPublished")
+            recording.enable("io.bitcoinsv.jcl.EventHandled").withoutThreshold()
+            Path file = Files.createTempFile("jcl-jfr-test", ".jfr")
+        when:
+            recording.start()
+            5.times { eventBus.publish(new TestMsgEvent()) }
+            recording.stop()
+            recording.dump(file)
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file)
+            List<RecordedEvent> published = events.findAll { it.eventType.name == "io.bitcoinsv.jcl.EventPublished" }
+            List<RecordedEvent> handled = events.findAll { it.eventType.name == "io.bitcoinsv.jcl.EventHandled" }
+            recording.close()
+            Files.deleteIfExists(file)
+        then:
+            published.size() == 5
+            handled.size() == 5
+            published.every { it.getString("eventType") == "TestMsgEvent" && it.getString("command") == "inv" }
+            handled.every { it.getString("peer") == "127.0.0.1:8333" && it.getLong("size") == 37 }
+    }
+
+    /**
+     * We test that nothing is recorded if the Events are disabled in the recording
+     */
+    def "testing JFR events disabled"() {
+        given:
+            EventBus eventBus = EventBus.builder().build()
+            eventBus.subscribe(TestMsgEvent.class, { e -> })
+            Recording recording = new Recording()
+            recording.disable("io.bitcoinsv.jcl.EventPublished")
+            recording.disable("io.bitcoinsv.jcl.EventHandled")
+            Path file = Files.createTempFile("jcl-jfr-test", ".jfr")
+        when:
+            recording.start()
+            5.times { eventBus.publish(new TestMsgEvent()) }
+            recording.stop()
+            recording.dump(file)
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file)
+            recording.close()
+            Files.deleteIfExists(file)
+        then:
+            events.findAll { it.eventType.name.startsWith("io.bitcoinsv.jcl") }.isEmpty()
+    }
+}
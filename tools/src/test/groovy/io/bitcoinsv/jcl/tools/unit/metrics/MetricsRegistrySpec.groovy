@@ -0,0 +1,103 @@
+package io.bitcoinsv.jcl.tools.unit.metrics
+
+import io.bitcoinsv.jcl.tools.events.Event
+import io.bitcoinsv.jcl.tools.events.EventBus
+import io.bitcoinsv.jcl.tools.metrics.HistogramSnapshot
+import io.bitcoinsv.jcl.tools.metrics.MetricsRegistry
+import io.bitcoinsv.jcl.tools.metrics.MetricsSnapshot
+import spock.lang.Specification
+
+import javax.management.ObjectName
+import java.lang.management.ManagementFactory
+
+/**
+ * Testing class for the MetricsRegistry
+ */
+class MetricsRegistrySpec extends Specification {
+
+    static class TestEvent extends Event {}
+
+    /**
+     * We test that Counters and Histograms (with and without Tags) are collected and returned in the Snapshot
+     */
+    def "testing counters and histograms"() {
+        given:
+            MetricsRegistry registry = new MetricsRegistry("testing", true)
+        when:
+            registry.counter("bytes").add(100)
+            registry.counter("bytes").add(50)
+            registry.counter("msgs", "inv").inc()
+            registry.counter("msgs", "inv").inc()
+            registry.counter("msgs", "tx").inc()
+            for (int i = 1; i <= 1000; i++) registry.histogram("latency", "inv").record(i)
+            MetricsSnapshot snapshot = registry.getSnapshot()
+            HistogramSnapshot latency = snapshot.getHistogram("latency[inv]")
+        then:
+            snapshot.getCounter("bytes") == 150
+            snapshot.getCounter("msgs[inv]") == 2
+            snapshot.getCounter("msgs[tx]") == 1
+            latency.count == 1000
+            latency.min == 1
+            latency.max == 1000
+            latency.sum == 500500
+            // Percentiles are approximated, with a relative error below 12.5%:
+            Math.abs(latency.p50 - 500) <= 500 * 0.125
+            Math.abs(latency.p90 - 900) <= 900 * 0.125
+            Math.abs(latency.p99 - 990) <= 990 * 0.125
+    }
+
+    /**
+     * We test that a disabled Registry collects nothing
+     */
+    def "testing disabled registry"() {
+        given:
+            MetricsRegistry registry = MetricsRegistry.DISABLED
+        when:
+            registry.counter("bytes").add(100)
+            registry.histogram("latency", "inv").record(10)
+            long timer = registry.startTimer()
+            MetricsSnapshot snapshot = registry.getSnapshot()
+        then:
+            timer == 0
+            snapshot.counters.isEmpty()
+            snapshot.histograms.isEmpty()
+    }
+
+    /**
+     * We test that the EventBus records the time spent waiting and running the Handlers, by Event Type
+     */
+    def "testing EventBus metrics"() {
+        given:
+            MetricsRegistry registry = new MetricsRegistry("testing", true)
+            EventBus eventBus = EventBus.builder().metrics(registry, "bus").build()
+            int numEventsHandled = 0
+            eventBus.subscribe(TestEvent.class, { e -> numEventsHandled++ })
+        when:
+            10.times { eventBus.publish(new TestEvent()) }
+            MetricsSnapshot snapshot = registry.getSnapshot()
+        then:
+            numEventsHandled == 10
+            snapshot.getHistogram("bus.queueWait[TestEvent]").count == 10
+            snapshot.getHistogram("bus.handle[TestEvent]").count == 10
+    }
+
+    /**
+     * We test that the Registry can be published and removed from JMX
+     */
+    def "testing JMX registration"() {
+        given:
+            MetricsRegistry registry = new MetricsRegistry("testing-jmx", true)
+            ObjectName objectName = new ObjectName("io.bitcoinsv.jcl:type=Metrics,name=" + ObjectName.quote("testing-jmx"))
+            registry.counter("bytes").add(10)
+        when:
+            registry.registerMBean()
+            boolean registered = ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)
+            Object counters = ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Counters")
+            registry.unregisterMBean()
+            boolean unregistered = !ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)
+        then:
+            registered
+            counters != null
+            unregistered
+    }
+}
@@ -0,0 +1,171 @@
+package io.bitcoinsv.jcl.tools.unit.thread
+
+import io.bitcoinsv.jcl.tools.thread.ExecutionModel
+import io.bitcoinsv.jcl.tools.thread.ExecutionModelState
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Testing class for the ExecutionModel and the Views over its Lanes
+ */
+class ExecutionModelSpec extends Specification {
+
+    /**
+     * We test that a View with maxConcurrency = 1 runs its Tasks one after another, in the same order they were
+     * submitted, even though the IO Lane has several Threads
+     */
+    def "testing serial view over the IO Lane"() {
+        given:
+            ExecutionModel model = new ExecutionModel("test", 2, 8, false, 1)
+            ExecutorService serialView = model.getIOLane("serial", 1)
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>())
+            AtomicInteger numRunning = new AtomicInteger()
+            AtomicInteger maxRunning = new AtomicInteger()
+            CountDownLatch latch = new CountDownLatch(50)
+        when:
+            for (int i = 0; i < 50; i++) {
+                final int index = i
+                serialView.submit({ ->
+                    maxRunning.accumulateAndGet(numRunning.incrementAndGet(), { a, b -> Math.max(a, b) })
+                    Thread.sleep(1)
+                    order.add(index)
+                    numRunning.decrementAndGet()
+                    latch.countDown()
+                } as Runnable)
+            }
+            boolean finished = latch.await(5, TimeUnit.SECONDS)
+            model.shutdown()
+        then:
+            finished
+            maxRunning.get() == 1
+            order == (0..49).toList()
+    }
+
+    /**
+     * We test that shutting down a View does not affect other Views over the same Lane
+     */
+    def "testing views shutdown"() {
+        given:
+            ExecutionModel model = new ExecutionModel("test", 2, 4, true, 1)
+            ExecutorService view1 = model.getIOLane("view1")
+            ExecutorService view2 = model.getIOLane("view2")
+            ScheduledExecutorService scheduledView = model.getScheduledLane("scheduled")
+            AtomicInteger numPeriodicExecutions = new AtomicInteger()
+        when:
+            view1.submit({ -> Thread.sleep(10_000) } as Runnable)
+            scheduledView.scheduleAtFixedRate({ -> numPeriodicExecutions.incrementAndGet() }, 0, 10, TimeUnit.MILLISECONDS)
+            Thread.sleep(100)
+            view1.shutdownNow()
+            scheduledView.shutdownNow()
+            boolean view1Terminated = view1.awaitTermination(1, TimeUnit.SECONDS)
+            boolean view2Result = view2.submit({ -> true } as Callable<Boolean>).get(1, TimeUnit.SECONDS)
+            int numPeriodicAfterShutdown = numPeriodicExecutions.get()
+            Thread.sleep(100)
+            model.shutdown()
+        then:
+            view1Terminated
+            view1.isShutdown()
+            view2Result
+            !view2.isShutdown()
+            numPeriodicAfterShutdown > 0
+            numPeriodicExecutions.get() == numPeriodicAfterShutdown
+    }
+
+    /**
+     * We test that if the Lane is shutdown while some Tasks are still waiting in a View with limited concurrency,
+     * those Tasks are discarded and the View can still terminate
+     */
+    def "testing lane shutdown with tasks waiting"() {
+        given:
+            ExecutionModel model = new ExecutionModel("test", 1, 2, false, 1)
+            ExecutorService serialView = model.getIOLane("serial", 1)
+            CountDownLatch firstTaskStarted = new CountDownLatch(1)
+            AtomicInteger numExecuted = new AtomicInteger()
+        when:
+            serialView.submit({ ->
+                firstTaskStarted.countDown()
+                try { Thread.sleep(10_000) } catch (InterruptedException ie) {}
+                numExecuted.incrementAndGet()
+            } as Runnable)
+            (1..5).each { serialView.submit({ -> numExecuted.incrementAndGet() } as Runnable) }
+            firstTaskStarted.await(1, TimeUnit.SECONDS)
+            model.shutdown()
+            serialView.shutdown()
+            boolean terminated = serialView.awaitTermination(2, TimeUnit.SECONDS)
+        then:
+            terminated
+            serialView.isTerminated()
+            numExecuted.get() == 1
+    }
+
+    /**
+     * We test that the Tasks blocked in the Long-Running Lane do not prevent the Tasks in the IO Lane from running
+     */
+    def "testing long-running lane does not starve the IO Lane"() {
+        given:
+            ExecutionModel model = new ExecutionModel("test", 1, 1, false, 1, false, 2)
+            ExecutorService longRunningView = model.getLongRunningLane("longRunning")
+            ExecutorService ioView = model.getIOLane("io")
+            CountDownLatch release = new CountDownLatch(1)
+        when:
+            (1..2).each { longRunningView.submit({ -> release.await() } as Runnable) }
+            Thread.sleep(50)
+            boolean ioResult = ioView.submit({ -> true } as Callable<Boolean>).get(1, TimeUnit.SECONDS)
+            ExecutionModelState state = model.getState()
+            release.countDown()
+            model.shutdown()
+        then:
+            ioResult
+            state.getLane(ExecutionModel.Lane.LONG_RUNNING).getNumTasksRunning() == 2
+            state.getLane(ExecutionModel.Lane.LONG_RUNNING).getNumThreads() == 2
+    }
+
+    /**
+     * We test that the Long-Running Lane grows when a client needs more Threads than its default size
+     */
+    def "testing long-running lane grows up to the Threads requested"() {
+        given:
+            ExecutionModel model = new ExecutionModel("test", 1, 1, false, 1, false, 2)
+            ExecutorService longRunningView = model.getLongRunningLane("longRunning", 4)
+            ExecutorService smallerView = model.getLongRunningLane("smaller", 3)
+            CountDownLatch allStarted = new CountDownLatch(4)
+            CountDownLatch release = new CountDownLatch(1)
+        when:
+            (1..4).each { longRunningView.submit({ -> allStarted.countDown(); release.await() } as Runnable) }
+            boolean allRunning = allStarted.await(1, TimeUnit.SECONDS)
+            ExecutionModelState state = model.getState()
+            release.countDown()
+            model.shutdown()
+        then:
+            allRunning
+            state.getLane(ExecutionModel.Lane.LONG_RUNNING).getNumTasksRunning() == 4
+            state.getLane(ExecutionModel.Lane.LONG_RUNNING).getNumThreads() == 4
+    }
+
+    /**
+     * We test that the utilization of the Lanes is reported
+     */
+    def "testing lanes state"() {
+        given:
+            ExecutionModel model = new ExecutionModel("test", 2, 4, false, 1)
+            ExecutorService cpuView = model.getCPULane("cpu")
+            model.getState() // reset of the utilization
+        when:
+            List futures = (1..4).collect { cpuView.submit({ -> Thread.sleep(100) } as Runnable) }
+            futures.each { it.get() }
+            Thread.sleep(50) // The metrics are updated right after the Future is completed
+            ExecutionModelState state = model.getState()
+            model.shutdown()
+        then:
+            state.getLane(ExecutionModel.Lane.CPU).getNumTasksCompleted() == 4
+            state.getLane(ExecutionModel.Lane.CPU).getUtilization() > 0
+            state.getLane(ExecutionModel.Lane.IO).getNumTasksCompleted() == 0
+            state.getLanes().size() == 4
+    }
+}
@@ -0,0 +1,115 @@
+package io.bitcoinsv.jcl.tools.unit.thread
+
+import io.bitcoinsv.jcl.tools.thread.ThreadUtils
+import io.bitcoinsv.jcl.tools.thread.TimerWheel
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Testing class for the TimerWheel
+ */
+class TimerWheelSpec extends Specification {
+
+    private TimerWheel buildWheel(int wheelBits, int numLevels) {
+        TimerWheel wheel = new TimerWheel("testing-wheel", Duration.ofMillis(10), wheelBits, numLevels,
+                ThreadUtils.getSingleThreadExecutorService("testing-wheel-tasks"))
+        wheel.start()
+        return wheel
+    }
+
+    /**
+     * We test that the tasks are executed once their deadline is reached, and not before
+     */
+    def "testing tasks executed after delay"() {
+        given:
+            TimerWheel wheel = buildWheel(6, 3)
+            CountDownLatch latch = new CountDownLatch(3)
+            long start = System.currentTimeMillis()
+            List<Long> elapsed = Collections.synchronizedList(new ArrayList<>())
+        when:
+            [50, 150, 300].each { delay ->
+                wheel.schedule({ -> elapsed.add(System.currentTimeMillis() - start); latch.countDown() }, delay)
+            }
+            boolean allExecuted = latch.await(5, TimeUnit.SECONDS)
+            wheel.stop()
+        then:
+            allExecuted
+            elapsed.size() == 3
+            elapsed.get(0) >= 50
+            elapsed.get(1) >= 150
+            elapsed.get(2) >= 300
+            wheel.getNumTimeoutsExpired() == 3
+            wheel.getNumTimeoutsPending() == 0
+    }
+
+    /**
+     * We test that a Task scheduled with its own Executor runs there, and not in the Executor of the Wheel
+     */
+    def "testing tasks executed in their own executor"() {
+        given:
+            TimerWheel wheel = buildWheel(6, 3)
+            CountDownLatch latch = new CountDownLatch(2)
+            List<String> threadNames = Collections.synchronizedList(new ArrayList<>())
+        when:
+            wheel.schedule({ -> threadNames.add(Thread.currentThread().getName()); latch.countDown() } as Runnable,
+                    Duration.ofMillis(20), ThreadUtils.getSingleThreadExecutorService("own-executor"))
+            wheel.schedule({ -> threadNames.add(Thread.currentThread().getName()); latch.countDown() } as Runnable,
+                    Duration.ofMillis(50))
+            boolean allExecuted = latch.await(5, TimeUnit.SECONDS)
+            wheel.stop()
+        then:
+            allExecuted
+            threadNames.get(0).startsWith("own-executor")
+            threadNames.get(1).startsWith("testing-wheel-tasks")
+    }
+
+    /**
+     * We test that a cancelled Timeout is never executed
+     */
+    def "testing cancel"() {
+        given:
+            TimerWheel wheel = buildWheel(6, 3)
+            AtomicInteger numExecutions = new AtomicInteger()
+        when:
+            TimerWheel.Timeout timeout = wheel.schedule({ -> numExecutions.incrementAndGet() }, 100)
+            boolean cancelled = timeout.cancel()
+            Thread.sleep(300)
+            wheel.stop()
+        then:
+            cancelled
+            timeout.isCancelled()
+            !timeout.isExpired()
+            numExecutions.get() == 0
+            wheel.getNumTimeoutsCancelled() == 1
+            wheel.getNumTimeoutsPending() == 0
+    }
+
+    /**
+     * We test that deadlines beyond the first level of the wheel are cascaded down and executed on time. We use a
+     * small wheel (4 slots per level) so the deadlines go through several levels.
+     */
+    def "testing cascading through levels"() {
+        given:
+            TimerWheel wheel = buildWheel(2, 4)
+            CountDownLatch latch = new CountDownLatch(4)
+            long start = System.currentTimeMillis()
+            List<Long> elapsed = Collections.synchronizedList(new ArrayList<>())
+        when:
+            [30, 90, 250, 700].each { delay ->
+                wheel.schedule({ -> elapsed.add(System.currentTimeMillis() - start); latch.countDown() }, delay)
+            }
+            boolean allExecuted = latch.await(5, TimeUnit.SECONDS)
+            wheel.stop()
+        then:
+            allExecuted
+            elapsed.get(0) >= 30
+            elapsed.get(1) >= 90
+            elapsed.get(2) >= 250
+            elapsed.get(3) >= 700
+            elapsed.get(3) < 2000
+    }
+}